@@ -0,0 +1,45 @@
+package library.benchmarks;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Entry point of benchmarks.jar. Takes the usual JMH command line (benchmark regex, -p scale=P1M,
+ * -prof gc, ...) and, unless -rff is given, writes the results as JSON to
+ * results/benchmarks-&lt;timestamp&gt;.json so runs can be compared over time.
+ */
+public final class BenchmarkRunner {
+
+    private BenchmarkRunner() {}
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        if (commandLine.shouldHelp()) {
+            commandLine.showHelp();
+            return;
+        }
+        if (commandLine.shouldList()) {
+            new Runner(commandLine).list();
+            return;
+        }
+        ChainedOptionsBuilder options = new OptionsBuilder().parent(commandLine);
+        if (commandLine.getResult().hasValue()) {
+            options.resultFormat(commandLine.getResultFormat().orElse(ResultFormatType.JSON));
+        } else {
+            Path results = Path.of("results");
+            Files.createDirectories(results);
+            String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
+            options.resultFormat(ResultFormatType.JSON)
+                    .result(results.resolve("benchmarks-" + timestamp + ".json").toString());
+        }
+        new Runner(options.build()).run();
+    }
+}
@@ -0,0 +1,67 @@
+package library.benchmarks;
+
+import library.dto.ArtistStatsQuery;
+import library.dto.SongStatsQuery;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * First page of the songs and artists list pages, unfiltered and filtered by gender and
+ * listened date range, sorted by plays.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CatalogListBenchmark {
+
+    @Param({"none", "gender_and_dates"})
+    public String filter;
+
+    private SongStatsQuery songQuery;
+    private ArtistStatsQuery artistQuery;
+
+    @Setup
+    public void buildQueries() {
+        Map<String, Object> songValues = new HashMap<>(Map.of(
+                "sortBy", "plays", "sortDirection", "desc", "limit", 50, "offset", 0));
+        Map<String, Object> artistValues = new HashMap<>(Map.of(
+                "sortBy", "plays", "sortDir", "desc", "limit", 50, "offset", 0));
+        if ("gender_and_dates".equals(filter)) {
+            for (Map<String, Object> values : List.of(songValues, artistValues)) {
+                values.put("genderIds", List.of(1));
+                values.put("genderMode", "includes");
+                values.put("listenedDateFrom", "2018-01-01");
+                values.put("listenedDateTo", "2019-12-31");
+            }
+        }
+        songQuery = LibraryState.query(SongStatsQuery.class, songValues);
+        artistQuery = LibraryState.query(ArtistStatsQuery.class, artistValues);
+    }
+
+    @Benchmark
+    public Object songsWithStats(LibraryState library) {
+        return library.songRepository.findSongsWithStats(songQuery);
+    }
+
+    @Benchmark
+    public Object artistsWithStats(LibraryState library) {
+        return library.artistRepository.findArtistsWithStats(artistQuery);
+    }
+}
@@ -0,0 +1,115 @@
+package library.benchmarks;
+
+import library.util.ItunesLibraryReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One streaming pass over a synthetic iTunes Library.xml (tracks followed by a large playlists
+ * section the reader should never touch). Run with "-prof gc" to see the allocation per pass
+ * next to the time.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(value = 1, jvmArgsAppend = "-Xmx512m")
+@State(Scope.Benchmark)
+public class ItunesLibraryReaderBenchmark {
+
+    @Param({"20000", "60000"})
+    public int tracks;
+
+    private Path libraryXml;
+
+    @Setup
+    public void writeLibrary() throws IOException {
+        Path directory = Path.of(System.getProperty("benchmarks.datasets", "target/datasets"));
+        Files.createDirectories(directory);
+        libraryXml = directory.resolve("itunes-library-" + tracks + ".xml");
+        if (Files.exists(libraryXml)) {
+            return;
+        }
+        SplittableRandom random = new SplittableRandom(42);
+        try (BufferedWriter out = Files.newBufferedWriter(libraryXml, StandardCharsets.UTF_8)) {
+            out.write("""
+                    <?xml version="1.0" encoding="UTF-8"?>
+                    <!DOCTYPE plist PUBLIC "-//Apple//DTD PLIST 1.0//EN" "http://www.apple.com/DTDs/PropertyList-1.0.dtd">
+                    <plist version="1.0">
+                    <dict>
+                    \t<key>Major Version</key><integer>1</integer>
+                    \t<key>Tracks</key>
+                    \t<dict>
+                    """);
+            for (int id = 1; id <= tracks; id++) {
+                out.write("""
+                        \t\t<key>%1$d</key>
+                        \t\t<dict>
+                        \t\t\t<key>Track ID</key><integer>%1$d</integer>
+                        \t\t\t<key>Name</key><string>%2$s</string>
+                        \t\t\t<key>Artist</key><string>%3$s</string>
+                        \t\t\t<key>Album Artist</key><string>%3$s</string>
+                        \t\t\t<key>Album</key><string>%4$s</string>
+                        \t\t\t<key>Genre</key><string>Pop</string>
+                        \t\t\t<key>Kind</key><string>AAC audio file</string>
+                        \t\t\t<key>Total Time</key><integer>%5$d</integer>
+                        \t\t\t<key>Track Number</key><integer>%6$d</integer>
+                        \t\t\t<key>Year</key><integer>%7$d</integer>
+                        \t\t\t<key>Release Date</key><date>%7$d-06-01T12:00:00Z</date>
+                        \t\t\t<key>Persistent ID</key><string>%8$016X</string>
+                        \t\t\t<key>Location</key><string>file:///Music/%1$d.m4a</string>
+                        \t\t</dict>
+                        """.formatted(id,
+                        LibraryDataset.randomName(random, 1 + random.nextInt(4)),
+                        LibraryDataset.randomName(random, 1 + random.nextInt(3)),
+                        LibraryDataset.randomName(random, 1 + random.nextInt(4)),
+                        120_000 + random.nextInt(240_000),
+                        1 + random.nextInt(14),
+                        1970 + random.nextInt(56),
+                        random.nextLong()));
+            }
+            out.write("\t</dict>\n\t<key>Playlists</key>\n\t<array>\n");
+            for (int playlist = 0; playlist < 50; playlist++) {
+                out.write("\t\t<dict>\n\t\t\t<key>Name</key><string>Playlist " + playlist + "</string>\n"
+                        + "\t\t\t<key>Playlist Items</key>\n\t\t\t<array>\n");
+                for (int item = 0; item < tracks / 10; item++) {
+                    out.write("\t\t\t\t<dict><key>Track ID</key><integer>" + (1 + random.nextInt(tracks))
+                            + "</integer></dict>\n");
+                }
+                out.write("\t\t\t</array>\n\t\t</dict>\n");
+            }
+            out.write("\t</array>\n</dict>\n</plist>\n");
+        }
+    }
+
+    @Benchmark
+    public int readAllTracks() throws Exception {
+        int[] count = new int[1];
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(libraryXml))) {
+            ItunesLibraryReader.readTracks(in, track -> {
+                count[0]++;
+                return true;
+            });
+        }
+        return count[0];
+    }
+}
@@ -0,0 +1,476 @@
+package library.benchmarks;
+
+import library.service.AppConfigService;
+import library.service.PlayDayIndexService;
+import library.service.PlayRawTrackService;
+import library.service.PlayStatsService;
+import library.service.SongLinkService;
+import library.service.SongPeriodCountService;
+import library.service.SqliteWriteQueue;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Seeded generator for a synthetic library shaped like a long-running personal scrobble history:
+ * 50k songs over ~5k artists, plays from 2005 to 2025 with a long-tail popularity curve and
+ * "current era" bias (songs are played most around their release), two accounts, ~3% unmatched
+ * scrobbles and generated weekly song charts.
+ *
+ * The same scale and seed always produce the same database. Generated files are cached under
+ * benchmarks/target/datasets and reused by later runs; after the bulk load the app's own index
+ * scripts and service initializers (play_day, song_period_counts, raw track dictionary, app
+ * config, song links) are run against it, so the benchmarks see the schema the app would.
+ */
+public final class LibraryDataset {
+
+    public enum Scale {
+        P100K(100_000),
+        P1M(1_000_000),
+        P5M(5_000_000);
+
+        private final int plays;
+
+        Scale(int plays) {
+            this.plays = plays;
+        }
+
+        public int plays() {
+            return plays;
+        }
+    }
+
+    /** Bump when the generated data changes so cached datasets are rebuilt. */
+    private static final int GENERATOR_VERSION = 2;
+
+    static final int SONGS = 50_000;
+    static final int ARTISTS = 5_000;
+    static final int ALBUMS = 12_000;
+
+    private static final LocalDate FIRST_RELEASE = LocalDate.of(2000, 1, 1);
+    private static final LocalDate FIRST_PLAY = LocalDate.of(2005, 2, 14);
+    private static final LocalDate LAST_PLAY = LocalDate.of(2025, 12, 31);
+    private static final DateTimeFormatter PLAY_DATE = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private static final String[] SYLLABLES = {
+            "la", "mo", "ri", "sa", "ven", "to", "na", "el", "cor", "da", "mi", "lu", "ra", "so", "te",
+            "ca", "bo", "ni", "ar", "go", "fe", "li", "ma", "no", "ro", "ta", "vi", "ze", "qui", "sol"};
+    private static final String[] COUNTRIES = {
+            "US", "MX", "PR", "GB", "CO", "ES", "CA", "KR", "AR", "DO", "BR", "SE", "AU", "FR", "JP"};
+
+    private LibraryDataset() {}
+
+    /**
+     * Returns the database file for scale and seed, generating it first when it is not cached.
+     */
+    public static Path prepare(Scale scale, long seed) {
+        Path directory = Path.of(System.getProperty("benchmarks.datasets", "target/datasets"));
+        Path file = directory.resolve("library-" + scale.name().toLowerCase() + "-" + seed + ".db");
+        if (Files.exists(file) && isComplete(file)) {
+            return file;
+        }
+        try {
+            Files.createDirectories(directory);
+            Path partial = directory.resolve(file.getFileName() + ".partial");
+            Files.deleteIfExists(partial);
+            generate(partial, scale, seed);
+            Files.move(partial, file, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not generate dataset " + file, e);
+        }
+        return file;
+    }
+
+    /**
+     * A single-connection DataSource on the dataset, as used by the app's services in the benchmarks.
+     */
+    public static SingleConnectionDataSource open(Path file) {
+        SingleConnectionDataSource dataSource = new SingleConnectionDataSource();
+        dataSource.setDriverClassName("org.sqlite.JDBC");
+        dataSource.setUrl("jdbc:sqlite:" + file.toAbsolutePath());
+        dataSource.setSuppressClose(true);
+        return dataSource;
+    }
+
+    private static boolean isComplete(Path file) {
+        SingleConnectionDataSource dataSource = open(file);
+        try {
+            Integer version = new JdbcTemplate(dataSource).queryForObject(
+                    "SELECT value FROM dataset_info WHERE key = 'generator_version'", Integer.class);
+            return version != null && version == GENERATOR_VERSION;
+        } catch (RuntimeException e) {
+            return false;
+        } finally {
+            dataSource.destroy();
+        }
+    }
+
+    private static void generate(Path file, Scale scale, long seed) {
+        long start = System.nanoTime();
+        System.out.printf("Generating %s dataset (seed %d) at %s%n", scale, seed, file);
+        SingleConnectionDataSource dataSource = open(file);
+        try {
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+            jdbcTemplate.execute("PRAGMA journal_mode = OFF");
+            jdbcTemplate.execute("PRAGMA synchronous = OFF");
+            new ResourceDatabasePopulator(new ClassPathResource("benchmark-schema.sql")).execute(dataSource);
+
+            Connection connection = dataSource.getConnection();
+            connection.setAutoCommit(false);
+            new Generator(connection, new SplittableRandom(seed), scale.plays()).run();
+            connection.commit();
+            connection.setAutoCommit(true);
+
+            new ResourceDatabasePopulator(
+                    new ClassPathResource("benchmark-indexes.sql"),
+                    new ClassPathResource("db_timeframe_performance_indexes.sql"),
+                    new ClassPathResource("db_last_listened_performance_indexes.sql")).execute(dataSource);
+            generateWeeklyCharts(jdbcTemplate);
+
+            SqliteWriteQueue writeQueue = new SqliteWriteQueue(new DataSourceTransactionManager(dataSource));
+            PlayDayIndexService playDayIndexService = new PlayDayIndexService(jdbcTemplate);
+            playDayIndexService.initialize();
+            new SongPeriodCountService(jdbcTemplate).initialize();
+            new PlayStatsService(jdbcTemplate, playDayIndexService, writeQueue).initialize();
+            new PlayRawTrackService(jdbcTemplate).initialize();
+            new AppConfigService(jdbcTemplate, false, "vatito", "", 10, 20, 7, 23).initialize();
+            new SongLinkService(jdbcTemplate, writeQueue).initialize();
+            jdbcTemplate.execute("ANALYZE");
+
+            jdbcTemplate.execute("CREATE TABLE dataset_info (key TEXT PRIMARY KEY, value TEXT NOT NULL)");
+            jdbcTemplate.update("INSERT INTO dataset_info (key, value) VALUES (?, ?), (?, ?), (?, ?)",
+                    "generator_version", String.valueOf(GENERATOR_VERSION),
+                    "scale", scale.name(),
+                    "seed", String.valueOf(seed));
+            jdbcTemplate.execute("PRAGMA journal_mode = DELETE");
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not generate dataset " + file, e);
+        } finally {
+            dataSource.destroy();
+        }
+        System.out.printf("Generated %s dataset in %.1f s%n", scale, (System.nanoTime() - start) / 1e9);
+    }
+
+    /**
+     * Finalized weekly song charts (top 20 by plays) for every week but the last, which is left
+     * in progress for the chart preview benchmark.
+     */
+    private static void generateWeeklyCharts(JdbcTemplate jdbcTemplate) {
+        jdbcTemplate.execute("""
+                CREATE TEMP TABLE week_top AS
+                SELECT period_key, song_id, plays,
+                       ROW_NUMBER() OVER (PARTITION BY period_key ORDER BY plays DESC, song_id) AS position
+                FROM (
+                    SELECT strftime('%Y-W%W', play_date) AS period_key, song_id, COUNT(*) AS plays
+                    FROM Play
+                    WHERE song_id IS NOT NULL
+                    GROUP BY period_key, song_id
+                )
+                WHERE period_key < (SELECT MAX(strftime('%Y-W%W', play_date)) FROM Play)
+                """);
+        jdbcTemplate.update("""
+                INSERT INTO Chart (chart_type, period_type, period_key, period_start_date, period_end_date,
+                                   generated_date, is_finalized)
+                SELECT 'song', 'weekly', period_key, MIN(p.day), MAX(p.day), MAX(p.day), 1
+                FROM (
+                    SELECT DISTINCT strftime('%Y-W%W', play_date) AS period_key, SUBSTR(play_date, 1, 10) AS day
+                    FROM Play
+                ) p
+                WHERE period_key IN (SELECT period_key FROM week_top)
+                GROUP BY period_key
+                """);
+        jdbcTemplate.update("""
+                INSERT INTO ChartEntry (chart_id, position, song_id, play_count)
+                SELECT c.id, t.position, t.song_id, t.plays
+                FROM week_top t
+                JOIN Chart c ON c.period_key = t.period_key AND c.chart_type = 'song' AND c.period_type = 'weekly'
+                WHERE t.position <= 20
+                """);
+        jdbcTemplate.execute("DROP TABLE week_top");
+    }
+
+    /**
+     * The latest week that has plays, in the app's weekly period key format (YYYY-WXX).
+     */
+    public static String latestWeekKey(JdbcTemplate jdbcTemplate) {
+        return jdbcTemplate.queryForObject("SELECT MAX(strftime('%Y-W%W', play_date)) FROM Play", String.class);
+    }
+
+    /**
+     * A made-up title of the given number of words, from a small syllable set so names share
+     * trigrams the way real catalog names do.
+     */
+    static String randomName(SplittableRandom random, int words) {
+        List<String> parts = new ArrayList<>(words);
+        for (int w = 0; w < words; w++) {
+            StringBuilder word = new StringBuilder();
+            int syllables = 1 + random.nextInt(3);
+            for (int s = 0; s < syllables; s++) {
+                word.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+            }
+            word.setCharAt(0, Character.toUpperCase(word.charAt(0)));
+            parts.add(word.toString());
+        }
+        return String.join(" ", parts);
+    }
+
+    private static final class Generator {
+
+        private final Connection connection;
+        private final SplittableRandom random;
+        private final int plays;
+
+        private final String[] artistNames = new String[ARTISTS + 1];
+        private final String[] albumNames = new String[ALBUMS + 1];
+        private final int[] albumArtist = new int[ALBUMS + 1];
+        private final String[] songNames = new String[SONGS + 1];
+        private final int[] songArtist = new int[SONGS + 1];
+        private final int[] songAlbum = new int[SONGS + 1];
+
+        private Generator(Connection connection, SplittableRandom random, int plays) {
+            this.connection = connection;
+            this.random = random;
+            this.plays = plays;
+        }
+
+        private void run() throws SQLException {
+            lookups();
+            artists();
+            albums();
+            songs();
+            plays();
+        }
+
+        private void lookups() throws SQLException {
+            try (Statement statement = connection.createStatement()) {
+                statement.executeUpdate("INSERT INTO Gender (id, name) VALUES (1, 'Female'), (2, 'Male'), (3, 'Mixed')");
+                statement.executeUpdate("""
+                        INSERT INTO Genre (id, name) VALUES (1, 'Pop'), (2, 'Latin'), (3, 'Rock'), (4, 'Hip Hop'),
+                            (5, 'R&B'), (6, 'Dance'), (7, 'Country'), (8, 'K-Pop')
+                        """);
+                statement.executeUpdate("""
+                        INSERT INTO SubGenre (id, name, parent_genre_id) VALUES (1, 'Teen Pop', 1), (2, 'Reggaeton', 2),
+                            (3, 'Bachata', 2), (4, 'Alt Rock', 3), (5, 'Trap', 4), (6, 'House', 6)
+                        """);
+                statement.executeUpdate("""
+                        INSERT INTO Ethnicity (id, name) VALUES (1, 'White'), (2, 'Hispanic'), (3, 'Black'),
+                            (4, 'Asian'), (5, 'Mixed')
+                        """);
+                statement.executeUpdate("""
+                        INSERT INTO Language (id, name) VALUES (1, 'English'), (2, 'Spanish'), (3, 'Korean'),
+                            (4, 'Portuguese')
+                        """);
+            }
+        }
+
+        private void artists() throws SQLException {
+            try (PreparedStatement insert = connection.prepareStatement("""
+                    INSERT INTO Artist (id, name, gender_id, country, ethnicity_id, genre_id, subgenre_id,
+                                        language_id, is_band, organized, birth_date)
+                    VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+                    """)) {
+                for (int id = 1; id <= ARTISTS; id++) {
+                    artistNames[id] = name(1 + random.nextInt(3)) + (random.nextInt(40) == 0 ? " " + id : "");
+                    int gender = weighted(55, 35, 10);
+                    insert.setInt(1, id);
+                    insert.setString(2, artistNames[id]);
+                    insert.setInt(3, gender);
+                    insert.setString(4, COUNTRIES[skewed(COUNTRIES.length)]);
+                    insert.setInt(5, 1 + random.nextInt(5));
+                    insert.setInt(6, 1 + skewed(8));
+                    setNullable(insert, 7, random.nextInt(3) == 0 ? 1 + random.nextInt(6) : null);
+                    insert.setInt(8, 1 + skewed(4));
+                    insert.setInt(9, gender == 3 ? 1 : 0);
+                    insert.setInt(10, random.nextInt(4) == 0 ? 0 : 1);
+                    insert.setString(11, gender == 3 ? null : LocalDate.of(1950 + random.nextInt(55), 1 + random.nextInt(12), 1 + random.nextInt(28)).toString());
+                    insert.addBatch();
+                }
+                insert.executeBatch();
+            }
+            try (PreparedStatement insert = connection.prepareStatement(
+                    "INSERT OR IGNORE INTO ArtistMember (group_artist_id, member_artist_id) VALUES (?, ?)")) {
+                for (int group = 1; group <= ARTISTS; group += 25) {
+                    insert.setInt(1, group);
+                    insert.setInt(2, 1 + random.nextInt(ARTISTS));
+                    insert.addBatch();
+                }
+                insert.executeBatch();
+            }
+        }
+
+        private void albums() throws SQLException {
+            try (PreparedStatement insert = connection.prepareStatement("""
+                    INSERT INTO Album (id, artist_id, name, release_date, number_of_songs, organized)
+                    VALUES (?, ?, ?, ?, ?, ?)
+                    """)) {
+                for (int id = 1; id <= ALBUMS; id++) {
+                    // Album ids follow release order so songs (and their eras) are in release order too
+                    albumArtist[id] = 1 + skewed(ARTISTS);
+                    albumNames[id] = name(1 + random.nextInt(4));
+                    insert.setInt(1, id);
+                    insert.setInt(2, albumArtist[id]);
+                    insert.setString(3, albumNames[id]);
+                    insert.setString(4, releaseDate(id, ALBUMS).toString());
+                    insert.setInt(5, 8 + random.nextInt(10));
+                    insert.setInt(6, random.nextInt(5) == 0 ? 0 : 1);
+                    insert.addBatch();
+                }
+                insert.executeBatch();
+            }
+        }
+
+        private void songs() throws SQLException {
+            try (PreparedStatement insert = connection.prepareStatement("""
+                    INSERT INTO Song (id, artist_id, album_id, name, length_seconds, is_single,
+                                      override_genre_id, release_date, organized, track_number)
+                    VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+                    """);
+                 PreparedStatement featured = connection.prepareStatement(
+                         "INSERT OR IGNORE INTO SongFeaturedArtist (song_id, artist_id) VALUES (?, ?)")) {
+                for (int id = 1; id <= SONGS; id++) {
+                    boolean standalone = random.nextInt(10) == 0;
+                    int album = standalone ? 0 : Math.min(ALBUMS, 1 + (int) ((long) (id - 1) * ALBUMS / SONGS));
+                    songAlbum[id] = album;
+                    songArtist[id] = standalone ? 1 + skewed(ARTISTS) : albumArtist[album];
+                    songNames[id] = name(1 + random.nextInt(4));
+                    insert.setInt(1, id);
+                    insert.setInt(2, songArtist[id]);
+                    setNullable(insert, 3, standalone ? null : album);
+                    insert.setString(4, songNames[id]);
+                    insert.setInt(5, 120 + random.nextInt(240));
+                    insert.setInt(6, standalone || random.nextInt(6) == 0 ? 1 : 0);
+                    setNullable(insert, 7, random.nextInt(20) == 0 ? 1 + random.nextInt(8) : null);
+                    insert.setString(8, releaseDate(id, SONGS).toString());
+                    insert.setInt(9, random.nextInt(5) == 0 ? 0 : 1);
+                    setNullable(insert, 10, standalone ? null : 1 + random.nextInt(14));
+                    insert.addBatch();
+                    if (random.nextInt(12) == 0) {
+                        featured.setInt(1, id);
+                        featured.setInt(2, 1 + random.nextInt(ARTISTS));
+                        featured.addBatch();
+                    }
+                    if (id % 10_000 == 0) {
+                        insert.executeBatch();
+                        featured.executeBatch();
+                    }
+                }
+                insert.executeBatch();
+                featured.executeBatch();
+            }
+        }
+
+        private void plays() throws SQLException {
+            long first = FIRST_PLAY.atStartOfDay().toEpochSecond(ZoneOffset.UTC);
+            long end = LAST_PLAY.plusDays(1).atStartOfDay().toEpochSecond(ZoneOffset.UTC);
+            long span = end - first;
+            long releaseStart = FIRST_RELEASE.atStartOfDay().toEpochSecond(ZoneOffset.UTC);
+            long[] times = new long[plays];
+            for (int i = 0; i < plays; i++) {
+                // Listening grows over the years: later days are more likely
+                times[i] = first + (long) (Math.sqrt(random.nextDouble()) * span);
+            }
+            Arrays.sort(times);
+
+            // Popularity ranks are a fixed shuffle of song ids, so the long tail is spread over the catalog
+            int[] byRank = new int[SONGS];
+            for (int i = 0; i < SONGS; i++) {
+                byRank[i] = i + 1;
+            }
+            for (int i = SONGS - 1; i > 0; i--) {
+                int j = random.nextInt(i + 1);
+                int swap = byRank[i];
+                byRank[i] = byRank[j];
+                byRank[j] = swap;
+            }
+
+            try (PreparedStatement insert = connection.prepareStatement("""
+                    INSERT INTO Play (id, artist, album, song, play_date, song_id, account)
+                    VALUES (?, ?, ?, ?, ?, ?, ?)
+                    """)) {
+                for (int i = 0; i < plays; i++) {
+                    int song;
+                    if (random.nextInt(10) < 6) {
+                        // Current era: recently released songs, most plays just behind the release front
+                        int front = (int) ((double) (times[i] - releaseStart) / (end - releaseStart) * SONGS);
+                        song = clamp(front - (int) Math.abs(random.nextGaussian() * 1_500), 1, SONGS);
+                    } else {
+                        song = byRank[(int) (SONGS * Math.pow(random.nextDouble(), 3))];
+                    }
+                    boolean unmatched = random.nextInt(100) < 3;
+                    insert.setInt(1, i + 1);
+                    insert.setString(2, artistNames[songArtist[song]]);
+                    insert.setString(3, songAlbum[song] == 0 ? null : albumNames[songAlbum[song]]);
+                    insert.setString(4, unmatched ? songNames[song] + " (Live)" : songNames[song]);
+                    insert.setString(5, LocalDateTime.ofEpochSecond(times[i], 0, ZoneOffset.UTC).format(PLAY_DATE));
+                    setNullable(insert, 6, unmatched ? null : song);
+                    insert.setString(7, random.nextInt(10) < 7 ? "vatito" : "robertlover");
+                    insert.addBatch();
+                    if ((i + 1) % 10_000 == 0) {
+                        insert.executeBatch();
+                    }
+                }
+                insert.executeBatch();
+            }
+        }
+
+        private String name(int words) {
+            return randomName(random, words);
+        }
+
+        /** Index in [0, size) biased towards 0. */
+        private int skewed(int size) {
+            return (int) (size * Math.pow(random.nextDouble(), 2));
+        }
+
+        private int weighted(int... weights) {
+            int total = Arrays.stream(weights).sum();
+            int pick = random.nextInt(total);
+            for (int i = 0; i < weights.length; i++) {
+                pick -= weights[i];
+                if (pick < 0) {
+                    return i + 1;
+                }
+            }
+            return weights.length;
+        }
+
+        /** Release dates run from 2000 to the end of the play history in id order. */
+        private LocalDate releaseDate(int id, int count) {
+            long days = LAST_PLAY.toEpochDay() - FIRST_RELEASE.toEpochDay();
+            return FIRST_RELEASE.plusDays(days * (id - 1) / count + random.nextInt(30));
+        }
+
+        private static int clamp(int value, int min, int max) {
+            return Math.max(min, Math.min(max, value));
+        }
+
+        private static void setNullable(PreparedStatement statement, int index, Integer value) throws SQLException {
+            if (value == null) {
+                statement.setNull(index, Types.INTEGER);
+            } else {
+                statement.setInt(index, value);
+            }
+        }
+    }
+}
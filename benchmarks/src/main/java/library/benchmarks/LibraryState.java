@@ -0,0 +1,105 @@
+package library.benchmarks;
+
+import library.repository.ArtistRepositoryImpl;
+import library.repository.SongRepository;
+import library.service.AppConfigService;
+import library.service.ChartService;
+import library.service.SongPeriodCountService;
+import library.service.SqliteWriteQueue;
+import library.service.TimeframeService;
+import library.service.TopPlayedTimelineService;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.RecordComponent;
+import java.util.Map;
+
+/**
+ * The generated library for one scale, opened once per trial, with the app's services wired
+ * on a single connection the same way the unit tests wire them.
+ *
+ * Services whose collaborators the benchmarked methods never touch (chart persistence, iTunes,
+ * backfill) get null for them.
+ */
+@State(Scope.Benchmark)
+public class LibraryState {
+
+    @Param({"P100K", "P1M", "P5M"})
+    public LibraryDataset.Scale scale;
+
+    @Param("42")
+    public long seed;
+
+    SingleConnectionDataSource dataSource;
+    JdbcTemplate jdbcTemplate;
+    SqliteWriteQueue writeQueue;
+    AppConfigService appConfigService;
+    SongRepository songRepository;
+    ArtistRepositoryImpl artistRepository;
+    TimeframeService timeframeService;
+    ChartService chartService;
+    TopPlayedTimelineService topPlayedTimelineService;
+    String latestWeekKey;
+
+    @Setup(Level.Trial)
+    public void open() {
+        dataSource = LibraryDataset.open(LibraryDataset.prepare(scale, seed));
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        // Not started, so writes run inline on the benchmark thread like in the unit tests
+        writeQueue = new SqliteWriteQueue(new DataSourceTransactionManager(dataSource));
+        appConfigService = new AppConfigService(jdbcTemplate, false, "vatito", "", 10, 20, 7, 23);
+        songRepository = new SongRepository(jdbcTemplate, appConfigService);
+        artistRepository = new ArtistRepositoryImpl(jdbcTemplate);
+        timeframeService = new TimeframeService(jdbcTemplate, new SongPeriodCountService(jdbcTemplate));
+        chartService = new ChartService(null, null, jdbcTemplate, null, appConfigService, null, null, null, null);
+        topPlayedTimelineService = new TopPlayedTimelineService(jdbcTemplate, writeQueue);
+        topPlayedTimelineService.initialize();
+        latestWeekKey = LibraryDataset.latestWeekKey(jdbcTemplate);
+    }
+
+    @TearDown(Level.Trial)
+    public void close() {
+        dataSource.destroy();
+    }
+
+    /**
+     * Builds a list-page query record (SongStatsQuery, ArtistStatsQuery, ...) with every filter
+     * unset and the given components overridden, like the controllers do for an unfiltered page.
+     */
+    static <T> T query(Class<T> recordType, Map<String, Object> overrides) {
+        try {
+            RecordComponent[] components = recordType.getRecordComponents();
+            Class<?>[] parameterTypes = new Class<?>[components.length];
+            Object[] args = new Object[components.length];
+            for (int i = 0; i < components.length; i++) {
+                RecordComponent component = components[i];
+                parameterTypes[i] = component.getType();
+                args[i] = overrides.containsKey(component.getName())
+                        ? overrides.get(component.getName())
+                        : defaultValue(component.getType());
+            }
+            Constructor<T> constructor = recordType.getDeclaredConstructor(parameterTypes);
+            return constructor.newInstance(args);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Unable to build query record " + recordType.getSimpleName(), e);
+        }
+    }
+
+    private static Object defaultValue(Class<?> type) {
+        if (type == int.class) {
+            return 0;
+        }
+        if (type == boolean.class) {
+            return false;
+        }
+        return null;
+    }
+}
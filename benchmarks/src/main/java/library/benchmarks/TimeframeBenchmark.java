@@ -0,0 +1,58 @@
+package library.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * First page of the timeframes list (period cards with winners and totals) per period type,
+ * unfiltered and with a winning-gender filter, sorted by period as the page loads by default.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TimeframeBenchmark {
+
+    @Param({"weeks", "months", "years"})
+    public String periodType;
+
+    @Param({"false", "true"})
+    public boolean winningGenderFilter;
+
+    @Benchmark
+    public Object timeframeCards(LibraryState library) {
+        List<Integer> winningGender = winningGenderFilter ? List.of(1) : null;
+        return library.timeframeService.getTimeframeCardsWithCount(periodType,
+                winningGender, winningGenderFilter ? "includes" : null,
+                null, null,
+                null, null,
+                null, null,
+                null, null,
+                null, null,
+                null, null,
+                null, null,
+                null, null,
+                null, null,
+                null, null,
+                null, null,
+                null, null,
+                null, null,
+                null, null,
+                null, null,
+                null, null,
+                "period", "desc", 0, 50);
+    }
+}
@@ -0,0 +1,39 @@
+package library.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The "top played over time" timelines. The first call of a trial replays the play history
+ * into the persisted snapshots (unless an earlier trial already did on this dataset); the
+ * measured calls read them back like a page view with no new plays.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class TopPlayedTimelineBenchmark {
+
+    @Benchmark
+    public Object artistTimeline(LibraryState library) {
+        return library.topPlayedTimelineService.getArtistTimeline();
+    }
+
+    @Benchmark
+    public Object songTimeline(LibraryState library) {
+        return library.topPlayedTimelineService.getSongTimeline();
+    }
+
+    @Benchmark
+    public Object genreTimeline(LibraryState library) {
+        return library.topPlayedTimelineService.getGenreTimeline();
+    }
+}
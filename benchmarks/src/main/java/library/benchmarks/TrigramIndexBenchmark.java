@@ -0,0 +1,87 @@
+package library.benchmarks;
+
+import library.util.TrigramIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fuzzy song lookups (match modals, candidate suggestions) against catalogs of synthetic names:
+ * the trigram index next to the brute-force similarity scan it replaced. Queries are catalog
+ * names with one character dropped, as in a typo.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TrigramIndexBenchmark {
+
+    private static final int QUERIES = 256;
+
+    @Param({"10000", "50000"})
+    public int catalogSize;
+
+    private String[] names;
+    private String[] queries;
+    private TrigramIndex index;
+    private int next;
+
+    @Setup
+    public void buildIndex() {
+        SplittableRandom random = new SplittableRandom(42);
+        names = new String[catalogSize];
+        TrigramIndex.Builder builder = TrigramIndex.builder();
+        for (int id = 0; id < catalogSize; id++) {
+            names[id] = LibraryDataset.randomName(random, 1 + random.nextInt(3)) + " "
+                    + LibraryDataset.randomName(random, 1 + random.nextInt(4));
+            builder.add(id, names[id]);
+        }
+        index = builder.build();
+
+        queries = new String[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            String name = names[random.nextInt(catalogSize)];
+            int drop = random.nextInt(name.length());
+            queries[i] = name.substring(0, drop) + name.substring(drop + 1);
+        }
+    }
+
+    @Benchmark
+    public List<TrigramIndex.Match> indexSearch() {
+        return index.search(nextQuery(), 10, 0.3);
+    }
+
+    @Benchmark
+    public int bruteForceScan() {
+        String query = nextQuery();
+        int best = -1;
+        double bestSimilarity = 0;
+        for (int id = 0; id < names.length; id++) {
+            double similarity = TrigramIndex.similarity(query, names[id]);
+            if (similarity > bestSimilarity) {
+                bestSimilarity = similarity;
+                best = id;
+            }
+        }
+        return best;
+    }
+
+    private String nextQuery() {
+        next = (next + 1) % QUERIES;
+        return queries[next];
+    }
+}
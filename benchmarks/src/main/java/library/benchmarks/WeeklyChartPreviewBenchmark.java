@@ -0,0 +1,28 @@
+package library.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Preview of the in-progress weekly song chart (the last generated week is left unfinalized),
+ * including the chart history stats it enriches each entry with.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WeeklyChartPreviewBenchmark {
+
+    @Benchmark
+    public Object weeklySongChartPreview(LibraryState library) {
+        return library.chartService.getWeeklySongChartPreview(library.latestWeekKey);
+    }
+}
@@ -0,0 +1,95 @@
+-- Indexes of db_consolidated.sql (sections 4 to 6), created after the bulk load.
+
+CREATE INDEX IF NOT EXISTS idx_artist_name ON Artist(name);
+CREATE INDEX IF NOT EXISTS idx_artist_gender ON Artist(gender_id);
+CREATE INDEX IF NOT EXISTS idx_artist_ethnicity ON Artist(ethnicity_id);
+CREATE INDEX IF NOT EXISTS idx_artist_genre ON Artist(genre_id);
+CREATE INDEX IF NOT EXISTS idx_artist_language ON Artist(language_id);
+CREATE INDEX IF NOT EXISTS idx_artist_organized ON Artist(organized);
+CREATE INDEX IF NOT EXISTS idx_album_artist ON Album(artist_id);
+CREATE INDEX IF NOT EXISTS idx_album_name ON Album(name);
+CREATE INDEX IF NOT EXISTS idx_album_release_date ON Album(release_date);
+CREATE INDEX IF NOT EXISTS idx_album_organized ON Album(organized);
+CREATE INDEX IF NOT EXISTS idx_song_artist ON Song(artist_id);
+CREATE INDEX IF NOT EXISTS idx_song_album ON Song(album_id);
+CREATE INDEX IF NOT EXISTS idx_song_name ON Song(name);
+CREATE INDEX IF NOT EXISTS idx_song_release_date ON Song(release_date);
+CREATE INDEX IF NOT EXISTS idx_song_organized ON Song(organized);
+CREATE INDEX IF NOT EXISTS idx_play_song_id ON Play(song_id);
+CREATE INDEX IF NOT EXISTS idx_play_date ON Play(play_date);
+CREATE INDEX IF NOT EXISTS idx_play_account ON Play(account);
+CREATE INDEX IF NOT EXISTS idx_play_artist ON Play(artist);
+CREATE INDEX IF NOT EXISTS idx_play_lastfm_id ON Play(lastfm_id);
+CREATE INDEX IF NOT EXISTS idx_song_featured_artist_song ON SongFeaturedArtist(song_id);
+CREATE INDEX IF NOT EXISTS idx_song_featured_artist_artist ON SongFeaturedArtist(artist_id);
+CREATE INDEX IF NOT EXISTS idx_artist_member_group ON ArtistMember(group_artist_id);
+CREATE INDEX IF NOT EXISTS idx_artist_member_member ON ArtistMember(member_artist_id);
+CREATE INDEX IF NOT EXISTS idx_artist_image_artist ON ArtistImage(artist_id);
+CREATE INDEX IF NOT EXISTS idx_album_image_album ON AlbumImage(album_id);
+CREATE INDEX IF NOT EXISTS idx_song_image_song ON SongImage(song_id);
+CREATE INDEX IF NOT EXISTS idx_subgenre_parent ON SubGenre(parent_genre_id);
+CREATE INDEX IF NOT EXISTS idx_subgenre_name ON SubGenre(name);
+CREATE UNIQUE INDEX IF NOT EXISTS idx_chart_type_period_type_key ON Chart(chart_type, period_type, period_key);
+CREATE INDEX IF NOT EXISTS idx_chart_type ON Chart(chart_type);
+CREATE INDEX IF NOT EXISTS idx_chart_period_type ON Chart(period_type);
+CREATE INDEX IF NOT EXISTS idx_chart_is_finalized ON Chart(is_finalized);
+CREATE INDEX IF NOT EXISTS idx_chart_period_type_finalized ON Chart(period_type, is_finalized);
+CREATE INDEX IF NOT EXISTS idx_chartentry_chart_id ON ChartEntry(chart_id);
+CREATE INDEX IF NOT EXISTS idx_chartentry_song_id ON ChartEntry(song_id);
+CREATE INDEX IF NOT EXISTS idx_chartentry_album_id ON ChartEntry(album_id);
+CREATE INDEX IF NOT EXISTS idx_chartentry_position ON ChartEntry(chart_id, position);
+CREATE INDEX IF NOT EXISTS idx_play_account_songid ON Play(account, song_id);
+CREATE INDEX IF NOT EXISTS idx_play_account_date ON Play(account, play_date);
+CREATE INDEX IF NOT EXISTS idx_song_artistid_albumid ON Song(artist_id, album_id);
+CREATE INDEX IF NOT EXISTS idx_song_albumid_artistid ON Song(album_id, artist_id);
+CREATE INDEX IF NOT EXISTS idx_song_override_genre ON Song(override_genre_id);
+CREATE INDEX IF NOT EXISTS idx_song_override_subgenre ON Song(override_subgenre_id);
+CREATE INDEX IF NOT EXISTS idx_song_override_language ON Song(override_language_id);
+CREATE INDEX IF NOT EXISTS idx_song_override_gender ON Song(override_gender_id);
+CREATE INDEX IF NOT EXISTS idx_song_override_ethnicity ON Song(override_ethnicity_id);
+CREATE INDEX IF NOT EXISTS idx_album_override_genre ON Album(override_genre_id);
+CREATE INDEX IF NOT EXISTS idx_album_override_subgenre ON Album(override_subgenre_id);
+CREATE INDEX IF NOT EXISTS idx_album_override_language ON Album(override_language_id);
+CREATE INDEX IF NOT EXISTS idx_artist_gender_id ON Artist(gender_id) WHERE gender_id IS NOT NULL;
+CREATE INDEX IF NOT EXISTS idx_artist_ethnicity_country ON Artist(ethnicity_id, country);
+CREATE INDEX IF NOT EXISTS idx_artist_genre_gender ON Artist(genre_id, gender_id);
+CREATE INDEX IF NOT EXISTS idx_play_songid_account ON Play(song_id, account);
+CREATE INDEX IF NOT EXISTS idx_play_songid_date ON Play(song_id, play_date);
+CREATE INDEX IF NOT EXISTS idx_song_artistid_length ON Song(artist_id, length_seconds);
+CREATE INDEX IF NOT EXISTS idx_play_cover_plays ON Play(song_id, account, play_date);
+CREATE INDEX IF NOT EXISTS idx_song_cover_joins ON Song(id, artist_id, album_id, length_seconds);
+CREATE INDEX IF NOT EXISTS idx_song_artistid_albumid_length ON Song(artist_id, album_id, length_seconds);
+CREATE INDEX IF NOT EXISTS idx_song_albumid_length_notnull ON Song(album_id, length_seconds) WHERE album_id IS NOT NULL;
+CREATE INDEX IF NOT EXISTS idx_play_date_songid ON Play(play_date, song_id);
+CREATE INDEX IF NOT EXISTS idx_play_songid_account_date ON Play(song_id, account, play_date);
+CREATE INDEX IF NOT EXISTS idx_play_covering_timeframe ON Play(
+    play_date,
+    song_id
+) WHERE play_date IS NOT NULL;
+CREATE INDEX IF NOT EXISTS idx_song_covering_joins ON Song(
+    id,
+    artist_id,
+    album_id,
+    length_seconds,
+    override_gender_id,
+    override_genre_id,
+    override_ethnicity_id,
+    override_language_id
+);
+CREATE INDEX IF NOT EXISTS idx_artist_covering ON Artist(
+    id,
+    gender_id,
+    genre_id,
+    ethnicity_id,
+    language_id,
+    country
+);
+CREATE INDEX IF NOT EXISTS idx_album_override_covering ON Album(
+    id,
+    override_genre_id,
+    override_language_id
+);
+CREATE INDEX IF NOT EXISTS idx_gender_for_filtering ON Gender(id, name);
+CREATE INDEX IF NOT EXISTS idx_genre_for_filtering ON Genre(id, name);
+CREATE INDEX IF NOT EXISTS idx_ethnicity_for_filtering ON Ethnicity(id, name);
+CREATE INDEX IF NOT EXISTS idx_language_for_filtering ON Language(id, name);
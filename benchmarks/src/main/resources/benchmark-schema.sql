@@ -0,0 +1,118 @@
+-- Base schema for the synthetic benchmark library.
+-- Mirrors the tables and columns the app queries (see db_consolidated.sql and the
+-- migrations); derived tables, columns and triggers (play_day, song_period_counts,
+-- app_config, song links) are created by the app's own services when the dataset is opened,
+-- and the performance indexes come from db_timeframe_performance_indexes.sql and
+-- db_last_listened_performance_indexes.sql.
+
+CREATE TABLE Gender (id INTEGER PRIMARY KEY, name TEXT NOT NULL, image BLOB);
+CREATE TABLE Ethnicity (id INTEGER PRIMARY KEY, name TEXT NOT NULL, image BLOB);
+CREATE TABLE Genre (id INTEGER PRIMARY KEY, name TEXT NOT NULL, image BLOB);
+CREATE TABLE SubGenre (id INTEGER PRIMARY KEY, name TEXT NOT NULL, parent_genre_id INTEGER, image BLOB);
+CREATE TABLE Language (id INTEGER PRIMARY KEY, name TEXT NOT NULL, image BLOB);
+
+CREATE TABLE Artist (
+    id INTEGER PRIMARY KEY,
+    name TEXT NOT NULL,
+    gender_id INTEGER,
+    country TEXT,
+    ethnicity_id INTEGER,
+    genre_id INTEGER,
+    subgenre_id INTEGER,
+    language_id INTEGER,
+    is_band INTEGER DEFAULT 0,
+    organized INTEGER DEFAULT 0,
+    birth_date TEXT,
+    death_date TEXT,
+    image BLOB
+);
+
+CREATE TABLE Album (
+    id INTEGER PRIMARY KEY,
+    artist_id INTEGER NOT NULL,
+    name TEXT NOT NULL,
+    release_date TEXT,
+    number_of_songs INTEGER,
+    override_genre_id INTEGER,
+    override_subgenre_id INTEGER,
+    override_language_id INTEGER,
+    organized INTEGER DEFAULT 0,
+    image BLOB
+);
+
+CREATE TABLE Song (
+    id INTEGER PRIMARY KEY,
+    artist_id INTEGER NOT NULL,
+    album_id INTEGER,
+    name TEXT NOT NULL,
+    length_seconds INTEGER,
+    is_single INTEGER DEFAULT 0,
+    override_genre_id INTEGER,
+    override_subgenre_id INTEGER,
+    override_language_id INTEGER,
+    override_gender_id INTEGER,
+    override_ethnicity_id INTEGER,
+    release_date TEXT,
+    organized INTEGER DEFAULT 0,
+    single_cover BLOB,
+    track_number INTEGER
+);
+
+CREATE TABLE Play (
+    id INTEGER PRIMARY KEY,
+    artist TEXT,
+    album TEXT,
+    song TEXT,
+    lastfm_id INTEGER,
+    play_date TEXT,
+    song_id INTEGER,
+    account TEXT
+);
+
+CREATE TABLE SongFeaturedArtist (song_id INTEGER NOT NULL, artist_id INTEGER NOT NULL, PRIMARY KEY (song_id, artist_id));
+CREATE TABLE ArtistMember (group_artist_id INTEGER NOT NULL, member_artist_id INTEGER NOT NULL, PRIMARY KEY (group_artist_id, member_artist_id));
+CREATE TABLE ArtistImage (id INTEGER PRIMARY KEY, artist_id INTEGER NOT NULL, image BLOB, display_order INTEGER);
+CREATE TABLE AlbumImage (id INTEGER PRIMARY KEY, album_id INTEGER NOT NULL, image BLOB, display_order INTEGER);
+CREATE TABLE SongImage (id INTEGER PRIMARY KEY, song_id INTEGER NOT NULL, image BLOB, display_order INTEGER);
+CREATE TABLE ArtistTheme (id INTEGER PRIMARY KEY, name TEXT, is_active INTEGER DEFAULT 1);
+CREATE TABLE ArtistImageTheme (artist_id INTEGER NOT NULL, theme_id INTEGER NOT NULL);
+CREATE TABLE ArtistTag (artist_id INTEGER NOT NULL, tag_id INTEGER NOT NULL);
+CREATE TABLE AlbumTag (album_id INTEGER NOT NULL, tag_id INTEGER NOT NULL);
+CREATE TABLE SongTag (song_id INTEGER NOT NULL, tag_id INTEGER NOT NULL);
+
+CREATE TABLE Chart (
+    id INTEGER PRIMARY KEY,
+    chart_type TEXT NOT NULL,
+    period_type TEXT NOT NULL,
+    period_key TEXT NOT NULL,
+    period_start_date TEXT NOT NULL,
+    period_end_date TEXT,
+    generated_date TEXT,
+    is_finalized INTEGER DEFAULT 0
+);
+
+CREATE TABLE ChartEntry (
+    id INTEGER PRIMARY KEY,
+    chart_id INTEGER NOT NULL,
+    position INTEGER NOT NULL,
+    song_id INTEGER,
+    album_id INTEGER,
+    play_count INTEGER
+);
+
+CREATE TABLE trl_debut (id INTEGER PRIMARY KEY, song_id INTEGER NOT NULL);
+CREATE TABLE trl_chart_entry (id INTEGER PRIMARY KEY, debut_id INTEGER NOT NULL, chart_date TEXT NOT NULL, position INTEGER NOT NULL);
+CREATE TABLE vatos_cuntdown_entry (id INTEGER PRIMARY KEY, song_id INTEGER NOT NULL, chart_date TEXT NOT NULL, position INTEGER NOT NULL, is_close_call INTEGER DEFAULT 0);
+
+CREATE TABLE billboard_hot100_entry (
+    id INTEGER PRIMARY KEY,
+    chart_date TEXT NOT NULL,
+    position INTEGER NOT NULL,
+    artist_name TEXT NOT NULL,
+    song_title TEXT NOT NULL,
+    peak_position INTEGER NOT NULL,
+    weeks_on_chart INTEGER NOT NULL,
+    song_id INTEGER
+);
+
+CREATE TABLE billboard_hot100_debut (id INTEGER PRIMARY KEY, song_id INTEGER NOT NULL, chart_date TEXT, peak_position INTEGER, weeks_on_chart INTEGER, weeks_at_peak INTEGER);
@@ -0,0 +1,165 @@
+package library.config;
+
+import library.service.SqlTimingService;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * DataSource that times every statement run through it and reports it to SqlTimingService.
+ *
+ * A query's time is its execute call plus every ResultSet.next(), and is reported when the
+ * ResultSet (or its statement) is closed, so SQLite work done while stepping through rows is
+ * counted but the caller's row mapping is not. Other statements are reported when execute
+ * returns. Parameter values are tracked per PreparedStatement so slow statements can be logged
+ * and explained with the values they actually ran with.
+ */
+public class InstrumentedDataSource extends DelegatingDataSource {
+
+    private final SqlTimingService sqlTimingService;
+
+    public InstrumentedDataSource(DataSource target, SqlTimingService sqlTimingService) {
+        super(target);
+        this.sqlTimingService = sqlTimingService;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return instrument(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return instrument(super.getConnection(username, password));
+    }
+
+    private Connection instrument(Connection connection) {
+        return proxy(Connection.class, (proxy, method, args) -> {
+            Object result = invoke(connection, method, args);
+            return switch (method.getName()) {
+                case "createStatement" -> instrument(Statement.class, (Statement) result, null);
+                case "prepareStatement" -> instrument(PreparedStatement.class, (PreparedStatement) result, (String) args[0]);
+                case "prepareCall" -> instrument(CallableStatement.class, (CallableStatement) result, (String) args[0]);
+                default -> result;
+            };
+        });
+    }
+
+    private <S extends Statement> S instrument(Class<S> type, S statement, String preparedSql) {
+        Map<Integer, Object> parameters = new TreeMap<>();
+        Execution[] open = new Execution[1];
+        return proxy(type, (proxy, method, args) -> {
+            String name = method.getName();
+            if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer index) {
+                parameters.put(index, name.equals("setNull") ? null : args[1]);
+                return invoke(statement, method, args);
+            }
+            if (name.equals("clearParameters")) {
+                parameters.clear();
+                return invoke(statement, method, args);
+            }
+            if (name.equals("close") && open[0] != null) {
+                open[0].finish();
+                open[0] = null;
+                return invoke(statement, method, args);
+            }
+            if (!name.startsWith("execute")) {
+                return invoke(statement, method, args);
+            }
+
+            String sql = args != null && args.length > 0 && args[0] instanceof String text ? text : preparedSql;
+            Execution execution = new Execution(sql, parameters);
+            long start = System.nanoTime();
+            Object result;
+            try {
+                result = invoke(statement, method, args);
+            } catch (Throwable e) {
+                execution.nanos += System.nanoTime() - start;
+                execution.finish();
+                throw e;
+            }
+            execution.nanos += System.nanoTime() - start;
+            if (result instanceof ResultSet resultSet) {
+                if (open[0] != null) {
+                    open[0].finish();
+                }
+                open[0] = execution;
+                return instrument(resultSet, execution);
+            }
+            execution.finish();
+            return result;
+        });
+    }
+
+    private ResultSet instrument(ResultSet resultSet, Execution execution) {
+        return proxy(ResultSet.class, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "next" -> {
+                    long start = System.nanoTime();
+                    try {
+                        return invoke(resultSet, method, args);
+                    } finally {
+                        execution.nanos += System.nanoTime() - start;
+                    }
+                }
+                case "close" -> {
+                    try {
+                        return invoke(resultSet, method, args);
+                    } finally {
+                        execution.finish();
+                    }
+                }
+                default -> {
+                    return invoke(resultSet, method, args);
+                }
+            }
+        });
+    }
+
+    /**
+     * One execute call and, for queries, the reads of its ResultSet.
+     */
+    private final class Execution {
+
+        private final String sql;
+        private final Map<Integer, Object> parameters;
+        private long nanos;
+        private boolean finished;
+
+        private Execution(String sql, Map<Integer, Object> parameters) {
+            this.sql = sql;
+            this.parameters = parameters;
+        }
+
+        private void finish() {
+            if (!finished) {
+                finished = true;
+                sqlTimingService.recordStatement(sql, parameters, nanos);
+            }
+        }
+    }
+
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return type.cast(Proxy.newProxyInstance(InstrumentedDataSource.class.getClassLoader(), new Class<?>[] {type}, handler));
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package library.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import library.service.SqlTimingService;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.ModelAndView;
+
+/**
+ * Times controller requests for SqlTimingService, keyed by HTTP method and mapped path pattern
+ * ("GET /songs/{id}"). postHandle runs after the controller method and before the view is
+ * rendered, which splits handler time from Thymeleaf render time.
+ */
+public class RequestTimingInterceptor implements AsyncHandlerInterceptor {
+
+    private final SqlTimingService sqlTimingService;
+
+    public RequestTimingInterceptor(SqlTimingService sqlTimingService) {
+        this.sqlTimingService = sqlTimingService;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (handler instanceof HandlerMethod) {
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            sqlTimingService.beginRequest(request.getMethod() + " " + (pattern != null ? pattern : request.getRequestURI()));
+        }
+        return true;
+    }
+
+    @Override
+    public void postHandle(HttpServletRequest request, HttpServletResponse response, Object handler,
+                           ModelAndView modelAndView) {
+        sqlTimingService.handlerCompleted();
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        sqlTimingService.endRequest();
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        sqlTimingService.abandonRequest();
+    }
+}
@@ -0,0 +1,78 @@
+package library.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import library.service.SqlTimingService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+
+/**
+ * SQLite connection setup: one writer connection shared by every write, plus a small pool of
+ * query_only connections for reads (WAL lets them run while the writer commits).
+ *
+ * With a single writer the app never competes with itself for SQLite's write lock, so writes
+ * queue in the pool (and in SqliteWriteQueue) instead of spinning in busy_timeout, and reads
+ * never wait behind them. The application DataSource is a LazyConnectionDataSourceProxy so a
+ * transaction only picks its connection at the first statement, once Spring knows whether it
+ * is read-only.
+ */
+@Configuration
+public class SqliteDataSourceConfig {
+
+    @Bean(destroyMethod = "close")
+    public SqliteRoutingDataSource sqliteRoutingDataSource(
+            @Value("${spring.datasource.url}") String url,
+            @Value("${spring.datasource.driver-class-name:org.sqlite.JDBC}") String driverClassName,
+            @Value("${spring.datasource.hikari.connection-timeout:20000}") long connectionTimeout,
+            @Value("${musicstats.sqlite.reader-pool-size:4}") int readerPoolSize) {
+        HikariDataSource writer = new HikariDataSource();
+        writer.setPoolName("sqlite-writer");
+        writer.setJdbcUrl(url);
+        writer.setDriverClassName(driverClassName);
+        writer.setMaximumPoolSize(1);
+        writer.setMinimumIdle(1);
+        writer.setConnectionTimeout(connectionTimeout);
+
+        // Hikari's readOnly flag is not usable here: sqlite-jdbc refuses to change it on an open
+        // connection, so the readers are locked down with the query_only pragma instead.
+        HikariDataSource reader = new HikariDataSource();
+        reader.setPoolName("sqlite-reader");
+        reader.setJdbcUrl(url);
+        reader.setDriverClassName(driverClassName);
+        reader.setMaximumPoolSize(Math.max(1, readerPoolSize));
+        reader.setMinimumIdle(1);
+        reader.setConnectionTimeout(connectionTimeout);
+        reader.setConnectionInitSql("PRAGMA query_only = 1");
+
+        return new SqliteRoutingDataSource(writer, reader);
+    }
+
+    /**
+     * Every statement is timed by InstrumentedDataSource (see /config/sql-stats) unless
+     * musicstats.sql.instrumentation.enabled is false, which leaves the layer out entirely.
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(SqliteRoutingDataSource sqliteRoutingDataSource, SqlTimingService sqlTimingService,
+                                 @Value("${musicstats.sql.instrumentation.enabled:true}") boolean instrumented) {
+        DataSource target = instrumented
+                ? new InstrumentedDataSource(sqliteRoutingDataSource, sqlTimingService)
+                : sqliteRoutingDataSource;
+        return new LazyConnectionDataSourceProxy(target);
+    }
+
+    @Bean
+    public JdbcTemplate jdbcTemplate(DataSource dataSource,
+                                     @Value("${spring.jdbc.template.fetch-size:-1}") int fetchSize,
+                                     @Value("${spring.jdbc.template.max-rows:-1}") int maxRows) {
+        JdbcTemplate jdbcTemplate = new SqliteRoutingJdbcTemplate(dataSource);
+        jdbcTemplate.setFetchSize(fetchSize);
+        jdbcTemplate.setMaxRows(maxRows);
+        return jdbcTemplate;
+    }
+}
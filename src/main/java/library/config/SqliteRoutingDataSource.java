@@ -0,0 +1,238 @@
+package library.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Splits SQLite access between a single writer connection and a pool of query_only readers.
+ *
+ * Connections go to the writer unless the calling code marked the acquisition as a read (see
+ * {@link #read(Supplier)}, used by SqliteRoutingJdbcTemplate for plain queries) or the current
+ * transaction is read-only. Reads never go to the reader while a read-write transaction is
+ * active or while the thread already holds the writer, so they always see the thread's own
+ * uncommitted changes.
+ *
+ * The writer pool has a single connection, so a thread that asks for the writer again while it
+ * still holds it (a query issued from inside a ConnectionCallback, a populator-style helper
+ * opening its own connection) gets the same physical connection back instead of waiting on
+ * itself; the connection returns to the pool when the outermost handle is closed.
+ */
+public class SqliteRoutingDataSource extends AbstractDataSource implements AutoCloseable {
+
+    private static final ThreadLocal<Boolean> READ = new ThreadLocal<>();
+    /** Writer connections checked out outside a transaction manager, by owning thread. */
+    private static final Map<Thread, HeldWriter> HELD_WRITERS = new ConcurrentHashMap<>();
+
+    public record Stats(long writerAcquisitions, long reentrantWriterAcquisitions, int writersWaiting,
+                        double averageWriterWaitMillis, double maxWriterWaitMillis, long readerAcquisitions) {}
+
+    private final DataSource writer;
+    private final DataSource reader;
+
+    private final AtomicInteger writersWaiting = new AtomicInteger();
+    private final LongAdder writerAcquisitions = new LongAdder();
+    private final LongAdder reentrantWriterAcquisitions = new LongAdder();
+    private final LongAdder writerWaitNanos = new LongAdder();
+    private final LongAccumulator maxWriterWaitNanos = new LongAccumulator(Math::max, 0);
+    private final LongAdder readerAcquisitions = new LongAdder();
+
+    public SqliteRoutingDataSource(DataSource writer, DataSource reader) {
+        this.writer = writer;
+        this.reader = reader;
+    }
+
+    /**
+     * Runs action with the next connection acquisition on this thread routed to the reader pool
+     * (when allowed, see class doc). Only the first acquisition is affected, so writes issued
+     * from inside the action still reach the writer.
+     */
+    public static <T> T read(Supplier<T> action) {
+        Boolean previous = READ.get();
+        READ.set(Boolean.TRUE);
+        try {
+            return action.get();
+        } finally {
+            if (previous == null) {
+                READ.remove();
+            } else {
+                READ.set(previous);
+            }
+        }
+    }
+
+    public DataSource getWriter() {
+        return writer;
+    }
+
+    public DataSource getReader() {
+        return reader;
+    }
+
+    /**
+     * True when the current thread has a writer connection open (not bound to a transaction
+     * manager), e.g. inside a ConnectionCallback.
+     */
+    public static boolean isWriterHeldByCurrentThread() {
+        return HELD_WRITERS.containsKey(Thread.currentThread());
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        boolean readRequested = Boolean.TRUE.equals(READ.get());
+        if (readRequested) {
+            READ.set(Boolean.FALSE);
+        }
+        if (useReader(readRequested)) {
+            readerAcquisitions.increment();
+            return reader.getConnection();
+        }
+        return writerConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return getConnection();
+    }
+
+    public Stats stats() {
+        long acquisitions = writerAcquisitions.sum();
+        return new Stats(
+                acquisitions,
+                reentrantWriterAcquisitions.sum(),
+                writersWaiting.get(),
+                acquisitions == 0 ? 0 : writerWaitNanos.sum() / 1_000_000.0 / acquisitions,
+                maxWriterWaitNanos.get() / 1_000_000.0,
+                readerAcquisitions.sum());
+    }
+
+    @Override
+    public void close() {
+        if (reader instanceof HikariDataSource pool) {
+            pool.close();
+        }
+        if (writer instanceof HikariDataSource pool) {
+            pool.close();
+        }
+    }
+
+    private boolean useReader(boolean readRequested) {
+        if (isWriterHeldByCurrentThread()) {
+            return false;
+        }
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+        }
+        return readRequested;
+    }
+
+    private Connection writerConnection() throws SQLException {
+        Thread owner = Thread.currentThread();
+        HeldWriter held = HELD_WRITERS.get(owner);
+        if (held != null) {
+            reentrantWriterAcquisitions.increment();
+            return held.open();
+        }
+
+        writersWaiting.incrementAndGet();
+        long start = System.nanoTime();
+        Connection physical;
+        try {
+            physical = writer.getConnection();
+        } finally {
+            writersWaiting.decrementAndGet();
+        }
+        long waited = System.nanoTime() - start;
+        writerAcquisitions.increment();
+        writerWaitNanos.add(waited);
+        maxWriterWaitNanos.accumulate(waited);
+
+        held = new HeldWriter(owner, physical);
+        HELD_WRITERS.put(owner, held);
+        return held.open();
+    }
+
+    /**
+     * The writer connection checked out by one thread, with the number of handles still open.
+     */
+    private static final class HeldWriter {
+
+        private final Thread owner;
+        private final Connection physical;
+        private int openHandles;
+
+        private HeldWriter(Thread owner, Connection physical) {
+            this.owner = owner;
+            this.physical = physical;
+        }
+
+        private synchronized Connection open() {
+            openHandles++;
+            return (Connection) Proxy.newProxyInstance(
+                    SqliteRoutingDataSource.class.getClassLoader(),
+                    new Class<?>[] {Connection.class},
+                    new Handle());
+        }
+
+        private synchronized void release() throws SQLException {
+            if (--openHandles == 0) {
+                HELD_WRITERS.remove(owner, this);
+                physical.close();
+            }
+        }
+
+        private final class Handle implements InvocationHandler {
+
+            private boolean closed;
+
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                switch (method.getName()) {
+                    case "close" -> {
+                        if (!closed) {
+                            closed = true;
+                            release();
+                        }
+                        return null;
+                    }
+                    case "isClosed" -> {
+                        return closed || physical.isClosed();
+                    }
+                    case "equals" -> {
+                        return proxy == args[0];
+                    }
+                    case "hashCode" -> {
+                        return System.identityHashCode(proxy);
+                    }
+                    case "toString" -> {
+                        return "Writer handle for " + physical;
+                    }
+                    default -> {
+                        if (closed) {
+                            throw new SQLException("Connection handle already closed");
+                        }
+                        try {
+                            return method.invoke(physical, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getTargetException();
+                        }
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package library.config;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.jdbc.core.SqlProvider;
+
+import javax.sql.DataSource;
+import java.util.regex.Pattern;
+
+/**
+ * JdbcTemplate whose queries (query / queryForList / queryForObject / queryForMap, with or
+ * without parameters) run on the query_only reader pool of SqliteRoutingDataSource, while
+ * update, batchUpdate, execute and callbacks keep using the writer.
+ *
+ * Queries about the connection's own last write (last_insert_rowid(), changes()) only make
+ * sense on the writer and are never rerouted.
+ */
+public class SqliteRoutingJdbcTemplate extends JdbcTemplate {
+
+    private static final Pattern CONNECTION_STATE = Pattern.compile(
+            "(?i)\\b(last_insert_rowid|total_changes|changes)\\s*\\(");
+
+    public SqliteRoutingJdbcTemplate(DataSource dataSource) {
+        super(dataSource);
+    }
+
+    @Override
+    public <T> T query(String sql, ResultSetExtractor<T> rse) {
+        if (readsConnectionState(sql)) {
+            return super.query(sql, rse);
+        }
+        return SqliteRoutingDataSource.read(() -> super.query(sql, rse));
+    }
+
+    @Override
+    public <T> T query(PreparedStatementCreator psc, PreparedStatementSetter pss, ResultSetExtractor<T> rse) {
+        if (psc instanceof SqlProvider provider && readsConnectionState(provider.getSql())) {
+            return super.query(psc, pss, rse);
+        }
+        return SqliteRoutingDataSource.read(() -> super.query(psc, pss, rse));
+    }
+
+    private static boolean readsConnectionState(String sql) {
+        return sql != null && CONNECTION_STATE.matcher(sql).find();
+    }
+}
@@ -0,0 +1,31 @@
+package library.config;
+
+import library.service.SqlTimingService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Registers the per-endpoint request timing (see RequestTimingInterceptor), switched off
+ * together with statement timing by musicstats.sql.instrumentation.enabled=false.
+ */
+@Configuration
+public class WebMvcConfig implements WebMvcConfigurer {
+
+    private final SqlTimingService sqlTimingService;
+    private final boolean instrumented;
+
+    public WebMvcConfig(SqlTimingService sqlTimingService,
+                        @Value("${musicstats.sql.instrumentation.enabled:true}") boolean instrumented) {
+        this.sqlTimingService = sqlTimingService;
+        this.instrumented = instrumented;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        if (instrumented) {
+            registry.addInterceptor(new RequestTimingInterceptor(sqlTimingService));
+        }
+    }
+}
@@ -3,6 +3,8 @@ package library.controller;
 import library.dto.AlbumCardDTO;
 import library.dto.ChartFilterDTO;
 import library.dto.GenderCountDTO;
+import library.dto.ItunesIdSource;
+import library.dto.KeysetPage;
 import library.entity.Album;
 import library.entity.Artist;
 import library.repository.LookupRepository;
@@ -15,6 +17,7 @@ import library.service.ChartService;
 import library.service.ChartFilterRequestFactory;
 import library.service.ItunesService;
 import library.service.PcService;
+import library.service.ImageThumbnailService;
 import library.service.TagService;
 import library.service.TrlService;
 import library.util.DateFormatUtils;
@@ -23,6 +26,7 @@ import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.WebDataBinder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.multipart.MultipartFile;
 
@@ -48,12 +52,13 @@ public class AlbumController {
     private final CatalogChartService catalogChartService;
     private final ChartFilterRequestFactory chartFilterRequestFactory;
     private final TagService tagService;
+    private final ImageThumbnailService imageThumbnailService;
 
     public AlbumController(AlbumService albumService, ChartService chartService, ArtistService artistService,
                            LookupRepository lookupRepository, ItunesService itunesService, AppConfigService appConfigService,
                            BillboardHot100Service billboardHot100Service, PcService pcService, TrlService trlService,
                            CatalogChartService catalogChartService, ChartFilterRequestFactory chartFilterRequestFactory,
-                           TagService tagService) {
+                           TagService tagService, ImageThumbnailService imageThumbnailService) {
         this.albumService = albumService;
         this.chartService = chartService;
         this.artistService = artistService;
@@ -66,6 +71,7 @@ public class AlbumController {
         this.catalogChartService = catalogChartService;
         this.chartFilterRequestFactory = chartFilterRequestFactory;
         this.tagService = tagService;
+        this.imageThumbnailService = imageThumbnailService;
     }
     
     @InitBinder
@@ -199,6 +205,7 @@ public class AlbumController {
             @RequestParam(required = false) String sortby3,
             @RequestParam(required = false) String sortdir3,
             @RequestParam(required = false) Integer randomSeed,
+            @RequestParam(required = false) String cursor,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(required = false) Integer perpage,
             HttpServletRequest request,
@@ -234,10 +241,10 @@ public class AlbumController {
         int effectivePerPage = appConfigService.normalizePageSize(perpage, appConfigService.getAlbumsListPageSize());
         
         // Pre-compute iTunes album IDs once for all 3 queries
-        String itunesIdsJson = albumService.getItunesAlbumIdsJson(inItunes);
+        ItunesIdSource itunesIds = albumService.getItunesAlbumIds(inItunes);
         
         // Get filtered and sorted albums
-        List<AlbumCardDTO> albums = albumService.getAlbums(
+        KeysetPage<AlbumCardDTO> albumPage = albumService.getAlbums(
                 q, artist, genre, genreMode, subgenre, subgenreMode,
                 language, languageMode, gender, genderMode, ethnicity, ethnicityMode,
                 country, countryMode, tag, tagMode, account, accountMode,
@@ -249,7 +256,7 @@ public class AlbumController {
                 ageMin, ageMax, ageMode, ageAtReleaseMin, ageAtReleaseMax,
                 birthDateConverted, birthDateFromConverted, birthDateToConverted, birthDateMode,
                 deathDateConverted, deathDateFromConverted, deathDateToConverted, deathDateMode,
-                itunesIdsJson, inItunes,
+                itunesIds, inItunes,
                 playCountMin, playCountMax, songCountMin, songCountMax,
                 lengthMin, lengthMax, lengthMode,
                 weeklyChartPeak, weeklyChartPeakMode, weeklyChartWeeks, weeklyChartPeakWeeks, weeklyChartPeakWeeksMode, weeklyChartDateFromConverted, weeklyChartDateToConverted, weeklyChartSeason,
@@ -257,11 +264,14 @@ public class AlbumController {
                 yearlyChartPeak, yearlyChartYears, yearlyChartDateFromConverted, yearlyChartDateToConverted,
                 lastFullListenDateConverted, lastFullListenDateFromConverted, lastFullListenDateToConverted, lastFullListenDateMode,
                 itunesPresenceMin, itunesPresenceMax,
-                sortby, sortdir, sortby2, sortdir2, sortby3, sortdir3, randomSeed, page, effectivePerPage
+                sortby, sortdir, sortby2, sortdir2, sortby3, sortdir3, randomSeed, cursor, page, effectivePerPage
         );
+        List<AlbumCardDTO> albums = albumPage.rows();
         
-        // Get total count for pagination
-        long totalCount = albumService.countAlbums(q, artist, genre, 
+        // Get total count for pagination; the list query returns it with the page when it can
+        long totalCount = albumPage.totals() != null
+                ? albumPage.totals().count()
+                : albumService.countAlbums(q, artist, genre, 
                 genreMode, subgenre, subgenreMode, language, languageMode, gender, 
                 genderMode, ethnicity, ethnicityMode, country, countryMode, tag, tagMode, account, accountMode,
                 releaseDateConverted, releaseDateFromConverted, releaseDateToConverted, releaseDateMode,
@@ -272,7 +282,7 @@ public class AlbumController {
                 ageMin, ageMax, ageMode, ageAtReleaseMin, ageAtReleaseMax,
                 birthDateConverted, birthDateFromConverted, birthDateToConverted, birthDateMode,
                 deathDateConverted, deathDateFromConverted, deathDateToConverted, deathDateMode,
-                itunesIdsJson, inItunes,
+                itunesIds, inItunes,
                 playCountMin, playCountMax, songCountMin, songCountMax,
                 lengthMin, lengthMax, lengthMode,
                 weeklyChartPeak, weeklyChartPeakMode, weeklyChartWeeks, weeklyChartPeakWeeks, weeklyChartPeakWeeksMode, weeklyChartDateFromConverted, weeklyChartDateToConverted, weeklyChartSeason,
@@ -282,8 +292,10 @@ public class AlbumController {
                 itunesPresenceMin, itunesPresenceMax);
         int totalPages = (int) Math.ceil((double) totalCount / effectivePerPage);
         
-        // Get gender counts for the filtered dataset
-        GenderCountDTO genderCounts = albumService.countAlbumsByGender(q, artist, genre, 
+        // Get gender counts for the filtered dataset, likewise
+        GenderCountDTO genderCounts = albumPage.totals() != null
+                ? albumPage.totals().genderCounts()
+                : albumService.countAlbumsByGender(q, artist, genre, 
                 genreMode, subgenre, subgenreMode, language, languageMode, gender, 
                 genderMode, ethnicity, ethnicityMode, country, countryMode, tag, tagMode, account, accountMode,
                 releaseDateConverted, releaseDateFromConverted, releaseDateToConverted, releaseDateMode,
@@ -294,7 +306,7 @@ public class AlbumController {
                 ageMin, ageMax, ageMode, ageAtReleaseMin, ageAtReleaseMax,
                 birthDateConverted, birthDateFromConverted, birthDateToConverted, birthDateMode,
                 deathDateConverted, deathDateFromConverted, deathDateToConverted, deathDateMode,
-                itunesIdsJson, inItunes,
+                itunesIds, inItunes,
                 playCountMin, playCountMax, songCountMin, songCountMax,
                 lengthMin, lengthMax, lengthMode,
                 weeklyChartPeak, weeklyChartPeakMode, weeklyChartWeeks, weeklyChartPeakWeeks, weeklyChartPeakWeeksMode, weeklyChartDateFromConverted, weeklyChartDateToConverted, weeklyChartSeason,
@@ -306,6 +318,7 @@ public class AlbumController {
         // Add data to model
         model.addAttribute("currentSection", "albums");
         model.addAttribute("albums", albums);
+        model.addAttribute("nextCursor", albumPage.nextCursor());
         model.addAttribute("albumRankings", java.util.Collections.emptyMap());
         model.addAttribute("genderCounts", genderCounts);
         model.addAttribute("currentPage", page);
@@ -551,6 +564,7 @@ public class AlbumController {
             @RequestParam(required = false) String sortby3,
             @RequestParam(required = false) String sortdir3,
             @RequestParam(required = false) Integer randomSeed,
+            @RequestParam(required = false) String cursor,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(required = false) Integer perpage) {
 
@@ -582,9 +596,9 @@ public class AlbumController {
         String yearlyChartDateToConverted = DateFormatUtils.convertToIsoFormat(yearlyChartDateTo);
         int effectivePerPage = appConfigService.normalizePageSize(perpage, appConfigService.getAlbumsListPageSize());
 
-        String itunesIdsJson = albumService.getItunesAlbumIdsJson(inItunes);
+        ItunesIdSource itunesIds = albumService.getItunesAlbumIds(inItunes);
 
-        List<AlbumCardDTO> albums = albumService.getAlbums(
+        KeysetPage<AlbumCardDTO> albumPage = albumService.getAlbums(
                 q, artist, genre, genreMode, subgenre, subgenreMode,
                 language, languageMode, gender, genderMode, ethnicity, ethnicityMode,
                 country, countryMode, tag, tagMode, account, accountMode,
@@ -596,7 +610,7 @@ public class AlbumController {
                 ageMin, ageMax, ageMode, ageAtReleaseMin, ageAtReleaseMax,
                 birthDateConverted, birthDateFromConverted, birthDateToConverted, birthDateMode,
                 deathDateConverted, deathDateFromConverted, deathDateToConverted, deathDateMode,
-                itunesIdsJson, inItunes,
+                itunesIds, inItunes,
                 playCountMin, playCountMax, songCountMin, songCountMax,
                 lengthMin, lengthMax, lengthMode,
                 weeklyChartPeak, weeklyChartPeakMode, weeklyChartWeeks, weeklyChartPeakWeeks, weeklyChartPeakWeeksMode, weeklyChartDateFromConverted, weeklyChartDateToConverted, weeklyChartSeason,
@@ -604,10 +618,13 @@ public class AlbumController {
                 yearlyChartPeak, yearlyChartYears, yearlyChartDateFromConverted, yearlyChartDateToConverted,
                 lastFullListenDateConverted, lastFullListenDateFromConverted, lastFullListenDateToConverted, lastFullListenDateMode,
                 itunesPresenceMin, itunesPresenceMax,
-                sortby, sortdir, sortby2, sortdir2, sortby3, sortdir3, randomSeed, page, effectivePerPage
+                sortby, sortdir, sortby2, sortdir2, sortby3, sortdir3, randomSeed, cursor, page, effectivePerPage
         );
+        List<AlbumCardDTO> albums = albumPage.rows();
 
-        long totalCount = albumService.countAlbums(q, artist, genre,
+        long totalCount = albumPage.totals() != null
+                ? albumPage.totals().count()
+                : albumService.countAlbums(q, artist, genre,
                 genreMode, subgenre, subgenreMode, language, languageMode, gender,
                 genderMode, ethnicity, ethnicityMode, country, countryMode, tag, tagMode, account, accountMode,
                 releaseDateConverted, releaseDateFromConverted, releaseDateToConverted, releaseDateMode,
@@ -618,7 +635,7 @@ public class AlbumController {
                 ageMin, ageMax, ageMode, ageAtReleaseMin, ageAtReleaseMax,
                 birthDateConverted, birthDateFromConverted, birthDateToConverted, birthDateMode,
                 deathDateConverted, deathDateFromConverted, deathDateToConverted, deathDateMode,
-                itunesIdsJson, inItunes,
+                itunesIds, inItunes,
                 playCountMin, playCountMax, songCountMin, songCountMax,
                 lengthMin, lengthMax, lengthMode,
                 weeklyChartPeak, weeklyChartPeakMode, weeklyChartWeeks, weeklyChartPeakWeeks, weeklyChartPeakWeeksMode, weeklyChartDateFromConverted, weeklyChartDateToConverted, weeklyChartSeason,
@@ -629,6 +646,7 @@ public class AlbumController {
 
         Map<String, Object> result = new HashMap<>();
         result.put("items", albums);
+        result.put("nextCursor", albumPage.nextCursor());
         result.put("totalCount", totalCount);
         result.put("page", page);
         result.put("perPage", effectivePerPage);
@@ -874,10 +892,12 @@ public class AlbumController {
     
     @GetMapping("/{id}/image")
     @ResponseBody
-    public byte[] getAlbumImage(@PathVariable Integer id,
-                                @RequestParam(required = false, defaultValue = "false") boolean thumbnail) {
-        byte[] image = albumService.getAlbumImage(id);
-        return thumbnail ? library.util.ImageUtil.resizeThumbnail(image, 600) : image;
+    public ResponseEntity<byte[]> getAlbumImage(@PathVariable Integer id,
+                                                @RequestParam(required = false, defaultValue = "false") boolean thumbnail,
+                                                @RequestParam(required = false) Integer size,
+                                                WebRequest webRequest) {
+        return imageThumbnailService.imageResponse("album", id, () -> albumService.getAlbumImage(id),
+                thumbnail, size, webRequest);
     }
     
     @PostMapping("/{id}/image")
@@ -1101,7 +1121,7 @@ public class AlbumController {
     private boolean hasActiveFilters(HttpServletRequest request) {
         return request.getParameterMap().entrySet().stream().anyMatch(entry -> {
             String key = entry.getKey();
-            if (java.util.Set.of("sortby", "sortdir", "sortby2", "sortdir2", "sortby3", "sortdir3", "page", "perpage", "view", "tab").contains(key)) {
+            if (java.util.Set.of("sortby", "sortdir", "sortby2", "sortdir2", "sortby3", "sortdir3", "page", "perpage", "view", "tab", "cursor").contains(key)) {
                 return false;
             }
             return java.util.Arrays.stream(entry.getValue()).anyMatch(value -> value != null && !value.isBlank());
@@ -5,6 +5,8 @@ import library.dto.ArtistSongDTO;
 import library.dto.ChartFilterDTO;
 import library.dto.FeaturedArtistCardDTO;
 import library.dto.GenderCountDTO;
+import library.dto.ItunesIdSource;
+import library.dto.KeysetPage;
 import library.entity.Artist;
 import library.repository.LookupRepository;
 import library.service.AppConfigService;
@@ -16,6 +18,7 @@ import library.service.ChartFilterRequestFactory;
 import library.service.ItunesService;
 import library.service.PcService;
 import library.service.ThemeService;
+import library.service.ImageThumbnailService;
 import library.service.TagService;
 import library.service.TrlService;
 import library.util.DateFormatUtils;
@@ -24,6 +27,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.bind.WebDataBinder;
 import org.springframework.web.multipart.MultipartFile;
 
@@ -50,12 +54,13 @@ public class ArtistController {
     private final CatalogChartService catalogChartService;
     private final ChartFilterRequestFactory chartFilterRequestFactory;
     private final TagService tagService;
+    private final ImageThumbnailService imageThumbnailService;
 
     public ArtistController(ArtistService artistService, ChartService chartService, LookupRepository lookupRepository,
                              ItunesService itunesService, ThemeService themeService, AppConfigService appConfigService,
                              BillboardHot100Service billboardHot100Service, PcService pcService, TrlService trlService,
                              CatalogChartService catalogChartService, ChartFilterRequestFactory chartFilterRequestFactory,
-                             TagService tagService) {
+                             TagService tagService, ImageThumbnailService imageThumbnailService) {
         this.artistService = artistService;
         this.chartService = chartService;
         this.lookupRepository = lookupRepository;
@@ -68,6 +73,7 @@ public class ArtistController {
         this.catalogChartService = catalogChartService;
         this.chartFilterRequestFactory = chartFilterRequestFactory;
         this.tagService = tagService;
+        this.imageThumbnailService = imageThumbnailService;
     }
     
     @InitBinder
@@ -195,6 +201,7 @@ public class ArtistController {
             @RequestParam(required = false) String sortby3,
             @RequestParam(required = false) String sortdir3,
             @RequestParam(required = false) Integer randomSeed,
+            @RequestParam(required = false) String cursor,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(required = false) Integer perpage,
             Model model) {
@@ -217,10 +224,10 @@ public class ArtistController {
         int effectivePerPage = appConfigService.normalizePageSize(perpage, appConfigService.getArtistsListPageSize());
         
         // Pre-compute iTunes artist IDs once for all 3 queries
-        String itunesIdsJson = artistService.getItunesArtistIdsJson(inItunes);
+        ItunesIdSource itunesIds = artistService.getItunesArtistIds(inItunes);
         
         // Get filtered and sorted artists
-        List<ArtistCardDTO> artists = artistService.getArtists(
+        KeysetPage<ArtistCardDTO> artistPage = artistService.getArtists(
                 q, gender, genderMode, ethnicity, ethnicityMode, genre, genreMode, 
                 subgenre, subgenreMode, language, languageMode, country, countryMode,
                 tag, tagMode,
@@ -229,17 +236,20 @@ public class ArtistController {
                 firstListenedDateConverted, firstListenedDateFromConverted, firstListenedDateToConverted, firstListenedDateMode,
                 lastListenedDateConverted, lastListenedDateFromConverted, lastListenedDateToConverted, lastListenedDateMode,
                 listenedDateFromConverted, listenedDateToConverted,
-                organized, imageCountMin, imageCountMax, imageTheme, imageThemeMode, isBand, itunesIdsJson, inItunes,
+                organized, imageCountMin, imageCountMax, imageTheme, imageThemeMode, isBand, itunesIds, inItunes,
                 playCountMin, playCountMax,
                 albumCountMin, albumCountMax,
                 birthDateConverted, birthDateFromConverted, birthDateToConverted, birthDateMode,
                 songCountMin, songCountMax,
                 itunesPresenceMin, itunesPresenceMax,
-                sortby, sortdir, sortby2, sortdir2, sortby3, sortdir3, randomSeed, page, effectivePerPage
+                sortby, sortdir, sortby2, sortdir2, sortby3, sortdir3, randomSeed, cursor, page, effectivePerPage
         );
+        List<ArtistCardDTO> artists = artistPage.rows();
         
-        // Get total count for pagination
-        long totalCount = artistService.countArtists(q, gender, genderMode, ethnicity, 
+        // Get total count for pagination; the list query returns it with the page when it can
+        long totalCount = artistPage.totals() != null
+                ? artistPage.totals().count()
+                : artistService.countArtists(q, gender, genderMode, ethnicity, 
                 ethnicityMode, genre, genreMode, subgenre, subgenreMode, language, 
                 languageMode, country, countryMode,
                 tag, tagMode,
@@ -248,7 +258,7 @@ public class ArtistController {
                 firstListenedDateConverted, firstListenedDateFromConverted, firstListenedDateToConverted, firstListenedDateMode,
                 lastListenedDateConverted, lastListenedDateFromConverted, lastListenedDateToConverted, lastListenedDateMode,
                 listenedDateFromConverted, listenedDateToConverted,
-                organized, imageCountMin, imageCountMax, imageTheme, imageThemeMode, isBand, itunesIdsJson, inItunes,
+                organized, imageCountMin, imageCountMax, imageTheme, imageThemeMode, isBand, itunesIds, inItunes,
                 playCountMin, playCountMax,
                 albumCountMin, albumCountMax,
                 birthDateConverted, birthDateFromConverted, birthDateToConverted, birthDateMode,
@@ -256,8 +266,10 @@ public class ArtistController {
                 itunesPresenceMin, itunesPresenceMax);
         int totalPages = (int) Math.ceil((double) totalCount / effectivePerPage);
         
-        // Get gender counts for the filtered dataset
-        GenderCountDTO genderCounts = artistService.countArtistsByGender(q, gender, genderMode, ethnicity, 
+        // Get gender counts for the filtered dataset, likewise
+        GenderCountDTO genderCounts = artistPage.totals() != null
+                ? artistPage.totals().genderCounts()
+                : artistService.countArtistsByGender(q, gender, genderMode, ethnicity, 
                 ethnicityMode, genre, genreMode, subgenre, subgenreMode, language, 
                 languageMode, country, countryMode,
                 tag, tagMode,
@@ -266,7 +278,7 @@ public class ArtistController {
                 firstListenedDateConverted, firstListenedDateFromConverted, firstListenedDateToConverted, firstListenedDateMode,
                 lastListenedDateConverted, lastListenedDateFromConverted, lastListenedDateToConverted, lastListenedDateMode,
                 listenedDateFromConverted, listenedDateToConverted,
-                organized, imageCountMin, imageCountMax, imageTheme, imageThemeMode, isBand, itunesIdsJson, inItunes,
+                organized, imageCountMin, imageCountMax, imageTheme, imageThemeMode, isBand, itunesIds, inItunes,
                 playCountMin, playCountMax,
                 albumCountMin, albumCountMax,
                 birthDateConverted, birthDateFromConverted, birthDateToConverted, birthDateMode,
@@ -276,6 +288,7 @@ public class ArtistController {
         // Add data to model
         model.addAttribute("currentSection", "artists");
         model.addAttribute("artists", artists);
+        model.addAttribute("nextCursor", artistPage.nextCursor());
         model.addAttribute("artistRankings", java.util.Collections.emptyMap());
         model.addAttribute("genderCounts", genderCounts);
         model.addAttribute("currentPage", page);
@@ -454,6 +467,7 @@ public class ArtistController {
             @RequestParam(required = false) String sortby3,
             @RequestParam(required = false) String sortdir3,
             @RequestParam(required = false) Integer randomSeed,
+            @RequestParam(required = false) String cursor,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(required = false) Integer perpage) {
 
@@ -473,9 +487,9 @@ public class ArtistController {
         String deathDateToConverted = DateFormatUtils.convertToIsoFormat(deathDateTo);
         int effectivePerPage = appConfigService.normalizePageSize(perpage, appConfigService.getArtistsListPageSize());
 
-        String itunesIdsJson = artistService.getItunesArtistIdsJson(inItunes);
+        ItunesIdSource itunesIds = artistService.getItunesArtistIds(inItunes);
 
-        List<ArtistCardDTO> artists = artistService.getArtists(
+        KeysetPage<ArtistCardDTO> artistPage = artistService.getArtists(
                 q, gender, genderMode, ethnicity, ethnicityMode, genre, genreMode,
                 subgenre, subgenreMode, language, languageMode, country, countryMode,
                 tag, tagMode,
@@ -484,16 +498,19 @@ public class ArtistController {
                 firstListenedDateConverted, firstListenedDateFromConverted, firstListenedDateToConverted, firstListenedDateMode,
                 lastListenedDateConverted, lastListenedDateFromConverted, lastListenedDateToConverted, lastListenedDateMode,
                 listenedDateFromConverted, listenedDateToConverted,
-                organized, imageCountMin, imageCountMax, imageTheme, imageThemeMode, isBand, itunesIdsJson, inItunes,
+                organized, imageCountMin, imageCountMax, imageTheme, imageThemeMode, isBand, itunesIds, inItunes,
                 playCountMin, playCountMax,
                 albumCountMin, albumCountMax,
                 birthDateConverted, birthDateFromConverted, birthDateToConverted, birthDateMode,
                 songCountMin, songCountMax,
                 itunesPresenceMin, itunesPresenceMax,
-                sortby, sortdir, sortby2, sortdir2, sortby3, sortdir3, randomSeed, page, effectivePerPage
+                sortby, sortdir, sortby2, sortdir2, sortby3, sortdir3, randomSeed, cursor, page, effectivePerPage
         );
+        List<ArtistCardDTO> artists = artistPage.rows();
 
-        long totalCount = artistService.countArtists(q, gender, genderMode, ethnicity,
+        long totalCount = artistPage.totals() != null
+                ? artistPage.totals().count()
+                : artistService.countArtists(q, gender, genderMode, ethnicity,
                 ethnicityMode, genre, genreMode, subgenre, subgenreMode, language,
                 languageMode, country, countryMode,
                 tag, tagMode,
@@ -502,7 +519,7 @@ public class ArtistController {
                 firstListenedDateConverted, firstListenedDateFromConverted, firstListenedDateToConverted, firstListenedDateMode,
                 lastListenedDateConverted, lastListenedDateFromConverted, lastListenedDateToConverted, lastListenedDateMode,
                 listenedDateFromConverted, listenedDateToConverted,
-                organized, imageCountMin, imageCountMax, imageTheme, imageThemeMode, isBand, itunesIdsJson, inItunes,
+                organized, imageCountMin, imageCountMax, imageTheme, imageThemeMode, isBand, itunesIds, inItunes,
                 playCountMin, playCountMax,
                 albumCountMin, albumCountMax,
                 birthDateConverted, birthDateFromConverted, birthDateToConverted, birthDateMode,
@@ -511,6 +528,7 @@ public class ArtistController {
 
         Map<String, Object> result = new HashMap<>();
         result.put("items", artists);
+        result.put("nextCursor", artistPage.nextCursor());
         result.put("totalCount", totalCount);
         result.put("page", page);
         result.put("perPage", effectivePerPage);
@@ -1090,11 +1108,14 @@ public class ArtistController {
     
     @GetMapping("/{id}/image")
     @ResponseBody
-    public byte[] getArtistImage(@PathVariable Integer id,
-                                 @RequestParam(required = false, defaultValue = "false") boolean raw,
-                                 @RequestParam(required = false, defaultValue = "false") boolean thumbnail) {
-        byte[] image = raw ? artistService.getRawArtistImage(id) : artistService.getArtistImage(id);
-        return thumbnail ? library.util.ImageUtil.resizeThumbnail(image, 600) : image;
+    public ResponseEntity<byte[]> getArtistImage(@PathVariable Integer id,
+                                                 @RequestParam(required = false, defaultValue = "false") boolean raw,
+                                                 @RequestParam(required = false, defaultValue = "false") boolean thumbnail,
+                                                 @RequestParam(required = false) Integer size,
+                                                 WebRequest webRequest) {
+        return imageThumbnailService.imageResponse(raw ? "artist-raw" : "artist", id,
+                () -> raw ? artistService.getRawArtistImage(id) : artistService.getArtistImage(id),
+                thumbnail, size, webRequest);
     }
     
     @PostMapping("/{id}/image")
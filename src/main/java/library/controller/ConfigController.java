@@ -1,13 +1,23 @@
 package library.controller;
 
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import library.config.SqliteRoutingDataSource;
 import library.service.AppConfigService;
 import library.service.ChartService;
 import library.service.PlayAutomationStateService;
+import library.service.SqlTimingService;
+import library.service.SqliteWriteQueue;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 @Controller
 public class ConfigController {
@@ -15,11 +25,19 @@ public class ConfigController {
     private final AppConfigService appConfigService;
     private final PlayAutomationStateService automationStateService;
     private final ChartService chartService;
+    private final SqliteRoutingDataSource sqliteRoutingDataSource;
+    private final SqliteWriteQueue writeQueue;
+    private final SqlTimingService sqlTimingService;
 
-    public ConfigController(AppConfigService appConfigService, PlayAutomationStateService automationStateService, ChartService chartService) {
+    public ConfigController(AppConfigService appConfigService, PlayAutomationStateService automationStateService, ChartService chartService,
+                            SqliteRoutingDataSource sqliteRoutingDataSource, SqliteWriteQueue writeQueue,
+                            SqlTimingService sqlTimingService) {
         this.appConfigService = appConfigService;
         this.automationStateService = automationStateService;
         this.chartService = chartService;
+        this.sqliteRoutingDataSource = sqliteRoutingDataSource;
+        this.writeQueue = writeQueue;
+        this.sqlTimingService = sqlTimingService;
     }
 
     @GetMapping("/config")
@@ -98,4 +116,62 @@ public class ConfigController {
 
         return "redirect:/config?saved=true";
     }
+
+    /**
+     * Database contention counters: the write queue (depth, batching, queue wait), writer
+     * connection acquisitions and waits, and the live state of both connection pools.
+     */
+    @GetMapping("/config/api/database-contention")
+    @ResponseBody
+    public Map<String, Object> getDatabaseContention() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("writeQueue", writeQueue.stats());
+        result.put("routing", sqliteRoutingDataSource.stats());
+        result.put("writerPool", poolState(sqliteRoutingDataSource.getWriter()));
+        result.put("readerPool", poolState(sqliteRoutingDataSource.getReader()));
+        return result;
+    }
+
+    /**
+     * SQL timings since startup (or the last reset): endpoints with their SQL / render split,
+     * statement latency by calling method, and the slow-query log.
+     */
+    @GetMapping("/config/sql-stats")
+    public String showSqlStats(Model model) {
+        model.addAttribute("currentSection", "config");
+        model.addAttribute("slowQueryMillis", sqlTimingService.getSlowQueryMillis());
+        model.addAttribute("endpointStats", sqlTimingService.endpointStats());
+        model.addAttribute("callSiteStats", sqlTimingService.callSiteStats());
+        model.addAttribute("slowQueries", sqlTimingService.slowQueries());
+        return "config/sql-stats";
+    }
+
+    @GetMapping("/config/api/sql-stats")
+    @ResponseBody
+    public Map<String, Object> getSqlStats() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("slowQueryMillis", sqlTimingService.getSlowQueryMillis());
+        result.put("endpoints", sqlTimingService.endpointStats());
+        result.put("callSites", sqlTimingService.callSiteStats());
+        result.put("slowQueries", sqlTimingService.slowQueries());
+        return result;
+    }
+
+    @PostMapping("/config/sql-stats/reset")
+    public String resetSqlStats() {
+        sqlTimingService.reset();
+        return "redirect:/config/sql-stats";
+    }
+
+    private static Map<String, Object> poolState(DataSource dataSource) {
+        Map<String, Object> state = new LinkedHashMap<>();
+        if (dataSource instanceof HikariDataSource hikari && hikari.getHikariPoolMXBean() != null) {
+            HikariPoolMXBean pool = hikari.getHikariPoolMXBean();
+            state.put("active", pool.getActiveConnections());
+            state.put("idle", pool.getIdleConnections());
+            state.put("total", pool.getTotalConnections());
+            state.put("threadsAwaitingConnection", pool.getThreadsAwaitingConnection());
+        }
+        return state;
+    }
 }
@@ -2,6 +2,8 @@ package library.controller;
 
 import library.repository.SongRepository;
 import library.service.BillboardHot100Service;
+import library.service.SearchIndexService;
+import library.service.SearchIndexService.Kind;
 import library.service.SongService;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -34,8 +36,9 @@ public class NowPlayingLookupController {
     private final BillboardHot100Service billboardHot100Service;
     private final PcService pcService;
     private final TrlService trlService;
+    private final SearchIndexService searchIndexService;
 
-    public NowPlayingLookupController(SongRepository songRepository, JdbcTemplate jdbcTemplate, SongService songService, ChartService chartService, BillboardHot100Service billboardHot100Service, PcService pcService, TrlService trlService) {
+    public NowPlayingLookupController(SongRepository songRepository, JdbcTemplate jdbcTemplate, SongService songService, ChartService chartService, BillboardHot100Service billboardHot100Service, PcService pcService, TrlService trlService, SearchIndexService searchIndexService) {
         this.songRepository = songRepository;
         this.jdbcTemplate = jdbcTemplate;
         this.songService = songService;
@@ -43,6 +46,7 @@ public class NowPlayingLookupController {
         this.billboardHot100Service = billboardHot100Service;
         this.pcService = pcService;
         this.trlService = trlService;
+        this.searchIndexService = searchIndexService;
     }
 
     @GetMapping("/lookup")
@@ -98,7 +102,8 @@ public class NowPlayingLookupController {
         resp.put("songQuery", song);
 
         // Search songs by artist+song (best-effort) using JdbcTemplate to avoid
-        // depending on a specific repository method signature.
+        // depending on a specific repository method signature. Names are matched through the
+        // folded search index rather than normalizing every row.
         StringBuilder sql = new StringBuilder(
             "SELECT s.id, s.name, a.name as artist_name, al.name as album_name, " +
             "CASE WHEN s.single_cover IS NOT NULL OR EXISTS (SELECT 1 FROM SongImage WHERE song_id = s.id) THEN 1 ELSE 0 END as has_image " +
@@ -110,12 +115,12 @@ public class NowPlayingLookupController {
         String normAlbum = null;
         if (artist != null && !artist.trim().isEmpty()) {
             normArtist = library.util.StringNormalizer.normalizeForSearch(artist);
-            sql.append(" AND " + library.util.StringNormalizer.sqlNormalizeColumn("a.name") + " LIKE ?");
+            sql.append(" AND a.id IN (SELECT item_id FROM (" + SearchIndexService.matchesSql(Kind.ARTIST) + "))");
             params.add("%" + normArtist + "%");
         }
         if (song != null && !song.trim().isEmpty()) {
             normSong = library.util.StringNormalizer.normalizeForSearch(song);
-            sql.append(" AND " + library.util.StringNormalizer.sqlNormalizeColumn("s.name") + " LIKE ?");
+            sql.append(" AND s.id IN (SELECT item_id FROM (" + SearchIndexService.matchesSql(Kind.SONG) + "))");
             params.add("%" + normSong + "%");
         }
         sql.append(" ORDER BY a.name, s.name LIMIT 20");
@@ -144,12 +149,12 @@ public class NowPlayingLookupController {
                         List<Object> params2 = new java.util.ArrayList<>();
                         if (artist != null && !artist.trim().isEmpty()) {
                             String nArtist = library.util.StringNormalizer.normalizeForSearch(artist);
-                            sql2.append(" AND " + library.util.StringNormalizer.sqlNormalizeColumn("a.name") + " LIKE ?");
+                            sql2.append(" AND a.id IN (SELECT item_id FROM (" + SearchIndexService.matchesSql(Kind.ARTIST) + "))");
                             params2.add("%" + nArtist + "%");
                         }
                         if (song != null && !song.trim().isEmpty()) {
                             String nSong = library.util.StringNormalizer.normalizeForSearch(song);
-                            sql2.append(" AND " + library.util.StringNormalizer.sqlNormalizeColumn("s.name") + " LIKE ?");
+                            sql2.append(" AND s.id IN (SELECT item_id FROM (" + SearchIndexService.matchesSql(Kind.SONG) + "))");
                             params2.add("%" + nSong + "%");
                         }
                         sql2.append(" ORDER BY a.name, s.name LIMIT 20");
@@ -251,13 +256,13 @@ public class NowPlayingLookupController {
         } else {
             // If no song match, try to find artist by name and album by name heuristically
             if (artist != null) {
-                List<Map<String,Object>> artistMatches = jdbcTemplate.queryForList("SELECT id FROM Artist WHERE " + library.util.StringNormalizer.sqlNormalizeColumn("name") + " LIKE ? LIMIT 1", "%" + normArtist + "%");
+                List<Map<String,Object>> artistMatches = jdbcTemplate.queryForList("SELECT item_id as id FROM (" + SearchIndexService.matchesSql(Kind.ARTIST) + ") ORDER BY item_id LIMIT 1", "%" + normArtist + "%");
                 if (!artistMatches.isEmpty()) {
                     artistId = ((Number) artistMatches.get(0).get("id")).intValue();
                 }
             }
             if (albumId == null && album != null) {
-                List<Map<String,Object>> albumMatches = jdbcTemplate.queryForList("SELECT id, artist_id FROM Album WHERE " + library.util.StringNormalizer.sqlNormalizeColumn("name") + " LIKE ? LIMIT 1", "%" + normAlbum + "%");
+                List<Map<String,Object>> albumMatches = jdbcTemplate.queryForList("SELECT al.id, al.artist_id FROM (" + SearchIndexService.matchesSql(Kind.ALBUM) + ") m JOIN Album al ON al.id = m.item_id ORDER BY al.id LIMIT 1", "%" + normAlbum + "%");
                 if (!albumMatches.isEmpty()) {
                     albumId = ((Number) albumMatches.get(0).get("id")).intValue();
                     if (artistId == null && albumMatches.get(0).get("artist_id") != null) {
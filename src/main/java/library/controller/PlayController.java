@@ -5,6 +5,8 @@ import library.service.AppConfigService;
 import library.service.ArtistService;
 import library.service.AlbumService;
 import library.service.PlayAutomationStateService;
+import library.service.SongCandidateService;
+import library.service.SongPeriodCountService;
 import library.service.SongService;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
@@ -12,6 +14,7 @@ import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -26,19 +29,25 @@ public class PlayController {
     private final SongService songService;
     private final AppConfigService appConfigService;
     private final PlayAutomationStateService automationStateService;
+    private final SongPeriodCountService songPeriodCountService;
+    private final SongCandidateService songCandidateService;
     
     public PlayController(PlayService playService,
                               ArtistService artistService,
                               AlbumService albumService,
                               SongService songService,
                               PlayAutomationStateService automationStateService,
-                              AppConfigService appConfigService) {
+                              AppConfigService appConfigService,
+                              SongPeriodCountService songPeriodCountService,
+                              SongCandidateService songCandidateService) {
         this.playService = playService;
         this.artistService = artistService;
         this.albumService = albumService;
         this.songService = songService;
         this.automationStateService = automationStateService;
         this.appConfigService = appConfigService;
+        this.songPeriodCountService = songPeriodCountService;
+        this.songCandidateService = songCandidateService;
     }
     
     // File upload UI
@@ -177,6 +186,37 @@ public class PlayController {
         }
     }
     
+    /**
+     * Suggests library songs for unmatched play groups, best match first. The match modal
+     * of the unmatched plays page lists them above its search results.
+     * POST /plays/api/unmatched/suggestions
+     * Body: { limit: 5, items: [ { artist, song }, ... ] }
+     * Returns one list of candidates (id, title, artistName, albumName, score) per item, in order.
+     */
+    @PostMapping("/api/unmatched/suggestions")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> suggestUnmatched(@RequestBody Map<String, Object> request) {
+        int limit = request.get("limit") instanceof Number n ? Math.max(1, Math.min(n.intValue(), 20)) : 5;
+        List<List<Map<String, Object>>> suggestions = new ArrayList<>();
+        if (request.get("items") instanceof List<?> items) {
+            for (Object o : items) {
+                if (!(o instanceof Map<?, ?> m)) {
+                    suggestions.add(List.of());
+                    continue;
+                }
+                String artist = m.get("artist") != null ? m.get("artist").toString() : null;
+                String song = m.get("song") != null ? m.get("song").toString() : null;
+                suggestions.add(songCandidateService.suggest(artist, song, limit).stream()
+                        .map(SongCandidateService.Candidate::toMap)
+                        .toList());
+            }
+        }
+        return ResponseEntity.ok(Map.of(
+            "success", true,
+            "suggestions", suggestions
+        ));
+    }
+    
     /**
      * API endpoint to assign unmatched plays to an existing song.
      * Matches plays by account, artist, album, and song name.
@@ -534,6 +574,57 @@ public class PlayController {
         }
     }
     
+    /**
+     * API endpoint to rebuild the song_period_counts rollup from scratch.
+     * 
+     * POST /plays/api/period-counts/rebuild
+     */
+    @PostMapping("/api/period-counts/rebuild")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> rebuildPeriodCounts() {
+        try {
+            long start = System.currentTimeMillis();
+            int rows = songPeriodCountService.rebuild();
+            return ResponseEntity.ok(Map.of(
+                "success", true,
+                "rows", rows,
+                "elapsedMs", System.currentTimeMillis() - start
+            ));
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.internalServerError().body(Map.of(
+                "success", false,
+                "error", e.getMessage()
+            ));
+        }
+    }
+    
+    /**
+     * API endpoint to compare the song_period_counts rollup against the Play table.
+     * Returns up to 100 mismatching rows; an empty list means the rollup is consistent.
+     * 
+     * GET /plays/api/period-counts/check
+     */
+    @GetMapping("/api/period-counts/check")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> checkPeriodCounts() {
+        try {
+            List<SongPeriodCountService.Mismatch> mismatches = songPeriodCountService.checkConsistency();
+            return ResponseEntity.ok(Map.of(
+                "success", true,
+                "consistent", mismatches.isEmpty(),
+                "mismatchCount", mismatches.size(),
+                "mismatches", mismatches.subList(0, Math.min(100, mismatches.size()))
+            ));
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.internalServerError().body(Map.of(
+                "success", false,
+                "error", e.getMessage()
+            ));
+        }
+    }
+    
     /**
      * Download image from URL and return bytes.
      */
@@ -116,7 +116,7 @@ public class PlaylistController {
                 null, null,                 // ageAtReleaseMin, ageAtReleaseMax
                 null, null, null, null,     // birthDate, birthDateFrom, birthDateTo, birthDateMode
                 null, null, null, null,     // deathDate, deathDateFrom, deathDateTo, deathDateMode
-                null, null,                 // itunesIdsJson, inItunes
+                null, null,                 // itunesIds, inItunes
                 null, null,                 // playCountMin, playCountMax
                 null, null,                 // trackNumber, trackNumberMode
                 null, null, null,           // lengthMin, lengthMax, lengthMode
@@ -132,8 +132,8 @@ public class PlaylistController {
                 null, null, null,           // seasonalChartDateFrom, seasonalChartDateTo, seasonalChartSeason
                 null, null,                 // yearlyChartPeak, yearlyChartYears
                 null, null,                 // yearlyChartDateFrom, yearlyChartDateTo
-                "name", "asc", null, null, null, null, null, page, perpage
-        );
+                "name", "asc", null, null, null, null, null, null, page, perpage
+        ).rows();
     }
 
     /**
@@ -3,6 +3,8 @@ package library.controller;
 import library.dto.ChartFilterDTO;
 import library.dto.FeaturedArtistDTO;
 import library.dto.GenderCountDTO;
+import library.dto.ItunesIdSource;
+import library.dto.KeysetPage;
 import library.dto.SongCardDTO;
 import library.entity.Album;
 import library.entity.Artist;
@@ -14,6 +16,7 @@ import library.service.ArtistService;
 import library.service.ChartService;
 import library.service.SongService;
 import library.service.SongLinkService;
+import library.service.ImageThumbnailService;
 import library.service.TagService;
 import library.service.ItunesService;
 import library.service.TrlService;
@@ -27,6 +30,7 @@ import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.WebDataBinder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
@@ -66,6 +70,7 @@ public class SongController {
     private final BillboardHot100Service billboardHot100Service;
     private final SongLinkService songLinkService;
     private final TagService tagService;
+    private final ImageThumbnailService imageThumbnailService;
     private final JdbcTemplate jdbcTemplate;
     private static final Pattern PARENTHETICAL_PATTERN = Pattern.compile("\\(([^)]*)\\)");
     private static final Pattern BRACKET_PATTERN = Pattern.compile("\\[([^]]*)\\]");
@@ -75,7 +80,7 @@ public class SongController {
                          AppConfigService appConfigService,
                          ItunesService itunesService, TrlService trlService, PcService pcService,
                          BillboardHot100Service billboardHot100Service, JdbcTemplate jdbcTemplate, SongLinkService songLinkService,
-                         TagService tagService) {
+                         TagService tagService, ImageThumbnailService imageThumbnailService) {
         this.songService = songService;
         this.chartService = chartService;
         this.artistService = artistService;
@@ -90,6 +95,7 @@ public class SongController {
         this.jdbcTemplate = jdbcTemplate;
         this.songLinkService = songLinkService;
         this.tagService = tagService;
+        this.imageThumbnailService = imageThumbnailService;
     }
     
     @InitBinder
@@ -240,6 +246,7 @@ public class SongController {
             @RequestParam(required = false) String sortby3,
             @RequestParam(required = false) String sortdir3,
             @RequestParam(required = false) Integer randomSeed,
+            @RequestParam(required = false) String cursor,
             HttpServletRequest request,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(required = false) Integer perpage,
@@ -278,10 +285,10 @@ public class SongController {
         int effectivePerPage = appConfigService.normalizePageSize(perpage, appConfigService.getSongsListPageSize());
         
         // Pre-compute iTunes song IDs once for all 3 queries (getSongs, countSongs, countSongsByGender)
-        String itunesIdsJson = songService.getItunesSongIdsJson(inItunes);
+        ItunesIdSource itunesIds = songService.getItunesSongIds(inItunes);
         
         // Get filtered and sorted songs
-        List<SongCardDTO> songs = songService.getSongs(
+        KeysetPage<SongCardDTO> songPage = songService.getSongs(
                 q, artist, album, genre, genreMode, 
                 subgenre, subgenreMode, language, languageMode, gender, genderMode,
                 ethnicity, ethnicityMode, country, countryMode, tag, tagMode, account, accountMode,
@@ -293,7 +300,7 @@ public class SongController {
                 ageMin, ageMax, ageMode, ageAtReleaseMin, ageAtReleaseMax,
                 birthDateConverted, birthDateFromConverted, birthDateToConverted, birthDateMode,
                 deathDateConverted, deathDateFromConverted, deathDateToConverted, deathDateMode,
-                itunesIdsJson, inItunes,
+                itunesIds, inItunes,
                 playCountMin, playCountMax,
                 trackNumber, trackNumberMode,
                 lengthMin, lengthMax, lengthMode,
@@ -309,11 +316,14 @@ public class SongController {
                 seasonalChartDateFromConverted, seasonalChartDateToConverted, seasonalChartSeason,
                 yearlyChartPeak, yearlyChartYears,
                 yearlyChartDateFromConverted, yearlyChartDateToConverted,
-                sortby, sortdir, sortby2, sortdir2, sortby3, sortdir3, randomSeed, page, effectivePerPage
+                sortby, sortdir, sortby2, sortdir2, sortby3, sortdir3, randomSeed, cursor, page, effectivePerPage
         );
+        List<SongCardDTO> songs = songPage.rows();
         
-        // Get total count for pagination
-        long totalCount = songService.countSongs(q, artist, album, 
+        // Get total count for pagination; the list query returns it with the page when it can
+        long totalCount = songPage.totals() != null
+                ? songPage.totals().count()
+                : songService.countSongs(q, artist, album, 
                 genre, genreMode, subgenre, subgenreMode, language, languageMode,
                 gender, genderMode, ethnicity, ethnicityMode, country, countryMode, tag, tagMode, account, accountMode,
                 releaseDateConverted, releaseDateFromConverted, releaseDateToConverted, releaseDateMode,
@@ -324,7 +334,7 @@ public class SongController {
                 ageMin, ageMax, ageMode, ageAtReleaseMin, ageAtReleaseMax,
                 birthDateConverted, birthDateFromConverted, birthDateToConverted, birthDateMode,
                 deathDateConverted, deathDateFromConverted, deathDateToConverted, deathDateMode,
-                itunesIdsJson, inItunes,
+                itunesIds, inItunes,
                 playCountMin, playCountMax,
                 trackNumber, trackNumberMode,
                 lengthMin, lengthMax, lengthMode,
@@ -342,8 +352,10 @@ public class SongController {
                 yearlyChartDateFromConverted, yearlyChartDateToConverted);
         int totalPages = (int) Math.ceil((double) totalCount / effectivePerPage);
         
-        // Get gender counts for the filtered dataset
-        GenderCountDTO genderCounts = songService.countSongsByGender(q, artist, album,
+        // Get gender counts for the filtered dataset, likewise
+        GenderCountDTO genderCounts = songPage.totals() != null
+                ? songPage.totals().genderCounts()
+                : songService.countSongsByGender(q, artist, album,
                 genre, genreMode, subgenre, subgenreMode, language, languageMode,
                 gender, genderMode, ethnicity, ethnicityMode, country, countryMode, tag, tagMode, account, accountMode,
                 releaseDateConverted, releaseDateFromConverted, releaseDateToConverted, releaseDateMode,
@@ -354,7 +366,7 @@ public class SongController {
                 ageMin, ageMax, ageMode, ageAtReleaseMin, ageAtReleaseMax,
                 birthDateConverted, birthDateFromConverted, birthDateToConverted, birthDateMode,
                 deathDateConverted, deathDateFromConverted, deathDateToConverted, deathDateMode,
-                itunesIdsJson, inItunes,
+                itunesIds, inItunes,
                 playCountMin, playCountMax,
                 trackNumber, trackNumberMode,
                 lengthMin, lengthMax, lengthMode,
@@ -374,6 +386,7 @@ public class SongController {
         // Add data to model
         model.addAttribute("currentSection", "songs");
         model.addAttribute("songs", songs);
+        model.addAttribute("nextCursor", songPage.nextCursor());
         model.addAttribute("songRankings", java.util.Collections.emptyMap());
         model.addAttribute("genderCounts", genderCounts);
         model.addAttribute("currentPage", page);
@@ -552,7 +565,7 @@ public class SongController {
     private boolean hasActiveFilters(HttpServletRequest request) {
         return request.getParameterMap().entrySet().stream().anyMatch(entry -> {
             String key = entry.getKey();
-            if (java.util.Set.of("sortby", "sortdir", "sortby2", "sortdir2", "sortby3", "sortdir3", "randomSeed", "page", "perpage", "view", "tab").contains(key)) {
+            if (java.util.Set.of("sortby", "sortdir", "sortby2", "sortdir2", "sortby3", "sortdir3", "randomSeed", "cursor", "page", "perpage", "view", "tab").contains(key)) {
                 return false;
             }
             return java.util.Arrays.stream(entry.getValue()).anyMatch(value -> value != null && !value.isBlank());
@@ -666,6 +679,7 @@ public class SongController {
             @RequestParam(required = false) String sortby3,
             @RequestParam(required = false) String sortdir3,
             @RequestParam(required = false) Integer randomSeed,
+            @RequestParam(required = false) String cursor,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(required = false) Integer perpage) {
 
@@ -700,9 +714,9 @@ public class SongController {
         String yearlyChartDateToConverted = DateFormatUtils.convertToIsoFormat(yearlyChartDateTo);
         int effectivePerPage = appConfigService.normalizePageSize(perpage, appConfigService.getSongsListPageSize());
 
-        String itunesIdsJson = songService.getItunesSongIdsJson(inItunes);
+        ItunesIdSource itunesIds = songService.getItunesSongIds(inItunes);
 
-        List<SongCardDTO> songs = songService.getSongs(
+        KeysetPage<SongCardDTO> songPage = songService.getSongs(
                 q, artist, album, genre, genreMode,
                 subgenre, subgenreMode, language, languageMode, gender, genderMode,
                 ethnicity, ethnicityMode, country, countryMode, tag, tagMode, account, accountMode,
@@ -714,7 +728,7 @@ public class SongController {
                 ageMin, ageMax, ageMode, ageAtReleaseMin, ageAtReleaseMax,
                 birthDateConverted, birthDateFromConverted, birthDateToConverted, birthDateMode,
                 deathDateConverted, deathDateFromConverted, deathDateToConverted, deathDateMode,
-                itunesIdsJson, inItunes,
+                itunesIds, inItunes,
                 playCountMin, playCountMax,
                 trackNumber, trackNumberMode,
                 lengthMin, lengthMax, lengthMode,
@@ -730,10 +744,12 @@ public class SongController {
                 seasonalChartDateFromConverted, seasonalChartDateToConverted, seasonalChartSeason,
                 yearlyChartPeak, yearlyChartYears,
                 yearlyChartDateFromConverted, yearlyChartDateToConverted,
-                sortby, sortdir, sortby2, sortdir2, sortby3, sortdir3, randomSeed, page, effectivePerPage
+                sortby, sortdir, sortby2, sortdir2, sortby3, sortdir3, randomSeed, cursor, page, effectivePerPage
         );
 
-        long totalCount = songService.countSongs(q, artist, album,
+        long totalCount = songPage.totals() != null
+                ? songPage.totals().count()
+                : songService.countSongs(q, artist, album,
                 genre, genreMode, subgenre, subgenreMode, language, languageMode,
                 gender, genderMode, ethnicity, ethnicityMode, country, countryMode, tag, tagMode, account, accountMode,
                 releaseDateConverted, releaseDateFromConverted, releaseDateToConverted, releaseDateMode,
@@ -744,7 +760,7 @@ public class SongController {
                 ageMin, ageMax, ageMode, ageAtReleaseMin, ageAtReleaseMax,
                 birthDateConverted, birthDateFromConverted, birthDateToConverted, birthDateMode,
                 deathDateConverted, deathDateFromConverted, deathDateToConverted, deathDateMode,
-                itunesIdsJson, inItunes,
+                itunesIds, inItunes,
                 playCountMin, playCountMax,
                 trackNumber, trackNumberMode,
                 lengthMin, lengthMax, lengthMode,
@@ -762,7 +778,8 @@ public class SongController {
                 yearlyChartDateFromConverted, yearlyChartDateToConverted);
 
         Map<String, Object> result = new HashMap<>();
-        result.put("items", songs);
+        result.put("items", songPage.rows());
+        result.put("nextCursor", songPage.nextCursor());
         result.put("totalCount", totalCount);
         result.put("page", page);
         result.put("perPage", effectivePerPage);
@@ -1044,10 +1061,12 @@ public class SongController {
     
     @GetMapping("/{id}/image")
     @ResponseBody
-    public byte[] getSongImage(@PathVariable Integer id,
-                               @RequestParam(required = false, defaultValue = "false") boolean thumbnail) {
-        byte[] image = songService.getSongImage(id);
-        return thumbnail ? library.util.ImageUtil.resizeThumbnail(image, 600) : image;
+    public ResponseEntity<byte[]> getSongImage(@PathVariable Integer id,
+                                               @RequestParam(required = false, defaultValue = "false") boolean thumbnail,
+                                               @RequestParam(required = false) Integer size,
+                                               WebRequest webRequest) {
+        return imageThumbnailService.imageResponse("song", id, () -> songService.getSongImage(id),
+                thumbnail, size, webRequest);
     }
     
     @PostMapping("/{id}/image")
@@ -3269,7 +3288,7 @@ public class SongController {
         String seasonalChartDateToConverted = DateFormatUtils.convertToIsoFormat(seasonalChartDateTo);
         String yearlyChartDateFromConverted = DateFormatUtils.convertToIsoFormat(yearlyChartDateFrom);
         String yearlyChartDateToConverted = DateFormatUtils.convertToIsoFormat(yearlyChartDateTo);
-        String itunesIdsJson = songService.getItunesSongIdsJson(inItunes);
+        ItunesIdSource itunesIds = songService.getItunesSongIds(inItunes);
         
         // Get all songs matching filters (using a large limit instead of pagination)
         List<SongCardDTO> songs = songService.getSongs(
@@ -3285,7 +3304,7 @@ public class SongController {
             ageAtReleaseMin, ageAtReleaseMax,
             birthDateConverted, birthDateFromConverted, birthDateToConverted, birthDateMode,
             deathDateConverted, deathDateFromConverted, deathDateToConverted, deathDateMode,
-            itunesIdsJson, inItunes,
+            itunesIds, inItunes,
                 playCountMin, playCountMax,
                 trackNumber, trackNumberMode,
             lengthMin, lengthMax, lengthMode,
@@ -3301,8 +3320,8 @@ public class SongController {
             seasonalChartDateFromConverted, seasonalChartDateToConverted, seasonalChartSeason,
             yearlyChartPeak, yearlyChartYears,
             yearlyChartDateFromConverted, yearlyChartDateToConverted,
-            sortby, sortdir, sortby2, sortdir2, sortby3, sortdir3, randomSeed, 0, limit
-        );
+            sortby, sortdir, sortby2, sortdir2, sortby3, sortdir3, randomSeed, null, 0, limit
+        ).rows();
         
         // Convert to minimal export format
         return songs.stream().map(song -> {
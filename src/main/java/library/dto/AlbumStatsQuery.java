@@ -40,7 +40,7 @@ public record AlbumStatsQuery(
         Integer imageCountMax,
         String hasFeaturedArtists,
         String isBand,
-        String itunesIdsJson,
+        ItunesIdSource itunesIds,
         String inItunes,
         Integer ageMin,
         Integer ageMax,
@@ -85,7 +85,7 @@ public record AlbumStatsQuery(
         String lastFullListenDateMode,
         Integer itunesPresenceMin,
         Integer itunesPresenceMax,
-        String itunesSongIdsJson,
+        ItunesIdSource itunesSongIds,
         String sortBy,
         String sortDir,
         String sortBy2,
@@ -94,6 +94,7 @@ public record AlbumStatsQuery(
         String sortDir3,
         Integer randomSeed,
         int limit,
-        int offset
+        int offset,
+        String cursor
 ) {
 }
@@ -43,7 +43,7 @@ public record ArtistStatsQuery(
         Integer imageTheme,
         String imageThemeMode,
         String isBand,
-        String itunesIdsJson,
+        ItunesIdSource itunesIds,
         String inItunes,
         Integer playCountMin,
         Integer playCountMax,
@@ -57,7 +57,7 @@ public record ArtistStatsQuery(
         Integer songCountMax,
         Integer itunesPresenceMin,
         Integer itunesPresenceMax,
-        String itunesSongIdsJson,
+        ItunesIdSource itunesSongIds,
         String sortBy,
         String sortDir,
         String sortBy2,
@@ -66,6 +66,7 @@ public record ArtistStatsQuery(
         String sortDir3,
         Integer randomSeed,
         int limit,
-        int offset
+        int offset,
+        String cursor
 ) {
 }
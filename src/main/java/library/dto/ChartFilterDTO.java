@@ -100,7 +100,7 @@ public class ChartFilterDTO {
     private String lengthMode;
     private Integer itunesPresenceMin;
     private Integer itunesPresenceMax;
-    private String itunesSongIdsJson;
+    private ItunesIdSource itunesSongIds;
     
     // Age filter
     private Integer ageMin;
@@ -351,8 +351,8 @@ public class ChartFilterDTO {
     public Integer getItunesPresenceMax() { return itunesPresenceMax; }
     public ChartFilterDTO setItunesPresenceMax(Integer itunesPresenceMax) { this.itunesPresenceMax = itunesPresenceMax; return this; }
     
-    public String getItunesSongIdsJson() { return itunesSongIdsJson; }
-    public ChartFilterDTO setItunesSongIdsJson(String itunesSongIdsJson) { this.itunesSongIdsJson = itunesSongIdsJson; return this; }
+    public ItunesIdSource getItunesSongIds() { return itunesSongIds; }
+    public ChartFilterDTO setItunesSongIds(ItunesIdSource itunesSongIds) { this.itunesSongIds = itunesSongIds; return this; }
     
     public Integer getAgeMin() { return ageMin; }
     public ChartFilterDTO setAgeMin(Integer ageMin) { this.ageMin = ageMin; return this; }
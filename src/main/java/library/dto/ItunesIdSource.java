@@ -0,0 +1,45 @@
+package library.dto;
+
+/**
+ * The ids of the catalog entities present in the iTunes library, for the iTunes filters and
+ * presence ratios of the catalog lists: either a set materialized in itunes_presence (named by
+ * its entity_type, see ItunesService) or a JSON array of ids such as "[1,2,3]". Exactly one of
+ * the two is set. Either way a list query embeds {@link #subquery()} and binds
+ * {@link #parameter()} once for it.
+ */
+public record ItunesIdSource(String presenceSet, String json) {
+
+    /** No entity is present in iTunes. */
+    public static final ItunesIdSource NONE = json("[]");
+
+    public ItunesIdSource {
+        if ((presenceSet == null) == (json == null)) {
+            throw new IllegalArgumentException("An iTunes id source is either a presence set or a JSON id array");
+        }
+    }
+
+    public static ItunesIdSource presence(String entityType) {
+        return new ItunesIdSource(entityType, null);
+    }
+
+    public static ItunesIdSource json(String json) {
+        return new ItunesIdSource(null, json);
+    }
+
+    public boolean isPresenceSet() {
+        return presenceSet != null;
+    }
+
+    /**
+     * Subquery selecting the ids, with one parameter placeholder for {@link #parameter()}.
+     */
+    public String subquery() {
+        return isPresenceSet()
+                ? "SELECT entity_id FROM itunes_presence WHERE entity_type = ?"
+                : "SELECT value FROM json_each(?)";
+    }
+
+    public String parameter() {
+        return isPresenceSet() ? presenceSet : json;
+    }
+}
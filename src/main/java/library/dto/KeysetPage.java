@@ -0,0 +1,11 @@
+package library.dto;
+
+import java.util.List;
+
+/**
+ * One page of a catalog list plus the opaque cursor that fetches the page after it, or null
+ * when there is no further page or the sort cannot be resumed by key (unseeded random order).
+ * totals covers the whole filtered list, and is null when the list was read without them.
+ */
+public record KeysetPage<T>(List<T> rows, String nextCursor, ListTotals totals) {
+}
@@ -0,0 +1,15 @@
+package library.dto;
+
+/**
+ * Size of a whole filtered catalog list and its gender chip counts, read in the same statement
+ * as one page of it.
+ */
+public record ListTotals(long count, long femaleCount, long maleCount) {
+
+    /**
+     * Gender 1 is female and 2 male; any other gender, or none, counts as other.
+     */
+    public GenderCountDTO genderCounts() {
+        return new GenderCountDTO(maleCount, femaleCount, count - femaleCount - maleCount);
+    }
+}
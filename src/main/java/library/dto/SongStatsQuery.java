@@ -42,7 +42,7 @@ public record SongStatsQuery(
         String hasFeaturedArtists,
         String isBand,
         String isSingle,
-        String itunesIdsJson,
+        ItunesIdSource itunesIds,
         String inItunes,
         Integer ageMin,
         Integer ageMax,
@@ -112,6 +112,7 @@ public record SongStatsQuery(
         int limit,
         int offset,
         boolean includeExpensiveStats,
-        List<Integer> songIdsFilter
+        List<Integer> songIdsFilter,
+        String cursor
 ) {
 }
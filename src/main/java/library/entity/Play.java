@@ -62,6 +62,26 @@ public class Play {
 	@Column (name="account")
 	private String account;
 
+	// Known original pattern used in legacy code: "dd MMM yyyy, HH:mm VV" (e.g., "21 Nov 2025, 12:00 UTC")
+	private static final String[] PLAY_DATE_PATTERNS = new String[] {
+		"dd MMM yyyy, HH:mm VV",
+		"dd MMM yyyy, HH:mm",
+		"yyyy-MM-dd HH:mm",
+		"dd/MM/yyyy HH:mm",
+		"dd MMM yyyy HH:mm",
+	};
+	private static final DateTimeFormatter[] PLAY_DATE_FORMATS = new DateTimeFormatter[PLAY_DATE_PATTERNS.length];
+	private static final DateTimeFormatter[] PLAY_DATE_UTC_FORMATS = new DateTimeFormatter[PLAY_DATE_PATTERNS.length];
+	private static final DateTimeFormatter STORED_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+	private static final ZoneId UTC = ZoneId.of("UTC");
+	private static final ZoneId MEXICO_CITY = ZoneId.of("America/Mexico_City");
+	static {
+		for (int i = 0; i < PLAY_DATE_PATTERNS.length; i++) {
+			PLAY_DATE_FORMATS[i] = DateTimeFormatter.ofPattern(PLAY_DATE_PATTERNS[i]);
+			PLAY_DATE_UTC_FORMATS[i] = DateTimeFormatter.ofPattern(PLAY_DATE_PATTERNS[i] + " VV");
+		}
+	}
+
 	public int getId() {
 		return id;
 	}
@@ -75,50 +95,35 @@ public class Play {
 	}
 
 	public void setPlayDate(String playDate) {
+		this.playDate = normalizePlayDate(playDate);
+	}
+
+	/**
+	 * Converts a play date as found in Last.fm CSV exports (UTC) to the stored
+	 * "yyyy-MM-dd HH:mm" Mexico City form. Values in no known format are returned trimmed.
+	 */
+	public static String normalizePlayDate(String playDate) {
 		if (playDate == null) {
-			this.playDate = null;
-			return;
+			return null;
 		}
 		String trimmed = playDate.trim();
 		// Try multiple formats safely. If parsing fails, store the original trimmed value.
-		// Known original pattern used in legacy code: "dd MMM yyyy, HH:mm VV" (e.g., "21 Nov 2025, 12:00 UTC")
-		String[] patterns = new String[] {
-			"dd MMM yyyy, HH:mm VV",
-			"dd MMM yyyy, HH:mm",
-			"yyyy-MM-dd HH:mm",
-			"dd/MM/yyyy HH:mm",
-			"dd MMM yyyy HH:mm",
-		};
-		for (String pattern : patterns) {
+		for (int i = 0; i < PLAY_DATE_PATTERNS.length; i++) {
+			String pattern = PLAY_DATE_PATTERNS[i];
+			DateTimeFormatter fmt = PLAY_DATE_FORMATS[i];
 			try {
-				DateTimeFormatter fmt = DateTimeFormatter.ofPattern(pattern);
 				// When pattern includes zone (VV), parse as ZonedDateTime; otherwise assume UTC then convert
 				if (pattern.contains("VV")) {
-					ZonedDateTime utcPlayDate = ZonedDateTime.parse(trimmed + (pattern.contains("VV") && !trimmed.endsWith("UTC") && !trimmed.matches(".*\\s[A-Z]{3,}$") ? " UTC" : ""), fmt);
-					ZonedDateTime mexicanPlayDate = utcPlayDate.withZoneSameInstant(ZoneId.of("America/Mexico_City"));
-					if(utcPlayDate.getYear()==1970)
-						mexicanPlayDate = utcPlayDate.plusYears(40);
-					this.playDate = mexicanPlayDate.format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm"));
-					return;
+					ZonedDateTime utcPlayDate = ZonedDateTime.parse(trimmed + (!trimmed.endsWith("UTC") && !trimmed.matches(".*\\s[A-Z]{3,}$") ? " UTC" : ""), fmt);
+					return toStoredPlayDate(utcPlayDate);
 				} else {
 					// Parse without zone; assume input is UTC-like and convert
 					try {
-						ZonedDateTime utcPlayDate = ZonedDateTime.parse(trimmed + " UTC", DateTimeFormatter.ofPattern(pattern + " VV"));
-						ZonedDateTime mexicanPlayDate = utcPlayDate.withZoneSameInstant(ZoneId.of("America/Mexico_City"));
-						if(utcPlayDate.getYear()==1970)
-							mexicanPlayDate = utcPlayDate.plusYears(40);
-						this.playDate = mexicanPlayDate.format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm"));
-						return;
+						return toStoredPlayDate(ZonedDateTime.parse(trimmed + " UTC", PLAY_DATE_UTC_FORMATS[i]));
 					} catch (DateTimeParseException e) {
 						// fallback: try to parse LocalDateTime style via the pattern, then interpret as UTC
 						try {
-							java.time.LocalDateTime ldt = java.time.LocalDateTime.parse(trimmed, DateTimeFormatter.ofPattern(pattern));
-							ZonedDateTime utcPlayDate = ldt.atZone(ZoneId.of("UTC"));
-							ZonedDateTime mexicanPlayDate = utcPlayDate.withZoneSameInstant(ZoneId.of("America/Mexico_City"));
-							if(utcPlayDate.getYear()==1970)
-								mexicanPlayDate = utcPlayDate.plusYears(40);
-							this.playDate = mexicanPlayDate.format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm"));
-							return;
+							return toStoredPlayDate(java.time.LocalDateTime.parse(trimmed, fmt).atZone(UTC));
 						} catch (Exception ex) {
 							// continue to next pattern
 						}
@@ -129,7 +134,14 @@ public class Play {
 			}
 		}
 		// If we couldn't parse with any pattern, just save the raw trimmed string (no exception thrown)
-		this.playDate = trimmed;
+		return trimmed;
+	}
+
+	private static String toStoredPlayDate(ZonedDateTime utcPlayDate) {
+		ZonedDateTime mexicanPlayDate = utcPlayDate.withZoneSameInstant(MEXICO_CITY);
+		if(utcPlayDate.getYear()==1970)
+			mexicanPlayDate = utcPlayDate.plusYears(40);
+		return mexicanPlayDate.format(STORED_FORMAT);
 	}
 
 	public String getArtist() {
@@ -2,6 +2,9 @@ package library.repository;
 
 import library.dto.AlbumStatsQuery;
 import library.dto.AlbumStatsRow;
+import library.dto.ItunesIdSource;
+import library.dto.KeysetPage;
+import library.repository.KeysetPagination.SortKey;
 import library.service.AppConfigService;
 import library.util.RandomSortUtils;
 import library.util.SqlFilterHelper;
@@ -25,6 +28,18 @@ public class AlbumRepository {
     }
     
     public List<AlbumStatsRow> findAlbumsWithStats(AlbumStatsQuery query) {
+        return findAlbumsPage(query, false).rows();
+    }
+
+    /**
+     * Same rows as {@link #findAlbumsWithStats}, plus the cursor that seeks to the next page
+     * and the totals of the whole filtered list (count and gender chips).
+     */
+    public KeysetPage<AlbumStatsRow> findAlbumsPageWithStats(AlbumStatsQuery query) {
+        return findAlbumsPage(query, true);
+    }
+
+    private KeysetPage<AlbumStatsRow> findAlbumsPage(AlbumStatsQuery query, boolean withTotals) {
         String name = query.name();
         List<Integer> artistName = query.artistName();
         List<Integer> genreIds = query.genreIds();
@@ -62,7 +77,7 @@ public class AlbumRepository {
         Integer imageCountMax = query.imageCountMax();
         String hasFeaturedArtists = query.hasFeaturedArtists();
         String isBand = query.isBand();
-        String itunesIdsJson = query.itunesIdsJson();
+        ItunesIdSource itunesIds = query.itunesIds();
         String inItunes = query.inItunes();
         Integer ageMin = query.ageMin();
         Integer ageMax = query.ageMax();
@@ -106,7 +121,7 @@ public class AlbumRepository {
         String lastFullListenDateMode = query.lastFullListenDateMode();
         Integer itunesPresenceMin = query.itunesPresenceMin();
         Integer itunesPresenceMax = query.itunesPresenceMax();
-        String itunesSongIdsJson = query.itunesSongIdsJson();
+        ItunesIdSource itunesSongIds = query.itunesSongIds();
         String sortBy = query.sortBy();
         String sortDir = query.sortDir();
         String sortBy2 = query.sortBy2();
@@ -142,11 +157,11 @@ public class AlbumRepository {
         StringBuilder listenedDateFilterClause = new StringBuilder();
         List<Object> listenedDateParams = new ArrayList<>();
         if (listenedDateFrom != null && !listenedDateFrom.isEmpty()) {
-            listenedDateFilterClause.append(" AND DATE(p.play_date) >= DATE(?)");
+            listenedDateFilterClause.append(" AND p.play_day >= CAST(strftime('%Y%m%d', ?) AS INTEGER)");
             listenedDateParams.add(listenedDateFrom);
         }
         if (listenedDateTo != null && !listenedDateTo.isEmpty()) {
-            listenedDateFilterClause.append(" AND DATE(p.play_date) <= DATE(?)");
+            listenedDateFilterClause.append(" AND p.play_day <= CAST(strftime('%Y%m%d', ?) AS INTEGER)");
             listenedDateParams.add(listenedDateTo);
         }
         
@@ -219,10 +234,15 @@ public class AlbumRepository {
                 COALESCE(play_stats.time_listened, 0) as time_listened,
                 play_stats.first_listened,
                 play_stats.last_listened,
-                COALESCE(consistency_stats.days_listened, 0) as days_listened,
-                COALESCE(consistency_stats.weeks_listened, 0) as weeks_listened,
-                COALESCE(consistency_stats.months_listened, 0) as months_listened,
-                COALESCE(consistency_stats.years_listened, 0) as years_listened,
+            """);
+        // Unfiltered plays are read from the trigger-maintained album_play_stats row
+        boolean useStoredPlayStats = accountFilterClause.length() == 0 && listenedDateFilterClause.length() == 0;
+        String consistencyStats = useStoredPlayStats ? "play_stats" : "consistency_stats";
+        sql.append("    COALESCE(").append(consistencyStats).append(".days_listened, 0) as days_listened,\n");
+        sql.append("    COALESCE(").append(consistencyStats).append(".weeks_listened, 0) as weeks_listened,\n");
+        sql.append("    COALESCE(").append(consistencyStats).append(".months_listened, 0) as months_listened,\n");
+        sql.append("    COALESCE(").append(consistencyStats).append(".years_listened, 0) as years_listened,\n");
+        sql.append("""
                 ar.country as country,
                 a.organized,
                 ar.birth_date,
@@ -271,7 +291,7 @@ public class AlbumRepository {
             LEFT JOIN (SELECT s.album_id, COUNT(*) as featured_song_count FROM Song s WHERE s.album_id IS NOT NULL AND s.id IN (SELECT sfa.song_id FROM SongFeaturedArtist sfa) GROUP BY s.album_id) album_feat ON album_feat.album_id = a.id
             """);
         if (needsItunesJoin) {
-            sql.append("LEFT JOIN (SELECT album_id, COUNT(*) as itunes_song_count FROM Song WHERE id IN (SELECT value FROM json_each(?)) AND album_id IS NOT NULL GROUP BY album_id) itunes_stats ON itunes_stats.album_id = a.id\n");
+            sql.append("LEFT JOIN (SELECT album_id, COUNT(*) as itunes_song_count FROM Song WHERE id IN (").append(SqlFilterHelper.itunesIdSubquery(itunesSongIds)).append(") AND album_id IS NOT NULL GROUP BY album_id) itunes_stats ON itunes_stats.album_id = a.id\n");
         }
         if (needsFullListen) {
             sql.append("LEFT JOIN last_full_listen lfl ON lfl.album_id = a.id\n");
@@ -280,59 +300,63 @@ public class AlbumRepository {
         // Use INNER JOIN when account filter is includes mode OR when listened date filter is active (for better performance)
         boolean hasListenedDateFilter = listenedDateFilterClause.length() > 0;
         String playStatsJoinType = ((accounts != null && !accounts.isEmpty() && "includes".equalsIgnoreCase(accountMode)) || hasListenedDateFilter) ? "INNER JOIN" : "LEFT JOIN";
-        // Two-level aggregation: inner by song_id (covering index scan on idx_play_cover_plays),
-        // outer by album_id. Avoids a per-row Play->Song heap lookup.
-        sql.append(playStatsJoinType).append(""" 
-             (
-                SELECT
-                    s.album_id,
-                    SUM(ps.play_count) as play_count,
-                    SUM(ps.vatito_play_count) as vatito_play_count,
-                    SUM(ps.robertlover_play_count) as robertlover_play_count,
-                    SUM(CAST(s.length_seconds AS INTEGER) * ps.play_count) as time_listened,
-                    MIN(ps.first_listened) as first_listened,
-                    MAX(ps.last_listened) as last_listened
-                FROM Song s
-                JOIN (
-                    SELECT p.song_id,
-                           COUNT(*) as play_count,
-                           SUM(CASE WHEN p.account = 'vatito' THEN 1 ELSE 0 END) as vatito_play_count,
-                           SUM(CASE WHEN p.account = 'robertlover' THEN 1 ELSE 0 END) as robertlover_play_count,
-                           MIN(p.play_date) as first_listened,
-                           MAX(p.play_date) as last_listened
-                    FROM Play p
-                    WHERE 1=1 """);
-        sql.append(accountFilterClause);
-        sql.append(listenedDateFilterClause);
-        sql.append("""
-                    GROUP BY p.song_id
-                ) ps ON ps.song_id = s.id
-                WHERE s.album_id IS NOT NULL
-                GROUP BY s.album_id
-            ) play_stats ON play_stats.album_id = a.id
-            LEFT JOIN (
-                SELECT
-                    s.album_id,
-                    COUNT(DISTINCT DATE(p.play_date)) as days_listened,
-                    COUNT(DISTINCT strftime('%Y-%W', p.play_date)) as weeks_listened,
-                    COUNT(DISTINCT strftime('%Y-%m', p.play_date)) as months_listened,
-                    COUNT(DISTINCT strftime('%Y', p.play_date)) as years_listened
-                FROM Song s
-                JOIN Play p ON p.song_id = s.id
-                WHERE s.album_id IS NOT NULL
-            """);
-        sql.append(accountFilterClause);
-        sql.append(listenedDateFilterClause);
-        sql.append("""
-                GROUP BY s.album_id
-            ) consistency_stats ON consistency_stats.album_id = a.id
-            WHERE 1=1
-            """);
+        if (useStoredPlayStats) {
+            sql.append("LEFT JOIN album_play_stats play_stats ON play_stats.album_id = a.id\n");
+        } else {
+            // Two-level aggregation: inner by song_id (covering index scan on idx_play_cover_plays),
+            // outer by album_id. Avoids a per-row Play->Song heap lookup.
+            sql.append(playStatsJoinType).append(""" 
+                 (
+                    SELECT
+                        s.album_id,
+                        SUM(ps.play_count) as play_count,
+                        SUM(ps.vatito_play_count) as vatito_play_count,
+                        SUM(ps.robertlover_play_count) as robertlover_play_count,
+                        SUM(CAST(s.length_seconds AS INTEGER) * ps.play_count) as time_listened,
+                        MIN(ps.first_listened) as first_listened,
+                        MAX(ps.last_listened) as last_listened
+                    FROM Song s
+                    JOIN (
+                        SELECT p.song_id,
+                               COUNT(*) as play_count,
+                               SUM(CASE WHEN p.account = 'vatito' THEN 1 ELSE 0 END) as vatito_play_count,
+                               SUM(CASE WHEN p.account = 'robertlover' THEN 1 ELSE 0 END) as robertlover_play_count,
+                               MIN(p.play_date) as first_listened,
+                               MAX(p.play_date) as last_listened
+                        FROM Play p
+                        WHERE 1=1 """);
+            sql.append(accountFilterClause);
+            sql.append(listenedDateFilterClause);
+            sql.append("""
+                        GROUP BY p.song_id
+                    ) ps ON ps.song_id = s.id
+                    WHERE s.album_id IS NOT NULL
+                    GROUP BY s.album_id
+                ) play_stats ON play_stats.album_id = a.id
+                LEFT JOIN (
+                    SELECT
+                        s.album_id,
+                        COUNT(DISTINCT DATE(p.play_date)) as days_listened,
+                        COUNT(DISTINCT strftime('%Y-%W', p.play_date)) as weeks_listened,
+                        COUNT(DISTINCT strftime('%Y-%m', p.play_date)) as months_listened,
+                        COUNT(DISTINCT strftime('%Y', p.play_date)) as years_listened
+                    FROM Song s
+                    JOIN Play p ON p.song_id = s.id
+                    WHERE s.album_id IS NOT NULL
+                """);
+            sql.append(accountFilterClause);
+            sql.append(listenedDateFilterClause);
+            sql.append("""
+                    GROUP BY s.album_id
+                ) consistency_stats ON consistency_stats.album_id = a.id
+                """);
+        }
+        sql.append("WHERE 1=1\n");
         
         List<Object> params = new ArrayList<>();
         // itunes_stats JOIN appears before play_stats in SQL, so its ? must come first (when join is active)
         if (needsItunesJoin) {
-            params.add(itunesSongIdsJson != null ? itunesSongIdsJson : "[]");
+            params.add(SqlFilterHelper.itunesIdParameter(itunesSongIds));
         }
         // Add account params and listened date params for play_stats subquery
         params.addAll(accountParams);
@@ -507,7 +531,7 @@ public class AlbumRepository {
         
         // First Listened Date filter
         if (firstListenedDateMode != null && !firstListenedDateMode.isEmpty()) {
-            String subquery = "(SELECT MIN(p.play_date) FROM Play p WHERE p.song_id IN (SELECT id FROM Song WHERE album_id = a.id))";
+            String subquery = "(SELECT first_listened FROM album_play_stats WHERE album_id = a.id)";
             switch (firstListenedDateMode) {
                 case "exact":
                     if (firstListenedDate != null && !firstListenedDate.isEmpty()) {
@@ -542,7 +566,7 @@ public class AlbumRepository {
         
         // Last Listened Date filter
         if (lastListenedDateMode != null && !lastListenedDateMode.isEmpty()) {
-            String subquery = "(SELECT MAX(p.play_date) FROM Play p WHERE p.song_id IN (SELECT id FROM Song WHERE album_id = a.id))";
+            String subquery = "(SELECT last_listened FROM album_play_stats WHERE album_id = a.id)";
             switch (lastListenedDateMode) {
                 case "exact":
                     if (lastListenedDate != null && !lastListenedDate.isEmpty()) {
@@ -652,8 +676,8 @@ public class AlbumRepository {
             }
         }
         
-        // iTunes filter (pre-computed ID set via json_each)
-        SqlFilterHelper.appendItunesIdFilter(sql, params, "a.id", itunesIdsJson, inItunes);
+        // iTunes filter (pre-computed ID set, see SqlFilterHelper.itunesIdSubquery)
+        SqlFilterHelper.appendItunesIdFilter(sql, params, "a.id", itunesIds, inItunes);
 
         // Age filter (artist's current age, or age at death if deceased)
         if (ageMin != null || ageMax != null) {
@@ -826,88 +850,95 @@ public class AlbumRepository {
             params.add(itunesPresenceMax);
         }
         
-        appendAlbumSortOrder(sql, sortBy, sortDir, sortBy2, sortDir2, sortBy3, sortDir3, query.randomSeed());
-        
-        sql.append(" LIMIT ? OFFSET ?");
-        params.add(limit);
-        params.add(offset);
-        
-        return jdbcTemplate.query(sql.toString(), (rs, rowNum) -> AlbumStatsRow.from(rs), params.toArray());
+        List<SortKey> sortKeys = albumSortKeys(sortBy, sortDir, sortBy2, sortDir2, sortBy3, sortDir3, query.randomSeed());
+        return KeysetPagination.query(jdbcTemplate, sql, params, sortKeys, query.cursor(), limit, offset, withTotals,
+                (rs, rowNum) -> AlbumStatsRow.from(rs));
     }
 
-    private void appendAlbumSortOrder(StringBuilder sql, String sortBy, String sortDir,
-                                      String sortBy2, String sortDir2,
-                                      String sortBy3, String sortDir3,
-                                      Integer randomSeed) {
-        List<String> clauses = new ArrayList<>();
+    // Sort keys are written against the list query's output columns; see KeysetPagination
+    private List<SortKey> albumSortKeys(String sortBy, String sortDir,
+                                        String sortBy2, String sortDir2,
+                                        String sortBy3, String sortDir3,
+                                        Integer randomSeed) {
+        List<SortKey> keys = new ArrayList<>();
         List<String> appliedSorts = new ArrayList<>();
 
         String effectiveSortBy = sortBy != null ? sortBy : "name";
         boolean hasSecondSort = sortBy2 != null && !sortBy2.isBlank();
         boolean hasThirdSort = sortBy3 != null && !sortBy3.isBlank();
 
-        appendAlbumSortClause(clauses, appliedSorts, effectiveSortBy, sortDir, !hasSecondSort, randomSeed);
-        appendAlbumSortClause(clauses, appliedSorts, sortBy2, sortDir2, !hasThirdSort, randomSeed);
-        appendAlbumSortClause(clauses, appliedSorts, sortBy3, sortDir3, true, randomSeed);
+        appendAlbumSortKeys(keys, appliedSorts, effectiveSortBy, sortDir, !hasSecondSort, randomSeed);
+        appendAlbumSortKeys(keys, appliedSorts, sortBy2, sortDir2, !hasThirdSort, randomSeed);
+        appendAlbumSortKeys(keys, appliedSorts, sortBy3, sortDir3, true, randomSeed);
 
-        clauses.add("play_count DESC");
-        clauses.add("a.name");
-        sql.append(" ORDER BY ").append(String.join(", ", clauses));
+        keys.add(SortKey.of("play_count", "DESC"));
+        keys.add(SortKey.of("name", "ASC"));
+        keys.add(SortKey.of("id", "ASC"));
+        return keys;
     }
 
-    private void appendAlbumSortClause(List<String> clauses, List<String> appliedSorts, String sortBy, String sortDir, boolean allowInternalTieBreakers, Integer randomSeed) {
+    private void appendAlbumSortKeys(List<SortKey> keys, List<String> appliedSorts, String sortBy, String sortDir, boolean allowInternalTieBreakers, Integer randomSeed) {
         if (sortBy == null || sortBy.isBlank() || appliedSorts.contains(sortBy)) {
             return;
         }
 
-        String direction = "desc".equalsIgnoreCase(sortDir) ? "DESC" : "ASC";
-        String clause = switch (sortBy) {
-            case "artist" -> "ar.name " + direction;
-            case "avg_length" -> "CAST(COALESCE(song_stats.album_length, 0) AS REAL) / NULLIF(COALESCE(song_stats.song_count, 0), 0) " + direction + " NULLS LAST";
-            case "avg_plays" -> "CAST(COALESCE(play_stats.play_count, 0) AS REAL) / NULLIF(COALESCE(song_stats.song_count, 0), 0) " + direction + " NULLS LAST";
-            case "country" -> "ar.country " + direction + " NULLS LAST";
-            case "ethnicity" -> "e.name " + direction + " NULLS LAST";
-            case "featured_artist_count" -> "COALESCE(album_fac.featured_artist_count, 0) " + direction;
-            case "genre" -> "COALESCE(g_override.name, g_artist.name) " + direction + " NULLS LAST";
-            case "language" -> "COALESCE(l_override.name, l_artist.name) " + direction + " NULLS LAST";
-            case "legacy_plays" -> "COALESCE(play_stats.robertlover_play_count, 0) " + direction;
-            case "primary_plays" -> "COALESCE(play_stats.vatito_play_count, 0) " + direction;
-            case "release_date" -> "a.release_date " + direction + " NULLS LAST";
-            case "solo_songs" -> "COALESCE(album_solo.solo_song_count, 0) " + direction;
-            case "song_count" -> "song_count " + direction;
-            case "songs_with_features" -> "COALESCE(album_feat.featured_song_count, 0) " + direction;
-            case "subgenre" -> "COALESCE(sg_override.name, sg_artist.name) " + direction + " NULLS LAST";
-            case "album_length" -> "album_length " + direction;
-            case "plays" -> "play_count " + direction;
-            case "time" -> "time_listened " + direction;
-            case "first_listened" -> "first_listened " + direction + " NULLS LAST";
-            case "last_listened" -> "last_listened " + direction + " NULLS LAST";
-            case "days_listened" -> "days_listened " + direction;
-            case "weeks_listened" -> "weeks_listened " + direction;
-            case "months_listened" -> "months_listened " + direction;
-            case "years_listened" -> "years_listened " + direction;
-            case "age_at_release" -> "CAST((julianday(a.release_date) - julianday(ar.birth_date)) / 365.25 AS INTEGER) " + direction + " NULLS LAST";
-            case "birth_date" -> "ar.birth_date " + direction + " NULLS LAST";
-            case "death_date" -> "ar.death_date " + direction + " NULLS LAST";
-            case "image_count" -> "image_count " + direction;
-            case "random" -> RandomSortUtils.sqliteNumericExpression("a.id", randomSeed);
-                case "seasonal_chart_peak" -> allowInternalTieBreakers
-                    ? "seasonal_chart_peak " + direction + " NULLS LAST, seasonal_chart_peak_start_date DESC NULLS LAST"
-                    : "seasonal_chart_peak " + direction + " NULLS LAST";
-                case "weekly_chart_peak" -> allowInternalTieBreakers
-                    ? "weekly_chart_peak " + direction + " NULLS LAST, weekly_chart_peak_start_date DESC NULLS LAST"
-                    : "weekly_chart_peak " + direction + " NULLS LAST";
-            case "weekly_chart_weeks" -> "weekly_chart_weeks " + direction;
-            case "weekly_chart_peak_weeks" -> "weekly_chart_peak_weeks " + direction + " NULLS LAST";
-                case "yearly_chart_peak" -> allowInternalTieBreakers
-                    ? "yearly_chart_peak " + direction + " NULLS LAST, yearly_chart_peak_period DESC NULLS LAST"
-                    : "yearly_chart_peak " + direction + " NULLS LAST";
-            case "last_full_listen" -> "lfl.last_full_listen_date " + direction + " NULLS LAST";
-            case "itunes_presence" -> "CAST(COALESCE(itunes_stats.itunes_song_count,0) AS REAL)*100.0/NULLIF(COALESCE(song_stats.song_count,0),0) " + direction + " NULLS LAST";
-            default -> "a.name " + direction;
-        };
-
-        clauses.add(clause);
+        String dir = "desc".equalsIgnoreCase(sortDir) ? "DESC" : "ASC";
+        switch (sortBy) {
+            case "artist" -> keys.add(SortKey.of("artist_name", dir));
+            case "avg_length" -> keys.add(SortKey.of("CAST(album_length AS REAL) / NULLIF(song_count, 0)", dir, false));
+            case "avg_plays" -> keys.add(SortKey.of("CAST(play_count AS REAL) / NULLIF(song_count, 0)", dir, false));
+            case "country" -> keys.add(SortKey.of("country", dir, false));
+            case "ethnicity" -> keys.add(SortKey.of("ethnicity_name", dir, false));
+            case "featured_artist_count" -> keys.add(SortKey.of("featured_artist_count", dir));
+            case "genre" -> keys.add(SortKey.of("genre_name", dir, false));
+            case "language" -> keys.add(SortKey.of("language_name", dir, false));
+            case "legacy_plays" -> keys.add(SortKey.of("robertlover_play_count", dir));
+            case "primary_plays" -> keys.add(SortKey.of("vatito_play_count", dir));
+            case "release_date" -> keys.add(SortKey.of("release_date", dir, false));
+            case "solo_songs" -> keys.add(SortKey.of("solo_song_count", dir));
+            case "song_count" -> keys.add(SortKey.of("song_count", dir));
+            case "songs_with_features" -> keys.add(SortKey.of("songs_with_feat_count", dir));
+            case "subgenre" -> keys.add(SortKey.of("subgenre_name", dir, false));
+            case "album_length" -> keys.add(SortKey.of("album_length", dir));
+            case "plays" -> keys.add(SortKey.of("play_count", dir));
+            case "time" -> keys.add(SortKey.of("time_listened", dir));
+            case "first_listened" -> keys.add(SortKey.of("first_listened", dir, false));
+            case "last_listened" -> keys.add(SortKey.of("last_listened", dir, false));
+            case "days_listened" -> keys.add(SortKey.of("days_listened", dir));
+            case "weeks_listened" -> keys.add(SortKey.of("weeks_listened", dir));
+            case "months_listened" -> keys.add(SortKey.of("months_listened", dir));
+            case "years_listened" -> keys.add(SortKey.of("years_listened", dir));
+            case "age_at_release" -> keys.add(SortKey.of("age_at_release", dir, false));
+            case "birth_date" -> keys.add(SortKey.of("birth_date", dir, false));
+            case "death_date" -> keys.add(SortKey.of("death_date", dir, false));
+            case "image_count" -> keys.add(SortKey.of("image_count", dir));
+            case "random" -> keys.add(randomSeed == null
+                    ? SortKey.unseekable(RandomSortUtils.sqliteNumericExpression("id", null))
+                    : SortKey.of(RandomSortUtils.sqliteNumericExpression("id", randomSeed), "ASC"));
+            case "seasonal_chart_peak" -> {
+                keys.add(SortKey.of("seasonal_chart_peak", dir, false));
+                if (allowInternalTieBreakers) {
+                    keys.add(SortKey.of("seasonal_chart_peak_start_date", "DESC", false));
+                }
+            }
+            case "weekly_chart_peak" -> {
+                keys.add(SortKey.of("weekly_chart_peak", dir, false));
+                if (allowInternalTieBreakers) {
+                    keys.add(SortKey.of("weekly_chart_peak_start_date", "DESC", false));
+                }
+            }
+            case "weekly_chart_weeks" -> keys.add(SortKey.of("weekly_chart_weeks", dir));
+            case "weekly_chart_peak_weeks" -> keys.add(SortKey.of("weekly_chart_peak_weeks", dir, false));
+            case "yearly_chart_peak" -> {
+                keys.add(SortKey.of("yearly_chart_peak", dir, false));
+                if (allowInternalTieBreakers) {
+                    keys.add(SortKey.of("yearly_chart_peak_period", "DESC", false));
+                }
+            }
+            case "last_full_listen" -> keys.add(SortKey.of("last_full_listen_date", dir, false));
+            case "itunes_presence" -> keys.add(SortKey.of("itunes_presence_ratio", dir, false));
+            default -> keys.add(SortKey.of("name", dir));
+        }
         appliedSorts.add(sortBy);
     }
     
@@ -925,7 +956,7 @@ public class AlbumRepository {
                                        String lastListenedDate, String lastListenedDateFrom, String lastListenedDateTo, String lastListenedDateMode,
                                        String listenedDateFrom, String listenedDateTo,
                                        String organized, Integer imageCountMin, Integer imageCountMax, String hasFeaturedArtists, String isBand,
-                                       String itunesIdsJson, String inItunes,
+                                       ItunesIdSource itunesIds, String inItunes,
                                        Integer ageMin, Integer ageMax, String ageMode,
                                        Integer ageAtReleaseMin, Integer ageAtReleaseMax,
                                        String birthDate, String birthDateFrom, String birthDateTo, String birthDateMode,
@@ -941,7 +972,7 @@ public class AlbumRepository {
                                        String yearlyChartDateFrom, String yearlyChartDateTo,
                                        String lastFullListenDate, String lastFullListenDateFrom, String lastFullListenDateTo, String lastFullListenDateMode,
                                        Integer itunesPresenceMin, Integer itunesPresenceMax,
-                                       String itunesSongIdsJson) {
+                                       ItunesIdSource itunesSongIds) {
         boolean needsFullListen = lastFullListenDateMode != null && !lastFullListenDateMode.isEmpty();
         // Build account filter subquery for play_stats if we need play count filter
         StringBuilder accountFilterClause = new StringBuilder();
@@ -951,11 +982,11 @@ public class AlbumRepository {
         StringBuilder listenedDateFilterClause = new StringBuilder();
         List<Object> listenedDateParams = new ArrayList<>();
         if (listenedDateFrom != null && !listenedDateFrom.isEmpty()) {
-            listenedDateFilterClause.append(" AND DATE(p.play_date) >= DATE(?)");
+            listenedDateFilterClause.append(" AND p.play_day >= CAST(strftime('%Y%m%d', ?) AS INTEGER)");
             listenedDateParams.add(listenedDateFrom);
         }
         if (listenedDateTo != null && !listenedDateTo.isEmpty()) {
-            listenedDateFilterClause.append(" AND DATE(p.play_date) <= DATE(?)");
+            listenedDateFilterClause.append(" AND p.play_day <= CAST(strftime('%Y%m%d', ?) AS INTEGER)");
             listenedDateParams.add(listenedDateTo);
         }
         boolean hasListenedDateFilter = listenedDateFilterClause.length() > 0;
@@ -1005,7 +1036,7 @@ public class AlbumRepository {
             
             // Pre-aggregate iTunes stats as JOINs to avoid correlated subqueries per row
             if (needsItunesJoin) {
-                sql.append("LEFT JOIN (SELECT album_id, COUNT(*) as itunes_song_count FROM Song WHERE id IN (SELECT value FROM json_each(?)) AND album_id IS NOT NULL GROUP BY album_id) itunes_count_stats ON itunes_count_stats.album_id = a.id ");
+                sql.append("LEFT JOIN (SELECT album_id, COUNT(*) as itunes_song_count FROM Song WHERE id IN (").append(SqlFilterHelper.itunesIdSubquery(itunesSongIds)).append(") AND album_id IS NOT NULL GROUP BY album_id) itunes_count_stats ON itunes_count_stats.album_id = a.id ");
                 sql.append("LEFT JOIN (SELECT album_id, COUNT(*) as song_count FROM Song WHERE album_id IS NOT NULL GROUP BY album_id) album_song_count_stats ON album_song_count_stats.album_id = a.id ");
             }
             sql.append("INNER JOIN Song s ON s.album_id = a.id " +
@@ -1028,7 +1059,9 @@ public class AlbumRepository {
             }
             
             // Add play_stats JOIN if we need to filter by play count or listened date
-            if (playCountMin != null || playCountMax != null || hasListenedDateFilter) {
+            if (!hasListenedDateFilter && accountFilterClause.length() == 0 && (playCountMin != null || playCountMax != null)) {
+                sql.append("LEFT JOIN album_play_stats play_stats ON play_stats.album_id = a.id ");
+            } else if (playCountMin != null || playCountMax != null || hasListenedDateFilter) {
                 sql.append(hasListenedDateFilter ? "INNER JOIN (" : "LEFT JOIN (");
                 sql.append("""
                         SELECT s.album_id, COUNT(*) as play_count
@@ -1045,7 +1078,7 @@ public class AlbumRepository {
             
             // Pre-aggregate iTunes stats as JOINs to avoid correlated subqueries per row
             if (needsItunesJoin) {
-                sql.append("LEFT JOIN (SELECT album_id, COUNT(*) as itunes_song_count FROM Song WHERE id IN (SELECT value FROM json_each(?)) AND album_id IS NOT NULL GROUP BY album_id) itunes_count_stats ON itunes_count_stats.album_id = a.id ");
+                sql.append("LEFT JOIN (SELECT album_id, COUNT(*) as itunes_song_count FROM Song WHERE id IN (").append(SqlFilterHelper.itunesIdSubquery(itunesSongIds)).append(") AND album_id IS NOT NULL GROUP BY album_id) itunes_count_stats ON itunes_count_stats.album_id = a.id ");
                 sql.append("LEFT JOIN (SELECT album_id, COUNT(*) as song_count FROM Song WHERE album_id IS NOT NULL GROUP BY album_id) album_song_count_stats ON album_song_count_stats.album_id = a.id ");
             }
             sql.append("WHERE 1=1 ");
@@ -1113,7 +1146,7 @@ public class AlbumRepository {
         
         // iTunes JOIN param (appears in FROM clause after play_stats, before main WHERE conditions)
         if (needsItunesJoin) {
-            params.add(itunesSongIdsJson != null ? itunesSongIdsJson : "[]");
+            params.add(SqlFilterHelper.itunesIdParameter(itunesSongIds));
         }
         
         // Account params for main query if using includes mode
@@ -1284,7 +1317,7 @@ public class AlbumRepository {
         
         // First Listened Date filter
         if (firstListenedDateMode != null && !firstListenedDateMode.isEmpty()) {
-            String subquery = "(SELECT MIN(p.play_date) FROM Play p WHERE p.song_id IN (SELECT id FROM Song WHERE album_id = a.id))";
+            String subquery = "(SELECT first_listened FROM album_play_stats WHERE album_id = a.id)";
             switch (firstListenedDateMode) {
                 case "exact":
                     if (firstListenedDate != null && !firstListenedDate.isEmpty()) {
@@ -1319,7 +1352,7 @@ public class AlbumRepository {
         
         // Last Listened Date filter
         if (lastListenedDateMode != null && !lastListenedDateMode.isEmpty()) {
-            String subquery = "(SELECT MAX(p.play_date) FROM Play p WHERE p.song_id IN (SELECT id FROM Song WHERE album_id = a.id))";
+            String subquery = "(SELECT last_listened FROM album_play_stats WHERE album_id = a.id)";
             switch (lastListenedDateMode) {
                 case "exact":
                     if (lastListenedDate != null && !lastListenedDate.isEmpty()) {
@@ -1429,8 +1462,8 @@ public class AlbumRepository {
             }
         }
         
-        // iTunes filter (pre-computed ID set via json_each)
-        SqlFilterHelper.appendItunesIdFilter(sql, params, "a.id", itunesIdsJson, inItunes);
+        // iTunes filter (pre-computed ID set, see SqlFilterHelper.itunesIdSubquery)
+        SqlFilterHelper.appendItunesIdFilter(sql, params, "a.id", itunesIds, inItunes);
 
         // Age filter (artist's current age, or age at death if deceased)
         if (ageMin != null || ageMax != null) {
@@ -1630,7 +1663,7 @@ public class AlbumRepository {
                                        Integer ageAtReleaseMin, Integer ageAtReleaseMax,
                                        String birthDate, String birthDateFrom, String birthDateTo, String birthDateMode,
                                        String deathDate, String deathDateFrom, String deathDateTo, String deathDateMode,
-                                       String itunesIdsJson, String inItunes,
+                                       ItunesIdSource itunesIds, String inItunes,
                                        Integer playCountMin, Integer playCountMax, Integer songCountMin, Integer songCountMax,
                                        Integer lengthMin, Integer lengthMax, String lengthMode,
                                        Integer weeklyChartPeak, String weeklyChartPeakMode, Integer weeklyChartWeeks,
@@ -1642,7 +1675,7 @@ public class AlbumRepository {
                                        String yearlyChartDateFrom, String yearlyChartDateTo,
                                        String lastFullListenDate, String lastFullListenDateFrom, String lastFullListenDateTo, String lastFullListenDateMode,
                                        Integer itunesPresenceMin, Integer itunesPresenceMax,
-                                       String itunesSongIdsJson) {
+                                       ItunesIdSource itunesSongIds) {
         boolean needsFullListen = lastFullListenDateMode != null && !lastFullListenDateMode.isEmpty();
         // Build account filter subquery for play_stats if we need play count filter
         StringBuilder accountFilterClause = new StringBuilder();
@@ -1652,11 +1685,11 @@ public class AlbumRepository {
         StringBuilder listenedDateFilterClause = new StringBuilder();
         List<Object> listenedDateParams = new ArrayList<>();
         if (listenedDateFrom != null && !listenedDateFrom.isEmpty()) {
-            listenedDateFilterClause.append(" AND DATE(p.play_date) >= DATE(?)");
+            listenedDateFilterClause.append(" AND p.play_day >= CAST(strftime('%Y%m%d', ?) AS INTEGER)");
             listenedDateParams.add(listenedDateFrom);
         }
         if (listenedDateTo != null && !listenedDateTo.isEmpty()) {
-            listenedDateFilterClause.append(" AND DATE(p.play_date) <= DATE(?)");
+            listenedDateFilterClause.append(" AND p.play_day <= CAST(strftime('%Y%m%d', ?) AS INTEGER)");
             listenedDateParams.add(listenedDateTo);
         }
         boolean hasListenedDateFilter = listenedDateFilterClause.length() > 0;
@@ -1690,7 +1723,9 @@ public class AlbumRepository {
             sql.append("LEFT JOIN (SELECT album_id, COUNT(*) as song_count, SUM(length_seconds) as album_length FROM Song GROUP BY album_id) song_stats ON song_stats.album_id = a.id ");
         }
 
-        if (playCountMin != null || playCountMax != null || hasListenedDateFilter) {
+        if (!hasListenedDateFilter && accountFilterClause.length() == 0 && (playCountMin != null || playCountMax != null)) {
+            sql.append("LEFT JOIN album_play_stats play_stats ON play_stats.album_id = a.id ");
+        } else if (playCountMin != null || playCountMax != null || hasListenedDateFilter) {
             sql.append(hasListenedDateFilter ? "INNER JOIN (" : "LEFT JOIN (");
             sql.append("""
                     SELECT s.album_id, COUNT(*) as play_count
@@ -1706,7 +1741,7 @@ public class AlbumRepository {
         }
 
         if (needsItunesJoinGender) {
-            sql.append("LEFT JOIN (SELECT album_id, COUNT(*) as itunes_song_count FROM Song WHERE id IN (SELECT value FROM json_each(?)) AND album_id IS NOT NULL GROUP BY album_id) itunes_count_stats ON itunes_count_stats.album_id = a.id ");
+            sql.append("LEFT JOIN (SELECT album_id, COUNT(*) as itunes_song_count FROM Song WHERE id IN (").append(SqlFilterHelper.itunesIdSubquery(itunesSongIds)).append(") AND album_id IS NOT NULL GROUP BY album_id) itunes_count_stats ON itunes_count_stats.album_id = a.id ");
             sql.append("LEFT JOIN (SELECT album_id, COUNT(*) as song_count FROM Song WHERE album_id IS NOT NULL GROUP BY album_id) album_song_count_stats ON album_song_count_stats.album_id = a.id ");
         }
         sql.append("WHERE 1=1 ");
@@ -1770,7 +1805,7 @@ public class AlbumRepository {
         
         // iTunes JOIN param (appears in FROM clause before WHERE conditions)
         if (needsItunesJoinGender) {
-            params.add(itunesSongIdsJson != null ? itunesSongIdsJson : "[]");
+            params.add(SqlFilterHelper.itunesIdParameter(itunesSongIds));
         }
         
         // Account params for main query if using includes mode
@@ -1830,11 +1865,11 @@ public class AlbumRepository {
         library.util.SqlFilterHelper.appendDateFilter(sql, params, "a.release_date", releaseDate, releaseDateFrom, releaseDateTo, releaseDateMode);
         
         // First listened date filter
-        String firstListenedSubquery = "(SELECT MIN(p.play_date) FROM Play p WHERE p.song_id IN (SELECT id FROM Song WHERE album_id = a.id))";
+        String firstListenedSubquery = "(SELECT first_listened FROM album_play_stats WHERE album_id = a.id)";
         library.util.SqlFilterHelper.appendDateFilter(sql, params, firstListenedSubquery, firstListenedDate, firstListenedDateFrom, firstListenedDateTo, firstListenedDateMode);
         
         // Last listened date filter
-        String lastListenedSubquery = "(SELECT MAX(p.play_date) FROM Play p WHERE p.song_id IN (SELECT id FROM Song WHERE album_id = a.id))";
+        String lastListenedSubquery = "(SELECT last_listened FROM album_play_stats WHERE album_id = a.id)";
         library.util.SqlFilterHelper.appendDateFilter(sql, params, lastListenedSubquery, lastListenedDate, lastListenedDateFrom, lastListenedDateTo, lastListenedDateMode);
         
         // Birth date filter
@@ -1906,8 +1941,8 @@ public class AlbumRepository {
             }
         }
         
-        // iTunes filter (pre-computed ID set via json_each)
-        SqlFilterHelper.appendItunesIdFilter(sql, params, "a.id", itunesIdsJson, inItunes);
+        // iTunes filter (pre-computed ID set, see SqlFilterHelper.itunesIdSubquery)
+        SqlFilterHelper.appendItunesIdFilter(sql, params, "a.id", itunesIds, inItunes);
         
         // Play count filter
         if (playCountMin != null) {
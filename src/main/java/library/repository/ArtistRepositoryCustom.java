@@ -2,6 +2,7 @@ package library.repository;
 
 import library.dto.ArtistStatsQuery;
 import library.dto.ArtistStatsRow;
+import library.dto.KeysetPage;
 
 import java.util.List;
 import java.util.Map;
@@ -9,6 +10,12 @@ import java.util.Map;
 public interface ArtistRepositoryCustom {
     List<ArtistStatsRow> findArtistsWithStats(ArtistStatsQuery query);
 
+    /**
+     * Same rows as {@link #findArtistsWithStats}, plus the cursor that seeks to the next page
+     * and the totals of the whole filtered list (count and gender chips).
+     */
+    KeysetPage<ArtistStatsRow> findArtistsPageWithStats(ArtistStatsQuery query);
+
     Long countArtistsWithFilters(ArtistStatsQuery query);
 
     Map<Integer, Long> countArtistsByGenderWithFilters(ArtistStatsQuery query);
@@ -2,6 +2,9 @@ package library.repository;
 
 import library.dto.ArtistStatsQuery;
 import library.dto.ArtistStatsRow;
+import library.dto.ItunesIdSource;
+import library.dto.KeysetPage;
+import library.repository.KeysetPagination.SortKey;
 import library.util.RandomSortUtils;
 import library.util.SqlFilterHelper;
 import library.util.StringNormalizer;
@@ -24,6 +27,15 @@ public class ArtistRepositoryImpl implements ArtistRepositoryCustom {
     
     @Override
     public List<ArtistStatsRow> findArtistsWithStats(ArtistStatsQuery query) {
+        return findArtistsPage(query, false).rows();
+    }
+
+    @Override
+    public KeysetPage<ArtistStatsRow> findArtistsPageWithStats(ArtistStatsQuery query) {
+        return findArtistsPage(query, true);
+    }
+
+    private KeysetPage<ArtistStatsRow> findArtistsPage(ArtistStatsQuery query, boolean withTotals) {
         String name = query.name();
         List<Integer> genderIds = query.genderIds();
         String genderMode = query.genderMode();
@@ -63,7 +75,7 @@ public class ArtistRepositoryImpl implements ArtistRepositoryCustom {
         Integer imageTheme = query.imageTheme();
         String imageThemeMode = query.imageThemeMode();
         String isBand = query.isBand();
-        String itunesIdsJson = query.itunesIdsJson();
+        ItunesIdSource itunesIds = query.itunesIds();
         String inItunes = query.inItunes();
         Integer playCountMin = query.playCountMin();
         Integer playCountMax = query.playCountMax();
@@ -77,7 +89,7 @@ public class ArtistRepositoryImpl implements ArtistRepositoryCustom {
         Integer songCountMax = query.songCountMax();
         Integer itunesPresenceMin = query.itunesPresenceMin();
         Integer itunesPresenceMax = query.itunesPresenceMax();
-        String itunesSongIdsJson = query.itunesSongIdsJson();
+        ItunesIdSource itunesSongIds = query.itunesSongIds();
         String sortBy = query.sortBy();
         String sortDir = query.sortDir();
         String sortBy2 = query.sortBy2();
@@ -111,11 +123,11 @@ public class ArtistRepositoryImpl implements ArtistRepositoryCustom {
         StringBuilder listenedDateFilterClause = new StringBuilder();
         List<Object> listenedDateParams = new ArrayList<>();
         if (listenedDateFrom != null && !listenedDateFrom.isEmpty()) {
-            listenedDateFilterClause.append(" AND DATE(p.play_date) >= DATE(?)");
+            listenedDateFilterClause.append(" AND p.play_day >= CAST(strftime('%Y%m%d', ?) AS INTEGER)");
             listenedDateParams.add(listenedDateFrom);
         }
         if (listenedDateTo != null && !listenedDateTo.isEmpty()) {
-            listenedDateFilterClause.append(" AND DATE(p.play_date) <= DATE(?)");
+            listenedDateFilterClause.append(" AND p.play_day <= CAST(strftime('%Y%m%d', ?) AS INTEGER)");
             listenedDateParams.add(listenedDateTo);
         }
         
@@ -143,10 +155,13 @@ public class ArtistRepositoryImpl implements ArtistRepositoryCustom {
         sql.append("    COALESCE(play_stats.time_listened, 0) as time_listened, ");
         sql.append("    play_stats.first_listened, ");
         sql.append("    play_stats.last_listened, ");
-        sql.append("    COALESCE(consistency_stats.days_listened, 0) as days_listened, ");
-        sql.append("    COALESCE(consistency_stats.weeks_listened, 0) as weeks_listened, ");
-        sql.append("    COALESCE(consistency_stats.months_listened, 0) as months_listened, ");
-        sql.append("    COALESCE(consistency_stats.years_listened, 0) as years_listened, ");
+        // Unfiltered plays are read from the trigger-maintained artist_play_stats row
+        boolean useStoredPlayStats = accountFilterClause.length() == 0 && listenedDateFilterClause.length() == 0;
+        String consistencyStats = useStoredPlayStats ? "play_stats" : "consistency_stats";
+        sql.append("    COALESCE(").append(consistencyStats).append(".days_listened, 0) as days_listened, ");
+        sql.append("    COALESCE(").append(consistencyStats).append(".weeks_listened, 0) as weeks_listened, ");
+        sql.append("    COALESCE(").append(consistencyStats).append(".months_listened, 0) as months_listened, ");
+        sql.append("    COALESCE(").append(consistencyStats).append(".years_listened, 0) as years_listened, ");
         sql.append("    a.organized, ");
         sql.append("    COALESCE(featured_stats.featured_song_count, 0) as featured_song_count, ");
         sql.append("    a.birth_date, ");
@@ -178,57 +193,61 @@ public class ArtistRepositoryImpl implements ArtistRepositoryCustom {
     sql.append("LEFT JOIN (SELECT artist_id, COUNT(*) as songs_with_feat_count FROM Song s WHERE EXISTS (SELECT 1 FROM SongFeaturedArtist sfa WHERE sfa.song_id = s.id) GROUP BY artist_id) swf_stats ON swf_stats.artist_id = a.id ");
     sql.append("LEFT JOIN (SELECT artist_id, COUNT(*) as standalone_song_count FROM Song WHERE album_id IS NULL GROUP BY artist_id) standalone_stats ON standalone_stats.artist_id = a.id ");
         if (needsItunesJoin) {
-            sql.append("LEFT JOIN (SELECT artist_id, COUNT(*) as itunes_song_count FROM Song WHERE id IN (SELECT value FROM json_each(?)) GROUP BY artist_id) itunes_stats ON itunes_stats.artist_id = a.id ");
+            sql.append("LEFT JOIN (SELECT artist_id, COUNT(*) as itunes_song_count FROM Song WHERE id IN (").append(SqlFilterHelper.itunesIdSubquery(itunesSongIds)).append(") GROUP BY artist_id) itunes_stats ON itunes_stats.artist_id = a.id ");
         }
         boolean hasListenedDateFilter = (listenedDateFrom != null && !listenedDateFrom.isEmpty()) || 
                                         (listenedDateTo != null && !listenedDateTo.isEmpty());
         String playStatsJoinType = ((accounts != null && !accounts.isEmpty() && "includes".equalsIgnoreCase(accountMode)) || hasListenedDateFilter) ? "INNER JOIN" : "LEFT JOIN";
         
-        // Build play_stats subquery - two-level aggregation: inner by song_id (covering index scan),
-        // outer by artist_id. This avoids a Play->Song join per row, letting SQLite use the
-        // idx_play_cover_plays(song_id, account, play_date) index as a pure covering scan.
-        sql.append(playStatsJoinType).append(" ( ");
-        sql.append("    SELECT ");
-        sql.append("        s.artist_id, ");
-        sql.append("        SUM(ps.play_count) as play_count, ");
-        sql.append("        SUM(ps.vatito_play_count) as vatito_play_count, ");
-        sql.append("        SUM(ps.robertlover_play_count) as robertlover_play_count, ");
-        sql.append("        SUM(CAST(s.length_seconds AS INTEGER) * ps.play_count) as time_listened, ");
-        sql.append("        MIN(ps.first_listened) as first_listened, ");
-        sql.append("        MAX(ps.last_listened) as last_listened ");
-        sql.append("    FROM Song s ");
-        sql.append("    JOIN ( ");
-        sql.append("        SELECT p.song_id, ");
-        sql.append("               COUNT(*) as play_count, ");
-        sql.append("               SUM(CASE WHEN p.account = 'vatito' THEN 1 ELSE 0 END) as vatito_play_count, ");
-        sql.append("               SUM(CASE WHEN p.account = 'robertlover' THEN 1 ELSE 0 END) as robertlover_play_count, ");
-        sql.append("               MIN(p.play_date) as first_listened, ");
-        sql.append("               MAX(p.play_date) as last_listened ");
-        sql.append("        FROM Play p ");
-        sql.append("        WHERE 1=1 ").append(accountFilterClause).append(listenedDateFilterClause).append(" ");
-        sql.append("        GROUP BY p.song_id ");
-        sql.append("    ) ps ON ps.song_id = s.id ");
-        sql.append("    GROUP BY s.artist_id ");
-        sql.append(") play_stats ON play_stats.artist_id = a.id ");
-        sql.append("LEFT JOIN ( ");
-        sql.append("    SELECT ");
-        sql.append("        s.artist_id, ");
-        sql.append("        COUNT(DISTINCT DATE(p.play_date)) as days_listened, ");
-        sql.append("        COUNT(DISTINCT strftime('%Y-%W', p.play_date)) as weeks_listened, ");
-        sql.append("        COUNT(DISTINCT strftime('%Y-%m', p.play_date)) as months_listened, ");
-        sql.append("        COUNT(DISTINCT strftime('%Y', p.play_date)) as years_listened ");
-        sql.append("    FROM Song s ");
-        sql.append("    JOIN Play p ON p.song_id = s.id ");
-        sql.append("    WHERE 1=1 ").append(accountFilterClause).append(listenedDateFilterClause).append(" ");
-        sql.append("    GROUP BY s.artist_id ");
-        sql.append(") consistency_stats ON consistency_stats.artist_id = a.id ");
+        if (useStoredPlayStats) {
+            sql.append("LEFT JOIN artist_play_stats play_stats ON play_stats.artist_id = a.id ");
+        } else {
+            // Build play_stats subquery - two-level aggregation: inner by song_id (covering index scan),
+            // outer by artist_id. This avoids a Play->Song join per row, letting SQLite use the
+            // idx_play_cover_plays(song_id, account, play_date) index as a pure covering scan.
+            sql.append(playStatsJoinType).append(" ( ");
+            sql.append("    SELECT ");
+            sql.append("        s.artist_id, ");
+            sql.append("        SUM(ps.play_count) as play_count, ");
+            sql.append("        SUM(ps.vatito_play_count) as vatito_play_count, ");
+            sql.append("        SUM(ps.robertlover_play_count) as robertlover_play_count, ");
+            sql.append("        SUM(CAST(s.length_seconds AS INTEGER) * ps.play_count) as time_listened, ");
+            sql.append("        MIN(ps.first_listened) as first_listened, ");
+            sql.append("        MAX(ps.last_listened) as last_listened ");
+            sql.append("    FROM Song s ");
+            sql.append("    JOIN ( ");
+            sql.append("        SELECT p.song_id, ");
+            sql.append("               COUNT(*) as play_count, ");
+            sql.append("               SUM(CASE WHEN p.account = 'vatito' THEN 1 ELSE 0 END) as vatito_play_count, ");
+            sql.append("               SUM(CASE WHEN p.account = 'robertlover' THEN 1 ELSE 0 END) as robertlover_play_count, ");
+            sql.append("               MIN(p.play_date) as first_listened, ");
+            sql.append("               MAX(p.play_date) as last_listened ");
+            sql.append("        FROM Play p ");
+            sql.append("        WHERE 1=1 ").append(accountFilterClause).append(listenedDateFilterClause).append(" ");
+            sql.append("        GROUP BY p.song_id ");
+            sql.append("    ) ps ON ps.song_id = s.id ");
+            sql.append("    GROUP BY s.artist_id ");
+            sql.append(") play_stats ON play_stats.artist_id = a.id ");
+            sql.append("LEFT JOIN ( ");
+            sql.append("    SELECT ");
+            sql.append("        s.artist_id, ");
+            sql.append("        COUNT(DISTINCT DATE(p.play_date)) as days_listened, ");
+            sql.append("        COUNT(DISTINCT strftime('%Y-%W', p.play_date)) as weeks_listened, ");
+            sql.append("        COUNT(DISTINCT strftime('%Y-%m', p.play_date)) as months_listened, ");
+            sql.append("        COUNT(DISTINCT strftime('%Y', p.play_date)) as years_listened ");
+            sql.append("    FROM Song s ");
+            sql.append("    JOIN Play p ON p.song_id = s.id ");
+            sql.append("    WHERE 1=1 ").append(accountFilterClause).append(listenedDateFilterClause).append(" ");
+            sql.append("    GROUP BY s.artist_id ");
+            sql.append(") consistency_stats ON consistency_stats.artist_id = a.id ");
+        }
         
         sql.append("WHERE 1=1 ");
         
         List<Object> params = new ArrayList<>();
         // itunes_stats JOIN appears before play_stats in SQL, so its ? must come first (when join is active)
         if (needsItunesJoin) {
-            params.add(itunesSongIdsJson != null ? itunesSongIdsJson : "[]");
+            params.add(SqlFilterHelper.itunesIdParameter(itunesSongIds));
         }
         // Add account params and listened date params
         params.addAll(accountParams);
@@ -264,11 +283,11 @@ public class ArtistRepositoryImpl implements ArtistRepositoryCustom {
         SqlFilterHelper.appendTagFilter(sql, params, "a.id", "ArtistTag", "artist_id", tagIds, tagMode);
         
         // First Listened Date filter
-        String firstListenedSubquery = "(SELECT MIN(p.play_date) FROM Play p WHERE p.song_id IN (SELECT id FROM Song WHERE artist_id = a.id))";
+        String firstListenedSubquery = "(SELECT first_listened FROM artist_play_stats WHERE artist_id = a.id)";
         SqlFilterHelper.appendDateFilter(sql, params, firstListenedSubquery, firstListenedDate, firstListenedDateFrom, firstListenedDateTo, firstListenedDateMode);
         
         // Last Listened Date filter
-        String lastListenedSubquery = "(SELECT MAX(p.play_date) FROM Play p WHERE p.song_id IN (SELECT id FROM Song WHERE artist_id = a.id))";
+        String lastListenedSubquery = "(SELECT last_listened FROM artist_play_stats WHERE artist_id = a.id)";
         SqlFilterHelper.appendDateFilter(sql, params, lastListenedSubquery, lastListenedDate, lastListenedDateFrom, lastListenedDateTo, lastListenedDateMode);
         
         // Birth Date filter
@@ -330,8 +349,8 @@ public class ArtistRepositoryImpl implements ArtistRepositoryCustom {
             }
         }
         
-        // iTunes filter (pre-computed ID set via json_each)
-        SqlFilterHelper.appendItunesIdFilter(sql, params, "a.id", itunesIdsJson, inItunes);
+        // iTunes filter (pre-computed ID set, see SqlFilterHelper.itunesIdSubquery)
+        SqlFilterHelper.appendItunesIdFilter(sql, params, "a.id", itunesIds, inItunes);
         
         // Play count filter
         if (playCountMin != null) {
@@ -373,72 +392,84 @@ public class ArtistRepositoryImpl implements ArtistRepositoryCustom {
             params.add(itunesPresenceMax);
         }
         
-        appendArtistSortOrder(sql, sortBy, sortDir, sortBy2, sortDir2, sortBy3, sortDir3, query.randomSeed());
-        
-        sql.append(" LIMIT ? OFFSET ? ");
-        params.add(limit);
-        params.add(offset);
-        
-        return jdbcTemplate.query(sql.toString(), (rs, rowNum) -> ArtistStatsRow.from(rs), params.toArray());
+        List<SortKey> sortKeys = artistSortKeys(sortBy, sortDir, sortBy2, sortDir2, sortBy3, sortDir3, query.randomSeed());
+        return KeysetPagination.query(jdbcTemplate, sql, params, sortKeys, query.cursor(), limit, offset, withTotals,
+                (rs, rowNum) -> ArtistStatsRow.from(rs));
+    }
+
+    /**
+     * Play count of artist a.id for the count queries: the stored artist_play_stats value when
+     * no account or listened-date filter applies, otherwise a count over the filtered plays.
+     */
+    private String playCountExpression(CharSequence accountFilterClause, CharSequence listenedDateFilterClause) {
+        if (accountFilterClause.length() == 0 && listenedDateFilterClause.length() == 0) {
+            return "COALESCE((SELECT play_count FROM artist_play_stats WHERE artist_id = a.id), 0)";
+        }
+        return "COALESCE((SELECT COUNT(*) FROM Play p JOIN Song song ON p.song_id = song.id WHERE song.artist_id = a.id"
+                + accountFilterClause + listenedDateFilterClause + "), 0)";
     }
 
-    private void appendArtistSortOrder(StringBuilder sql, String sortBy, String sortDir,
-                                       String sortBy2, String sortDir2,
-                                       String sortBy3, String sortDir3,
-                                       Integer randomSeed) {
-        List<String> clauses = new ArrayList<>();
+    // Sort keys are written against the list query's output columns; see KeysetPagination
+    private List<SortKey> artistSortKeys(String sortBy, String sortDir,
+                                         String sortBy2, String sortDir2,
+                                         String sortBy3, String sortDir3,
+                                         Integer randomSeed) {
+        List<SortKey> keys = new ArrayList<>();
         List<String> appliedSorts = new ArrayList<>();
 
-        appendArtistSortClause(clauses, appliedSorts, sortBy != null ? sortBy : "name", sortDir, randomSeed);
-        appendArtistSortClause(clauses, appliedSorts, sortBy2, sortDir2, randomSeed);
-        appendArtistSortClause(clauses, appliedSorts, sortBy3, sortDir3, randomSeed);
+        appendArtistSortKey(keys, appliedSorts, sortBy != null ? sortBy : "name", sortDir, randomSeed);
+        appendArtistSortKey(keys, appliedSorts, sortBy2, sortDir2, randomSeed);
+        appendArtistSortKey(keys, appliedSorts, sortBy3, sortDir3, randomSeed);
 
-        clauses.add("play_count DESC");
-        clauses.add("a.name ASC");
-        sql.append(" ORDER BY ").append(String.join(", ", clauses));
+        keys.add(SortKey.of("play_count", "DESC"));
+        keys.add(SortKey.of("name", "ASC"));
+        keys.add(SortKey.of("id", "ASC"));
+        return keys;
     }
 
-    private void appendArtistSortClause(List<String> clauses, List<String> appliedSorts, String sortBy, String sortDir, Integer randomSeed) {
+    private void appendArtistSortKey(List<SortKey> keys, List<String> appliedSorts, String sortBy, String sortDir, Integer randomSeed) {
         if (sortBy == null || sortBy.isBlank() || appliedSorts.contains(sortBy)) {
             return;
         }
 
         String direction = "desc".equalsIgnoreCase(sortDir) ? "DESC" : "ASC";
-        String clause = switch (sortBy) {
-            case "age" -> "CAST((julianday(COALESCE(a.death_date, DATE('now'))) - julianday(a.birth_date)) / 365.25 AS INTEGER) " + direction + " NULLS LAST";
-            case "avg_length" -> "CAST(COALESCE(song_stats.total_length, 0) AS REAL) / NULLIF(COALESCE(song_stats.song_count, 0), 0) " + direction + " NULLS LAST";
-            case "avg_plays" -> "CAST(COALESCE(play_stats.play_count, 0) AS REAL) / NULLIF(COALESCE(song_stats.song_count, 0), 0) " + direction + " NULLS LAST";
-            case "avg_plays_album" -> "CAST(COALESCE(play_stats.play_count, 0) AS REAL) / NULLIF(COALESCE(album_stats.album_count, 0), 0) " + direction + " NULLS LAST";
-            case "birth_date" -> "a.birth_date " + direction + " NULLS LAST";
-            case "death_date" -> "a.death_date " + direction + " NULLS LAST";
-            case "songs" -> "song_count " + direction;
-            case "featured" -> "featured_song_count " + direction;
-            case "albums" -> "album_count " + direction;
-            case "plays" -> "play_count " + direction;
-            case "time" -> "time_listened " + direction;
-            case "first_listened" -> "first_listened " + direction + " NULLS LAST";
-            case "last_listened" -> "last_listened " + direction + " NULLS LAST";
-            case "days_listened" -> "days_listened " + direction;
-            case "weeks_listened" -> "weeks_listened " + direction;
-            case "months_listened" -> "months_listened " + direction;
-            case "years_listened" -> "years_listened " + direction;
-            case "image_count" -> "image_count " + direction;
-            case "random" -> RandomSortUtils.sqliteNumericExpression("a.id", randomSeed);
-            case "country" -> "a.country " + direction + " NULLS LAST";
-            case "ethnicity" -> "e.name " + direction + " NULLS LAST";
-            case "featured_artist_count" -> "featured_artist_count_stat " + direction;
-            case "genre" -> "gen.name " + direction + " NULLS LAST";
-            case "language" -> "l.name " + direction + " NULLS LAST";
-            case "legacy_plays" -> "robertlover_play_count " + direction;
-            case "primary_plays" -> "vatito_play_count " + direction;
-            case "solo_songs" -> "solo_song_count " + direction;
-            case "songs_with_features" -> "songs_with_feat_count " + direction;
-            case "subgenre" -> "sg.name " + direction + " NULLS LAST";
-            case "itunes_presence" -> "CAST(COALESCE(itunes_stats.itunes_song_count, 0) AS REAL) * 100.0 / NULLIF(COALESCE(song_stats.song_count, 0), 0) " + direction + " NULLS LAST";
-            default -> "a.name " + direction;
+        SortKey key = switch (sortBy) {
+            case "age" -> SortKey.of("CAST((julianday(COALESCE(death_date, DATE('now'))) - julianday(birth_date)) / 365.25 AS INTEGER)", direction, false);
+            case "avg_length" -> SortKey.of("CAST(total_song_length AS REAL) / NULLIF(song_count, 0)", direction, false);
+            case "avg_plays" -> SortKey.of("CAST(play_count AS REAL) / NULLIF(song_count, 0)", direction, false);
+            case "avg_plays_album" -> SortKey.of("CAST(play_count AS REAL) / NULLIF(album_count, 0)", direction, false);
+            case "birth_date" -> SortKey.of("birth_date", direction, false);
+            case "death_date" -> SortKey.of("death_date", direction, false);
+            case "songs" -> SortKey.of("song_count", direction);
+            case "featured" -> SortKey.of("featured_song_count", direction);
+            case "albums" -> SortKey.of("album_count", direction);
+            case "plays" -> SortKey.of("play_count", direction);
+            case "time" -> SortKey.of("time_listened", direction);
+            case "first_listened" -> SortKey.of("first_listened", direction, false);
+            case "last_listened" -> SortKey.of("last_listened", direction, false);
+            case "days_listened" -> SortKey.of("days_listened", direction);
+            case "weeks_listened" -> SortKey.of("weeks_listened", direction);
+            case "months_listened" -> SortKey.of("months_listened", direction);
+            case "years_listened" -> SortKey.of("years_listened", direction);
+            case "image_count" -> SortKey.of("image_count", direction);
+            case "random" -> randomSeed == null
+                    ? SortKey.unseekable(RandomSortUtils.sqliteNumericExpression("id", null))
+                    : SortKey.of(RandomSortUtils.sqliteNumericExpression("id", randomSeed), "ASC");
+            case "country" -> SortKey.of("country", direction, false);
+            case "ethnicity" -> SortKey.of("ethnicity_name", direction, false);
+            case "featured_artist_count" -> SortKey.of("featured_artist_count_stat", direction);
+            case "genre" -> SortKey.of("genre_name", direction, false);
+            case "language" -> SortKey.of("language_name", direction, false);
+            case "legacy_plays" -> SortKey.of("robertlover_play_count", direction);
+            case "primary_plays" -> SortKey.of("vatito_play_count", direction);
+            case "solo_songs" -> SortKey.of("solo_song_count", direction);
+            case "songs_with_features" -> SortKey.of("songs_with_feat_count", direction);
+            case "subgenre" -> SortKey.of("subgenre_name", direction, false);
+            case "itunes_presence" -> SortKey.of("itunes_presence_ratio", direction, false);
+            default -> SortKey.of("name", direction);
         };
 
-        clauses.add(clause);
+        keys.add(key);
         appliedSorts.add(sortBy);
     }
     
@@ -483,7 +514,7 @@ public class ArtistRepositoryImpl implements ArtistRepositoryCustom {
         Integer imageTheme = query.imageTheme();
         String imageThemeMode = query.imageThemeMode();
         String isBand = query.isBand();
-        String itunesIdsJson = query.itunesIdsJson();
+        ItunesIdSource itunesIds = query.itunesIds();
         String inItunes = query.inItunes();
         Integer playCountMin = query.playCountMin();
         Integer playCountMax = query.playCountMax();
@@ -497,16 +528,16 @@ public class ArtistRepositoryImpl implements ArtistRepositoryCustom {
         Integer songCountMax = query.songCountMax();
         Integer itunesPresenceMin = query.itunesPresenceMin();
         Integer itunesPresenceMax = query.itunesPresenceMax();
-        String itunesSongIdsJson = query.itunesSongIdsJson();
+        ItunesIdSource itunesSongIds = query.itunesSongIds();
         // Build listened date filter clause
         StringBuilder listenedDateFilterClause = new StringBuilder();
         List<Object> listenedDateParams = new ArrayList<>();
         if (listenedDateFrom != null && !listenedDateFrom.isEmpty()) {
-            listenedDateFilterClause.append(" AND DATE(p.play_date) >= DATE(?)");
+            listenedDateFilterClause.append(" AND p.play_day >= CAST(strftime('%Y%m%d', ?) AS INTEGER)");
             listenedDateParams.add(listenedDateFrom);
         }
         if (listenedDateTo != null && !listenedDateTo.isEmpty()) {
-            listenedDateFilterClause.append(" AND DATE(p.play_date) <= DATE(?)");
+            listenedDateFilterClause.append(" AND p.play_day <= CAST(strftime('%Y%m%d', ?) AS INTEGER)");
             listenedDateParams.add(listenedDateTo);
         }
 
@@ -543,7 +574,7 @@ public class ArtistRepositoryImpl implements ArtistRepositoryCustom {
         }
         // Pre-aggregate iTunes stats as JOINs to avoid correlated subqueries per row
         if (needsItunesJoin) {
-            sql.append("LEFT JOIN (SELECT artist_id, COUNT(*) as itunes_song_count FROM Song WHERE id IN (SELECT value FROM json_each(?)) GROUP BY artist_id) itunes_stats ON itunes_stats.artist_id = a.id ");
+            sql.append("LEFT JOIN (SELECT artist_id, COUNT(*) as itunes_song_count FROM Song WHERE id IN (").append(SqlFilterHelper.itunesIdSubquery(itunesSongIds)).append(") GROUP BY artist_id) itunes_stats ON itunes_stats.artist_id = a.id ");
             sql.append("LEFT JOIN (SELECT artist_id, COUNT(*) as song_count FROM Song GROUP BY artist_id) count_song_stats ON count_song_stats.artist_id = a.id ");
         }
         sql.append("WHERE 1=1 ");
@@ -558,7 +589,7 @@ public class ArtistRepositoryImpl implements ArtistRepositoryCustom {
         
         // iTunes JOIN param comes first (appears in FROM clause before WHERE conditions)
         if (needsItunesJoin) {
-            params.add(itunesSongIdsJson != null ? itunesSongIdsJson : "[]");
+            params.add(SqlFilterHelper.itunesIdParameter(itunesSongIds));
         }
         if ((accounts != null && !accounts.isEmpty() && "includes".equalsIgnoreCase(accountMode)) || hasListenedDateFilter) {
             params.addAll(accountParams);
@@ -593,11 +624,11 @@ public class ArtistRepositoryImpl implements ArtistRepositoryCustom {
         SqlFilterHelper.appendTagFilter(sql, params, "a.id", "ArtistTag", "artist_id", tagIds, tagMode);
         
         // First Listened Date filter
-        String firstListenedSubquery = "(SELECT MIN(p.play_date) FROM Play p WHERE p.song_id IN (SELECT id FROM Song WHERE artist_id = a.id))";
+        String firstListenedSubquery = "(SELECT first_listened FROM artist_play_stats WHERE artist_id = a.id)";
         SqlFilterHelper.appendDateFilter(sql, params, firstListenedSubquery, firstListenedDate, firstListenedDateFrom, firstListenedDateTo, firstListenedDateMode);
         
         // Last Listened Date filter
-        String lastListenedSubquery = "(SELECT MAX(p.play_date) FROM Play p WHERE p.song_id IN (SELECT id FROM Song WHERE artist_id = a.id))";
+        String lastListenedSubquery = "(SELECT last_listened FROM artist_play_stats WHERE artist_id = a.id)";
         SqlFilterHelper.appendDateFilter(sql, params, lastListenedSubquery, lastListenedDate, lastListenedDateFrom, lastListenedDateTo, lastListenedDateMode);
         
         // Birth Date filter
@@ -659,22 +690,18 @@ public class ArtistRepositoryImpl implements ArtistRepositoryCustom {
             }
         }
         
-        // iTunes filter (pre-computed ID set via json_each)
-        SqlFilterHelper.appendItunesIdFilter(sql, params, "a.id", itunesIdsJson, inItunes);
+        // iTunes filter (pre-computed ID set, see SqlFilterHelper.itunesIdSubquery)
+        SqlFilterHelper.appendItunesIdFilter(sql, params, "a.id", itunesIds, inItunes);
         
         // Play count filter (uses subquery since count query doesn't have play_stats join)
         if (playCountMin != null) {
-            sql.append(" AND COALESCE((SELECT COUNT(*) FROM Play p JOIN Song song ON p.song_id = song.id WHERE song.artist_id = a.id");
-            sql.append(accountFilterClause).append(listenedDateFilterClause);
-            sql.append("), 0) >= ? ");
+            sql.append(" AND ").append(playCountExpression(accountFilterClause, listenedDateFilterClause)).append(" >= ? ");
             params.addAll(accountParams);
             params.addAll(listenedDateParams);
             params.add(playCountMin);
         }
         if (playCountMax != null) {
-            sql.append(" AND COALESCE((SELECT COUNT(*) FROM Play p JOIN Song song ON p.song_id = song.id WHERE song.artist_id = a.id");
-            sql.append(accountFilterClause).append(listenedDateFilterClause);
-            sql.append("), 0) <= ? ");
+            sql.append(" AND ").append(playCountExpression(accountFilterClause, listenedDateFilterClause)).append(" <= ? ");
             params.addAll(accountParams);
             params.addAll(listenedDateParams);
             params.add(playCountMax);
@@ -755,7 +782,7 @@ public class ArtistRepositoryImpl implements ArtistRepositoryCustom {
         Integer imageTheme = query.imageTheme();
         String imageThemeMode = query.imageThemeMode();
         String isBand = query.isBand();
-        String itunesIdsJson = query.itunesIdsJson();
+        ItunesIdSource itunesIds = query.itunesIds();
         String inItunes = query.inItunes();
         Integer playCountMin = query.playCountMin();
         Integer playCountMax = query.playCountMax();
@@ -769,16 +796,16 @@ public class ArtistRepositoryImpl implements ArtistRepositoryCustom {
         Integer songCountMax = query.songCountMax();
         Integer itunesPresenceMin = query.itunesPresenceMin();
         Integer itunesPresenceMax = query.itunesPresenceMax();
-        String itunesSongIdsJson = query.itunesSongIdsJson();
+        ItunesIdSource itunesSongIds = query.itunesSongIds();
         // Build listened date filter clause
         StringBuilder listenedDateFilterClause = new StringBuilder();
         List<Object> listenedDateParams = new ArrayList<>();
         if (listenedDateFrom != null && !listenedDateFrom.isEmpty()) {
-            listenedDateFilterClause.append(" AND DATE(p.play_date) >= DATE(?)");
+            listenedDateFilterClause.append(" AND p.play_day >= CAST(strftime('%Y%m%d', ?) AS INTEGER)");
             listenedDateParams.add(listenedDateFrom);
         }
         if (listenedDateTo != null && !listenedDateTo.isEmpty()) {
-            listenedDateFilterClause.append(" AND DATE(p.play_date) <= DATE(?)");
+            listenedDateFilterClause.append(" AND p.play_day <= CAST(strftime('%Y%m%d', ?) AS INTEGER)");
             listenedDateParams.add(listenedDateTo);
         }
 
@@ -815,7 +842,7 @@ public class ArtistRepositoryImpl implements ArtistRepositoryCustom {
         }
         // Pre-aggregate iTunes stats as JOINs to avoid correlated subqueries per row
         if (needsItunesJoinGender) {
-            sql.append("LEFT JOIN (SELECT artist_id, COUNT(*) as itunes_song_count FROM Song WHERE id IN (SELECT value FROM json_each(?)) GROUP BY artist_id) itunes_stats ON itunes_stats.artist_id = a.id ");
+            sql.append("LEFT JOIN (SELECT artist_id, COUNT(*) as itunes_song_count FROM Song WHERE id IN (").append(SqlFilterHelper.itunesIdSubquery(itunesSongIds)).append(") GROUP BY artist_id) itunes_stats ON itunes_stats.artist_id = a.id ");
             sql.append("LEFT JOIN (SELECT artist_id, COUNT(*) as song_count FROM Song GROUP BY artist_id) count_song_stats ON count_song_stats.artist_id = a.id ");
         }
         sql.append("WHERE 1=1 ");
@@ -830,7 +857,7 @@ public class ArtistRepositoryImpl implements ArtistRepositoryCustom {
         
         // iTunes JOIN param comes first (appears in FROM clause before WHERE conditions)
         if (needsItunesJoinGender) {
-            params.add(itunesSongIdsJson != null ? itunesSongIdsJson : "[]");
+            params.add(SqlFilterHelper.itunesIdParameter(itunesSongIds));
         }
         if ((accounts != null && !accounts.isEmpty() && "includes".equalsIgnoreCase(accountMode)) || hasListenedDateFilter) {
             params.addAll(accountParams);
@@ -865,11 +892,11 @@ public class ArtistRepositoryImpl implements ArtistRepositoryCustom {
         SqlFilterHelper.appendTagFilter(sql, params, "a.id", "ArtistTag", "artist_id", tagIds, tagMode);
         
         // First Listened Date filter
-        String firstListenedSubquery = "(SELECT MIN(p.play_date) FROM Play p WHERE p.song_id IN (SELECT id FROM Song WHERE artist_id = a.id))";
+        String firstListenedSubquery = "(SELECT first_listened FROM artist_play_stats WHERE artist_id = a.id)";
         SqlFilterHelper.appendDateFilter(sql, params, firstListenedSubquery, firstListenedDate, firstListenedDateFrom, firstListenedDateTo, firstListenedDateMode);
         
         // Last Listened Date filter
-        String lastListenedSubquery = "(SELECT MAX(p.play_date) FROM Play p WHERE p.song_id IN (SELECT id FROM Song WHERE artist_id = a.id))";
+        String lastListenedSubquery = "(SELECT last_listened FROM artist_play_stats WHERE artist_id = a.id)";
         SqlFilterHelper.appendDateFilter(sql, params, lastListenedSubquery, lastListenedDate, lastListenedDateFrom, lastListenedDateTo, lastListenedDateMode);
         
         // Birth Date filter
@@ -930,22 +957,18 @@ public class ArtistRepositoryImpl implements ArtistRepositoryCustom {
             }
         }
         
-        // iTunes filter (pre-computed ID set via json_each)
-        SqlFilterHelper.appendItunesIdFilter(sql, params, "a.id", itunesIdsJson, inItunes);
+        // iTunes filter (pre-computed ID set, see SqlFilterHelper.itunesIdSubquery)
+        SqlFilterHelper.appendItunesIdFilter(sql, params, "a.id", itunesIds, inItunes);
         
         // Play count filter
         if (playCountMin != null) {
-            sql.append(" AND COALESCE((SELECT COUNT(*) FROM Play p JOIN Song song ON p.song_id = song.id WHERE song.artist_id = a.id");
-            sql.append(accountFilterClause).append(listenedDateFilterClause);
-            sql.append("), 0) >= ? ");
+            sql.append(" AND ").append(playCountExpression(accountFilterClause, listenedDateFilterClause)).append(" >= ? ");
             params.addAll(accountParams);
             params.addAll(listenedDateParams);
             params.add(playCountMin);
         }
         if (playCountMax != null) {
-            sql.append(" AND COALESCE((SELECT COUNT(*) FROM Play p JOIN Song song ON p.song_id = song.id WHERE song.artist_id = a.id");
-            sql.append(accountFilterClause).append(listenedDateFilterClause);
-            sql.append("), 0) <= ? ");
+            sql.append(" AND ").append(playCountExpression(accountFilterClause, listenedDateFilterClause)).append(" <= ? ");
             params.addAll(accountParams);
             params.addAll(listenedDateParams);
             params.add(playCountMax);
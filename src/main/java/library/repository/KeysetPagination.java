@@ -0,0 +1,257 @@
+package library.repository;
+
+import library.dto.KeysetPage;
+import library.dto.ListTotals;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Seek pagination for the song, artist and album lists.
+ *
+ * The filtered list query is wrapped as "page" and ordered by {@link SortKey}s written against
+ * its output columns, always ending with id so the order is total. Each page also selects its
+ * sort key values, and the last row's values become the next page's cursor; a request carrying
+ * that cursor replaces OFFSET with a "sorts after the cursor row" predicate, so SQLite only
+ * keeps a page-sized sorter however deep the page is.
+ *
+ * A cursor records the offset it resumes at and a hash of the list query, its parameters and
+ * the ORDER BY it was taken from. When either no longer matches the request (the page was jumped
+ * to, or the filter or sort changed), it is ignored and the page is read with OFFSET as before.
+ *
+ * With totals, the first page also counts the whole filtered list and its gender_id column
+ * (every catalog list selects the effective gender under that name) with window aggregates,
+ * so the filter runs once instead of again in separate count queries. The totals ride along
+ * in the cursor, and pages read through it skip counting entirely.
+ */
+final class KeysetPagination {
+
+    private static final byte NULL = 0;
+    private static final byte INTEGER = 1;
+    private static final byte REAL = 2;
+    private static final byte TEXT = 3;
+
+    private KeysetPagination() {
+    }
+
+    record SortKey(String expression, boolean descending, boolean nullsFirst, boolean seekable) {
+
+        /**
+         * Key with SQLite's default NULL placement (first ascending, last descending).
+         */
+        static SortKey of(String expression, String direction) {
+            boolean descending = "DESC".equalsIgnoreCase(direction);
+            return new SortKey(expression, descending, !descending, true);
+        }
+
+        static SortKey of(String expression, String direction, boolean nullsFirst) {
+            return new SortKey(expression, "DESC".equalsIgnoreCase(direction), nullsFirst, true);
+        }
+
+        /**
+         * Key whose value cannot be recomputed on the next request (RANDOM()).
+         */
+        static SortKey unseekable(String expression) {
+            return new SortKey(expression, false, true, false);
+        }
+
+        String orderByTerm() {
+            if (!seekable) {
+                return expression;
+            }
+            String term = expression + (descending ? " DESC" : " ASC");
+            return nullsFirst == descending ? term + (nullsFirst ? " NULLS FIRST" : " NULLS LAST") : term;
+        }
+    }
+
+    private record Cursor(List<Object> values, ListTotals totals) {
+    }
+
+    static <T> KeysetPage<T> query(JdbcTemplate jdbcTemplate, CharSequence listSql, List<Object> listParams,
+                                   List<SortKey> keys, String cursor, int limit, int offset,
+                                   boolean withTotals, RowMapper<T> rowMapper) {
+        String orderBy = String.join(", ", keys.stream().map(SortKey::orderByTerm).toList());
+        boolean seekable = keys.stream().allMatch(SortKey::seekable);
+        String signature = Integer.toHexString(Objects.hash(listSql.toString(), listParams, orderBy));
+        Cursor resume = seekable ? decode(cursor, offset, signature, keys.size()) : null;
+        ListTotals totals = withTotals && resume != null ? resume.totals() : null;
+        boolean countInQuery = withTotals && totals == null;
+        if (countInQuery) {
+            // Window totals have to see every row, so this page is read with OFFSET
+            resume = null;
+        }
+
+        StringBuilder sql = new StringBuilder("SELECT page.*");
+        if (seekable) {
+            for (int i = 0; i < keys.size(); i++) {
+                sql.append(", ").append(keys.get(i).expression()).append(" AS page_key_").append(i);
+            }
+        }
+        if (countInQuery) {
+            sql.append(", COUNT(*) OVER () AS page_total_count");
+            sql.append(", SUM(CASE WHEN page.gender_id = 1 THEN 1 ELSE 0 END) OVER () AS page_female_count");
+            sql.append(", SUM(CASE WHEN page.gender_id = 2 THEN 1 ELSE 0 END) OVER () AS page_male_count");
+        }
+        sql.append(" FROM (").append(listSql).append(") page");
+        List<Object> params = new ArrayList<>(listParams);
+        if (resume != null) {
+            sql.append(" WHERE ");
+            appendSeekPredicate(sql, params, keys, resume.values(), 0);
+        }
+        sql.append(" ORDER BY ").append(orderBy).append(" LIMIT ?");
+        params.add(limit);
+        if (resume == null) {
+            sql.append(" OFFSET ?");
+            params.add(offset);
+        }
+
+        List<Object> lastKeys = new ArrayList<>(keys.size());
+        List<ListTotals> countedTotals = new ArrayList<>(1);
+        List<T> rows = jdbcTemplate.query(sql.toString(), (rs, rowNum) -> {
+            if (seekable) {
+                lastKeys.clear();
+                for (int i = 0; i < keys.size(); i++) {
+                    lastKeys.add(rs.getObject("page_key_" + i));
+                }
+            }
+            if (countInQuery && countedTotals.isEmpty()) {
+                countedTotals.add(new ListTotals(rs.getLong("page_total_count"),
+                        rs.getLong("page_female_count"), rs.getLong("page_male_count")));
+            }
+            return rowMapper.mapRow(rs, rowNum);
+        }, params.toArray());
+
+        if (countInQuery) {
+            if (!countedTotals.isEmpty()) {
+                totals = countedTotals.get(0);
+            } else if (offset == 0) {
+                totals = new ListTotals(0, 0, 0);
+            } else {
+                // Past the last page there is no row to carry the window totals
+                totals = jdbcTemplate.queryForObject("""
+                        SELECT COUNT(*) AS page_total_count,
+                               COALESCE(SUM(CASE WHEN page.gender_id = 1 THEN 1 ELSE 0 END), 0) AS page_female_count,
+                               COALESCE(SUM(CASE WHEN page.gender_id = 2 THEN 1 ELSE 0 END), 0) AS page_male_count
+                        FROM (%s) page
+                        """.formatted(listSql), (rs, rowNum) -> new ListTotals(rs.getLong("page_total_count"),
+                        rs.getLong("page_female_count"), rs.getLong("page_male_count")), listParams.toArray());
+            }
+        }
+
+        String nextCursor = seekable && limit > 0 && rows.size() == limit
+                ? encode(offset + limit, signature, lastKeys, totals)
+                : null;
+        return new KeysetPage<>(rows, nextCursor, totals);
+    }
+
+    /**
+     * key[i] sorts after its cursor value, or equals it and the remaining keys sort after theirs.
+     */
+    private static void appendSeekPredicate(StringBuilder sql, List<Object> params, List<SortKey> keys,
+                                            List<Object> values, int index) {
+        SortKey key = keys.get(index);
+        Object value = values.get(index);
+        String expression = "(" + key.expression() + ")";
+        sql.append("(");
+        if (value == null) {
+            sql.append(key.nullsFirst() ? expression + " IS NOT NULL" : "0");
+        } else {
+            sql.append(expression).append(key.descending() ? " < ?" : " > ?");
+            params.add(value);
+            if (!key.nullsFirst()) {
+                sql.append(" OR ").append(expression).append(" IS NULL");
+            }
+        }
+        if (index + 1 < keys.size()) {
+            sql.append(" OR (");
+            if (value == null) {
+                sql.append(expression).append(" IS NULL");
+            } else {
+                sql.append(expression).append(" = ?");
+                params.add(value);
+            }
+            sql.append(" AND ");
+            appendSeekPredicate(sql, params, keys, values, index + 1);
+            sql.append(")");
+        }
+        sql.append(")");
+    }
+
+    // Values are written with their SQLite storage class so REAL keys (averages, ratios) come
+    // back bit-for-bit and the cursor row itself never reappears on the next page.
+    private static String encode(int offset, String signature, List<Object> values, ListTotals totals) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(offset);
+            out.writeUTF(signature);
+            out.writeShort(values.size());
+            for (Object value : values) {
+                if (value == null) {
+                    out.writeByte(NULL);
+                } else if (value instanceof Double || value instanceof Float) {
+                    out.writeByte(REAL);
+                    out.writeDouble(((Number) value).doubleValue());
+                } else if (value instanceof Number number) {
+                    out.writeByte(INTEGER);
+                    out.writeLong(number.longValue());
+                } else {
+                    out.writeByte(TEXT);
+                    out.writeUTF(value.toString());
+                }
+            }
+            out.writeBoolean(totals != null);
+            if (totals != null) {
+                out.writeLong(totals.count());
+                out.writeLong(totals.femaleCount());
+                out.writeLong(totals.maleCount());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes.toByteArray());
+    }
+
+    /**
+     * The cursor's values and totals, or null when the cursor is missing, malformed, or was
+     * taken for another offset, filter or sort.
+     */
+    private static Cursor decode(String cursor, int offset, String signature, int keyCount) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(Base64.getUrlDecoder().decode(cursor)))) {
+            if (in.readInt() != offset || !in.readUTF().equals(signature)) {
+                return null;
+            }
+            if (in.readShort() != keyCount) {
+                return null;
+            }
+            List<Object> values = new ArrayList<>(keyCount);
+            for (int i = 0; i < keyCount; i++) {
+                values.add(switch (in.readByte()) {
+                    case NULL -> null;
+                    case INTEGER -> in.readLong();
+                    case REAL -> in.readDouble();
+                    case TEXT -> in.readUTF();
+                    default -> throw new IOException("Unknown cursor value type");
+                });
+            }
+            ListTotals totals = in.readBoolean()
+                    ? new ListTotals(in.readLong(), in.readLong(), in.readLong())
+                    : null;
+            return new Cursor(values, totals);
+        } catch (IOException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
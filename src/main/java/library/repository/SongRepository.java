@@ -1,8 +1,11 @@
 package library.repository;
 
 import library.dto.ChartFilterDTO;
+import library.dto.ItunesIdSource;
+import library.dto.KeysetPage;
 import library.dto.SongStatsQuery;
 import library.dto.SongStatsRow;
+import library.repository.KeysetPagination.SortKey;
 import library.service.AppConfigService;
 import library.util.RandomSortUtils;
 import library.util.TimeFormatUtils;
@@ -27,6 +30,18 @@ public class SongRepository {
     }
     
     public List<SongStatsRow> findSongsWithStats(SongStatsQuery query) {
+        return findSongsPage(query, false).rows();
+    }
+
+    /**
+     * Same rows as {@link #findSongsWithStats}, plus the cursor that seeks to the next page
+     * and the totals of the whole filtered list (count and gender chips).
+     */
+    public KeysetPage<SongStatsRow> findSongsPageWithStats(SongStatsQuery query) {
+        return findSongsPage(query, true);
+    }
+
+    private KeysetPage<SongStatsRow> findSongsPage(SongStatsQuery query, boolean withTotals) {
         String name = query.name();
         List<Integer> artistName = query.artistName();
         String albumName = query.albumName();
@@ -66,7 +81,7 @@ public class SongRepository {
         String hasFeaturedArtists = query.hasFeaturedArtists();
         String isBand = query.isBand();
         String isSingle = query.isSingle();
-        String itunesIdsJson = query.itunesIdsJson();
+        ItunesIdSource itunesIds = query.itunesIds();
         String inItunes = query.inItunes();
         Integer ageMin = query.ageMin();
         Integer ageMax = query.ageMax();
@@ -160,20 +175,21 @@ public class SongRepository {
         StringBuilder listenedDateFilterClause = new StringBuilder();
         List<Object> listenedDateParams = new ArrayList<>();
         if (listenedDateFrom != null && !listenedDateFrom.isEmpty()) {
-            listenedDateFilterClause.append(" AND DATE(p.play_date) >= DATE(?)");
+            listenedDateFilterClause.append(" AND p.play_day >= CAST(strftime('%Y%m%d', ?) AS INTEGER)");
             listenedDateParams.add(listenedDateFrom);
         }
         if (listenedDateTo != null && !listenedDateTo.isEmpty()) {
-            listenedDateFilterClause.append(" AND DATE(p.play_date) <= DATE(?)");
+            listenedDateFilterClause.append(" AND p.play_day <= CAST(strftime('%Y%m%d', ?) AS INTEGER)");
             listenedDateParams.add(listenedDateTo);
         }
 
         StringBuilder playStatsSongFilterClause = new StringBuilder();
         List<Object> playStatsSongParams = new ArrayList<>();
-        if (songIdsFilter != null && !songIdsFilter.isEmpty()) {
-            String placeholders = String.join(",", songIdsFilter.stream().map(id -> "?").toList());
-            playStatsSongFilterClause.append(" AND p.song_id IN (").append(placeholders).append(") ");
-            playStatsSongParams.addAll(songIdsFilter);
+        // One JSON parameter however many ids
+        String songIdsJson = songIdsFilter != null && !songIdsFilter.isEmpty() ? songIdsFilter.toString() : null;
+        if (songIdsJson != null) {
+            playStatsSongFilterClause.append(" AND p.song_id IN (SELECT value FROM json_each(?)) ");
+            playStatsSongParams.add(songIdsJson);
         }
         
         StringBuilder sql = new StringBuilder();
@@ -289,42 +305,51 @@ public class SongRepository {
         boolean hasListenedDateFilter = (listenedDateFrom != null && !listenedDateFrom.isEmpty()) || 
                                         (listenedDateTo != null && !listenedDateTo.isEmpty());
         String playStatsJoinType = ((accounts != null && !accounts.isEmpty() && "includes".equalsIgnoreCase(accountMode)) || hasListenedDateFilter) ? "INNER JOIN" : "LEFT JOIN";
-        sql.append(playStatsJoinType).append(""" 
-             (
-                SELECT 
-                    p.song_id,
-                    COUNT(*) as play_count,
-                    SUM(CASE WHEN p.account = 'vatito' THEN 1 ELSE 0 END) as vatito_play_count,
-                    SUM(CASE WHEN p.account = 'robertlover' THEN 1 ELSE 0 END) as robertlover_play_count,
-                    """);
-        if (includeExpensiveStats) {
+        if (accountFilterClause.length() == 0 && !hasListenedDateFilter) {
+            // Unfiltered plays: read the trigger-maintained song_play_stats row instead of aggregating Play
             sql.append("""
-                    COUNT(DISTINCT DATE(p.play_date)) as days_listened,
-                    COUNT(DISTINCT strftime('%Y-%W', p.play_date)) as weeks_listened,
-                    COUNT(DISTINCT strftime('%Y-%m', p.play_date)) as months_listened,
-                    COUNT(DISTINCT strftime('%Y', p.play_date)) as years_listened,
-                    """);
+                LEFT JOIN song_play_stats play_stats ON play_stats.song_id = s.id
+                WHERE 1=1
+                """);
+            playStatsSongParams.clear();
         } else {
+            sql.append(playStatsJoinType).append(""" 
+                 (
+                    SELECT 
+                        p.song_id,
+                        COUNT(*) as play_count,
+                        SUM(CASE WHEN p.account = 'vatito' THEN 1 ELSE 0 END) as vatito_play_count,
+                        SUM(CASE WHEN p.account = 'robertlover' THEN 1 ELSE 0 END) as robertlover_play_count,
+                        """);
+            if (includeExpensiveStats) {
+                sql.append("""
+                        COUNT(DISTINCT DATE(p.play_date)) as days_listened,
+                        COUNT(DISTINCT strftime('%Y-%W', p.play_date)) as weeks_listened,
+                        COUNT(DISTINCT strftime('%Y-%m', p.play_date)) as months_listened,
+                        COUNT(DISTINCT strftime('%Y', p.play_date)) as years_listened,
+                        """);
+            } else {
+                sql.append("""
+                        0 as days_listened,
+                        0 as weeks_listened,
+                        0 as months_listened,
+                        0 as years_listened,
+                        """);
+            }
+            sql.append("""
+                        MIN(p.play_date) as first_listened,
+                        MAX(p.play_date) as last_listened
+                    FROM Play p
+                    WHERE 1=1 """);
+            sql.append(accountFilterClause);
+            sql.append(listenedDateFilterClause);
+            sql.append(playStatsSongFilterClause);
             sql.append("""
-                    0 as days_listened,
-                    0 as weeks_listened,
-                    0 as months_listened,
-                    0 as years_listened,
-                    """);
+                    GROUP BY p.song_id
+                ) play_stats ON play_stats.song_id = s.id
+                WHERE 1=1
+                """);
         }
-        sql.append("""
-                    MIN(p.play_date) as first_listened,
-                    MAX(p.play_date) as last_listened
-                FROM Play p
-                WHERE 1=1 """);
-        sql.append(accountFilterClause);
-        sql.append(listenedDateFilterClause);
-        sql.append(playStatsSongFilterClause);
-        sql.append("""
-                GROUP BY p.song_id
-            ) play_stats ON play_stats.song_id = s.id
-            WHERE 1=1
-            """);
         
         List<Object> params = new ArrayList<>();
         // Add account params only once now (play_stats subquery)
@@ -334,10 +359,9 @@ public class SongRepository {
         // Add song-id params for the play_stats subquery before outer WHERE params.
         params.addAll(playStatsSongParams);
 
-        if (songIdsFilter != null && !songIdsFilter.isEmpty()) {
-            String placeholders = String.join(",", songIdsFilter.stream().map(id -> "?").toList());
-            sql.append(" AND s.id IN (").append(placeholders).append(") ");
-            params.addAll(songIdsFilter);
+        if (songIdsJson != null) {
+            sql.append(" AND s.id IN (SELECT value FROM json_each(?)) ");
+            params.add(songIdsJson);
         }
         
         // Name filters with accent-insensitive search
@@ -523,15 +547,15 @@ public class SongRepository {
         if (firstListenedDate != null && !firstListenedDate.trim().isEmpty() && firstListenedDateMode != null) {
             switch (firstListenedDateMode) {
                 case "exact" -> {
-                    sql.append(" AND DATE((SELECT MIN(play_date) FROM Play WHERE song_id = s.id)) = DATE(?)");
+                    sql.append(" AND DATE((SELECT first_listened FROM song_play_stats WHERE song_id = s.id)) = DATE(?)");
                     params.add(firstListenedDate);
                 }
                 case "gte" -> {
-                    sql.append(" AND DATE((SELECT MIN(play_date) FROM Play WHERE song_id = s.id)) >= DATE(?)");
+                    sql.append(" AND DATE((SELECT first_listened FROM song_play_stats WHERE song_id = s.id)) >= DATE(?)");
                     params.add(firstListenedDate);
                 }
                 case "lte" -> {
-                    sql.append(" AND DATE((SELECT MIN(play_date) FROM Play WHERE song_id = s.id)) <= DATE(?)");
+                    sql.append(" AND DATE((SELECT first_listened FROM song_play_stats WHERE song_id = s.id)) <= DATE(?)");
                     params.add(firstListenedDate);
                 }
             }
@@ -540,7 +564,7 @@ public class SongRepository {
         // First listened between filter
         if ("between".equals(firstListenedDateMode) && firstListenedDateFrom != null && !firstListenedDateFrom.trim().isEmpty()
                 && firstListenedDateTo != null && !firstListenedDateTo.trim().isEmpty()) {
-            sql.append(" AND DATE((SELECT MIN(play_date) FROM Play WHERE song_id = s.id)) >= DATE(?) AND DATE((SELECT MIN(play_date) FROM Play WHERE song_id = s.id)) <= DATE(?)");
+            sql.append(" AND DATE((SELECT first_listened FROM song_play_stats WHERE song_id = s.id)) >= DATE(?) AND DATE((SELECT first_listened FROM song_play_stats WHERE song_id = s.id)) <= DATE(?)");
             params.add(firstListenedDateFrom);
             params.add(firstListenedDateTo);
         }
@@ -549,15 +573,15 @@ public class SongRepository {
         if (lastListenedDate != null && !lastListenedDate.trim().isEmpty() && lastListenedDateMode != null) {
             switch (lastListenedDateMode) {
                 case "exact" -> {
-                    sql.append(" AND DATE((SELECT MAX(play_date) FROM Play WHERE song_id = s.id)) = DATE(?)");
+                    sql.append(" AND DATE((SELECT last_listened FROM song_play_stats WHERE song_id = s.id)) = DATE(?)");
                     params.add(lastListenedDate);
                 }
                 case "gte" -> {
-                    sql.append(" AND DATE((SELECT MAX(play_date) FROM Play WHERE song_id = s.id)) >= DATE(?)");
+                    sql.append(" AND DATE((SELECT last_listened FROM song_play_stats WHERE song_id = s.id)) >= DATE(?)");
                     params.add(lastListenedDate);
                 }
                 case "lte" -> {
-                    sql.append(" AND DATE((SELECT MAX(play_date) FROM Play WHERE song_id = s.id)) <= DATE(?)");
+                    sql.append(" AND DATE((SELECT last_listened FROM song_play_stats WHERE song_id = s.id)) <= DATE(?)");
                     params.add(lastListenedDate);
                 }
             }
@@ -566,7 +590,7 @@ public class SongRepository {
         // Last listened between filter
         if ("between".equals(lastListenedDateMode) && lastListenedDateFrom != null && !lastListenedDateFrom.trim().isEmpty()
                 && lastListenedDateTo != null && !lastListenedDateTo.trim().isEmpty()) {
-            sql.append(" AND DATE((SELECT MAX(play_date) FROM Play WHERE song_id = s.id)) >= DATE(?) AND DATE((SELECT MAX(play_date) FROM Play WHERE song_id = s.id)) <= DATE(?)");
+            sql.append(" AND DATE((SELECT last_listened FROM song_play_stats WHERE song_id = s.id)) >= DATE(?) AND DATE((SELECT last_listened FROM song_play_stats WHERE song_id = s.id)) <= DATE(?)");
             params.add(lastListenedDateFrom);
             params.add(lastListenedDateTo);
         }
@@ -633,8 +657,8 @@ public class SongRepository {
             }
         }
         
-        // iTunes filter (pre-computed ID set via json_each)
-        SqlFilterHelper.appendItunesIdFilter(sql, params, "s.id", itunesIdsJson, inItunes);
+        // iTunes filter (pre-computed ID set, see SqlFilterHelper.itunesIdSubquery)
+        SqlFilterHelper.appendItunesIdFilter(sql, params, "s.id", itunesIds, inItunes);
         
         // Is Single filter
         if (isSingle != null && !isSingle.isEmpty()) {
@@ -790,99 +814,115 @@ public class SongRepository {
         SqlFilterHelper.appendChartStatsFilter(sql, params, "ce.song_id", "s.id", "song", "yearly", "years",
                 yearlyChartPeak, yearlyChartYears, yearlyChartDateFrom, yearlyChartDateTo, null);
         
-        appendSongSortOrder(sql, sortBy, sortDirection, sortBy2, sortDirection2, sortBy3, sortDirection3, query.randomSeed());
-        
-        sql.append(" LIMIT ? OFFSET ?");
-        params.add(limit);
-        params.add(offset);
-        
-        return jdbcTemplate.query(sql.toString(), (rs, rowNum) -> SongStatsRow.from(rs), params.toArray());
+        List<SortKey> sortKeys = songSortKeys(sortBy, sortDirection, sortBy2, sortDirection2, sortBy3, sortDirection3, query.randomSeed());
+        return KeysetPagination.query(jdbcTemplate, sql, params, sortKeys, query.cursor(), limit, offset, withTotals,
+                (rs, rowNum) -> SongStatsRow.from(rs));
     }
 
-    private void appendSongSortOrder(StringBuilder sql, String sortBy, String sortDirection,
-                                     String sortBy2, String sortDirection2,
-                                     String sortBy3, String sortDirection3,
-                                     Integer randomSeed) {
-        List<String> clauses = new ArrayList<>();
+    // Sort keys are written against the list query's output columns; see KeysetPagination
+    private List<SortKey> songSortKeys(String sortBy, String sortDirection,
+                                       String sortBy2, String sortDirection2,
+                                       String sortBy3, String sortDirection3,
+                                       Integer randomSeed) {
+        List<SortKey> keys = new ArrayList<>();
         List<String> appliedSorts = new ArrayList<>();
 
         String effectiveSortBy = sortBy != null ? sortBy : "name";
         boolean hasSecondSort = sortBy2 != null && !sortBy2.isBlank();
         boolean hasThirdSort = sortBy3 != null && !sortBy3.isBlank();
 
-        appendSongSortClause(clauses, appliedSorts, effectiveSortBy, sortDirection, !hasSecondSort, randomSeed);
-        appendSongSortClause(clauses, appliedSorts, sortBy2, sortDirection2, !hasThirdSort, randomSeed);
-        appendSongSortClause(clauses, appliedSorts, sortBy3, sortDirection3, true, randomSeed);
+        appendSongSortKeys(keys, appliedSorts, effectiveSortBy, sortDirection, !hasSecondSort, randomSeed);
+        appendSongSortKeys(keys, appliedSorts, sortBy2, sortDirection2, !hasThirdSort, randomSeed);
+        appendSongSortKeys(keys, appliedSorts, sortBy3, sortDirection3, true, randomSeed);
 
-        clauses.add("play_count DESC");
-        clauses.add("s.name");
-        sql.append(" ORDER BY ").append(String.join(", ", clauses));
+        keys.add(SortKey.of("play_count", "DESC"));
+        keys.add(SortKey.of("name", "ASC"));
+        keys.add(SortKey.of("id", "ASC"));
+        return keys;
     }
 
-    private void appendSongSortClause(List<String> clauses, List<String> appliedSorts, String sortBy, String sortDirection, boolean allowInternalTieBreakers, Integer randomSeed) {
+    private void appendSongSortKeys(List<SortKey> keys, List<String> appliedSorts, String sortBy, String sortDirection, boolean allowInternalTieBreakers, Integer randomSeed) {
         if (sortBy == null || sortBy.isBlank() || appliedSorts.contains(sortBy)) {
             return;
         }
 
         String dir = "desc".equalsIgnoreCase(sortDirection) ? "DESC" : "ASC";
-        String nullsOrder = "desc".equalsIgnoreCase(sortDirection) ? "NULLS LAST" : "NULLS FIRST";
-        String clause = switch (sortBy) {
-            case "artist" -> "ar.name " + dir;
-            case "album" -> "alb.name " + dir + " " + nullsOrder;
-            case "country" -> "ar.country " + dir + " " + nullsOrder;
-            case "ethnicity" -> "e.name " + dir + " " + nullsOrder;
-            case "featured_artist_count" -> "featured_artist_count " + dir;
-            case "release_date" -> "COALESCE(s.release_date, alb.release_date) " + dir + " " + nullsOrder;
-            case "genre" -> "genre_name " + dir + " " + nullsOrder;
-            case "language" -> "language_name " + dir + " " + nullsOrder;
-            case "legacy_plays" -> "robertlover_play_count " + dir;
-            case "length" -> "s.length_seconds " + dir + " " + nullsOrder;
-            case "plays" -> "play_count " + dir;
-            case "primary_plays" -> "vatito_play_count " + dir;
-            case "track_number" -> "s.track_number " + dir + " " + nullsOrder;
-            case "subgenre" -> "subgenre_name " + dir + " " + nullsOrder;
-            case "time" -> "(s.length_seconds * play_count) " + dir;
-            case "first_listened" -> "first_listened " + dir + " " + nullsOrder;
-            case "last_listened" -> "last_listened " + dir + " " + nullsOrder;
-            case "days_listened" -> "days_listened " + dir;
-            case "weeks_listened" -> "weeks_listened " + dir;
-            case "months_listened" -> "months_listened " + dir;
-            case "years_listened" -> "years_listened " + dir;
-            case "age_at_release" -> "CAST((julianday(COALESCE(s.release_date, alb.release_date)) - julianday(ar.birth_date)) / 365.25 AS INTEGER) " + dir + " " + nullsOrder;
-            case "birth_date" -> "ar.birth_date " + dir + " " + nullsOrder;
-            case "billboard_peak" -> allowInternalTieBreakers
-                    ? "billboard_peak " + dir + " NULLS LAST, billboard_weeks DESC NULLS LAST"
-                    : "billboard_peak " + dir + " NULLS LAST";
-            case "billboard_weeks" -> "billboard_weeks " + dir;
-            case "billboard_weeks_at_peak" -> "billboard_weeks_at_peak " + dir + " NULLS LAST";
-            case "death_date" -> "ar.death_date " + dir + " " + nullsOrder;
-            case "image_count" -> "image_count " + dir;
-            case "random" -> RandomSortUtils.sqliteNumericExpression("s.id", randomSeed);
-                case "seasonal_chart_peak" -> allowInternalTieBreakers
-                    ? "seasonal_chart_peak " + dir + " NULLS LAST, seasonal_chart_peak_start_date DESC NULLS LAST"
-                    : "seasonal_chart_peak " + dir + " NULLS LAST";
-            case "trl_days" -> "trl_days " + dir;
-            case "trl_days_at_peak" -> "trl_days_at_peak " + dir + " NULLS LAST";
-            case "trl_peak" -> allowInternalTieBreakers
-                    ? "trl_peak " + dir + " NULLS LAST, trl_days DESC NULLS LAST"
-                    : "trl_peak " + dir + " NULLS LAST";
-                case "weekly_chart_peak" -> allowInternalTieBreakers
-                    ? "weekly_chart_peak " + dir + " NULLS LAST, weekly_chart_peak_start_date DESC NULLS LAST"
-                    : "weekly_chart_peak " + dir + " NULLS LAST";
-            case "weekly_chart_weeks" -> "weekly_chart_weeks " + dir;
-            case "weekly_chart_peak_weeks" -> "weekly_chart_peak_weeks " + dir + " NULLS LAST";
-            case "vatos_cuntdown_days" -> "vatos_cuntdown_days " + dir;
-            case "vatos_cuntdown_days_at_peak" -> "vatos_cuntdown_days_at_peak " + dir + " NULLS LAST";
-                case "vatos_cuntdown_peak" -> allowInternalTieBreakers
-                    ? "vatos_cuntdown_peak " + dir + " NULLS LAST, vatos_cuntdown_days DESC NULLS LAST"
-                    : "vatos_cuntdown_peak " + dir + " NULLS LAST";
-                case "yearly_chart_peak" -> allowInternalTieBreakers
-                    ? "yearly_chart_peak " + dir + " NULLS LAST, yearly_chart_peak_period DESC NULLS LAST"
-                    : "yearly_chart_peak " + dir + " NULLS LAST";
-            default -> "s.name " + dir;
-        };
+        switch (sortBy) {
+            case "artist" -> keys.add(SortKey.of("artist_name", dir));
+            case "album" -> keys.add(SortKey.of("album_name", dir));
+            case "country" -> keys.add(SortKey.of("country", dir));
+            case "ethnicity" -> keys.add(SortKey.of("ethnicity_name", dir));
+            case "featured_artist_count" -> keys.add(SortKey.of("featured_artist_count", dir));
+            case "release_date" -> keys.add(SortKey.of("release_date", dir));
+            case "genre" -> keys.add(SortKey.of("genre_name", dir));
+            case "language" -> keys.add(SortKey.of("language_name", dir));
+            case "legacy_plays" -> keys.add(SortKey.of("robertlover_play_count", dir));
+            case "length" -> keys.add(SortKey.of("length_seconds", dir));
+            case "plays" -> keys.add(SortKey.of("play_count", dir));
+            case "primary_plays" -> keys.add(SortKey.of("vatito_play_count", dir));
+            case "track_number" -> keys.add(SortKey.of("track_number", dir));
+            case "subgenre" -> keys.add(SortKey.of("subgenre_name", dir));
+            case "time" -> keys.add(SortKey.of("length_seconds * play_count", dir));
+            case "first_listened" -> keys.add(SortKey.of("first_listened", dir));
+            case "last_listened" -> keys.add(SortKey.of("last_listened", dir));
+            case "days_listened" -> keys.add(SortKey.of("days_listened", dir));
+            case "weeks_listened" -> keys.add(SortKey.of("weeks_listened", dir));
+            case "months_listened" -> keys.add(SortKey.of("months_listened", dir));
+            case "years_listened" -> keys.add(SortKey.of("years_listened", dir));
+            case "age_at_release" -> keys.add(SortKey.of("age_at_release", dir));
+            case "birth_date" -> keys.add(SortKey.of("birth_date", dir));
+            case "billboard_peak" -> {
+                keys.add(SortKey.of("billboard_peak", dir, false));
+                if (allowInternalTieBreakers) {
+                    keys.add(SortKey.of("billboard_weeks", "DESC", false));
+                }
+            }
+            case "billboard_weeks" -> keys.add(SortKey.of("billboard_weeks", dir));
+            case "billboard_weeks_at_peak" -> keys.add(SortKey.of("billboard_weeks_at_peak", dir, false));
+            case "death_date" -> keys.add(SortKey.of("death_date", dir));
+            case "image_count" -> keys.add(SortKey.of("image_count", dir));
+            case "random" -> keys.add(randomSeed == null
+                    ? SortKey.unseekable(RandomSortUtils.sqliteNumericExpression("id", null))
+                    : SortKey.of(RandomSortUtils.sqliteNumericExpression("id", randomSeed), "ASC"));
+            case "seasonal_chart_peak" -> {
+                keys.add(SortKey.of("seasonal_chart_peak", dir, false));
+                if (allowInternalTieBreakers) {
+                    keys.add(SortKey.of("seasonal_chart_peak_start_date", "DESC", false));
+                }
+            }
+            case "trl_days" -> keys.add(SortKey.of("trl_days", dir));
+            case "trl_days_at_peak" -> keys.add(SortKey.of("trl_days_at_peak", dir, false));
+            case "trl_peak" -> {
+                keys.add(SortKey.of("trl_peak", dir, false));
+                if (allowInternalTieBreakers) {
+                    keys.add(SortKey.of("trl_days", "DESC", false));
+                }
+            }
+            case "weekly_chart_peak" -> {
+                keys.add(SortKey.of("weekly_chart_peak", dir, false));
+                if (allowInternalTieBreakers) {
+                    keys.add(SortKey.of("weekly_chart_peak_start_date", "DESC", false));
+                }
+            }
+            case "weekly_chart_weeks" -> keys.add(SortKey.of("weekly_chart_weeks", dir));
+            case "weekly_chart_peak_weeks" -> keys.add(SortKey.of("weekly_chart_peak_weeks", dir, false));
+            case "vatos_cuntdown_days" -> keys.add(SortKey.of("vatos_cuntdown_days", dir));
+            case "vatos_cuntdown_days_at_peak" -> keys.add(SortKey.of("vatos_cuntdown_days_at_peak", dir, false));
+            case "vatos_cuntdown_peak" -> {
+                keys.add(SortKey.of("vatos_cuntdown_peak", dir, false));
+                if (allowInternalTieBreakers) {
+                    keys.add(SortKey.of("vatos_cuntdown_days", "DESC", false));
+                }
+            }
+            case "yearly_chart_peak" -> {
+                keys.add(SortKey.of("yearly_chart_peak", dir, false));
+                if (allowInternalTieBreakers) {
+                    keys.add(SortKey.of("yearly_chart_peak_period", "DESC", false));
+                }
+            }
+            default -> keys.add(SortKey.of("name", dir));
+        }
 
-        clauses.add(clause);
         appliedSorts.add(sortBy);
     }
     
@@ -900,7 +940,7 @@ public class SongRepository {
                                       String lastListenedDate, String lastListenedDateFrom, String lastListenedDateTo, String lastListenedDateMode,
                                       String listenedDateFrom, String listenedDateTo,
                                       String organized, Integer imageCountMin, Integer imageCountMax, String hasFeaturedArtists, String isBand, String isSingle,
-                                      String itunesIdsJson, String inItunes,
+                                      ItunesIdSource itunesIds, String inItunes,
                                       Integer ageMin, Integer ageMax, String ageMode,
                                       Integer ageAtReleaseMin, Integer ageAtReleaseMax,
                                       String birthDate, String birthDateFrom, String birthDateTo, String birthDateMode,
@@ -949,11 +989,11 @@ public class SongRepository {
         StringBuilder listenedDateFilterClause = new StringBuilder();
         List<Object> listenedDateParams = new ArrayList<>();
         if (listenedDateFrom != null && !listenedDateFrom.isEmpty()) {
-            listenedDateFilterClause.append(" AND DATE(p.play_date) >= DATE(?)");
+            listenedDateFilterClause.append(" AND p.play_day >= CAST(strftime('%Y%m%d', ?) AS INTEGER)");
             listenedDateParams.add(listenedDateFrom);
         }
         if (listenedDateTo != null && !listenedDateTo.isEmpty()) {
-            listenedDateFilterClause.append(" AND DATE(p.play_date) <= DATE(?)");
+            listenedDateFilterClause.append(" AND p.play_day <= CAST(strftime('%Y%m%d', ?) AS INTEGER)");
             listenedDateParams.add(listenedDateTo);
         }
         
@@ -969,7 +1009,9 @@ public class SongRepository {
             """);
         
         // Add play_stats JOIN if we need to filter by play count or listened date
-        if (playCountMin != null || playCountMax != null || hasListenedDateFilter) {
+        if (!hasListenedDateFilter && accountFilterClause.length() == 0 && (playCountMin != null || playCountMax != null)) {
+            sql.append("LEFT JOIN song_play_stats play_stats ON play_stats.song_id = s.id\n");
+        } else if (playCountMin != null || playCountMax != null || hasListenedDateFilter) {
             String joinType = hasListenedDateFilter ? "INNER JOIN" : "LEFT JOIN";
             sql.append(joinType).append("""
                  (
@@ -1190,15 +1232,15 @@ public class SongRepository {
         if (firstListenedDate != null && !firstListenedDate.trim().isEmpty() && firstListenedDateMode != null) {
             switch (firstListenedDateMode) {
                 case "exact" -> {
-                    sql.append(" AND DATE((SELECT MIN(play_date) FROM Play WHERE song_id = s.id)) = DATE(?)");
+                    sql.append(" AND DATE((SELECT first_listened FROM song_play_stats WHERE song_id = s.id)) = DATE(?)");
                     params.add(firstListenedDate);
                 }
                 case "gte" -> {
-                    sql.append(" AND DATE((SELECT MIN(play_date) FROM Play WHERE song_id = s.id)) >= DATE(?)");
+                    sql.append(" AND DATE((SELECT first_listened FROM song_play_stats WHERE song_id = s.id)) >= DATE(?)");
                     params.add(firstListenedDate);
                 }
                 case "lte" -> {
-                    sql.append(" AND DATE((SELECT MIN(play_date) FROM Play WHERE song_id = s.id)) <= DATE(?)");
+                    sql.append(" AND DATE((SELECT first_listened FROM song_play_stats WHERE song_id = s.id)) <= DATE(?)");
                     params.add(firstListenedDate);
                 }
             }
@@ -1207,7 +1249,7 @@ public class SongRepository {
         // First listened between filter
         if ("between".equals(firstListenedDateMode) && firstListenedDateFrom != null && !firstListenedDateFrom.trim().isEmpty()
                 && firstListenedDateTo != null && !firstListenedDateTo.trim().isEmpty()) {
-            sql.append(" AND DATE((SELECT MIN(play_date) FROM Play WHERE song_id = s.id)) >= DATE(?) AND DATE((SELECT MIN(play_date) FROM Play WHERE song_id = s.id)) <= DATE(?)");
+            sql.append(" AND DATE((SELECT first_listened FROM song_play_stats WHERE song_id = s.id)) >= DATE(?) AND DATE((SELECT first_listened FROM song_play_stats WHERE song_id = s.id)) <= DATE(?)");
             params.add(firstListenedDateFrom);
             params.add(firstListenedDateTo);
         }
@@ -1216,15 +1258,15 @@ public class SongRepository {
         if (lastListenedDate != null && !lastListenedDate.trim().isEmpty() && lastListenedDateMode != null) {
             switch (lastListenedDateMode) {
                 case "exact" -> {
-                    sql.append(" AND DATE((SELECT MAX(play_date) FROM Play WHERE song_id = s.id)) = DATE(?)");
+                    sql.append(" AND DATE((SELECT last_listened FROM song_play_stats WHERE song_id = s.id)) = DATE(?)");
                     params.add(lastListenedDate);
                 }
                 case "gte" -> {
-                    sql.append(" AND DATE((SELECT MAX(play_date) FROM Play WHERE song_id = s.id)) >= DATE(?)");
+                    sql.append(" AND DATE((SELECT last_listened FROM song_play_stats WHERE song_id = s.id)) >= DATE(?)");
                     params.add(lastListenedDate);
                 }
                 case "lte" -> {
-                    sql.append(" AND DATE((SELECT MAX(play_date) FROM Play WHERE song_id = s.id)) <= DATE(?)");
+                    sql.append(" AND DATE((SELECT last_listened FROM song_play_stats WHERE song_id = s.id)) <= DATE(?)");
                     params.add(lastListenedDate);
                 }
             }
@@ -1233,7 +1275,7 @@ public class SongRepository {
         // Last listened between filter
         if ("between".equals(lastListenedDateMode) && lastListenedDateFrom != null && !lastListenedDateFrom.trim().isEmpty()
                 && lastListenedDateTo != null && !lastListenedDateTo.trim().isEmpty()) {
-            sql.append(" AND DATE((SELECT MAX(play_date) FROM Play WHERE song_id = s.id)) >= DATE(?) AND DATE((SELECT MAX(play_date) FROM Play WHERE song_id = s.id)) <= DATE(?)");
+            sql.append(" AND DATE((SELECT last_listened FROM song_play_stats WHERE song_id = s.id)) >= DATE(?) AND DATE((SELECT last_listened FROM song_play_stats WHERE song_id = s.id)) <= DATE(?)");
             params.add(lastListenedDateFrom);
             params.add(lastListenedDateTo);
         }
@@ -1275,8 +1317,8 @@ public class SongRepository {
             }
         }
         
-        // iTunes filter (pre-computed ID set via json_each)
-        SqlFilterHelper.appendItunesIdFilter(sql, params, "s.id", itunesIdsJson, inItunes);
+        // iTunes filter (pre-computed ID set, see SqlFilterHelper.itunesIdSubquery)
+        SqlFilterHelper.appendItunesIdFilter(sql, params, "s.id", itunesIds, inItunes);
         
         // Is Single filter
         if (isSingle != null && !isSingle.isEmpty()) {
@@ -1485,7 +1527,7 @@ public class SongRepository {
                                               Integer ageAtReleaseMin, Integer ageAtReleaseMax,
                                               String birthDate, String birthDateFrom, String birthDateTo, String birthDateMode,
                                               String deathDate, String deathDateFrom, String deathDateTo, String deathDateMode,
-                                              String itunesIdsJson, String inItunes,
+                                              ItunesIdSource itunesIds, String inItunes,
                                               Integer playCountMin, Integer playCountMax,
                                               Integer trackNumber, String trackNumberMode,
                                               Integer lengthMin, Integer lengthMax, String lengthMode,
@@ -1530,11 +1572,11 @@ public class SongRepository {
         StringBuilder listenedDateFilterClause = new StringBuilder();
         List<Object> listenedDateParams = new ArrayList<>();
         if (listenedDateFrom != null && !listenedDateFrom.isEmpty()) {
-            listenedDateFilterClause.append(" AND DATE(p.play_date) >= DATE(?)");
+            listenedDateFilterClause.append(" AND p.play_day >= CAST(strftime('%Y%m%d', ?) AS INTEGER)");
             listenedDateParams.add(listenedDateFrom);
         }
         if (listenedDateTo != null && !listenedDateTo.isEmpty()) {
-            listenedDateFilterClause.append(" AND DATE(p.play_date) <= DATE(?)");
+            listenedDateFilterClause.append(" AND p.play_day <= CAST(strftime('%Y%m%d', ?) AS INTEGER)");
             listenedDateParams.add(listenedDateTo);
         }
         boolean hasListenedDateFilter = listenedDateFilterClause.length() > 0;
@@ -1571,7 +1613,9 @@ public class SongRepository {
                 "LEFT JOIN Artist ar ON s.artist_id = ar.id " +
                 "LEFT JOIN Album al ON s.album_id = al.id ");
             
-            if (playCountMin != null || playCountMax != null || hasListenedDateFilter) {
+            if (!hasListenedDateFilter && accountFilterClause.length() == 0 && (playCountMin != null || playCountMax != null)) {
+                sql.append("LEFT JOIN song_play_stats play_stats ON play_stats.song_id = s.id ");
+            } else if (playCountMin != null || playCountMax != null || hasListenedDateFilter) {
                 sql.append(hasListenedDateFilter ? "INNER JOIN (" : "LEFT JOIN (");
                 sql.append("SELECT song_id, COUNT(*) as play_count FROM Play p WHERE 1=1 ");
                 sql.append(accountFilterClause);
@@ -1643,11 +1687,11 @@ public class SongRepository {
         library.util.SqlFilterHelper.appendDateFilter(sql, params, "COALESCE(s.release_date, al.release_date)", releaseDate, releaseDateFrom, releaseDateTo, releaseDateMode);
         
         // First listened date filter
-        String firstListenedSubquery = "(SELECT MIN(p.play_date) FROM Play p WHERE p.song_id = s.id)";
+        String firstListenedSubquery = "(SELECT first_listened FROM song_play_stats WHERE song_id = s.id)";
         library.util.SqlFilterHelper.appendDateFilter(sql, params, firstListenedSubquery, firstListenedDate, firstListenedDateFrom, firstListenedDateTo, firstListenedDateMode);
         
         // Last listened date filter
-        String lastListenedSubquery = "(SELECT MAX(p.play_date) FROM Play p WHERE p.song_id = s.id)";
+        String lastListenedSubquery = "(SELECT last_listened FROM song_play_stats WHERE song_id = s.id)";
         library.util.SqlFilterHelper.appendDateFilter(sql, params, lastListenedSubquery, lastListenedDate, lastListenedDateFrom, lastListenedDateTo, lastListenedDateMode);
         
         // Birth date filter
@@ -1728,8 +1772,8 @@ public class SongRepository {
             }
         }
         
-        // iTunes filter (pre-computed ID set via json_each)
-        SqlFilterHelper.appendItunesIdFilter(sql, params, "s.id", itunesIdsJson, inItunes);
+        // iTunes filter (pre-computed ID set, see SqlFilterHelper.itunesIdSubquery)
+        SqlFilterHelper.appendItunesIdFilter(sql, params, "s.id", itunesIds, inItunes);
         
         // Play count filter
         if (playCountMin != null) {
@@ -2111,14 +2155,14 @@ public class SongRepository {
         // Listened date filter (play_date range)
         if (listenedDateFrom != null && !listenedDateFrom.trim().isEmpty() && 
             listenedDateTo != null && !listenedDateTo.trim().isEmpty()) {
-            sql.append(" AND DATE(p.play_date) >= DATE(?) AND DATE(p.play_date) <= DATE(?)");
+            sql.append(" AND p.play_day >= CAST(strftime('%Y%m%d', ?) AS INTEGER) AND p.play_day <= CAST(strftime('%Y%m%d', ?) AS INTEGER)");
             params.add(listenedDateFrom);
             params.add(listenedDateTo);
         } else if (listenedDateFrom != null && !listenedDateFrom.trim().isEmpty()) {
-            sql.append(" AND DATE(p.play_date) >= DATE(?)");
+            sql.append(" AND p.play_day >= CAST(strftime('%Y%m%d', ?) AS INTEGER)");
             params.add(listenedDateFrom);
         } else if (listenedDateTo != null && !listenedDateTo.trim().isEmpty()) {
-            sql.append(" AND DATE(p.play_date) <= DATE(?)");
+            sql.append(" AND p.play_day <= CAST(strftime('%Y%m%d', ?) AS INTEGER)");
             params.add(listenedDateTo);
         }
     }
@@ -2829,13 +2873,14 @@ public class SongRepository {
     }
 
     private void appendItunesPresenceFilter(StringBuilder sql, java.util.List<Object> params, ChartFilterDTO filter, String catalogType) {
-        if ((filter.getItunesPresenceMin() == null && filter.getItunesPresenceMax() == null) || filter.getItunesSongIdsJson() == null || filter.getItunesSongIdsJson().isBlank()) {
+        if ((filter.getItunesPresenceMin() == null && filter.getItunesPresenceMax() == null) || filter.getItunesSongIds() == null) {
             return;
         }
 
+        String itunesIds = SqlFilterHelper.itunesIdSubquery(filter.getItunesSongIds());
         String expr = switch (catalogType) {
-            case "artist" -> "CAST(COALESCE((SELECT COUNT(*) FROM Song it_song WHERE it_song.artist_id = ar.id AND it_song.id IN (SELECT value FROM json_each(?))), 0) AS REAL) * 100.0 / NULLIF(COALESCE((SELECT COUNT(*) FROM Song song_total WHERE song_total.artist_id = ar.id), 0), 0)";
-            case "album" -> "CAST(COALESCE((SELECT COUNT(*) FROM Song it_song WHERE it_song.album_id = alb.id AND it_song.id IN (SELECT value FROM json_each(?))), 0) AS REAL) * 100.0 / NULLIF(COALESCE((SELECT COUNT(*) FROM Song song_total WHERE song_total.album_id = alb.id), 0), 0)";
+            case "artist" -> "CAST(COALESCE((SELECT COUNT(*) FROM Song it_song WHERE it_song.artist_id = ar.id AND it_song.id IN (" + itunesIds + ")), 0) AS REAL) * 100.0 / NULLIF(COALESCE((SELECT COUNT(*) FROM Song song_total WHERE song_total.artist_id = ar.id), 0), 0)";
+            case "album" -> "CAST(COALESCE((SELECT COUNT(*) FROM Song it_song WHERE it_song.album_id = alb.id AND it_song.id IN (" + itunesIds + ")), 0) AS REAL) * 100.0 / NULLIF(COALESCE((SELECT COUNT(*) FROM Song song_total WHERE song_total.album_id = alb.id), 0), 0)";
             default -> null;
         };
 
@@ -2845,58 +2890,44 @@ public class SongRepository {
 
         if (filter.getItunesPresenceMin() != null) {
             sql.append(" AND ").append(expr).append(" >= ?");
-            params.add(filter.getItunesSongIdsJson());
+            params.add(filter.getItunesSongIds().parameter());
             params.add(filter.getItunesPresenceMin());
         }
         if (filter.getItunesPresenceMax() != null) {
             sql.append(" AND ").append(expr).append(" <= ?");
-            params.add(filter.getItunesSongIdsJson());
+            params.add(filter.getItunesSongIds().parameter());
             params.add(filter.getItunesPresenceMax());
         }
     }
 
     /**
-     * Builds a subquery expression for MIN(play_date) based on entity type.
+     * Builds a first-listened (MIN(play_date)) lookup for the entity type, read from the
+     * *_play_stats tables.
      */
     private String buildEntityMinDateSubquery(String entity, String scrAlias) {
-        return switch (entity) {
-            case "artist" -> "(SELECT MIN(p2.play_date) FROM Play p2 " +
-                             "JOIN Song s2 ON p2.song_id = s2.id " +
-                             "WHERE s2.artist_id = ar.id)";
-            case "album" -> "(SELECT MIN(p2.play_date) FROM Play p2 " +
-                            "JOIN Song s2 ON p2.song_id = s2.id " +
-                            "WHERE s2.album_id = alb.id)";
-            default -> "(SELECT MIN(p2.play_date) FROM Play p2 WHERE p2.song_id = s.id)"; // song level
-        };
+        return buildEntityPlayStatsLookup(entity, "first_listened");
     }
     
     /**
-     * Builds a subquery expression for MAX(play_date) based on entity type.
+     * Builds a last-listened (MAX(play_date)) lookup for the entity type, read from the
+     * *_play_stats tables.
      */
     private String buildEntityMaxDateSubquery(String entity, String scrAlias) {
-        return switch (entity) {
-            case "artist" -> "(SELECT MAX(p2.play_date) FROM Play p2 " +
-                             "JOIN Song s2 ON p2.song_id = s2.id " +
-                             "WHERE s2.artist_id = ar.id)";
-            case "album" -> "(SELECT MAX(p2.play_date) FROM Play p2 " +
-                            "JOIN Song s2 ON p2.song_id = s2.id " +
-                            "WHERE s2.album_id = alb.id)";
-            default -> "(SELECT MAX(p2.play_date) FROM Play p2 WHERE p2.song_id = s.id)"; // song level
-        };
+        return buildEntityPlayStatsLookup(entity, "last_listened");
     }
     
     /**
-     * Builds a subquery expression for COUNT(*) based on entity type.
+     * Builds a play count lookup for the entity type, read from the *_play_stats tables.
      */
     private String buildEntityPlayCountSubquery(String entity, String scrAlias) {
+        return "COALESCE(" + buildEntityPlayStatsLookup(entity, "play_count") + ", 0)";
+    }
+
+    private String buildEntityPlayStatsLookup(String entity, String column) {
         return switch (entity) {
-            case "artist" -> "(SELECT COUNT(*) FROM Play p2 " +
-                             "JOIN Song s2 ON p2.song_id = s2.id " +
-                             "WHERE s2.artist_id = ar.id)";
-            case "album" -> "(SELECT COUNT(*) FROM Play p2 " +
-                            "JOIN Song s2 ON p2.song_id = s2.id " +
-                            "WHERE s2.album_id = alb.id)";
-            default -> "(SELECT COUNT(*) FROM Play p2 WHERE p2.song_id = s.id)"; // song level
+            case "artist" -> "(SELECT " + column + " FROM artist_play_stats WHERE artist_id = ar.id)";
+            case "album" -> "(SELECT " + column + " FROM album_play_stats WHERE album_id = alb.id)";
+            default -> "(SELECT " + column + " FROM song_play_stats WHERE song_id = s.id)"; // song level
         };
     }
     
@@ -6531,14 +6562,14 @@ public class SongRepository {
         
         if (listenedDateFrom != null && !listenedDateFrom.trim().isEmpty() && 
             listenedDateTo != null && !listenedDateTo.trim().isEmpty()) {
-            sql.append(" AND DATE(p.play_date) >= DATE(?) AND DATE(p.play_date) <= DATE(?)");
+            sql.append(" AND p.play_day >= CAST(strftime('%Y%m%d', ?) AS INTEGER) AND p.play_day <= CAST(strftime('%Y%m%d', ?) AS INTEGER)");
             params.add(listenedDateFrom);
             params.add(listenedDateTo);
         } else if (listenedDateFrom != null && !listenedDateFrom.trim().isEmpty()) {
-            sql.append(" AND DATE(p.play_date) >= DATE(?)");
+            sql.append(" AND p.play_day >= CAST(strftime('%Y%m%d', ?) AS INTEGER)");
             params.add(listenedDateFrom);
         } else if (listenedDateTo != null && !listenedDateTo.trim().isEmpty()) {
-            sql.append(" AND DATE(p.play_date) <= DATE(?)");
+            sql.append(" AND p.play_day <= CAST(strftime('%Y%m%d', ?) AS INTEGER)");
             params.add(listenedDateTo);
         }
     }
@@ -7622,11 +7653,11 @@ public class SongRepository {
         StringBuilder dateFilter = new StringBuilder();
         java.util.List<Object> dateParams = new java.util.ArrayList<>();
         if (listenedDateFrom != null && !listenedDateFrom.isEmpty()) {
-            dateFilter.append(" AND DATE(p.play_date) >= ?");
+            dateFilter.append(" AND p.play_day >= CAST(strftime('%Y%m%d', ?) AS INTEGER)");
             dateParams.add(listenedDateFrom);
         }
         if (listenedDateTo != null && !listenedDateTo.isEmpty()) {
-            dateFilter.append(" AND DATE(p.play_date) <= ?");
+            dateFilter.append(" AND p.play_day <= CAST(strftime('%Y%m%d', ?) AS INTEGER)");
             dateParams.add(listenedDateTo);
         }
         
@@ -7711,11 +7742,11 @@ public class SongRepository {
         StringBuilder dateFilter = new StringBuilder();
         java.util.List<Object> dateParams = new java.util.ArrayList<>();
         if (listenedDateFrom != null && !listenedDateFrom.isEmpty()) {
-            dateFilter.append(" AND DATE(p.play_date) >= ?");
+            dateFilter.append(" AND p.play_day >= CAST(strftime('%Y%m%d', ?) AS INTEGER)");
             dateParams.add(listenedDateFrom);
         }
         if (listenedDateTo != null && !listenedDateTo.isEmpty()) {
-            dateFilter.append(" AND DATE(p.play_date) <= ?");
+            dateFilter.append(" AND p.play_day <= CAST(strftime('%Y%m%d', ?) AS INTEGER)");
             dateParams.add(listenedDateTo);
         }
         
@@ -7903,15 +7934,15 @@ public class SongRepository {
     }
     
     // Helper: enrich top artists list with itunesPresence ratio
-    private void enrichWithItunesPresenceByArtist(java.util.List<java.util.Map<String, Object>> artists, String itunesSongIdsJson) {
+    private void enrichWithItunesPresenceByArtist(java.util.List<java.util.Map<String, Object>> artists, ItunesIdSource itunesSongIds) {
         if (artists == null || artists.isEmpty()) return;
         // Query: for each artist, count songs in iTunes
         java.util.Map<Integer, Integer> itunesCountByArtist = new java.util.HashMap<>();
         jdbcTemplate.query(
             "SELECT s.artist_id, COUNT(*) as itunes_count FROM Song s " +
-            "WHERE s.id IN (SELECT value FROM json_each(?)) GROUP BY s.artist_id",
+            "WHERE s.id IN (" + SqlFilterHelper.itunesIdSubquery(itunesSongIds) + ") GROUP BY s.artist_id",
             rs -> { itunesCountByArtist.put(rs.getInt("artist_id"), rs.getInt("itunes_count")); },
-            itunesSongIdsJson
+            SqlFilterHelper.itunesIdParameter(itunesSongIds)
         );
         for (java.util.Map<String, Object> row : artists) {
             int artistId = (Integer) row.get("id");
@@ -7923,14 +7954,14 @@ public class SongRepository {
     }
     
     // Helper: enrich top albums list with itunesPresence ratio
-    private void enrichWithItunesPresenceByAlbum(java.util.List<java.util.Map<String, Object>> albums, String itunesSongIdsJson) {
+    private void enrichWithItunesPresenceByAlbum(java.util.List<java.util.Map<String, Object>> albums, ItunesIdSource itunesSongIds) {
         if (albums == null || albums.isEmpty()) return;
         java.util.Map<Integer, Integer> itunesCountByAlbum = new java.util.HashMap<>();
         jdbcTemplate.query(
             "SELECT s.album_id, COUNT(*) as itunes_count FROM Song s " +
-            "WHERE s.id IN (SELECT value FROM json_each(?)) AND s.album_id IS NOT NULL GROUP BY s.album_id",
+            "WHERE s.id IN (" + SqlFilterHelper.itunesIdSubquery(itunesSongIds) + ") AND s.album_id IS NOT NULL GROUP BY s.album_id",
             rs -> { itunesCountByAlbum.put(rs.getInt("album_id"), rs.getInt("itunes_count")); },
-            itunesSongIdsJson
+            SqlFilterHelper.itunesIdParameter(itunesSongIds)
         );
         for (java.util.Map<String, Object> row : albums) {
             Object albumIdObj = row.get("id");
@@ -6,6 +6,8 @@ import library.dto.AlbumStatsQuery;
 import library.dto.AlbumStatsRow;
 import library.dto.FeaturedArtistCardDTO;
 import library.dto.GenderCountDTO;
+import library.dto.ItunesIdSource;
+import library.dto.KeysetPage;
 import library.dto.PlaysByYearDTO;
 import library.dto.PlaysByMonthDTO;
 import library.dto.PlayDTO;
@@ -37,25 +39,28 @@ public class AlbumService {
     private final LookupRepository lookupRepository;
     private final JdbcTemplate jdbcTemplate;
     private final ItunesService itunesService;
+    private final ImageThumbnailService imageThumbnailService;
     
-    public AlbumService(AlbumRepository albumRepository, AlbumImageRepository albumImageRepository, LookupRepository lookupRepository, JdbcTemplate jdbcTemplate, ItunesService itunesService) {
+    public AlbumService(AlbumRepository albumRepository, AlbumImageRepository albumImageRepository, LookupRepository lookupRepository, JdbcTemplate jdbcTemplate, ItunesService itunesService,
+                        ImageThumbnailService imageThumbnailService) {
         this.albumRepository = albumRepository;
         this.albumImageRepository = albumImageRepository;
         this.lookupRepository = lookupRepository;
         this.jdbcTemplate = jdbcTemplate;
         this.itunesService = itunesService;
+        this.imageThumbnailService = imageThumbnailService;
     }
 
-    public String getItunesAlbumIdsJson(String inItunes) {
+    public ItunesIdSource getItunesAlbumIds(String inItunes) {
         if (inItunes == null || inItunes.isEmpty()) return null;
-        return itunesService.getAllItunesAlbumIdsJson();
+        return itunesService.getAllItunesAlbumIds();
     }
 
     private record AlbumPresenceRequest(Integer id, String artistName, String albumName)
             implements ItunesService.AlbumPresenceLookup {
     }
     
-    public List<AlbumCardDTO> getAlbums(String name, List<Integer> artistName,
+    public KeysetPage<AlbumCardDTO> getAlbums(String name, List<Integer> artistName,
                                          List<Integer> genreIds, String genreMode,
                                          List<Integer> subgenreIds, String subgenreMode,
                                          List<Integer> languageIds, String languageMode,
@@ -73,7 +78,7 @@ public class AlbumService {
                                          Integer ageAtReleaseMin, Integer ageAtReleaseMax,
                                          String birthDate, String birthDateFrom, String birthDateTo, String birthDateMode,
                                          String deathDate, String deathDateFrom, String deathDateTo, String deathDateMode,
-                                         String itunesIdsJson, String inItunes,
+                                         ItunesIdSource itunesIds, String inItunes,
                                          Integer playCountMin, Integer playCountMax, Integer songCountMin, Integer songCountMax,
                                          Integer lengthMin, Integer lengthMax, String lengthMode,
                                          Integer weeklyChartPeak, String weeklyChartPeakMode, Integer weeklyChartWeeks,
@@ -88,15 +93,15 @@ public class AlbumService {
                                          String sortBy, String sortDir,
                                          String sortBy2, String sortDir2,
                                          String sortBy3, String sortDir3,
-                                         Integer randomSeed,
+                                         Integer randomSeed, String cursor,
                                          int page, int perPage) {
         // Normalize empty lists to null to avoid native SQL IN () syntax errors in SQLite
         if (accounts != null && accounts.isEmpty()) accounts = null;
         if (tagIds != null && tagIds.isEmpty()) tagIds = null;
         
-        String itunesSongIdsJson = itunesService.getAllItunesSongIdsJson();
+        ItunesIdSource itunesSongIds = itunesService.getAllItunesSongIds();
         
-        List<AlbumStatsRow> results = albumRepository.findAlbumsWithStats(new AlbumStatsQuery(
+        KeysetPage<AlbumStatsRow> resultPage = albumRepository.findAlbumsPageWithStats(new AlbumStatsQuery(
                 name, artistName, genreIds, genreMode, 
                 subgenreIds, subgenreMode, languageIds, languageMode, genderIds, genderMode,
                 ethnicityIds, ethnicityMode, countries, countryMode, tagIds, tagMode, accounts, accountMode,
@@ -105,7 +110,7 @@ public class AlbumService {
                 lastListenedDate, lastListenedDateFrom, lastListenedDateTo, lastListenedDateMode,
                 listenedDateFrom, listenedDateTo,
                 organized, imageCountMin, imageCountMax, hasFeaturedArtists, isBand,
-                itunesIdsJson, inItunes,
+                itunesIds, inItunes,
                 ageMin, ageMax, ageMode,
                 ageAtReleaseMin, ageAtReleaseMax,
                 birthDate, birthDateFrom, birthDateTo, birthDateMode,
@@ -116,9 +121,10 @@ public class AlbumService {
                 seasonalChartPeak, seasonalChartSeasons, seasonalChartDateFrom, seasonalChartDateTo, seasonalChartSeason,
                 yearlyChartPeak, yearlyChartYears, yearlyChartDateFrom, yearlyChartDateTo,
                 lastFullListenDate, lastFullListenDateFrom, lastFullListenDateTo, lastFullListenDateMode,
-                itunesPresenceMin, itunesPresenceMax, itunesSongIdsJson,
-                sortBy, sortDir, sortBy2, sortDir2, sortBy3, sortDir3, randomSeed, perPage, page * perPage
+                itunesPresenceMin, itunesPresenceMax, itunesSongIds,
+                sortBy, sortDir, sortBy2, sortDir2, sortBy3, sortDir3, randomSeed, perPage, page * perPage, cursor
         ));
+        List<AlbumStatsRow> results = resultPage.rows();
         
         List<AlbumCardDTO> albums = new ArrayList<>();
         for (AlbumStatsRow row : results) {
@@ -203,7 +209,7 @@ public class AlbumService {
             }
         }
         
-        return albums;
+        return new KeysetPage<>(albums, resultPage.nextCursor(), resultPage.totals());
     }
 
     private void populateAlbumItunesPresence(List<AlbumCardDTO> albums) {
@@ -239,7 +245,7 @@ public class AlbumService {
                            Integer ageAtReleaseMin, Integer ageAtReleaseMax,
                            String birthDate, String birthDateFrom, String birthDateTo, String birthDateMode,
                            String deathDate, String deathDateFrom, String deathDateTo, String deathDateMode,
-                           String itunesIdsJson, String inItunes,
+                           ItunesIdSource itunesIds, String inItunes,
                            Integer playCountMin, Integer playCountMax, Integer songCountMin, Integer songCountMax,
                            Integer lengthMin, Integer lengthMax, String lengthMode,
                            Integer weeklyChartPeak, String weeklyChartPeakMode, Integer weeklyChartWeeks,
@@ -263,7 +269,7 @@ public class AlbumService {
                 lastListenedDate, lastListenedDateFrom, lastListenedDateTo, lastListenedDateMode,
                 listenedDateFrom, listenedDateTo,
                 organized, imageCountMin, imageCountMax, hasFeaturedArtists, isBand,
-                itunesIdsJson, inItunes,
+                itunesIds, inItunes,
                 ageMin, ageMax, ageMode,
                 ageAtReleaseMin, ageAtReleaseMax,
                 birthDate, birthDateFrom, birthDateTo, birthDateMode,
@@ -274,7 +280,7 @@ public class AlbumService {
                 seasonalChartPeak, seasonalChartSeasons, seasonalChartDateFrom, seasonalChartDateTo, seasonalChartSeason,
                 yearlyChartPeak, yearlyChartYears, yearlyChartDateFrom, yearlyChartDateTo,
                 lastFullListenDate, lastFullListenDateFrom, lastFullListenDateTo, lastFullListenDateMode,
-                itunesPresenceMin, itunesPresenceMax, itunesService.getAllItunesSongIdsJson());
+                itunesPresenceMin, itunesPresenceMax, itunesService.getAllItunesSongIds());
     }
     
     /**
@@ -300,7 +306,7 @@ public class AlbumService {
                            Integer ageAtReleaseMin, Integer ageAtReleaseMax,
                            String birthDate, String birthDateFrom, String birthDateTo, String birthDateMode,
                            String deathDate, String deathDateFrom, String deathDateTo, String deathDateMode,
-                           String itunesIdsJson, String inItunes,
+                           ItunesIdSource itunesIds, String inItunes,
                            Integer playCountMin, Integer playCountMax, Integer songCountMin, Integer songCountMax,
                            Integer lengthMin, Integer lengthMax, String lengthMode,
                            Integer weeklyChartPeak, String weeklyChartPeakMode, Integer weeklyChartWeeks,
@@ -330,14 +336,14 @@ public class AlbumService {
                 ageAtReleaseMin, ageAtReleaseMax,
                 birthDate, birthDateFrom, birthDateTo, birthDateMode,
                 deathDate, deathDateFrom, deathDateTo, deathDateMode,
-                itunesIdsJson, inItunes,
+                itunesIds, inItunes,
                 playCountMin, playCountMax, songCountMin, songCountMax,
                 lengthMin, lengthMax, lengthMode,
                 weeklyChartPeak, weeklyChartPeakMode, weeklyChartWeeks, weeklyChartPeakWeeks, weeklyChartPeakWeeksMode, weeklyChartDateFrom, weeklyChartDateTo, weeklyChartSeason,
                 seasonalChartPeak, seasonalChartSeasons, seasonalChartDateFrom, seasonalChartDateTo, seasonalChartSeason,
                 yearlyChartPeak, yearlyChartYears, yearlyChartDateFrom, yearlyChartDateTo,
                 lastFullListenDate, lastFullListenDateFrom, lastFullListenDateTo, lastFullListenDateMode,
-                itunesPresenceMin, itunesPresenceMax, itunesService.getAllItunesSongIdsJson());
+                itunesPresenceMin, itunesPresenceMax, itunesService.getAllItunesSongIds());
         
         // Gender ID 1 = Female, Gender ID 2 = Male
         long femaleCount = genderCounts.getOrDefault(1, 0L);
@@ -526,6 +532,11 @@ public class AlbumService {
     public void updateAlbumImage(Integer id, byte[] imageData) {
         String sql = "UPDATE Album SET image = ? WHERE id = ?";
         jdbcTemplate.update(sql, imageData, id);
+        invalidateThumbnails(id);
+    }
+
+    private void invalidateThumbnails(Integer id) {
+        imageThumbnailService.invalidate("album", id);
     }
     
     public byte[] getAlbumImage(Integer id) {
@@ -601,6 +612,7 @@ public class AlbumService {
         image.setDisplayOrder(maxOrder + 1);
         image.setCreationDate(new java.sql.Timestamp(System.currentTimeMillis()));
         albumImageRepository.save(image);
+        invalidateThumbnails(albumId);
         return true;
     }
 
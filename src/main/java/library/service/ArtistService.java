@@ -8,6 +8,8 @@ import library.dto.ArtistStatsQuery;
 import library.dto.ArtistStatsRow;
 import library.dto.FeaturedArtistCardDTO;
 import library.dto.GenderCountDTO;
+import library.dto.ItunesIdSource;
+import library.dto.KeysetPage;
 import library.dto.PlaysByYearDTO;
 import library.dto.PlaysByMonthDTO;
 import library.dto.PlayDTO;
@@ -46,32 +48,31 @@ public class ArtistService {
     private final JdbcTemplate jdbcTemplate;
     private final ItunesService itunesService;
     private final SongLinkService songLinkService;
-    private ThemeService themeService; // set via setter to avoid circular-dependency risk
+    private final ThemeService themeService;
+    private final ImageThumbnailService imageThumbnailService;
 
-    public ArtistService(ArtistRepository artistRepository, ArtistImageRepository artistImageRepository, LookupRepository lookupRepository, JdbcTemplate jdbcTemplate, ItunesService itunesService, SongLinkService songLinkService) {
+    public ArtistService(ArtistRepository artistRepository, ArtistImageRepository artistImageRepository, LookupRepository lookupRepository, JdbcTemplate jdbcTemplate, ItunesService itunesService, SongLinkService songLinkService,
+                         ThemeService themeService, ImageThumbnailService imageThumbnailService) {
         this.artistRepository = artistRepository;
         this.artistImageRepository = artistImageRepository;
         this.lookupRepository = lookupRepository;
         this.jdbcTemplate = jdbcTemplate;
         this.itunesService = itunesService;
         this.songLinkService = songLinkService;
-    }
-
-    @org.springframework.beans.factory.annotation.Autowired
-    public void setThemeService(ThemeService themeService) {
         this.themeService = themeService;
+        this.imageThumbnailService = imageThumbnailService;
     }
 
-    public String getItunesArtistIdsJson(String inItunes) {
+    public ItunesIdSource getItunesArtistIds(String inItunes) {
         if (inItunes == null || inItunes.isEmpty()) return null;
-        return itunesService.getAllItunesArtistIdsJson();
+        return itunesService.getAllItunesArtistIds();
     }
 
     private record ArtistPresenceRequest(Integer id, String artistName)
             implements ItunesService.ArtistPresenceLookup {
     }
     
-    public List<ArtistCardDTO> getArtists(String name, List<Integer> genderIds, String genderMode,
+    public KeysetPage<ArtistCardDTO> getArtists(String name, List<Integer> genderIds, String genderMode,
                                           List<Integer> ethnicityIds, String ethnicityMode,
                                           List<Integer> genreIds, String genreMode,
                                           List<Integer> subgenreIds, String subgenreMode,
@@ -84,7 +85,7 @@ public class ArtistService {
                                           String firstListenedDate, String firstListenedDateFrom, String firstListenedDateTo, String firstListenedDateMode,
                                           String lastListenedDate, String lastListenedDateFrom, String lastListenedDateTo, String lastListenedDateMode,
                                           String listenedDateFrom, String listenedDateTo,
-                                          String organized, Integer imageCountMin, Integer imageCountMax, Integer imageTheme, String imageThemeMode, String isBand, String itunesIdsJson, String inItunes,
+                                          String organized, Integer imageCountMin, Integer imageCountMax, Integer imageTheme, String imageThemeMode, String isBand, ItunesIdSource itunesIds, String inItunes,
                                           Integer playCountMin, Integer playCountMax,
                                           Integer albumCountMin, Integer albumCountMax,
                                           String birthDate, String birthDateFrom, String birthDateTo, String birthDateMode,
@@ -93,7 +94,7 @@ public class ArtistService {
                                           String sortBy, String sortDir,
                                           String sortBy2, String sortDir2,
                                           String sortBy3, String sortDir3,
-                                          Integer randomSeed,
+                                          Integer randomSeed, String cursor,
                                           int page, int perPage) {
         // Normalize empty lists to null to avoid native SQL IN () syntax errors in SQLite
         if (genderIds != null && genderIds.isEmpty()) genderIds = null;
@@ -105,9 +106,9 @@ public class ArtistService {
         if (tagIds != null && tagIds.isEmpty()) tagIds = null;
         if (accounts != null && accounts.isEmpty()) accounts = null;
         
-        String itunesSongIdsJson = itunesService.getAllItunesSongIdsJson();
+        ItunesIdSource itunesSongIds = itunesService.getAllItunesSongIds();
         
-        List<ArtistStatsRow> results = artistRepository.findArtistsWithStats(new ArtistStatsQuery(
+        KeysetPage<ArtistStatsRow> resultPage = artistRepository.findArtistsPageWithStats(new ArtistStatsQuery(
                 name, genderIds, genderMode, ethnicityIds, ethnicityMode, 
                 genreIds, genreMode, subgenreIds, subgenreMode, languageIds, languageMode,
                 countries, countryMode, tagIds, tagMode, deathDate, deathDateFrom, deathDateTo, deathDateMode,
@@ -116,13 +117,14 @@ public class ArtistService {
                 lastListenedDate, lastListenedDateFrom, lastListenedDateTo, lastListenedDateMode,
                 listenedDateFrom, listenedDateTo,
                 organized, imageCountMin, imageCountMax, imageTheme, imageThemeMode, isBand,
-                itunesIdsJson, inItunes,
+                itunesIds, inItunes,
                 playCountMin, playCountMax,
                 albumCountMin, albumCountMax, birthDate, birthDateFrom, birthDateTo, birthDateMode,
                 songCountMin, songCountMax,
-                itunesPresenceMin, itunesPresenceMax, itunesSongIdsJson,
-                sortBy, sortDir, sortBy2, sortDir2, sortBy3, sortDir3, randomSeed, perPage, page * perPage
+                itunesPresenceMin, itunesPresenceMax, itunesSongIds,
+                sortBy, sortDir, sortBy2, sortDir2, sortBy3, sortDir3, randomSeed, perPage, page * perPage, cursor
         ));
+        List<ArtistStatsRow> results = resultPage.rows();
         
         List<ArtistCardDTO> artists = new ArrayList<>();
         for (ArtistStatsRow row : results) {
@@ -193,7 +195,7 @@ public class ArtistService {
             }
         }
         
-        return artists;
+        return new KeysetPage<>(artists, resultPage.nextCursor(), resultPage.totals());
     }
 
     private void populateArtistItunesPresence(List<ArtistCardDTO> artists) {
@@ -224,7 +226,7 @@ public class ArtistService {
                             String firstListenedDate, String firstListenedDateFrom, String firstListenedDateTo, String firstListenedDateMode,
                             String lastListenedDate, String lastListenedDateFrom, String lastListenedDateTo, String lastListenedDateMode,
                             String listenedDateFrom, String listenedDateTo,
-                            String organized, Integer imageCountMin, Integer imageCountMax, Integer imageTheme, String imageThemeMode, String isBand, String itunesIdsJson, String inItunes,
+                            String organized, Integer imageCountMin, Integer imageCountMax, Integer imageTheme, String imageThemeMode, String isBand, ItunesIdSource itunesIds, String inItunes,
                             Integer playCountMin, Integer playCountMax,
                             Integer albumCountMin, Integer albumCountMax,
                             String birthDate, String birthDateFrom, String birthDateTo, String birthDateMode,
@@ -249,12 +251,12 @@ public class ArtistService {
                 lastListenedDate, lastListenedDateFrom, lastListenedDateTo, lastListenedDateMode,
                 listenedDateFrom, listenedDateTo,
                 organized, imageCountMin, imageCountMax, imageTheme, imageThemeMode, isBand,
-                itunesIdsJson, inItunes,
+                itunesIds, inItunes,
                 playCountMin, playCountMax,
                 albumCountMin, albumCountMax, birthDate, birthDateFrom, birthDateTo, birthDateMode,
                 songCountMin, songCountMax,
-                itunesPresenceMin, itunesPresenceMax, itunesService.getAllItunesSongIdsJson(),
-                null, null, null, null, null, null, null, 0, 0));
+                itunesPresenceMin, itunesPresenceMax, itunesService.getAllItunesSongIds(),
+                null, null, null, null, null, null, null, 0, 0, null));
     }
     
     /**
@@ -275,7 +277,7 @@ public class ArtistService {
                             String firstListenedDate, String firstListenedDateFrom, String firstListenedDateTo, String firstListenedDateMode,
                             String lastListenedDate, String lastListenedDateFrom, String lastListenedDateTo, String lastListenedDateMode,
                             String listenedDateFrom, String listenedDateTo,
-                            String organized, Integer imageCountMin, Integer imageCountMax, Integer imageTheme, String imageThemeMode, String isBand, String itunesIdsJson, String inItunes,
+                            String organized, Integer imageCountMin, Integer imageCountMax, Integer imageTheme, String imageThemeMode, String isBand, ItunesIdSource itunesIds, String inItunes,
                             Integer playCountMin, Integer playCountMax,
                             Integer albumCountMin, Integer albumCountMax,
                             String birthDate, String birthDateFrom, String birthDateTo, String birthDateMode,
@@ -301,11 +303,11 @@ public class ArtistService {
                 lastListenedDate, lastListenedDateFrom, lastListenedDateTo, lastListenedDateMode,
                 listenedDateFrom, listenedDateTo,
                 organized, imageCountMin, imageCountMax, imageTheme, imageThemeMode, isBand,
-                itunesIdsJson, inItunes,
+                itunesIds, inItunes,
                 playCountMin, playCountMax, albumCountMin, albumCountMax,
                 birthDate, birthDateFrom, birthDateTo, birthDateMode, songCountMin, songCountMax,
-                itunesPresenceMin, itunesPresenceMax, itunesService.getAllItunesSongIdsJson(),
-                null, null, null, null, null, null, null, 0, 0));
+                itunesPresenceMin, itunesPresenceMax, itunesService.getAllItunesSongIds(),
+                null, null, null, null, null, null, null, 0, 0, null));
         
         // Gender ID 1 = Female, Gender ID 2 = Male
         long femaleCount = genderCounts.getOrDefault(1, 0L);
@@ -462,15 +464,18 @@ public class ArtistService {
     public void updateArtistImage(Integer id, byte[] imageData) {
         String sql = "UPDATE Artist SET image = ? WHERE id = ?";
         jdbcTemplate.update(sql, imageData, id);
+        invalidateThumbnails(id);
+    }
+
+    private void invalidateThumbnails(Integer id) {
+        imageThumbnailService.invalidate("artist", id);
     }
     
     public byte[] getArtistImage(Integer id) {
         // Check if an active theme has a specific image for this artist.
-        if (themeService != null) {
-            byte[] themeImage = themeService.getActiveThemeImageForArtist(id);
-            if (themeImage != null && themeImage.length > 0) {
-                return themeImage;
-            }
+        byte[] themeImage = themeService.getActiveThemeImageForArtist(id);
+        if (themeImage != null && themeImage.length > 0) {
+            return themeImage;
         }
         return getRawArtistImage(id);
     }
@@ -545,6 +550,7 @@ public class ArtistService {
         image.setDisplayOrder(maxOrder + 1);
         image.setCreationDate(new java.sql.Timestamp(System.currentTimeMillis()));
         artistImageRepository.save(image);
+        invalidateThumbnails(artistId);
         return true;
     }
 
@@ -135,14 +135,12 @@ public class AutomatedPlayImportService {
                 return ImportCycleResult.completed(initialAttempt, "initial");
             }
 
-            playService.deleteRecentPlays(automationAccount, 5);
-            AttemptOutcome fiveDayAttempt = fetchWithRetries(automationConfig);
+            AttemptOutcome fiveDayAttempt = reconcileWithRetries(automationConfig, 5);
             if (fiveDayAttempt.validation.matches) {
                 return ImportCycleResult.completed(fiveDayAttempt, "after-5-day-recovery");
             }
 
-            playService.deleteRecentPlays(automationAccount, 10);
-            AttemptOutcome tenDayAttempt = fetchWithRetries(automationConfig);
+            AttemptOutcome tenDayAttempt = reconcileWithRetries(automationConfig, 10);
             return ImportCycleResult.completed(tenDayAttempt, "after-10-day-recovery");
         } catch (Exception ex) {
             String message = ex.getMessage() != null && !ex.getMessage().isBlank()
@@ -175,10 +173,34 @@ public class AutomatedPlayImportService {
         throw new IllegalStateException("Unknown Last.fm error");
     }
 
+    /**
+     * Diffs the last {@code days} days against Last.fm instead of deleting and re-importing them,
+     * so only the missing or extra plays are written.
+     */
+    private AttemptOutcome reconcileWithRetries(AppConfigService.AutomationConfig automationConfig, int days) throws Exception {
+        String automationAccount = automationConfig.account();
+        Exception lastFailure = null;
+        for (int attempt = 1; attempt <= 4; attempt++) {
+            try {
+                PlayService.ImportResult result = playService.reconcileRecentPlaysFromLastfm(
+                        automationAccount, automationConfig.apiKey(), days);
+                logger.info("Reconciled {} days of plays for {}: inserted={}, deleted={}", days, automationAccount,
+                        result.reconciliation.insertedPlayIds().size(), result.reconciliation.deletedPlayIds().size());
+                logger.debug("Reconciled play ids for {}: inserted={}, deleted={}", automationAccount,
+                        result.reconciliation.insertedPlayIds(), result.reconciliation.deletedPlayIds());
+                return new AttemptOutcome(result, result.validation);
+            } catch (Exception ex) {
+                lastFailure = ex;
+                logger.warn("Play reconciliation attempt {} ({} days) failed for {}: {}", attempt, days, automationAccount, ex.getMessage());
+            }
+        }
+        throw lastFailure;
+    }
+
     private String successMessageForStage(String stage) {
         return switch (stage) {
-            case "after-5-day-recovery" -> "Automated play import synced successfully after the 5-day recovery delete.";
-            case "after-10-day-recovery" -> "Automated play import synced successfully after the 10-day recovery delete.";
+            case "after-5-day-recovery" -> "Automated play import synced successfully after reconciling the last 5 days.";
+            case "after-10-day-recovery" -> "Automated play import synced successfully after reconciling the last 10 days.";
             default -> "Automated play import synced successfully on the first pass.";
         };
     }
@@ -1,7 +1,9 @@
 package library.service;
 
+import jakarta.annotation.PostConstruct;
 import library.dto.CatalogWinningPeriodStatsDTO;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
@@ -12,6 +14,11 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.function.Function;
 
+/**
+ * Winning-period counts for the catalog pages (genders, genres, countries...): in how many
+ * days, weeks, months, seasons, years and decades each attribute value had the most plays.
+ * Read from the period_attribute_winner table, see {@link #initialize()}.
+ */
 @Service
 public class CatalogWinningPeriodService {
 
@@ -30,10 +37,223 @@ public class CatalogWinningPeriodService {
         }
     }
 
+    /** Song, album and artist columns that decide a play's attribute values. */
+    private static final String SONG_ATTRIBUTE_COLUMNS = "artist_id, album_id, override_gender_id, override_genre_id, "
+            + "override_subgenre_id, override_language_id, override_ethnicity_id";
+    private static final String ALBUM_ATTRIBUTE_COLUMNS = "override_genre_id, override_subgenre_id, override_language_id";
+    private static final String ARTIST_ATTRIBUTE_COLUMNS = "country, ethnicity_id, gender_id, genre_id, subgenre_id, language_id";
+
+    /** Stale periods recomputed per queued write, so a rebuild does not hold the writer for long. */
+    private static final int PERIODS_PER_CHUNK = 500;
+    private static final String DIRTY_CHUNK = "SELECT period_type, period_key FROM period_attribute_winner_dirty "
+            + "ORDER BY period_type, period_key LIMIT " + PERIODS_PER_CHUNK;
+
     private final JdbcTemplate jdbcTemplate;
+    private final SongPeriodCountService songPeriodCountService;
+    private final SqliteWriteQueue writeQueue;
+    private volatile boolean ready;
 
-    public CatalogWinningPeriodService(JdbcTemplate jdbcTemplate) {
+    public CatalogWinningPeriodService(JdbcTemplate jdbcTemplate, SongPeriodCountService songPeriodCountService,
+                                       SqliteWriteQueue writeQueue) {
         this.jdbcTemplate = jdbcTemplate;
+        this.songPeriodCountService = songPeriodCountService;
+        this.writeQueue = writeQueue;
+    }
+
+    /**
+     * Creates period_attribute_winner: the winning value of each catalog attribute in every
+     * period (day, week, month, season, year, decade), with its play count.
+     *
+     * Triggers only mark periods stale in period_attribute_winner_dirty: the periods of a play
+     * that is inserted, deleted or moved, and every period of a song whose attributes change
+     * (its own overrides, its album's or its artist's). Stale periods are recomputed from
+     * song_period_counts by {@link #refreshDirtyPeriods} every couple of seconds, off the
+     * request path, so an import of thousands of plays costs one recomputation per touched
+     * period instead of one per play and reading winning counts never writes.
+     */
+    @PostConstruct
+    public void initialize() {
+        jdbcTemplate.execute("""
+                CREATE TABLE IF NOT EXISTS period_attribute_winner (
+                    period_type TEXT NOT NULL,
+                    period_key TEXT NOT NULL,
+                    attribute TEXT NOT NULL,
+                    winner_key TEXT NOT NULL,
+                    play_count INTEGER NOT NULL,
+                    PRIMARY KEY (period_type, period_key, attribute)
+                ) WITHOUT ROWID
+                """);
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_period_attribute_winner_lookup "
+                + "ON period_attribute_winner(attribute, winner_key, period_type)");
+        jdbcTemplate.execute("""
+                CREATE TABLE IF NOT EXISTS period_attribute_winner_dirty (
+                    period_type TEXT NOT NULL,
+                    period_key TEXT NOT NULL,
+                    PRIMARY KEY (period_type, period_key)
+                ) WITHOUT ROWID
+                """);
+        createTriggers();
+
+        Integer winnerRows = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM period_attribute_winner", Integer.class);
+        if (winnerRows == null || winnerRows == 0) {
+            rebuild();
+        }
+        ready = true;
+    }
+
+    /**
+     * Drops the winners of periods without plays, marks every period in song_period_counts
+     * stale and recomputes them all, PERIODS_PER_CHUNK periods per queued write.
+     */
+    public void rebuild() {
+        writeQueue.run(() -> {
+            jdbcTemplate.update("""
+                    DELETE FROM period_attribute_winner
+                    WHERE (period_type, period_key) NOT IN (SELECT period_type, period_key FROM song_period_counts)
+                    """);
+            jdbcTemplate.update("""
+                    INSERT OR IGNORE INTO period_attribute_winner_dirty (period_type, period_key)
+                    SELECT DISTINCT period_type, period_key FROM song_period_counts
+                    """);
+        });
+        writeQueue.runInChunks(this::recomputeDirtyChunk);
+    }
+
+    /**
+     * Recomputes the winners of periods touched since the last run, if any.
+     */
+    @Scheduled(fixedDelay = 2_000)
+    public void refreshDirtyPeriods() {
+        Boolean dirty = jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM period_attribute_winner_dirty)", Boolean.class);
+        if (Boolean.TRUE.equals(dirty)) {
+            writeQueue.runInChunks(this::recomputeDirtyChunk);
+        }
+    }
+
+    /**
+     * Replaces the stored winners of the first PERIODS_PER_CHUNK stale periods, for every
+     * attribute, clears their stale marks and reports whether stale periods remain. Runs
+     * inside a write transaction, so no play can slip in between.
+     */
+    private boolean recomputeDirtyChunk() {
+        jdbcTemplate.update("DELETE FROM period_attribute_winner WHERE (period_type, period_key) IN (" + DIRTY_CHUNK + ")");
+        for (CatalogAttribute attribute : CatalogAttribute.values()) {
+            jdbcTemplate.update("""
+                    INSERT INTO period_attribute_winner (period_type, period_key, attribute, winner_key, play_count)
+                    SELECT period_type, period_key, ?, attr_key, cnt
+                    FROM (
+                        SELECT
+                            spc.period_type,
+                            spc.period_key,
+                            CAST(%1$s AS TEXT) as attr_key,
+                            SUM(spc.play_count) as cnt,
+                            ROW_NUMBER() OVER (
+                                PARTITION BY spc.period_type, spc.period_key
+                                ORDER BY SUM(spc.play_count) DESC, CAST(%1$s AS TEXT)
+                            ) as rn
+                        FROM (%2$s) d
+                        INNER JOIN song_period_counts spc ON spc.period_type = d.period_type AND spc.period_key = d.period_key
+                        INNER JOIN Song s ON spc.song_id = s.id
+                        INNER JOIN Artist ar ON s.artist_id = ar.id
+                        LEFT JOIN Album al ON s.album_id = al.id
+                        WHERE %1$s IS NOT NULL
+                        GROUP BY spc.period_type, spc.period_key, attr_key
+                    )
+                    WHERE rn = 1
+                    """.formatted(attribute.expression, DIRTY_CHUNK), attribute.name());
+        }
+        jdbcTemplate.update("DELETE FROM period_attribute_winner_dirty WHERE (period_type, period_key) IN (" + DIRTY_CHUNK + ")");
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM period_attribute_winner_dirty)", Boolean.class));
+    }
+
+    private void createTriggers() {
+        jdbcTemplate.execute("DROP TRIGGER IF EXISTS play_attribute_winner_insert");
+        jdbcTemplate.execute("DROP TRIGGER IF EXISTS play_attribute_winner_delete");
+        jdbcTemplate.execute("DROP TRIGGER IF EXISTS play_attribute_winner_update");
+        jdbcTemplate.execute("DROP TRIGGER IF EXISTS song_attribute_winner_update");
+        jdbcTemplate.execute("DROP TRIGGER IF EXISTS song_attribute_winner_delete");
+        jdbcTemplate.execute("DROP TRIGGER IF EXISTS album_attribute_winner_update");
+        jdbcTemplate.execute("DROP TRIGGER IF EXISTS artist_attribute_winner_update");
+
+        jdbcTemplate.execute("""
+                CREATE TRIGGER play_attribute_winner_insert
+                AFTER INSERT ON Play
+                WHEN NEW.song_id IS NOT NULL AND NEW.play_date IS NOT NULL
+                BEGIN
+                %s
+                END
+                """.formatted(markPlayPeriods("NEW")));
+        jdbcTemplate.execute("""
+                CREATE TRIGGER play_attribute_winner_delete
+                AFTER DELETE ON Play
+                WHEN OLD.song_id IS NOT NULL AND OLD.play_date IS NOT NULL
+                BEGIN
+                %s
+                END
+                """.formatted(markPlayPeriods("OLD")));
+        jdbcTemplate.execute("""
+                CREATE TRIGGER play_attribute_winner_update
+                AFTER UPDATE OF song_id, play_date ON Play
+                WHEN OLD.song_id IS NOT NEW.song_id OR OLD.play_date IS NOT NEW.play_date
+                BEGIN
+                %s
+                %s
+                END
+                """.formatted(markPlayPeriods("OLD"), markPlayPeriods("NEW")));
+
+        jdbcTemplate.execute("""
+                CREATE TRIGGER song_attribute_winner_update
+                AFTER UPDATE OF %s ON Song
+                BEGIN
+                %s
+                END
+                """.formatted(SONG_ATTRIBUTE_COLUMNS, markSongPeriods("song_id = OLD.id")));
+        jdbcTemplate.execute("""
+                CREATE TRIGGER song_attribute_winner_delete
+                AFTER DELETE ON Song
+                BEGIN
+                %s
+                END
+                """.formatted(markSongPeriods("song_id = OLD.id")));
+        jdbcTemplate.execute("""
+                CREATE TRIGGER album_attribute_winner_update
+                AFTER UPDATE OF %s ON Album
+                BEGIN
+                %s
+                END
+                """.formatted(ALBUM_ATTRIBUTE_COLUMNS, markSongPeriods("song_id IN (SELECT id FROM Song WHERE album_id = OLD.id)")));
+        jdbcTemplate.execute("""
+                CREATE TRIGGER artist_attribute_winner_update
+                AFTER UPDATE OF %s ON Artist
+                BEGIN
+                %s
+                END
+                """.formatted(ARTIST_ATTRIBUTE_COLUMNS, markSongPeriods("song_id IN (SELECT id FROM Song WHERE artist_id = OLD.id)")));
+    }
+
+    /**
+     * Marks the six periods containing row's play date stale. A NULL date or song marks
+     * nothing (the period key is NULL and the insert is skipped by the WHERE).
+     */
+    private static String markPlayPeriods(String row) {
+        List<String> selects = new ArrayList<>();
+        for (String periodType : SongPeriodCountService.periodTypes()) {
+            selects.add("SELECT '" + periodType + "' as period_type, "
+                    + SongPeriodCountService.periodKeyExpression(periodType, row + ".play_date") + " as period_key");
+        }
+        return "INSERT OR IGNORE INTO period_attribute_winner_dirty (period_type, period_key)\n"
+                + "SELECT period_type, period_key FROM (" + String.join("\nUNION ALL\n", selects) + ")\n"
+                + "WHERE period_key IS NOT NULL AND " + row + ".song_id IS NOT NULL;";
+    }
+
+    /**
+     * Marks every period in which the songs matching songCondition were played stale.
+     */
+    private static String markSongPeriods(String songCondition) {
+        return "INSERT OR IGNORE INTO period_attribute_winner_dirty (period_type, period_key)\n"
+                + "SELECT DISTINCT period_type, period_key FROM song_period_counts WHERE " + songCondition + ";";
     }
 
     public static boolean isWinningPeriodSort(String sortBy) {
@@ -107,9 +327,55 @@ public class CatalogWinningPeriodService {
 
         List<String> keys = new ArrayList<>(itemsByKey.keySet());
         String placeholders = String.join(",", keys.stream().map(key -> "?").toList());
-        String attrExpression = attribute.expression;
+        boolean stored = ready && songPeriodCountService.isReady();
+        List<Object> params = new ArrayList<>();
+        if (stored) {
+            params.add(attribute.name());
+        }
+        params.addAll(keys);
+        String sql = stored ? storedWinnersSql(placeholders) : scanPlaysSql(attribute, placeholders);
+
+        jdbcTemplate.query(sql, rs -> {
+            T item = itemsByKey.get(rs.getString("attr_key"));
+            if (item == null) {
+                return;
+            }
 
-        String sql = """
+            item.setWinningDaysCount(rs.getInt("winning_days_count"));
+            item.setWinningWeeksCount(rs.getInt("winning_weeks_count"));
+            item.setWinningMonthsCount(rs.getInt("winning_months_count"));
+            item.setWinningSeasonsCount(rs.getInt("winning_seasons_count"));
+            item.setWinningYearsCount(rs.getInt("winning_years_count"));
+            item.setWinningDecadesCount(rs.getInt("winning_decades_count"));
+        }, params.toArray());
+    }
+
+    /**
+     * Winning-period counts per attribute value, looked up in period_attribute_winner.
+     */
+    private static String storedWinnersSql(String placeholders) {
+        return """
+            SELECT
+                winner_key as attr_key,
+                SUM(CASE WHEN period_type = 'days' THEN 1 ELSE 0 END) as winning_days_count,
+                SUM(CASE WHEN period_type = 'weeks' THEN 1 ELSE 0 END) as winning_weeks_count,
+                SUM(CASE WHEN period_type = 'months' THEN 1 ELSE 0 END) as winning_months_count,
+                SUM(CASE WHEN period_type = 'seasons' THEN 1 ELSE 0 END) as winning_seasons_count,
+                SUM(CASE WHEN period_type = 'years' THEN 1 ELSE 0 END) as winning_years_count,
+                SUM(CASE WHEN period_type = 'decades' THEN 1 ELSE 0 END) as winning_decades_count
+            FROM period_attribute_winner
+            WHERE attribute = ?
+              AND winner_key IN (%s)
+            GROUP BY winner_key
+            """.formatted(placeholders);
+    }
+
+    /**
+     * The same counts computed from every play, for when the stored winners are not available
+     * (before initialize(), as in plain unit tests).
+     */
+    private static String scanPlaysSql(CatalogAttribute attribute, String placeholders) {
+        return """
             WITH raw_plays AS (
                 SELECT
                     p.play_date,
@@ -168,7 +434,7 @@ public class CatalogWinningPeriodService {
                     period_type,
                     period_key,
                     attr_key,
-                    ROW_NUMBER() OVER (PARTITION BY period_type, period_key ORDER BY cnt DESC) as rn
+                    ROW_NUMBER() OVER (PARTITION BY period_type, period_key ORDER BY cnt DESC, attr_key) as rn
                 FROM period_attr_counts
                 WHERE period_key IS NOT NULL
             )
@@ -184,20 +450,6 @@ public class CatalogWinningPeriodService {
             WHERE rn = 1
               AND attr_key IN (%s)
             GROUP BY attr_key
-            """.formatted(attrExpression, placeholders);
-
-        jdbcTemplate.query(sql, rs -> {
-            T item = itemsByKey.get(rs.getString("attr_key"));
-            if (item == null) {
-                return;
-            }
-
-            item.setWinningDaysCount(rs.getInt("winning_days_count"));
-            item.setWinningWeeksCount(rs.getInt("winning_weeks_count"));
-            item.setWinningMonthsCount(rs.getInt("winning_months_count"));
-            item.setWinningSeasonsCount(rs.getInt("winning_seasons_count"));
-            item.setWinningYearsCount(rs.getInt("winning_years_count"));
-            item.setWinningDecadesCount(rs.getInt("winning_decades_count"));
-        }, keys.toArray());
+            """.formatted(attribute.expression, placeholders);
     }
 }
@@ -0,0 +1,143 @@
+package library.service;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Maintains chart_run_stats: for every entry of a weekly song/album chart, the entry's
+ * peak position, times at peak and weeks on chart as of that week, plus whether it had
+ * charted in any earlier week (used for re-entry detection).
+ *
+ * item_id is the song id for song charts and the album id for album charts; the chart id
+ * already identifies the chart type. Stats for a week depend on every earlier week, so
+ * writers call refreshFrom with the earliest week they changed and every chart from that
+ * week onwards is recomputed.
+ */
+@Service
+public class ChartRunStatsService {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ChartRunStatsService(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    public void initialize() {
+        jdbcTemplate.execute("""
+                CREATE TABLE IF NOT EXISTS chart_run_stats (
+                    chart_id INTEGER NOT NULL,
+                    item_id INTEGER NOT NULL,
+                    peak_position INTEGER NOT NULL,
+                    times_at_peak INTEGER NOT NULL,
+                    weeks_on_chart INTEGER NOT NULL,
+                    charted_before INTEGER NOT NULL,
+                    PRIMARY KEY (chart_id, item_id)
+                ) WITHOUT ROWID
+                """);
+
+        fillMissing("song");
+        fillMissing("album");
+    }
+
+    /**
+     * Recomputes stats from the earliest weekly chart of the given type that has entries
+     * missing from the table (every chart on first start, or charts written before it
+     * existed), so reads never have to fill gaps.
+     */
+    private void fillMissing(String chartType) {
+        String fromStartDate = jdbcTemplate.queryForObject("""
+                SELECT MIN(c.period_start_date)
+                FROM Chart c
+                INNER JOIN ChartEntry ce ON ce.chart_id = c.id
+                WHERE c.chart_type = ? AND c.period_type = 'weekly' AND ce.%1$s IS NOT NULL
+                  AND NOT EXISTS (SELECT 1 FROM chart_run_stats r WHERE r.chart_id = c.id AND r.item_id = ce.%1$s)
+                """.formatted(idColumn(chartType)), String.class, chartType);
+        if (fromStartDate != null) {
+            refreshFrom(chartType, fromStartDate);
+        }
+    }
+
+    /**
+     * Recomputes stats for every weekly chart of the given type starting on or after
+     * fromStartDate (all weekly charts when null).
+     *
+     * @return number of stats rows written
+     */
+    public int refreshFrom(String chartType, String fromStartDate) {
+        String idColumn = idColumn(chartType);
+        String lowerBound = fromStartDate != null ? fromStartDate : "";
+
+        jdbcTemplate.update("""
+                DELETE FROM chart_run_stats
+                WHERE chart_id IN (
+                    SELECT id FROM Chart
+                    WHERE chart_type = ? AND period_type = 'weekly' AND period_start_date >= ?
+                )
+                """, chartType, lowerBound);
+
+        return jdbcTemplate.update("""
+                WITH history AS (
+                    SELECT ce.chart_id, ce.%1$s as item_id, ce.position, c.period_start_date
+                    FROM ChartEntry ce
+                    INNER JOIN Chart c ON ce.chart_id = c.id
+                    WHERE c.chart_type = ? AND c.period_type = 'weekly' AND ce.%1$s IS NOT NULL
+                ),
+                runs AS (
+                    SELECT cur.chart_id, cur.item_id, cur.period_start_date,
+                           MIN(h.position) as peak_position,
+                           COUNT(*) as weeks_on_chart,
+                           MAX(h.period_start_date < cur.period_start_date) as charted_before
+                    FROM history cur
+                    INNER JOIN history h ON h.item_id = cur.item_id AND h.period_start_date <= cur.period_start_date
+                    WHERE cur.period_start_date >= ?
+                    GROUP BY cur.chart_id, cur.item_id
+                )
+                INSERT OR REPLACE INTO chart_run_stats (chart_id, item_id, peak_position, times_at_peak, weeks_on_chart, charted_before)
+                SELECT r.chart_id, r.item_id, r.peak_position,
+                       (SELECT COUNT(*) FROM history h
+                        WHERE h.item_id = r.item_id
+                          AND h.period_start_date <= r.period_start_date
+                          AND h.position = r.peak_position),
+                       r.weeks_on_chart,
+                       r.charted_before
+                FROM runs r
+                """.formatted(idColumn), chartType, lowerBound);
+    }
+
+    /**
+     * Stats for every entry of one chart, keyed by song/album id.
+     */
+    public Map<Integer, RunStats> getStatsForChart(Integer chartId) {
+        Map<Integer, RunStats> stats = new HashMap<>();
+        jdbcTemplate.query("""
+                SELECT item_id, peak_position, times_at_peak, weeks_on_chart, charted_before
+                FROM chart_run_stats
+                WHERE chart_id = ?
+                """, rs -> {
+            stats.put(rs.getInt("item_id"), new RunStats(
+                    rs.getInt("peak_position"),
+                    rs.getInt("times_at_peak"),
+                    rs.getInt("weeks_on_chart"),
+                    rs.getInt("charted_before") == 1));
+        }, chartId);
+        return stats;
+    }
+
+    /**
+     * Removes stats rows whose chart no longer exists.
+     */
+    public void deleteOrphans() {
+        jdbcTemplate.update("DELETE FROM chart_run_stats WHERE chart_id NOT IN (SELECT id FROM Chart)");
+    }
+
+    private static String idColumn(String chartType) {
+        return "song".equals(chartType) ? "song_id" : "album_id";
+    }
+
+    public record RunStats(int peakPosition, int timesAtPeak, int weeksOnChart, boolean chartedBefore) {}
+}
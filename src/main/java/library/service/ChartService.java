@@ -18,8 +18,8 @@ import java.util.stream.Collectors;
 @Service
 public class ChartService {
     
-    private static final int TOP_SONGS_COUNT = 20;
-    private static final int TOP_ALBUMS_COUNT = 10;
+    static final int TOP_SONGS_COUNT = 20;
+    static final int TOP_ALBUMS_COUNT = 10;
     
     private final ChartRepository chartRepository;
     private final ChartEntryRepository chartEntryRepository;
@@ -27,18 +27,26 @@ public class ChartService {
     private final ItunesService itunesService;
     private final AppConfigService appConfigService;
     private final SongLinkService songLinkService;
+    private final WeeklyChartBackfillService weeklyChartBackfillService;
+    private final ChartRunStatsService chartRunStatsService;
+    private final SqliteWriteQueue writeQueue;
     
     // Progress tracking for bulk generation
     private final ConcurrentHashMap<String, ChartGenerationProgressDTO> generationProgress = new ConcurrentHashMap<>();
     
     public ChartService(ChartRepository chartRepository, ChartEntryRepository chartEntryRepository, JdbcTemplate jdbcTemplate, ItunesService itunesService,
-                        AppConfigService appConfigService, SongLinkService songLinkService) {
+                        AppConfigService appConfigService, SongLinkService songLinkService,
+                        WeeklyChartBackfillService weeklyChartBackfillService, ChartRunStatsService chartRunStatsService,
+                        SqliteWriteQueue writeQueue) {
         this.chartRepository = chartRepository;
         this.chartEntryRepository = chartEntryRepository;
         this.jdbcTemplate = jdbcTemplate;
         this.itunesService = itunesService;
         this.appConfigService = appConfigService;
         this.songLinkService = songLinkService;
+        this.weeklyChartBackfillService = weeklyChartBackfillService;
+        this.chartRunStatsService = chartRunStatsService;
+        this.writeQueue = writeQueue;
     }
     
     /**
@@ -126,6 +134,7 @@ public class ChartService {
 
         Chart chart = chartOpt.get();
         List<Object[]> rawEntries = chartEntryRepository.findEntriesWithSongDetailsRaw(chart.getId());
+        Map<Integer, ChartRunStatsService.RunStats> runStats = chartRunStatsService.getStatsForChart(chart.getId());
 
         Optional<Chart> prevChartOpt = chartRepository.findPreviousChart("song", periodKey);
         Map<Integer, Integer> lastWeekPositions = new HashMap<>();
@@ -143,8 +152,7 @@ public class ChartService {
         }
 
         List<ChartEntryDTO> result = new ArrayList<>();
-        for (int currentChartIndex = 0; currentChartIndex < rawEntries.size(); currentChartIndex++) {
-            Object[] row = rawEntries.get(currentChartIndex);
+        for (Object[] row : rawEntries) {
 
             ChartEntryDTO dto = new ChartEntryDTO();
             dto.setPosition((Integer) row[2]);
@@ -161,17 +169,16 @@ public class ChartService {
             dto.setGenreName(row[13] != null ? (String) row[13] : null);
 
             Integer songId = dto.getSongId();
+            ChartRunStatsService.RunStats stats = runStats.get(songId);
             if (lastWeekPositions.containsKey(songId)) {
                 dto.setLastWeekPosition(lastWeekPositions.get(songId));
                 dto.setLastWeekPlayCount(lastWeekPlayCounts.get(songId));
-            } else {
-                boolean wasOnPreviousChart = checkIfSongWasOnPreviousChart(songId, periodKey, prevChartOpt.map(Chart::getPeriodKey).orElse(null));
-                if (wasOnPreviousChart) {
-                    dto.setLastWeekPosition(-1);
-                }
+            } else if (stats != null && stats.chartedBefore()) {
+                // Charted before, but not last week: re-entry
+                dto.setLastWeekPosition(-1);
             }
 
-            calculateChartRunStats(dto, songId, periodKey, currentChartIndex);
+            applyChartRunStats(dto, stats);
             result.add(dto);
         }
 
@@ -217,6 +224,8 @@ public class ChartService {
         if (!entries.isEmpty()) {
             chartEntryRepository.saveAll(entries);
         }
+        chartEntryRepository.flush();
+        chartRunStatsService.refreshFrom("song", dateRange[0].toString());
     }
 
     /**
@@ -245,6 +254,8 @@ public class ChartService {
         if (!entries.isEmpty()) {
             chartEntryRepository.saveAll(entries);
         }
+        chartEntryRepository.flush();
+        chartRunStatsService.refreshFrom("album", dateRange[0].toString());
     }
 
     public List<ChartEntryDTO> getWeeklyChartFallOffs(String periodKey, List<ChartEntryDTO> currentEntries) {
@@ -294,6 +305,7 @@ public class ChartService {
         
         // Get chart entries with album details
         List<Object[]> rawEntries = chartEntryRepository.findEntriesWithAlbumDetailsRaw(chart.getId());
+        Map<Integer, ChartRunStatsService.RunStats> runStats = chartRunStatsService.getStatsForChart(chart.getId());
         
         // Get previous chart for last week comparison
         Optional<Chart> prevChartOpt = chartRepository.findPreviousChart("album", periodKey);
@@ -326,21 +338,18 @@ public class ChartService {
             dto.setGenreName(row[11] != null ? (String) row[11] : null);
             
             Integer albumId = dto.getAlbumId();
+            ChartRunStatsService.RunStats stats = runStats.get(albumId);
             
             // Last week position
             if (lastWeekPositions.containsKey(albumId)) {
                 dto.setLastWeekPosition(lastWeekPositions.get(albumId));
                 dto.setLastWeekPlayCount(lastWeekPlayCounts.get(albumId));
-            } else {
-                // Check if this is a re-entry
-                boolean wasOnPreviousChart = checkIfAlbumWasOnPreviousChart(albumId, periodKey, prevChartOpt.map(Chart::getPeriodKey).orElse(null));
-                if (wasOnPreviousChart) {
-                    dto.setLastWeekPosition(-1); // -1 indicates re-entry
-                }
+            } else if (stats != null && stats.chartedBefore()) {
+                dto.setLastWeekPosition(-1); // -1 indicates re-entry
             }
             
-            // Calculate peak, times at peak, and weeks on chart for albums
-            calculateAlbumChartRunStats(dto, albumId, periodKey);
+            // Peak, times at peak, and weeks on chart as of this week
+            applyChartRunStats(dto, stats);
             
             result.add(dto);
         }
@@ -384,7 +393,7 @@ public class ChartService {
             INNER JOIN Artist ar ON s.artist_id = ar.id
             LEFT JOIN Album al ON s.album_id = al.id
             LEFT JOIN Gender g ON ar.gender_id = g.id
-            WHERE DATE(p.play_date) >= ? AND DATE(p.play_date) <= ?
+            WHERE p.play_day >= ? AND p.play_day <= ?
               AND p.song_id IS NOT NULL
             GROUP BY s.id
             ORDER BY play_count DESC, MAX(p.play_date) ASC
@@ -409,7 +418,7 @@ public class ChartService {
             dto.setAlbumHasImage(rs.getInt("album_has_image") == 1);
             dto.setGenreName(rs.getString("genre_name"));
             result.add(dto);
-        }, startDate.toString(), endDate.toString(), TOP_SONGS_COUNT);
+        }, PlayDayIndexService.toDayNumber(startDate), PlayDayIndexService.toDayNumber(endDate), TOP_SONGS_COUNT);
 
         enrichWeeklySongPreviewStats(result, periodKey);
         return result;
@@ -436,7 +445,7 @@ public class ChartService {
                 INNER JOIN Artist ar ON s.artist_id = ar.id
                 LEFT JOIN Album al ON s.album_id = al.id
                 LEFT JOIN song_link_group_member slgm ON slgm.song_id = s.id
-                WHERE DATE(p.play_date) >= ? AND DATE(p.play_date) <= ?
+                WHERE p.play_day >= ? AND p.play_day <= ?
                   AND p.song_id IS NOT NULL
             ),
             group_stats AS (
@@ -491,7 +500,7 @@ public class ChartService {
             dto.setAlbumHasImage(rs.getInt("album_has_image") == 1);
             dto.setGenreName(rs.getString("genre_name"));
             result.add(dto);
-        }, startDate.toString(), endDate.toString(), TOP_SONGS_COUNT);
+        }, PlayDayIndexService.toDayNumber(startDate), PlayDayIndexService.toDayNumber(endDate), TOP_SONGS_COUNT);
 
         enrichWeeklySongPreviewStats(result, startDate);
         return result;
@@ -506,45 +515,70 @@ public class ChartService {
         if (entries == null || entries.isEmpty()) {
             return;
         }
+        List<Integer> songIds = entries.stream()
+                .filter(Objects::nonNull)
+                .map(ChartEntryDTO::getSongId)
+                .filter(Objects::nonNull)
+                .distinct()
+                .toList();
+        Map<Integer, Integer> groupIds = songLinkService.getGroupIdsForSongs(songIds);
+        Map<Integer, List<Map<String, Object>>> rowsByGroup = getLinkedGroupPlayRows(groupIds.values(), startDate, endDate);
+
         for (ChartEntryDTO entry : entries) {
             if (entry == null || entry.getSongId() == null) {
                 continue;
             }
-            List<String> playBreakdownItems = getSongPlayBreakdownItems(entry.getSongId(), entry.getArtistName(), startDate, endDate);
+            Integer groupId = groupIds.get(entry.getSongId());
+            List<Map<String, Object>> rows = groupId != null ? rowsByGroup.getOrDefault(groupId, List.of()) : List.of();
+            List<String> playBreakdownItems = formatSongPlayBreakdownItems(rows, entry.getArtistName());
             entry.setPlayBreakdownItems(playBreakdownItems);
             entry.setPlayBreakdown(playBreakdownItems.isEmpty() ? null : String.join("\n", playBreakdownItems));
         }
     }
 
-    private List<String> getSongPlayBreakdownItems(Integer songId, String representativeArtistName, LocalDate startDate, LocalDate endDate) {
-        List<Integer> linkedSongIds = songLinkService.getLinkedSongIds(songId);
-        if (linkedSongIds == null || linkedSongIds.size() <= 1) {
-            return List.of();
+    /**
+     * Per-song play counts in the date range for every song of the given link groups, in one
+     * query for the whole chart, keyed by group id.
+     */
+    private Map<Integer, List<Map<String, Object>>> getLinkedGroupPlayRows(Collection<Integer> groupIds,
+                                                                          LocalDate startDate, LocalDate endDate) {
+        List<Integer> distinctGroupIds = groupIds.stream().distinct().toList();
+        if (distinctGroupIds.isEmpty()) {
+            return Map.of();
         }
 
         String sql = """
             SELECT
+                m.group_id as group_id,
                 s.id as song_id,
                 s.name as song_name,
                 ar.name as artist_name,
                 al.name as album_name,
                 COUNT(*) as play_count
-            FROM Play p
+            FROM song_link_group_member m
+            INNER JOIN Play p ON p.song_id = m.song_id
             INNER JOIN Song s ON p.song_id = s.id
             INNER JOIN Artist ar ON s.artist_id = ar.id
             LEFT JOIN Album al ON s.album_id = al.id
-            WHERE p.song_id IN (%s)
-              AND DATE(p.play_date) >= ?
-              AND DATE(p.play_date) <= ?
-            GROUP BY s.id, s.name, ar.name, al.name
-            ORDER BY play_count DESC, lower(s.name) ASC, s.id ASC
-            """.formatted(String.join(",", linkedSongIds.stream().map(id -> "?").toList()));
+            WHERE m.group_id IN (%s)
+              AND p.play_day >= ?
+              AND p.play_day <= ?
+            GROUP BY m.group_id, s.id, s.name, ar.name, al.name
+            ORDER BY m.group_id, play_count DESC, lower(s.name) ASC, s.id ASC
+            """.formatted(String.join(",", distinctGroupIds.stream().map(id -> "?").toList()));
 
-        List<Object> params = new ArrayList<>(linkedSongIds);
-        params.add(startDate.toString());
-        params.add(endDate.toString());
+        List<Object> params = new ArrayList<>(distinctGroupIds);
+        params.add(PlayDayIndexService.toDayNumber(startDate));
+        params.add(PlayDayIndexService.toDayNumber(endDate));
 
-        List<Map<String, Object>> rows = jdbcTemplate.queryForList(sql, params.toArray());
+        Map<Integer, List<Map<String, Object>>> rowsByGroup = new HashMap<>();
+        for (Map<String, Object> row : jdbcTemplate.queryForList(sql, params.toArray())) {
+            rowsByGroup.computeIfAbsent(((Number) row.get("group_id")).intValue(), id -> new ArrayList<>()).add(row);
+        }
+        return rowsByGroup;
+    }
+
+    private List<String> formatSongPlayBreakdownItems(List<Map<String, Object>> rows, String representativeArtistName) {
         if (rows.size() <= 1) {
             return List.of();
         }
@@ -616,8 +650,8 @@ public class ChartService {
                    al.name as album_name,
                    COUNT(DISTINCT cw.period_key) as contributed_weeks
             FROM chart_weeks cw
-            INNER JOIN Play p ON DATE(p.play_date) >= cw.period_start_date
-                              AND DATE(p.play_date) <= cw.period_end_date
+            INNER JOIN Play p ON p.play_day >= CAST(REPLACE(cw.period_start_date, '-', '') AS INTEGER)
+                              AND p.play_day <= CAST(REPLACE(cw.period_end_date, '-', '') AS INTEGER)
             INNER JOIN Song s ON s.id = p.song_id
             INNER JOIN Artist ar ON s.artist_id = ar.id
             LEFT JOIN Album al ON s.album_id = al.id
@@ -780,7 +814,7 @@ public class ChartService {
             INNER JOIN Album al ON s.album_id = al.id
             INNER JOIN Artist ar ON al.artist_id = ar.id
             LEFT JOIN Gender g ON ar.gender_id = g.id
-            WHERE DATE(p.play_date) >= ? AND DATE(p.play_date) <= ?
+            WHERE p.play_day >= ? AND p.play_day <= ?
               AND p.song_id IS NOT NULL
               AND s.album_id IS NOT NULL
             GROUP BY al.id
@@ -803,7 +837,7 @@ public class ChartService {
             dto.setHasImage(rs.getInt("has_image") == 1);
             dto.setGenreName(rs.getString("genre_name"));
             result.add(dto);
-        }, startDate.toString(), endDate.toString(), TOP_ALBUMS_COUNT);
+        }, PlayDayIndexService.toDayNumber(startDate), PlayDayIndexService.toDayNumber(endDate), TOP_ALBUMS_COUNT);
 
         enrichWeeklyAlbumPreviewStats(result, periodKey);
         return result;
@@ -973,125 +1007,19 @@ public class ChartService {
     }
     
     /**
-     * Check if an album was on any chart before the previous chart (for re-entry detection).
+     * Copy persisted peak position, times at peak, and weeks on chart onto an entry.
+     * Falls back to a first-week run when no stats row exists.
      */
-    private boolean checkIfAlbumWasOnPreviousChart(Integer albumId, String currentPeriodKey, String previousPeriodKey) {
-        String sql = """
-            SELECT COUNT(*) FROM ChartEntry ce
-            INNER JOIN Chart c ON ce.chart_id = c.id
-            WHERE ce.album_id = ?
-              AND c.chart_type = 'album'
-              AND c.period_type = 'weekly'
-              AND c.period_start_date < (SELECT period_start_date FROM Chart WHERE period_key = ? AND chart_type = 'album' AND period_type = 'weekly')
-              AND c.period_key != COALESCE(?, '')
-            """;
-        Integer count = jdbcTemplate.queryForObject(sql, Integer.class, albumId, currentPeriodKey, previousPeriodKey);
-        return count != null && count > 0;
-    }
-    
-    /**
-     * Calculate peak position, times at peak, and weeks on chart for an album.
-     */
-    private void calculateAlbumChartRunStats(ChartEntryDTO dto, Integer albumId, String currentPeriodKey) {
-        String sql = """
-            SELECT ce.position, c.period_key
-            FROM ChartEntry ce
-            INNER JOIN Chart c ON ce.chart_id = c.id
-            WHERE ce.album_id = ?
-              AND c.chart_type = 'album'
-              AND c.period_type = 'weekly'
-              AND c.period_start_date <= (SELECT period_start_date FROM Chart WHERE period_key = ? AND chart_type = 'album' AND period_type = 'weekly')
-            ORDER BY c.period_start_date ASC
-            """;
-        
-        List<Map<String, Object>> history = jdbcTemplate.queryForList(sql, albumId, currentPeriodKey);
-        
-        if (history.isEmpty()) {
+    private void applyChartRunStats(ChartEntryDTO dto, ChartRunStatsService.RunStats stats) {
+        if (stats == null) {
             dto.setPeakPosition(dto.getPosition());
             dto.setTimesAtPeak(1);
             dto.setWeeksOnChart(1);
             return;
         }
-        
-        int peak = Integer.MAX_VALUE;
-        int timesAtPeak = 0;
-        int weeksOnChart = history.size();
-        
-        for (Map<String, Object> row : history) {
-            int position = ((Number) row.get("position")).intValue();
-            if (position < peak) {
-                peak = position;
-                timesAtPeak = 1;
-            } else if (position == peak) {
-                timesAtPeak++;
-            }
-        }
-        
-        dto.setPeakPosition(peak);
-        dto.setTimesAtPeak(timesAtPeak);
-        dto.setWeeksOnChart(weeksOnChart);
-    }
-    
-    /**
-     * Check if a song was on any chart before the previous chart (for re-entry detection).
-     * Only looks at charts BEFORE the current one (by period_start_date) and excludes
-     * the immediate previous chart.
-     */
-    private boolean checkIfSongWasOnPreviousChart(Integer songId, String currentPeriodKey, String previousPeriodKey) {
-        String sql = """
-            SELECT COUNT(*) FROM ChartEntry ce
-            INNER JOIN Chart c ON ce.chart_id = c.id
-            WHERE ce.song_id = ?
-              AND c.chart_type = 'song'
-              AND c.period_type = 'weekly'
-              AND c.period_start_date < (SELECT period_start_date FROM Chart WHERE period_key = ? AND chart_type = 'song' AND period_type = 'weekly')
-              AND c.period_key != COALESCE(?, '')
-            """;
-        Integer count = jdbcTemplate.queryForObject(sql, Integer.class, songId, currentPeriodKey, previousPeriodKey);
-        return count != null && count > 0;
-    }
-    
-    /**
-     * Calculate peak position, times at peak, and weeks on chart for a song.
-     */
-    private void calculateChartRunStats(ChartEntryDTO dto, Integer songId, String currentPeriodKey, int currentChartIndex) {
-        String sql = """
-            SELECT ce.position, c.period_key
-            FROM ChartEntry ce
-            INNER JOIN Chart c ON ce.chart_id = c.id
-            WHERE ce.song_id = ?
-              AND c.chart_type = 'song'
-              AND c.period_type = 'weekly'
-              AND c.period_start_date <= (SELECT period_start_date FROM Chart WHERE period_key = ? AND chart_type = 'song' AND period_type = 'weekly')
-            ORDER BY c.period_start_date ASC
-            """;
-        
-        List<Map<String, Object>> history = jdbcTemplate.queryForList(sql, songId, currentPeriodKey);
-        
-        if (history.isEmpty()) {
-            dto.setPeakPosition(dto.getPosition());
-            dto.setTimesAtPeak(1);
-            dto.setWeeksOnChart(1);
-            return;
-        }
-        
-        int peak = Integer.MAX_VALUE;
-        int timesAtPeak = 0;
-        int weeksOnChart = history.size();
-        
-        for (Map<String, Object> row : history) {
-            int position = ((Number) row.get("position")).intValue();
-            if (position < peak) {
-                peak = position;
-                timesAtPeak = 1;
-            } else if (position == peak) {
-                timesAtPeak++;
-            }
-        }
-        
-        dto.setPeakPosition(peak);
-        dto.setTimesAtPeak(timesAtPeak);
-        dto.setWeeksOnChart(weeksOnChart);
+        dto.setPeakPosition(stats.peakPosition());
+        dto.setTimesAtPeak(stats.timesAtPeak());
+        dto.setWeeksOnChart(stats.weeksOnChart());
     }
     
     /**
@@ -1225,21 +1153,8 @@ public class ChartService {
         // Start generation in a separate thread
         Thread generationThread = new Thread(() -> {
             try {
-                for (int i = 0; i < missingWeeks.size(); i++) {
-                    String week = missingWeeks.get(i);
-                    progress.setCurrentWeek(week);
-                    progress.setCompletedWeeks(i);
-                    
-                    try {
-                        // Generate both song and album charts
-                        generateWeeklyCharts(week);
-                    } catch (Exception e) {
-                        // Log but continue with other weeks
-                        System.err.println("Error generating chart for " + week + ": " + e.getMessage());
-                    }
-                    
-                    progress.setCompletedWeeks(i + 1);
-                }
+                // Rank and write song and album charts for all weeks in chunked single passes
+                weeklyChartBackfillService.backfill(missingWeeks, progress);
                 progress.setComplete(true);
                 progress.setCurrentWeek(null);
             } catch (Exception e) {
@@ -1321,6 +1236,12 @@ public class ChartService {
             DELETE FROM Chart 
             WHERE period_key = ? AND (chart_type = 'song' OR chart_type = 'album') AND period_type = 'weekly'
             """, periodKey);
+
+        // Later weeks counted this week in their runs
+        chartRunStatsService.deleteOrphans();
+        String periodStartDate = parsePeriodKeyToDateRange(periodKey)[0].toString();
+        chartRunStatsService.refreshFrom("song", periodStartDate);
+        chartRunStatsService.refreshFrom("album", periodStartDate);
     }
 
     /**
@@ -1343,6 +1264,7 @@ public class ChartService {
             DELETE FROM Chart 
             WHERE (chart_type = 'song' OR chart_type = 'album') AND period_type = 'weekly'
             """);
+        chartRunStatsService.deleteOrphans();
     }
 
     /**
@@ -1392,23 +1314,8 @@ public class ChartService {
                 // First, delete ALL weekly charts (including any buggy ones like W00)
                 deleteAllWeeklyCharts();
                 
-                // Now generate fresh charts from play data
-                for (int i = 0; i < weeksToGenerate.size(); i++) {
-                    String week = weeksToGenerate.get(i);
-                    progress.setCurrentWeek(week);
-                    progress.setCompletedWeeks(i);
-
-                    try {
-                        // Generate both song and album charts
-                        generateWeeklySongChart(week);
-                        generateWeeklyAlbumChart(week);
-                    } catch (Exception e) {
-                        // Log but continue with other weeks
-                        System.err.println("Error generating chart for " + week + ": " + e.getMessage());
-                    }
-
-                    progress.setCompletedWeeks(i + 1);
-                }
+                // Now generate fresh charts from play data in chunked single passes
+                weeklyChartBackfillService.backfill(weeksToGenerate, progress);
                 progress.setComplete(true);
                 progress.setCurrentWeek(null);
             } catch (Exception e) {
@@ -1431,7 +1338,7 @@ public class ChartService {
      * - Week 01: Starts from the first Monday of the year
      * - Week N: Starts from first Monday + (N-1)*7 days
      */
-    private LocalDate[] parsePeriodKeyToDateRange(String periodKey) {
+    static LocalDate[] parsePeriodKeyToDateRange(String periodKey) {
         // Format: YYYY-WXX where XX is week number (00-53)
         String[] parts = periodKey.split("-W");
         int year = Integer.parseInt(parts[0]);
@@ -2230,8 +2137,11 @@ public class ChartService {
      * @param entries List of maps with {position: int, itemId: int} where itemId is song_id or album_id
      * @param chartType "song" or "album"
      */
-    @Transactional
     public void saveChartEntries(Integer chartId, List<Map<String, Integer>> entries, String chartType) {
+        writeQueue.run(() -> replaceChartEntries(chartId, entries, chartType));
+    }
+    
+    private void replaceChartEntries(Integer chartId, List<Map<String, Integer>> entries, String chartType) {
         // Verify chart exists and is not finalized
         Chart chart = chartRepository.findById(chartId)
             .orElseThrow(() -> new IllegalArgumentException("Chart not found: " + chartId));
@@ -2745,8 +2655,8 @@ public class ChartService {
 
         // Subquery to count plays within the period date range
         String playCountSubquery = "song".equals(chartType)
-            ? "(SELECT COUNT(*) FROM Play sc WHERE sc.song_id = item.id AND DATE(sc.play_date) >= c.period_start_date AND DATE(sc.play_date) <= c.period_end_date)"
-            : "(SELECT COUNT(*) FROM Play sc INNER JOIN Song s ON sc.song_id = s.id WHERE s.album_id = item.id AND DATE(sc.play_date) >= c.period_start_date AND DATE(sc.play_date) <= c.period_end_date)";
+            ? "(SELECT COUNT(*) FROM Play sc WHERE sc.song_id = item.id AND sc.play_day >= CAST(REPLACE(c.period_start_date, '-', '') AS INTEGER) AND sc.play_day <= CAST(REPLACE(c.period_end_date, '-', '') AS INTEGER))"
+            : "(SELECT COUNT(*) FROM Play sc INNER JOIN Song s ON sc.song_id = s.id WHERE s.album_id = item.id AND sc.play_day >= CAST(REPLACE(c.period_start_date, '-', '') AS INTEGER) AND sc.play_day <= CAST(REPLACE(c.period_end_date, '-', '') AS INTEGER))";
 
         String genreSubquery2 = "song".equals(chartType)
             ? "(SELECT g.name FROM Genre g WHERE g.id = COALESCE(item.override_genre_id, (SELECT al2.override_genre_id FROM Album al2 WHERE al2.id = item.album_id), ar.genre_id)) as genre_name"
@@ -1,6 +1,7 @@
 package library.service;
 
 import library.dto.GlobalSearchResultDTO;
+import library.service.SearchIndexService.Kind;
 import library.util.StringNormalizer;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
@@ -15,9 +16,11 @@ public class GlobalSearchService {
     private static final int MAX_LIMIT_PER_TYPE = 20;
 
     private final JdbcTemplate jdbcTemplate;
+    private final SearchIndexService searchIndexService;
 
-    public GlobalSearchService(JdbcTemplate jdbcTemplate) {
+    public GlobalSearchService(JdbcTemplate jdbcTemplate, SearchIndexService searchIndexService) {
         this.jdbcTemplate = jdbcTemplate;
+        this.searchIndexService = searchIndexService;
     }
 
     public List<GlobalSearchResultDTO> search(String query, int limitPerType) {
@@ -45,20 +48,19 @@ public class GlobalSearchService {
     }
 
     private List<GlobalSearchResultDTO> searchArtists(String wildcardQuery, String exactQuery, String startsWithQuery, int limit) {
-        String artistName = StringNormalizer.sqlNormalizeColumn("a.name");
         String sql = """
             SELECT a.id, a.name,
                    CASE WHEN a.image IS NOT NULL THEN 1 ELSE 0 END as has_image
-            FROM Artist a
-            WHERE %s LIKE ?
+            FROM (%s) m
+            JOIN Artist a ON a.id = m.item_id
             ORDER BY CASE
-                         WHEN %s = ? THEN 0
-                         WHEN %s LIKE ? THEN 1
+                         WHEN m.folded = ? THEN 0
+                         WHEN m.folded LIKE ? THEN 1
                          ELSE 2
                      END,
                      a.name
             LIMIT ?
-            """.formatted(artistName, artistName, artistName);
+            """.formatted(SearchIndexService.matchesSql(Kind.ARTIST));
 
         return jdbcTemplate.query(sql, (rs, rowNum) -> new GlobalSearchResultDTO(
             "artist",
@@ -72,7 +74,6 @@ public class GlobalSearchService {
     }
 
     private List<GlobalSearchResultDTO> searchAlbums(String wildcardQuery, String exactQuery, String startsWithQuery, int limit) {
-        String albumName = StringNormalizer.sqlNormalizeColumn("al.name");
         String sql = """
             SELECT al.id, al.name, ar.name as artist_name,
                    CASE
@@ -80,17 +81,17 @@ public class GlobalSearchService {
                             OR EXISTS (SELECT 1 FROM AlbumImage ai WHERE ai.album_id = al.id)
                        THEN 1 ELSE 0
                    END as has_image
-            FROM Album al
+            FROM (%s) m
+            JOIN Album al ON al.id = m.item_id
             JOIN Artist ar ON al.artist_id = ar.id
-            WHERE %s LIKE ?
             ORDER BY CASE
-                         WHEN %s = ? THEN 0
-                         WHEN %s LIKE ? THEN 1
+                         WHEN m.folded = ? THEN 0
+                         WHEN m.folded LIKE ? THEN 1
                          ELSE 2
                      END,
                      al.name
             LIMIT ?
-            """.formatted(albumName, albumName, albumName);
+            """.formatted(SearchIndexService.matchesSql(Kind.ALBUM));
 
         return jdbcTemplate.query(sql, (rs, rowNum) -> new GlobalSearchResultDTO(
             "album",
@@ -104,7 +105,6 @@ public class GlobalSearchService {
     }
 
     private List<GlobalSearchResultDTO> searchSongs(String wildcardQuery, String exactQuery, String startsWithQuery, int limit) {
-        String songName = StringNormalizer.sqlNormalizeColumn("s.name");
         String sql = """
             SELECT s.id, s.name, ar.name as artist_name,
                    CASE
@@ -113,18 +113,18 @@ public class GlobalSearchService {
                             OR al.image IS NOT NULL
                        THEN 1 ELSE 0
                    END as has_image
-            FROM Song s
+            FROM (%s) m
+            JOIN Song s ON s.id = m.item_id
             JOIN Artist ar ON s.artist_id = ar.id
             LEFT JOIN Album al ON s.album_id = al.id
-            WHERE %s LIKE ?
             ORDER BY CASE
-                         WHEN %s = ? THEN 0
-                         WHEN %s LIKE ? THEN 1
+                         WHEN m.folded = ? THEN 0
+                         WHEN m.folded LIKE ? THEN 1
                          ELSE 2
                      END,
                      s.name
             LIMIT ?
-            """.formatted(songName, songName, songName);
+            """.formatted(SearchIndexService.matchesSql(Kind.SONG));
 
         return jdbcTemplate.query(sql, (rs, rowNum) -> new GlobalSearchResultDTO(
             "song",
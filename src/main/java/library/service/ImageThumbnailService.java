@@ -0,0 +1,247 @@
+package library.service;
+
+import jakarta.annotation.PostConstruct;
+import library.util.ImageUtil;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.WebRequest;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Serves artist, album and song images with pre-rendered thumbnail variants and strong ETags.
+ *
+ * Every write that can change what an entity displays bumps its row in image_version (triggers
+ * on the image columns, the gallery tables and the artist themes), so a request learns the
+ * current version from one small lookup. The ETag is derived from that version and the size,
+ * and a matching If-None-Match gets its 304 without the source image being read. Resized
+ * variants are stored in image_thumbnail_cache keyed by (entity type, entity id, size) with the
+ * version they were rendered from; the source image is only read to re-render a stale variant
+ * or to send the original. A re-rendered variant is stored through {@link SqliteWriteQueue}. Responses carry Cache-Control: no-cache, so browsers revalidate.
+ */
+@Service
+public class ImageThumbnailService {
+
+    /** Variant sizes (longest side in pixels); requested sizes are rounded up to one of these. */
+    static final List<Integer> THUMBNAIL_SIZES = List.of(150, 300, 600);
+    static final int DEFAULT_THUMBNAIL_SIZE = 600;
+
+    private static final DateTimeFormatter TIMESTAMP_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    /**
+     * Bumps an entity's image version. Versions are millisecond timestamps (kept increasing for
+     * writes within one millisecond), so they also differ from any version a restored older
+     * database hands out again.
+     */
+    private static final String BUMP_VERSION = """
+            INSERT INTO image_version (entity_type, entity_id, version)
+            SELECT '%s', %s, CAST(unixepoch('subsec') * 1000 AS INTEGER) %s
+            ON CONFLICT (entity_type, entity_id) DO UPDATE SET version = MAX(version + 1, excluded.version);
+            """;
+
+    /**
+     * The current version of what each entity type displays, by entity id; no row when the
+     * entity does not exist. A song falls back to its album's image, so its version includes
+     * the album's.
+     */
+    private static final Map<String, String> VERSION_SQL = Map.of(
+            "song", """
+                    SELECT COALESCE(sv.version, 0) || '.' || COALESCE(av.version, 0)
+                    FROM Song s
+                    LEFT JOIN image_version sv ON sv.entity_type = 'song' AND sv.entity_id = s.id
+                    LEFT JOIN image_version av ON av.entity_type = 'album' AND av.entity_id = s.album_id
+                    WHERE s.id = ?
+                    """,
+            "album", """
+                    SELECT COALESCE(v.version, 0) FROM Album a
+                    LEFT JOIN image_version v ON v.entity_type = 'album' AND v.entity_id = a.id
+                    WHERE a.id = ?
+                    """,
+            "artist", """
+                    SELECT COALESCE(v.version, 0) FROM Artist a
+                    LEFT JOIN image_version v ON v.entity_type = 'artist' AND v.entity_id = a.id
+                    WHERE a.id = ?
+                    """);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SqliteWriteQueue writeQueue;
+
+    public ImageThumbnailService(JdbcTemplate jdbcTemplate, SqliteWriteQueue writeQueue) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.writeQueue = writeQueue;
+    }
+
+    @PostConstruct
+    public void initialize() {
+        jdbcTemplate.execute("""
+                CREATE TABLE IF NOT EXISTS image_thumbnail_cache (
+                    entity_type TEXT NOT NULL,
+                    entity_id INTEGER NOT NULL,
+                    size INTEGER NOT NULL,
+                    source_version TEXT NOT NULL,
+                    image BLOB NOT NULL,
+                    created_at TEXT NOT NULL,
+                    PRIMARY KEY (entity_type, entity_id, size)
+                ) WITHOUT ROWID
+                """);
+        jdbcTemplate.execute("""
+                CREATE TABLE IF NOT EXISTS image_version (
+                    entity_type TEXT NOT NULL,
+                    entity_id INTEGER NOT NULL,
+                    version INTEGER NOT NULL,
+                    PRIMARY KEY (entity_type, entity_id)
+                ) WITHOUT ROWID
+                """);
+
+        // Updates through JPA set every column, so the image triggers compare old and new values
+        createVersionTrigger("image_version_song_update", "AFTER UPDATE OF single_cover, album_id ON Song",
+                "NEW.single_cover IS NOT OLD.single_cover OR NEW.album_id IS NOT OLD.album_id", "song", "NEW.id");
+        createVersionTrigger("image_version_album_update", "AFTER UPDATE OF image ON Album",
+                "NEW.image IS NOT OLD.image", "album", "NEW.id");
+        createVersionTrigger("image_version_artist_update", "AFTER UPDATE OF image ON Artist",
+                "NEW.image IS NOT OLD.image", "artist", "NEW.id");
+        // Deleted ids keep a bumped version, so a reused id never answers to the old ETag
+        createVersionTrigger("image_version_song_delete", "AFTER DELETE ON Song", null, "song", "OLD.id");
+        createVersionTrigger("image_version_album_delete", "AFTER DELETE ON Album", null, "album", "OLD.id");
+        createVersionTrigger("image_version_artist_delete", "AFTER DELETE ON Artist", null, "artist", "OLD.id");
+        for (String[] gallery : new String[][]{
+                {"SongImage", "song", "song_id"}, {"AlbumImage", "album", "album_id"},
+                {"ArtistImage", "artist", "artist_id"}, {"ArtistImageTheme", "artist", "artist_id"}}) {
+            String prefix = "image_version_" + gallery[0].toLowerCase(Locale.ROOT);
+            createVersionTrigger(prefix + "_insert", "AFTER INSERT ON " + gallery[0], null, gallery[1], "NEW." + gallery[2]);
+            createVersionTrigger(prefix + "_delete", "AFTER DELETE ON " + gallery[0], null, gallery[1], "OLD." + gallery[2]);
+            jdbcTemplate.execute("""
+                    CREATE TRIGGER IF NOT EXISTS %s_update AFTER UPDATE ON %s
+                    BEGIN
+                        %s
+                        %s
+                    END
+                    """.formatted(prefix, gallery[0],
+                    BUMP_VERSION.formatted(gallery[1], "OLD." + gallery[2], ""),
+                    BUMP_VERSION.formatted(gallery[1], "NEW." + gallery[2], "")));
+        }
+        // Switching themes changes the image of every artist the theme assigns one to
+        jdbcTemplate.execute("""
+                CREATE TRIGGER IF NOT EXISTS image_version_artist_theme_update
+                AFTER UPDATE OF is_active ON ArtistTheme
+                WHEN NEW.is_active IS NOT OLD.is_active
+                BEGIN
+                    %s
+                END
+                """.formatted(BUMP_VERSION.formatted("artist", "artist_id",
+                "FROM ArtistImageTheme WHERE theme_id = NEW.id")));
+    }
+
+    private void createVersionTrigger(String name, String event, String when, String entityType, String entityId) {
+        jdbcTemplate.execute("""
+                CREATE TRIGGER IF NOT EXISTS %s %s
+                %s
+                BEGIN
+                    %s
+                END
+                """.formatted(name, event, when != null ? "WHEN " + when : "",
+                BUMP_VERSION.formatted(entityType, entityId, "")));
+    }
+
+    /**
+     * Builds the image response for an entity. With thumbnail or size set, the cached (or newly
+     * rendered) variant is returned; otherwise the source image itself. Returns 304 with no
+     * body when the client's If-None-Match matches, before the source is read.
+     *
+     * @param entityType cache namespace, e.g. "artist", "artist-raw", "album", "song"; the part
+     *                   before the first '-' names the entity whose image version applies
+     * @param source     reads the image the entity currently displays, which may be null
+     * @param size       requested longest side, or null for the default thumbnail size
+     */
+    public ResponseEntity<byte[]> imageResponse(String entityType, Integer entityId, Supplier<byte[]> source,
+                                                boolean thumbnail, Integer size, WebRequest webRequest) {
+        String version = currentVersion(entityType, entityId);
+        if (version == null) {
+            return ResponseEntity.ok().body(null);
+        }
+
+        int variantSize = thumbnail || size != null ? normalizeSize(size) : 0;
+        String etag = "\"" + entityType + "-" + entityId + "-" + version + "-" + variantSize + "\"";
+        if (webRequest != null && webRequest.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(etag)
+                    .cacheControl(CacheControl.noCache().cachePrivate())
+                    .build();
+        }
+
+        byte[] body = variantSize == 0
+                ? source.get()
+                : getThumbnail(entityType, entityId, source, version, variantSize);
+        if (body == null || body.length == 0) {
+            return ResponseEntity.ok().body(body);
+        }
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .body(body);
+    }
+
+    /**
+     * Drops every cached variant of an entity (all sizes and cache namespaces starting with
+     * the entity type, e.g. "artist" and "artist-raw").
+     */
+    public void invalidate(String entityType, Integer entityId) {
+        jdbcTemplate.update(
+                "DELETE FROM image_thumbnail_cache WHERE (entity_type = ? OR entity_type LIKE ? || '-%') AND entity_id = ?",
+                entityType, entityType, entityId);
+    }
+
+    static int normalizeSize(Integer requested) {
+        if (requested == null) {
+            return DEFAULT_THUMBNAIL_SIZE;
+        }
+        for (int size : THUMBNAIL_SIZES) {
+            if (requested <= size) {
+                return size;
+            }
+        }
+        return THUMBNAIL_SIZES.get(THUMBNAIL_SIZES.size() - 1);
+    }
+
+    private String currentVersion(String entityType, Integer entityId) {
+        String sql = VERSION_SQL.get(entityType.split("-", 2)[0]);
+        if (sql == null) {
+            throw new IllegalArgumentException("No image version for entity type " + entityType);
+        }
+        List<String> versions = jdbcTemplate.queryForList(sql, String.class, entityId);
+        return versions.isEmpty() ? null : versions.get(0);
+    }
+
+    private byte[] getThumbnail(String entityType, Integer entityId, Supplier<byte[]> source, String version, int size) {
+        List<byte[]> cached = jdbcTemplate.query(
+                "SELECT image FROM image_thumbnail_cache WHERE entity_type = ? AND entity_id = ? AND size = ? AND source_version = ?",
+                (rs, rowNum) -> rs.getBytes("image"),
+                entityType, entityId, size, version);
+        if (!cached.isEmpty()) {
+            return cached.get(0);
+        }
+
+        byte[] image = source.get();
+        if (image == null || image.length == 0) {
+            return image;
+        }
+        byte[] rendered = ImageUtil.resizeThumbnail(image, size);
+        writeQueue.run(() -> jdbcTemplate.update("""
+                INSERT INTO image_thumbnail_cache (entity_type, entity_id, size, source_version, image, created_at)
+                VALUES (?, ?, ?, ?, ?, ?)
+                ON CONFLICT (entity_type, entity_id, size) DO UPDATE SET
+                    source_version = excluded.source_version,
+                    image = excluded.image,
+                    created_at = excluded.created_at
+                """, entityType, entityId, size, version, rendered, LocalDateTime.now().format(TIMESTAMP_FORMAT)));
+        return rendered;
+    }
+}
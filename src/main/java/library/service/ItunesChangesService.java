@@ -4,7 +4,6 @@ import library.dto.*;
 import library.entity.ItunesSnapshot;
 import library.repository.ItunesSnapshotRepository;
 import library.service.ItunesService.ItunesSong;
-import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -24,14 +23,14 @@ public class ItunesChangesService {
 
     private final ItunesService itunesService;
     private final ItunesSnapshotRepository snapshotRepository;
-    private final JdbcTemplate jdbcTemplate;
+    private final SongMatchIndexService songMatchIndexService;
 
     public ItunesChangesService(ItunesService itunesService, 
                                  ItunesSnapshotRepository snapshotRepository,
-                                 JdbcTemplate jdbcTemplate) {
+                                 SongMatchIndexService songMatchIndexService) {
         this.itunesService = itunesService;
         this.snapshotRepository = snapshotRepository;
-        this.jdbcTemplate = jdbcTemplate;
+        this.songMatchIndexService = songMatchIndexService;
     }
 
     /**
@@ -63,9 +62,8 @@ public class ItunesChangesService {
         Map<String, ItunesSnapshot> snapshotByPersistentId = snapshotSongs.stream()
             .collect(Collectors.toMap(ItunesSnapshot::getPersistentId, s -> s, (a, b) -> a));
 
-        // Build database lookup for checking if songs exist
-        Set<String> dbSongKeys = buildDatabaseLookup();
-        Map<String, Long> dbSongKeyToId = buildDatabaseLookupWithIds();
+        // Database lookup for checking if songs exist (strict song key -> song id)
+        Map<String, Integer> dbSongKeyToId = songMatchIndexService.strictLookup();
 
         List<ItunesChangedSongDTO> changedSongs = new ArrayList<>();
         List<ItunesAddedSongDTO> addedSongs = new ArrayList<>();
@@ -81,8 +79,8 @@ public class ItunesChangesService {
             if (snapshot == null) {
                 // New song - added to iTunes
                 String key = createSongLookupKey(current.getArtist(), current.getAlbum(), current.getName());
-                boolean found = dbSongKeys.contains(key);
-                Long songId = dbSongKeyToId.get(key);
+                boolean found = dbSongKeyToId.containsKey(key);
+                Long songId = findSongId(dbSongKeyToId, key);
                 
                 addedSongs.add(new ItunesAddedSongDTO(
                     persistentId,
@@ -107,8 +105,8 @@ public class ItunesChangesService {
                 if (artistChanged || albumArtistChanged || albumChanged || nameChanged || lengthChanged || genreChanged) {
                     // Something changed - check if new values are in database
                     String key = createSongLookupKey(current.getArtist(), current.getAlbum(), current.getName());
-                    boolean found = dbSongKeys.contains(key);
-                    Long songId = dbSongKeyToId.get(key);
+                    boolean found = dbSongKeyToId.containsKey(key);
+                    Long songId = findSongId(dbSongKeyToId, key);
 
                     changedSongs.add(new ItunesChangedSongDTO(
                         persistentId,
@@ -139,8 +137,8 @@ public class ItunesChangesService {
             if (!currentByPersistentId.containsKey(persistentId)) {
                 // Check if the removed song exists in our database
                 String key = createSongLookupKey(snapshot.getArtist(), snapshot.getAlbum(), snapshot.getName());
-                boolean found = dbSongKeys.contains(key);
-                Long songId = dbSongKeyToId.get(key);
+                boolean found = dbSongKeyToId.containsKey(key);
+                Long songId = findSongId(dbSongKeyToId, key);
                 
                 removedSongs.add(new ItunesRemovedSongDTO(
                     persistentId,
@@ -276,46 +274,8 @@ public class ItunesChangesService {
         return itunesService.createStrictSongLookupKey(artist, album, song);
     }
 
-    private Set<String> buildDatabaseLookup() {
-        Set<String> keys = new HashSet<>();
-
-        String sql = """
-            SELECT ar.name as artist_name, al.name as album_name, s.name as song_name
-            FROM Song s
-            INNER JOIN Artist ar ON s.artist_id = ar.id
-            LEFT JOIN Album al ON s.album_id = al.id
-            """;
-
-        jdbcTemplate.query(sql, rs -> {
-            String artistName = rs.getString("artist_name");
-            String albumName = rs.getString("album_name");
-            String songName = rs.getString("song_name");
-            String key = createSongLookupKey(artistName, albumName, songName);
-            keys.add(key);
-        });
-
-        return keys;
-    }
-
-    private Map<String, Long> buildDatabaseLookupWithIds() {
-        Map<String, Long> keyToId = new HashMap<>();
-
-        String sql = """
-            SELECT s.id as song_id, ar.name as artist_name, al.name as album_name, s.name as song_name
-            FROM Song s
-            INNER JOIN Artist ar ON s.artist_id = ar.id
-            LEFT JOIN Album al ON s.album_id = al.id
-            """;
-
-        jdbcTemplate.query(sql, rs -> {
-            Long songId = rs.getLong("song_id");
-            String artistName = rs.getString("artist_name");
-            String albumName = rs.getString("album_name");
-            String songName = rs.getString("song_name");
-            String key = createSongLookupKey(artistName, albumName, songName);
-            keyToId.put(key, songId);
-        });
-
-        return keyToId;
+    private static Long findSongId(Map<String, Integer> songKeyToId, String key) {
+        Integer songId = songKeyToId.get(key);
+        return songId != null ? songId.longValue() : null;
     }
 }
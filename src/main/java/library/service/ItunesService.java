@@ -1,15 +1,15 @@
 package library.service;
 
+import jakarta.annotation.PostConstruct;
+import library.dto.ItunesIdSource;
+import library.util.ItunesLibraryReader;
+import library.util.SongMatchKeyStore;
 import library.util.StringNormalizer;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.stereotype.Service;
-import org.w3c.dom.*;
 
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
 import java.io.File;
-import java.io.InputStream;
 import java.util.*;
 
 /**
@@ -17,12 +17,20 @@ import java.util.*;
  * in iTunes but not in the Music Stats database.
  * 
  * Caches the parsed iTunes data in memory and only re-parses when the file changes.
+ * The catalog songs, albums and artists found in the library are materialized into the
+ * itunes_presence table after each parse, so "in iTunes" filters and presence ratios are
+ * index lookups instead of JSON id lists re-parsed on every query.
  */
 @Service
 public class ItunesService {
 
+    public static final String SONG_PRESENCE = "song";
+    public static final String ALBUM_PRESENCE = "album";
+    public static final String ARTIST_PRESENCE = "artist";
+
     private final JdbcTemplate jdbcTemplate;
     private final iTunesLibraryService iTunesLibraryService;
+    private final SqliteWriteQueue writeQueue;
 
     // ============ Cache Fields ============
     private Set<String> cachedSongKeys = null;
@@ -31,13 +39,23 @@ public class ItunesService {
     private List<ItunesSong> cachedAllSongs = null;  // Full song list for iTunes Only page
     private long cachedFileLastModified = 0;
     private String cachedFilePath = null;
-    private String cachedSongIdsJson = null;
-    private String cachedAlbumIdsJson = null;
-    private String cachedArtistIdsJson = null;
+    private Map<String, Integer> presenceCounts = null;  // Rows per entity type in itunes_presence
 
-    public ItunesService(JdbcTemplate jdbcTemplate, iTunesLibraryService iTunesLibraryService) {
+    public ItunesService(JdbcTemplate jdbcTemplate, iTunesLibraryService iTunesLibraryService, SqliteWriteQueue writeQueue) {
         this.jdbcTemplate = jdbcTemplate;
         this.iTunesLibraryService = iTunesLibraryService;
+        this.writeQueue = writeQueue;
+    }
+
+    @PostConstruct
+    public void initialize() {
+        jdbcTemplate.execute("""
+                CREATE TABLE IF NOT EXISTS itunes_presence (
+                    entity_type TEXT NOT NULL,
+                    entity_id INTEGER NOT NULL,
+                    PRIMARY KEY (entity_type, entity_id)
+                ) WITHOUT ROWID
+                """);
     }
 
     /**
@@ -76,14 +94,12 @@ public class ItunesService {
             cachedAllSongs = new ArrayList<>();
             cachedFilePath = filePath;
             cachedFileLastModified = 0;
-            cachedSongIdsJson = null;
-            cachedAlbumIdsJson = null;
-            cachedArtistIdsJson = null;
+            presenceCounts = null;
             return;
         }
 
         // Parse the library and build all caches at once
-        List<ItunesSong> allSongs = parseItunesLibrary(new java.io.FileInputStream(file));
+        List<ItunesSong> allSongs = parseItunesLibrary(filePath);
         
         Set<String> songKeys = new HashSet<>();
         Set<String> albumKeys = new HashSet<>();
@@ -111,9 +127,7 @@ public class ItunesService {
         cachedAllSongs = allSongs;
         cachedFilePath = filePath;
         cachedFileLastModified = file.lastModified();
-        cachedSongIdsJson = null;
-        cachedAlbumIdsJson = null;
-        cachedArtistIdsJson = null;
+        presenceCounts = null;
     }
 
     /**
@@ -126,9 +140,7 @@ public class ItunesService {
         cachedAllSongs = null;
         cachedFilePath = null;
         cachedFileLastModified = 0;
-        cachedSongIdsJson = null;
-        cachedAlbumIdsJson = null;
-        cachedArtistIdsJson = null;
+        presenceCounts = null;
     }
 
     /**
@@ -265,217 +277,58 @@ public class ItunesService {
         if (!file.exists()) {
             throw new IllegalArgumentException("File not found: " + filePath);
         }
-        List<ItunesSong> allItunesSongs = parseItunesLibrary(new java.io.FileInputStream(file));
+        List<ItunesSong> allItunesSongs = parseItunesLibrary(filePath);
         return filterUnmatchedSongs(allItunesSongs);
     }
 
     /**
-     * Parse iTunes Library.xml and extract all song entries
+     * Extract all song entries from an iTunes Library.xml. The file is streamed by
+     * iTunesLibraryService, which shares the parsed tracks with its own lookups.
      */
-    private List<ItunesSong> parseItunesLibrary(InputStream inputStream) throws Exception {
-        List<ItunesSong> songs = new ArrayList<>();
-
-        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-        // Disable DTD processing for security and to avoid network calls
-        factory.setFeature("http://apache.org/xml/features/nonvalidating/load-external-dtd", false);
-        factory.setFeature("http://xml.org/sax/features/external-general-entities", false);
-        factory.setFeature("http://xml.org/sax/features/external-parameter-entities", false);
-        
-        DocumentBuilder builder = factory.newDocumentBuilder();
-        Document doc = builder.parse(inputStream);
-
-        // iTunes Library.xml structure:
-        // <plist>
-        //   <dict>
-        //     <key>Tracks</key>
-        //     <dict>
-        //       <key>123</key>  <!-- Track ID -->
-        //       <dict>
-        //         <key>Name</key><string>Song Name</string>
-        //         <key>Artist</key><string>Artist Name</string>
-        //         <key>Album</key><string>Album Name</string>
-        //         ...
-        //       </dict>
-        //     </dict>
-        //   </dict>
-        // </plist>
-
-        NodeList plistChildren = doc.getElementsByTagName("plist");
-        if (plistChildren.getLength() == 0) {
-            throw new IllegalArgumentException("Invalid iTunes Library.xml: no plist element found");
-        }
-
-        // Navigate to Tracks dict
-        Element plist = (Element) plistChildren.item(0);
-        Element mainDict = getFirstChildElement(plist, "dict");
-        if (mainDict == null) {
-            throw new IllegalArgumentException("Invalid iTunes Library.xml: no main dict found");
-        }
-
-        // Find the Tracks key and its associated dict
-        Element tracksDict = null;
-        NodeList mainDictChildren = mainDict.getChildNodes();
-        boolean foundTracksKey = false;
-        
-        for (int i = 0; i < mainDictChildren.getLength(); i++) {
-            Node node = mainDictChildren.item(i);
-            if (node.getNodeType() != Node.ELEMENT_NODE) continue;
-            
-            Element elem = (Element) node;
-            if ("key".equals(elem.getTagName()) && "Tracks".equals(elem.getTextContent())) {
-                foundTracksKey = true;
-                continue;
-            }
-            if (foundTracksKey && "dict".equals(elem.getTagName())) {
-                tracksDict = elem;
-                break;
-            }
-        }
-
-        if (tracksDict == null) {
-            throw new IllegalArgumentException("Invalid iTunes Library.xml: no Tracks dict found");
+    private List<ItunesSong> parseItunesLibrary(String filePath) throws Exception {
+        List<ItunesLibraryReader.Track> tracks = iTunesLibraryService.getTracks(filePath);
+        if (tracks == null) {
+            throw new IllegalArgumentException("File not found: " + filePath);
         }
 
-        // Parse each track within the Tracks dict
-        NodeList trackNodes = tracksDict.getChildNodes();
-        Element currentTrackDict = null;
-        
-        for (int i = 0; i < trackNodes.getLength(); i++) {
-            Node node = trackNodes.item(i);
-            if (node.getNodeType() != Node.ELEMENT_NODE) continue;
-            
-            Element elem = (Element) node;
-            if ("key".equals(elem.getTagName())) {
-                // This is a track ID key, next dict is the track data
-                continue;
-            }
-            if ("dict".equals(elem.getTagName())) {
-                currentTrackDict = elem;
-                ItunesSong song = parseTrackDict(currentTrackDict);
-                if (song != null && song.getName() != null && !song.getName().isBlank()) {
-                    songs.add(song);
-                }
+        List<ItunesSong> songs = new ArrayList<>();
+        for (ItunesLibraryReader.Track track : tracks) {
+            ItunesSong song = toItunesSong(track);
+            if (song != null) {
+                songs.add(song);
             }
         }
-
         return songs;
     }
 
     /**
-     * Parse a single track dict element and extract song info
+     * Convert a library track to an ItunesSong, or null for entries that are not songs
      */
-    private ItunesSong parseTrackDict(Element trackDict) {
-        String persistentId = null;
-        Integer trackId = null;
-        String name = null;
-        String artist = null;
-        String albumArtist = null;
-        String album = null;
-        Integer trackNumber = null;
-        Integer year = null;
-        Integer totalTime = null;
-        String genre = null;
-        Boolean isPodcast = false;
-        Boolean isAudiobook = false;
-        Boolean isPlaylistOnly = false;
-        String kind = null;
-
-        NodeList children = trackDict.getChildNodes();
-        String currentKey = null;
-
-        for (int i = 0; i < children.getLength(); i++) {
-            Node node = children.item(i);
-            if (node.getNodeType() != Node.ELEMENT_NODE) continue;
-
-            Element elem = (Element) node;
-            String tagName = elem.getTagName();
-
-            if ("key".equals(tagName)) {
-                currentKey = elem.getTextContent();
-            } else if (currentKey != null) {
-                switch (currentKey) {
-                    case "Persistent ID":
-                        persistentId = elem.getTextContent();
-                        break;
-                    case "Track ID":
-                        try {
-                            trackId = Integer.parseInt(elem.getTextContent());
-                        } catch (NumberFormatException e) {
-                            trackId = null;
-                        }
-                        break;
-                    case "Name":
-                        name = elem.getTextContent();
-                        break;
-                    case "Artist":
-                        artist = elem.getTextContent();
-                        break;
-                    case "Album Artist":
-                        albumArtist = elem.getTextContent();
-                        break;
-                    case "Album":
-                        album = elem.getTextContent();
-                        break;
-                    case "Playlist Only":
-                        isPlaylistOnly = "true".equals(tagName);
-                        break;
-                    case "Track Number":
-                        try {
-                            trackNumber = Integer.parseInt(elem.getTextContent());
-                        } catch (NumberFormatException e) {
-                            trackNumber = null;
-                        }
-                        break;
-                    case "Year":
-                        try {
-                            year = Integer.parseInt(elem.getTextContent());
-                        } catch (NumberFormatException e) {
-                            year = null;
-                        }
-                        break;
-                    case "Total Time":
-                        try {
-                            totalTime = Integer.parseInt(elem.getTextContent());
-                        } catch (NumberFormatException e) {
-                            totalTime = null;
-                        }
-                        break;
-                    case "Genre":
-                        genre = elem.getTextContent();
-                        break;
-                    case "Podcast":
-                        isPodcast = "true".equals(tagName) || "true".equalsIgnoreCase(elem.getTextContent());
-                        break;
-                    case "Kind":
-                        kind = elem.getTextContent();
-                        break;
-                }
-                currentKey = null;
-            }
-        }
-
-        // Skip podcasts, audiobooks, and non-music items
-        if (isPodcast || isAudiobook) {
+    private ItunesSong toItunesSong(ItunesLibraryReader.Track track) {
+        // Skip podcasts and non-music items
+        if (track.podcast()) {
             return null;
         }
+        String kind = track.kind();
         if (kind != null && (kind.toLowerCase().contains("video") || kind.toLowerCase().contains("podcast"))) {
             return null;
         }
 
         // Skip playlist-only items
-        if (isPlaylistOnly) {
+        if (track.playlistOnly()) {
             return null;
         }
 
         // Only include items with at least a name and a persistent ID
-        if (name == null || name.isBlank()) {
+        if (track.name() == null || track.name().isBlank()) {
             return null;
         }
-        if (persistentId == null || persistentId.isBlank()) {
+        if (track.persistentId() == null || track.persistentId().isBlank()) {
             return null;
         }
 
-        return new ItunesSong(persistentId, trackId, artist, albumArtist, album, name, trackNumber, year, totalTime, genre);
+        return new ItunesSong(track.persistentId(), track.trackId(), track.artist(), track.albumArtist(),
+                track.album(), track.name(), track.trackNumber(), track.year(), track.totalTime(), track.genre());
     }
 
     /**
@@ -578,17 +431,6 @@ public class ItunesService {
         return a.compareToIgnoreCase(b);
     }
 
-    private Element getFirstChildElement(Element parent, String tagName) {
-        NodeList children = parent.getChildNodes();
-        for (int i = 0; i < children.getLength(); i++) {
-            Node node = children.item(i);
-            if (node.getNodeType() == Node.ELEMENT_NODE && tagName.equals(node.getNodeName())) {
-                return (Element) node;
-            }
-        }
-        return null;
-    }
-
     // ============ iTunes Presence Checking Methods ============
 
     /**
@@ -721,89 +563,76 @@ public class ItunesService {
     }
 
     /**
-     * Return a JSON array of Song IDs (from the database) that exist in the iTunes library.
-     * Used for the iTunes presence ratio filter and display in artist/album list pages.
+     * Id source for the catalog songs present in the iTunes library: the itunes_presence set, or
+     * {@link ItunesIdSource#NONE} when the library is missing or matches no song.
+     * Used for the iTunes filters and presence ratios in the song, artist and album lists.
      */
-    public String getAllItunesSongIdsJson() {
-        if (!libraryExists()) return "[]";
-        if (cachedSongIdsJson != null) return cachedSongIdsJson;
+    public ItunesIdSource getAllItunesSongIds() {
+        return presenceSource(SONG_PRESENCE);
+    }
+
+    public ItunesIdSource getAllItunesAlbumIds() {
+        return presenceSource(ALBUM_PRESENCE);
+    }
+
+    public ItunesIdSource getAllItunesArtistIds() {
+        return presenceSource(ARTIST_PRESENCE);
+    }
+
+    private synchronized ItunesIdSource presenceSource(String entityType) {
+        if (!libraryExists()) return ItunesIdSource.NONE;
         try {
             ensureCacheLoaded();
         } catch (Exception e) {
-            return "[]";
+            return ItunesIdSource.NONE;
         }
-        List<Integer> ids = new ArrayList<>();
+        if (presenceCounts == null) {
+            materializePresence();
+        }
+        return presenceCounts.getOrDefault(entityType, 0) > 0
+                ? ItunesIdSource.presence(entityType)
+                : ItunesIdSource.NONE;
+    }
+
+    /**
+     * Rewrites itunes_presence from the freshly parsed library keys in one write transaction.
+     */
+    private void materializePresence() {
+        List<Object[]> rows = new ArrayList<>();
+        Map<String, Integer> counts = new HashMap<>();
         jdbcTemplate.query(
             "SELECT s.id, ar.name, COALESCE(alb.name, ''), s.name FROM Song s " +
             "JOIN Artist ar ON s.artist_id = ar.id LEFT JOIN Album alb ON s.album_id = alb.id",
-            rs -> {
+            (RowCallbackHandler) rs -> {
                 String key = createStrictSongLookupKey(rs.getString(2), rs.getString(3), rs.getString(4));
                 if (cachedSongKeys.contains(key)) {
-                    ids.add(rs.getInt(1));
+                    rows.add(new Object[]{SONG_PRESENCE, rs.getInt(1)});
+                    counts.merge(SONG_PRESENCE, 1, Integer::sum);
                 }
             }
         );
-        cachedSongIdsJson = toJsonArray(ids);
-        return cachedSongIdsJson;
-    }
-
-    public String getAllItunesAlbumIdsJson() {
-        if (!libraryExists()) return "[]";
-        if (cachedAlbumIdsJson != null) return cachedAlbumIdsJson;
-        try {
-            ensureCacheLoaded();
-        } catch (Exception e) {
-            return "[]";
-        }
-
-        List<Integer> ids = new ArrayList<>();
         jdbcTemplate.query(
             "SELECT a.id, ar.name, a.name FROM Album a JOIN Artist ar ON a.artist_id = ar.id",
-            rs -> {
+            (RowCallbackHandler) rs -> {
                 String key = createStrictAlbumLookupKey(rs.getString(2), rs.getString(3));
                 if (cachedAlbumKeys.contains(key)) {
-                    ids.add(rs.getInt(1));
+                    rows.add(new Object[]{ALBUM_PRESENCE, rs.getInt(1)});
+                    counts.merge(ALBUM_PRESENCE, 1, Integer::sum);
                 }
             }
         );
-        cachedAlbumIdsJson = toJsonArray(ids);
-        return cachedAlbumIdsJson;
-    }
-
-    public String getAllItunesArtistIdsJson() {
-        if (!libraryExists()) return "[]";
-        if (cachedArtistIdsJson != null) return cachedArtistIdsJson;
-        try {
-            ensureCacheLoaded();
-        } catch (Exception e) {
-            return "[]";
-        }
-
-        List<Integer> ids = new ArrayList<>();
-        jdbcTemplate.query("SELECT id, name FROM Artist", rs -> {
+        jdbcTemplate.query("SELECT id, name FROM Artist", (RowCallbackHandler) rs -> {
             String key = normalizeForStrictMatch(rs.getString(2));
             if (cachedArtistKeys.contains(key)) {
-                ids.add(rs.getInt(1));
+                rows.add(new Object[]{ARTIST_PRESENCE, rs.getInt(1)});
+                counts.merge(ARTIST_PRESENCE, 1, Integer::sum);
             }
         });
-        cachedArtistIdsJson = toJsonArray(ids);
-        return cachedArtistIdsJson;
-    }
-
-    private String toJsonArray(List<Integer> ids) {
-        if (ids == null || ids.isEmpty()) {
-            return "[]";
-        }
-
-        StringBuilder sb = new StringBuilder("[");
-        for (int i = 0; i < ids.size(); i++) {
-            if (i > 0) {
-                sb.append(',');
-            }
-            sb.append(ids.get(i));
-        }
-        sb.append(']');
-        return sb.toString();
+        writeQueue.run(() -> {
+            jdbcTemplate.update("DELETE FROM itunes_presence");
+            jdbcTemplate.batchUpdate("INSERT INTO itunes_presence (entity_type, entity_id) VALUES (?, ?)", rows);
+        });
+        presenceCounts = counts;
     }
 
     /**
@@ -841,10 +670,7 @@ public class ItunesService {
      * Only normalizes case and punctuation - no removal of parentheses, brackets, or featuring text.
      */
     String createStrictSongLookupKey(String artist, String album, String song) {
-        String a = normalizeForStrictMatch(artist);
-        String al = normalizeForStrictMatch(album);
-        String s = normalizeForStrictMatch(song);
-        return a + "||" + al + "||" + s;
+        return SongMatchKeyStore.strictKey(artist, album, song);
     }
 
     /**
@@ -852,15 +678,7 @@ public class ItunesService {
      * Does NOT remove parentheses, brackets, or featuring text.
      */
     String normalizeForStrictMatch(String input) {
-        if (input == null || input.isBlank()) {
-            return "";
-        }
-        String result = StringNormalizer.stripAccents(input.toLowerCase().trim());
-        // Remove only punctuation characters, keeping parentheses, brackets, etc.
-        result = result.replaceAll("[\\\\.,'!?\"\\-_:;\\/&%]", "");
-        // Collapse whitespace
-        result = result.replaceAll("\\s+", " ").trim();
-        return result;
+        return SongMatchKeyStore.normalizeForStrictMatch(input);
     }
 
     // ============ Methods to get cached sets for filtering ============
@@ -913,14 +731,14 @@ public class ItunesService {
      */
     public Double getArtistItunesPresenceRatio(int artistId) {
         if (!libraryExists()) return null;
-        String idsJson = getAllItunesSongIdsJson();
-        if ("[]".equals(idsJson)) return null;
+        ItunesIdSource songIds = getAllItunesSongIds();
+        if (ItunesIdSource.NONE.equals(songIds)) return null;
         Integer total = jdbcTemplate.queryForObject(
             "SELECT COUNT(*) FROM Song WHERE artist_id = ?", Integer.class, artistId);
         if (total == null || total == 0) return null;
         Integer inItunes = jdbcTemplate.queryForObject(
-            "SELECT COUNT(*) FROM Song WHERE artist_id = ? AND id IN (SELECT value FROM json_each(?))",
-            Integer.class, artistId, idsJson);
+            "SELECT COUNT(*) FROM Song WHERE artist_id = ? AND id IN (" + songIds.subquery() + ")",
+            Integer.class, artistId, songIds.parameter());
         if (inItunes == null) return null;
         return (inItunes * 100.0) / total;
     }
@@ -928,20 +746,20 @@ public class ItunesService {
     public Map<Integer, Double> getArtistItunesPresenceRatios(List<Integer> artistIds) {
         if (!libraryExists() || artistIds == null || artistIds.isEmpty()) return Collections.emptyMap();
 
-        String idsJson = getAllItunesSongIdsJson();
-        if ("[]".equals(idsJson)) return Collections.emptyMap();
+        ItunesIdSource songIds = getAllItunesSongIds();
+        if (ItunesIdSource.NONE.equals(songIds)) return Collections.emptyMap();
 
         String placeholders = String.join(",", Collections.nCopies(artistIds.size(), "?"));
         String sql = "SELECT totals.entity_id, " +
                 "CAST(COALESCE(itunes.itunes_song_count, 0) AS REAL) * 100.0 / NULLIF(totals.song_count, 0) AS itunes_presence_ratio " +
                 "FROM (SELECT artist_id AS entity_id, COUNT(*) AS song_count FROM Song WHERE artist_id IN (" + placeholders + ") GROUP BY artist_id) totals " +
-                "LEFT JOIN (SELECT artist_id AS entity_id, COUNT(*) AS itunes_song_count FROM Song WHERE artist_id IN (" + placeholders + ") AND id IN (SELECT value FROM json_each(?)) GROUP BY artist_id) itunes " +
+                "LEFT JOIN (SELECT artist_id AS entity_id, COUNT(*) AS itunes_song_count FROM Song WHERE artist_id IN (" + placeholders + ") AND id IN (" + songIds.subquery() + ") GROUP BY artist_id) itunes " +
                 "ON itunes.entity_id = totals.entity_id";
 
         List<Object> params = new ArrayList<>(artistIds.size() * 2 + 1);
         params.addAll(artistIds);
         params.addAll(artistIds);
-        params.add(idsJson);
+        params.add(songIds.parameter());
 
         Map<Integer, Double> ratios = new HashMap<>();
         jdbcTemplate.query(sql, (RowCallbackHandler) rs ->
@@ -955,14 +773,14 @@ public class ItunesService {
      */
     public Double getAlbumItunesPresenceRatio(int albumId) {
         if (!libraryExists()) return null;
-        String idsJson = getAllItunesSongIdsJson();
-        if ("[]".equals(idsJson)) return null;
+        ItunesIdSource songIds = getAllItunesSongIds();
+        if (ItunesIdSource.NONE.equals(songIds)) return null;
         Integer total = jdbcTemplate.queryForObject(
             "SELECT COUNT(*) FROM Song WHERE album_id = ?", Integer.class, albumId);
         if (total == null || total == 0) return null;
         Integer inItunes = jdbcTemplate.queryForObject(
-            "SELECT COUNT(*) FROM Song WHERE album_id = ? AND id IN (SELECT value FROM json_each(?))",
-            Integer.class, albumId, idsJson);
+            "SELECT COUNT(*) FROM Song WHERE album_id = ? AND id IN (" + songIds.subquery() + ")",
+            Integer.class, albumId, songIds.parameter());
         if (inItunes == null) return null;
         return (inItunes * 100.0) / total;
     }
@@ -970,20 +788,20 @@ public class ItunesService {
     public Map<Integer, Double> getAlbumItunesPresenceRatios(List<Integer> albumIds) {
         if (!libraryExists() || albumIds == null || albumIds.isEmpty()) return Collections.emptyMap();
 
-        String idsJson = getAllItunesSongIdsJson();
-        if ("[]".equals(idsJson)) return Collections.emptyMap();
+        ItunesIdSource songIds = getAllItunesSongIds();
+        if (ItunesIdSource.NONE.equals(songIds)) return Collections.emptyMap();
 
         String placeholders = String.join(",", Collections.nCopies(albumIds.size(), "?"));
         String sql = "SELECT totals.entity_id, " +
                 "CAST(COALESCE(itunes.itunes_song_count, 0) AS REAL) * 100.0 / NULLIF(totals.song_count, 0) AS itunes_presence_ratio " +
                 "FROM (SELECT album_id AS entity_id, COUNT(*) AS song_count FROM Song WHERE album_id IN (" + placeholders + ") GROUP BY album_id) totals " +
-                "LEFT JOIN (SELECT album_id AS entity_id, COUNT(*) AS itunes_song_count FROM Song WHERE album_id IN (" + placeholders + ") AND id IN (SELECT value FROM json_each(?)) GROUP BY album_id) itunes " +
+                "LEFT JOIN (SELECT album_id AS entity_id, COUNT(*) AS itunes_song_count FROM Song WHERE album_id IN (" + placeholders + ") AND id IN (" + songIds.subquery() + ") GROUP BY album_id) itunes " +
                 "ON itunes.entity_id = totals.entity_id";
 
         List<Object> params = new ArrayList<>(albumIds.size() * 2 + 1);
         params.addAll(albumIds);
         params.addAll(albumIds);
-        params.add(idsJson);
+        params.add(songIds.parameter());
 
         Map<Integer, Double> ratios = new HashMap<>();
         jdbcTemplate.query(sql, (RowCallbackHandler) rs ->
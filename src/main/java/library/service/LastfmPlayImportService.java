@@ -0,0 +1,424 @@
+package library.service;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.ObjectMapper;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Imports scrobbles from Last.fm user.getrecenttracks as a bounded pipeline.
+ *
+ * The import window (from/to timestamps) is fixed when an import starts so page numbers stay
+ * stable. Pages are fetched a few at a time on virtual threads, parsed and matched on a small
+ * worker pool, and committed one page per queued write on {@link SqliteWriteQueue} from the
+ * oldest page (the last one) to the newest (page 1). Each commit also advances the account's row in
+ * lastfm_import_checkpoint, so a failure on any page keeps every earlier page and the next
+ * import resumes with the remaining pages of the same window instead of starting over.
+ *
+ * Recovery from a play count mismatch uses {@link #reconcileRecentTracks}: the recent window is
+ * fetched the same way and diffed against the local plays by lastfm_id, so only missing
+ * scrobbles are inserted and only plays Last.fm no longer has (or local duplicates) are deleted.
+ *
+ * A page is inserted with the play stats triggers suspended; the stats of the songs on it are
+ * recomputed once in the same transaction instead of once per row.
+ */
+@Service
+public class LastfmPlayImportService {
+
+    /** Pages fetched, parsed or waiting to be committed at any one time. */
+    static final int PAGES_IN_FLIGHT = 4;
+    static final int PAGE_SIZE = 200;
+
+    private static final int PARSE_WORKERS = 2;
+    private static final ZoneId PLAY_ZONE = ZoneId.of("America/Mexico_City");
+    private static final DateTimeFormatter PLAY_DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+    private static final DateTimeFormatter TIMESTAMP_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SqliteWriteQueue writeQueue;
+    private final PlayStatsService playStatsService;
+    private final String apiUrl;
+    private final HttpClient httpClient = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(30)).build();
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    public LastfmPlayImportService(JdbcTemplate jdbcTemplate, SqliteWriteQueue writeQueue,
+                                   PlayStatsService playStatsService,
+                                   @Value("${musicstats.lastfm.api-url:http://ws.audioscrobbler.com/2.0/}") String apiUrl) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.writeQueue = writeQueue;
+        this.playStatsService = playStatsService;
+        this.apiUrl = apiUrl;
+    }
+
+    @PostConstruct
+    public void initialize() {
+        jdbcTemplate.execute("""
+                CREATE TABLE IF NOT EXISTS lastfm_import_checkpoint (
+                    account TEXT PRIMARY KEY,
+                    from_uts INTEGER NOT NULL,
+                    to_uts INTEGER NOT NULL,
+                    total_pages INTEGER NOT NULL,
+                    next_page INTEGER NOT NULL,
+                    updated_at TEXT NOT NULL
+                )
+                """);
+    }
+
+    /**
+     * Totals of one import run. unmatchedCounts is keyed by artist||album||song as reported by Last.fm.
+     */
+    public record ImportTotals(int processed, int matched, int unmatched, int errors, int totalPages,
+                               Map<String, int[]> unmatchedCounts) {}
+
+    /**
+     * Outcome of one reconciliation. insertedPlayIds and deletedPlayIds are the only Play rows
+     * the reconciliation touched; unmatchedCounts covers the inserted rows.
+     */
+    public record ReconcileResult(int fetched, List<Long> insertedPlayIds, List<Long> deletedPlayIds,
+                                  int unmatched, Map<String, int[]> unmatchedCounts) {}
+
+    private record Checkpoint(long fromUts, long toUts, int totalPages, int nextPage) {}
+
+    private record PageResult(int page, List<Object[]> rows, int matched, int unmatched, int errors,
+                              Map<String, int[]> unmatchedCounts) {}
+
+    /**
+     * Imports every scrobble after the account's newest lastfm_id, or resumes the account's
+     * unfinished import.
+     *
+     * @param songLookup PlayService lookup keys (artist||album||song) to song ids
+     */
+    public ImportTotals importRecentTracks(String account, String apiKey, Map<String, Integer> songLookup) throws Exception {
+        Checkpoint checkpoint = loadCheckpoint(account);
+        String firstPageBody = null;
+        if (checkpoint == null) {
+            Integer maxLastfmId = jdbcTemplate.queryForObject(
+                    "SELECT MAX(lastfm_id) FROM play WHERE account = ?", Integer.class, account);
+            long fromUts = (maxLastfmId != null ? maxLastfmId : 0) + 1L;
+            long toUts = Instant.now().getEpochSecond();
+
+            firstPageBody = fetchPage(account, apiKey, fromUts, toUts, 1);
+            int totalPages = mapper.readTree(firstPageBody).path("recenttracks").path("@attr").path("totalPages").asInt(1);
+            if (totalPages < 1) {
+                return new ImportTotals(0, 0, 0, 0, 0, new HashMap<>());
+            }
+            checkpoint = new Checkpoint(fromUts, toUts, totalPages, totalPages);
+            saveCheckpoint(account, checkpoint);
+        }
+
+        int processed = 0;
+        int matched = 0;
+        int unmatched = 0;
+        int errors = 0;
+        Map<String, int[]> unmatchedCounts = new HashMap<>();
+
+        ExecutorService fetchExecutor = Executors.newVirtualThreadPerTaskExecutor();
+        ExecutorService parseExecutor = Executors.newFixedThreadPool(PARSE_WORKERS);
+        Deque<CompletableFuture<PageResult>> inFlight = new ArrayDeque<>();
+        try {
+            int nextToSubmit = checkpoint.nextPage();
+            while (nextToSubmit >= 1 || !inFlight.isEmpty()) {
+                while (nextToSubmit >= 1 && inFlight.size() < PAGES_IN_FLIGHT) {
+                    inFlight.add(submitPage(account, apiKey, checkpoint, nextToSubmit,
+                            nextToSubmit == 1 ? firstPageBody : null, songLookup, fetchExecutor, parseExecutor));
+                    nextToSubmit--;
+                }
+
+                PageResult page = await(inFlight.removeFirst());
+                commitPage(account, page);
+
+                processed += page.rows().size();
+                matched += page.matched();
+                unmatched += page.unmatched();
+                errors += page.errors();
+                page.unmatchedCounts().forEach((key, count) ->
+                        unmatchedCounts.computeIfAbsent(key, k -> new int[]{0})[0] += count[0]);
+            }
+        } finally {
+            inFlight.forEach(future -> future.cancel(true));
+            fetchExecutor.shutdownNow();
+            parseExecutor.shutdownNow();
+        }
+
+        return new ImportTotals(processed, matched, unmatched, errors, checkpoint.totalPages(), unmatchedCounts);
+    }
+
+    /**
+     * Makes the account's plays of the last {@code days} days match Last.fm.
+     *
+     * @param songLookup PlayService lookup keys (artist||album||song) to song ids
+     */
+    public ReconcileResult reconcileRecentTracks(String account, String apiKey, int days,
+                                                 Map<String, Integer> songLookup) throws Exception {
+        long toUts = Instant.now().getEpochSecond();
+        return reconcileWindow(account, apiKey, toUts - days * 86_400L, toUts, songLookup);
+    }
+
+    /**
+     * Diffs the scrobbles with fromUts < uts <= toUts against the local plays with the same
+     * lastfm_id range and applies the difference in one transaction. Scrobbles are compared as a
+     * multiset per lastfm_id: surplus local rows (the newest ids) are deleted, missing ones inserted.
+     */
+    ReconcileResult reconcileWindow(String account, String apiKey, long fromUts, long toUts,
+                                    Map<String, Integer> songLookup) throws Exception {
+        String firstPageBody = fetchPage(account, apiKey, fromUts, toUts, 1);
+        int totalPages = Math.max(1, mapper.readTree(firstPageBody).path("recenttracks").path("@attr").path("totalPages").asInt(1));
+        Checkpoint window = new Checkpoint(fromUts, toUts, totalPages, totalPages);
+
+        Map<Integer, List<Object[]>> remoteByUts = new HashMap<>();
+        int fetched = 0;
+        ExecutorService fetchExecutor = Executors.newVirtualThreadPerTaskExecutor();
+        ExecutorService parseExecutor = Executors.newFixedThreadPool(PARSE_WORKERS);
+        Deque<CompletableFuture<PageResult>> inFlight = new ArrayDeque<>();
+        try {
+            int nextToSubmit = 1;
+            while (nextToSubmit <= totalPages || !inFlight.isEmpty()) {
+                while (nextToSubmit <= totalPages && inFlight.size() < PAGES_IN_FLIGHT) {
+                    inFlight.add(submitPage(account, apiKey, window, nextToSubmit,
+                            nextToSubmit == 1 ? firstPageBody : null, songLookup, fetchExecutor, parseExecutor));
+                    nextToSubmit++;
+                }
+                for (Object[] row : await(inFlight.removeFirst()).rows()) {
+                    int uts = (Integer) row[0];
+                    if (uts > fromUts && uts <= toUts) {
+                        remoteByUts.computeIfAbsent(uts, k -> new ArrayList<>()).add(row);
+                        fetched++;
+                    }
+                }
+            }
+        } finally {
+            inFlight.forEach(future -> future.cancel(true));
+            fetchExecutor.shutdownNow();
+            parseExecutor.shutdownNow();
+        }
+
+        Map<Integer, List<Long>> localByUts = new HashMap<>();
+        jdbcTemplate.query(
+                "SELECT id, lastfm_id FROM play WHERE account = ? AND lastfm_id > ? AND lastfm_id <= ? ORDER BY id",
+                rs -> {
+                    localByUts.computeIfAbsent(rs.getInt("lastfm_id"), k -> new ArrayList<>()).add(rs.getLong("id"));
+                },
+                account, fromUts, toUts);
+
+        List<Object[]> toInsert = new ArrayList<>();
+        List<Long> deletedPlayIds = new ArrayList<>();
+        localByUts.forEach((uts, ids) -> {
+            int remoteCount = remoteByUts.getOrDefault(uts, List.of()).size();
+            if (ids.size() > remoteCount) {
+                deletedPlayIds.addAll(ids.subList(remoteCount, ids.size()));
+            }
+        });
+        int unmatched = 0;
+        Map<String, int[]> unmatchedCounts = new HashMap<>();
+        for (Map.Entry<Integer, List<Object[]>> entry : remoteByUts.entrySet()) {
+            List<Object[]> rows = entry.getValue();
+            int localCount = localByUts.getOrDefault(entry.getKey(), List.of()).size();
+            for (Object[] row : rows.subList(Math.min(localCount, rows.size()), rows.size())) {
+                toInsert.add(row);
+                if (row[5] == null) {
+                    unmatched++;
+                    unmatchedCounts.computeIfAbsent(row[2] + "||" + row[3] + "||" + row[4], k -> new int[]{0})[0]++;
+                }
+            }
+        }
+        toInsert.sort((a, b) -> Integer.compare((Integer) a[0], (Integer) b[0]));
+        deletedPlayIds.sort(null);
+
+        List<Long> insertedPlayIds = new ArrayList<>();
+        writeQueue.run(() -> {
+            insertedPlayIds.clear();
+            if (!deletedPlayIds.isEmpty()) {
+                jdbcTemplate.batchUpdate("DELETE FROM play WHERE id = ?",
+                        deletedPlayIds.stream().map(id -> new Object[]{id}).toList());
+            }
+            for (Object[] row : toInsert) {
+                jdbcTemplate.update(PlayRawTrackService.INTERN_SQL, row[2], row[3], row[4]);
+                jdbcTemplate.update(PlayRawTrackService.INSERT_PLAY_SQL, insertParameters(row));
+                insertedPlayIds.add(jdbcTemplate.queryForObject("SELECT last_insert_rowid()", Long.class));
+            }
+        });
+
+        return new ReconcileResult(fetched, insertedPlayIds, deletedPlayIds, unmatched, unmatchedCounts);
+    }
+
+    private CompletableFuture<PageResult> submitPage(String account, String apiKey, Checkpoint checkpoint, int page,
+                                                     String prefetchedBody, Map<String, Integer> songLookup,
+                                                     ExecutorService fetchExecutor, ExecutorService parseExecutor) {
+        CompletableFuture<String> body = prefetchedBody != null
+                ? CompletableFuture.completedFuture(prefetchedBody)
+                : CompletableFuture.supplyAsync(() -> {
+                    try {
+                        return fetchPage(account, apiKey, checkpoint.fromUts(), checkpoint.toUts(), page);
+                    } catch (Exception e) {
+                        throw new CompletionException(e);
+                    }
+                }, fetchExecutor);
+        return body.thenApplyAsync(json -> parsePage(page, json, account, songLookup), parseExecutor);
+    }
+
+    private String fetchPage(String account, String apiKey, long fromUts, long toUts, int page) throws Exception {
+        String url = String.format(
+                "%s?method=user.getrecenttracks&user=%s&api_key=%s&format=json&from=%d&to=%d&page=%d&limit=%d",
+                apiUrl, URLEncoder.encode(account, StandardCharsets.UTF_8), apiKey, fromUts, toUts, page, PAGE_SIZE);
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(url))
+                .timeout(Duration.ofSeconds(30))
+                .GET()
+                .build();
+
+        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new RuntimeException("Last.fm API returned status " + response.statusCode() + " on page " + page);
+        }
+        return response.body();
+    }
+
+    private PageResult parsePage(int page, String json, String account, Map<String, Integer> songLookup) {
+        List<Object[]> rows = new ArrayList<>();
+        int matched = 0;
+        int unmatched = 0;
+        int errors = 0;
+        Map<String, int[]> unmatchedCounts = new HashMap<>();
+
+        JsonNode tracks = mapper.readTree(json).path("recenttracks").path("track");
+        if (!tracks.isArray()) {
+            return new PageResult(page, rows, 0, 0, 0, unmatchedCounts);
+        }
+
+        for (JsonNode track : tracks) {
+            try {
+                // Skip "now playing" tracks that don't have a date
+                JsonNode dateNode = track.path("date");
+                if (dateNode.isMissingNode() || !dateNode.has("uts")) {
+                    continue;
+                }
+
+                String artistName = track.path("artist").path("#text").asString("");
+                String albumName = track.path("album").path("#text").asString("");
+                String songName = track.path("name").asString("");
+                String utsStr = dateNode.path("uts").asString("");
+                if (utsStr.isEmpty()) {
+                    errors++;
+                    continue;
+                }
+
+                long uts = Long.parseLong(utsStr);
+                String playDate = Instant.ofEpochSecond(uts).atZone(PLAY_ZONE).format(PLAY_DATE_FORMAT);
+
+                Integer songId = songLookup.get(PlayService.createLookupKey(artistName, albumName, songName));
+                if (songId != null) {
+                    matched++;
+                } else {
+                    unmatched++;
+                    String unmatchedKey = artistName + "||" + albumName + "||" + songName;
+                    unmatchedCounts.computeIfAbsent(unmatchedKey, k -> new int[]{0})[0]++;
+                }
+
+                // The UTS timestamp doubles as the lastfm_id
+                rows.add(new Object[]{(int) uts, playDate, artistName, albumName, songName, songId, account});
+            } catch (Exception e) {
+                errors++;
+                System.err.println("Error processing track: " + e.getMessage());
+            }
+        }
+
+        return new PageResult(page, rows, matched, unmatched, errors, unmatchedCounts);
+    }
+
+    /**
+     * Inserts one page and advances the checkpoint in the same transaction; the checkpoint is
+     * removed with the last (newest) page.
+     */
+    private void commitPage(String account, PageResult page) {
+        writeQueue.run(() -> {
+            if (!page.rows().isEmpty()) {
+                Set<Integer> songIds = new HashSet<>();
+                for (Object[] row : page.rows()) {
+                    if (row[5] != null) {
+                        songIds.add((Integer) row[5]);
+                    }
+                }
+                Set<List<Object>> names = new LinkedHashSet<>();
+                List<Object[]> inserts = new ArrayList<>(page.rows().size());
+                for (Object[] row : page.rows()) {
+                    names.add(Arrays.asList(row[2], row[3], row[4]));
+                    inserts.add(insertParameters(row));
+                }
+                jdbcTemplate.batchUpdate(PlayRawTrackService.INTERN_SQL, names.stream().map(List::toArray).toList());
+                playStatsService.runWithTriggersSuspended(songIds, () ->
+                        jdbcTemplate.batchUpdate(PlayRawTrackService.INSERT_PLAY_SQL, inserts));
+            }
+            if (page.page() > 1) {
+                jdbcTemplate.update("UPDATE lastfm_import_checkpoint SET next_page = ?, updated_at = ? WHERE account = ?",
+                        page.page() - 1, LocalDateTime.now().format(TIMESTAMP_FORMAT), account);
+            } else {
+                jdbcTemplate.update("DELETE FROM lastfm_import_checkpoint WHERE account = ?", account);
+            }
+        });
+    }
+
+    /**
+     * {@link PlayRawTrackService#INSERT_PLAY_SQL} parameters of a parsed row
+     * (uts, play_date, artist, album, song, song_id, account).
+     */
+    private static Object[] insertParameters(Object[] row) {
+        return PlayRawTrackService.insertPlayParameters(row[0], (String) row[1], (String) row[2], (String) row[3],
+                (String) row[4], (Integer) row[5], (String) row[6]);
+    }
+
+    private Checkpoint loadCheckpoint(String account) {
+        List<Checkpoint> rows = jdbcTemplate.query(
+                "SELECT from_uts, to_uts, total_pages, next_page FROM lastfm_import_checkpoint WHERE account = ?",
+                (rs, rowNum) -> new Checkpoint(rs.getLong("from_uts"), rs.getLong("to_uts"),
+                        rs.getInt("total_pages"), rs.getInt("next_page")),
+                account);
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+
+    private void saveCheckpoint(String account, Checkpoint checkpoint) {
+        writeQueue.run(() -> jdbcTemplate.update("""
+                INSERT OR REPLACE INTO lastfm_import_checkpoint (account, from_uts, to_uts, total_pages, next_page, updated_at)
+                VALUES (?, ?, ?, ?, ?, ?)
+                """, account, checkpoint.fromUts(), checkpoint.toUts(), checkpoint.totalPages(),
+                checkpoint.nextPage(), LocalDateTime.now().format(TIMESTAMP_FORMAT)));
+    }
+
+    private static PageResult await(CompletableFuture<PageResult> future) throws Exception {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof Exception cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
@@ -25,9 +25,11 @@ public class PcService {
     private static final String CURRENT_TABLE = "vatos_cuntdown_entry";
 
     private final JdbcTemplate jdbcTemplate;
+    private final SongCandidateService songCandidateService;
 
-    public PcService(JdbcTemplate jdbcTemplate) {
+    public PcService(JdbcTemplate jdbcTemplate, SongCandidateService songCandidateService) {
         this.jdbcTemplate = jdbcTemplate;
+        this.songCandidateService = songCandidateService;
     }
 
     public Map<String, Object> getPcStatsBySongId(Integer songId) {
@@ -738,22 +740,12 @@ public class PcService {
         return updatedRows;
     }
 
+    /**
+     * Search songs for the match modal, ranked by trigram similarity and topped up with
+     * substring matches (see {@link SongCandidateService#searchForMatch}).
+     */
     public List<Map<String, Object>> searchSongs(String q, int limit) {
-        String like = "%" + q.toLowerCase() + "%";
-        String sql =
-            "SELECT s.id, s.name AS title, a.name AS artist_name " +
-            "FROM Song s " +
-            "JOIN Artist a ON a.id = s.artist_id " +
-            "WHERE LOWER(s.name) LIKE ? OR LOWER(a.name) LIKE ? " +
-            "ORDER BY s.name COLLATE NOCASE ASC " +
-            "LIMIT ?";
-        return jdbcTemplate.query(sql, (rs, rowNum) -> {
-            Map<String, Object> row = new LinkedHashMap<>();
-            row.put("id", rs.getInt("id"));
-            row.put("title", rs.getString("title"));
-            row.put("artistName", rs.getString("artist_name"));
-            return row;
-        }, like, like, limit);
+        return songCandidateService.searchForMatch(q, limit);
     }
 
     /**
@@ -0,0 +1,169 @@
+package library.service;
+
+import library.entity.Play;
+import library.util.CsvRecordReader;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Bulk loader for Last.fm CSV exports.
+ *
+ * Rows are tokenized straight from the stream (no bean binding) and matched against the song
+ * lookup on the caller's thread; every batchSize rows the chunk is written as one queued write
+ * on {@link SqliteWriteQueue}, so interactive writes commit between chunks instead of waiting
+ * for the whole file. Each distinct raw (artist, album, song) is interned into play_raw_track
+ * the first time the load sees it, so the INSERT can set raw_track_id itself. Column positions
+ * follow the Last.fm export: 0 uts, 1 date, 2 artist, 4 album, 6 track, with one header line.
+ *
+ * The play stats triggers are suspended for the whole load and the stats tables rebuilt once
+ * at the end, whether the load finished or not.
+ */
+@Service
+public class PlayBulkLoadService {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PlayStatsService playStatsService;
+    private final SqliteWriteQueue writeQueue;
+
+    public PlayBulkLoadService(JdbcTemplate jdbcTemplate, PlayStatsService playStatsService,
+                               SqliteWriteQueue writeQueue) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.playStatsService = playStatsService;
+        this.writeQueue = writeQueue;
+    }
+
+    /**
+     * Totals of one load. unmatchedCounts is keyed by artist||album||song as found in the file.
+     */
+    public record LoadResult(int processed, int matched, int unmatched, int errors, long elapsedMillis,
+                             Map<String, int[]> unmatchedCounts) {
+
+        public int rowsPerSecond() {
+            return (int) (processed * 1000L / Math.max(elapsedMillis, 1));
+        }
+    }
+
+    /**
+     * Loads every row of the CSV. With dryRun the file is parsed and matched but nothing is written.
+     *
+     * @param songLookup PlayService lookup keys (artist||album||song) to song ids
+     */
+    public LoadResult load(InputStream inputStream, String account, Map<String, Integer> songLookup,
+                           int batchSize, boolean dryRun) throws IOException {
+        long start = System.nanoTime();
+        int chunkSize = Math.max(batchSize, 1);
+        try (CsvRecordReader reader = new CsvRecordReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8))) {
+            reader.next(); // header
+            if (dryRun) {
+                return loadRows(reader, account, songLookup, chunkSize, false, start);
+            }
+            playStatsService.suspendTriggers();
+            try {
+                return loadRows(reader, account, songLookup, chunkSize, true, start);
+            } finally {
+                playStatsService.resumeTriggers();
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private LoadResult loadRows(CsvRecordReader reader, String account, Map<String, Integer> songLookup, int chunkSize,
+                                boolean write, long start) {
+        int processed = 0;
+        int matched = 0;
+        int unmatched = 0;
+        int errors = 0;
+        Map<String, int[]> unmatchedCounts = new HashMap<>();
+        Set<String> interned = new HashSet<>();
+        List<Object[]> names = new ArrayList<>();
+        List<Object[]> inserts = new ArrayList<>(chunkSize);
+
+        while (true) {
+            List<String> record;
+            try {
+                record = reader.next();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            if (record == null) {
+                break;
+            }
+            if (record.size() == 1 && record.get(0).isBlank()) {
+                continue;
+            }
+
+            int lastfmId;
+            try {
+                String uts = field(record, 0);
+                lastfmId = uts == null || uts.isBlank() ? 0 : Integer.parseInt(uts.trim());
+            } catch (NumberFormatException e) {
+                errors++;
+                System.err.println("Skipping CSV row due to parse error: " + e.getMessage());
+                continue;
+            }
+            String playDate = Play.normalizePlayDate(field(record, 1));
+            String artist = field(record, 2);
+            String album = field(record, 4);
+            String song = field(record, 6);
+
+            Integer songId = songLookup.get(PlayService.createLookupKey(artist, album, song));
+            String rawKey = (artist != null ? artist : "") + "||" +
+                            (album != null ? album : "") + "||" +
+                            (song != null ? song : "");
+            if (songId != null) {
+                matched++;
+            } else {
+                unmatched++;
+                unmatchedCounts.computeIfAbsent(rawKey, k -> new int[]{0})[0]++;
+            }
+            processed++;
+
+            if (write) {
+                if (interned.add(rawKey)) {
+                    names.add(new Object[]{artist, album, song});
+                }
+                inserts.add(PlayRawTrackService.insertPlayParameters(lastfmId, playDate, artist, album, song,
+                        songId, account));
+                if (inserts.size() >= chunkSize) {
+                    commitChunk(names, inserts);
+                    names = new ArrayList<>();
+                    inserts = new ArrayList<>(chunkSize);
+                }
+            }
+        }
+
+        if (!inserts.isEmpty()) {
+            commitChunk(names, inserts);
+        }
+
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        return new LoadResult(processed, matched, unmatched, errors, elapsedMillis, unmatchedCounts);
+    }
+
+    /**
+     * Interns the chunk's new raw names and inserts its plays in one queued write.
+     */
+    private void commitChunk(List<Object[]> names, List<Object[]> inserts) {
+        writeQueue.run(() -> {
+            jdbcTemplate.batchUpdate(PlayRawTrackService.INTERN_SQL, names);
+            jdbcTemplate.batchUpdate(PlayRawTrackService.INSERT_PLAY_SQL, inserts);
+        });
+    }
+
+    private static String field(List<String> record, int index) {
+        return index < record.size() ? record.get(index) : null;
+    }
+}
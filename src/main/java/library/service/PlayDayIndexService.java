@@ -0,0 +1,60 @@
+package library.service;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Maintains Play.play_day, the play's calendar day as an integer (yyyyMMdd, e.g. 20240105).
+ *
+ * Date range filters written as DATE(p.play_date) >= ? cannot use an index because the
+ * column is wrapped in a function. Filtering on play_day instead lets SQLite seek
+ * idx_play_day_song (date ranges across all songs) or idx_play_song_day (one song's plays
+ * within a range) directly. play_day is a VIRTUAL generated column over play_date, so every
+ * insert path and every play_date edit keep it (and the two indexes) current without a
+ * second write to Play.
+ */
+@Service
+public class PlayDayIndexService {
+
+    private static final DateTimeFormatter DAY_NUMBER_FORMAT = DateTimeFormatter.BASIC_ISO_DATE;
+    private static final String DAY_NUMBER_EXPR = "CAST(REPLACE(SUBSTR(%s, 1, 10), '-', '') AS INTEGER)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public PlayDayIndexService(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    public void initialize() {
+        // table_info leaves generated columns out; table_xinfo lists them
+        Integer existing = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM pragma_table_xinfo('Play') WHERE name = 'play_day'", Integer.class);
+        if (existing == null || existing == 0) {
+            jdbcTemplate.execute("ALTER TABLE Play ADD COLUMN play_day INTEGER GENERATED ALWAYS AS (%s) VIRTUAL"
+                    .formatted(DAY_NUMBER_EXPR.formatted("play_date")));
+        }
+
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_play_day_song ON Play(play_day, song_id)");
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_play_song_day ON Play(song_id, play_day)");
+    }
+
+    /**
+     * SQL expression for the play_day value of dateColumn, e.g. "NEW.play_date" inside a
+     * trigger. The generated column uses the same expression.
+     */
+    static String dayNumberExpression(String dateColumn) {
+        return DAY_NUMBER_EXPR.formatted(dateColumn);
+    }
+
+    /**
+     * The play_day value for a calendar day, for binding against Play.play_day.
+     */
+    public static int toDayNumber(LocalDate date) {
+        return Integer.parseInt(date.format(DAY_NUMBER_FORMAT));
+    }
+}
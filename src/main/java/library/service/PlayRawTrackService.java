@@ -0,0 +1,242 @@
+package library.service;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Maintains the raw scrobble dictionary and the unmatched play groups.
+ *
+ * play_raw_track interns every distinct (artist, album, song) triple found on Play (NULLs stored
+ * as '') together with a case-folded match_key, and Play.raw_track_id points at it.
+ * unmatched_group keeps the number of unmatched plays per (account, raw track), so the unmatched
+ * page, assignment and deletion are index lookups instead of GROUP BY / LOWER() scans over the
+ * whole play table.
+ *
+ * Play inserters intern the names with {@link #INTERN_SQL} and write raw_track_id in the INSERT
+ * itself ({@link #INSERT_PLAY_SQL}); assignment re-points it at the canonical names. Plays
+ * written any other way keep a NULL raw_track_id until the next startup {@link #backfill}.
+ * unmatched_group is kept current by triggers on Play, which never write Play back.
+ *
+ * The artist, album and song columns stay on Play: renames and the sync scripts rewrite them to
+ * the catalog's current names, and the Play entity, matching and reconciliation read them,
+ * while raw_track_id keeps the names the play was imported (or last assigned) with.
+ */
+@Service
+public class PlayRawTrackService {
+
+    private static final String MATCH_KEY_EXPR = "LOWER(%s) || char(31) || LOWER(%s) || char(31) || LOWER(%s)";
+    private static final String RAW_TRACK_ID_SQL =
+            "(SELECT id FROM play_raw_track WHERE artist = COALESCE(?, '') AND album = COALESCE(?, '') AND song = COALESCE(?, ''))";
+
+    /**
+     * Interns one (artist, album, song) triple, given as three parameters. Run it before
+     * inserting plays with those names; running it again for the same names does nothing.
+     */
+    public static final String INTERN_SQL = """
+            INSERT OR IGNORE INTO play_raw_track (artist, album, song, match_key)
+            SELECT artist, album, song, %s
+            FROM (SELECT COALESCE(?, '') AS artist, COALESCE(?, '') AS album, COALESCE(?, '') AS song)
+            """.formatted(MATCH_KEY_EXPR.formatted("artist", "album", "song"));
+
+    /**
+     * Play INSERT that resolves raw_track_id from the already interned names. Parameters are
+     * {@link #insertPlayParameters}.
+     */
+    public static final String INSERT_PLAY_SQL =
+            "INSERT INTO play (lastfm_id, play_date, artist, album, song, song_id, account, raw_track_id) VALUES (?, ?, ?, ?, ?, ?, ?, "
+                    + RAW_TRACK_ID_SQL + ")";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public PlayRawTrackService(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    public void initialize() {
+        jdbcTemplate.execute("""
+                CREATE TABLE IF NOT EXISTS play_raw_track (
+                    id INTEGER PRIMARY KEY,
+                    artist TEXT NOT NULL,
+                    album TEXT NOT NULL,
+                    song TEXT NOT NULL,
+                    match_key TEXT NOT NULL,
+                    UNIQUE (artist, album, song)
+                )
+                """);
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_play_raw_track_match_key ON play_raw_track(match_key)");
+        jdbcTemplate.execute("""
+                CREATE TABLE IF NOT EXISTS unmatched_group (
+                    account TEXT NOT NULL,
+                    raw_track_id INTEGER NOT NULL,
+                    play_count INTEGER NOT NULL,
+                    PRIMARY KEY (account, raw_track_id)
+                ) WITHOUT ROWID
+                """);
+
+        List<Map<String, Object>> columns = jdbcTemplate.queryForList("PRAGMA table_info(Play)");
+        boolean columnExists = columns.stream()
+                .map(column -> column.get("name"))
+                .anyMatch(name -> name != null && "raw_track_id".equalsIgnoreCase(name.toString()));
+        if (!columnExists) {
+            jdbcTemplate.execute("ALTER TABLE Play ADD COLUMN raw_track_id INTEGER");
+        }
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_play_unmatched_raw_track ON Play(raw_track_id) WHERE song_id IS NULL");
+
+        jdbcTemplate.execute("DROP TRIGGER IF EXISTS play_raw_track_insert");
+        jdbcTemplate.execute("DROP TRIGGER IF EXISTS play_raw_track_update");
+        jdbcTemplate.execute("DROP TRIGGER IF EXISTS play_unmatched_group_insert");
+        jdbcTemplate.execute("DROP TRIGGER IF EXISTS play_unmatched_group_update");
+        jdbcTemplate.execute("DROP TRIGGER IF EXISTS play_unmatched_group_delete");
+
+        backfill();
+        rebuildUnmatchedGroups();
+
+        jdbcTemplate.execute("""
+                CREATE TRIGGER play_unmatched_group_insert
+                AFTER INSERT ON Play
+                WHEN NEW.song_id IS NULL AND NEW.raw_track_id IS NOT NULL
+                BEGIN
+                    INSERT INTO unmatched_group (account, raw_track_id, play_count)
+                    VALUES (COALESCE(NEW.account, ''), NEW.raw_track_id, 1)
+                    ON CONFLICT (account, raw_track_id) DO UPDATE SET play_count = play_count + 1;
+                END
+                """);
+        // Also counts plays whose raw_track_id is filled in later (backfill)
+        jdbcTemplate.execute("""
+                CREATE TRIGGER play_unmatched_group_update
+                AFTER UPDATE OF song_id, raw_track_id, account ON Play
+                BEGIN
+                    UPDATE unmatched_group SET play_count = play_count - 1
+                    WHERE OLD.song_id IS NULL AND account = COALESCE(OLD.account, '') AND raw_track_id = OLD.raw_track_id;
+                    DELETE FROM unmatched_group
+                    WHERE play_count <= 0 AND account = COALESCE(OLD.account, '') AND raw_track_id = OLD.raw_track_id;
+                    INSERT INTO unmatched_group (account, raw_track_id, play_count)
+                    SELECT COALESCE(NEW.account, ''), NEW.raw_track_id, 1
+                    WHERE NEW.song_id IS NULL AND NEW.raw_track_id IS NOT NULL
+                    ON CONFLICT (account, raw_track_id) DO UPDATE SET play_count = play_count + 1;
+                END
+                """);
+        jdbcTemplate.execute("""
+                CREATE TRIGGER play_unmatched_group_delete
+                AFTER DELETE ON Play
+                WHEN OLD.song_id IS NULL
+                BEGIN
+                    UPDATE unmatched_group SET play_count = play_count - 1
+                    WHERE account = COALESCE(OLD.account, '') AND raw_track_id = OLD.raw_track_id;
+                    DELETE FROM unmatched_group
+                    WHERE play_count <= 0 AND account = COALESCE(OLD.account, '') AND raw_track_id = OLD.raw_track_id;
+                END
+                """);
+    }
+
+    /**
+     * Parameters for {@link #INSERT_PLAY_SQL}.
+     */
+    public static Object[] insertPlayParameters(Object lastfmId, String playDate, String artist, String album,
+                                                String song, Integer songId, String account) {
+        return new Object[]{lastfmId, playDate, artist, album, song, songId, account, artist, album, song};
+    }
+
+    /**
+     * Interns the raw names of plays written before the column existed, or by writers that
+     * don't set it.
+     *
+     * @return number of plays updated
+     */
+    public int backfill() {
+        jdbcTemplate.update("""
+                INSERT OR IGNORE INTO play_raw_track (artist, album, song, match_key)
+                SELECT DISTINCT COALESCE(artist, ''), COALESCE(album, ''), COALESCE(song, ''),
+                       %s
+                FROM Play WHERE raw_track_id IS NULL
+                """.formatted(MATCH_KEY_EXPR.formatted("COALESCE(artist, '')", "COALESCE(album, '')", "COALESCE(song, '')")));
+        return jdbcTemplate.update("""
+                UPDATE Play SET raw_track_id = (
+                    SELECT r.id FROM play_raw_track r
+                    WHERE r.artist = COALESCE(Play.artist, '') AND r.album = COALESCE(Play.album, '') AND r.song = COALESCE(Play.song, '')
+                ) WHERE raw_track_id IS NULL
+                """);
+    }
+
+    /**
+     * Recounts unmatched_group from the unmatched plays.
+     */
+    public void rebuildUnmatchedGroups() {
+        jdbcTemplate.update("DELETE FROM unmatched_group");
+        jdbcTemplate.update("""
+                INSERT INTO unmatched_group (account, raw_track_id, play_count)
+                SELECT COALESCE(account, ''), raw_track_id, COUNT(*)
+                FROM Play
+                WHERE song_id IS NULL AND raw_track_id IS NOT NULL
+                GROUP BY COALESCE(account, ''), raw_track_id
+                """);
+    }
+
+    /**
+     * Unmatched play groups (account, artist, album, song, cnt), largest first. account null means
+     * every account, "__BLANK__" only plays without an account.
+     */
+    public List<Map<String, Object>> findUnmatchedGroups(String account) {
+        String sql = """
+                SELECT g.account, r.artist, r.album, r.song, g.play_count as cnt
+                FROM unmatched_group g
+                JOIN play_raw_track r ON r.id = g.raw_track_id
+                """;
+        if (account == null) {
+            return jdbcTemplate.queryForList(sql + " ORDER BY cnt DESC");
+        }
+        String accountKey = "__BLANK__".equals(account) ? "" : account;
+        return jdbcTemplate.queryForList(sql + " WHERE g.account = ? ORDER BY cnt DESC", accountKey);
+    }
+
+    /**
+     * Links every unmatched play whose raw names equal (ignoring case) the given ones to songId,
+     * across all accounts, and rewrites the play names (and raw_track_id) to the canonical ones.
+     *
+     * @return number of plays updated
+     */
+    public int assignUnmatched(String artist, String album, String song, Integer songId,
+                               String canonicalArtist, String canonicalAlbum, String canonicalSong) {
+        String canonicalAlbumName = canonicalAlbum != null ? canonicalAlbum : "";
+        jdbcTemplate.update(INTERN_SQL, canonicalArtist, canonicalAlbumName, canonicalSong);
+        String sql = """
+                UPDATE Play SET song_id = ?, artist = ?, album = ?, song = ?, raw_track_id = %s
+                WHERE song_id IS NULL
+                  AND raw_track_id IN (SELECT id FROM play_raw_track WHERE match_key = %s)
+                """.formatted(RAW_TRACK_ID_SQL, MATCH_KEY_EXPR.formatted("?", "?", "?"));
+        return jdbcTemplate.update(sql,
+                songId,
+                canonicalArtist,
+                canonicalAlbumName,
+                canonicalSong,
+                canonicalArtist,
+                canonicalAlbumName,
+                canonicalSong,
+                artist != null ? artist : "",
+                album != null ? album : "",
+                song != null ? song : "");
+    }
+
+    /**
+     * Deletes the unmatched plays of one account with exactly these raw names.
+     *
+     * @return number of plays deleted
+     */
+    public int deleteUnmatched(String account, String artist, String album, String song) {
+        return jdbcTemplate.update("""
+                DELETE FROM Play
+                WHERE song_id IS NULL
+                  AND raw_track_id = (SELECT id FROM play_raw_track WHERE artist = ? AND album = ? AND song = ?)
+                  AND COALESCE(account, '') = ?
+                """,
+                artist != null ? artist : "",
+                album != null ? album : "",
+                song != null ? song : "",
+                account != null ? account : "");
+    }
+}
@@ -1,46 +1,43 @@
 package library.service;
 
-import library.entity.Play;
-import library.repository.PlayRepository;
+import library.util.SongMatchKeyStore;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.PlatformTransactionManager;
-import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
 import tools.jackson.databind.JsonNode;
 import tools.jackson.databind.ObjectMapper;
-import com.opencsv.bean.CsvToBean;
-import com.opencsv.bean.CsvToBeanBuilder;
 
-import java.io.InputStreamReader;
-import java.io.Reader;
+import java.io.InputStream;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.time.Duration;
-import java.time.Instant;
-import java.time.ZoneId;
-import java.time.ZonedDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
 @Service
 public class PlayService {
     
-    private final PlayRepository playRepository;
     private final JdbcTemplate jdbcTemplate;
-    private final TransactionTemplate transactionTemplate;
+    private final LastfmPlayImportService lastfmPlayImportService;
+    private final PlayBulkLoadService playBulkLoadService;
+    private final SongMatchIndexService songMatchIndexService;
+    private final PlayRawTrackService playRawTrackService;
+    private final SqliteWriteQueue writeQueue;
     
-    public PlayService(PlayRepository playRepository, JdbcTemplate jdbcTemplate, PlatformTransactionManager txManager) {
-        this.playRepository = playRepository;
+    public PlayService(JdbcTemplate jdbcTemplate, LastfmPlayImportService lastfmPlayImportService,
+                       PlayBulkLoadService playBulkLoadService, SongMatchIndexService songMatchIndexService,
+                       PlayRawTrackService playRawTrackService, SqliteWriteQueue writeQueue) {
         this.jdbcTemplate = jdbcTemplate;
-        this.transactionTemplate = new TransactionTemplate(txManager);
+        this.lastfmPlayImportService = lastfmPlayImportService;
+        this.playBulkLoadService = playBulkLoadService;
+        this.songMatchIndexService = songMatchIndexService;
+        this.playRawTrackService = playRawTrackService;
+        this.writeQueue = writeQueue;
     }
     
     /**
@@ -49,116 +46,19 @@ public class PlayService {
      * Does NOT remove parentheses or featured artists to avoid false matches.
      * E.g., "José" matches "Jose", but "7 Days" does NOT match "7 Days (feat. Fat Joe)"
      */
-    private String createLookupKey(String artist, String album, String song) {
-        String a = artist != null ? library.util.StringNormalizer.normalizeForImport(artist) : "";
-        String al = album != null ? library.util.StringNormalizer.normalizeForImport(album) : "";
-        String s = song != null ? library.util.StringNormalizer.normalizeForImport(song) : "";
-        return a + "||" + al + "||" + s;
+    static String createLookupKey(String artist, String album, String song) {
+        return SongMatchKeyStore.importKey(artist, album, song);
     }
     
     /**
-     * Stream-import plays from a multipart file. Processes rows using a streaming iterator
-     * and saves in chunks of `batchSize`. If dryRun is true, it will not write to the DB and
+     * Stream-import plays from a multipart file. Rows are bulk-loaded by PlayBulkLoadService
+     * and committed in chunks of `batchSize`. If dryRun is true, it will not write to the DB and
      * will return statistics only.
      * 
      * This avoids loading the whole CSV into memory.
      */
     public Map<String, Integer> importPlaysStream(MultipartFile file, String account, int batchSize, boolean dryRun) throws Exception {
-        // Build song lookup map once (artist||album||song -> id)
-        Map<String, Integer> songLookup = new HashMap<>();
-        String sql = "SELECT s.id as id, a.name as artist, COALESCE(al.name,'') as album, s.name as song FROM song s "
-                + "LEFT JOIN artist a ON s.artist_id = a.id "
-                + "LEFT JOIN album al ON s.album_id = al.id";
-        List<Map<String, Object>> rows = jdbcTemplate.queryForList(sql);
-        for (Map<String, Object> row : rows) {
-            Number idNum = (Number) row.get("id");
-            if (idNum == null) continue;
-            int id = idNum.intValue();
-            String artist = row.get("artist") != null ? row.get("artist").toString() : "";
-            String album = row.get("album") != null ? row.get("album").toString() : "";
-            String song = row.get("song") != null ? row.get("song").toString() : "";
-            String key = createLookupKey(artist, album, song);
-            songLookup.putIfAbsent(key, id);
-        }
-
-        int totalProcessed = 0;
-        int totalMatched = 0;
-        int totalUnmatched = 0;
-        int totalErrors = 0;
-
-        List<Play> batch = new ArrayList<>(batchSize);
-
-        try (Reader reader = new InputStreamReader(file.getInputStream())) {
-            CsvToBean<Play> csvToBean = new CsvToBeanBuilder<Play>(reader)
-                    .withType(Play.class)
-                    .withSkipLines(1)
-                    .withIgnoreQuotations(false)
-                    .build();
-            Iterator<Play> it = csvToBean.iterator();
-
-            while (true) {
-                Play pl = null;
-                try {
-                    if (!it.hasNext()) break;
-                    pl = it.next();
-                } catch (Exception e) {
-                    // Row-level parsing or introspection error: record and continue
-                    totalErrors++;
-                    System.err.println("Skipping CSV row due to parse error: " + e.getMessage());
-                    // Attempt to clear internal exception and continue - CsvToBean may have captured exceptions
-                    continue;
-                }
-
-                try {
-                    pl.setAccount(account);
-                    String key = createLookupKey(pl.getArtist(), pl.getAlbum(), pl.getSong());
-                    Integer songId = songLookup.get(key);
-                    if (songId != null) {
-                        pl.setSongId(songId);
-                        totalMatched++;
-                    } else {
-                        pl.setSongId(null);
-                        totalUnmatched++;
-                    }
-                    batch.add(pl);
-                    totalProcessed++;
-                } catch (Exception e) {
-                    totalErrors++;
-                    System.err.println("Skipping play due to processing error: " + e.getMessage());
-                    continue;
-                }
-
-                if (batch.size() >= batchSize) {
-                    final List<Play> toSave = new ArrayList<>(batch);
-                    if (!dryRun) {
-                        transactionTemplate.execute(status -> {
-                            playRepository.saveAll(toSave);
-                            return null;
-                        });
-                    }
-                    batch.clear();
-                }
-            }
-
-            // Save remaining
-            if (!batch.isEmpty()) {
-                final List<Play> toSave = new ArrayList<>(batch);
-                if (!dryRun) {
-                    transactionTemplate.execute(status -> {
-                        playRepository.saveAll(toSave);
-                        return null;
-                    });
-                }
-                batch.clear();
-            }
-        }
-
-        Map<String, Integer> stats = new HashMap<>();
-        stats.put("totalProcessed", totalProcessed);
-        stats.put("totalMatched", totalMatched);
-        stats.put("totalUnmatched", totalUnmatched);
-        stats.put("totalErrors", totalErrors);
-        return stats;
+        return importPlaysWithUnmatched(file, account, batchSize, dryRun).stats;
     }
 
     /**
@@ -167,21 +67,7 @@ public class PlayService {
      * Each map contains keys: account, artist, album, song, cnt
      */
     public java.util.List<java.util.Map<String, Object>> getUnmatchedPlays(String account) {
-        String baseSql = "SELECT COALESCE(account,'') as account, COALESCE(artist,'') as artist, COALESCE(album,'') as album, COALESCE(song,'') as song, COUNT(*) as cnt "
-                + "FROM play WHERE song_id IS NULL ";
-        java.util.List<java.util.Map<String, Object>> rows;
-        if (account == null) {
-            String sql = baseSql + "GROUP BY account, artist, album, song ORDER BY cnt DESC";
-            rows = jdbcTemplate.queryForList(sql);
-        } else if ("__BLANK__".equals(account)) {
-            // Special marker: only blank/null accounts
-            String sql = baseSql + "AND (account IS NULL OR account = '') GROUP BY account, artist, album, song ORDER BY cnt DESC";
-            rows = jdbcTemplate.queryForList(sql);
-        } else {
-            String sql = baseSql + "AND account = ? GROUP BY account, artist, album, song ORDER BY cnt DESC";
-            rows = jdbcTemplate.queryForList(sql, account);
-        }
-        return rows;
+        return playRawTrackService.findUnmatchedGroups(account);
     }
 
     /**
@@ -212,6 +98,10 @@ public class PlayService {
      * @return The number of plays updated
      */
     public int assignPlaysToSong(String account, String artist, String album, String song, Integer songId) {
+        return writeQueue.write(() -> assignPlaysToSong(artist, album, song, songId));
+    }
+    
+    private int assignPlaysToSong(String artist, String album, String song, Integer songId) {
         // First, fetch the canonical names from the song
         String lookupSql = "SELECT s.name as song_name, ar.name as artist_name, COALESCE(al.name, '') as album_name " +
                            "FROM song s " +
@@ -232,21 +122,8 @@ public class PlayService {
         String canonicalSong = (String) songData.get("song_name");
         
         // Update plays with song_id AND canonical names
-        String sql = "UPDATE play SET song_id = ?, artist = ?, album = ?, song = ? " +
-                     "WHERE song_id IS NULL " +
-                     "AND COALESCE(LOWER(artist),'') = LOWER(?) " +
-                     "AND COALESCE(LOWER(album),'') = LOWER(?) " +
-                     "AND COALESCE(LOWER(song),'') = LOWER(?)";
-        
-        return jdbcTemplate.update(sql, 
-            songId,
-            canonicalArtist,
-            canonicalAlbum != null ? canonicalAlbum : "",
-            canonicalSong,
-            artist != null ? artist : "",
-            album != null ? album : "",
-            song != null ? song : ""
-        );
+        return playRawTrackService.assignUnmatched(artist, album, song, songId,
+            canonicalArtist, canonicalAlbum, canonicalSong);
     }
     
     /**
@@ -272,6 +149,8 @@ public class PlayService {
         public Map<String, Integer> stats;
         public List<Map<String, Object>> unmatchedGrouped;
         public ValidationResult validation;
+        /** Set for reconciliations: the play rows that were inserted and deleted. */
+        public LastfmPlayImportService.ReconcileResult reconciliation;
         
         public ImportResult(Map<String, Integer> stats, List<Map<String, Object>> unmatchedGrouped) {
             this.stats = stats;
@@ -359,125 +238,23 @@ public class PlayService {
     
     /**
      * Stream-import plays with full result including unmatched list.
+     * Stats include elapsedMillis and rowsPerSecond of the load.
      */
     public ImportResult importPlaysWithUnmatched(MultipartFile file, String account, int batchSize, boolean dryRun) throws Exception {
-        // Build song lookup map once (artist||album||song -> id)
-        Map<String, Integer> songLookup = new HashMap<>();
-        String sql = "SELECT s.id as id, a.name as artist, COALESCE(al.name,'') as album, s.name as song FROM song s "
-                + "LEFT JOIN artist a ON s.artist_id = a.id "
-                + "LEFT JOIN album al ON s.album_id = al.id";
-        List<Map<String, Object>> rows = jdbcTemplate.queryForList(sql);
-        for (Map<String, Object> row : rows) {
-            Number idNum = (Number) row.get("id");
-            if (idNum == null) continue;
-            int id = idNum.intValue();
-            String artist = row.get("artist") != null ? row.get("artist").toString() : "";
-            String album = row.get("album") != null ? row.get("album").toString() : "";
-            String song = row.get("song") != null ? row.get("song").toString() : "";
-            String key = createLookupKey(artist, album, song);
-            songLookup.putIfAbsent(key, id);
-        }
-
-        int totalProcessed = 0;
-        int totalMatched = 0;
-        int totalUnmatched = 0;
-        int totalErrors = 0;
-        
-        // Track unmatched plays grouped by artist/album/song
-        Map<String, int[]> unmatchedCounts = new HashMap<>(); // key -> [count]
-
-        List<Play> batch = new ArrayList<>(batchSize);
-
-        try (Reader reader = new InputStreamReader(file.getInputStream())) {
-            CsvToBean<Play> csvToBean = new CsvToBeanBuilder<Play>(reader)
-                    .withType(Play.class)
-                    .withSkipLines(1)
-                    .withIgnoreQuotations(false)
-                    .build();
-            Iterator<Play> it = csvToBean.iterator();
-
-            while (true) {
-                Play pl = null;
-                try {
-                    if (!it.hasNext()) break;
-                    pl = it.next();
-                } catch (Exception e) {
-                    totalErrors++;
-                    System.err.println("Skipping CSV row due to parse error: " + e.getMessage());
-                    continue;
-                }
-
-                try {
-                    pl.setAccount(account);
-                    String key = createLookupKey(pl.getArtist(), pl.getAlbum(), pl.getSong());
-                    Integer songId = songLookup.get(key);
-                    if (songId != null) {
-                        pl.setSongId(songId);
-                        totalMatched++;
-                    } else {
-                        pl.setSongId(null);
-                        totalUnmatched++;
-                        
-                        // Track for unmatched grouping
-                        String unmatchedKey = (pl.getArtist() != null ? pl.getArtist() : "") + "||" +
-                                              (pl.getAlbum() != null ? pl.getAlbum() : "") + "||" +
-                                              (pl.getSong() != null ? pl.getSong() : "");
-                        unmatchedCounts.computeIfAbsent(unmatchedKey, k -> new int[]{0})[0]++;
-                    }
-                    batch.add(pl);
-                    totalProcessed++;
-                } catch (Exception e) {
-                    totalErrors++;
-                    System.err.println("Skipping play due to processing error: " + e.getMessage());
-                    continue;
-                }
-
-                if (batch.size() >= batchSize) {
-                    final List<Play> toSave = new ArrayList<>(batch);
-                    if (!dryRun) {
-                        transactionTemplate.execute(status -> {
-                            playRepository.saveAll(toSave);
-                            return null;
-                        });
-                    }
-                    batch.clear();
-                }
-            }
-
-            // Save remaining
-            if (!batch.isEmpty()) {
-                final List<Play> toSave = new ArrayList<>(batch);
-                if (!dryRun) {
-                    transactionTemplate.execute(status -> {
-                        playRepository.saveAll(toSave);
-                        return null;
-                    });
-                }
-                batch.clear();
-            }
+        PlayBulkLoadService.LoadResult result;
+        try (InputStream inputStream = file.getInputStream()) {
+            result = playBulkLoadService.load(inputStream, account, buildSongLookup(), batchSize, dryRun);
         }
 
         Map<String, Integer> stats = new HashMap<>();
-        stats.put("totalProcessed", totalProcessed);
-        stats.put("totalMatched", totalMatched);
-        stats.put("totalUnmatched", totalUnmatched);
-        stats.put("totalErrors", totalErrors);
-        
-        // Convert unmatched to list of maps sorted by count desc
-        List<Map<String, Object>> unmatchedGrouped = new ArrayList<>();
-        for (Map.Entry<String, int[]> entry : unmatchedCounts.entrySet()) {
-            String[] parts = entry.getKey().split("\\|\\|", -1);
-            Map<String, Object> row = new HashMap<>();
-            row.put("artist", parts.length > 0 ? parts[0] : "");
-            row.put("album", parts.length > 1 ? parts[1] : "");
-            row.put("song", parts.length > 2 ? parts[2] : "");
-            row.put("account", account);
-            row.put("cnt", entry.getValue()[0]);
-            unmatchedGrouped.add(row);
-        }
-        unmatchedGrouped.sort((a, b) -> ((Integer) b.get("cnt")).compareTo((Integer) a.get("cnt")));
+        stats.put("totalProcessed", result.processed());
+        stats.put("totalMatched", result.matched());
+        stats.put("totalUnmatched", result.unmatched());
+        stats.put("totalErrors", result.errors());
+        stats.put("elapsedMillis", (int) result.elapsedMillis());
+        stats.put("rowsPerSecond", result.rowsPerSecond());
         
-        return new ImportResult(stats, unmatchedGrouped);
+        return new ImportResult(stats, groupUnmatched(result.unmatchedCounts(), account));
     }
     
     /**
@@ -491,19 +268,7 @@ public class PlayService {
      * @return The number of plays deleted
      */
     public int deleteUnmatchedPlays(String account, String artist, String album, String song) {
-        String sql = "DELETE FROM play " +
-                     "WHERE song_id IS NULL " +
-                     "AND COALESCE(account,'') = ? " +
-                     "AND COALESCE(artist,'') = ? " +
-                     "AND COALESCE(album,'') = ? " +
-                     "AND COALESCE(song,'') = ?";
-        
-        return jdbcTemplate.update(sql, 
-            account != null ? account : "",
-            artist != null ? artist : "",
-            album != null ? album : "",
-            song != null ? song : ""
-        );
+        return writeQueue.write(() -> playRawTrackService.deleteUnmatched(account, artist, album, song));
     }
     
     /**
@@ -524,190 +289,80 @@ public class PlayService {
     public int assignPlaysToSongWithCanonicalNames(String playAccount, String playArtist, 
             String playAlbum, String playSong, Integer songId,
             String canonicalArtist, String canonicalAlbum, String canonicalSong) {
-        String sql = "UPDATE play SET song_id = ?, artist = ?, album = ?, song = ? " +
-                     "WHERE song_id IS NULL " +
-                     "AND COALESCE(LOWER(artist),'') = LOWER(?) " +
-                     "AND COALESCE(LOWER(album),'') = LOWER(?) " +
-                     "AND COALESCE(LOWER(song),'') = LOWER(?)";
-        
-        return jdbcTemplate.update(sql, 
-            songId,
-            canonicalArtist,
-            canonicalAlbum != null ? canonicalAlbum : "",
-            canonicalSong,
-            playArtist != null ? playArtist : "",
-            playAlbum != null ? playAlbum : "",
-            playSong != null ? playSong : ""
-        );
+        return writeQueue.write(() -> playRawTrackService.assignUnmatched(playArtist, playAlbum, playSong, songId,
+            canonicalArtist, canonicalAlbum, canonicalSong));
     }
     
     /**
      * Fetches recent plays from Last.fm API and imports them.
-     * Uses the Last.fm API endpoint with the 'from' parameter set to maxLastfmId + 1.
-     * Handles pagination by iterating through all pages.
+     * Imports every scrobble after the account's max lastfm_id through LastfmPlayImportService,
+     * which fetches pages concurrently and commits them one page at a time. A failed import
+     * keeps the pages already committed and the next call resumes with the remaining pages.
      * 
      * @param account The account name (e.g., "vatito")
      * @param apiKey The Last.fm API key
      * @return ImportResult with stats and unmatched list
      */
     public ImportResult fetchAndImportPlaysFromLastfm(String account, String apiKey) throws Exception {
-        // Get the max lastfm_id for this account
-        Map<String, Integer> maxIds = getMaxLastfmIdByAccount();
-        int maxLastfmId = maxIds.getOrDefault(account, 0);
-        int fromTimestamp = maxLastfmId + 1;
-        
-        // Build song lookup map once
-        Map<String, Integer> songLookup = new HashMap<>();
-        String sql = "SELECT s.id as id, a.name as artist, COALESCE(al.name,'') as album, s.name as song FROM song s "
-                + "LEFT JOIN artist a ON s.artist_id = a.id "
-                + "LEFT JOIN album al ON s.album_id = al.id";
-        List<Map<String, Object>> rows = jdbcTemplate.queryForList(sql);
-        for (Map<String, Object> row : rows) {
-            Number idNum = (Number) row.get("id");
-            if (idNum == null) continue;
-            int id = idNum.intValue();
-            String artist = row.get("artist") != null ? row.get("artist").toString() : "";
-            String album = row.get("album") != null ? row.get("album").toString() : "";
-            String song = row.get("song") != null ? row.get("song").toString() : "";
-            String key = createLookupKey(artist, album, song);
-            songLookup.putIfAbsent(key, id);
-        }
+        LastfmPlayImportService.ImportTotals totals =
+                lastfmPlayImportService.importRecentTracks(account, apiKey, buildSongLookup());
         
-        HttpClient client = HttpClient.newHttpClient();
-        ObjectMapper mapper = new ObjectMapper();
-        
-        int totalProcessed = 0;
-        int totalMatched = 0;
-        int totalUnmatched = 0;
-        int totalErrors = 0;
-        Map<String, int[]> unmatchedCounts = new HashMap<>();
-        List<Play> allPlays = new ArrayList<>();
-        
-        int currentPage = 1;
-        int totalPages = 1;
+        Map<String, Integer> stats = new HashMap<>();
+        stats.put("totalProcessed", totals.processed());
+        stats.put("totalMatched", totals.matched());
+        stats.put("totalUnmatched", totals.unmatched());
+        stats.put("totalErrors", totals.errors());
+        stats.put("totalPages", totals.totalPages());
         
-        do {
-            // Build the API URL with page parameter
-            String url = String.format(
-                "http://ws.audioscrobbler.com/2.0/?method=user.getrecenttracks&user=%s&api_key=%s&format=json&from=%d&page=%d&limit=200",
-                account, apiKey, fromTimestamp, currentPage
-            );
-            
-            // Fetch from the API
-            HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create(url))
-                .timeout(Duration.ofSeconds(30))
-                .GET()
-                .build();
-            
-            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
-            
-            if (response.statusCode() != 200) {
-                throw new RuntimeException("Last.fm API returned status " + response.statusCode() + " on page " + currentPage);
-            }
-            
-            // Parse JSON response
-            JsonNode root = mapper.readTree(response.body());
-            JsonNode recenttracks = root.path("recenttracks");
-            JsonNode tracks = recenttracks.path("track");
-            
-            // Get total pages from the first request
-            if (currentPage == 1) {
-                JsonNode attr = recenttracks.path("@attr");
-                totalPages = attr.path("totalPages").asInt(1);
-            }
-            
-            if (!tracks.isArray()) {
-                // No tracks on this page, move on
-                currentPage++;
-                continue;
-            }
-            
-            for (JsonNode track : tracks) {
-                try {
-                    // Skip "now playing" tracks that don't have a date
-                    JsonNode dateNode = track.path("date");
-                    if (dateNode.isMissingNode() || !dateNode.has("uts")) {
-                        continue;
-                    }
-                    
-                    String artistName = track.path("artist").path("#text").asString("");
-                    String albumName = track.path("album").path("#text").asString("");
-                    String songName = track.path("name").asString("");
-                    String utsStr = dateNode.path("uts").asString("");
-                    
-                    if (utsStr.isEmpty()) {
-                        totalErrors++;
-                        continue;
-                    }
-                    
-                    // Parse the UTS timestamp
-                    long uts = Long.parseLong(utsStr);
-                    
-                    // Convert to Mexico City timezone
-                    ZonedDateTime utcDate = Instant.ofEpochSecond(uts).atZone(ZoneId.of("UTC"));
-                    ZonedDateTime mexicoDate = utcDate.withZoneSameInstant(ZoneId.of("America/Mexico_City"));
-                    String formattedDate = mexicoDate.format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm"));
-                    
-                    Play pl = new Play();
-                    pl.setLastfmId((int) uts); // Use the UTS timestamp as the lastfm_id
-                    pl.setArtist(artistName);
-                    pl.setAlbum(albumName);
-                    pl.setSong(songName);
-                    pl.setAccount(account);
-                    // Set playDate directly without parsing (already formatted)
-                    try {
-                        java.lang.reflect.Field field = Play.class.getDeclaredField("playDate");
-                        field.setAccessible(true);
-                        field.set(pl, formattedDate);
-                    } catch (Exception e) {
-                        pl.setPlayDate(formattedDate);
-                    }
-                    
-                    // Match to song
-                    String key = createLookupKey(artistName, albumName, songName);
-                    Integer songId = songLookup.get(key);
-                    if (songId != null) {
-                        pl.setSongId(songId);
-                        totalMatched++;
-                    } else {
-                        pl.setSongId(null);
-                        totalUnmatched++;
-                        
-                        String unmatchedKey = artistName + "||" + albumName + "||" + songName;
-                        unmatchedCounts.computeIfAbsent(unmatchedKey, k -> new int[]{0})[0]++;
-                    }
-                    
-                    allPlays.add(pl);
-                    totalProcessed++;
-                    
-                } catch (Exception e) {
-                    totalErrors++;
-                    System.err.println("Error processing track: " + e.getMessage());
-                }
-            }
-            
-            currentPage++;
-            
-        } while (currentPage <= totalPages);
+        List<Map<String, Object>> unmatchedGrouped = groupUnmatched(totals.unmatchedCounts(), account);
         
-        // Save all plays
-        if (!allPlays.isEmpty()) {
-            final List<Play> toSave = new ArrayList<>(allPlays);
-            transactionTemplate.execute(status -> {
-                playRepository.saveAll(toSave);
-                return null;
-            });
+        // Validate play count against Last.fm
+        ValidationResult validation = null;
+        try {
+            validation = validatePlayCount(account, apiKey);
+        } catch (Exception e) {
+            System.err.println("Failed to validate play count: " + e.getMessage());
         }
         
+        return new ImportResult(stats, unmatchedGrouped, validation);
+    }
+    
+    /**
+     * Reconciles the account's plays of the last {@code days} days with Last.fm: inserts the
+     * scrobbles missing locally and deletes the local plays Last.fm no longer has, leaving every
+     * other row (and everything derived from it) untouched.
+     * 
+     * @return ImportResult with stats (totalProcessed, totalInserted, totalDeleted, totalUnmatched),
+     *         the unmatched list of the inserted plays, the changed play ids and a fresh validation
+     */
+    public ImportResult reconcileRecentPlaysFromLastfm(String account, String apiKey, int days) throws Exception {
+        LastfmPlayImportService.ReconcileResult reconciliation =
+                lastfmPlayImportService.reconcileRecentTracks(account, apiKey, days, buildSongLookup());
+        
         Map<String, Integer> stats = new HashMap<>();
-        stats.put("totalProcessed", totalProcessed);
-        stats.put("totalMatched", totalMatched);
-        stats.put("totalUnmatched", totalUnmatched);
-        stats.put("totalErrors", totalErrors);
-        stats.put("totalPages", totalPages);
+        stats.put("totalProcessed", reconciliation.fetched());
+        stats.put("totalInserted", reconciliation.insertedPlayIds().size());
+        stats.put("totalDeleted", reconciliation.deletedPlayIds().size());
+        stats.put("totalUnmatched", reconciliation.unmatched());
         
-        // Convert unmatched to list of maps sorted by count desc
+        ImportResult result = new ImportResult(stats, groupUnmatched(reconciliation.unmatchedCounts(), account),
+                validatePlayCount(account, apiKey));
+        result.reconciliation = reconciliation;
+        return result;
+    }
+    
+    /**
+     * The song lookup map (artist||album||song -> id) used to match imported plays. Served by
+     * SongMatchIndexService, which only re-normalizes songs changed since the last import.
+     */
+    private Map<String, Integer> buildSongLookup() {
+        return songMatchIndexService.importLookup();
+    }
+    
+    /**
+     * Converts unmatched counts (artist||album||song -> [count]) to a list of maps sorted by count desc.
+     */
+    private List<Map<String, Object>> groupUnmatched(Map<String, int[]> unmatchedCounts, String account) {
         List<Map<String, Object>> unmatchedGrouped = new ArrayList<>();
         for (Map.Entry<String, int[]> entry : unmatchedCounts.entrySet()) {
             String[] parts = entry.getKey().split("\\|\\|", -1);
@@ -720,16 +375,7 @@ public class PlayService {
             unmatchedGrouped.add(row);
         }
         unmatchedGrouped.sort((a, b) -> ((Integer) b.get("cnt")).compareTo((Integer) a.get("cnt")));
-        
-        // Validate play count against Last.fm
-        ValidationResult validation = null;
-        try {
-            validation = validatePlayCount(account, apiKey);
-        } catch (Exception e) {
-            System.err.println("Failed to validate play count: " + e.getMessage());
-        }
-        
-        return new ImportResult(stats, unmatchedGrouped, validation);
+        return unmatchedGrouped;
     }
     
     /**
@@ -740,7 +386,7 @@ public class PlayService {
      */
     public int deleteRecentPlays(int days) {
         String sql = "DELETE FROM play WHERE play_date > date('now', '-' || ? || ' days')";
-        return jdbcTemplate.update(sql, days);
+        return writeQueue.write(() -> jdbcTemplate.update(sql, days));
     }
 
     /**
@@ -748,7 +394,7 @@ public class PlayService {
      */
     public int deleteRecentPlays(String account, int days) {
         String sql = "DELETE FROM play WHERE play_date > date('now', '-' || ? || ' days') AND COALESCE(account, '') = ?";
-        return jdbcTemplate.update(sql, days, account != null ? account : "");
+        return writeQueue.write(() -> jdbcTemplate.update(sql, days, account != null ? account : ""));
     }
     
     /**
@@ -760,7 +406,7 @@ public class PlayService {
      */
     public int deletePlaysForSong(Long songId) {
         String sql = "DELETE FROM play WHERE song_id = ?";
-        return jdbcTemplate.update(sql, songId);
+        return writeQueue.write(() -> jdbcTemplate.update(sql, songId));
     }
     
     /**
@@ -0,0 +1,428 @@
+package library.service;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Maintains song_play_stats, album_play_stats and artist_play_stats: per song, album and
+ * artist, the play count (total and per account), first and last play date, listening time
+ * and the number of distinct days, weeks, months and years with a play.
+ *
+ * The song, album and artist lists read these instead of aggregating Play for every page,
+ * whenever no account or listened-date filter narrows the plays being counted. Column names
+ * match the aliases of the play_stats subqueries they replace, so a table can be joined in
+ * as play_stats directly.
+ *
+ * Like song_period_counts, the tables are kept current by triggers on Play (every insert,
+ * delete and reassignment) and on Song (length edits, moves to another album or artist,
+ * deletes). Counts are adjusted by one; first/last dates are only recomputed when the
+ * removed play was the boundary, and a distinct period is only counted in or out when no
+ * other play of the same song, album or artist falls inside it (an indexed range probe on
+ * play_day).
+ *
+ * Bulk writers switch the Play triggers off with a row in play_stats_suspended (every
+ * trigger's WHEN clause checks it). The CSV loader suspends them for the whole load and
+ * ends with a {@link #rebuild}; the Last.fm import suspends them per page, inside the page's
+ * transaction, and recomputes just the songs, albums and artists the page touched.
+ */
+@Service
+public class PlayStatsService {
+
+    enum Scope {
+        SONG("song_play_stats", "song_id", "id"),
+        ALBUM("album_play_stats", "album_id", "album_id"),
+        ARTIST("artist_play_stats", "artist_id", "artist_id");
+
+        private final String table;
+        private final String keyColumn;
+        /** The Song column holding the key. */
+        private final String songColumn;
+
+        Scope(String table, String keyColumn, String songColumn) {
+            this.table = table;
+            this.keyColumn = keyColumn;
+            this.songColumn = songColumn;
+        }
+    }
+
+    /**
+     * Distinct listening periods. The aggregate expression is the one the list queries have
+     * always counted; {@link #bounds} gives the same period as an inclusive play_day range.
+     */
+    private enum Period {
+        DAYS("days_listened", "DATE(%1$s)"),
+        WEEKS("weeks_listened", "strftime('%%Y-%%W', %1$s)"),
+        MONTHS("months_listened", "strftime('%%Y-%%m', %1$s)"),
+        YEARS("years_listened", "strftime('%%Y', %1$s)");
+
+        private final String column;
+        private final String keyTemplate;
+
+        Period(String column, String keyTemplate) {
+            this.column = column;
+            this.keyTemplate = keyTemplate;
+        }
+
+        /**
+         * First and last play_day of the period containing dateColumn. %W weeks run Monday to
+         * Sunday and are cut at the year boundary (days before the first Monday are week 00).
+         */
+        private String[] bounds(String dateColumn) {
+            String day = PlayDayIndexService.dayNumberExpression(dateColumn);
+            String yearStart = "(" + day + " / 10000 * 10000 + 101)";
+            String yearEnd = "(" + day + " / 10000 * 10000 + 1231)";
+            return switch (this) {
+                case DAYS -> new String[]{day, day};
+                case WEEKS -> new String[]{
+                        "MAX(" + PlayDayIndexService.dayNumberExpression("date(" + dateColumn + ", 'weekday 0', '-6 days')") + ", " + yearStart + ")",
+                        "MIN(" + PlayDayIndexService.dayNumberExpression("date(" + dateColumn + ", 'weekday 0')") + ", " + yearEnd + ")"};
+                case MONTHS -> new String[]{"(" + day + " / 100 * 100 + 1)", "(" + day + " / 100 * 100 + 31)"};
+                case YEARS -> new String[]{yearStart, yearEnd};
+            };
+        }
+    }
+
+    /** Width of the key range one queued write of {@link #rebuild} recomputes. */
+    private static final int KEYS_PER_CHUNK = 2_000;
+
+    private static final String NOT_SUSPENDED = "NOT EXISTS (SELECT 1 FROM play_stats_suspended)";
+
+    private static final String COLUMNS = "play_count, vatito_play_count, robertlover_play_count, time_listened, "
+            + "first_listened, last_listened, days_listened, weeks_listened, months_listened, years_listened";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SqliteWriteQueue writeQueue;
+
+    /**
+     * Takes PlayDayIndexService so Play.play_day and its indexes exist before the triggers
+     * here probe them.
+     */
+    public PlayStatsService(JdbcTemplate jdbcTemplate, PlayDayIndexService playDayIndexService,
+                            SqliteWriteQueue writeQueue) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.writeQueue = writeQueue;
+    }
+
+    @PostConstruct
+    public void initialize() {
+        for (Scope scope : Scope.values()) {
+            jdbcTemplate.execute("""
+                    CREATE TABLE IF NOT EXISTS %1$s (
+                        %2$s INTEGER PRIMARY KEY,
+                        play_count INTEGER NOT NULL,
+                        vatito_play_count INTEGER NOT NULL,
+                        robertlover_play_count INTEGER NOT NULL,
+                        time_listened INTEGER NOT NULL,
+                        first_listened TEXT,
+                        last_listened TEXT,
+                        days_listened INTEGER NOT NULL,
+                        weeks_listened INTEGER NOT NULL,
+                        months_listened INTEGER NOT NULL,
+                        years_listened INTEGER NOT NULL
+                    )
+                    """.formatted(scope.table, scope.keyColumn));
+            for (String column : List.of("play_count", "first_listened", "last_listened")) {
+                jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_%1$s_%2$s ON %1$s(%2$s)".formatted(scope.table, column));
+            }
+        }
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS play_stats_suspended (id INTEGER PRIMARY KEY CHECK (id = 1))");
+        createTriggers();
+
+        // A leftover guard row means a bulk load died before its rebuild
+        Integer suspended = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM play_stats_suspended", Integer.class);
+        Integer statsRows = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM song_play_stats", Integer.class);
+        if (suspended != null && suspended > 0) {
+            resumeTriggers();
+        } else if (statsRows == null || statsRows == 0) {
+            rebuild();
+        }
+    }
+
+    /**
+     * Recomputes all three tables from Play, one KEYS_PER_CHUNK-wide key range per queued
+     * write so other writes get the writer in between. Each range is replaced atomically, so
+     * with the triggers on, keys already rebuilt stay current and keys not yet reached are
+     * overwritten when their range comes up.
+     */
+    public void rebuild() {
+        for (Scope scope : Scope.values()) {
+            long[] from = {Long.MIN_VALUE};
+            writeQueue.runInChunks(() -> {
+                long low = from[0];
+                long high = Math.max(low, 0) + KEYS_PER_CHUNK - 1;
+                jdbcTemplate.update("DELETE FROM " + scope.table + " WHERE " + scope.keyColumn + " BETWEEN ? AND ?",
+                        low, high);
+                jdbcTemplate.update(aggregateSql(scope, "BETWEEN ? AND ?"), low, high);
+                from[0] = high + 1;
+                Long lastKey = jdbcTemplate.queryForObject(
+                        "SELECT MAX(k) FROM (SELECT MAX(%s) AS k FROM Song UNION ALL SELECT MAX(%s) FROM %s)"
+                                .formatted(scope.songColumn, scope.keyColumn, scope.table), Long.class);
+                return lastKey != null && lastKey > high;
+            });
+        }
+    }
+
+    /**
+     * Switches the Play triggers off until {@link #resumeTriggers}. The guard row is committed,
+     * so plays any connection writes in between are left to the rebuild that resumes them.
+     */
+    public void suspendTriggers() {
+        writeQueue.run(() -> jdbcTemplate.update("INSERT OR IGNORE INTO play_stats_suspended (id) VALUES (1)"));
+    }
+
+    /**
+     * Switches the Play triggers back on, then rebuilds the tables. Plays written while the
+     * rebuild is under way are counted by the triggers or by the rebuild of their range.
+     */
+    public void resumeTriggers() {
+        writeQueue.run(() -> jdbcTemplate.update("DELETE FROM play_stats_suspended"));
+        rebuild();
+    }
+
+    /**
+     * Runs playWrites with the Play triggers off, then recomputes songIds and their albums and
+     * artists with one aggregate per table. Meant to be called inside the caller's transaction,
+     * so the guard row is never visible to other connections; songIds must cover every song
+     * whose plays playWrites inserts, deletes or moves.
+     */
+    public void runWithTriggersSuspended(Collection<Integer> songIds, Runnable playWrites) {
+        writeQueue.run(() -> {
+            boolean suspendedHere = jdbcTemplate.update(
+                    "INSERT OR IGNORE INTO play_stats_suspended (id) VALUES (1)") == 1;
+            try {
+                playWrites.run();
+            } finally {
+                if (suspendedHere) {
+                    jdbcTemplate.update("DELETE FROM play_stats_suspended");
+                }
+            }
+            recompute(songIds);
+        });
+    }
+
+    private void recompute(Collection<Integer> songIds) {
+        if (songIds.isEmpty()) {
+            return;
+        }
+        String ids = String.join(", ", Collections.nCopies(songIds.size(), "?"));
+        Object[] args = songIds.toArray();
+        for (Scope scope : Scope.values()) {
+            String keys = scope == Scope.SONG
+                    ? "IN (" + ids + ")"
+                    : "IN (SELECT " + scope.songColumn + " FROM Song WHERE id IN (" + ids + "))";
+            jdbcTemplate.update("DELETE FROM " + scope.table + " WHERE " + scope.keyColumn + " " + keys, args);
+            jdbcTemplate.update(aggregateSql(scope, keys), args);
+        }
+    }
+
+    /**
+     * INSERT of the aggregated stats of every key of scope, or of just the keys matched by
+     * keyCondition (e.g. "= OLD.album_id").
+     */
+    private static String aggregateSql(Scope scope, String keyCondition) {
+        List<String> periods = new ArrayList<>();
+        for (Period period : Period.values()) {
+            periods.add("COUNT(DISTINCT " + period.keyTemplate.formatted("p.play_date") + ")");
+        }
+        String key = "s." + scope.songColumn;
+        return """
+                INSERT INTO %1$s (%2$s, %3$s)
+                SELECT %4$s, COUNT(*), SUM(p.account IS 'vatito'), SUM(p.account IS 'robertlover'),
+                       SUM(COALESCE(CAST(s.length_seconds AS INTEGER), 0)), MIN(p.play_date), MAX(p.play_date), %5$s
+                FROM Song s
+                JOIN Play p ON p.song_id = s.id
+                WHERE %4$s %6$s
+                GROUP BY %4$s
+                """.formatted(scope.table, scope.keyColumn, COLUMNS, key, String.join(", ", periods),
+                keyCondition == null ? "IS NOT NULL" : keyCondition);
+    }
+
+    /**
+     * (Re)creates the Play and Song triggers. Play updates are handled as a delete of the old
+     * row followed by an insert of the new one; the distinct-period probes always exclude the
+     * play's own id, so the two halves cancel out when nothing relevant changed. None of the
+     * Play triggers fire while play_stats_suspended has its row.
+     */
+    private void createTriggers() {
+        for (String trigger : List.of("play_stats_insert", "play_stats_delete", "play_stats_update_old",
+                "play_stats_update_new", "play_stats_song_length", "play_stats_song_move", "play_stats_song_delete")) {
+            jdbcTemplate.execute("DROP TRIGGER IF EXISTS " + trigger);
+        }
+
+        jdbcTemplate.execute("""
+                CREATE TRIGGER play_stats_insert
+                AFTER INSERT ON Play
+                WHEN NEW.song_id IS NOT NULL AND %s
+                BEGIN
+                %s
+                END
+                """.formatted(NOT_SUSPENDED, addStatements("NEW")));
+        jdbcTemplate.execute("""
+                CREATE TRIGGER play_stats_delete
+                AFTER DELETE ON Play
+                WHEN OLD.song_id IS NOT NULL AND %s
+                BEGIN
+                %s
+                END
+                """.formatted(NOT_SUSPENDED, removeStatements("OLD")));
+        jdbcTemplate.execute("""
+                CREATE TRIGGER play_stats_update_old
+                AFTER UPDATE OF song_id, play_date, account ON Play
+                WHEN OLD.song_id IS NOT NULL
+                    AND (OLD.song_id IS NOT NEW.song_id OR OLD.play_date IS NOT NEW.play_date OR OLD.account IS NOT NEW.account)
+                    AND %s
+                BEGIN
+                %s
+                END
+                """.formatted(NOT_SUSPENDED, removeStatements("OLD")));
+        jdbcTemplate.execute("""
+                CREATE TRIGGER play_stats_update_new
+                AFTER UPDATE OF song_id, play_date, account ON Play
+                WHEN NEW.song_id IS NOT NULL
+                    AND (OLD.song_id IS NOT NEW.song_id OR OLD.play_date IS NOT NEW.play_date OR OLD.account IS NOT NEW.account)
+                    AND %s
+                BEGIN
+                %s
+                END
+                """.formatted(NOT_SUSPENDED, addStatements("NEW")));
+
+        // A length edit shifts listening time by the difference times the song's plays
+        StringBuilder lengthStatements = new StringBuilder();
+        for (Scope scope : Scope.values()) {
+            lengthStatements.append("""
+                    UPDATE %1$s SET time_listened = time_listened
+                        + (COALESCE(CAST(NEW.length_seconds AS INTEGER), 0) - COALESCE(CAST(OLD.length_seconds AS INTEGER), 0))
+                        * COALESCE((SELECT play_count FROM song_play_stats WHERE song_id = NEW.id), 0)
+                    WHERE %2$s = NEW.%3$s;
+                    """.formatted(scope.table, scope.keyColumn, scope.songColumn));
+        }
+        jdbcTemplate.execute("""
+                CREATE TRIGGER play_stats_song_length
+                AFTER UPDATE OF length_seconds ON Song
+                WHEN OLD.length_seconds IS NOT NEW.length_seconds
+                    AND OLD.album_id IS NEW.album_id AND OLD.artist_id IS NEW.artist_id
+                BEGIN
+                %s
+                END
+                """.formatted(lengthStatements));
+
+        // Moving a song (rare) recomputes the albums and artists on both sides
+        jdbcTemplate.execute("""
+                CREATE TRIGGER play_stats_song_move
+                AFTER UPDATE OF album_id, artist_id ON Song
+                WHEN OLD.album_id IS NOT NEW.album_id OR OLD.artist_id IS NOT NEW.artist_id
+                BEGIN
+                    UPDATE song_play_stats SET time_listened = play_count * COALESCE(CAST(NEW.length_seconds AS INTEGER), 0)
+                    WHERE song_id = NEW.id;
+                %s%s%s%s
+                END
+                """.formatted(recomputeStatements(Scope.ALBUM, "OLD.album_id"), recomputeStatements(Scope.ALBUM, "NEW.album_id"),
+                recomputeStatements(Scope.ARTIST, "OLD.artist_id"), recomputeStatements(Scope.ARTIST, "NEW.artist_id")));
+        jdbcTemplate.execute("""
+                CREATE TRIGGER play_stats_song_delete
+                AFTER DELETE ON Song
+                BEGIN
+                    DELETE FROM song_play_stats WHERE song_id = OLD.id;
+                %s%s
+                END
+                """.formatted(recomputeStatements(Scope.ALBUM, "OLD.album_id"), recomputeStatements(Scope.ARTIST, "OLD.artist_id")));
+    }
+
+    /**
+     * Adds play row to its song, album and artist.
+     */
+    private static String addStatements(String row) {
+        StringBuilder sql = new StringBuilder();
+        for (Scope scope : Scope.values()) {
+            String key = "s." + scope.songColumn;
+            List<String> newPeriods = new ArrayList<>();
+            List<String> periodUpdates = new ArrayList<>();
+            for (Period period : Period.values()) {
+                newPeriods.add("(" + row + ".play_date IS NOT NULL AND NOT " + periodHasOtherPlay(scope, key, period, row) + ")");
+                periodUpdates.add(period.column + " = " + period.column + " + excluded." + period.column);
+            }
+            sql.append("""
+                    INSERT INTO %1$s (%2$s, %3$s)
+                    SELECT %4$s, 1, %5$s.account IS 'vatito', %5$s.account IS 'robertlover',
+                           COALESCE(CAST(s.length_seconds AS INTEGER), 0), %5$s.play_date, %5$s.play_date, %6$s
+                    FROM Song s
+                    WHERE s.id = %5$s.song_id AND %4$s IS NOT NULL
+                    ON CONFLICT (%2$s) DO UPDATE SET
+                        play_count = play_count + 1,
+                        vatito_play_count = vatito_play_count + excluded.vatito_play_count,
+                        robertlover_play_count = robertlover_play_count + excluded.robertlover_play_count,
+                        time_listened = time_listened + excluded.time_listened,
+                        first_listened = COALESCE(MIN(first_listened, excluded.first_listened), first_listened, excluded.first_listened),
+                        last_listened = COALESCE(MAX(last_listened, excluded.last_listened), last_listened, excluded.last_listened),
+                        %7$s;
+                    """.formatted(scope.table, scope.keyColumn, COLUMNS, key, row,
+                    String.join(", ", newPeriods), String.join(",\n    ", periodUpdates)));
+        }
+        return sql.toString();
+    }
+
+    /**
+     * Removes play row from its song, album and artist. The song row is updated first, so the
+     * album and artist boundary dates can be recomputed from song_play_stats.
+     */
+    private static String removeStatements(String row) {
+        StringBuilder sql = new StringBuilder();
+        String length = "COALESCE((SELECT CAST(length_seconds AS INTEGER) FROM Song WHERE id = " + row + ".song_id), 0)";
+        for (Scope scope : Scope.values()) {
+            String key = scope == Scope.SONG
+                    ? row + ".song_id"
+                    : "(SELECT " + scope.keyColumn + " FROM Song WHERE id = " + row + ".song_id)";
+            String storedKey = scope.table + "." + scope.keyColumn;
+            String firstListened = scope == Scope.SONG
+                    ? "(SELECT MIN(play_date) FROM Play WHERE song_id = " + storedKey + ")"
+                    : "(SELECT MIN(sp.first_listened) FROM Song s JOIN song_play_stats sp ON sp.song_id = s.id WHERE s." + scope.keyColumn + " = " + storedKey + ")";
+            String lastListened = scope == Scope.SONG
+                    ? "(SELECT MAX(play_date) FROM Play WHERE song_id = " + storedKey + ")"
+                    : "(SELECT MAX(sp.last_listened) FROM Song s JOIN song_play_stats sp ON sp.song_id = s.id WHERE s." + scope.keyColumn + " = " + storedKey + ")";
+            List<String> periodUpdates = new ArrayList<>();
+            for (Period period : Period.values()) {
+                periodUpdates.add(period.column + " = " + period.column + " - (" + row + ".play_date IS NOT NULL AND NOT "
+                        + periodHasOtherPlay(scope, storedKey, period, row) + ")");
+            }
+            sql.append("""
+                    UPDATE %1$s SET
+                        play_count = play_count - 1,
+                        vatito_play_count = vatito_play_count - (%2$s.account IS 'vatito'),
+                        robertlover_play_count = robertlover_play_count - (%2$s.account IS 'robertlover'),
+                        time_listened = time_listened - %3$s,
+                        first_listened = CASE WHEN %2$s.play_date <= first_listened THEN %4$s ELSE first_listened END,
+                        last_listened = CASE WHEN %2$s.play_date >= last_listened THEN %5$s ELSE last_listened END,
+                        %6$s
+                    WHERE %7$s = %8$s;
+                    DELETE FROM %1$s WHERE %7$s = %8$s AND play_count <= 0;
+                    """.formatted(scope.table, row, length, firstListened, lastListened,
+                    String.join(",\n    ", periodUpdates), scope.keyColumn, key));
+        }
+        return sql.toString();
+    }
+
+    /**
+     * Whether a play other than row, of the song, album or artist key, falls in row's period.
+     * Album and artist probes walk the key's songs and seek idx_play_song_day for each.
+     */
+    private static String periodHasOtherPlay(Scope scope, String key, Period period, String row) {
+        String[] bounds = period.bounds(row + ".play_date");
+        if (scope == Scope.SONG) {
+            return "EXISTS (SELECT 1 FROM Play p WHERE p.song_id = %s AND p.play_day BETWEEN %s AND %s AND p.id <> %s.id)"
+                    .formatted(key, bounds[0], bounds[1], row);
+        }
+        return "EXISTS (SELECT 1 FROM Song s2 CROSS JOIN Play p ON p.song_id = s2.id WHERE s2.%s = %s AND p.play_day BETWEEN %s AND %s AND p.id <> %s.id)"
+                .formatted(scope.keyColumn, key, bounds[0], bounds[1], row);
+    }
+
+    private static String recomputeStatements(Scope scope, String keyExpression) {
+        return "DELETE FROM " + scope.table + " WHERE " + scope.keyColumn + " = " + keyExpression + ";\n"
+                + aggregateSql(scope, "= " + keyExpression).strip() + ";\n";
+    }
+}
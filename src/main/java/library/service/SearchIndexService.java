@@ -0,0 +1,185 @@
+package library.service;
+
+import jakarta.annotation.PostConstruct;
+import library.util.StringNormalizer;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Accent-folded name index for artists, albums and songs, used by the global search box and
+ * the now-playing lookup.
+ *
+ * search_name holds each name folded by {@link StringNormalizer#foldForSearchIndex}, which
+ * matches what normalizeForSearch() does to queries, and search_name_fts is an FTS5 trigram
+ * index over it, so "folded LIKE '%q%'" is answered from the index instead of running a
+ * REPLACE() chain over every row. Folding needs Java's Unicode normalization, so the
+ * Artist/Album/Song triggers only queue created, renamed and deleted ids in search_name_dirty
+ * and {@link #refresh()} refolds those every couple of seconds, off the request path, so a
+ * search never writes.
+ */
+@Service
+public class SearchIndexService {
+
+    public enum Kind {
+        ARTIST("artist", "Artist"),
+        ALBUM("album", "Album"),
+        SONG("song", "Song");
+
+        private final String key;
+        private final String table;
+
+        Kind(String key, String table) {
+            this.key = key;
+            this.table = table;
+        }
+    }
+
+    /** Names refolded per queued write, so a full rebuild does not hold the writer for long. */
+    private static final int NAMES_PER_CHUNK = 5_000;
+    private static final String DIRTY_CHUNK =
+            "SELECT kind, item_id FROM search_name_dirty ORDER BY kind, item_id LIMIT " + NAMES_PER_CHUNK;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SqliteWriteQueue writeQueue;
+
+    public SearchIndexService(JdbcTemplate jdbcTemplate, SqliteWriteQueue writeQueue) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.writeQueue = writeQueue;
+    }
+
+    @PostConstruct
+    public void initialize() {
+        jdbcTemplate.execute("""
+                CREATE TABLE IF NOT EXISTS search_name (
+                    id INTEGER PRIMARY KEY,
+                    kind TEXT NOT NULL,
+                    item_id INTEGER NOT NULL,
+                    folded TEXT NOT NULL,
+                    UNIQUE (kind, item_id)
+                )
+                """);
+        jdbcTemplate.execute("""
+                CREATE VIRTUAL TABLE IF NOT EXISTS search_name_fts USING fts5(
+                    folded, content = 'search_name', content_rowid = 'id', tokenize = 'trigram'
+                )
+                """);
+        jdbcTemplate.execute("""
+                CREATE TABLE IF NOT EXISTS search_name_dirty (
+                    kind TEXT NOT NULL,
+                    item_id INTEGER NOT NULL,
+                    PRIMARY KEY (kind, item_id)
+                ) WITHOUT ROWID
+                """);
+        createTriggers();
+
+        Integer indexed = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM search_name", Integer.class);
+        if (indexed == null || indexed == 0) {
+            rebuild();
+        }
+    }
+
+    /**
+     * Refolds every artist, album and song name.
+     */
+    public void rebuild() {
+        writeQueue.run(() -> {
+            for (Kind kind : Kind.values()) {
+                jdbcTemplate.update("INSERT OR IGNORE INTO search_name_dirty (kind, item_id) SELECT ?, id FROM "
+                        + kind.table, kind.key);
+            }
+        });
+        writeQueue.runInChunks(this::refoldDirtyChunk);
+    }
+
+    /**
+     * Applies the name changes queued since the last run.
+     */
+    @Scheduled(fixedDelay = 2_000)
+    public void refresh() {
+        Boolean dirty = jdbcTemplate.queryForObject("SELECT EXISTS (SELECT 1 FROM search_name_dirty)", Boolean.class);
+        if (Boolean.TRUE.equals(dirty)) {
+            writeQueue.runInChunks(this::refoldDirtyChunk);
+        }
+    }
+
+    /**
+     * SQL selecting item_id and folded for every name of kind containing the LIKE pattern bound
+     * to its single parameter (e.g. "%" + normalizeForSearch(query) + "%"). Names changed in
+     * the last couple of seconds may not be refolded yet. The CROSS JOIN keeps SQLite from walking every
+     * name of the kind and probing the FTS table once per row.
+     */
+    public static String matchesSql(Kind kind) {
+        return """
+                SELECT n.item_id, n.folded
+                FROM search_name_fts f
+                CROSS JOIN search_name n ON n.id = f.rowid
+                WHERE f.folded LIKE ? AND n.kind = '%s'
+                """.formatted(kind.key);
+    }
+
+    /**
+     * Refolds the first NAMES_PER_CHUNK queued names and reports whether more are queued.
+     */
+    private boolean refoldDirtyChunk() {
+        List<Object[]> rows = new ArrayList<>();
+        for (Kind kind : Kind.values()) {
+            jdbcTemplate.query("""
+                    SELECT t.id, t.name FROM %s t
+                    WHERE t.id IN (SELECT item_id FROM (%s) WHERE kind = ?)
+                    """.formatted(kind.table, DIRTY_CHUNK), rs -> {
+                String folded = StringNormalizer.foldForSearchIndex(rs.getString("name"));
+                if (folded != null) {
+                    rows.add(new Object[]{kind.key, rs.getInt("id"), folded});
+                }
+            }, kind.key);
+        }
+        jdbcTemplate.update("DELETE FROM search_name WHERE (kind, item_id) IN (" + DIRTY_CHUNK + ")");
+        jdbcTemplate.batchUpdate("INSERT INTO search_name (kind, item_id, folded) VALUES (?, ?, ?)", rows);
+        jdbcTemplate.update("DELETE FROM search_name_dirty WHERE (kind, item_id) IN (" + DIRTY_CHUNK + ")");
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM search_name_dirty)", Boolean.class));
+    }
+
+    private void createTriggers() {
+        // Keep the external-content FTS index in step with search_name
+        jdbcTemplate.execute("""
+                CREATE TRIGGER IF NOT EXISTS search_name_fts_insert AFTER INSERT ON search_name
+                BEGIN
+                    INSERT INTO search_name_fts (rowid, folded) VALUES (NEW.id, NEW.folded);
+                END
+                """);
+        jdbcTemplate.execute("""
+                CREATE TRIGGER IF NOT EXISTS search_name_fts_delete AFTER DELETE ON search_name
+                BEGIN
+                    INSERT INTO search_name_fts (search_name_fts, rowid, folded) VALUES ('delete', OLD.id, OLD.folded);
+                END
+                """);
+
+        for (Kind kind : Kind.values()) {
+            String prefix = "search_name_" + kind.key;
+            jdbcTemplate.execute("""
+                    CREATE TRIGGER IF NOT EXISTS %1$s_insert AFTER INSERT ON %2$s
+                    BEGIN
+                        INSERT OR IGNORE INTO search_name_dirty (kind, item_id) VALUES ('%3$s', NEW.id);
+                    END
+                    """.formatted(prefix, kind.table, kind.key));
+            jdbcTemplate.execute("""
+                    CREATE TRIGGER IF NOT EXISTS %1$s_update AFTER UPDATE OF id, name ON %2$s
+                    BEGIN
+                        INSERT OR IGNORE INTO search_name_dirty (kind, item_id) VALUES ('%3$s', OLD.id);
+                        INSERT OR IGNORE INTO search_name_dirty (kind, item_id) VALUES ('%3$s', NEW.id);
+                    END
+                    """.formatted(prefix, kind.table, kind.key));
+            jdbcTemplate.execute("""
+                    CREATE TRIGGER IF NOT EXISTS %1$s_delete AFTER DELETE ON %2$s
+                    BEGIN
+                        INSERT OR IGNORE INTO search_name_dirty (kind, item_id) VALUES ('%3$s', OLD.id);
+                    END
+                    """.formatted(prefix, kind.table, kind.key));
+        }
+    }
+}
@@ -0,0 +1,434 @@
+package library.service;
+
+import jakarta.annotation.PostConstruct;
+import library.dto.ItunesIdSource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-memory bitmaps of song ids per categorical attribute value, used to pre-select the songs
+ * a list filter can match before the list query runs.
+ *
+ * Genre, subgenre and language keep one layer each for the song override, album override and
+ * artist value; gender and ethnicity a song override and artist layer; country, band, single
+ * and tags a single layer. Each layer maps a value to the songs having it there, plus the songs
+ * having any value there, so the SQL filter semantics (first non-null layer wins for includes,
+ * every layer for gender/ethnicity excludes) become AND / OR / ANDNOT over bitmaps.
+ *
+ * The bitmaps are built at startup. Triggers on Song, Album, Artist and SongTag append the
+ * affected song ids to song_attribute_change, and each lookup first re-reads just the songs
+ * logged since the last one. Lookups only read; the applied entries are pruned in the
+ * background through {@link SqliteWriteQueue}.
+ */
+@Service
+public class SongAttributeIndexService {
+
+    private static final String SONG_ATTRIBUTE_SQL = """
+            SELECT s.id,
+                   s.override_genre_id, alb.override_genre_id AS album_genre_id, ar.genre_id,
+                   s.override_subgenre_id, alb.override_subgenre_id AS album_subgenre_id, ar.subgenre_id,
+                   s.override_language_id, alb.override_language_id AS album_language_id, ar.language_id,
+                   s.override_gender_id, ar.gender_id,
+                   s.override_ethnicity_id, ar.ethnicity_id,
+                   ar.country, ar.is_band, s.is_single
+            FROM Song s
+            LEFT JOIN Album alb ON s.album_id = alb.id
+            LEFT JOIN Artist ar ON s.artist_id = ar.id
+            """;
+
+    // Above this share of the catalog the id list costs more to pass than the SQL predicates save
+    private static final int MAX_PRESELECTED_SHARE_DIVISOR = 4;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SqliteWriteQueue writeQueue;
+
+    private final BitSet songs = new BitSet();
+    private final Layer[] genre = layers(3);
+    private final Layer[] subgenre = layers(3);
+    private final Layer[] language = layers(3);
+    private final Layer[] gender = layers(2);
+    private final Layer[] ethnicity = layers(2);
+    private final Layer[] country = layers(1);
+    private final Layer[] band = layers(1);
+    private final Layer[] single = layers(1);
+    private final Layer[] tag = layers(1);
+    private final List<Layer> allLayers = new ArrayList<>();
+    private long appliedSeq = -1;
+
+    private String cachedItunesIdsJson;
+    private BitSet cachedItunesSongs;
+
+    public SongAttributeIndexService(JdbcTemplate jdbcTemplate, SqliteWriteQueue writeQueue) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.writeQueue = writeQueue;
+        for (Layer[] attribute : List.of(genre, subgenre, language, gender, ethnicity, country, band, single, tag)) {
+            allLayers.addAll(List.of(attribute));
+        }
+    }
+
+    /**
+     * Song ids holding one attribute value at one level (song, album or artist).
+     */
+    private static final class Layer {
+        private final Map<Object, BitSet> byValue = new HashMap<>();
+        private final BitSet withAnyValue = new BitSet();
+
+        void add(Object value, int songId) {
+            if (value != null) {
+                byValue.computeIfAbsent(value, key -> new BitSet()).set(songId);
+                withAnyValue.set(songId);
+            }
+        }
+
+        void remove(int songId) {
+            byValue.values().forEach(ids -> ids.clear(songId));
+            withAnyValue.clear(songId);
+        }
+
+        BitSet anyOf(List<?> values) {
+            BitSet result = new BitSet();
+            for (Object value : values) {
+                BitSet ids = byValue.get(value);
+                if (ids != null) {
+                    result.or(ids);
+                }
+            }
+            return result;
+        }
+    }
+
+    @PostConstruct
+    public void initialize() {
+        jdbcTemplate.execute("""
+                CREATE TABLE IF NOT EXISTS song_attribute_change (
+                    seq INTEGER PRIMARY KEY AUTOINCREMENT,
+                    song_id INTEGER NOT NULL
+                )
+                """);
+        createTriggers();
+        synchronized (this) {
+            rebuild();
+        }
+        // The full build covers everything logged so far
+        pruneChanges(appliedSeq);
+    }
+
+    /**
+     * Songs matching the categorical part of a song list filter (genre, subgenre, language,
+     * gender, ethnicity, country, tags, band, single, iTunes id list), or null when none of those
+     * filters is set. Modes and values mean the same as in the song list query.
+     */
+    public synchronized BitSet select(List<Integer> genreIds, String genreMode,
+                                      List<Integer> subgenreIds, String subgenreMode,
+                                      List<Integer> languageIds, String languageMode,
+                                      List<Integer> genderIds, String genderMode,
+                                      List<Integer> ethnicityIds, String ethnicityMode,
+                                      List<String> countries, String countryMode,
+                                      List<Integer> tagIds, String tagMode,
+                                      String isBand, String isSingle,
+                                      ItunesIdSource itunesIds, String inItunes) {
+        refresh();
+        BitSet result = (BitSet) songs.clone();
+        boolean filtered = applyAttribute(result, genre, genreIds, genreMode, false);
+        filtered |= applyAttribute(result, subgenre, subgenreIds, subgenreMode, false);
+        filtered |= applyAttribute(result, language, languageIds, languageMode, false);
+        filtered |= applyAttribute(result, gender, genderIds, genderMode, true);
+        filtered |= applyAttribute(result, ethnicity, ethnicityIds, ethnicityMode, true);
+        filtered |= applyAttribute(result, country, countries, countryMode, false);
+        filtered |= applyAttribute(result, tag, tagIds, tagMode, false);
+        filtered |= applyFlag(result, band[0], isBand);
+        filtered |= applyFlag(result, single[0], isSingle);
+        // An itunes_presence set is left to the list query, where it is an index lookup
+        if (itunesIds != null && !itunesIds.isPresenceSet() && inItunes != null && !inItunes.isEmpty()) {
+            if ("true".equalsIgnoreCase(inItunes)) {
+                result.and(itunesSongs(itunesIds.json()));
+            } else {
+                result.andNot(itunesSongs(itunesIds.json()));
+            }
+            filtered = true;
+        }
+        return filtered ? result : null;
+    }
+
+    /**
+     * The selected ids to hand to the list query as its song id filter, or null when there was
+     * no selection or it keeps too much of the catalog to be worth passing.
+     */
+    public synchronized List<Integer> preselect(BitSet selected) {
+        if (selected == null
+                || (long) selected.cardinality() * MAX_PRESELECTED_SHARE_DIVISOR > songs.cardinality()) {
+            return null;
+        }
+        return selected.stream().boxed().toList();
+    }
+
+    /**
+     * includes: the first layer with a value decides; excludes: the complement of includes, or
+     * with everyLayer the songs where no layer has any of the values; isnull / isnotnull: no
+     * layer / some layer has a value.
+     */
+    private boolean applyAttribute(BitSet result, Layer[] layers, List<?> values, String mode, boolean everyLayer) {
+        if (mode == null) {
+            return false;
+        }
+        BitSet matched = new BitSet();
+        switch (mode) {
+            case "isnull", "isnotnull" -> {
+                for (Layer layer : layers) {
+                    matched.or(layer.withAnyValue);
+                }
+            }
+            case "includes", "excludes" -> {
+                if (values == null || values.isEmpty()) {
+                    return false;
+                }
+                if ("excludes".equals(mode) && everyLayer) {
+                    for (Layer layer : layers) {
+                        matched.or(layer.anyOf(values));
+                    }
+                } else {
+                    BitSet undecided = (BitSet) songs.clone();
+                    for (Layer layer : layers) {
+                        BitSet hits = layer.anyOf(values);
+                        hits.and(undecided);
+                        matched.or(hits);
+                        undecided.andNot(layer.withAnyValue);
+                    }
+                }
+            }
+            default -> {
+                return false;
+            }
+        }
+        if ("includes".equals(mode) || "isnotnull".equals(mode)) {
+            result.and(matched);
+        } else {
+            result.andNot(matched);
+        }
+        return true;
+    }
+
+    private static boolean applyFlag(BitSet result, Layer layer, String flag) {
+        if (flag == null || flag.isEmpty()) {
+            return false;
+        }
+        if ("true".equalsIgnoreCase(flag)) {
+            result.and(layer.anyOf(List.of(1)));
+        } else if ("false".equalsIgnoreCase(flag)) {
+            result.and(layer.anyOf(List.of(0)));
+        } else {
+            return false;
+        }
+        return true;
+    }
+
+    private BitSet itunesSongs(String json) {
+        if (!json.equals(cachedItunesIdsJson)) {
+            BitSet ids = new BitSet();
+            String body = json.trim();
+            body = body.substring(body.startsWith("[") ? 1 : 0, body.endsWith("]") ? body.length() - 1 : body.length());
+            for (String id : body.split(",")) {
+                if (!id.isBlank()) {
+                    ids.set(Integer.parseInt(id.trim()));
+                }
+            }
+            cachedItunesIdsJson = json;
+            cachedItunesSongs = ids;
+        }
+        return cachedItunesSongs;
+    }
+
+    /**
+     * Applies the songs logged in song_attribute_change since the last lookup.
+     */
+    private void refresh() {
+        Long latestSeq = jdbcTemplate.queryForObject("SELECT MAX(seq) FROM song_attribute_change", Long.class);
+        if (latestSeq == null || latestSeq <= appliedSeq) {
+            return;
+        }
+        List<Integer> changed = jdbcTemplate.queryForList(
+                "SELECT DISTINCT song_id FROM song_attribute_change WHERE seq > ? AND seq <= ?",
+                Integer.class, appliedSeq, latestSeq);
+        for (int songId : changed) {
+            songs.clear(songId);
+            allLayers.forEach(layer -> layer.remove(songId));
+        }
+        String changedJson = changed.toString();
+        jdbcTemplate.query(SONG_ATTRIBUTE_SQL + " WHERE s.id IN (SELECT value FROM json_each(?))",
+                this::addSong, changedJson);
+        jdbcTemplate.query("SELECT song_id, tag_id FROM SongTag WHERE song_id IN (SELECT value FROM json_each(?))",
+                this::addTag, changedJson);
+        appliedSeq = latestSeq;
+    }
+
+    /**
+     * Prunes the change log entries the bitmaps already include.
+     */
+    @Scheduled(fixedDelay = 2_000)
+    public void pruneAppliedChanges() {
+        long seq;
+        synchronized (this) {
+            seq = appliedSeq;
+        }
+        Boolean applied = jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM song_attribute_change WHERE seq <= ?)", Boolean.class, seq);
+        if (Boolean.TRUE.equals(applied)) {
+            pruneChanges(seq);
+        }
+    }
+
+    /**
+     * Drops the logged changes up to seq once the bitmaps include them. seq is AUTOINCREMENT,
+     * so later entries never reuse a pruned number.
+     */
+    private void pruneChanges(long seq) {
+        writeQueue.run(() -> jdbcTemplate.update("DELETE FROM song_attribute_change WHERE seq <= ?", seq));
+    }
+
+    private void rebuild() {
+        Long latestSeq = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(seq), 0) FROM song_attribute_change", Long.class);
+        songs.clear();
+        for (Layer layer : allLayers) {
+            layer.byValue.clear();
+            layer.withAnyValue.clear();
+        }
+        jdbcTemplate.query(SONG_ATTRIBUTE_SQL, this::addSong);
+        jdbcTemplate.query("SELECT song_id, tag_id FROM SongTag", this::addTag);
+        appliedSeq = latestSeq;
+    }
+
+    private void addSong(ResultSet rs) throws SQLException {
+        int songId = rs.getInt("id");
+        songs.set(songId);
+        genre[0].add(intOrNull(rs, "override_genre_id"), songId);
+        genre[1].add(intOrNull(rs, "album_genre_id"), songId);
+        genre[2].add(intOrNull(rs, "genre_id"), songId);
+        subgenre[0].add(intOrNull(rs, "override_subgenre_id"), songId);
+        subgenre[1].add(intOrNull(rs, "album_subgenre_id"), songId);
+        subgenre[2].add(intOrNull(rs, "subgenre_id"), songId);
+        language[0].add(intOrNull(rs, "override_language_id"), songId);
+        language[1].add(intOrNull(rs, "album_language_id"), songId);
+        language[2].add(intOrNull(rs, "language_id"), songId);
+        gender[0].add(intOrNull(rs, "override_gender_id"), songId);
+        gender[1].add(intOrNull(rs, "gender_id"), songId);
+        ethnicity[0].add(intOrNull(rs, "override_ethnicity_id"), songId);
+        ethnicity[1].add(intOrNull(rs, "ethnicity_id"), songId);
+        country[0].add(rs.getString("country"), songId);
+        band[0].add(intOrNull(rs, "is_band"), songId);
+        single[0].add(intOrNull(rs, "is_single"), songId);
+    }
+
+    private void addTag(ResultSet rs) throws SQLException {
+        tag[0].add(rs.getInt("tag_id"), rs.getInt("song_id"));
+    }
+
+    private static Integer intOrNull(ResultSet rs, String column) throws SQLException {
+        int value = rs.getInt(column);
+        return rs.wasNull() ? null : value;
+    }
+
+    private static Layer[] layers(int count) {
+        Layer[] layers = new Layer[count];
+        for (int i = 0; i < count; i++) {
+            layers[i] = new Layer();
+        }
+        return layers;
+    }
+
+    private void createTriggers() {
+        String logSongs = "INSERT INTO song_attribute_change (song_id) SELECT id FROM Song WHERE %s;";
+        jdbcTemplate.execute("DROP TRIGGER IF EXISTS song_attribute_song_insert");
+        jdbcTemplate.execute("DROP TRIGGER IF EXISTS song_attribute_song_update");
+        jdbcTemplate.execute("DROP TRIGGER IF EXISTS song_attribute_song_delete");
+        jdbcTemplate.execute("DROP TRIGGER IF EXISTS song_attribute_album_update");
+        jdbcTemplate.execute("DROP TRIGGER IF EXISTS song_attribute_album_delete");
+        jdbcTemplate.execute("DROP TRIGGER IF EXISTS song_attribute_artist_update");
+        jdbcTemplate.execute("DROP TRIGGER IF EXISTS song_attribute_artist_delete");
+        jdbcTemplate.execute("DROP TRIGGER IF EXISTS song_attribute_tag_insert");
+        jdbcTemplate.execute("DROP TRIGGER IF EXISTS song_attribute_tag_delete");
+        jdbcTemplate.execute("DROP TRIGGER IF EXISTS song_attribute_tag_update");
+
+        jdbcTemplate.execute("""
+                CREATE TRIGGER song_attribute_song_insert
+                AFTER INSERT ON Song
+                BEGIN
+                    INSERT INTO song_attribute_change (song_id) VALUES (NEW.id);
+                END
+                """);
+        jdbcTemplate.execute("""
+                CREATE TRIGGER song_attribute_song_update
+                AFTER UPDATE OF id, artist_id, album_id, override_genre_id, override_subgenre_id, override_language_id,
+                                override_gender_id, override_ethnicity_id, is_single ON Song
+                BEGIN
+                    INSERT INTO song_attribute_change (song_id) VALUES (OLD.id);
+                    INSERT INTO song_attribute_change (song_id) SELECT NEW.id WHERE NEW.id <> OLD.id;
+                END
+                """);
+        jdbcTemplate.execute("""
+                CREATE TRIGGER song_attribute_song_delete
+                AFTER DELETE ON Song
+                BEGIN
+                    INSERT INTO song_attribute_change (song_id) VALUES (OLD.id);
+                END
+                """);
+        jdbcTemplate.execute("""
+                CREATE TRIGGER song_attribute_album_update
+                AFTER UPDATE OF id, override_genre_id, override_subgenre_id, override_language_id ON Album
+                BEGIN
+                    %s
+                END
+                """.formatted(logSongs.formatted("album_id IN (OLD.id, NEW.id)")));
+        jdbcTemplate.execute("""
+                CREATE TRIGGER song_attribute_album_delete
+                AFTER DELETE ON Album
+                BEGIN
+                    %s
+                END
+                """.formatted(logSongs.formatted("album_id = OLD.id")));
+        jdbcTemplate.execute("""
+                CREATE TRIGGER song_attribute_artist_update
+                AFTER UPDATE OF id, genre_id, subgenre_id, language_id, gender_id, ethnicity_id, country, is_band ON Artist
+                BEGIN
+                    %s
+                END
+                """.formatted(logSongs.formatted("artist_id IN (OLD.id, NEW.id)")));
+        jdbcTemplate.execute("""
+                CREATE TRIGGER song_attribute_artist_delete
+                AFTER DELETE ON Artist
+                BEGIN
+                    %s
+                END
+                """.formatted(logSongs.formatted("artist_id = OLD.id")));
+        jdbcTemplate.execute("""
+                CREATE TRIGGER song_attribute_tag_insert
+                AFTER INSERT ON SongTag
+                BEGIN
+                    INSERT INTO song_attribute_change (song_id) VALUES (NEW.song_id);
+                END
+                """);
+        jdbcTemplate.execute("""
+                CREATE TRIGGER song_attribute_tag_delete
+                AFTER DELETE ON SongTag
+                BEGIN
+                    INSERT INTO song_attribute_change (song_id) VALUES (OLD.song_id);
+                END
+                """);
+        jdbcTemplate.execute("""
+                CREATE TRIGGER song_attribute_tag_update
+                AFTER UPDATE ON SongTag
+                BEGIN
+                    INSERT INTO song_attribute_change (song_id) VALUES (OLD.song_id);
+                    INSERT INTO song_attribute_change (song_id) SELECT NEW.song_id WHERE NEW.song_id <> OLD.song_id;
+                END
+                """);
+    }
+}
@@ -0,0 +1,182 @@
+package library.service;
+
+import library.util.StringNormalizer;
+import library.util.TrigramIndex;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Fuzzy candidate retrieval over the song catalog for unmatched plays and chart entries.
+ *
+ * Holds two trigram indexes built from search-normalized names: one over song titles (used
+ * when the artist and title are known separately, the artist is then scored per candidate) and
+ * one over "artist title" (free-text modal searches). The indexes are rebuilt lazily when the
+ * song match generation moves, i.e. after songs, artists or albums were added or renamed.
+ */
+@Service
+public class SongCandidateService {
+
+    /** Title candidates rescored with the artist before the top results are picked. */
+    private static final int TITLE_CANDIDATES = 50;
+    private static final double TITLE_WEIGHT = 0.65;
+    private static final double ARTIST_WEIGHT = 0.35;
+    private static final double MIN_TITLE_SIMILARITY = 0.3;
+    private static final double MIN_TEXT_SIMILARITY = 0.2;
+
+    public record Candidate(int songId, String artistName, String albumName, String songName, double score) {
+        public Map<String, Object> toMap() {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("id", songId);
+            row.put("title", songName);
+            row.put("artistName", artistName);
+            row.put("albumName", albumName);
+            row.put("score", Math.round(score * 1000) / 1000.0);
+            return row;
+        }
+    }
+
+    private record CatalogSong(int songId, String artistName, String albumName, String songName, String normalizedArtist) {}
+
+    private record Snapshot(long generation, Map<Integer, CatalogSong> songs, TrigramIndex titleIndex, TrigramIndex textIndex) {}
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SongMatchIndexService songMatchIndexService;
+    private volatile Snapshot snapshot;
+
+    public SongCandidateService(JdbcTemplate jdbcTemplate, SongMatchIndexService songMatchIndexService) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.songMatchIndexService = songMatchIndexService;
+    }
+
+    /**
+     * Best library songs for an artist/title pair as found in a play or chart entry, best first.
+     * The artist may be blank; the title may not.
+     */
+    public List<Candidate> suggest(String artist, String song, int limit) {
+        String normalizedSong = StringNormalizer.normalizeForSearch(song);
+        if (normalizedSong == null || normalizedSong.isEmpty()) {
+            return List.of();
+        }
+        String normalizedArtist = StringNormalizer.normalizeForSearch(artist);
+        boolean hasArtist = normalizedArtist != null && !normalizedArtist.isEmpty();
+
+        Snapshot current = current();
+        List<Candidate> candidates = new ArrayList<>();
+        for (TrigramIndex.Match match : current.titleIndex().search(
+                normalizedSong, hasArtist ? TITLE_CANDIDATES : limit, MIN_TITLE_SIMILARITY)) {
+            CatalogSong catalogSong = current.songs().get(match.id());
+            double score = hasArtist
+                    ? TITLE_WEIGHT * match.similarity()
+                      + ARTIST_WEIGHT * TrigramIndex.similarity(normalizedArtist, catalogSong.normalizedArtist())
+                    : match.similarity();
+            candidates.add(toCandidate(catalogSong, score));
+        }
+        candidates.sort(Comparator.comparingDouble(Candidate::score).reversed());
+        return candidates.size() > limit ? candidates.subList(0, limit) : candidates;
+    }
+
+    /**
+     * Free-text search over "artist title", best first.
+     */
+    public List<Candidate> search(String query, int limit) {
+        String normalized = StringNormalizer.normalizeForSearch(query);
+        if (normalized == null || normalized.isEmpty()) {
+            return List.of();
+        }
+        Snapshot current = current();
+        List<Candidate> candidates = new ArrayList<>();
+        for (TrigramIndex.Match match : current.textIndex().search(normalized, limit, MIN_TEXT_SIMILARITY)) {
+            candidates.add(toCandidate(current.songs().get(match.id()), match.similarity()));
+        }
+        return candidates;
+    }
+
+    /**
+     * Rows for the song match modals: the {@link #search} candidates, topped up with songs whose
+     * title or artist contains the query when there are fewer than limit of them. A short query
+     * shares too few trigrams with a long "artist title" to reach the similarity cutoff, so
+     * without the substring matches it would miss songs it appears in verbatim.
+     */
+    public List<Map<String, Object>> searchForMatch(String query, int limit) {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        Set<Integer> songIds = new HashSet<>();
+        for (Candidate candidate : search(query, limit)) {
+            rows.add(candidate.toMap());
+            songIds.add(candidate.songId());
+        }
+        if (rows.size() >= limit) {
+            return rows;
+        }
+        String like = "%" + query.trim().toLowerCase() + "%";
+        String sql = """
+            SELECT s.id, s.name AS title, a.name AS artist_name
+            FROM Song s
+            JOIN Artist a ON a.id = s.artist_id
+            WHERE LOWER(s.name) LIKE ? OR LOWER(a.name) LIKE ?
+            ORDER BY s.name COLLATE NOCASE ASC
+            LIMIT ?
+            """;
+        jdbcTemplate.query(sql, rs -> {
+            int songId = rs.getInt("id");
+            if (rows.size() < limit && songIds.add(songId)) {
+                Map<String, Object> row = new LinkedHashMap<>();
+                row.put("id", songId);
+                row.put("title", rs.getString("title"));
+                row.put("artistName", rs.getString("artist_name"));
+                rows.add(row);
+            }
+        }, like, like, limit);
+        return rows;
+    }
+
+    private static Candidate toCandidate(CatalogSong song, double score) {
+        return new Candidate(song.songId(), song.artistName(), song.albumName(), song.songName(), score);
+    }
+
+    private Snapshot current() {
+        long generation = songMatchIndexService.generation();
+        Snapshot current = snapshot;
+        if (current != null && current.generation() == generation) {
+            return current;
+        }
+        synchronized (this) {
+            if (snapshot == null || snapshot.generation() != generation) {
+                snapshot = build(generation);
+            }
+            return snapshot;
+        }
+    }
+
+    private Snapshot build(long generation) {
+        Map<Integer, CatalogSong> songs = new HashMap<>();
+        TrigramIndex.Builder titles = TrigramIndex.builder();
+        TrigramIndex.Builder texts = TrigramIndex.builder();
+        String sql = """
+            SELECT s.id, ar.name as artist_name, al.name as album_name, s.name as song_name
+            FROM Song s
+            JOIN Artist ar ON s.artist_id = ar.id
+            LEFT JOIN Album al ON s.album_id = al.id
+            ORDER BY s.id
+            """;
+        jdbcTemplate.query(sql, rs -> {
+            int songId = rs.getInt("id");
+            String artistName = rs.getString("artist_name");
+            String songName = rs.getString("song_name");
+            String normalizedArtist = StringNormalizer.normalizeForSearch(artistName);
+            String normalizedSong = StringNormalizer.normalizeForSearch(songName);
+            songs.put(songId, new CatalogSong(songId, artistName, rs.getString("album_name"), songName, normalizedArtist));
+            titles.add(songId, normalizedSong);
+            texts.add(songId, normalizedArtist + " " + normalizedSong);
+        });
+        return new Snapshot(generation, songs, titles.build(), texts.build());
+    }
+}
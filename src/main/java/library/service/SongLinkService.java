@@ -4,7 +4,6 @@ import jakarta.annotation.PostConstruct;
 import library.dto.LinkedSongDTO;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
@@ -26,9 +25,11 @@ public class SongLinkService {
             "(?i)\\b(remix|demo|alternate|alternative|version|edit|radio edit|single edit|club mix|mix|live|acoustic|remaster(?:ed)?|re-record(?:ed)?|instrumental|karaoke|sped up|slowed|deluxe|bonus|feat\\.?|ft\\.?)\\b");
 
     private final JdbcTemplate jdbcTemplate;
+    private final SqliteWriteQueue writeQueue;
 
-    public SongLinkService(JdbcTemplate jdbcTemplate) {
+    public SongLinkService(JdbcTemplate jdbcTemplate, SqliteWriteQueue writeQueue) {
         this.jdbcTemplate = jdbcTemplate;
+        this.writeQueue = writeQueue;
     }
 
     @PostConstruct
@@ -185,8 +186,11 @@ public class SongLinkService {
         return score;
     }
 
-    @Transactional
     public Set<Integer> saveLinkedSongs(Integer songId, List<Integer> requestedSongIds) {
+        return writeQueue.write(() -> replaceLinkedSongs(songId, requestedSongIds));
+    }
+
+    private Set<Integer> replaceLinkedSongs(Integer songId, List<Integer> requestedSongIds) {
         Set<Integer> impactedSongIds = new LinkedHashSet<>(getLinkedSongIds(songId));
         Set<Integer> desired = new LinkedHashSet<>();
         desired.add(songId);
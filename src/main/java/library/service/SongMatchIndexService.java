@@ -0,0 +1,147 @@
+package library.service;
+
+import jakarta.annotation.PostConstruct;
+import library.util.SongMatchKeyStore;
+import library.util.SongMatchKeyStore.SongKeys;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory song match index backed by the persisted song_match_key table (see
+ * {@link SongMatchKeyStore}).
+ *
+ * The import and strict key maps are loaded once from the table and afterwards only patched
+ * with the songs the Song/Artist/Album triggers queued since the last access, so callers that
+ * run every few minutes (automated Last.fm imports) no longer re-read and re-normalize the
+ * whole catalog. When several songs share a key the lowest song id wins. If another process
+ * (e.g. a standalone script) synced the table in between, the maps are reloaded from the
+ * table rather than recomputed.
+ *
+ * Whether anything is pending is checked with one read on a reader connection; only then is
+ * the sync submitted to {@link SqliteWriteQueue}. A scheduled refresh applies catalog edits in
+ * the background, so lookups normally find the index already current.
+ */
+@Service
+public class SongMatchIndexService {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SqliteWriteQueue writeQueue;
+
+    private volatile Map<String, Integer> importLookup = new ConcurrentHashMap<>();
+    private volatile Map<String, Integer> strictLookup = new ConcurrentHashMap<>();
+    private volatile long loadedGeneration = -1;
+
+    public SongMatchIndexService(JdbcTemplate jdbcTemplate, SqliteWriteQueue writeQueue) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.writeQueue = writeQueue;
+    }
+
+    @PostConstruct
+    public void initialize() {
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            SongMatchKeyStore.ensureSchema(connection);
+            return null;
+        });
+        refresh();
+    }
+
+    /**
+     * artist||album||song (import normalization) to song id, as used by the play importers.
+     * The returned map is live and safe to read while the index is being updated.
+     */
+    public Map<String, Integer> importLookup() {
+        refresh();
+        return Collections.unmodifiableMap(importLookup);
+    }
+
+    /**
+     * artist||album||song (strict normalization) to song id, as used by the iTunes pages.
+     */
+    public Map<String, Integer> strictLookup() {
+        refresh();
+        return Collections.unmodifiableMap(strictLookup);
+    }
+
+    /**
+     * Current song_match_key generation after applying pending changes; it moves whenever any
+     * song's artist, album or name changed, so derived indexes can use it to know when to rebuild.
+     */
+    public long generation() {
+        refresh();
+        return loadedGeneration;
+    }
+
+    /**
+     * Applies pending song/artist/album changes to the persisted keys and the in-memory maps.
+     * When nothing is pending this is a single read and no write is queued.
+     */
+    @Scheduled(fixedDelay = 2_000)
+    public void refresh() {
+        if (!isCurrent()) {
+            writeQueue.run(this::applyPending);
+        }
+    }
+
+    private boolean isCurrent() {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                SongMatchKeyStore.IS_CURRENT_SQL, Boolean.class, loadedGeneration));
+    }
+
+    /**
+     * Runs as a queued write; checks again on the writer since an earlier task may have synced.
+     */
+    private synchronized void applyPending() {
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            if (SongMatchKeyStore.isCurrent(connection, loadedGeneration)) {
+                return null;
+            }
+            SongMatchKeyStore.SyncResult result = SongMatchKeyStore.sync(connection);
+            if (result.fullRebuild() || result.generationBefore() != loadedGeneration) {
+                reload(SongMatchKeyStore.loadAll(connection));
+            } else if (result.changed()) {
+                for (SongKeys keys : result.removed()) {
+                    if (Integer.valueOf(keys.songId()).equals(importLookup.get(keys.importKey()))) {
+                        replaceOrRemove(importLookup, keys.importKey(),
+                                SongMatchKeyStore.findFirstByImportKey(connection, keys.importKey()));
+                    }
+                    if (Integer.valueOf(keys.songId()).equals(strictLookup.get(keys.strictKey()))) {
+                        replaceOrRemove(strictLookup, keys.strictKey(),
+                                SongMatchKeyStore.findFirstByStrictKey(connection, keys.strictKey()));
+                    }
+                }
+                for (SongKeys keys : result.added()) {
+                    importLookup.merge(keys.importKey(), keys.songId(), Math::min);
+                    strictLookup.merge(keys.strictKey(), keys.songId(), Math::min);
+                }
+            }
+            loadedGeneration = result.generationAfter();
+            return null;
+        });
+    }
+
+    private void reload(List<SongKeys> allKeys) {
+        Map<String, Integer> imports = new ConcurrentHashMap<>();
+        Map<String, Integer> stricts = new ConcurrentHashMap<>();
+        for (SongKeys keys : allKeys) {
+            imports.merge(keys.importKey(), keys.songId(), Math::min);
+            stricts.merge(keys.strictKey(), keys.songId(), Math::min);
+        }
+        importLookup = imports;
+        strictLookup = stricts;
+    }
+
+    private static void replaceOrRemove(Map<String, Integer> lookup, String key, Integer songId) {
+        if (songId != null) {
+            lookup.put(key, songId);
+        } else {
+            lookup.remove(key);
+        }
+    }
+}
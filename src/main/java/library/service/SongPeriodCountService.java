@@ -0,0 +1,250 @@
+package library.service;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Maintains the song_period_counts rollup: one row per (period type, period key, song)
+ * with the number of dated plays that song received in that period.
+ *
+ * The rollup is kept current by SQLite triggers on Play, so every write path
+ * (PlayService imports and deletes, song merges, unmatched assignment) updates it
+ * without having to call back into this service. Listening time is not stored;
+ * readers multiply play_count by the song's current length_seconds so edits to
+ * song lengths are reflected immediately.
+ */
+@Service
+public class SongPeriodCountService {
+
+    /**
+     * Period key templates keyed by timeframe period type. %1$s is replaced with the
+     * play_date column reference. These must produce the same keys as
+     * TimeframeService.getPeriodKeyExpression.
+     */
+    private static final Map<String, String> PERIOD_KEY_TEMPLATES = new LinkedHashMap<>();
+    static {
+        PERIOD_KEY_TEMPLATES.put("days", "SUBSTR(%1$s, 1, 10)");
+        PERIOD_KEY_TEMPLATES.put("weeks", "strftime('%%Y-W%%W', %1$s)");
+        PERIOD_KEY_TEMPLATES.put("months", "SUBSTR(%1$s, 1, 7)");
+        PERIOD_KEY_TEMPLATES.put("seasons", """
+                CASE
+                    WHEN SUBSTR(%1$s, 6, 2) = '12' THEN (SUBSTR(%1$s, 1, 4) + 1) || '-Winter'
+                    WHEN SUBSTR(%1$s, 6, 2) <= '02' THEN SUBSTR(%1$s, 1, 4) || '-Winter'
+                    WHEN SUBSTR(%1$s, 6, 2) <= '05' THEN SUBSTR(%1$s, 1, 4) || '-Spring'
+                    WHEN SUBSTR(%1$s, 6, 2) <= '08' THEN SUBSTR(%1$s, 1, 4) || '-Summer'
+                    ELSE SUBSTR(%1$s, 1, 4) || '-Fall'
+                END""");
+        PERIOD_KEY_TEMPLATES.put("years", "SUBSTR(%1$s, 1, 4)");
+        PERIOD_KEY_TEMPLATES.put("decades", "(SUBSTR(%1$s, 1, 4) / 10 * 10) || 's'");
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private volatile boolean ready;
+
+    public SongPeriodCountService(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    public void initialize() {
+        jdbcTemplate.execute("""
+                CREATE TABLE IF NOT EXISTS song_period_counts (
+                    period_type TEXT NOT NULL,
+                    period_key TEXT NOT NULL,
+                    song_id INTEGER NOT NULL,
+                    play_count INTEGER NOT NULL,
+                    PRIMARY KEY (period_type, period_key, song_id)
+                ) WITHOUT ROWID
+                """);
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_song_period_counts_song ON song_period_counts(song_id)");
+        createTriggers();
+
+        Integer rollupRows = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM song_period_counts", Integer.class);
+        if (rollupRows == null || rollupRows == 0) {
+            rebuild();
+        }
+        ready = true;
+    }
+
+    /**
+     * True once the table, triggers and initial contents exist. Readers fall back to
+     * scanning Play while this is false.
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Returns the canonical period type stored in the rollup for a timeframe period type,
+     * mirroring the "years" fallback used by TimeframeService for unknown types.
+     */
+    public static String normalizePeriodType(String periodType) {
+        return periodType != null && PERIOD_KEY_TEMPLATES.containsKey(periodType) ? periodType : "years";
+    }
+
+    /**
+     * The period types kept in the rollup, in display order (days through decades).
+     */
+    static Set<String> periodTypes() {
+        return PERIOD_KEY_TEMPLATES.keySet();
+    }
+
+    /**
+     * SQL expression for the period key of dateColumn, e.g. "SUBSTR(NEW.play_date, 1, 7)" for
+     * months. Other rollups keyed by period (period_attribute_winner) use this so their keys
+     * always match.
+     */
+    static String periodKeyExpression(String periodType, String dateColumn) {
+        return PERIOD_KEY_TEMPLATES.get(periodType).formatted(dateColumn);
+    }
+
+    /**
+     * Discards the rollup and recomputes it from Play in a single transaction.
+     *
+     * @return number of rollup rows written
+     */
+    @Transactional
+    public int rebuild() {
+        jdbcTemplate.update("DELETE FROM song_period_counts");
+        int written = 0;
+        for (Map.Entry<String, String> entry : PERIOD_KEY_TEMPLATES.entrySet()) {
+            String keyExpr = entry.getValue().formatted("p.play_date");
+            written += jdbcTemplate.update("""
+                    INSERT INTO song_period_counts (period_type, period_key, song_id, play_count)
+                    SELECT ?, %s as period_key, p.song_id, COUNT(*)
+                    FROM Play p
+                    WHERE p.play_date IS NOT NULL AND p.song_id IS NOT NULL
+                    GROUP BY period_key, p.song_id
+                    HAVING period_key IS NOT NULL
+                    """.formatted(keyExpr), entry.getKey());
+        }
+        return written;
+    }
+
+    /**
+     * Compares the rollup against a fresh aggregation of Play and returns every
+     * (period type, period key, song) whose stored count differs. An empty list means
+     * the rollup is consistent.
+     */
+    public List<Mismatch> checkConsistency() {
+        List<Mismatch> mismatches = new ArrayList<>();
+        for (Map.Entry<String, String> entry : PERIOD_KEY_TEMPLATES.entrySet()) {
+            String periodType = entry.getKey();
+            String keyExpr = entry.getValue().formatted("p.play_date");
+            mismatches.addAll(jdbcTemplate.query("""
+                    WITH expected AS (
+                        SELECT %s as period_key, p.song_id, COUNT(*) as play_count
+                        FROM Play p
+                        WHERE p.play_date IS NOT NULL AND p.song_id IS NOT NULL
+                        GROUP BY period_key, p.song_id
+                        HAVING period_key IS NOT NULL
+                    ),
+                    stored AS (
+                        SELECT period_key, song_id, play_count
+                        FROM song_period_counts
+                        WHERE period_type = ?
+                    )
+                    SELECT e.period_key, e.song_id, e.play_count as expected_count, COALESCE(st.play_count, 0) as stored_count
+                    FROM expected e
+                    LEFT JOIN stored st ON st.period_key = e.period_key AND st.song_id = e.song_id
+                    WHERE st.play_count IS NULL OR st.play_count <> e.play_count
+                    UNION ALL
+                    SELECT st.period_key, st.song_id, 0 as expected_count, st.play_count as stored_count
+                    FROM stored st
+                    WHERE NOT EXISTS (
+                        SELECT 1 FROM expected e WHERE e.period_key = st.period_key AND e.song_id = st.song_id
+                    )
+                    """.formatted(keyExpr),
+                    (rs, rowNum) -> new Mismatch(
+                            periodType,
+                            rs.getString("period_key"),
+                            rs.getInt("song_id"),
+                            rs.getInt("expected_count"),
+                            rs.getInt("stored_count")),
+                    periodType));
+        }
+        return mismatches;
+    }
+
+    /**
+     * (Re)creates the Play triggers that keep the rollup current. Inserts add one play to
+     * every period bucket, deletes remove one, and updates that move a play to another
+     * song or date do both.
+     */
+    private void createTriggers() {
+        jdbcTemplate.execute("DROP TRIGGER IF EXISTS play_period_counts_insert");
+        jdbcTemplate.execute("DROP TRIGGER IF EXISTS play_period_counts_delete");
+        jdbcTemplate.execute("DROP TRIGGER IF EXISTS play_period_counts_update_old");
+        jdbcTemplate.execute("DROP TRIGGER IF EXISTS play_period_counts_update_new");
+
+        jdbcTemplate.execute("""
+                CREATE TRIGGER play_period_counts_insert
+                AFTER INSERT ON Play
+                WHEN NEW.song_id IS NOT NULL AND NEW.play_date IS NOT NULL
+                BEGIN
+                %s
+                END
+                """.formatted(incrementStatement("NEW")));
+        jdbcTemplate.execute("""
+                CREATE TRIGGER play_period_counts_delete
+                AFTER DELETE ON Play
+                WHEN OLD.song_id IS NOT NULL AND OLD.play_date IS NOT NULL
+                BEGIN
+                %s
+                END
+                """.formatted(decrementStatements("OLD")));
+        jdbcTemplate.execute("""
+                CREATE TRIGGER play_period_counts_update_old
+                AFTER UPDATE OF song_id, play_date ON Play
+                WHEN OLD.song_id IS NOT NULL AND OLD.play_date IS NOT NULL
+                    AND (OLD.song_id IS NOT NEW.song_id OR OLD.play_date IS NOT NEW.play_date)
+                BEGIN
+                %s
+                END
+                """.formatted(decrementStatements("OLD")));
+        jdbcTemplate.execute("""
+                CREATE TRIGGER play_period_counts_update_new
+                AFTER UPDATE OF song_id, play_date ON Play
+                WHEN NEW.song_id IS NOT NULL AND NEW.play_date IS NOT NULL
+                    AND (OLD.song_id IS NOT NEW.song_id OR OLD.play_date IS NOT NEW.play_date)
+                BEGIN
+                %s
+                END
+                """.formatted(incrementStatement("NEW")));
+    }
+
+    private String incrementStatement(String row) {
+        List<String> values = new ArrayList<>();
+        for (Map.Entry<String, String> entry : PERIOD_KEY_TEMPLATES.entrySet()) {
+            values.add("('" + entry.getKey() + "', " + entry.getValue().formatted(row + ".play_date") + ", " + row + ".song_id, 1)");
+        }
+        return "INSERT INTO song_period_counts (period_type, period_key, song_id, play_count) VALUES\n"
+                + String.join(",\n", values)
+                + "\nON CONFLICT (period_type, period_key, song_id) DO UPDATE SET play_count = play_count + 1;";
+    }
+
+    private String decrementStatements(String row) {
+        StringBuilder sql = new StringBuilder();
+        for (Map.Entry<String, String> entry : PERIOD_KEY_TEMPLATES.entrySet()) {
+            sql.append("UPDATE song_period_counts SET play_count = play_count - 1 WHERE period_type = '")
+                    .append(entry.getKey())
+                    .append("' AND period_key = ")
+                    .append(entry.getValue().formatted(row + ".play_date"))
+                    .append(" AND song_id = ")
+                    .append(row)
+                    .append(".song_id;\n");
+        }
+        sql.append("DELETE FROM song_period_counts WHERE song_id = ").append(row).append(".song_id AND play_count <= 0;");
+        return sql.toString();
+    }
+
+    public record Mismatch(String periodType, String periodKey, int songId, int expectedCount, int storedCount) {}
+}
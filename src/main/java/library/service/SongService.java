@@ -4,6 +4,9 @@ import library.dto.ChartFilterDTO;
 import library.dto.FeaturedArtistCardDTO;
 import library.dto.FeaturedArtistDTO;
 import library.dto.GenderCountDTO;
+import library.dto.ItunesIdSource;
+import library.dto.KeysetPage;
+import library.dto.ListTotals;
 import library.dto.PlaysByYearDTO;
 import library.dto.PlaysByMonthDTO;
 import library.dto.PlayDTO;
@@ -51,9 +54,12 @@ public class SongService {
     private final ItunesService itunesService;
     private final AppConfigService appConfigService;
     private final SongLinkService songLinkService;
+    private final ImageThumbnailService imageThumbnailService;
+    private final SongAttributeIndexService songAttributeIndexService;
     
     public SongService(SongRepository songRepository, SongImageRepository songImageRepository, LookupRepository lookupRepository, JdbcTemplate jdbcTemplate,
-                       ItunesService itunesService, AppConfigService appConfigService, SongLinkService songLinkService) {
+                       ItunesService itunesService, AppConfigService appConfigService, SongLinkService songLinkService,
+                       ImageThumbnailService imageThumbnailService, SongAttributeIndexService songAttributeIndexService) {
         this.songRepository = songRepository;
         this.songImageRepository = songImageRepository;
         this.lookupRepository = lookupRepository;
@@ -61,11 +67,13 @@ public class SongService {
         this.itunesService = itunesService;
         this.appConfigService = appConfigService;
         this.songLinkService = songLinkService;
+        this.imageThumbnailService = imageThumbnailService;
+        this.songAttributeIndexService = songAttributeIndexService;
     }
 
-    public String getItunesSongIdsJson(String inItunes) {
+    public ItunesIdSource getItunesSongIds(String inItunes) {
         if (inItunes == null || inItunes.isEmpty()) return null;
-        return itunesService.getAllItunesSongIdsJson();
+        return itunesService.getAllItunesSongIds();
     }
 
     private record SongPresenceRequest(Integer id, String artistName, String albumName, String songName)
@@ -123,7 +131,7 @@ public class SongService {
                                                     Integer ageAtReleaseMin, Integer ageAtReleaseMax,
                                                     String birthDate, String birthDateFrom, String birthDateTo, String birthDateMode,
                                                     String deathDate, String deathDateFrom, String deathDateTo, String deathDateMode,
-                                                    String itunesIdsJson, String inItunes,
+                                                    ItunesIdSource itunesIds, String inItunes,
                                                     Integer playCountMin, Integer playCountMax,
                                                     Integer trackNumber, String trackNumberMode,
                                                     Integer lengthMin, Integer lengthMax, String lengthMode,
@@ -196,7 +204,7 @@ public class SongService {
         parts.add(deathDateFrom);
         parts.add(deathDateTo);
         parts.add(deathDateMode);
-        parts.add(itunesIdsJson);
+        parts.add(itunesIds);
         parts.add(inItunes);
         parts.add(playCountMin);
         parts.add(playCountMax);
@@ -261,7 +269,7 @@ public class SongService {
         }
     }
     
-    public List<SongCardDTO> getSongs(String name, List<Integer> artistName, String albumName,
+    public KeysetPage<SongCardDTO> getSongs(String name, List<Integer> artistName, String albumName,
                                        List<Integer> genreIds, String genreMode,
                                        List<Integer> subgenreIds, String subgenreMode,
                                        List<Integer> languageIds, String languageMode,
@@ -279,7 +287,7 @@ public class SongService {
                                        Integer ageAtReleaseMin, Integer ageAtReleaseMax,
                                        String birthDate, String birthDateFrom, String birthDateTo, String birthDateMode,
                                        String deathDate, String deathDateFrom, String deathDateTo, String deathDateMode,
-                                       String itunesIdsJson, String inItunes,
+                                       ItunesIdSource itunesIds, String inItunes,
                                        Integer playCountMin, Integer playCountMax,
                                        Integer trackNumber, String trackNumberMode,
                                        Integer lengthMin, Integer lengthMax, String lengthMode,
@@ -302,7 +310,7 @@ public class SongService {
                                        String sortBy, String sortDirection,
                                        String sortBy2, String sortDirection2,
                                        String sortBy3, String sortDirection3,
-                                       Integer randomSeed,
+                                       Integer randomSeed, String cursor,
                                        int page, int perPage) {
         // Normalize empty lists to null to avoid native SQL IN () syntax errors in SQLite
         if (accounts != null && accounts.isEmpty()) accounts = null;
@@ -334,7 +342,7 @@ public class SongService {
                 ageAtReleaseMin, ageAtReleaseMax,
                 birthDate, birthDateFrom, birthDateTo, birthDateMode,
                 deathDate, deathDateFrom, deathDateTo, deathDateMode,
-                itunesIdsJson, inItunes,
+                itunesIds, inItunes,
                 playCountMin, playCountMax,
                 trackNumber, trackNumberMode,
                 lengthMin, lengthMax, lengthMode,
@@ -354,7 +362,18 @@ public class SongService {
             : null;
         boolean includeExpensiveStats = !combineLinkedSongs || requiresExpensiveStatsForSort(sortBy, sortBy2, sortBy3);
 
-        List<SongStatsRow> results = songRepository.findSongsWithStats(new SongStatsQuery(
+        // Attribute filters are answered from the in-memory bitmaps first, so the list query
+        // only visits the songs that can still match
+        List<Integer> preselectedSongIds = combineLinkedSongs ? null
+                : songAttributeIndexService.preselect(songAttributeIndexService.select(
+                        genreIds, genreMode, subgenreIds, subgenreMode, languageIds, languageMode,
+                        genderIds, genderMode, ethnicityIds, ethnicityMode, countries, countryMode,
+                        tagIds, tagMode, isBand, isSingle, itunesIds, inItunes));
+        if (preselectedSongIds != null && preselectedSongIds.isEmpty()) {
+            return new KeysetPage<>(List.of(), null, new ListTotals(0, 0, 0));
+        }
+
+        SongStatsQuery listQuery = new SongStatsQuery(
                 name, artistName, albumName, genreIds, genreMode, 
                 subgenreIds, subgenreMode, languageIds, languageMode, genderIds, genderMode,
                 ethnicityIds, ethnicityMode, countries, countryMode, tagIds, tagMode, accounts, accountMode,
@@ -363,7 +382,7 @@ public class SongService {
                 lastListenedDate, lastListenedDateFrom, lastListenedDateTo, lastListenedDateMode,
                 listenedDateFrom, listenedDateTo,
                 organized, imageCountMin, imageCountMax, hasFeaturedArtists, isBand, isSingle,
-                itunesIdsJson, inItunes,
+                itunesIds, inItunes,
                 ageMin, ageMax, ageMode,
                 ageAtReleaseMin, ageAtReleaseMax,
                 birthDate, birthDateFrom, birthDateTo, birthDateMode,
@@ -384,8 +403,13 @@ public class SongService {
                 yearlyChartPeak, yearlyChartYears,
                 yearlyChartDateFrom, yearlyChartDateTo,
                 sortBy, sortDirection, sortBy2, sortDirection2, sortBy3, sortDirection3, randomSeed, queryLimit, queryOffset,
-                includeExpensiveStats, null
-        ));
+                includeExpensiveStats, preselectedSongIds, combineLinkedSongs ? null : cursor
+        );
+        // Combined linked songs are paged and counted in memory, so the list query skips its totals
+        KeysetPage<SongStatsRow> resultPage = combineLinkedSongs
+                ? new KeysetPage<>(songRepository.findSongsWithStats(listQuery), null, null)
+                : songRepository.findSongsPageWithStats(listQuery);
+        List<SongStatsRow> results = resultPage.rows();
 
         if (combineLinkedSongs && !linkedSongIds.isEmpty()) {
             Map<Integer, SongStatsRow> rowsById = results.stream()
@@ -399,7 +423,7 @@ public class SongService {
                     lastListenedDate, lastListenedDateFrom, lastListenedDateTo, lastListenedDateMode,
                     listenedDateFrom, listenedDateTo,
                     organized, imageCountMin, imageCountMax, hasFeaturedArtists, isBand, isSingle,
-                    itunesIdsJson, inItunes,
+                    itunesIds, inItunes,
                     ageMin, ageMax, ageMode,
                     ageAtReleaseMin, ageAtReleaseMax,
                     birthDate, birthDateFrom, birthDateTo, birthDateMode,
@@ -420,7 +444,7 @@ public class SongService {
                     yearlyChartPeak, yearlyChartYears,
                     yearlyChartDateFrom, yearlyChartDateTo,
                     sortBy, sortDirection, sortBy2, sortDirection2, sortBy3, sortDirection3,
-                    randomSeed, linkedSongIds.size(), 0, includeExpensiveStats, linkedSongIds
+                    randomSeed, linkedSongIds.size(), 0, includeExpensiveStats, linkedSongIds, null
             ));
             for (SongStatsRow linkedRow : linkedRows) {
                 rowsById.putIfAbsent(linkedRow.id(), linkedRow);
@@ -450,7 +474,7 @@ public class SongService {
                         lastListenedDate, lastListenedDateFrom, lastListenedDateTo, lastListenedDateMode,
                         listenedDateFrom, listenedDateTo,
                         organized, imageCountMin, imageCountMax, hasFeaturedArtists, isBand, isSingle,
-                        itunesIdsJson, inItunes,
+                        itunesIds, inItunes,
                         ageMin, ageMax, ageMode,
                         ageAtReleaseMin, ageAtReleaseMax,
                         birthDate, birthDateFrom, birthDateTo, birthDateMode,
@@ -471,7 +495,7 @@ public class SongService {
                         yearlyChartPeak, yearlyChartYears,
                         yearlyChartDateFrom, yearlyChartDateTo,
                         sortBy, sortDirection, sortBy2, sortDirection2, sortBy3, sortDirection3,
-                        randomSeed, pageSongIds.size(), 0, true, pageSongIds
+                        randomSeed, pageSongIds.size(), 0, true, pageSongIds, null
                 ));
                 Map<Integer, SongCardDTO> fullStatsById = mapSongRows(fullRows).stream()
                         .collect(Collectors.toMap(SongCardDTO::getId, Function.identity()));
@@ -480,11 +504,11 @@ public class SongService {
                         .collect(Collectors.toCollection(ArrayList::new));
             }
             populateSongItunesPresence(pagedSongs);
-            return pagedSongs;
+            return new KeysetPage<>(pagedSongs, null, null);
         }
 
         populateSongItunesPresence(songs);
-        return songs;
+        return new KeysetPage<>(songs, resultPage.nextCursor(), resultPage.totals());
     }
 
     private List<SongCardDTO> mapSongRows(List<SongStatsRow> results) {
@@ -907,7 +931,7 @@ public class SongService {
                           Integer ageAtReleaseMin, Integer ageAtReleaseMax,
                           String birthDate, String birthDateFrom, String birthDateTo, String birthDateMode,
                           String deathDate, String deathDateFrom, String deathDateTo, String deathDateMode,
-                          String itunesIdsJson, String inItunes,
+                          ItunesIdSource itunesIds, String inItunes,
                           Integer playCountMin, Integer playCountMax,
                           Integer trackNumber, String trackNumberMode,
                           Integer lengthMin, Integer lengthMax, String lengthMode,
@@ -945,7 +969,7 @@ public class SongService {
                     ageAtReleaseMin, ageAtReleaseMax,
                     birthDate, birthDateFrom, birthDateTo, birthDateMode,
                     deathDate, deathDateFrom, deathDateTo, deathDateMode,
-                    itunesIdsJson, inItunes,
+                    itunesIds, inItunes,
                     playCountMin, playCountMax,
                     trackNumber, trackNumberMode,
                     lengthMin, lengthMax, lengthMode,
@@ -975,7 +999,7 @@ public class SongService {
                     lastListenedDate, lastListenedDateFrom, lastListenedDateTo, lastListenedDateMode,
                     listenedDateFrom, listenedDateTo,
                     organized, imageCountMin, imageCountMax, hasFeaturedArtists, isBand, isSingle,
-                    itunesIdsJson, inItunes,
+                    itunesIds, inItunes,
                     ageMin, ageMax, ageMode,
                     ageAtReleaseMin, ageAtReleaseMax,
                     birthDate, birthDateFrom, birthDateTo, birthDateMode,
@@ -1011,7 +1035,7 @@ public class SongService {
                     lastListenedDate, lastListenedDateFrom, lastListenedDateTo, lastListenedDateMode,
                     listenedDateFrom, listenedDateTo,
                     organized, imageCountMin, imageCountMax, hasFeaturedArtists, isBand, isSingle,
-                    itunesIdsJson, inItunes,
+                    itunesIds, inItunes,
                     ageMin, ageMax, ageMode,
                     ageAtReleaseMin, ageAtReleaseMax,
                     birthDate, birthDateFrom, birthDateTo, birthDateMode,
@@ -1031,7 +1055,7 @@ public class SongService {
                         seasonalChartDateFrom, seasonalChartDateTo, seasonalChartSeason,
                         yearlyChartPeak, yearlyChartYears,
                         yearlyChartDateFrom, yearlyChartDateTo,
-                    "plays", "desc", null, null, null, null, null, linkedSongIds.size(), 0, false, linkedSongIds
+                    "plays", "desc", null, null, null, null, null, linkedSongIds.size(), 0, false, linkedSongIds, null
             ));
             long combinedCount = rawCount - countLinkedDuplicateRows(linkedRows);
             cacheCombinedSongCount(combinedSongsCacheKey, combinedCount);
@@ -1046,7 +1070,7 @@ public class SongService {
                 lastListenedDate, lastListenedDateFrom, lastListenedDateTo, lastListenedDateMode,
                 listenedDateFrom, listenedDateTo,
                 organized, imageCountMin, imageCountMax, hasFeaturedArtists, isBand, isSingle,
-                itunesIdsJson, inItunes,
+                itunesIds, inItunes,
                 ageMin, ageMax, ageMode,
                 ageAtReleaseMin, ageAtReleaseMax,
                 birthDate, birthDateFrom, birthDateTo, birthDateMode,
@@ -1091,7 +1115,7 @@ public class SongService {
                           Integer ageAtReleaseMin, Integer ageAtReleaseMax,
                           String birthDate, String birthDateFrom, String birthDateTo, String birthDateMode,
                           String deathDate, String deathDateFrom, String deathDateTo, String deathDateMode,
-                          String itunesIdsJson, String inItunes,
+                          ItunesIdSource itunesIds, String inItunes,
                           Integer playCountMin, Integer playCountMax,
                           Integer trackNumber, String trackNumberMode,
                           Integer lengthMin, Integer lengthMax, String lengthMode,
@@ -1129,7 +1153,7 @@ public class SongService {
                 ageAtReleaseMin, ageAtReleaseMax,
                 birthDate, birthDateFrom, birthDateTo, birthDateMode,
                 deathDate, deathDateFrom, deathDateTo, deathDateMode,
-                itunesIdsJson, inItunes,
+                itunesIds, inItunes,
                 playCountMin, playCountMax,
                 trackNumber, trackNumberMode,
                 lengthMin, lengthMax, lengthMode,
@@ -1405,6 +1429,11 @@ public class SongService {
     public void updateSongImage(Integer id, byte[] imageData) {
         String sql = "UPDATE Song SET single_cover = ? WHERE id = ?";
         jdbcTemplate.update(sql, imageData, id);
+        invalidateThumbnails(id);
+    }
+
+    private void invalidateThumbnails(Integer id) {
+        imageThumbnailService.invalidate("song", id);
     }
     
     public byte[] getSongImage(Integer id) {
@@ -1507,6 +1536,7 @@ public class SongService {
         image.setDisplayOrder(maxOrder + 1);
         image.setCreationDate(new java.sql.Timestamp(System.currentTimeMillis()));
         songImageRepository.save(image);
+        invalidateThumbnails(songId);
         return true;
     }
 
@@ -1994,10 +2024,10 @@ public class SongService {
         String inItunes = filter.getInItunes();
         String catalogType = normalizeCatalogType(filter.getCatalogType());
         
-        // Populate itunesSongIdsJson if needed for presence ratio filtering
-        if (filter.getItunesSongIdsJson() == null && 
+        // Populate itunesSongIds if needed for presence ratio filtering
+        if (filter.getItunesSongIds() == null && 
                 (filter.getItunesPresenceMin() != null || filter.getItunesPresenceMax() != null)) {
-            filter.setItunesSongIdsJson(itunesService.getAllItunesSongIdsJson());
+            filter.setItunesSongIds(itunesService.getAllItunesSongIds());
         }
         
         if (inItunes == null || inItunes.isEmpty()) {
@@ -0,0 +1,367 @@
+package library.service;
+
+import jakarta.annotation.PreDestroy;
+import library.config.SqliteRoutingDataSource;
+import library.util.LatencyHistogram;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Statement and request timings collected by InstrumentedDataSource and
+ * RequestTimingInterceptor, shown on /config/sql-stats.
+ *
+ * Every statement is attributed to the first application method on the stack (usually a
+ * repository or service method such as "SongRepository.findSongsWithStats") and recorded in
+ * that call site's latency histogram. Statements slower than musicstats.sql.slow-query-ms go to
+ * a bounded slow-query log with their parameters and, for queries, an EXPLAIN QUERY PLAN taken
+ * in the background on a reader connection. Requests are timed per controller endpoint, split
+ * into SQL time, Thymeleaf render time and everything else.
+ *
+ * SQL time is counted on the request thread only, so writes handed to SqliteWriteQueue show up
+ * in their call site's histogram but not in the endpoint's SQL share.
+ */
+@Service
+public class SqlTimingService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SqlTimingService.class);
+
+    private static final int MAX_PARAMETER_LENGTH = 200;
+
+    public record CallSiteStats(String callSite, long statements, double totalMillis, double meanMillis,
+                                double p50Millis, double p95Millis, double p99Millis, double maxMillis) {}
+
+    public record EndpointStats(String endpoint, long requests, double meanMillis, double p95Millis, double maxMillis,
+                                double meanSqlMillis, double meanRenderMillis, double meanOtherMillis,
+                                double meanStatements) {}
+
+    /**
+     * One statement over the slow-query threshold. The plan arrives after the entry is logged.
+     */
+    public static final class SlowQuery {
+
+        private final LocalDateTime executedAt;
+        private final String callSite;
+        private final String endpoint;
+        private final double millis;
+        private final String sql;
+        private final List<String> parameters;
+        private volatile String plan;
+
+        private SlowQuery(LocalDateTime executedAt, String callSite, String endpoint, double millis,
+                          String sql, List<String> parameters) {
+            this.executedAt = executedAt;
+            this.callSite = callSite;
+            this.endpoint = endpoint;
+            this.millis = millis;
+            this.sql = sql;
+            this.parameters = parameters;
+        }
+
+        public LocalDateTime getExecutedAt() {
+            return executedAt;
+        }
+
+        public String getCallSite() {
+            return callSite;
+        }
+
+        public String getEndpoint() {
+            return endpoint;
+        }
+
+        public double getMillis() {
+            return millis;
+        }
+
+        public String getSql() {
+            return sql;
+        }
+
+        public List<String> getParameters() {
+            return parameters;
+        }
+
+        public String getPlan() {
+            return plan;
+        }
+    }
+
+    private static final class EndpointTiming {
+
+        private final LatencyHistogram total = new LatencyHistogram();
+        private final LongAdder sqlNanos = new LongAdder();
+        private final LongAdder renderNanos = new LongAdder();
+        private final LongAdder statements = new LongAdder();
+    }
+
+    /**
+     * The request in progress on one thread.
+     */
+    private static final class RequestTiming {
+
+        private final String endpoint;
+        private final long startNanos;
+        private long sqlNanos;
+        private int statements;
+        private long handlerEndNanos;
+
+        private RequestTiming(String endpoint, long startNanos) {
+            this.endpoint = endpoint;
+            this.startNanos = startNanos;
+        }
+    }
+
+    private final DataSource explainDataSource;
+    private final long slowQueryNanos;
+    private final int slowQueryLogSize;
+    private final boolean explainSlowQueries;
+
+    private final Map<String, LatencyHistogram> callSites = new ConcurrentHashMap<>();
+    private final Map<String, EndpointTiming> endpoints = new ConcurrentHashMap<>();
+    private final Deque<SlowQuery> slowQueries = new ArrayDeque<>();
+    private final ThreadLocal<RequestTiming> currentRequest = new ThreadLocal<>();
+    private final ExecutorService explainExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "sql-explain");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public SqlTimingService(SqliteRoutingDataSource sqliteRoutingDataSource,
+                            @Value("${musicstats.sql.slow-query-ms:250}") long slowQueryMillis,
+                            @Value("${musicstats.sql.slow-query-log-size:100}") int slowQueryLogSize,
+                            @Value("${musicstats.sql.explain-slow-queries:true}") boolean explainSlowQueries) {
+        // The raw reader pool: query_only, and not instrumented, so explaining never records itself
+        this.explainDataSource = sqliteRoutingDataSource.getReader();
+        this.slowQueryNanos = slowQueryMillis * 1_000_000;
+        this.slowQueryLogSize = Math.max(1, slowQueryLogSize);
+        this.explainSlowQueries = explainSlowQueries;
+    }
+
+    @PreDestroy
+    public void stop() {
+        explainExecutor.shutdownNow();
+    }
+
+    /**
+     * Records one finished statement. parameters are the values bound by index and are only
+     * read (on the calling thread) when the statement is slow.
+     */
+    public void recordStatement(String sql, Map<Integer, Object> parameters, long nanos) {
+        String callSite = callSite();
+        callSites.computeIfAbsent(callSite, key -> new LatencyHistogram()).record(nanos);
+
+        RequestTiming request = currentRequest.get();
+        if (request != null) {
+            request.sqlNanos += nanos;
+            request.statements++;
+        }
+
+        if (nanos >= slowQueryNanos && sql != null) {
+            logSlowQuery(sql, parameters, nanos, callSite, request != null ? request.endpoint : null);
+        }
+    }
+
+    public void beginRequest(String endpoint) {
+        currentRequest.set(new RequestTiming(endpoint, System.nanoTime()));
+    }
+
+    /**
+     * Marks the end of the controller method; whatever follows until {@link #endRequest()} is
+     * view rendering.
+     */
+    public void handlerCompleted() {
+        RequestTiming request = currentRequest.get();
+        if (request != null) {
+            request.handlerEndNanos = System.nanoTime();
+        }
+    }
+
+    public void endRequest() {
+        RequestTiming request = currentRequest.get();
+        currentRequest.remove();
+        if (request == null) {
+            return;
+        }
+
+        long now = System.nanoTime();
+        EndpointTiming timing = endpoints.computeIfAbsent(request.endpoint, key -> new EndpointTiming());
+        timing.total.record(now - request.startNanos);
+        timing.sqlNanos.add(request.sqlNanos);
+        timing.renderNanos.add(request.handlerEndNanos == 0 ? 0 : now - request.handlerEndNanos);
+        timing.statements.add(request.statements);
+    }
+
+    /**
+     * Drops the current thread's request without recording it (async requests finish elsewhere).
+     */
+    public void abandonRequest() {
+        currentRequest.remove();
+    }
+
+    public List<CallSiteStats> callSiteStats() {
+        return callSites.entrySet().stream()
+                .map(entry -> {
+                    LatencyHistogram histogram = entry.getValue();
+                    return new CallSiteStats(entry.getKey(), histogram.count(), histogram.totalMillis(),
+                            histogram.meanMillis(), histogram.percentileMillis(0.50), histogram.percentileMillis(0.95),
+                            histogram.percentileMillis(0.99), histogram.maxMillis());
+                })
+                .sorted(Comparator.comparingDouble(CallSiteStats::totalMillis).reversed())
+                .toList();
+    }
+
+    public List<EndpointStats> endpointStats() {
+        return endpoints.entrySet().stream()
+                .map(entry -> {
+                    EndpointTiming timing = entry.getValue();
+                    long requests = timing.total.count();
+                    double meanSql = mean(timing.sqlNanos.sum(), requests);
+                    double meanRender = mean(timing.renderNanos.sum(), requests);
+                    double mean = timing.total.meanMillis();
+                    return new EndpointStats(entry.getKey(), requests, mean, timing.total.percentileMillis(0.95),
+                            timing.total.maxMillis(), meanSql, meanRender, Math.max(0, mean - meanSql - meanRender),
+                            requests == 0 ? 0 : (double) timing.statements.sum() / requests);
+                })
+                .sorted(Comparator.comparingDouble((EndpointStats stats) -> stats.meanMillis() * stats.requests()).reversed())
+                .toList();
+    }
+
+    /**
+     * The slow-query log, newest first.
+     */
+    public List<SlowQuery> slowQueries() {
+        synchronized (slowQueries) {
+            return new ArrayList<>(slowQueries);
+        }
+    }
+
+    public long getSlowQueryMillis() {
+        return slowQueryNanos / 1_000_000;
+    }
+
+    public void reset() {
+        callSites.clear();
+        endpoints.clear();
+        synchronized (slowQueries) {
+            slowQueries.clear();
+        }
+    }
+
+    private void logSlowQuery(String sql, Map<Integer, Object> parameters, long nanos, String callSite, String endpoint) {
+        List<Object> values = new ArrayList<>(parameters.values());
+        List<String> displayed = values.stream().map(SqlTimingService::displayParameter).toList();
+        SlowQuery entry = new SlowQuery(LocalDateTime.now(), callSite, endpoint, nanos / 1_000_000.0, sql, displayed);
+        synchronized (slowQueries) {
+            slowQueries.addFirst(entry);
+            while (slowQueries.size() > slowQueryLogSize) {
+                slowQueries.removeLast();
+            }
+        }
+        logger.warn("Slow SQL ({} ms) from {}: {}", Math.round(entry.millis), callSite, abbreviate(sql));
+
+        if (explainSlowQueries && isQuery(sql)) {
+            explainExecutor.execute(() -> entry.plan = explain(sql, values));
+        }
+    }
+
+    private String explain(String sql, List<Object> parameters) {
+        try (Connection connection = explainDataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement("EXPLAIN QUERY PLAN " + sql)) {
+            for (int i = 0; i < parameters.size(); i++) {
+                statement.setObject(i + 1, parameters.get(i));
+            }
+            StringBuilder plan = new StringBuilder();
+            Map<Integer, Integer> depths = new HashMap<>();
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    int depth = depths.getOrDefault(rs.getInt(2), -1) + 1;
+                    depths.put(rs.getInt(1), depth);
+                    plan.append("  ".repeat(depth)).append(rs.getString(4)).append('\n');
+                }
+            }
+            return plan.toString();
+        } catch (Exception e) {
+            return "EXPLAIN failed: " + e.getMessage();
+        }
+    }
+
+    /**
+     * "SimpleClassName.method" of the first application frame outside library.config, or
+     * "other" for statements issued by framework code alone (Hibernate flushes, pool checks).
+     */
+    private static String callSite() {
+        Optional<StackWalker.StackFrame> frame = StackWalker.getInstance().walk(frames -> frames
+                .filter(f -> {
+                    String className = f.getClassName();
+                    return className.startsWith("library.")
+                            && !className.startsWith("library.config.")
+                            && !className.equals(SqlTimingService.class.getName())
+                            && !className.contains("$$");
+                })
+                .findFirst());
+        return frame.map(f -> {
+            String className = f.getClassName();
+            int nested = className.indexOf('$');
+            String simpleName = className.substring(className.lastIndexOf('.') + 1,
+                    nested > 0 ? nested : className.length());
+            return simpleName + "." + methodName(f.getMethodName());
+        }).orElse("other");
+    }
+
+    /**
+     * lambda$findSongsWithStats$3 -> findSongsWithStats
+     */
+    private static String methodName(String method) {
+        if (method.startsWith("lambda$")) {
+            int end = method.indexOf('$', 7);
+            return end > 7 ? method.substring(7, end) : method;
+        }
+        return method;
+    }
+
+    private static boolean isQuery(String sql) {
+        String start = sql.stripLeading().toLowerCase(Locale.ROOT);
+        return start.startsWith("select") || start.startsWith("with");
+    }
+
+    private static String displayParameter(Object value) {
+        if (value == null) {
+            return "NULL";
+        }
+        if (value instanceof byte[] bytes) {
+            return "<" + bytes.length + " bytes>";
+        }
+        String text = value instanceof CharSequence ? "'" + value + "'" : String.valueOf(value);
+        return text.length() <= MAX_PARAMETER_LENGTH ? text : text.substring(0, MAX_PARAMETER_LENGTH) + "...";
+    }
+
+    private static String abbreviate(String sql) {
+        String flat = sql.replaceAll("\\s+", " ").trim();
+        return flat.length() <= 200 ? flat : flat.substring(0, 197) + "...";
+    }
+
+    private static double mean(long nanos, long count) {
+        return count == 0 ? 0 : nanos / 1_000_000.0 / count;
+    }
+}
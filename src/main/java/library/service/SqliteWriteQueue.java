@@ -0,0 +1,268 @@
+package library.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import library.config.SqliteRoutingDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import org.springframework.context.i18n.LocaleContext;
+import org.springframework.context.i18n.LocaleContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Serializes interactive writes on one "sqlite-writer" thread with group commit.
+ *
+ * Callers block until their write is committed and get its result (or its exception) back.
+ * The worker drains up to MAX_BATCH queued writes and runs them in a single transaction, so a
+ * burst of small edits costs one commit (one WAL sync) instead of one each. When any write of
+ * a batch throws, or the commit fails, the batch is rolled back and its writes are retried one
+ * transaction each, so a bad write only fails itself. Savepoints would avoid the retry, but the
+ * JPA transaction manager the application runs on does not support them.
+ *
+ * A queued write runs with the caller's request attributes, locale and logging MDC installed
+ * on the worker. Writes submitted from the worker itself, from inside a transaction or while
+ * the thread holds the writer connection run inline, since queueing them would wait on the
+ * caller's own lock; a caller's transaction therefore always covers its writes. Before start()
+ * (plain unit tests) writes also run inline, each in its own transaction.
+ *
+ * Long jobs go through {@link #runInChunks} so that interactive writes queued meanwhile commit
+ * between their chunks rather than waiting behind the whole job.
+ */
+@Service
+public class SqliteWriteQueue {
+
+    private static final Logger logger = LoggerFactory.getLogger(SqliteWriteQueue.class);
+
+    private static final int MAX_BATCH = 64;
+
+    public record Stats(int queueDepth, long tasks, long batches, double averageBatchSize,
+                        double averageQueueWaitMillis, double maxQueueWaitMillis, long retriedBatches, long failedTasks) {}
+
+    private record Task<T>(Supplier<T> action, CallerContext context, CompletableFuture<T> result,
+                           long enqueuedNanos) {
+        @SuppressWarnings("unchecked")
+        void succeed(Object value) {
+            result.complete((T) value);
+        }
+
+        Object run() {
+            return context.around(action);
+        }
+    }
+
+    /**
+     * The submitting thread's thread-bound context, installed on the worker while its write runs.
+     */
+    private record CallerContext(RequestAttributes requestAttributes, LocaleContext localeContext,
+                                 Map<String, String> mdc) {
+
+        static CallerContext capture() {
+            return new CallerContext(RequestContextHolder.getRequestAttributes(),
+                    LocaleContextHolder.getLocaleContext(), MDC.getCopyOfContextMap());
+        }
+
+        <T> T around(Supplier<T> action) {
+            RequestContextHolder.setRequestAttributes(requestAttributes);
+            LocaleContextHolder.setLocaleContext(localeContext);
+            if (mdc != null) {
+                MDC.setContextMap(mdc);
+            }
+            try {
+                return action.get();
+            } finally {
+                RequestContextHolder.resetRequestAttributes();
+                LocaleContextHolder.resetLocaleContext();
+                MDC.clear();
+            }
+        }
+    }
+
+    private final TransactionTemplate transactionTemplate;
+    private final BlockingQueue<Task<?>> queue = new LinkedBlockingQueue<>();
+    private volatile Thread worker;
+
+    private final LongAdder tasks = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder queueWaitNanos = new LongAdder();
+    private final LongAccumulator maxQueueWaitNanos = new LongAccumulator(Math::max, 0);
+    private final LongAdder retriedBatches = new LongAdder();
+    private final LongAdder failedTasks = new LongAdder();
+
+    public SqliteWriteQueue(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @PostConstruct
+    public synchronized void start() {
+        if (worker != null) {
+            return;
+        }
+        worker = new Thread(this::drain, "sqlite-writer");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        Thread current;
+        synchronized (this) {
+            current = worker;
+            worker = null;
+        }
+        if (current != null) {
+            current.interrupt();
+            current.join(TimeUnit.SECONDS.toMillis(10));
+        }
+    }
+
+    /**
+     * Runs action in a write transaction on the writer thread and returns its result.
+     * RuntimeExceptions thrown by action are rethrown to the caller unchanged.
+     */
+    public <T> T write(Supplier<T> action) {
+        Thread current = worker;
+        if (current == null || Thread.currentThread() == current
+                || TransactionSynchronizationManager.isActualTransactionActive()
+                || SqliteRoutingDataSource.isWriterHeldByCurrentThread()) {
+            return transactionTemplate.execute(status -> action.get());
+        }
+
+        Task<T> task = new Task<>(action, CallerContext.capture(), new CompletableFuture<>(), System.nanoTime());
+        queue.add(task);
+        try {
+            return task.result().get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a queued write", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new CompletionException(cause);
+        }
+    }
+
+    /**
+     * {@link #write(Supplier)} for actions without a result.
+     */
+    public void run(Runnable action) {
+        write(() -> {
+            action.run();
+            return null;
+        });
+    }
+
+    /**
+     * Runs a long job as a series of queued writes, one transaction per chunk, until chunk
+     * returns false (nothing left to do). Writes queued by other callers meanwhile commit
+     * between the chunks. Each chunk must leave the database consistent on its own, since
+     * readers and other writers see the state between chunks.
+     */
+    public void runInChunks(BooleanSupplier chunk) {
+        boolean more;
+        do {
+            more = write(chunk::getAsBoolean);
+        } while (more);
+    }
+
+    public Stats stats() {
+        long taskCount = tasks.sum();
+        long batchCount = batches.sum();
+        return new Stats(
+                queue.size(),
+                taskCount,
+                batchCount,
+                batchCount == 0 ? 0 : (double) taskCount / batchCount,
+                taskCount == 0 ? 0 : queueWaitNanos.sum() / 1_000_000.0 / taskCount,
+                maxQueueWaitNanos.get() / 1_000_000.0,
+                retriedBatches.sum(),
+                failedTasks.sum());
+    }
+
+    private void drain() {
+        List<Task<?>> batch = new ArrayList<>(MAX_BATCH);
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                break;
+            }
+            queue.drainTo(batch, MAX_BATCH - 1);
+            long now = System.nanoTime();
+            for (Task<?> task : batch) {
+                long waited = now - task.enqueuedNanos();
+                queueWaitNanos.add(waited);
+                maxQueueWaitNanos.accumulate(waited);
+            }
+            tasks.add(batch.size());
+            batches.increment();
+            commit(batch);
+            batch.clear();
+        }
+
+        // Writes still queued at shutdown run here so no caller is left waiting
+        Thread.interrupted();
+        queue.drainTo(batch);
+        batch.forEach(this::commitAlone);
+    }
+
+    private void commit(List<Task<?>> batch) {
+        if (batch.size() == 1) {
+            commitAlone(batch.get(0));
+            return;
+        }
+        // Callers are only released once the whole batch is committed
+        List<Object> results = new ArrayList<>(batch.size());
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                for (Task<?> task : batch) {
+                    results.add(task.run());
+                }
+            });
+        } catch (RuntimeException | Error e) {
+            logger.debug("Write batch of {} rolled back, retrying its writes one by one", batch.size(), e);
+            retriedBatches.increment();
+            batch.forEach(this::commitAlone);
+            return;
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            batch.get(i).succeed(results.get(i));
+        }
+    }
+
+    private void commitAlone(Task<?> task) {
+        Object value;
+        try {
+            value = transactionTemplate.execute(status -> task.run());
+        } catch (RuntimeException | Error e) {
+            failedTasks.increment();
+            task.result().completeExceptionally(e);
+            return;
+        }
+        task.succeed(value);
+    }
+}
@@ -16,9 +16,11 @@ import java.util.*;
 @Service
 public class TimeframeService {
     private final JdbcTemplate jdbcTemplate;
+    private final SongPeriodCountService songPeriodCountService;
     
-    public TimeframeService(JdbcTemplate jdbcTemplate) {
+    public TimeframeService(JdbcTemplate jdbcTemplate, SongPeriodCountService songPeriodCountService) {
         this.jdbcTemplate = jdbcTemplate;
+        this.songPeriodCountService = songPeriodCountService;
     }
     
     /**
@@ -134,40 +136,11 @@ public class TimeframeService {
         
         sql.append(String.format("""
             WITH period_summary AS (
-                SELECT 
-                    %s as period_key,
-                    MIN(p.play_date) as bound_min,
-                    MAX(p.play_date) as bound_max,
-                    COUNT(*) as play_count,
-                    COALESCE(SUM(s.length_seconds), 0) as time_listened,
-                    COUNT(DISTINCT ar.id) as artist_count,
-                    COUNT(DISTINCT CASE WHEN s.album_id IS NOT NULL THEN s.album_id END) as album_count,
-                    COUNT(DISTINCT s.id) as song_count,
-                    COUNT(DISTINCT CASE WHEN COALESCE(s.override_gender_id, ar.gender_id) = 2 THEN s.id END) as male_song_count,
-                    COUNT(DISTINCT CASE WHEN COALESCE(s.override_gender_id, ar.gender_id) = 1 THEN s.id END) as female_song_count,
-                    COUNT(DISTINCT CASE WHEN COALESCE(s.override_gender_id, ar.gender_id) NOT IN (1,2) AND COALESCE(s.override_gender_id, ar.gender_id) IS NOT NULL THEN s.id END) as other_song_count,
-                    COUNT(DISTINCT CASE WHEN COALESCE(s.override_gender_id, ar.gender_id) = 2 THEN ar.id END) as male_artist_count,
-                    COUNT(DISTINCT CASE WHEN COALESCE(s.override_gender_id, ar.gender_id) = 1 THEN ar.id END) as female_artist_count,
-                    COUNT(DISTINCT CASE WHEN COALESCE(s.override_gender_id, ar.gender_id) NOT IN (1,2) AND COALESCE(s.override_gender_id, ar.gender_id) IS NOT NULL THEN ar.id END) as other_artist_count,
-                    COUNT(DISTINCT CASE WHEN COALESCE(s.override_gender_id, ar.gender_id) = 2 AND s.album_id IS NOT NULL THEN s.album_id END) as male_album_count,
-                    COUNT(DISTINCT CASE WHEN COALESCE(s.override_gender_id, ar.gender_id) = 1 AND s.album_id IS NOT NULL THEN s.album_id END) as female_album_count,
-                    COUNT(DISTINCT CASE WHEN COALESCE(s.override_gender_id, ar.gender_id) NOT IN (1,2) AND COALESCE(s.override_gender_id, ar.gender_id) IS NOT NULL AND s.album_id IS NOT NULL THEN s.album_id END) as other_album_count,
-                    SUM(CASE WHEN COALESCE(s.override_gender_id, ar.gender_id) = 2 THEN 1 ELSE 0 END) as male_play_count,
-                    SUM(CASE WHEN COALESCE(s.override_gender_id, ar.gender_id) = 1 THEN 1 ELSE 0 END) as female_play_count,
-                    SUM(CASE WHEN COALESCE(s.override_gender_id, ar.gender_id) NOT IN (1,2) AND COALESCE(s.override_gender_id, ar.gender_id) IS NOT NULL THEN 1 ELSE 0 END) as other_play_count,
-                    SUM(CASE WHEN COALESCE(s.override_gender_id, ar.gender_id) = 2 THEN COALESCE(s.length_seconds, 0) ELSE 0 END) as male_time_listened,
-                    SUM(CASE WHEN COALESCE(s.override_gender_id, ar.gender_id) = 1 THEN COALESCE(s.length_seconds, 0) ELSE 0 END) as female_time_listened,
-                    SUM(CASE WHEN COALESCE(s.override_gender_id, ar.gender_id) NOT IN (1,2) AND COALESCE(s.override_gender_id, ar.gender_id) IS NOT NULL THEN COALESCE(s.length_seconds, 0) ELSE 0 END) as other_time_listened
-                FROM Play p
-                INNER JOIN Song s ON p.song_id = s.id
-                INNER JOIN Artist ar ON s.artist_id = ar.id
-                WHERE p.play_date IS NOT NULL
-                GROUP BY period_key
-                HAVING period_key IS NOT NULL
+%s
             ),
             filtered_periods AS (
                 SELECT 
-                    period_key, bound_min, bound_max,
+                    period_key,
                     play_count,
                     time_listened,
                     artist_count,
@@ -214,7 +187,7 @@ public class TimeframeService {
                         ELSE NULL 
                     END as male_time_pct
                 FROM period_summary
-                WHERE 1=1""", periodKeyExpr));
+                WHERE 1=1""", buildPeriodSummarySql(periodType, periodKeyExpr)));
         
         // Append filter conditions inline here (before ORDER BY/LIMIT)
         appendInlineSummaryFilters(sql, params,
@@ -291,21 +264,7 @@ public class TimeframeService {
             sql.append(String.format("""
             
             period_attr_counts AS (
-                SELECT 
-                    %s as period_key,
-                    COALESCE(s.override_gender_id, ar.gender_id) as eff_gender_id,
-                    COALESCE(s.override_genre_id, COALESCE(al.override_genre_id, ar.genre_id)) as eff_genre_id,
-                    COALESCE(s.override_ethnicity_id, ar.ethnicity_id) as eff_ethnicity_id,
-                    COALESCE(s.override_language_id, COALESCE(al.override_language_id, ar.language_id)) as eff_language_id,
-                    ar.country as eff_country,
-                    COUNT(*) as cnt
-                FROM Play p
-                INNER JOIN Song s ON p.song_id = s.id
-                INNER JOIN Artist ar ON s.artist_id = ar.id
-                LEFT JOIN Album al ON s.album_id = al.id
-                INNER JOIN filtered_periods fp ON %s = fp.period_key
-                WHERE p.play_date IS NOT NULL
-                GROUP BY period_key, eff_gender_id, eff_genre_id, eff_ethnicity_id, eff_language_id, eff_country
+%s
             ),
             winning_gender AS (
                 SELECT pac.period_key, pac.eff_gender_id as gender_id, gn.name as gender_name,
@@ -388,7 +347,7 @@ public class TimeframeService {
             LEFT JOIN winning_ethnicity weth ON fp.period_key = weth.period_key AND weth.rn = 1
             LEFT JOIN winning_language wlang ON fp.period_key = wlang.period_key AND wlang.rn = 1
             LEFT JOIN winning_country wcty ON fp.period_key = wcty.period_key AND wcty.rn = 1
-            """, periodKeyExpr, periodKeyExpr
+            """, buildFilteredPeriodAttrCountsSql(periodType, periodKeyExpr)
             ));
         }
         
@@ -1013,14 +972,14 @@ public class TimeframeService {
             "WITH day_gender AS ( " +
             "    SELECT " +
             "        " + periodKeyExpr + " as period_key, " +
-            "        DATE(p.play_date) as play_day, " +
+            "        p.play_day, " +
             "        SUM(CASE WHEN COALESCE(s.override_gender_id, ar.gender_id) = 2 THEN 1 ELSE 0 END) as male_plays, " +
             "        SUM(CASE WHEN COALESCE(s.override_gender_id, ar.gender_id) = 1 THEN 1 ELSE 0 END) as female_plays " +
             "    FROM Play p " +
             "    JOIN Song s ON p.song_id = s.id " +
             "    JOIN Artist ar ON s.artist_id = ar.id " +
             "    WHERE p.play_date IS NOT NULL AND " + periodKeyExpr + " IN (" + placeholders + ") " + dateBoundsClause +
-            "    GROUP BY " + periodKeyExpr + ", DATE(p.play_date) " +
+            "    GROUP BY " + periodKeyExpr + ", p.play_day " +
             ") " +
             "SELECT period_key, SUM(CASE WHEN male_plays > female_plays THEN 1 ELSE 0 END) as male_days " +
             "FROM day_gender " +
@@ -1167,40 +1126,11 @@ public class TimeframeService {
         
         sql.append(String.format("""
             WITH period_summary AS (
-                SELECT 
-                    %s as period_key,
-                    MIN(p.play_date) as bound_min,
-                    MAX(p.play_date) as bound_max,
-                    COUNT(*) as play_count,
-                    COALESCE(SUM(s.length_seconds), 0) as time_listened,
-                    COUNT(DISTINCT ar.id) as artist_count,
-                    COUNT(DISTINCT CASE WHEN s.album_id IS NOT NULL THEN s.album_id END) as album_count,
-                    COUNT(DISTINCT s.id) as song_count,
-                    COUNT(DISTINCT CASE WHEN COALESCE(s.override_gender_id, ar.gender_id) = 2 THEN s.id END) as male_song_count,
-                    COUNT(DISTINCT CASE WHEN COALESCE(s.override_gender_id, ar.gender_id) = 1 THEN s.id END) as female_song_count,
-                    COUNT(DISTINCT CASE WHEN COALESCE(s.override_gender_id, ar.gender_id) NOT IN (1,2) AND COALESCE(s.override_gender_id, ar.gender_id) IS NOT NULL THEN s.id END) as other_song_count,
-                    COUNT(DISTINCT CASE WHEN COALESCE(s.override_gender_id, ar.gender_id) = 2 THEN ar.id END) as male_artist_count,
-                    COUNT(DISTINCT CASE WHEN COALESCE(s.override_gender_id, ar.gender_id) = 1 THEN ar.id END) as female_artist_count,
-                    COUNT(DISTINCT CASE WHEN COALESCE(s.override_gender_id, ar.gender_id) NOT IN (1,2) AND COALESCE(s.override_gender_id, ar.gender_id) IS NOT NULL THEN ar.id END) as other_artist_count,
-                    COUNT(DISTINCT CASE WHEN COALESCE(s.override_gender_id, ar.gender_id) = 2 AND s.album_id IS NOT NULL THEN s.album_id END) as male_album_count,
-                    COUNT(DISTINCT CASE WHEN COALESCE(s.override_gender_id, ar.gender_id) = 1 AND s.album_id IS NOT NULL THEN s.album_id END) as female_album_count,
-                    COUNT(DISTINCT CASE WHEN COALESCE(s.override_gender_id, ar.gender_id) NOT IN (1,2) AND COALESCE(s.override_gender_id, ar.gender_id) IS NOT NULL AND s.album_id IS NOT NULL THEN s.album_id END) as other_album_count,
-                    SUM(CASE WHEN COALESCE(s.override_gender_id, ar.gender_id) = 2 THEN 1 ELSE 0 END) as male_play_count,
-                    SUM(CASE WHEN COALESCE(s.override_gender_id, ar.gender_id) = 1 THEN 1 ELSE 0 END) as female_play_count,
-                    SUM(CASE WHEN COALESCE(s.override_gender_id, ar.gender_id) NOT IN (1,2) AND COALESCE(s.override_gender_id, ar.gender_id) IS NOT NULL THEN 1 ELSE 0 END) as other_play_count,
-                    SUM(CASE WHEN COALESCE(s.override_gender_id, ar.gender_id) = 2 THEN COALESCE(s.length_seconds, 0) ELSE 0 END) as male_time_listened,
-                    SUM(CASE WHEN COALESCE(s.override_gender_id, ar.gender_id) = 1 THEN COALESCE(s.length_seconds, 0) ELSE 0 END) as female_time_listened,
-                    SUM(CASE WHEN COALESCE(s.override_gender_id, ar.gender_id) NOT IN (1,2) AND COALESCE(s.override_gender_id, ar.gender_id) IS NOT NULL THEN COALESCE(s.length_seconds, 0) ELSE 0 END) as other_time_listened
-                FROM Play p
-                INNER JOIN Song s ON p.song_id = s.id
-                INNER JOIN Artist ar ON s.artist_id = ar.id
-                WHERE p.play_date IS NOT NULL
-                GROUP BY period_key
-                HAVING period_key IS NOT NULL
+%s
             ),
             filtered_periods AS (
                 SELECT 
-                    period_key, bound_min, bound_max,
+                    period_key,
                     play_count,
                     time_listened,
                     artist_count,
@@ -1247,7 +1177,7 @@ public class TimeframeService {
                         ELSE NULL 
                     END as male_time_pct
                 FROM period_summary
-                WHERE 1=1""", periodKeyExpr));
+                WHERE 1=1""", buildPeriodSummarySql(periodType, periodKeyExpr)));
         
         appendInlineSummaryFilters(sql, params,
             artistCountMin, artistCountMax,
@@ -2063,6 +1993,114 @@ public class TimeframeService {
         return year * 10 + seasonNum;
     }
     
+    /**
+     * Body of the period_summary CTE. Reads the song_period_counts rollup when it is
+     * available (one row per period + song instead of one per play) and falls back to
+     * aggregating Play directly otherwise. Both shapes expose the same columns.
+     */
+    private String buildPeriodSummarySql(String periodType, String periodKeyExpr) {
+        String genderExpr = "COALESCE(s.override_gender_id, ar.gender_id)";
+        String otherGender = genderExpr + " NOT IN (1,2) AND " + genderExpr + " IS NOT NULL";
+        String distinctColumns = String.format("""
+                    COUNT(DISTINCT ar.id) as artist_count,
+                    COUNT(DISTINCT CASE WHEN s.album_id IS NOT NULL THEN s.album_id END) as album_count,
+                    COUNT(DISTINCT s.id) as song_count,
+                    COUNT(DISTINCT CASE WHEN %1$s = 2 THEN s.id END) as male_song_count,
+                    COUNT(DISTINCT CASE WHEN %1$s = 1 THEN s.id END) as female_song_count,
+                    COUNT(DISTINCT CASE WHEN %2$s THEN s.id END) as other_song_count,
+                    COUNT(DISTINCT CASE WHEN %1$s = 2 THEN ar.id END) as male_artist_count,
+                    COUNT(DISTINCT CASE WHEN %1$s = 1 THEN ar.id END) as female_artist_count,
+                    COUNT(DISTINCT CASE WHEN %2$s THEN ar.id END) as other_artist_count,
+                    COUNT(DISTINCT CASE WHEN %1$s = 2 AND s.album_id IS NOT NULL THEN s.album_id END) as male_album_count,
+                    COUNT(DISTINCT CASE WHEN %1$s = 1 AND s.album_id IS NOT NULL THEN s.album_id END) as female_album_count,
+                    COUNT(DISTINCT CASE WHEN %2$s AND s.album_id IS NOT NULL THEN s.album_id END) as other_album_count,""",
+                genderExpr, otherGender);
+
+        if (songPeriodCountService.isReady()) {
+            return String.format("""
+                SELECT 
+                    spc.period_key as period_key,
+                    SUM(spc.play_count) as play_count,
+                    COALESCE(SUM(spc.play_count * s.length_seconds), 0) as time_listened,
+%3$s
+                    SUM(CASE WHEN %1$s = 2 THEN spc.play_count ELSE 0 END) as male_play_count,
+                    SUM(CASE WHEN %1$s = 1 THEN spc.play_count ELSE 0 END) as female_play_count,
+                    SUM(CASE WHEN %2$s THEN spc.play_count ELSE 0 END) as other_play_count,
+                    SUM(CASE WHEN %1$s = 2 THEN spc.play_count * COALESCE(s.length_seconds, 0) ELSE 0 END) as male_time_listened,
+                    SUM(CASE WHEN %1$s = 1 THEN spc.play_count * COALESCE(s.length_seconds, 0) ELSE 0 END) as female_time_listened,
+                    SUM(CASE WHEN %2$s THEN spc.play_count * COALESCE(s.length_seconds, 0) ELSE 0 END) as other_time_listened
+                FROM song_period_counts spc
+                INNER JOIN Song s ON spc.song_id = s.id
+                INNER JOIN Artist ar ON s.artist_id = ar.id
+                WHERE spc.period_type = '%4$s'
+                GROUP BY spc.period_key""",
+                genderExpr, otherGender, distinctColumns, SongPeriodCountService.normalizePeriodType(periodType));
+        }
+
+        return String.format("""
+                SELECT 
+                    %4$s as period_key,
+                    COUNT(*) as play_count,
+                    COALESCE(SUM(s.length_seconds), 0) as time_listened,
+%3$s
+                    SUM(CASE WHEN %1$s = 2 THEN 1 ELSE 0 END) as male_play_count,
+                    SUM(CASE WHEN %1$s = 1 THEN 1 ELSE 0 END) as female_play_count,
+                    SUM(CASE WHEN %2$s THEN 1 ELSE 0 END) as other_play_count,
+                    SUM(CASE WHEN %1$s = 2 THEN COALESCE(s.length_seconds, 0) ELSE 0 END) as male_time_listened,
+                    SUM(CASE WHEN %1$s = 1 THEN COALESCE(s.length_seconds, 0) ELSE 0 END) as female_time_listened,
+                    SUM(CASE WHEN %2$s THEN COALESCE(s.length_seconds, 0) ELSE 0 END) as other_time_listened
+                FROM Play p
+                INNER JOIN Song s ON p.song_id = s.id
+                INNER JOIN Artist ar ON s.artist_id = ar.id
+                WHERE p.play_date IS NOT NULL
+                GROUP BY period_key
+                HAVING period_key IS NOT NULL""",
+                genderExpr, otherGender, distinctColumns, periodKeyExpr);
+    }
+
+    /**
+     * Body of the period_attr_counts CTE used by the main query: play counts per effective
+     * attribute combination, restricted to the periods in filtered_periods.
+     */
+    private String buildFilteredPeriodAttrCountsSql(String periodType, String periodKeyExpr) {
+        String attributeColumns = """
+                    COALESCE(s.override_gender_id, ar.gender_id) as eff_gender_id,
+                    COALESCE(s.override_genre_id, COALESCE(al.override_genre_id, ar.genre_id)) as eff_genre_id,
+                    COALESCE(s.override_ethnicity_id, ar.ethnicity_id) as eff_ethnicity_id,
+                    COALESCE(s.override_language_id, COALESCE(al.override_language_id, ar.language_id)) as eff_language_id,
+                    ar.country as eff_country,""";
+
+        if (songPeriodCountService.isReady()) {
+            return String.format("""
+                SELECT 
+                    spc.period_key as period_key,
+%s
+                    SUM(spc.play_count) as cnt
+                FROM song_period_counts spc
+                INNER JOIN filtered_periods fp ON spc.period_key = fp.period_key
+                INNER JOIN Song s ON spc.song_id = s.id
+                INNER JOIN Artist ar ON s.artist_id = ar.id
+                LEFT JOIN Album al ON s.album_id = al.id
+                WHERE spc.period_type = '%s'
+                GROUP BY spc.period_key, eff_gender_id, eff_genre_id, eff_ethnicity_id, eff_language_id, eff_country""",
+                attributeColumns, SongPeriodCountService.normalizePeriodType(periodType));
+        }
+
+        return String.format("""
+                SELECT 
+                    %1$s as period_key,
+%2$s
+                    COUNT(*) as cnt
+                FROM Play p
+                INNER JOIN Song s ON p.song_id = s.id
+                INNER JOIN Artist ar ON s.artist_id = ar.id
+                LEFT JOIN Album al ON s.album_id = al.id
+                INNER JOIN filtered_periods fp ON %1$s = fp.period_key
+                WHERE p.play_date IS NOT NULL
+                GROUP BY period_key, eff_gender_id, eff_genre_id, eff_ethnicity_id, eff_language_id, eff_country""",
+                periodKeyExpr, attributeColumns);
+    }
+
     /**
      * Get SQLite expression for period key based on type
      */
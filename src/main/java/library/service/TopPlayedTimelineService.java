@@ -1,294 +1,724 @@
 package library.service;
 
+import jakarta.annotation.PostConstruct;
 import library.dto.TopPlayedSnapshotDTO;
 import library.dto.TopPlayedSnapshotItemDTO;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.sql.SQLException;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.time.temporal.ChronoUnit;
 import java.util.*;
-import java.util.stream.Collectors;
 
 /**
  * Service for building "Top Played Reigns" data.
  * Computes the history of top-3 snapshots (artists, songs, or genres) over time
  * by replaying all plays in chronological order and tracking every time the top-3 changes.
+ *
+ * Replaying the whole Play table on every page view is avoided by persisting the result:
+ * closed snapshots go to top_played_snapshot, and the replay state after the last play
+ * (cumulative counts, current top-3) to top_played_timeline_state, with one more copy of that
+ * state at each year boundary in top_played_timeline_checkpoint. A read replays only the plays
+ * after the stored state. Triggers record the earliest date touched by a back-dated play, a
+ * deleted play or a song/album/artist edit that moves plays between items; the next read
+ * resumes from the last checkpoint before that date. Names and genders are looked up when the
+ * timeline is displayed, so renames never need a replay.
  */
 @Service
 public class TopPlayedTimelineService {
 
     private final JdbcTemplate jdbcTemplate;
+    private final SqliteWriteQueue writeQueue;
+    private volatile boolean ready;
 
     private static final DateTimeFormatter DB_DATE_FMT = DateTimeFormatter.ofPattern("yyyy-MM-dd");
     private static final DateTimeFormatter DISPLAY_DATE_FMT = DateTimeFormatter.ofPattern("dd/MM/yyyy");
     // Only display snapshots that were active on or after this date
     private static final LocalDate DISPLAY_CUTOFF = LocalDate.of(2005, 2, 14);
+    /** Plays replayed per queued write, so a full replay does not hold the writer for long. */
+    private static final int PLAYS_PER_CHUNK = 20_000;
+
+    enum Timeline {
+        ARTISTS("artists", "ar.id", """
+                SELECT ar.id as item_id, ar.name as item_name, NULL as secondary_name,
+                       ar.gender_id, gn.name as gender_name
+                FROM Artist ar
+                LEFT JOIN Gender gn ON ar.gender_id = gn.id
+                WHERE ar.id IN (%s)
+                """),
+        SONGS("songs", "CASE WHEN ar.id IS NOT NULL THEN s.id END", """
+                SELECT s.id as item_id, s.name as item_name, ar.name as secondary_name,
+                       COALESCE(s.override_gender_id, ar.gender_id) as gender_id, gn.name as gender_name
+                FROM Song s
+                JOIN Artist ar ON s.artist_id = ar.id
+                LEFT JOIN Gender gn ON COALESCE(s.override_gender_id, ar.gender_id) = gn.id
+                WHERE s.id IN (%s)
+                """),
+        GENRES("genres", "CASE WHEN ar.id IS NOT NULL THEN COALESCE(s.override_genre_id, al.override_genre_id, ar.genre_id) END", """
+                SELECT g.id as item_id, g.name as item_name, NULL as secondary_name,
+                       NULL as gender_id, NULL as gender_name
+                FROM Genre g
+                WHERE g.id IN (%s)
+                """);
+
+        private final String key;
+        private final String itemExpression;
+        private final String itemDetailsSql;
+
+        Timeline(String key, String itemExpression, String itemDetailsSql) {
+            this.key = key;
+            this.itemExpression = itemExpression;
+            this.itemDetailsSql = itemDetailsSql;
+        }
+
+        /**
+         * Plays after a (play_date, id) position, in replay order, at most as many as the last
+         * parameter (-1 for all). Plays whose song or artist is missing come back with a NULL
+         * item so the replay position still moves past them.
+         */
+        String playsSql() {
+            return """
+                SELECT p.id, p.play_date, %s as item_id
+                FROM Play p
+                LEFT JOIN Song s ON p.song_id = s.id
+                LEFT JOIN Artist ar ON s.artist_id = ar.id
+                LEFT JOIN Album al ON s.album_id = al.id
+                WHERE p.song_id IS NOT NULL AND p.play_date IS NOT NULL
+                  AND (p.play_date, p.id) > (?, ?)
+                ORDER BY p.play_date, p.id
+                LIMIT ?
+                """.formatted(itemExpression);
+        }
+    }
 
-    public TopPlayedTimelineService(JdbcTemplate jdbcTemplate) {
+    /** One position of a closed snapshot, as stored in top_played_snapshot. */
+    record SnapshotItem(int itemId, int playsCount, int playsWhenEntered, int playsAtSnapshotStart,
+                        int daysAtPos1, int daysAtPos2, int daysAtPos3) {}
+
+    /** A closed snapshot; dates are yyyy-MM-dd. */
+    record Snapshot(String startDate, String endDate, int days, List<SnapshotItem> items) {}
+
+    public TopPlayedTimelineService(JdbcTemplate jdbcTemplate, SqliteWriteQueue writeQueue) {
         this.jdbcTemplate = jdbcTemplate;
+        this.writeQueue = writeQueue;
+    }
+
+    @PostConstruct
+    public void initialize() {
+        jdbcTemplate.execute("""
+                CREATE TABLE IF NOT EXISTS top_played_timeline_state (
+                    timeline TEXT PRIMARY KEY,
+                    head_play_date TEXT,
+                    head_play_id INTEGER,
+                    snapshot_count INTEGER NOT NULL DEFAULT 0,
+                    state BLOB,
+                    replay_from TEXT
+                ) WITHOUT ROWID
+                """);
+        jdbcTemplate.execute("""
+                CREATE TABLE IF NOT EXISTS top_played_timeline_checkpoint (
+                    timeline TEXT NOT NULL,
+                    play_date TEXT NOT NULL,
+                    play_id INTEGER NOT NULL,
+                    snapshot_count INTEGER NOT NULL,
+                    state BLOB NOT NULL,
+                    PRIMARY KEY (timeline, play_date, play_id)
+                ) WITHOUT ROWID
+                """);
+        jdbcTemplate.execute("""
+                CREATE TABLE IF NOT EXISTS top_played_snapshot (
+                    timeline TEXT NOT NULL,
+                    seq INTEGER NOT NULL,
+                    position INTEGER NOT NULL,
+                    start_date TEXT NOT NULL,
+                    end_date TEXT NOT NULL,
+                    days INTEGER NOT NULL,
+                    item_id INTEGER NOT NULL,
+                    plays_count INTEGER NOT NULL,
+                    plays_when_entered INTEGER NOT NULL,
+                    plays_at_snapshot_start INTEGER NOT NULL,
+                    days_at_pos1 INTEGER NOT NULL,
+                    days_at_pos2 INTEGER NOT NULL,
+                    days_at_pos3 INTEGER NOT NULL,
+                    PRIMARY KEY (timeline, seq, position)
+                ) WITHOUT ROWID
+                """);
+        for (Timeline timeline : Timeline.values()) {
+            jdbcTemplate.update("INSERT OR IGNORE INTO top_played_timeline_state (timeline) VALUES (?)", timeline.key);
+        }
+        createTriggers();
+        ready = true;
     }
 
     public List<TopPlayedSnapshotDTO> getArtistTimeline() {
-        String sql = """
-            SELECT p.play_date, s.artist_id as item_id, ar.name as item_name,
-                   NULL as secondary_name,
-                   COALESCE(s.override_gender_id, ar.gender_id) as gender_id,
-                   gn.name as gender_name
-            FROM play p
-            JOIN song s ON p.song_id = s.id
-            JOIN artist ar ON s.artist_id = ar.id
-            LEFT JOIN gender gn ON COALESCE(s.override_gender_id, ar.gender_id) = gn.id
-            WHERE p.song_id IS NOT NULL
-            ORDER BY p.play_date ASC
-            """;
-        return buildSnapshots(sql);
+        return getTimeline(Timeline.ARTISTS);
     }
 
     public List<TopPlayedSnapshotDTO> getSongTimeline() {
-        String sql = """
-            SELECT p.play_date, p.song_id as item_id, s.name as item_name,
-                   ar.name as secondary_name,
-                   COALESCE(s.override_gender_id, ar.gender_id) as gender_id,
-                   gn.name as gender_name
-            FROM play p
-            JOIN song s ON p.song_id = s.id
-            JOIN artist ar ON s.artist_id = ar.id
-            LEFT JOIN gender gn ON COALESCE(s.override_gender_id, ar.gender_id) = gn.id
-            WHERE p.song_id IS NOT NULL
-            ORDER BY p.play_date ASC
-            """;
-        return buildSnapshots(sql);
+        return getTimeline(Timeline.SONGS);
     }
 
     public List<TopPlayedSnapshotDTO> getGenreTimeline() {
-        String sql = """
-            SELECT p.play_date,
-                   COALESCE(s.override_genre_id, al.override_genre_id, ar.genre_id) as item_id,
-                   g.name as item_name,
-                   NULL as secondary_name,
-                   NULL as gender_id,
-                   NULL as gender_name
-            FROM play p
-            JOIN song s ON p.song_id = s.id
-            JOIN artist ar ON s.artist_id = ar.id
-            LEFT JOIN album al ON s.album_id = al.id
-            LEFT JOIN genre g ON COALESCE(s.override_genre_id, al.override_genre_id, ar.genre_id) = g.id
-            WHERE p.song_id IS NOT NULL
-            ORDER BY p.play_date ASC
-            """;
-        return buildSnapshots(sql);
+        return getTimeline(Timeline.GENRES);
+    }
+
+    private List<TopPlayedSnapshotDTO> getTimeline(Timeline timeline) {
+        if (!ready) {
+            // Before initialize() (plain unit tests): replay every play in memory
+            Replay replay = new Replay();
+            List<Snapshot> closed = new ArrayList<>();
+            replayPlays(timeline, replay, "", 0, -1, closed, null);
+            return buildTimeline(timeline, closed, replay);
+        }
+
+        refresh(timeline);
+        Replay head = jdbcTemplate.queryForObject(
+                "SELECT state FROM top_played_timeline_state WHERE timeline = ?",
+                (rs, rowNum) -> Replay.decode(rs.getBytes("state")), timeline.key);
+        return buildTimeline(timeline, loadSnapshots(timeline), head);
     }
 
     /**
-     * Core algorithm: replays all plays in order, tracks cumulative counts per item,
-     * builds a new snapshot whenever the top-3 ranking changes.
+     * Brings the stored timeline up to date: a no-op when nothing changed, a replay of the new
+     * plays when plays were only appended, and a replay from the last checkpoint before the
+     * earliest change otherwise. The replay runs PLAYS_PER_CHUNK plays per queued write; the
+     * stored state after each chunk is a valid head for the next one.
      */
-    private List<TopPlayedSnapshotDTO> buildSnapshots(String sql) {
-        return jdbcTemplate.query(sql, rs -> {
-            List<TopPlayedSnapshotDTO> snapshots = new ArrayList<>();
-
-            Map<Integer, Integer> playCounts = new HashMap<>();
-            Map<Integer, String> nameCache = new HashMap<>();
-            Map<Integer, String> secondaryNameCache = new HashMap<>();
-            Map<Integer, Integer> genderIdCache = new HashMap<>();
-            Map<Integer, String> genderNameCache = new HashMap<>();
-            Map<Integer, int[]> positionDays = new HashMap<>();
-            Map<Integer, int[]> positionEntryPlays = new HashMap<>();
-            Map<Integer, Integer> snapshotStartPlayCounts = new HashMap<>();
-
-            List<Integer> currentTop3 = Collections.emptyList();
-
-            Map<Integer, String> currentSnapshotMovement = Collections.emptyMap();
-            Set<Integer> everCompletedTop3 = new HashSet<>();
-            String snapshotStartDate = null;
-
-            while (rs.next()) {
-                String playDateStr = rs.getString("play_date");
-                Integer itemIdValue = getNullableInt(rs, "item_id");
-                if (itemIdValue == null || playDateStr == null) {
-                    continue;
+    private void refresh(Timeline timeline) {
+        if (isCurrent(timeline)) {
+            return;
+        }
+        writeQueue.runInChunks(() -> {
+            if (isCurrent(timeline)) {
+                return false;
+            }
+            Map<String, Object> state = jdbcTemplate.queryForMap(
+                    "SELECT head_play_date, head_play_id, snapshot_count, state, replay_from FROM top_played_timeline_state WHERE timeline = ?",
+                    timeline.key);
+            String replayFrom = (String) state.get("replay_from");
+            byte[] encoded = (byte[]) state.get("state");
+
+            Replay replay;
+            String afterDate;
+            long afterId;
+            if (encoded != null && replayFrom == null) {
+                replay = Replay.decode(encoded);
+                Object headPlayId = state.get("head_play_id");
+                afterDate = headPlayId != null ? (String) state.get("head_play_date") : "";
+                afterId = headPlayId != null ? ((Number) headPlayId).longValue() : 0;
+                replay.snapshotCount = ((Number) state.get("snapshot_count")).intValue();
+            } else {
+                List<Map<String, Object>> checkpoints = encoded == null ? List.of() : jdbcTemplate.queryForList("""
+                        SELECT play_date, play_id, snapshot_count, state
+                        FROM top_played_timeline_checkpoint
+                        WHERE timeline = ? AND play_date < ?
+                        ORDER BY play_date DESC, play_id DESC
+                        LIMIT 1
+                        """, timeline.key, replayFrom);
+                if (checkpoints.isEmpty()) {
+                    replay = new Replay();
+                    afterDate = "";
+                    afterId = 0;
+                } else {
+                    Map<String, Object> checkpoint = checkpoints.get(0);
+                    replay = Replay.decode((byte[]) checkpoint.get("state"));
+                    afterDate = (String) checkpoint.get("play_date");
+                    afterId = ((Number) checkpoint.get("play_id")).longValue();
+                    replay.snapshotCount = ((Number) checkpoint.get("snapshot_count")).intValue();
                 }
+                jdbcTemplate.update("DELETE FROM top_played_timeline_checkpoint WHERE timeline = ? AND (play_date, play_id) > (?, ?)",
+                        timeline.key, afterDate, afterId);
+                jdbcTemplate.update("DELETE FROM top_played_snapshot WHERE timeline = ? AND seq > ?",
+                        timeline.key, replay.snapshotCount);
+            }
 
-                int itemId = itemIdValue;
-                String playDate = extractDate(playDateStr);
-
-                int previousCount = playCounts.getOrDefault(itemId, 0);
-                int newCount = previousCount + 1;
-                playCounts.put(itemId, newCount);
-
-                if (!nameCache.containsKey(itemId)) {
-                    String itemName = rs.getString("item_name");
-                    String secondaryName = rs.getString("secondary_name");
-                    Integer genderId = getNullableInt(rs, "gender_id");
-                    String genderName = rs.getString("gender_name");
-
-                    nameCache.put(itemId, itemName != null ? itemName : "Unknown");
-                    secondaryNameCache.put(itemId, secondaryName);
-                    genderIdCache.put(itemId, genderId);
-                    genderNameCache.put(itemId, genderName);
-                    positionDays.put(itemId, new int[]{0, 0, 0});
-                    positionEntryPlays.put(itemId, new int[]{0, 0, 0});
-                }
+            if (!afterDate.isEmpty()) {
+                replay.lastPlayDate = afterDate;
+                replay.lastPlayId = afterId;
+            }
+            List<Snapshot> closed = new ArrayList<>();
+            int firstSeq = replay.snapshotCount + 1;
+            replayPlays(timeline, replay, afterDate, afterId, PLAYS_PER_CHUNK, closed, (playDate, playId, checkpoint) ->
+                    jdbcTemplate.update("""
+                            INSERT OR REPLACE INTO top_played_timeline_checkpoint (timeline, play_date, play_id, snapshot_count, state)
+                            VALUES (?, ?, ?, ?, ?)
+                            """, timeline.key, playDate, playId, checkpoint.snapshotCount, checkpoint.encode()));
+            insertSnapshots(timeline, firstSeq, closed);
+
+            jdbcTemplate.update("""
+                    UPDATE top_played_timeline_state
+                    SET head_play_date = ?, head_play_id = ?, snapshot_count = ?, state = ?, replay_from = NULL
+                    WHERE timeline = ?
+                    """, replay.lastPlayDate, replay.lastPlayDate != null ? replay.lastPlayId : null,
+                    replay.snapshotCount, replay.encode(), timeline.key);
+            return !isCurrent(timeline);
+        });
+    }
 
-                boolean inTop3 = currentTop3.contains(itemId);
-                if (!inTop3) {
-                    int threshold = currentTop3.size() == 3 ? playCounts.get(currentTop3.get(2)) : 0;
-                    if (newCount < threshold) {
-                        continue;
-                    }
-                }
+    /**
+     * True when the stored state covers every play: it exists, nothing earlier was edited, and
+     * no play sorts after it.
+     */
+    private boolean isCurrent(Timeline timeline) {
+        Boolean current = jdbcTemplate.queryForObject("""
+                SELECT st.state IS NOT NULL AND st.replay_from IS NULL
+                       AND NOT EXISTS (
+                           SELECT 1 FROM Play p
+                           WHERE p.play_date IS NOT NULL AND p.song_id IS NOT NULL
+                             AND (p.play_date, p.id) > (COALESCE(st.head_play_date, ''), COALESCE(st.head_play_id, 0))
+                       )
+                FROM top_played_timeline_state st
+                WHERE st.timeline = ?
+                """, Boolean.class, timeline.key);
+        return Boolean.TRUE.equals(current);
+    }
 
-                List<Integer> newTop3 = computeTop3(playCounts, currentTop3);
-
-                if (!top3Equal(currentTop3, newTop3)) {
-                    if (snapshotStartDate != null && !currentTop3.isEmpty()) {
-                        Map<Integer, Integer> playCountsBeforeChange = new HashMap<>(playCounts);
-                        if (previousCount == 0) {
-                            playCountsBeforeChange.remove(itemId);
-                        } else {
-                            playCountsBeforeChange.put(itemId, previousCount);
-                        }
-
-                        int days = daysBetween(snapshotStartDate, playDate);
-                        for (int i = 0; i < currentTop3.size(); i++) {
-                            positionDays.get(currentTop3.get(i))[i] += days;
-                        }
-                        snapshots.add(buildSnapshotDTO(
-                                snapshots.size() + 1,
-                                formatDate(snapshotStartDate), formatDate(playDate), days,
-                                currentTop3, currentSnapshotMovement,
-                                playCountsBeforeChange, snapshotStartPlayCounts, positionDays, positionEntryPlays,
-                                nameCache, secondaryNameCache, genderIdCache, genderNameCache,
-                                false
-                        ));
-                        everCompletedTop3.addAll(currentTop3);
-                    }
+    @FunctionalInterface
+    private interface CheckpointWriter {
+        void write(String playDate, long playId, Replay replay);
+    }
 
-                    Map<Integer, String> newMovement = new HashMap<>();
-                    for (int i = 0; i < newTop3.size(); i++) {
-                        int id = newTop3.get(i);
-                        int oldPos = currentTop3.indexOf(id);
-                        if (oldPos == -1) {
-                            newMovement.put(id, everCompletedTop3.contains(id) ? "CLIMBED" : "NEW");
-                        } else if (oldPos > i) {
-                            newMovement.put(id, "CLIMBED");
-                        } else if (oldPos < i) {
-                            newMovement.put(id, "DROPPED");
-                        }
-                    }
+    /**
+     * Feeds up to limit (-1: all) plays after (afterDate, afterId) into replay, collecting the
+     * snapshots they close. checkpoints, if given, receives the replay state after the last
+     * play of each year.
+     */
+    private void replayPlays(Timeline timeline, Replay replay, String afterDate, long afterId, int limit,
+                             List<Snapshot> closed, CheckpointWriter checkpoints) {
+        jdbcTemplate.query(timeline.playsSql(), rs -> {
+            long playId = rs.getLong("id");
+            String playDate = rs.getString("play_date");
+            int itemId = rs.getInt("item_id");
+            boolean noItem = rs.wasNull();
+
+            if (checkpoints != null && replay.lastPlayDate != null
+                    && !playDate.regionMatches(0, replay.lastPlayDate, 0, 4)) {
+                checkpoints.write(replay.lastPlayDate, replay.lastPlayId, replay);
+            }
+            replay.lastPlayDate = playDate;
+            replay.lastPlayId = playId;
+            if (!noItem) {
+                replay.play(itemId, extractDate(playDate), closed);
+            }
+        }, afterDate, afterId, limit);
+    }
 
-                    for (int i = 0; i < newTop3.size(); i++) {
-                        int id = newTop3.get(i);
-                        int oldPos = currentTop3.indexOf(id);
-                        if (oldPos != i) {
-                            positionEntryPlays.get(id)[i] = playCounts.get(id);
-                        }
-                    }
+    private void insertSnapshots(Timeline timeline, int firstSeq, List<Snapshot> snapshots) {
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < snapshots.size(); i++) {
+            Snapshot snapshot = snapshots.get(i);
+            for (int position = 0; position < snapshot.items().size(); position++) {
+                SnapshotItem item = snapshot.items().get(position);
+                rows.add(new Object[]{
+                        timeline.key, firstSeq + i, position + 1,
+                        snapshot.startDate(), snapshot.endDate(), snapshot.days(),
+                        item.itemId(), item.playsCount(), item.playsWhenEntered(), item.playsAtSnapshotStart(),
+                        item.daysAtPos1(), item.daysAtPos2(), item.daysAtPos3()
+                });
+            }
+        }
+        jdbcTemplate.batchUpdate("""
+                INSERT INTO top_played_snapshot (timeline, seq, position, start_date, end_date, days, item_id,
+                    plays_count, plays_when_entered, plays_at_snapshot_start, days_at_pos1, days_at_pos2, days_at_pos3)
+                VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+                """, rows);
+    }
 
-                    snapshotStartDate = playDate;
-                    currentTop3 = newTop3;
-                    currentSnapshotMovement = newMovement;
+    private List<Snapshot> loadSnapshots(Timeline timeline) {
+        List<Snapshot> snapshots = new ArrayList<>();
+        jdbcTemplate.query("""
+                SELECT seq, start_date, end_date, days, item_id, plays_count, plays_when_entered,
+                       plays_at_snapshot_start, days_at_pos1, days_at_pos2, days_at_pos3
+                FROM top_played_snapshot
+                WHERE timeline = ?
+                ORDER BY seq, position
+                """, rs -> {
+            int seq = rs.getInt("seq");
+            if (snapshots.size() < seq) {
+                snapshots.add(new Snapshot(rs.getString("start_date"), rs.getString("end_date"), rs.getInt("days"),
+                        new ArrayList<>(3)));
+            }
+            snapshots.get(snapshots.size() - 1).items().add(new SnapshotItem(
+                    rs.getInt("item_id"), rs.getInt("plays_count"), rs.getInt("plays_when_entered"),
+                    rs.getInt("plays_at_snapshot_start"),
+                    rs.getInt("days_at_pos1"), rs.getInt("days_at_pos2"), rs.getInt("days_at_pos3")));
+        }, timeline.key);
+        return snapshots;
+    }
 
-                    snapshotStartPlayCounts = new HashMap<>();
-                    for (int ssId : currentTop3) {
-                        snapshotStartPlayCounts.put(ssId, playCounts.getOrDefault(ssId, 0));
-                    }
-                }
+    /**
+     * Turns closed snapshots plus the still-open one in head into display DTOs.
+     */
+    private List<TopPlayedSnapshotDTO> buildTimeline(Timeline timeline, List<Snapshot> closed, Replay head) {
+        List<Snapshot> snapshots = new ArrayList<>(closed);
+        Snapshot open = head != null ? head.openSnapshot(LocalDate.now().format(DB_DATE_FMT)) : null;
+        if (open != null) {
+            snapshots.add(open);
+        }
+
+        Set<Integer> itemIds = new HashSet<>();
+        for (Snapshot snapshot : snapshots) {
+            for (SnapshotItem item : snapshot.items()) {
+                itemIds.add(item.itemId());
             }
+        }
+        Map<Integer, TopPlayedSnapshotItemDTO> details = loadItemDetails(timeline, itemIds);
 
-            if (snapshotStartDate != null && !currentTop3.isEmpty()) {
-                String today = LocalDate.now().format(DB_DATE_FMT);
-                int days = daysBetween(snapshotStartDate, today);
-                for (int i = 0; i < currentTop3.size(); i++) {
-                    positionDays.get(currentTop3.get(i))[i] += days;
-                }
-                snapshots.add(buildSnapshotDTO(
-                        snapshots.size() + 1,
-                        formatDate(snapshotStartDate), "Present", days,
-                        currentTop3, currentSnapshotMovement,
-                        playCounts, snapshotStartPlayCounts, positionDays, positionEntryPlays,
-                        nameCache, secondaryNameCache, genderIdCache, genderNameCache,
-                        true
-                ));
+        List<TopPlayedSnapshotDTO> result = new ArrayList<>();
+        for (int i = 0; i < snapshots.size(); i++) {
+            Snapshot snapshot = snapshots.get(i);
+            boolean current = snapshot == open;
+
+            List<TopPlayedSnapshotItemDTO> items = new ArrayList<>();
+            for (int position = 0; position < snapshot.items().size(); position++) {
+                SnapshotItem stored = snapshot.items().get(position);
+                TopPlayedSnapshotItemDTO detail = details.get(stored.itemId());
+
+                TopPlayedSnapshotItemDTO item = new TopPlayedSnapshotItemDTO();
+                item.setItemId(stored.itemId());
+                item.setItemName(detail != null && detail.getItemName() != null ? detail.getItemName() : "Unknown");
+                item.setSecondaryName(detail != null ? detail.getSecondaryName() : null);
+                item.setGenderId(detail != null ? detail.getGenderId() : null);
+                item.setGenderName(detail != null ? detail.getGenderName() : null);
+                item.setPosition(position + 1);
+                item.setPlaysCount(stored.playsCount());
+                item.setPlaysWhenEntered(stored.playsWhenEntered());
+                item.setPlaysAtSnapshotStart(stored.playsAtSnapshotStart());
+                item.setDaysAtPos1(stored.daysAtPos1());
+                item.setDaysAtPos2(stored.daysAtPos2());
+                item.setDaysAtPos3(stored.daysAtPos3());
+                items.add(item);
             }
 
-            return filterByCutoff(snapshots);
-        });
+            TopPlayedSnapshotDTO dto = new TopPlayedSnapshotDTO();
+            dto.setRank(i + 1);
+            dto.setStartDate(formatDate(snapshot.startDate()));
+            dto.setEndDate(current ? "Present" : formatDate(snapshot.endDate()));
+            dto.setDaysInConfig(snapshot.days());
+            dto.setItems(items);
+            dto.setCurrent(current);
+            result.add(dto);
+        }
+
+        return filterByCutoff(result);
     }
 
-    private TopPlayedSnapshotDTO buildSnapshotDTO(
-            int rank, String startDate, String endDate, int configDays,
-            List<Integer> top3Ids, Map<Integer, String> movementMap,
-            Map<Integer, Integer> playCounts, Map<Integer, Integer> snapshotStartPlayCounts,
-            Map<Integer, int[]> positionDays, Map<Integer, int[]> positionEntryPlays,
-            Map<Integer, String> nameCache, Map<Integer, String> secondaryNameCache,
-            Map<Integer, Integer> genderIdCache, Map<Integer, String> genderNameCache,
-            boolean current) {
-
-        List<TopPlayedSnapshotItemDTO> items = new ArrayList<>();
-        for (int i = 0; i < top3Ids.size(); i++) {
-            int id = top3Ids.get(i);
-            int[] pd = positionDays.get(id);
-            int[] pe = positionEntryPlays.get(id);
-
-            TopPlayedSnapshotItemDTO item = new TopPlayedSnapshotItemDTO();
-            item.setItemId(id);
-            item.setItemName(nameCache.get(id));
-            item.setSecondaryName(secondaryNameCache.get(id));
-            item.setGenderId(genderIdCache.get(id));
-            item.setGenderName(genderNameCache.get(id));
-            item.setPosition(i + 1);
-            item.setPlaysCount(playCounts.get(id));
-            item.setPlaysWhenEntered(pe[i]);
-            item.setPlaysAtSnapshotStart(snapshotStartPlayCounts.getOrDefault(id, 0));
-            item.setDaysAtPos1(pd[0]);
-            item.setDaysAtPos2(pd[1]);
-            item.setDaysAtPos3(pd[2]);
-            item.setMovement(movementMap.getOrDefault(id, null));
-            items.add(item);
+    private Map<Integer, TopPlayedSnapshotItemDTO> loadItemDetails(Timeline timeline, Set<Integer> itemIds) {
+        Map<Integer, TopPlayedSnapshotItemDTO> details = new HashMap<>();
+        if (itemIds.isEmpty()) {
+            return details;
         }
-
-        TopPlayedSnapshotDTO snapshot = new TopPlayedSnapshotDTO();
-        snapshot.setRank(rank);
-        snapshot.setStartDate(startDate);
-        snapshot.setEndDate(endDate);
-        snapshot.setDaysInConfig(configDays);
-        snapshot.setItems(items);
-        snapshot.setCurrent(current);
-        return snapshot;
+        String placeholders = String.join(",", Collections.nCopies(itemIds.size(), "?"));
+        jdbcTemplate.query(timeline.itemDetailsSql.formatted(placeholders), rs -> {
+            TopPlayedSnapshotItemDTO detail = new TopPlayedSnapshotItemDTO();
+            detail.setItemName(rs.getString("item_name"));
+            detail.setSecondaryName(rs.getString("secondary_name"));
+            detail.setGenderId(getNullableInt(rs, "gender_id"));
+            detail.setGenderName(rs.getString("gender_name"));
+            details.put(rs.getInt("item_id"), detail);
+        }, itemIds.toArray());
+        return details;
     }
 
     /**
-     * Compute the top-3 item IDs sorted by play count descending.
-     * Uses item ID as secondary sort key for stability (consistent tiebreaking).
+     * Marks the stored timelines for replay from dateExpression when it is at or before the
+     * last replayed play; later dates are picked up by the normal append path.
      */
-    private List<Integer> computeTop3(Map<Integer, Integer> playCounts, List<Integer> previousTop3) {
-        Map<Integer, Integer> previousPosition = new HashMap<>();
-        for (int i = 0; i < previousTop3.size(); i++) {
-            previousPosition.put(previousTop3.get(i), i);
-        }
+    private static String markReplayFrom(String dateExpression, String timelines) {
+        return """
+                UPDATE top_played_timeline_state
+                SET replay_from = MIN(COALESCE(replay_from, %1$s), %1$s)
+                WHERE %1$s <= head_play_date AND timeline IN (%2$s);
+                """.formatted(dateExpression, timelines);
+    }
 
-        return playCounts.entrySet().stream()
-                .sorted(Map.Entry.<Integer, Integer>comparingByValue(Comparator.reverseOrder())
-                        .thenComparing(entry -> previousPosition.getOrDefault(entry.getKey(), Integer.MAX_VALUE))
-                        .thenComparing(Map.Entry.comparingByKey()))
-                .limit(3)
-                .map(Map.Entry::getKey)
-                .collect(Collectors.toList());
+    private void createTriggers() {
+        String all = "'artists', 'songs', 'genres'";
+        String firstPlayOfSong = "(SELECT MIN(play_date) FROM Play WHERE song_id = OLD.id)";
+
+        jdbcTemplate.execute("DROP TRIGGER IF EXISTS play_top_played_insert");
+        jdbcTemplate.execute("DROP TRIGGER IF EXISTS play_top_played_delete");
+        jdbcTemplate.execute("DROP TRIGGER IF EXISTS play_top_played_update");
+        jdbcTemplate.execute("DROP TRIGGER IF EXISTS song_top_played_update");
+        jdbcTemplate.execute("DROP TRIGGER IF EXISTS song_top_played_delete");
+        jdbcTemplate.execute("DROP TRIGGER IF EXISTS album_top_played_update");
+        jdbcTemplate.execute("DROP TRIGGER IF EXISTS artist_top_played_update");
+
+        jdbcTemplate.execute("""
+                CREATE TRIGGER play_top_played_insert
+                AFTER INSERT ON Play
+                WHEN NEW.song_id IS NOT NULL AND NEW.play_date IS NOT NULL
+                BEGIN
+                %s
+                END
+                """.formatted(markReplayFrom("NEW.play_date", all)));
+        jdbcTemplate.execute("""
+                CREATE TRIGGER play_top_played_delete
+                AFTER DELETE ON Play
+                WHEN OLD.song_id IS NOT NULL AND OLD.play_date IS NOT NULL
+                BEGIN
+                %s
+                END
+                """.formatted(markReplayFrom("OLD.play_date", all)));
+        jdbcTemplate.execute("""
+                CREATE TRIGGER play_top_played_update
+                AFTER UPDATE OF song_id, play_date ON Play
+                WHEN OLD.song_id IS NOT NEW.song_id OR OLD.play_date IS NOT NEW.play_date
+                BEGIN
+                %s
+                %s
+                END
+                """.formatted(markReplayFrom("OLD.play_date", all), markReplayFrom("NEW.play_date", all)));
+        // The song timeline only depends on song ids, which these edits leave alone
+        jdbcTemplate.execute("""
+                CREATE TRIGGER song_top_played_update
+                AFTER UPDATE OF artist_id, album_id, override_genre_id ON Song
+                BEGIN
+                %s
+                END
+                """.formatted(markReplayFrom(firstPlayOfSong, "'artists', 'genres'")));
+        jdbcTemplate.execute("""
+                CREATE TRIGGER song_top_played_delete
+                AFTER DELETE ON Song
+                BEGIN
+                %s
+                END
+                """.formatted(markReplayFrom(firstPlayOfSong, all)));
+        jdbcTemplate.execute("""
+                CREATE TRIGGER album_top_played_update
+                AFTER UPDATE OF override_genre_id ON Album
+                BEGIN
+                %s
+                END
+                """.formatted(markReplayFrom(
+                        "(SELECT MIN(p.play_date) FROM Play p JOIN Song s ON p.song_id = s.id WHERE s.album_id = OLD.id)",
+                        "'genres'")));
+        jdbcTemplate.execute("""
+                CREATE TRIGGER artist_top_played_update
+                AFTER UPDATE OF genre_id ON Artist
+                BEGIN
+                %s
+                END
+                """.formatted(markReplayFrom(
+                        "(SELECT MIN(p.play_date) FROM Play p JOIN Song s ON p.song_id = s.id WHERE s.artist_id = OLD.id)",
+                        "'genres'")));
     }
 
     /**
-     * Check if two top-3 lists are identical (same items in same positions).
+     * Replay state: cumulative play counts in an int array indexed by item id, the current
+     * top-3, and per-position days and entry plays for items that have reached the top-3.
+     *
+     * Counts only grow during a replay, so an item outside the top-3 never outranks the
+     * third place unless it is the one being played; each play therefore only compares the
+     * current top-3 and the played item.
      */
-    private boolean top3Equal(List<Integer> a, List<Integer> b) {
-        if (a.size() != b.size()) return false;
-        for (int i = 0; i < a.size(); i++) {
-            if (!a.get(i).equals(b.get(i))) return false;
+    static final class Replay {
+
+        private int[] counts = new int[1024];
+        // item id -> {days at pos 1..3, plays when entered pos 1..3}
+        private final Map<Integer, int[]> positionStats = new HashMap<>();
+        private final int[] top3 = new int[3];
+        private final int[] top3StartCounts = new int[3];
+        private final int[] candidates = new int[4];
+        private int top3Size;
+        private String snapshotStartDate;
+
+        int snapshotCount;
+        String lastPlayDate;
+        long lastPlayId;
+
+        int count(int itemId) {
+            return itemId >= 0 && itemId < counts.length ? counts[itemId] : 0;
+        }
+
+        void play(int itemId, String playDate, List<Snapshot> closed) {
+            if (itemId >= counts.length) {
+                counts = Arrays.copyOf(counts, Math.max(counts.length * 2, itemId + 1));
+            }
+            int previousCount = counts[itemId];
+            int newCount = previousCount + 1;
+            counts[itemId] = newCount;
+
+            int currentPosition = positionOf(itemId);
+            if (currentPosition < 0 && top3Size == 3 && newCount < counts[top3[2]]) {
+                return;
+            }
+
+            int newSize = rankCandidates(itemId, currentPosition);
+            if (newSize == top3Size && Arrays.equals(top3, 0, top3Size, candidates, 0, newSize)) {
+                return;
+            }
+
+            if (snapshotStartDate != null && top3Size > 0) {
+                int days = daysBetween(snapshotStartDate, playDate);
+                List<SnapshotItem> items = new ArrayList<>(top3Size);
+                for (int i = 0; i < top3Size; i++) {
+                    int id = top3[i];
+                    int[] stats = positionStats.get(id);
+                    stats[i] += days;
+                    items.add(new SnapshotItem(id, id == itemId ? previousCount : counts[id], stats[3 + i],
+                            top3StartCounts[i], stats[0], stats[1], stats[2]));
+                }
+                closed.add(new Snapshot(snapshotStartDate, playDate, days, items));
+                snapshotCount++;
+            }
+
+            for (int i = 0; i < newSize; i++) {
+                int id = candidates[i];
+                if (positionOf(id) != i) {
+                    positionStats.computeIfAbsent(id, key -> new int[6])[3 + i] = counts[id];
+                }
+            }
+            for (int i = 0; i < newSize; i++) {
+                top3[i] = candidates[i];
+                top3StartCounts[i] = counts[candidates[i]];
+            }
+            top3Size = newSize;
+            snapshotStartDate = playDate;
+        }
+
+        /**
+         * Ranks the current top-3 plus the played item into candidates (count descending, then
+         * previous position, then item id) and returns the size of the new top-3.
+         */
+        private int rankCandidates(int itemId, int currentPosition) {
+            int candidateCount = 0;
+            for (int i = 0; i < top3Size; i++) {
+                candidates[candidateCount++] = top3[i];
+            }
+            if (currentPosition < 0) {
+                candidates[candidateCount++] = itemId;
+            }
+            for (int i = 1; i < candidateCount; i++) {
+                int id = candidates[i];
+                int j = i - 1;
+                while (j >= 0 && outranks(id, candidates[j])) {
+                    candidates[j + 1] = candidates[j];
+                    j--;
+                }
+                candidates[j + 1] = id;
+            }
+            return Math.min(3, candidateCount);
+        }
+
+        private boolean outranks(int a, int b) {
+            if (counts[a] != counts[b]) {
+                return counts[a] > counts[b];
+            }
+            int positionA = positionOf(a);
+            int positionB = positionOf(b);
+            if (positionA != positionB) {
+                return positionA >= 0 && (positionB < 0 || positionA < positionB);
+            }
+            return a < b;
+        }
+
+        private int positionOf(int itemId) {
+            for (int i = 0; i < top3Size; i++) {
+                if (top3[i] == itemId) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * The still-open snapshot as it stands on today, or null before the first play.
+         */
+        Snapshot openSnapshot(String today) {
+            if (snapshotStartDate == null || top3Size == 0) {
+                return null;
+            }
+            int days = daysBetween(snapshotStartDate, today);
+            List<SnapshotItem> items = new ArrayList<>(top3Size);
+            for (int i = 0; i < top3Size; i++) {
+                int id = top3[i];
+                int[] stats = positionStats.get(id).clone();
+                stats[i] += days;
+                items.add(new SnapshotItem(id, counts[id], stats[3 + i], top3StartCounts[i], stats[0], stats[1], stats[2]));
+            }
+            return new Snapshot(snapshotStartDate, today, days, items);
+        }
+
+        byte[] encode() {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (DataOutputStream out = new DataOutputStream(bytes)) {
+                out.writeUTF(snapshotStartDate != null ? snapshotStartDate : "");
+                out.writeInt(top3Size);
+                for (int i = 0; i < top3Size; i++) {
+                    out.writeInt(top3[i]);
+                    out.writeInt(top3StartCounts[i]);
+                }
+                int nonZero = 0;
+                for (int count : counts) {
+                    if (count != 0) {
+                        nonZero++;
+                    }
+                }
+                out.writeInt(nonZero);
+                for (int id = 0; id < counts.length; id++) {
+                    if (counts[id] != 0) {
+                        out.writeInt(id);
+                        out.writeInt(counts[id]);
+                    }
+                }
+                out.writeInt(positionStats.size());
+                for (Map.Entry<Integer, int[]> entry : positionStats.entrySet()) {
+                    out.writeInt(entry.getKey());
+                    for (int value : entry.getValue()) {
+                        out.writeInt(value);
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return bytes.toByteArray();
+        }
+
+        static Replay decode(byte[] encoded) {
+            if (encoded == null) {
+                return null;
+            }
+            Replay replay = new Replay();
+            try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(encoded))) {
+                String startDate = in.readUTF();
+                replay.snapshotStartDate = startDate.isEmpty() ? null : startDate;
+                replay.top3Size = in.readInt();
+                for (int i = 0; i < replay.top3Size; i++) {
+                    replay.top3[i] = in.readInt();
+                    replay.top3StartCounts[i] = in.readInt();
+                }
+                int nonZero = in.readInt();
+                for (int i = 0; i < nonZero; i++) {
+                    int id = in.readInt();
+                    int count = in.readInt();
+                    if (id >= replay.counts.length) {
+                        replay.counts = Arrays.copyOf(replay.counts, Math.max(replay.counts.length * 2, id + 1));
+                    }
+                    replay.counts[id] = count;
+                }
+                int tracked = in.readInt();
+                for (int i = 0; i < tracked; i++) {
+                    int id = in.readInt();
+                    int[] stats = new int[6];
+                    for (int j = 0; j < stats.length; j++) {
+                        stats[j] = in.readInt();
+                    }
+                    replay.positionStats.put(id, stats);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return replay;
         }
-        return true;
     }
 
     /**
@@ -383,7 +813,7 @@ public class TopPlayedTimelineService {
         }
     }
 
-    private int daysBetween(String isoStart, String isoEnd) {
+    private static int daysBetween(String isoStart, String isoEnd) {
         try {
             LocalDate s = LocalDate.parse(isoStart, DB_DATE_FMT);
             LocalDate e = LocalDate.parse(isoEnd, DB_DATE_FMT);
@@ -24,10 +24,13 @@ public class TrlService {
 
     private final TrlDebutRepository trlDebutRepository;
     private final JdbcTemplate jdbcTemplate;
+    private final SongCandidateService songCandidateService;
 
-    public TrlService(TrlDebutRepository trlDebutRepository, JdbcTemplate jdbcTemplate) {
+    public TrlService(TrlDebutRepository trlDebutRepository, JdbcTemplate jdbcTemplate,
+                      SongCandidateService songCandidateService) {
         this.trlDebutRepository = trlDebutRepository;
         this.jdbcTemplate = jdbcTemplate;
+        this.songCandidateService = songCandidateService;
     }
 
     public List<TrlDebut> getAllDebuts() {
@@ -324,22 +327,12 @@ public class TrlService {
         }
     }
 
-    /** Search songs by title/artist for the match modal. */
+    /**
+     * Search songs by title/artist for the match modal. Ranked by trigram similarity (tolerates
+     * typos and word order) and topped up with substring matches for short queries.
+     */
     public List<Map<String, Object>> searchSongs(String q) {
-        String like = "%" + q.toLowerCase() + "%";
-        String sql =
-            "SELECT s.id, s.name AS title, a.name AS artist_name " +
-            "FROM Song s " +
-            "JOIN Artist a ON a.id = s.artist_id " +
-            "WHERE LOWER(s.name) LIKE ? OR LOWER(a.name) LIKE ? " +
-            "ORDER BY s.name COLLATE NOCASE ASC";
-        return jdbcTemplate.query(sql, (rs, rowNum) -> {
-            Map<String, Object> row = new LinkedHashMap<>();
-            row.put("id", rs.getInt("id"));
-            row.put("title", rs.getString("title"));
-            row.put("artistName", rs.getString("artist_name"));
-            return row;
-        }, like, like);
+        return songCandidateService.searchForMatch(q, 50);
     }
 
     /** Link a TRL debut entry to a song in the library and normalize names. */
@@ -0,0 +1,294 @@
+package library.service;
+
+import library.dto.ChartGenerationProgressDTO;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Generates many weekly song/album charts at once.
+ *
+ * Instead of running the per-week preview queries once per week, each chunk of weeks is
+ * ranked in a single ordered pass over its Play date range (grouped by week, ranked with
+ * ROW_NUMBER), and the resulting Chart/ChartEntry rows are written with JDBC batch inserts
+ * in one transaction per chunk. Rankings match getWeeklySongChartPreview and
+ * getWeeklyAlbumChartPreview, including linked-song combining.
+ */
+@Service
+public class WeeklyChartBackfillService {
+
+    private static final int WEEKS_PER_CHUNK = 52;
+    private static final DateTimeFormatter TIMESTAMP_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    /**
+     * Week key for a play. Plays are bucketed by the Monday that starts their week, so days in
+     * a year's W00 fall into the previous year's last week exactly like
+     * ChartService.parsePeriodKeyToDateRange expects.
+     */
+    private static final String WEEK_KEY_EXPR = "strftime('%Y-W%W', date(p.play_date, 'weekday 0', '-6 days'))";
+
+    private static final String SONG_RANKING_SQL = """
+            WITH weekly_song AS (
+                SELECT %s as period_key,
+                       p.song_id,
+                       COUNT(*) as play_count,
+                       MAX(p.play_date) as last_play
+                FROM Play p
+                WHERE p.song_id IS NOT NULL
+                  AND p.play_day >= ? AND p.play_day < ?
+                GROUP BY period_key, p.song_id
+            ),
+            ranked AS (
+                SELECT ws.period_key, ws.song_id, ws.play_count,
+                       ROW_NUMBER() OVER (
+                           PARTITION BY ws.period_key
+                           ORDER BY ws.play_count DESC, ws.last_play ASC, ws.song_id ASC
+                       ) as position
+                FROM weekly_song ws
+                INNER JOIN Song s ON ws.song_id = s.id
+                INNER JOIN Artist ar ON s.artist_id = ar.id
+            )
+            SELECT period_key, position, song_id as item_id, play_count
+            FROM ranked
+            WHERE position <= ?
+            ORDER BY period_key, position
+            """.formatted(WEEK_KEY_EXPR);
+
+    private static final String COMBINED_SONG_RANKING_SQL = """
+            WITH weekly_song AS (
+                SELECT %s as period_key,
+                       p.song_id,
+                       COUNT(*) as play_count,
+                       MAX(p.play_date) as last_play
+                FROM Play p
+                WHERE p.song_id IS NOT NULL
+                  AND p.play_day >= ? AND p.play_day < ?
+                GROUP BY period_key, p.song_id
+            ),
+            entity_rows AS (
+                SELECT ws.period_key, ws.song_id, ws.play_count, ws.last_play, s.name as song_name,
+                       COALESCE(slgm.group_id, -s.id) as entity_key
+                FROM weekly_song ws
+                INNER JOIN Song s ON ws.song_id = s.id
+                INNER JOIN Artist ar ON s.artist_id = ar.id
+                LEFT JOIN song_link_group_member slgm ON slgm.song_id = s.id
+            ),
+            entity_stats AS (
+                SELECT period_key, entity_key, SUM(play_count) as play_count, MAX(last_play) as last_play
+                FROM entity_rows
+                GROUP BY period_key, entity_key
+            ),
+            representatives AS (
+                SELECT period_key, entity_key, song_id,
+                       ROW_NUMBER() OVER (
+                           PARTITION BY period_key, entity_key
+                           ORDER BY
+                               CASE WHEN lower(song_name) GLOB '*remix*'
+                                      OR lower(song_name) GLOB '*demo*'
+                                      OR lower(song_name) GLOB '*alternate*'
+                                      OR lower(song_name) GLOB '*version*'
+                                      OR lower(song_name) GLOB '*live*'
+                                      OR lower(song_name) GLOB '*acoustic*'
+                                      OR lower(song_name) GLOB '*remaster*'
+                                      OR lower(song_name) GLOB '*edit*'
+                                    THEN 1 ELSE 0 END,
+                               LENGTH(song_name),
+                               song_id
+                       ) as representative_rank
+                FROM entity_rows
+            ),
+            ranked AS (
+                SELECT es.period_key, r.song_id, es.play_count,
+                       ROW_NUMBER() OVER (
+                           PARTITION BY es.period_key
+                           ORDER BY es.play_count DESC, es.last_play ASC, r.song_id ASC
+                       ) as position
+                FROM entity_stats es
+                INNER JOIN representatives r
+                    ON r.period_key = es.period_key AND r.entity_key = es.entity_key AND r.representative_rank = 1
+            )
+            SELECT period_key, position, song_id as item_id, play_count
+            FROM ranked
+            WHERE position <= ?
+            ORDER BY period_key, position
+            """.formatted(WEEK_KEY_EXPR);
+
+    private static final String ALBUM_RANKING_SQL = """
+            WITH weekly_album AS (
+                SELECT %s as period_key,
+                       s.album_id,
+                       COUNT(*) as play_count,
+                       MAX(p.play_date) as last_play
+                FROM Play p
+                INNER JOIN Song s ON p.song_id = s.id
+                WHERE s.album_id IS NOT NULL
+                  AND p.play_day >= ? AND p.play_day < ?
+                GROUP BY period_key, s.album_id
+            ),
+            ranked AS (
+                SELECT wa.period_key, wa.album_id, wa.play_count,
+                       ROW_NUMBER() OVER (
+                           PARTITION BY wa.period_key
+                           ORDER BY wa.play_count DESC, wa.last_play ASC, wa.album_id ASC
+                       ) as position
+                FROM weekly_album wa
+                INNER JOIN Album al ON wa.album_id = al.id
+                INNER JOIN Artist ar ON al.artist_id = ar.id
+            )
+            SELECT period_key, position, album_id as item_id, play_count
+            FROM ranked
+            WHERE position <= ?
+            ORDER BY period_key, position
+            """.formatted(WEEK_KEY_EXPR);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final AppConfigService appConfigService;
+    private final ChartRunStatsService chartRunStatsService;
+
+    public WeeklyChartBackfillService(JdbcTemplate jdbcTemplate, PlatformTransactionManager txManager,
+                                      AppConfigService appConfigService, ChartRunStatsService chartRunStatsService) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(txManager);
+        this.appConfigService = appConfigService;
+        this.chartRunStatsService = chartRunStatsService;
+    }
+
+    /**
+     * Generates (or replaces) the weekly song and album charts for every given week.
+     * Weeks are processed in ascending order in chunks; each chunk commits on its own so a
+     * failure only loses the chunk in progress.
+     *
+     * @param periodKeys weekly period keys such as "2024-W48"
+     * @param progress   optional progress tracker updated after each chunk
+     * @return number of weeks written
+     */
+    public int backfill(List<String> periodKeys, ChartGenerationProgressDTO progress) {
+        List<String> weeks = new ArrayList<>(new TreeSet<>(periodKeys));
+        boolean combineLinkedSongs = appConfigService.isCombineLinkedSongsEnabled();
+        int completed = 0;
+
+        for (int from = 0; from < weeks.size(); from += WEEKS_PER_CHUNK) {
+            List<String> chunk = weeks.subList(from, Math.min(from + WEEKS_PER_CHUNK, weeks.size()));
+            if (progress != null) {
+                progress.setCurrentWeek(chunk.get(0) + " - " + chunk.get(chunk.size() - 1));
+            }
+            transactionTemplate.executeWithoutResult(status -> writeChunk(chunk, combineLinkedSongs));
+            completed += chunk.size();
+            if (progress != null) {
+                progress.setCompletedWeeks(completed);
+            }
+        }
+
+        if (!weeks.isEmpty()) {
+            // Chart runs of every later week may have changed; recompute them once for the whole backfill
+            String fromStartDate = ChartService.parsePeriodKeyToDateRange(weeks.get(0))[0].toString();
+            transactionTemplate.executeWithoutResult(status -> {
+                chartRunStatsService.refreshFrom("song", fromStartDate);
+                chartRunStatsService.refreshFrom("album", fromStartDate);
+            });
+        }
+        return completed;
+    }
+
+    private void writeChunk(List<String> chunk, boolean combineLinkedSongs) {
+        Map<String, LocalDate[]> ranges = new LinkedHashMap<>();
+        for (String periodKey : chunk) {
+            ranges.put(periodKey, ChartService.parsePeriodKeyToDateRange(periodKey));
+        }
+        int rangeStart = PlayDayIndexService.toDayNumber(ranges.get(chunk.get(0))[0]);
+        int rangeEndExclusive = PlayDayIndexService.toDayNumber(ranges.get(chunk.get(chunk.size() - 1))[1].plusDays(1));
+
+        writeCharts("song", ranges,
+                rankWeeks(combineLinkedSongs ? COMBINED_SONG_RANKING_SQL : SONG_RANKING_SQL,
+                        rangeStart, rangeEndExclusive, ChartService.TOP_SONGS_COUNT));
+        writeCharts("album", ranges,
+                rankWeeks(ALBUM_RANKING_SQL, rangeStart, rangeEndExclusive, ChartService.TOP_ALBUMS_COUNT));
+    }
+
+    /**
+     * Runs a ranking query over [rangeStart, rangeEndExclusive) and returns the ranked rows
+     * per week, each row being {position, item id, play count}.
+     */
+    private Map<String, List<int[]>> rankWeeks(String sql, int rangeStart, int rangeEndExclusive, int limit) {
+        Map<String, List<int[]>> rankedByWeek = new HashMap<>();
+        jdbcTemplate.query(sql, rs -> {
+            rankedByWeek.computeIfAbsent(rs.getString("period_key"), key -> new ArrayList<>())
+                    .add(new int[]{rs.getInt("position"), rs.getInt("item_id"), rs.getInt("play_count")});
+        }, rangeStart, rangeEndExclusive, limit);
+        return rankedByWeek;
+    }
+
+    private void writeCharts(String chartType, Map<String, LocalDate[]> ranges, Map<String, List<int[]>> rankedByWeek) {
+        List<String> periodKeys = new ArrayList<>(ranges.keySet());
+        Map<String, Integer> chartIds = findChartIds(chartType, periodKeys);
+
+        List<Object[]> inserts = new ArrayList<>();
+        List<Object[]> updates = new ArrayList<>();
+        String generatedDate = LocalDateTime.now().format(TIMESTAMP_FORMAT);
+        for (String periodKey : periodKeys) {
+            LocalDate[] range = ranges.get(periodKey);
+            Integer chartId = chartIds.get(periodKey);
+            if (chartId == null) {
+                inserts.add(new Object[]{chartType, periodKey, range[0].toString(), range[1].toString(), generatedDate});
+            } else {
+                updates.add(new Object[]{range[0].toString(), range[1].toString(), chartId});
+            }
+        }
+
+        if (!updates.isEmpty()) {
+            jdbcTemplate.batchUpdate(
+                    "UPDATE Chart SET period_start_date = ?, period_end_date = ?, period_type = 'weekly', is_finalized = 1 WHERE id = ?",
+                    updates);
+            String placeholders = String.join(",", chartIds.values().stream().map(id -> "?").toList());
+            jdbcTemplate.update("DELETE FROM ChartEntry WHERE chart_id IN (" + placeholders + ")", chartIds.values().toArray());
+        }
+        if (!inserts.isEmpty()) {
+            jdbcTemplate.batchUpdate("""
+                    INSERT INTO Chart (chart_type, period_key, period_start_date, period_end_date, generated_date, period_type, is_finalized)
+                    VALUES (?, ?, ?, ?, ?, 'weekly', 1)
+                    """, inserts);
+            chartIds = findChartIds(chartType, periodKeys);
+        }
+
+        String idColumn = "song".equals(chartType) ? "song_id" : "album_id";
+        List<Object[]> entries = new ArrayList<>();
+        for (String periodKey : periodKeys) {
+            Integer chartId = chartIds.get(periodKey);
+            for (int[] row : rankedByWeek.getOrDefault(periodKey, List.of())) {
+                entries.add(new Object[]{chartId, row[0], row[1], row[2]});
+            }
+        }
+        if (!entries.isEmpty()) {
+            jdbcTemplate.batchUpdate(
+                    "INSERT INTO ChartEntry (chart_id, position, " + idColumn + ", play_count) VALUES (?, ?, ?, ?)",
+                    entries);
+        }
+    }
+
+    private Map<String, Integer> findChartIds(String chartType, List<String> periodKeys) {
+        String placeholders = String.join(",", periodKeys.stream().map(key -> "?").toList());
+        List<Object> params = new ArrayList<>();
+        params.add(chartType);
+        params.addAll(periodKeys);
+        Map<String, Integer> chartIds = new HashMap<>();
+        jdbcTemplate.query(
+                "SELECT id, period_key FROM Chart WHERE chart_type = ? AND period_key IN (" + placeholders + ")",
+                rs -> {
+                    chartIds.putIfAbsent(rs.getString("period_key"), rs.getInt("id"));
+                },
+                params.toArray());
+        return chartIds;
+    }
+}
@@ -1,10 +1,11 @@
 package library.service;
 
+import library.util.ItunesLibraryReader;
 import org.springframework.stereotype.Service;
-import org.w3c.dom.*;
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.BufferedInputStream;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
 import java.util.*;
 
 @Service
@@ -14,6 +15,11 @@ public class iTunesLibraryService {
     private static final String DEFAULT_ITUNES_LIBRARY_PATH = 
         System.getProperty("user.home") + "/Music/iTunes/iTunes Music Library.xml";
 
+    // Parsed tracks of the most recently read library file
+    private List<ItunesLibraryReader.Track> cachedTracks;
+    private String cachedTracksPath;
+    private long cachedTracksLastModified;
+
     /**
      * Represents a track in the iTunes library
      */
@@ -52,63 +58,16 @@ public class iTunesLibraryService {
         Map<String, iTunesTrack> library = new HashMap<>();
         
         try {
-            File xmlFile = new File(libraryPath);
-            if (!xmlFile.exists()) {
+            List<ItunesLibraryReader.Track> tracks = getTracks(libraryPath);
+            if (tracks == null) {
                 System.err.println("iTunes library not found at: " + libraryPath);
                 return library;
             }
 
-            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-            // Disable external entities for security
-            factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", false);
-            factory.setFeature("http://xml.org/sax/features/external-general-entities", false);
-            factory.setFeature("http://xml.org/sax/features/external-parameter-entities", false);
-            
-            DocumentBuilder builder = factory.newDocumentBuilder();
-            Document doc = builder.parse(xmlFile);
-            doc.getDocumentElement().normalize();
-
-            // Navigate to the Tracks dict: plist > dict > key("Tracks") > dict
-            Element plist = doc.getDocumentElement();
-            NodeList plistChildren = plist.getChildNodes();
-            
-            Element mainDict = null;
-            for (int i = 0; i < plistChildren.getLength(); i++) {
-                Node node = plistChildren.item(i);
-                if (node.getNodeType() == Node.ELEMENT_NODE && "dict".equals(node.getNodeName())) {
-                    mainDict = (Element) node;
-                    break;
-                }
-            }
-
-            if (mainDict == null) {
-                System.err.println("Could not find main dict in iTunes library");
-                return library;
-            }
-
-            // Find the Tracks dict
-            Element tracksDict = findDictForKey(mainDict, "Tracks");
-            if (tracksDict == null) {
-                System.err.println("Could not find Tracks dict in iTunes library");
-                return library;
-            }
-
-            // Parse each track
-            NodeList trackChildren = tracksDict.getChildNodes();
-            String currentTrackId = null;
-            
-            for (int i = 0; i < trackChildren.getLength(); i++) {
-                Node node = trackChildren.item(i);
-                if (node.getNodeType() != Node.ELEMENT_NODE) continue;
-                
-                if ("key".equals(node.getNodeName())) {
-                    currentTrackId = node.getTextContent();
-                } else if ("dict".equals(node.getNodeName()) && currentTrackId != null) {
-                    iTunesTrack track = parseTrackDict((Element) node);
-                    if (track != null && !track.name.isEmpty()) {
-                        library.put(track.getLookupKey(), track);
-                    }
-                    currentTrackId = null;
+            for (ItunesLibraryReader.Track entry : tracks) {
+                iTunesTrack track = new iTunesTrack(entry.name(), entry.artist(), entry.album());
+                if (!track.name.isEmpty()) {
+                    library.put(track.getLookupKey(), track);
                 }
             }
 
@@ -123,60 +82,31 @@ public class iTunesLibraryService {
     }
 
     /**
-     * Find the dict element that follows a specific key in a parent dict
+     * All tracks of an iTunes library XML file, or null if the file does not exist.
+     * The file is streamed once per modification and the result shared by every caller
+     * (this service and ItunesService), so a library is parsed a single time no matter how
+     * many lookups run against it.
      */
-    private Element findDictForKey(Element parentDict, String keyName) {
-        NodeList children = parentDict.getChildNodes();
-        boolean foundKey = false;
-        
-        for (int i = 0; i < children.getLength(); i++) {
-            Node node = children.item(i);
-            if (node.getNodeType() != Node.ELEMENT_NODE) continue;
-            
-            if (foundKey && "dict".equals(node.getNodeName())) {
-                return (Element) node;
-            }
-            
-            if ("key".equals(node.getNodeName()) && keyName.equals(node.getTextContent())) {
-                foundKey = true;
-            }
+    public synchronized List<ItunesLibraryReader.Track> getTracks(String libraryPath) throws Exception {
+        File xmlFile = new File(libraryPath);
+        if (!xmlFile.exists()) {
+            return null;
         }
-        
-        return null;
-    }
 
-    /**
-     * Parse a track dict element to extract Name, Artist, Album
-     */
-    private iTunesTrack parseTrackDict(Element trackDict) {
-        String name = null;
-        String artist = null;
-        String album = null;
-
-        NodeList children = trackDict.getChildNodes();
-        String currentKey = null;
-
-        for (int i = 0; i < children.getLength(); i++) {
-            Node node = children.item(i);
-            if (node.getNodeType() != Node.ELEMENT_NODE) continue;
-
-            if ("key".equals(node.getNodeName())) {
-                currentKey = node.getTextContent();
-            } else if ("string".equals(node.getNodeName()) && currentKey != null) {
-                String value = node.getTextContent();
-                switch (currentKey) {
-                    case "Name" -> name = value;
-                    case "Artist" -> artist = value;
-                    case "Album" -> album = value;
-                }
-                currentKey = null;
-            } else {
-                // Other value types (integer, date, etc.) - skip
-                currentKey = null;
-            }
+        long lastModified = xmlFile.lastModified();
+        if (cachedTracks != null && libraryPath.equals(cachedTracksPath) && lastModified == cachedTracksLastModified) {
+            return cachedTracks;
+        }
+
+        List<ItunesLibraryReader.Track> tracks = new ArrayList<>();
+        try (InputStream inputStream = new BufferedInputStream(new FileInputStream(xmlFile))) {
+            ItunesLibraryReader.readTracks(inputStream, tracks::add);
         }
 
-        return new iTunesTrack(name, artist, album);
+        cachedTracks = Collections.unmodifiableList(tracks);
+        cachedTracksPath = libraryPath;
+        cachedTracksLastModified = lastModified;
+        return cachedTracks;
     }
 
     /**
@@ -265,96 +195,55 @@ public class iTunesLibraryService {
      */
     public iTunesTrackData findTrackData(String libraryPath, String songName, String artistName, String albumName) {
         try {
-            File xmlFile = new File(libraryPath);
-            if (!xmlFile.exists()) {
+            List<ItunesLibraryReader.Track> tracks = getTracks(libraryPath);
+            if (tracks == null) {
                 System.err.println("iTunes library not found at: " + libraryPath);
                 return null;
             }
 
-            // Read XML file as string for regex matching (similar to ReleaseDateMatcher)
-            String xmlContent = java.nio.file.Files.readString(
-                java.nio.file.Path.of(libraryPath), 
-                java.nio.charset.StandardCharsets.UTF_8
+            // Build lookup keys (normalized: lowercase, trimmed)
+            String searchKey = buildLookupKey(
+                artistName != null ? artistName : "",
+                albumName != null ? albumName : "",
+                songName != null ? songName : ""
             );
-
-            // Pattern to match each track dict
-            java.util.regex.Pattern trackPattern = java.util.regex.Pattern.compile(
-                "<key>(\\d+)</key>\\s*<dict>(.*?)</dict>", 
-                java.util.regex.Pattern.DOTALL
+            // Also try without album for matching
+            String searchKeyNoAlbum = buildLookupKey(
+                artistName != null ? artistName : "",
+                "",
+                songName != null ? songName : ""
             );
-            java.util.regex.Matcher trackMatcher = trackPattern.matcher(xmlContent);
-
-            while (trackMatcher.find()) {
-                String trackDict = trackMatcher.group(2);
 
-                String name = extractStringValue(trackDict, "Name");
-                String artist = extractStringValue(trackDict, "Artist");
-                String album = extractStringValue(trackDict, "Album");
+            for (ItunesLibraryReader.Track track : tracks) {
+                String name = track.name();
+                String artist = track.artist();
 
                 if (name == null || artist == null) {
                     continue;
                 }
 
-                // Build lookup keys (normalized: lowercase, trimmed)
-                String trackKey = buildLookupKey(artist, album, name);
-                String searchKey = buildLookupKey(
-                    artistName != null ? artistName : "",
-                    albumName != null ? albumName : "",
-                    songName != null ? songName : ""
-                );
-
-                // Also try without album for matching
-                String trackKeyNoAlbum = buildLookupKey(artist, "", name);
-                String searchKeyNoAlbum = buildLookupKey(
-                    artistName != null ? artistName : "",
-                    "",
-                    songName != null ? songName : ""
-                );
-
                 // Determine match type
                 String matchType = null;
-                if (trackKey.equals(searchKey)) {
+                if (buildLookupKey(artist, track.album(), name).equals(searchKey)) {
                     matchType = "exact";
-                } else if (trackKeyNoAlbum.equals(searchKeyNoAlbum)) {
+                } else if (buildLookupKey(artist, "", name).equals(searchKeyNoAlbum)) {
                     matchType = "partial";
                 }
 
                 if (matchType != null) {
-                    // Found a match! Extract release date, length, and track number
-                    String releaseDateRaw = extractDateValue(trackDict, "Release Date");
-                    String yearRaw = extractIntegerValue(trackDict, "Year");
-                    String totalTimeMs = extractIntegerValue(trackDict, "Total Time");
-                    String trackNumberRaw = extractIntegerValue(trackDict, "Track Number");
-
                     // Determine release date
                     String releaseDate = null;
+                    String releaseDateRaw = track.releaseDate();
                     if (releaseDateRaw != null && releaseDateRaw.length() >= 10) {
                         releaseDate = releaseDateRaw.substring(0, 10); // Format: 2016-03-18T12:00:00Z -> 2016-03-18
-                    } else if (yearRaw != null) {
-                        releaseDate = yearRaw + "-01-01";
+                    } else if (track.year() != null) {
+                        releaseDate = track.year() + "-01-01";
                     }
 
                     // Convert total time from milliseconds to seconds
-                    Integer lengthSeconds = null;
-                    if (totalTimeMs != null) {
-                        try {
-                            lengthSeconds = Integer.parseInt(totalTimeMs) / 1000;
-                        } catch (NumberFormatException e) {
-                            System.err.println("Failed to parse Total Time: " + totalTimeMs);
-                        }
-                    }
-
-                    // Parse track number
-                    Integer trackNumber = null;
-                    if (trackNumberRaw != null) {
-                        try {
-                            trackNumber = Integer.parseInt(trackNumberRaw);
-                        } catch (NumberFormatException e) {
-                            System.err.println("Failed to parse Track Number: " + trackNumberRaw);
-                        }
-                    }
+                    Integer lengthSeconds = track.totalTime() != null ? track.totalTime() / 1000 : null;
 
-                    return new iTunesTrackData(name, releaseDate, lengthSeconds, trackNumber, matchType);
+                    return new iTunesTrackData(name, releaseDate, lengthSeconds, track.trackNumber(), matchType);
                 }
             }
 
@@ -366,62 +255,6 @@ public class iTunesLibraryService {
         return null; // Not found
     }
 
-    /**
-     * Extract a string value from iTunes dict XML
-     */
-    private String extractStringValue(String dict, String key) {
-        java.util.regex.Pattern p = java.util.regex.Pattern.compile(
-            "<key>" + java.util.regex.Pattern.quote(key) + "</key>\\s*<string>(.*?)</string>", 
-            java.util.regex.Pattern.DOTALL
-        );
-        java.util.regex.Matcher m = p.matcher(dict);
-        if (m.find()) {
-            return decodeXmlEntities(m.group(1));
-        }
-        return null;
-    }
-
-    /**
-     * Extract a date value from iTunes dict XML
-     */
-    private String extractDateValue(String dict, String key) {
-        java.util.regex.Pattern p = java.util.regex.Pattern.compile(
-            "<key>" + java.util.regex.Pattern.quote(key) + "</key>\\s*<date>(.*?)</date>"
-        );
-        java.util.regex.Matcher m = p.matcher(dict);
-        if (m.find()) {
-            return m.group(1);
-        }
-        return null;
-    }
-
-    /**
-     * Extract an integer value from iTunes dict XML
-     */
-    private String extractIntegerValue(String dict, String key) {
-        java.util.regex.Pattern p = java.util.regex.Pattern.compile(
-            "<key>" + java.util.regex.Pattern.quote(key) + "</key>\\s*<integer>(.*?)</integer>"
-        );
-        java.util.regex.Matcher m = p.matcher(dict);
-        if (m.find()) {
-            return m.group(1);
-        }
-        return null;
-    }
-
-    /**
-     * Decode XML entities
-     */
-    private String decodeXmlEntities(String s) {
-        if (s == null) return null;
-        return s.replace("&amp;", "&")
-                .replace("&lt;", "<")
-                .replace("&gt;", ">")
-                .replace("&quot;", "\"")
-                .replace("&apos;", "'")
-                .replace("&#38;", "&");
-    }
-
     /**
      * Build a normalized lookup key
      */
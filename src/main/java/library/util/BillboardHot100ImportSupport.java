@@ -459,23 +459,15 @@ public final class BillboardHot100ImportSupport {
     }
 
     private static int runContributorAwareFuzzyAutoLink(Connection connection) throws SQLException {
-        List<LibrarySongCandidate> librarySongs = loadLibrarySongs(connection);
-        Map<String, Integer> uniqueLookup = new HashMap<>();
-        Set<String> ambiguousKeys = new HashSet<>();
-
-        for (LibrarySongCandidate librarySong : librarySongs) {
-            registerUniqueCandidate(
-                contributorAwareKey(librarySong.artistName(), librarySong.songTitle()),
-                librarySong.songId(),
-                uniqueLookup,
-                ambiguousKeys
-            );
-        }
+        // Contributor keys are persisted per song and only recomputed for songs changed since the last sync
+        SongMatchKeyStore.ensureSchema(connection);
+        SongMatchKeyStore.sync(connection);
+        Map<String, Integer> uniqueLookup = SongMatchKeyStore.loadUniqueContributorKeys(connection);
 
         int updatedRows = 0;
         for (DistinctEntryGroup group : loadDistinctUnmatchedGroups(connection)) {
             String fuzzyKey = contributorAwareKey(group.artistName(), group.songTitle());
-            if (fuzzyKey == null || ambiguousKeys.contains(fuzzyKey)) {
+            if (fuzzyKey == null) {
                 continue;
             }
 
@@ -872,27 +864,7 @@ public final class BillboardHot100ImportSupport {
         return normalizedArtist + "||" + normalizedSong;
     }
 
-    private static void registerUniqueCandidate(String key, Integer songId, Map<String, Integer> uniqueLookup, Set<String> ambiguousKeys) {
-        if (key == null || key.isBlank() || songId == null) {
-            return;
-        }
-        if (ambiguousKeys.contains(key)) {
-            return;
-        }
-
-        Integer existing = uniqueLookup.get(key);
-        if (existing == null) {
-            uniqueLookup.put(key, songId);
-            return;
-        }
-
-        if (!existing.equals(songId)) {
-            uniqueLookup.remove(key);
-            ambiguousKeys.add(key);
-        }
-    }
-
-    private static String contributorAwareKey(String artistName, String songTitle) {
+    static String contributorAwareKey(String artistName, String songTitle) {
         String normalizedSong = StringNormalizer.normalizeForSearch(songTitle);
         if (normalizedSong == null || normalizedSong.isBlank()) {
             return null;
@@ -0,0 +1,179 @@
+package library.util;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.InputStream;
+import java.util.function.Predicate;
+
+/**
+ * Streaming reader for iTunes Library.xml.
+ *
+ * The library is a plist whose top-level dict holds a "Tracks" dict of
+ * {@code <key>track id</key><dict>...</dict>} pairs, followed by the (much larger) playlists.
+ * This reader walks it with StAX, hands each track to the visitor as a compact {@link Track}
+ * as soon as its dict closes, and stops once the Tracks dict ends, so neither the DOM tree
+ * nor the playlists section is ever held in memory.
+ */
+public class ItunesLibraryReader {
+
+    private ItunesLibraryReader() {}
+
+    /**
+     * One track entry. Only the fields the app uses are kept; missing values are null.
+     */
+    public record Track(Integer trackId, String persistentId, String name, String artist, String albumArtist,
+                        String album, String genre, String kind, Integer trackNumber, Integer year,
+                        Integer totalTime, String releaseDate, boolean podcast, boolean playlistOnly) {}
+
+    /**
+     * Reads every track in library order. Reading stops early when the visitor returns false.
+     *
+     * @throws IllegalArgumentException if the document has no plist/dict/Tracks structure
+     */
+    public static void readTracks(InputStream inputStream, Predicate<Track> visitor) throws XMLStreamException {
+        XMLStreamReader reader = createFactory().createXMLStreamReader(inputStream);
+        try {
+            moveToTracksDict(reader);
+            while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+                String element = reader.getLocalName();
+                if ("dict".equals(element)) {
+                    if (!visitor.test(readTrack(reader))) {
+                        return;
+                    }
+                } else if ("key".equals(element)) {
+                    reader.getElementText(); // track id key; the dict repeats it as "Track ID"
+                } else {
+                    skipElement(reader);
+                }
+            }
+        } finally {
+            reader.close();
+        }
+    }
+
+    private static XMLInputFactory createFactory() {
+        XMLInputFactory factory = XMLInputFactory.newFactory();
+        // Never resolve the Apple DTD or external entities
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+        return factory;
+    }
+
+    /**
+     * Positions the reader on the start tag of the Tracks dict.
+     */
+    private static void moveToTracksDict(XMLStreamReader reader) throws XMLStreamException {
+        while (reader.hasNext()) {
+            if (reader.next() == XMLStreamConstants.START_ELEMENT) {
+                break;
+            }
+        }
+        if (!reader.isStartElement() || !"plist".equals(reader.getLocalName())) {
+            throw new IllegalArgumentException("Invalid iTunes Library.xml: no plist element found");
+        }
+        if (reader.nextTag() != XMLStreamConstants.START_ELEMENT || !"dict".equals(reader.getLocalName())) {
+            throw new IllegalArgumentException("Invalid iTunes Library.xml: no main dict found");
+        }
+
+        while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+            String key = "key".equals(reader.getLocalName()) ? reader.getElementText() : null;
+            if (key == null) {
+                skipElement(reader);
+                continue;
+            }
+            if (reader.nextTag() != XMLStreamConstants.START_ELEMENT) {
+                break;
+            }
+            if ("Tracks".equals(key) && "dict".equals(reader.getLocalName())) {
+                return;
+            }
+            skipElement(reader);
+        }
+        throw new IllegalArgumentException("Invalid iTunes Library.xml: no Tracks dict found");
+    }
+
+    /**
+     * Reads one track dict; the reader is on its start tag and is left on its end tag.
+     */
+    private static Track readTrack(XMLStreamReader reader) throws XMLStreamException {
+        Integer trackId = null;
+        String persistentId = null;
+        String name = null;
+        String artist = null;
+        String albumArtist = null;
+        String album = null;
+        String genre = null;
+        String kind = null;
+        Integer trackNumber = null;
+        Integer year = null;
+        Integer totalTime = null;
+        String releaseDate = null;
+        boolean podcast = false;
+        boolean playlistOnly = false;
+
+        while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+            if (!"key".equals(reader.getLocalName())) {
+                skipElement(reader);
+                continue;
+            }
+            String key = reader.getElementText();
+            if (reader.nextTag() != XMLStreamConstants.START_ELEMENT) {
+                break;
+            }
+
+            String type = reader.getLocalName();
+            if ("dict".equals(type) || "array".equals(type)) {
+                skipElement(reader);
+                continue;
+            }
+            String value = reader.getElementText();
+
+            switch (key) {
+                case "Track ID" -> trackId = parseInteger(value);
+                case "Persistent ID" -> persistentId = value;
+                case "Name" -> name = value;
+                case "Artist" -> artist = value;
+                case "Album Artist" -> albumArtist = value;
+                case "Album" -> album = value;
+                case "Genre" -> genre = value;
+                case "Kind" -> kind = value;
+                case "Track Number" -> trackNumber = parseInteger(value);
+                case "Year" -> year = parseInteger(value);
+                case "Total Time" -> totalTime = parseInteger(value);
+                case "Release Date" -> releaseDate = value;
+                case "Podcast" -> podcast = "true".equals(type) || "true".equalsIgnoreCase(value);
+                case "Playlist Only" -> playlistOnly = "true".equals(type);
+                default -> { }
+            }
+        }
+
+        return new Track(trackId, persistentId, name, artist, albumArtist, album, genre, kind,
+                trackNumber, year, totalTime, releaseDate, podcast, playlistOnly);
+    }
+
+    /**
+     * Skips the current element and all of its children; the reader is left on its end tag.
+     */
+    private static void skipElement(XMLStreamReader reader) throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0 && reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+    }
+
+    private static Integer parseInteger(String value) {
+        try {
+            return value != null ? Integer.parseInt(value.trim()) : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package library.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fixed-bucket latency histogram, cheap enough to update from any thread on every statement.
+ *
+ * Bucket bounds double from 50 µs up to about 200 s. Percentiles report the upper bound of
+ * the bucket they fall in (capped at the slowest value seen), so they are accurate to within
+ * a factor of two, which is enough to tell a 5 ms query from a 500 ms one.
+ */
+public final class LatencyHistogram {
+
+    private static final long FIRST_BOUND_NANOS = 50_000;
+    private static final int BUCKETS = 24;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+    public void record(long nanos) {
+        counts.incrementAndGet(bucket(nanos));
+        count.increment();
+        totalNanos.add(nanos);
+        maxNanos.accumulate(nanos);
+    }
+
+    public long count() {
+        return count.sum();
+    }
+
+    public double totalMillis() {
+        return totalNanos.sum() / 1_000_000.0;
+    }
+
+    public double meanMillis() {
+        long samples = count.sum();
+        return samples == 0 ? 0 : totalNanos.sum() / 1_000_000.0 / samples;
+    }
+
+    public double maxMillis() {
+        return maxNanos.get() / 1_000_000.0;
+    }
+
+    /**
+     * The latency below which quantile (0..1) of the samples fall, in milliseconds.
+     */
+    public double percentileMillis(double quantile) {
+        long[] snapshot = new long[BUCKETS];
+        long samples = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+            samples += snapshot[i];
+        }
+        if (samples == 0) {
+            return 0;
+        }
+
+        long rank = Math.max(1, (long) Math.ceil(quantile * samples));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                long bound = i == BUCKETS - 1 ? Long.MAX_VALUE : FIRST_BOUND_NANOS << i;
+                return Math.min(bound, maxNanos.get()) / 1_000_000.0;
+            }
+        }
+        return maxMillis();
+    }
+
+    private static int bucket(long nanos) {
+        int bucket = 0;
+        long bound = FIRST_BOUND_NANOS;
+        while (nanos > bound && bucket < BUCKETS - 1) {
+            bound <<= 1;
+            bucket++;
+        }
+        return bucket;
+    }
+}
@@ -0,0 +1,373 @@
+package library.util;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Persisted normalized match keys for every song, shared by the play importers, the iTunes
+ * changes page and the Billboard auto-linker.
+ *
+ * song_match_key holds one row per song with its import key (artist||album||song, import
+ * normalization), strict key (iTunes-style punctuation-insensitive) and contributor key
+ * (Billboard contributor-aware artist tokens||song). Triggers on Song, Artist and Album queue
+ * the ids of affected songs in song_match_dirty whenever songs are created, renamed, moved,
+ * merged or deleted, and {@link #sync} recomputes just those rows. Works on a plain Connection
+ * so standalone scripts share the same table as the application.
+ */
+public final class SongMatchKeyStore {
+
+    private static final String SONG_KEY_SOURCE_SQL = """
+            SELECT s.id, ar.id as artist_id, ar.name as artist_name, COALESCE(al.name, '') as album_name, s.name as song_name
+            FROM Song s
+            LEFT JOIN Artist ar ON s.artist_id = ar.id
+            LEFT JOIN Album al ON s.album_id = al.id
+            """;
+
+    private SongMatchKeyStore() {}
+
+    /**
+     * Keys of one song; contributorKey is null when the song has no artist or no usable title.
+     */
+    public record SongKeys(int songId, String importKey, String strictKey, String contributorKey) {}
+
+    /**
+     * Result of one sync. With fullRebuild every key was recomputed and callers holding an
+     * in-memory copy should reload it; otherwise removed/added list the rows that changed.
+     * generationBefore is the table generation the caller's copy must be at for the
+     * incremental lists to apply.
+     */
+    public record SyncResult(long generationBefore, long generationAfter, boolean fullRebuild,
+                             List<SongKeys> removed, List<SongKeys> added) {
+
+        public boolean changed() {
+            return generationAfter != generationBefore;
+        }
+    }
+
+    public static void ensureSchema(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("""
+                    CREATE TABLE IF NOT EXISTS song_match_key (
+                        song_id INTEGER PRIMARY KEY,
+                        import_key TEXT NOT NULL,
+                        strict_key TEXT NOT NULL,
+                        contributor_key TEXT
+                    )
+                    """);
+            statement.execute("CREATE INDEX IF NOT EXISTS idx_song_match_key_import ON song_match_key(import_key, song_id)");
+            statement.execute("CREATE INDEX IF NOT EXISTS idx_song_match_key_strict ON song_match_key(strict_key, song_id)");
+            statement.execute("CREATE INDEX IF NOT EXISTS idx_song_match_key_contributor ON song_match_key(contributor_key, song_id)");
+            statement.execute("CREATE TABLE IF NOT EXISTS song_match_dirty (song_id INTEGER PRIMARY KEY)");
+            statement.execute("""
+                    CREATE TABLE IF NOT EXISTS song_match_state (
+                        id INTEGER PRIMARY KEY CHECK (id = 1),
+                        generation INTEGER NOT NULL,
+                        built INTEGER NOT NULL
+                    )
+                    """);
+            statement.execute("INSERT OR IGNORE INTO song_match_state (id, generation, built) VALUES (1, 0, 0)");
+
+            statement.execute("""
+                    CREATE TRIGGER IF NOT EXISTS song_match_song_insert
+                    AFTER INSERT ON Song
+                    BEGIN
+                        INSERT OR IGNORE INTO song_match_dirty (song_id) VALUES (NEW.id);
+                    END
+                    """);
+            statement.execute("""
+                    CREATE TRIGGER IF NOT EXISTS song_match_song_update
+                    AFTER UPDATE OF id, name, artist_id, album_id ON Song
+                    BEGIN
+                        INSERT OR IGNORE INTO song_match_dirty (song_id) VALUES (OLD.id);
+                        INSERT OR IGNORE INTO song_match_dirty (song_id) VALUES (NEW.id);
+                    END
+                    """);
+            statement.execute("""
+                    CREATE TRIGGER IF NOT EXISTS song_match_song_delete
+                    AFTER DELETE ON Song
+                    BEGIN
+                        INSERT OR IGNORE INTO song_match_dirty (song_id) VALUES (OLD.id);
+                    END
+                    """);
+            statement.execute("""
+                    CREATE TRIGGER IF NOT EXISTS song_match_artist_update
+                    AFTER UPDATE OF name ON Artist
+                    BEGIN
+                        INSERT OR IGNORE INTO song_match_dirty (song_id) SELECT id FROM Song WHERE artist_id = NEW.id;
+                    END
+                    """);
+            statement.execute("""
+                    CREATE TRIGGER IF NOT EXISTS song_match_artist_delete
+                    AFTER DELETE ON Artist
+                    BEGIN
+                        INSERT OR IGNORE INTO song_match_dirty (song_id) SELECT id FROM Song WHERE artist_id = OLD.id;
+                    END
+                    """);
+            statement.execute("""
+                    CREATE TRIGGER IF NOT EXISTS song_match_album_update
+                    AFTER UPDATE OF name ON Album
+                    BEGIN
+                        INSERT OR IGNORE INTO song_match_dirty (song_id) SELECT id FROM Song WHERE album_id = NEW.id;
+                    END
+                    """);
+            statement.execute("""
+                    CREATE TRIGGER IF NOT EXISTS song_match_album_delete
+                    AFTER DELETE ON Album
+                    BEGIN
+                        INSERT OR IGNORE INTO song_match_dirty (song_id) SELECT id FROM Song WHERE album_id = OLD.id;
+                    END
+                    """);
+        }
+    }
+
+    /**
+     * Brings song_match_key up to date: builds it on first use, otherwise recomputes only the
+     * queued songs. Runs in its own transaction unless the connection already has one open.
+     */
+    public static SyncResult sync(Connection connection) throws SQLException {
+        boolean ownTransaction = connection.getAutoCommit();
+        if (ownTransaction) {
+            connection.setAutoCommit(false);
+        }
+        try {
+            SyncResult result = syncInTransaction(connection);
+            if (ownTransaction) {
+                connection.commit();
+            }
+            return result;
+        } catch (SQLException | RuntimeException e) {
+            if (ownTransaction) {
+                connection.rollback();
+            }
+            throw e;
+        } finally {
+            if (ownTransaction) {
+                connection.setAutoCommit(true);
+            }
+        }
+    }
+
+    private static SyncResult syncInTransaction(Connection connection) throws SQLException {
+        long generation;
+        boolean built;
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT generation, built FROM song_match_state WHERE id = 1")) {
+            rs.next();
+            generation = rs.getLong("generation");
+            built = rs.getInt("built") == 1;
+        }
+
+        if (!built) {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("DELETE FROM song_match_key");
+                statement.execute("DELETE FROM song_match_dirty");
+            }
+            List<SongKeys> keys = computeKeys(connection, SONG_KEY_SOURCE_SQL);
+            insertKeys(connection, keys);
+            bumpGeneration(connection, generation);
+            return new SyncResult(generation, generation + 1, true, List.of(), keys);
+        }
+
+        List<Integer> dirtyIds = new ArrayList<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT song_id FROM song_match_dirty")) {
+            while (rs.next()) {
+                dirtyIds.add(rs.getInt(1));
+            }
+        }
+        if (dirtyIds.isEmpty()) {
+            return new SyncResult(generation, generation, false, List.of(), List.of());
+        }
+
+        List<SongKeys> removed = new ArrayList<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("""
+                     SELECT song_id, import_key, strict_key, contributor_key FROM song_match_key
+                     WHERE song_id IN (SELECT song_id FROM song_match_dirty)
+                     """)) {
+            while (rs.next()) {
+                removed.add(new SongKeys(rs.getInt("song_id"), rs.getString("import_key"),
+                        rs.getString("strict_key"), rs.getString("contributor_key")));
+            }
+        }
+        List<SongKeys> added = computeKeys(connection,
+                SONG_KEY_SOURCE_SQL + " WHERE s.id IN (SELECT song_id FROM song_match_dirty)");
+
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DELETE FROM song_match_key WHERE song_id IN (SELECT song_id FROM song_match_dirty)");
+            statement.execute("DELETE FROM song_match_dirty");
+        }
+        insertKeys(connection, added);
+        bumpGeneration(connection, generation);
+        return new SyncResult(generation, generation + 1, false, removed, added);
+    }
+
+    /**
+     * Selects whether the generation bound to its single parameter is current; see {@link #isCurrent}.
+     */
+    public static final String IS_CURRENT_SQL = """
+            SELECT built = 1 AND generation = ? AND NOT EXISTS (SELECT 1 FROM song_match_dirty)
+            FROM song_match_state WHERE id = 1
+            """;
+
+    /**
+     * Whether a copy loaded at generation is up to date: the table is built, still at that
+     * generation and no song is queued. A plain read, so callers can skip {@link #sync} and
+     * its write transaction when nothing is pending.
+     */
+    public static boolean isCurrent(Connection connection, long generation) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(IS_CURRENT_SQL)) {
+            statement.setLong(1, generation);
+            try (ResultSet rs = statement.executeQuery()) {
+                return rs.next() && rs.getBoolean(1);
+            }
+        }
+    }
+
+    /**
+     * Reads every persisted row; used to (re)load an in-memory copy.
+     */
+    public static List<SongKeys> loadAll(Connection connection) throws SQLException {
+        List<SongKeys> keys = new ArrayList<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery(
+                     "SELECT song_id, import_key, strict_key, contributor_key FROM song_match_key")) {
+            while (rs.next()) {
+                keys.add(new SongKeys(rs.getInt("song_id"), rs.getString("import_key"),
+                        rs.getString("strict_key"), rs.getString("contributor_key")));
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * Contributor keys that identify exactly one song, mapped to that song's id.
+     */
+    public static Map<String, Integer> loadUniqueContributorKeys(Connection connection) throws SQLException {
+        Map<String, Integer> unique = new HashMap<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("""
+                     SELECT contributor_key, MIN(song_id) as song_id
+                     FROM song_match_key
+                     WHERE contributor_key IS NOT NULL
+                     GROUP BY contributor_key
+                     HAVING COUNT(*) = 1
+                     """)) {
+            while (rs.next()) {
+                unique.put(rs.getString("contributor_key"), rs.getInt("song_id"));
+            }
+        }
+        return unique;
+    }
+
+    /**
+     * The lowest song id having the given import key, or null.
+     */
+    public static Integer findFirstByImportKey(Connection connection, String importKey) throws SQLException {
+        return findFirst(connection, "SELECT MIN(song_id) FROM song_match_key WHERE import_key = ?", importKey);
+    }
+
+    /**
+     * The lowest song id having the given strict key, or null.
+     */
+    public static Integer findFirstByStrictKey(Connection connection, String strictKey) throws SQLException {
+        return findFirst(connection, "SELECT MIN(song_id) FROM song_match_key WHERE strict_key = ?", strictKey);
+    }
+
+    /**
+     * artist||album||song with import normalization (lowercase, accents stripped, trimmed).
+     */
+    public static String importKey(String artist, String album, String song) {
+        String a = artist != null ? StringNormalizer.normalizeForImport(artist) : "";
+        String al = album != null ? StringNormalizer.normalizeForImport(album) : "";
+        String s = song != null ? StringNormalizer.normalizeForImport(song) : "";
+        return a + "||" + al + "||" + s;
+    }
+
+    /**
+     * artist||album||song keeping parentheses and featuring text, ignoring case, accents and punctuation.
+     */
+    public static String strictKey(String artist, String album, String song) {
+        return normalizeForStrictMatch(artist) + "||" + normalizeForStrictMatch(album) + "||" + normalizeForStrictMatch(song);
+    }
+
+    /**
+     * Lowercase + strip accents + trim + remove punctuation only.
+     * Does NOT remove parentheses, brackets, or featuring text.
+     */
+    public static String normalizeForStrictMatch(String input) {
+        if (input == null || input.isBlank()) {
+            return "";
+        }
+        String result = StringNormalizer.stripAccents(input.toLowerCase().trim());
+        // Remove only punctuation characters, keeping parentheses, brackets, etc.
+        result = result.replaceAll("[\\\\.,'!?\"\\-_:;\\/&%]", "");
+        // Collapse whitespace
+        result = result.replaceAll("\\s+", " ").trim();
+        return result;
+    }
+
+    private static List<SongKeys> computeKeys(Connection connection, String sql) throws SQLException {
+        List<SongKeys> keys = new ArrayList<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery(sql)) {
+            while (rs.next()) {
+                String artistName = rs.getString("artist_name");
+                String albumName = rs.getString("album_name");
+                String songName = rs.getString("song_name");
+                boolean hasArtist = rs.getObject("artist_id") != null;
+                keys.add(new SongKeys(
+                        rs.getInt("id"),
+                        importKey(artistName, albumName, songName),
+                        strictKey(artistName, albumName, songName),
+                        hasArtist ? BillboardHot100ImportSupport.contributorAwareKey(artistName, songName) : null));
+            }
+        }
+        return keys;
+    }
+
+    private static void insertKeys(Connection connection, List<SongKeys> keys) throws SQLException {
+        if (keys.isEmpty()) {
+            return;
+        }
+        try (PreparedStatement insert = connection.prepareStatement(
+                "INSERT INTO song_match_key (song_id, import_key, strict_key, contributor_key) VALUES (?, ?, ?, ?)")) {
+            for (SongKeys key : keys) {
+                insert.setInt(1, key.songId());
+                insert.setString(2, key.importKey());
+                insert.setString(3, key.strictKey());
+                insert.setString(4, key.contributorKey());
+                insert.addBatch();
+            }
+            insert.executeBatch();
+        }
+    }
+
+    private static void bumpGeneration(Connection connection, long generation) throws SQLException {
+        try (PreparedStatement update = connection.prepareStatement(
+                "UPDATE song_match_state SET generation = ?, built = 1 WHERE id = 1")) {
+            update.setLong(1, generation + 1);
+            update.executeUpdate();
+        }
+    }
+
+    private static Integer findFirst(Connection connection, String sql, String key) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setString(1, key);
+            try (ResultSet rs = statement.executeQuery()) {
+                if (rs.next()) {
+                    int songId = rs.getInt(1);
+                    return rs.wasNull() ? null : songId;
+                }
+                return null;
+            }
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package library.util;
 
+import library.dto.ItunesIdSource;
+
 import java.util.List;
 
 /**
@@ -302,25 +304,40 @@ public final class SqlFilterHelper {
     }
     
     /**
-     * Appends an iTunes entity-ID filter using json_each() for efficient parameterized IN-list.
-     * The caller pre-computes a JSON array of matching entity IDs (e.g. "[1,2,3]")
-     * and passes the desired mode ("true" = include only matching, "false" = exclude matching).
+     * Subquery selecting the ids of an iTunes id source, with one placeholder for
+     * {@link #itunesIdParameter}; a null source selects no ids.
+     */
+    public static String itunesIdSubquery(ItunesIdSource itunesIds) {
+        return (itunesIds != null ? itunesIds : ItunesIdSource.NONE).subquery();
+    }
+
+    /**
+     * The value to bind for {@link #itunesIdSubquery} of the same source.
+     */
+    public static String itunesIdParameter(ItunesIdSource itunesIds) {
+        return (itunesIds != null ? itunesIds : ItunesIdSource.NONE).parameter();
+    }
+
+    /**
+     * Appends an iTunes entity-ID filter over an id source (see {@link #itunesIdSubquery}).
+     * The caller passes the source of entity IDs present in iTunes
+     * and the desired mode ("true" = include only matching, "false" = exclude matching).
      *
      * @param sql            The StringBuilder to append to
      * @param params         The parameter list to add values to
      * @param idColumn       The SQL column holding the entity PK (e.g. "a.id")
-     * @param itunesIdsJson  JSON array string of entity IDs present in iTunes, or null if no filter
+     * @param itunesIds      Source of the entity IDs present in iTunes, or null if no filter
      * @param inItunesMode   "true" to include only those IDs, "false" to exclude them; null = no-op
      */
     public static void appendItunesIdFilter(StringBuilder sql, List<Object> params,
-                                            String idColumn, String itunesIdsJson, String inItunesMode) {
-        if (itunesIdsJson == null || inItunesMode == null || inItunesMode.isEmpty()) return;
+                                            String idColumn, ItunesIdSource itunesIds, String inItunesMode) {
+        if (itunesIds == null || inItunesMode == null || inItunesMode.isEmpty()) return;
         if ("true".equalsIgnoreCase(inItunesMode)) {
-            sql.append(" AND ").append(idColumn).append(" IN (SELECT value FROM json_each(?)) ");
+            sql.append(" AND ").append(idColumn).append(" IN (").append(itunesIdSubquery(itunesIds)).append(") ");
         } else {
-            sql.append(" AND ").append(idColumn).append(" NOT IN (SELECT value FROM json_each(?)) ");
+            sql.append(" AND ").append(idColumn).append(" NOT IN (").append(itunesIdSubquery(itunesIds)).append(") ");
         }
-        params.add(itunesIdsJson);
+        params.add(itunesIds.parameter());
     }
 
     public static void appendChartStatsFilter(StringBuilder sql, List<Object> params,
@@ -79,6 +79,25 @@ public final class StringNormalizer {
         return result;
     }
     
+    /**
+     * Folds a stored name for the search index: lowercase + strip accents + remove the same
+     * punctuation normalizeForSearch() removes from queries + collapse whitespace.
+     * Unlike normalizeForSearch(), text in parentheses/brackets and featuring tokens are kept,
+     * so "Song (Remix)" is still found by "remix".
+     * 
+     * @param input The stored name
+     * @return The folded name, or null if input is null
+     */
+    public static String foldForSearchIndex(String input) {
+        if (input == null) {
+            return null;
+        }
+        String result = stripAccents(input.toLowerCase().trim());
+        result = result.replaceAll("[\\\\.,'!\"\\-_:;\\/()\\[\\]&%]", "");
+        result = result.replaceAll("\\s+", " ").trim();
+        return result;
+    }
+    
     /**
      * Generates a SQLite REPLACE chain expression to normalize a column for accent-insensitive comparison.
      * This wraps a column name with nested REPLACE calls to convert accented characters to their base form.
@@ -0,0 +1,211 @@
+package library.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Immutable trigram inverted index over short, already-normalized strings (artist and song
+ * names) with top-K Dice similarity lookups.
+ *
+ * Trigrams are taken per word the way pg_trgm does it: every word is padded with two leading
+ * spaces and one trailing space, so short words and word starts still produce grams. Each
+ * trigram maps to the sorted list of documents containing it; a lookup walks only the posting
+ * lists of the query's trigrams, counts shared grams per document and keeps the best K, so its
+ * cost depends on how common the query's grams are rather than on the catalog size.
+ */
+public final class TrigramIndex {
+
+    /**
+     * One lookup result; similarity is 2 * shared / (query grams + document grams), from 0 to 1.
+     */
+    public record Match(int id, double similarity) {}
+
+    private static final int[] NO_DOCUMENTS = new int[0];
+
+    private final int[] ids;
+    private final int[] gramCounts;
+    private final Map<Long, int[]> postings;
+    /** Per-thread shared-gram counters, zeroed again after every lookup. */
+    private final ThreadLocal<int[]> sharedCounts;
+
+    private TrigramIndex(int[] ids, int[] gramCounts, Map<Long, int[]> postings) {
+        this.ids = ids;
+        this.gramCounts = gramCounts;
+        this.postings = postings;
+        this.sharedCounts = ThreadLocal.withInitial(() -> new int[ids.length]);
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    /**
+     * The best {@code limit} documents sharing trigrams with {@code text}, highest similarity
+     * first, skipping those below {@code minSimilarity}. Ties prefer the lower id.
+     */
+    public List<Match> search(String text, int limit, double minSimilarity) {
+        long[] queryGrams = trigrams(text);
+        if (queryGrams.length == 0 || limit <= 0) {
+            return List.of();
+        }
+
+        // A document reaching minSimilarity shares at least minShared of the query's grams, so it
+        // must appear in one of the (length - minShared + 1) rarest lists. Only those lists generate
+        // candidates; the common ones are then probed per candidate by binary search.
+        int[][] lists = new int[queryGrams.length][];
+        for (int i = 0; i < queryGrams.length; i++) {
+            lists[i] = postings.getOrDefault(queryGrams[i], NO_DOCUMENTS);
+        }
+        Arrays.sort(lists, Comparator.comparingInt(list -> list.length));
+        int minShared = Math.max(1, (int) Math.ceil(minSimilarity * queryGrams.length / (2 - minSimilarity) - 1e-9));
+        int candidateLists = Math.max(1, queryGrams.length - minShared + 1);
+
+        int[] shared = sharedCounts.get();
+        int[] touched = new int[Math.min(ids.length, 1024)];
+        int touchedCount = 0;
+        for (int i = 0; i < candidateLists; i++) {
+            for (int document : lists[i]) {
+                if (shared[document]++ == 0) {
+                    if (touchedCount == touched.length) {
+                        touched = Arrays.copyOf(touched, Math.min(ids.length, touched.length * 2));
+                    }
+                    touched[touchedCount++] = document;
+                }
+            }
+        }
+        for (int i = candidateLists; i < lists.length; i++) {
+            int[] list = lists[i];
+            if ((long) touchedCount * (32 - Integer.numberOfLeadingZeros(list.length)) < list.length) {
+                for (int t = 0; t < touchedCount; t++) {
+                    if (Arrays.binarySearch(list, touched[t]) >= 0) {
+                        shared[touched[t]]++;
+                    }
+                }
+            } else {
+                for (int document : list) {
+                    if (shared[document] > 0) {
+                        shared[document]++;
+                    }
+                }
+            }
+        }
+
+        Comparator<Match> worstFirst = Comparator.comparingDouble(Match::similarity)
+                .thenComparing(Comparator.comparingInt(Match::id).reversed());
+        PriorityQueue<Match> best = new PriorityQueue<>(limit + 1, worstFirst);
+        for (int i = 0; i < touchedCount; i++) {
+            int document = touched[i];
+            double similarity = 2.0 * shared[document] / (queryGrams.length + gramCounts[document]);
+            shared[document] = 0;
+            if (similarity < minSimilarity) {
+                continue;
+            }
+            if (best.size() < limit) {
+                best.add(new Match(ids[document], similarity));
+            } else if (similarity > best.peek().similarity()) {
+                best.poll();
+                best.add(new Match(ids[document], similarity));
+            }
+        }
+
+        List<Match> matches = new ArrayList<>(best);
+        matches.sort(worstFirst.reversed());
+        return matches;
+    }
+
+    /**
+     * Dice similarity of the trigram sets of two strings, 0 when either has no trigrams.
+     */
+    public static double similarity(String left, String right) {
+        long[] a = trigrams(left);
+        long[] b = trigrams(right);
+        if (a.length == 0 || b.length == 0) {
+            return 0;
+        }
+        int shared = 0;
+        for (int i = 0, j = 0; i < a.length && j < b.length; ) {
+            if (a[i] == b[j]) {
+                shared++;
+                i++;
+                j++;
+            } else if (a[i] < b[j]) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return 2.0 * shared / (a.length + b.length);
+    }
+
+    /**
+     * Distinct trigrams of the text, sorted, each packed as three 16-bit chars.
+     */
+    static long[] trigrams(String text) {
+        if (text == null || text.isBlank()) {
+            return new long[0];
+        }
+        String[] words = text.trim().split("\\s+");
+        long[] grams = new long[text.length() + 2 * words.length];
+        int count = 0;
+        for (String word : words) {
+            String padded = "  " + word + " ";
+            for (int i = 0; i + 3 <= padded.length(); i++) {
+                grams[count++] = ((long) padded.charAt(i) << 32) | ((long) padded.charAt(i + 1) << 16) | padded.charAt(i + 2);
+            }
+        }
+        Arrays.sort(grams, 0, count);
+        int distinct = 0;
+        for (int i = 0; i < count; i++) {
+            if (distinct == 0 || grams[i] != grams[distinct - 1]) {
+                grams[distinct++] = grams[i];
+            }
+        }
+        return Arrays.copyOf(grams, distinct);
+    }
+
+    public static final class Builder {
+
+        private final List<Integer> ids = new ArrayList<>();
+        private final List<Integer> gramCounts = new ArrayList<>();
+        private final Map<Long, List<Integer>> postings = new HashMap<>();
+
+        private Builder() {}
+
+        /**
+         * Adds a document; text should already be normalized the same way queries will be.
+         * Documents without trigrams are ignored.
+         */
+        public Builder add(int id, String text) {
+            long[] grams = trigrams(text);
+            if (grams.length == 0) {
+                return this;
+            }
+            int document = ids.size();
+            ids.add(id);
+            gramCounts.add(grams.length);
+            for (long gram : grams) {
+                postings.computeIfAbsent(gram, g -> new ArrayList<>()).add(document);
+            }
+            return this;
+        }
+
+        public TrigramIndex build() {
+            Map<Long, int[]> compact = new HashMap<>(postings.size() * 2);
+            postings.forEach((gram, documents) ->
+                    compact.put(gram, documents.stream().mapToInt(Integer::intValue).toArray()));
+            return new TrigramIndex(
+                    ids.stream().mapToInt(Integer::intValue).toArray(),
+                    gramCounts.stream().mapToInt(Integer::intValue).toArray(),
+                    compact);
+        }
+    }
+}
@@ -14,7 +14,7 @@ let lastChartData = {};
 
 // Current view (card / table / graphs) - initialized here so it's always available
 let currentView = 'card';
-let listViewState = { page: 0, totalCount: 0, loading: false, allLoaded: false };
+let listViewState = { page: 0, totalCount: 0, loading: false, allLoaded: false, nextCursor: null };
 let listViewObserver = null;
 let listViewScrollContainer = null;
 let listViewScrollHandler = null;
@@ -842,6 +842,7 @@ function getFilterParams() {
     
     // Remove pagination and sorting params, keep only filters
     params.delete('page');
+    params.delete('cursor');
     params.delete('perpage');
     params.delete('sortby');
     params.delete('sortdir');
@@ -2791,6 +2792,7 @@ function applyListViewSortParams(params, entityType) {
 function reloadListViewData(entityType = getCurrentEntityType()) {
     listViewRequestToken += 1;
     listViewState.page = 0;
+    listViewState.nextCursor = null;
     listViewState.totalCount = 0;
     listViewState.loading = false;
     listViewState.allLoaded = false;
@@ -2924,6 +2926,9 @@ function fetchListPage(pageNum) {
     params.set('page', pageNum);
     params.set('perpage', requestedPageSize);
     applyListViewSortParams(params, entityType);
+    if (pageNum > 0 && listViewState.nextCursor) {
+        params.set('cursor', listViewState.nextCursor);
+    }
 
     const requestToken = ++listViewRequestToken;
 
@@ -2936,6 +2941,7 @@ function fetchListPage(pageNum) {
 
             const items = (data.items || []).map(item => normalizeListItem(item, entityType));
             listViewState.totalCount = data.totalCount;
+            listViewState.nextCursor = data.nextCursor || null;
 
             if (pageNum === 0) {
                 // Full init: replace data, init column toggles, render, setup sorting
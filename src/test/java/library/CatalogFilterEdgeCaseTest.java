@@ -2,12 +2,15 @@ package library;
 
 import library.dto.AlbumStatsRow;
 import library.dto.ArtistStatsRow;
+import library.dto.KeysetPage;
 import library.dto.SongCardDTO;
 import library.dto.SongStatsRow;
 import library.repository.SongImageRepository;
 import library.repository.LookupRepository;
 import library.service.AppConfigService;
+import library.service.ImageThumbnailService;
 import library.service.ItunesService;
+import library.service.SongAttributeIndexService;
 import library.service.SongLinkService;
 import library.service.SongService;
 import org.junit.jupiter.api.Test;
@@ -240,7 +243,7 @@ class CatalogFilterEdgeCaseTest {
     @Test
     void linkedSongsCombineTheirPlayStatsWhenConfigIsEnabled() {
         try (TestDatabaseSupport db = TestDatabaseSupport.create()) {
-            SongLinkService songLinkService = new SongLinkService(db.jdbcTemplate);
+            SongLinkService songLinkService = new SongLinkService(db.jdbcTemplate, db.writeQueue);
             songLinkService.initialize();
             songLinkService.saveLinkedSongs(1, List.of(2));
 
@@ -298,6 +301,8 @@ class CatalogFilterEdgeCaseTest {
         when(itunesService.getSongPresenceById(anyList())).thenReturn(Map.of());
         AppConfigService appConfigService = mock(AppConfigService.class);
         when(appConfigService.isCombineLinkedSongsEnabled()).thenReturn(combineLinkedSongs);
+        SongAttributeIndexService songAttributeIndexService = new SongAttributeIndexService(db.jdbcTemplate, db.writeQueue);
+        songAttributeIndexService.initialize();
         return new SongService(
                 db.songRepository,
                 mock(SongImageRepository.class),
@@ -305,7 +310,9 @@ class CatalogFilterEdgeCaseTest {
                 db.jdbcTemplate,
                 itunesService,
                 appConfigService,
-                songLinkService);
+                songLinkService,
+                mock(ImageThumbnailService.class),
+                songAttributeIndexService);
     }
 
     private static List<SongCardDTO> getUnfilteredSongs(SongService service, String sortBy, String sortDirection, int page, int perPage) {
@@ -321,13 +328,13 @@ class CatalogFilterEdgeCaseTest {
                     args[i] = 0;
                 }
             }
-            args[args.length - 8] = sortBy;
-            args[args.length - 7] = sortDirection;
+            args[args.length - 10] = sortBy;
+            args[args.length - 9] = sortDirection;
             args[args.length - 2] = page;
             args[args.length - 1] = perPage;
             @SuppressWarnings("unchecked")
-            List<SongCardDTO> songs = (List<SongCardDTO>) method.invoke(service, args);
-            return songs;
+            KeysetPage<SongCardDTO> songs = (KeysetPage<SongCardDTO>) method.invoke(service, args);
+            return songs.rows();
         } catch (ReflectiveOperationException ex) {
             throw new IllegalStateException("Unable to invoke SongService.getSongs from test", ex);
         }
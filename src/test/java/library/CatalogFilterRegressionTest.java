@@ -2,6 +2,7 @@ package library;
 
 import library.dto.AlbumStatsRow;
 import library.dto.ArtistStatsRow;
+import library.dto.ItunesIdSource;
 import library.dto.SongStatsRow;
 import org.junit.jupiter.api.Test;
 
@@ -50,8 +51,8 @@ class CatalogFilterRegressionTest {
             assertArtistNames(db, mapOf("imageTheme", 1, "imageThemeMode", "has"), "Selena");
             assertArtistNames(db, mapOf("imageTheme", 1, "imageThemeMode", "doesntHave"),
                     "Bad Bunny", "Guest Singer", "Legacy Legend", "Mystery Artist", "The Static Hearts");
-            assertArtistNames(db, mapOf("itunesIdsJson", "[1,2]", "inItunes", "true"), "Bad Bunny", "Selena");
-            assertArtistNames(db, mapOf("itunesIdsJson", "[1,2]", "inItunes", "false"),
+            assertArtistNames(db, mapOf("itunesIds", ItunesIdSource.json("[1,2]"), "inItunes", "true"), "Bad Bunny", "Selena");
+            assertArtistNames(db, mapOf("itunesIds", ItunesIdSource.json("[1,2]"), "inItunes", "false"),
                     "Guest Singer", "Legacy Legend", "Mystery Artist", "The Static Hearts");
         }
     }
@@ -90,7 +91,7 @@ class CatalogFilterRegressionTest {
             assertArtistNames(db, mapOf("albumCountMin", 1),
                     "Bad Bunny", "Legacy Legend", "Mystery Artist", "Selena", "The Static Hearts");
             assertArtistNames(db, mapOf("songCountMax", 0), "Guest Singer");
-            assertArtistNames(db, mapOf("itunesPresenceMin", 100, "itunesSongIdsJson", "[3,4]"), "Bad Bunny");
+            assertArtistNames(db, mapOf("itunesPresenceMin", 100, "itunesSongIds", ItunesIdSource.json("[3,4]")), "Bad Bunny");
         }
     }
 
@@ -134,7 +135,7 @@ class CatalogFilterRegressionTest {
             assertAlbumNames(db, mapOf("hasFeaturedArtists", "false"),
                     "Legacy Collection", "Silent Record", "Un Verano Sin Ti", "Unknown Album");
             assertAlbumNames(db, mapOf("isBand", "true"), "Silent Record");
-            assertAlbumNames(db, mapOf("itunesIdsJson", "[1,5]", "inItunes", "true"), "Amor Prohibido", "Legacy Collection");
+            assertAlbumNames(db, mapOf("itunesIds", ItunesIdSource.json("[1,5]"), "inItunes", "true"), "Amor Prohibido", "Legacy Collection");
             assertAlbumNames(db, mapOf("playCountMin", 5), "Un Verano Sin Ti");
             assertAlbumNames(db, mapOf("songCountMin", 2), "Amor Prohibido", "Un Verano Sin Ti");
             assertAlbumNames(db, mapOf("lengthMode", "null"), "Unknown Album");
@@ -142,7 +143,7 @@ class CatalogFilterRegressionTest {
             assertAlbumNames(db, mapOf("lastFullListenDate", "2024-02-01", "lastFullListenDateMode", "exact"), "Amor Prohibido");
             assertAlbumNames(db, mapOf("lastFullListenDateMode", "isnull"),
                     "Silent Record", "Un Verano Sin Ti", "Unknown Album");
-            assertAlbumNames(db, mapOf("itunesPresenceMin", 100, "itunesSongIdsJson", "[1,2,3,4,8]"),
+            assertAlbumNames(db, mapOf("itunesPresenceMin", 100, "itunesSongIds", ItunesIdSource.json("[1,2,3,4,8]")),
                     "Amor Prohibido", "Legacy Collection", "Un Verano Sin Ti");
 
             assertAlbumNames(db, mapOf("weeklyChartPeak", 1, "weeklyChartPeakMode", "exact"), "Amor Prohibido");
@@ -190,7 +191,7 @@ class CatalogFilterRegressionTest {
                     "Bidi Bidi Bom Bom", "Ojitos Lindos", "Old Hit", "Quiet Track", "Standalone Jam", "Titi Me Pregunto", "Unknown Silence");
             assertSongNames(db, mapOf("isBand", "true"), "Quiet Track");
             assertSongNames(db, mapOf("isSingle", "true"), "Old Hit", "Standalone Jam");
-            assertSongNames(db, mapOf("itunesIdsJson", "[1,3]", "inItunes", "true"), "Bidi Bidi Bom Bom", "Titi Me Pregunto");
+            assertSongNames(db, mapOf("itunesIds", ItunesIdSource.json("[1,3]"), "inItunes", "true"), "Bidi Bidi Bom Bom", "Titi Me Pregunto");
             assertSongNames(db, mapOf("playCountMin", 5), "Titi Me Pregunto");
             assertSongNames(db, mapOf("trackNumber", 2, "trackNumberMode", "exact"), "No Me Queda Mas", "Ojitos Lindos");
             assertSongNames(db, mapOf("trackNumberMode", "isnull"), "Standalone Jam", "Unknown Silence");
@@ -265,7 +266,7 @@ class CatalogFilterRegressionTest {
                     "Legacy Legend");
             assertThat(db.artistRepository.findArtistsWithStats(artistQueryWith(mapOf(
                     "itunesPresenceMax", 0,
-                    "itunesSongIdsJson", "[3,4]"))))
+                    "itunesSongIds", ItunesIdSource.json("[3,4]")))))
                     .extracting(ArtistStatsRow::name)
                     .contains("Legacy Legend", "Mystery Artist", "Selena", "The Static Hearts");
 
@@ -300,7 +301,7 @@ class CatalogFilterRegressionTest {
                     "Amor Prohibido", "Legacy Collection");
             assertAlbumNames(db, mapOf(
                     "itunesPresenceMax", 0,
-                    "itunesSongIdsJson", "[1,2,3,4,8]"),
+                    "itunesSongIds", ItunesIdSource.json("[1,2,3,4,8]")),
                     "Silent Record", "Unknown Album");
 
             assertSongNames(db, mapOf("imageCountMax", 0),
@@ -346,7 +347,7 @@ class CatalogFilterRegressionTest {
                     "Titi Me Pregunto");
             assertSongNames(db, mapOf("seasonalChartSeasons", 1, "includeExpensiveStats", true), "Titi Me Pregunto");
             assertSongNames(db, mapOf("yearlyChartYears", 1, "includeExpensiveStats", true), "Bidi Bidi Bom Bom");
-            assertSongNames(db, mapOf("itunesIdsJson", "[1,3]", "inItunes", "false"),
+            assertSongNames(db, mapOf("itunesIds", ItunesIdSource.json("[1,3]"), "inItunes", "false"),
                     "No Me Queda Mas", "Ojitos Lindos", "Old Hit", "Quiet Track", "Standalone Jam", "Unknown Silence");
         }
     }
@@ -4,6 +4,8 @@ import library.dto.AlbumStatsQuery;
 import library.dto.AlbumStatsRow;
 import library.dto.ArtistStatsQuery;
 import library.dto.ArtistStatsRow;
+import library.dto.ItunesIdSource;
+import library.dto.ListTotals;
 import library.dto.SongStatsQuery;
 import library.dto.SongStatsRow;
 import org.junit.jupiter.params.ParameterizedTest;
@@ -37,6 +39,9 @@ class CatalogListCountConsistencyTest {
             assertThat(db.artistRepository.countArtistsByGenderWithFilters(query))
                     .as(caseName + " gender chips")
                     .isEqualTo(countBy(rows, ArtistStatsRow::genderId));
+            assertThat(db.artistRepository.findArtistsPageWithStats(query).totals())
+                    .as(caseName + " totals read with the page")
+                    .isEqualTo(totalsOf(rows, ArtistStatsRow::genderId));
         }
     }
 
@@ -53,6 +58,9 @@ class CatalogListCountConsistencyTest {
             assertThat(countAlbumsByGender(db, query))
                     .as(caseName + " gender chips")
                     .isEqualTo(countBy(rows, AlbumStatsRow::genderId));
+            assertThat(db.albumRepository.findAlbumsPageWithStats(query).totals())
+                    .as(caseName + " totals read with the page")
+                    .isEqualTo(totalsOf(rows, AlbumStatsRow::genderId));
         }
     }
 
@@ -69,6 +77,9 @@ class CatalogListCountConsistencyTest {
             assertThat(countSongsByGender(db, query))
                     .as(caseName + " gender chips")
                     .isEqualTo(countBy(rows, SongStatsRow::genderId));
+            assertThat(db.songRepository.findSongsPageWithStats(query).totals())
+                    .as(caseName + " totals read with the page")
+                    .isEqualTo(totalsOf(rows, SongStatsRow::genderId));
         }
     }
 
@@ -104,8 +115,8 @@ class CatalogListCountConsistencyTest {
                 entry("image theme has", mapOf("imageTheme", 1, "imageThemeMode", "has")),
                 entry("image theme does not have", mapOf("imageTheme", 1, "imageThemeMode", "doesntHave")),
                 entry("is band true", mapOf("isBand", "true")),
-                entry("itunes in", mapOf("itunesIdsJson", "[1,2]", "inItunes", "true")),
-                entry("itunes not in", mapOf("itunesIdsJson", "[1,2]", "inItunes", "false")),
+                entry("itunes in", mapOf("itunesIds", ItunesIdSource.json("[1,2]"), "inItunes", "true")),
+                entry("itunes not in", mapOf("itunesIds", ItunesIdSource.json("[1,2]"), "inItunes", "false")),
                 entry("account includes", mapOf("accounts", List.of("robertlover"), "accountMode", "includes")),
                 entry("account excludes", mapOf("accounts", List.of("robertlover"), "accountMode", "excludes")),
                 entry("listened date range", mapOf("listenedDateFrom", "2024-03-01", "listenedDateTo", "2024-03-31")),
@@ -121,8 +132,8 @@ class CatalogListCountConsistencyTest {
                 entry("album count max", mapOf("albumCountMax", 0)),
                 entry("song count min", mapOf("songCountMin", 3)),
                 entry("song count max", mapOf("songCountMax", 0)),
-                entry("itunes presence min", mapOf("itunesPresenceMin", 100, "itunesSongIdsJson", "[3,4]")),
-                entry("itunes presence max", mapOf("itunesPresenceMax", 0, "itunesSongIdsJson", "[3,4]"))
+                entry("itunes presence min", mapOf("itunesPresenceMin", 100, "itunesSongIds", ItunesIdSource.json("[3,4]"))),
+                entry("itunes presence max", mapOf("itunesPresenceMax", 0, "itunesSongIds", ItunesIdSource.json("[3,4]")))
         );
     }
 
@@ -156,8 +167,8 @@ class CatalogListCountConsistencyTest {
                 entry("has featured artists", mapOf("hasFeaturedArtists", "true")),
                 entry("has no featured artists", mapOf("hasFeaturedArtists", "false")),
                 entry("is band true", mapOf("isBand", "true")),
-                entry("itunes in", mapOf("itunesIdsJson", "[1,5]", "inItunes", "true")),
-                entry("itunes not in", mapOf("itunesIdsJson", "[1,5]", "inItunes", "false")),
+                entry("itunes in", mapOf("itunesIds", ItunesIdSource.json("[1,5]"), "inItunes", "true")),
+                entry("itunes not in", mapOf("itunesIds", ItunesIdSource.json("[1,5]"), "inItunes", "false")),
                 entry("age min", mapOf("ageMin", 70)),
                 entry("age at release max", mapOf("ageAtReleaseMax", 23)),
                 entry("birth date gte", mapOf("birthDate", "1970-01-01", "birthDateMode", "gte")),
@@ -179,8 +190,8 @@ class CatalogListCountConsistencyTest {
                 entry("last full listen exact", mapOf("lastFullListenDate", "2024-02-01", "lastFullListenDateMode", "exact")),
                 entry("last full listen between", mapOf("lastFullListenDateFrom", "2024-02-01", "lastFullListenDateTo", "2024-05-01", "lastFullListenDateMode", "between")),
                 entry("last full listen is null", mapOf("lastFullListenDateMode", "isnull")),
-                entry("itunes presence min", mapOf("itunesPresenceMin", 100, "itunesSongIdsJson", "[1,2,3,4,8]")),
-                entry("itunes presence max", mapOf("itunesPresenceMax", 0, "itunesSongIdsJson", "[1,2,3,4,8]"))
+                entry("itunes presence min", mapOf("itunesPresenceMin", 100, "itunesSongIds", ItunesIdSource.json("[1,2,3,4,8]"))),
+                entry("itunes presence max", mapOf("itunesPresenceMax", 0, "itunesSongIds", ItunesIdSource.json("[1,2,3,4,8]")))
         );
     }
 
@@ -219,8 +230,8 @@ class CatalogListCountConsistencyTest {
                 entry("has no featured artists", mapOf("hasFeaturedArtists", "false")),
                 entry("is band true", mapOf("isBand", "true")),
                 entry("is single true", mapOf("isSingle", "true")),
-                entry("itunes in", mapOf("itunesIdsJson", "[1,3]", "inItunes", "true")),
-                entry("itunes not in", mapOf("itunesIdsJson", "[1,3]", "inItunes", "false")),
+                entry("itunes in", mapOf("itunesIds", ItunesIdSource.json("[1,3]"), "inItunes", "true")),
+                entry("itunes not in", mapOf("itunesIds", ItunesIdSource.json("[1,3]"), "inItunes", "false")),
                 entry("age min", mapOf("ageMin", 70)),
                 entry("age at release max", mapOf("ageAtReleaseMax", 23)),
                 entry("birth date exact", mapOf("birthDate", "1950-01-01", "birthDateMode", "exact")),
@@ -272,6 +283,11 @@ class CatalogListCountConsistencyTest {
         return counts;
     }
 
+    private static <T> ListTotals totalsOf(List<T> rows, Function<T, Integer> genderExtractor) {
+        Map<Integer, Long> counts = countBy(rows, genderExtractor);
+        return new ListTotals(rows.size(), counts.getOrDefault(1, 0L), counts.getOrDefault(2, 0L));
+    }
+
     private static long countAlbums(TestDatabaseSupport db, AlbumStatsQuery q) {
         return db.albumRepository.countAlbumsWithFilters(q.name(), q.artistName(), q.genreIds(), q.genreMode(),
                 q.subgenreIds(), q.subgenreMode(), q.languageIds(), q.languageMode(), q.genderIds(), q.genderMode(),
@@ -280,7 +296,7 @@ class CatalogListCountConsistencyTest {
                 q.firstListenedDate(), q.firstListenedDateFrom(), q.firstListenedDateTo(), q.firstListenedDateMode(),
                 q.lastListenedDate(), q.lastListenedDateFrom(), q.lastListenedDateTo(), q.lastListenedDateMode(),
                 q.listenedDateFrom(), q.listenedDateTo(), q.organized(), q.imageCountMin(), q.imageCountMax(),
-                q.hasFeaturedArtists(), q.isBand(), q.itunesIdsJson(), q.inItunes(), q.ageMin(), q.ageMax(), q.ageMode(),
+                q.hasFeaturedArtists(), q.isBand(), q.itunesIds(), q.inItunes(), q.ageMin(), q.ageMax(), q.ageMode(),
                 q.ageAtReleaseMin(), q.ageAtReleaseMax(), q.birthDate(), q.birthDateFrom(), q.birthDateTo(), q.birthDateMode(),
                 q.deathDate(), q.deathDateFrom(), q.deathDateTo(), q.deathDateMode(), q.playCountMin(), q.playCountMax(),
                 q.songCountMin(), q.songCountMax(), q.lengthMin(), q.lengthMax(), q.lengthMode(), q.weeklyChartPeak(),
@@ -289,7 +305,7 @@ class CatalogListCountConsistencyTest {
                 q.seasonalChartSeasons(), q.seasonalChartDateFrom(), q.seasonalChartDateTo(), q.seasonalChartSeason(),
                 q.yearlyChartPeak(), q.yearlyChartYears(), q.yearlyChartDateFrom(), q.yearlyChartDateTo(),
                 q.lastFullListenDate(), q.lastFullListenDateFrom(), q.lastFullListenDateTo(), q.lastFullListenDateMode(),
-                q.itunesPresenceMin(), q.itunesPresenceMax(), q.itunesSongIdsJson());
+                q.itunesPresenceMin(), q.itunesPresenceMax(), q.itunesSongIds());
     }
 
     private static Map<Integer, Long> countAlbumsByGender(TestDatabaseSupport db, AlbumStatsQuery q) {
@@ -302,7 +318,7 @@ class CatalogListCountConsistencyTest {
                 q.listenedDateFrom(), q.listenedDateTo(), q.organized(), q.imageCountMin(), q.imageCountMax(),
                 q.hasFeaturedArtists(), q.isBand(), q.ageMin(), q.ageMax(), q.ageMode(), q.ageAtReleaseMin(),
                 q.ageAtReleaseMax(), q.birthDate(), q.birthDateFrom(), q.birthDateTo(), q.birthDateMode(),
-                q.deathDate(), q.deathDateFrom(), q.deathDateTo(), q.deathDateMode(), q.itunesIdsJson(), q.inItunes(),
+                q.deathDate(), q.deathDateFrom(), q.deathDateTo(), q.deathDateMode(), q.itunesIds(), q.inItunes(),
                 q.playCountMin(), q.playCountMax(), q.songCountMin(), q.songCountMax(), q.lengthMin(), q.lengthMax(),
                 q.lengthMode(), q.weeklyChartPeak(), q.weeklyChartPeakMode(), q.weeklyChartWeeks(),
                 q.weeklyChartPeakWeeks(), q.weeklyChartPeakWeeksMode(), q.weeklyChartDateFrom(), q.weeklyChartDateTo(),
@@ -310,7 +326,7 @@ class CatalogListCountConsistencyTest {
                 q.seasonalChartDateTo(), q.seasonalChartSeason(), q.yearlyChartPeak(), q.yearlyChartYears(),
                 q.yearlyChartDateFrom(), q.yearlyChartDateTo(), q.lastFullListenDate(), q.lastFullListenDateFrom(),
                 q.lastFullListenDateTo(), q.lastFullListenDateMode(), q.itunesPresenceMin(), q.itunesPresenceMax(),
-                q.itunesSongIdsJson());
+                q.itunesSongIds());
     }
 
     private static long countSongs(TestDatabaseSupport db, SongStatsQuery q) {
@@ -321,7 +337,7 @@ class CatalogListCountConsistencyTest {
                 q.firstListenedDate(), q.firstListenedDateFrom(), q.firstListenedDateTo(), q.firstListenedDateMode(),
                 q.lastListenedDate(), q.lastListenedDateFrom(), q.lastListenedDateTo(), q.lastListenedDateMode(),
                 q.listenedDateFrom(), q.listenedDateTo(), q.organized(), q.imageCountMin(), q.imageCountMax(),
-                q.hasFeaturedArtists(), q.isBand(), q.isSingle(), q.itunesIdsJson(), q.inItunes(), q.ageMin(),
+                q.hasFeaturedArtists(), q.isBand(), q.isSingle(), q.itunesIds(), q.inItunes(), q.ageMin(),
                 q.ageMax(), q.ageMode(), q.ageAtReleaseMin(), q.ageAtReleaseMax(), q.birthDate(), q.birthDateFrom(),
                 q.birthDateTo(), q.birthDateMode(), q.deathDate(), q.deathDateFrom(), q.deathDateTo(), q.deathDateMode(),
                 q.playCountMin(), q.playCountMax(), q.trackNumber(), q.trackNumberMode(), q.lengthMin(), q.lengthMax(),
@@ -348,7 +364,7 @@ class CatalogListCountConsistencyTest {
                 q.imageCountMax(), q.hasFeaturedArtists(), q.isBand(), q.isSingle(), q.ageMin(), q.ageMax(), q.ageMode(),
                 q.ageAtReleaseMin(), q.ageAtReleaseMax(), q.birthDate(), q.birthDateFrom(), q.birthDateTo(),
                 q.birthDateMode(), q.deathDate(), q.deathDateFrom(), q.deathDateTo(), q.deathDateMode(),
-                q.itunesIdsJson(), q.inItunes(), q.playCountMin(), q.playCountMax(), q.trackNumber(), q.trackNumberMode(),
+                q.itunesIds(), q.inItunes(), q.playCountMin(), q.playCountMax(), q.trackNumber(), q.trackNumberMode(),
                 q.lengthMin(), q.lengthMax(), q.lengthMode(), q.weeklyChartPeak(), q.weeklyChartPeakMode(),
                 q.weeklyChartWeeks(), q.weeklyChartPeakWeeks(), q.weeklyChartPeakWeeksMode(), q.weeklyChartDateFrom(),
                 q.weeklyChartDateTo(), q.weeklyChartSeason(), q.trlPeak(), q.trlPeakMode(), q.trlDays(),
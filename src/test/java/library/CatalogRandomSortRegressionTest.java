@@ -25,7 +25,7 @@ class CatalogRandomSortRegressionTest {
     void secondaryCatalogsAcceptRandomSort() {
         try (TestDatabaseSupport db = TestDatabaseSupport.create()) {
             LookupRepository lookupRepository = new LookupRepository(db.jdbcTemplate);
-            CatalogWinningPeriodService winningPeriodService = new CatalogWinningPeriodService(db.jdbcTemplate);
+            CatalogWinningPeriodService winningPeriodService = db.catalogWinningPeriodService();
 
             assertThat(new CountryService(db.jdbcTemplate, winningPeriodService)
                     .getCountries(null, "random", "asc")).isNotEmpty();
@@ -41,7 +41,7 @@ class CatalogRandomSortRegressionTest {
                     .getSubGenres(null, null, "random", "asc")).isNotEmpty();
             assertThat(new YearService(db.jdbcTemplate).getListenYears("random", "asc")).isNotEmpty();
             assertThat(new YearService(db.jdbcTemplate).getReleaseYears("random", "asc")).isNotEmpty();
-            assertThat(new TimeframeService(db.jdbcTemplate).getTimeframeCardsWithCount(
+            assertThat(new TimeframeService(db.jdbcTemplate, db.songPeriodCountService).getTimeframeCardsWithCount(
                     "months",
                     null, null, null, null, null, null, null, null, null, null,
                     null, null, null, null, null, null,
@@ -58,7 +58,7 @@ class CatalogRandomSortRegressionTest {
     void seededRandomSortIsDeterministicForSecondaryCatalogs() {
         try (TestDatabaseSupport db = TestDatabaseSupport.create()) {
             LookupRepository lookupRepository = new LookupRepository(db.jdbcTemplate);
-            CatalogWinningPeriodService winningPeriodService = new CatalogWinningPeriodService(db.jdbcTemplate);
+            CatalogWinningPeriodService winningPeriodService = db.catalogWinningPeriodService();
 
             CountryService countryService = new CountryService(db.jdbcTemplate, winningPeriodService);
             assertThat(countryService.getCountries(null, "random", "asc", 8675309).stream()
@@ -95,7 +95,7 @@ class CatalogRandomSortRegressionTest {
                             .map(year -> year.getYear())
                             .toList());
 
-            TimeframeService timeframeService = new TimeframeService(db.jdbcTemplate);
+            TimeframeService timeframeService = new TimeframeService(db.jdbcTemplate, db.songPeriodCountService);
             assertThat(timeframeService.getTimeframeCardsWithCount(
                     "months",
                     null, null, null, null, null, null, null, null, null, null,
@@ -11,13 +11,14 @@ import library.repository.ChartRepository;
 import library.repository.GenreRepository;
 import library.repository.LookupRepository;
 import library.service.AppConfigService;
-import library.service.CatalogWinningPeriodService;
+import library.service.ChartRunStatsService;
 import library.service.ChartService;
 import library.service.GenderService;
 import library.service.GenreService;
 import library.service.ItunesService;
 import library.service.SongLinkService;
 import library.service.TimeframeService;
+import library.service.WeeklyChartBackfillService;
 import org.junit.jupiter.api.Test;
 
 import java.util.List;
@@ -37,7 +38,7 @@ class CatalogTimeframeChartRegressionTest {
             GenderService service = new GenderService(
                     new LookupRepository(db.jdbcTemplate),
                     db.jdbcTemplate,
-                    new CatalogWinningPeriodService(db.jdbcTemplate));
+                    db.catalogWinningPeriodService());
 
             List<GenderCardDTO> genders = service.getGenders(null, "plays", "desc");
 
@@ -70,7 +71,7 @@ class CatalogTimeframeChartRegressionTest {
                     mock(GenreRepository.class),
                     new LookupRepository(db.jdbcTemplate),
                     db.jdbcTemplate,
-                    new CatalogWinningPeriodService(db.jdbcTemplate));
+                    db.catalogWinningPeriodService());
 
             List<GenreCardDTO> genres = service.getGenres(null, "plays", "desc");
 
@@ -99,7 +100,7 @@ class CatalogTimeframeChartRegressionTest {
     @Test
     void timeframeMonthsAggregateCountsWinnersAndTopItemsWithFilters() {
         try (TestDatabaseSupport db = TestDatabaseSupport.create()) {
-            TimeframeService service = new TimeframeService(db.jdbcTemplate);
+            TimeframeService service = new TimeframeService(db.jdbcTemplate, db.songPeriodCountService);
 
             TimeframeResultDTO result = service.getTimeframeCardsWithCount(
                     "months",
@@ -229,7 +230,10 @@ class CatalogTimeframeChartRegressionTest {
                 db.jdbcTemplate,
                 mock(ItunesService.class),
                 appConfigService,
-                mock(SongLinkService.class));
+                mock(SongLinkService.class),
+                mock(WeeklyChartBackfillService.class),
+                mock(ChartRunStatsService.class),
+                db.writeQueue);
     }
 
     private static <T> Map<String, T> byName(List<T> rows, Function<T, String> keyExtractor) {
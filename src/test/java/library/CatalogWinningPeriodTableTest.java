@@ -0,0 +1,63 @@
+package library;
+
+import library.dto.GenderCardDTO;
+import library.service.CatalogWinningPeriodService;
+import library.service.CatalogWinningPeriodService.CatalogAttribute;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CatalogWinningPeriodTableTest {
+
+    @Test
+    void storedWinnersMatchAFullScanAfterPlayAndCatalogEdits() {
+        try (TestDatabaseSupport db = TestDatabaseSupport.create()) {
+            CatalogWinningPeriodService stored = db.catalogWinningPeriodService();
+            CatalogWinningPeriodService scan = new CatalogWinningPeriodService(db.jdbcTemplate, db.songPeriodCountService, db.writeQueue);
+
+            assertSameWinners(stored, scan);
+
+            db.jdbcTemplate.update("""
+                    INSERT INTO Play (id, artist, album, song, play_date, song_id, account)
+                    VALUES (100, 'Selena', 'Amor Prohibido', 'Bidi Bidi Bom Bom', '2024-03-01 12:00:00', 1, 'vatito'),
+                           (101, 'Selena', 'Amor Prohibido', 'Bidi Bidi Bom Bom', '2024-03-01 13:00:00', 1, 'vatito')
+                    """);
+            // Reading leaves stale periods to the scheduled refresh
+            counts(stored, CatalogAttribute.GENDER);
+            assertThat(db.jdbcTemplate.queryForObject("SELECT COUNT(*) FROM period_attribute_winner_dirty", Integer.class))
+                    .isPositive();
+            assertSameWinners(stored, scan);
+
+            db.jdbcTemplate.update("DELETE FROM Play WHERE id IN (5, 6)");
+            assertSameWinners(stored, scan);
+
+            db.jdbcTemplate.update("UPDATE Artist SET gender_id = 3, genre_id = 3 WHERE id = 2");
+            db.jdbcTemplate.update("UPDATE Album SET override_genre_id = 1 WHERE id = 1");
+            db.jdbcTemplate.update("UPDATE Song SET override_gender_id = 1 WHERE id = 5");
+            assertSameWinners(stored, scan);
+        }
+    }
+
+    private static void assertSameWinners(CatalogWinningPeriodService stored, CatalogWinningPeriodService scan) {
+        stored.refreshDirtyPeriods();
+        for (CatalogAttribute attribute : List.of(CatalogAttribute.GENDER, CatalogAttribute.GENRE,
+                CatalogAttribute.SUBGENRE, CatalogAttribute.LANGUAGE, CatalogAttribute.ETHNICITY)) {
+            assertThat(counts(stored, attribute))
+                    .as(attribute.name())
+                    .usingRecursiveFieldByFieldElementComparator()
+                    .containsExactlyElementsOf(counts(scan, attribute));
+        }
+    }
+
+    private static List<GenderCardDTO> counts(CatalogWinningPeriodService service, CatalogAttribute attribute) {
+        List<GenderCardDTO> items = List.of(1, 2, 3).stream().map(id -> {
+            GenderCardDTO item = new GenderCardDTO();
+            item.setId(id);
+            return item;
+        }).toList();
+        service.populateWinningCounts(items, GenderCardDTO::getId, attribute);
+        return items;
+    }
+}
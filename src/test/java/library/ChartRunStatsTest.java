@@ -0,0 +1,60 @@
+package library;
+
+import library.service.ChartRunStatsService;
+import library.service.ChartRunStatsService.RunStats;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ChartRunStatsTest {
+
+    @Test
+    void initialBuildCoversWeeklyChartsOnly() {
+        try (TestDatabaseSupport db = TestDatabaseSupport.create()) {
+            ChartRunStatsService service = new ChartRunStatsService(db.jdbcTemplate);
+            service.initialize();
+
+            assertThat(service.getStatsForChart(1)).containsExactlyInAnyOrderEntriesOf(Map.of(
+                    3, new RunStats(1, 1, 1, false),
+                    1, new RunStats(2, 1, 1, false)));
+            assertThat(service.getStatsForChart(2))
+                    .containsExactlyEntriesOf(Map.of(1, new RunStats(1, 1, 2, true)));
+            assertThat(service.getStatsForChart(3))
+                    .containsExactlyEntriesOf(Map.of(1, new RunStats(1, 1, 1, false)));
+            assertThat(db.jdbcTemplate.queryForObject(
+                    "SELECT COUNT(*) FROM chart_run_stats WHERE chart_id IN (4, 5, 6, 7)", Integer.class)).isZero();
+        }
+    }
+
+    @Test
+    void refreshFromRecomputesLaterWeeksAfterHistoryChanges() {
+        try (TestDatabaseSupport db = TestDatabaseSupport.create()) {
+            ChartRunStatsService service = new ChartRunStatsService(db.jdbcTemplate);
+            service.initialize();
+
+            db.jdbcTemplate.update("UPDATE ChartEntry SET position = 1 WHERE id = 2");
+            db.jdbcTemplate.update("UPDATE ChartEntry SET position = 2 WHERE id = 1");
+            service.refreshFrom("song", "2024-01-01");
+
+            assertThat(service.getStatsForChart(2))
+                    .containsExactlyEntriesOf(Map.of(1, new RunStats(1, 2, 2, true)));
+        }
+    }
+
+    @Test
+    void missingStatsAreFilledAtStartupNotOnRead() {
+        try (TestDatabaseSupport db = TestDatabaseSupport.create()) {
+            ChartRunStatsService service = new ChartRunStatsService(db.jdbcTemplate);
+            service.initialize();
+            db.jdbcTemplate.update("DELETE FROM chart_run_stats WHERE chart_id = 2");
+            assertThat(service.getStatsForChart(2)).isEmpty();
+
+            service.initialize();
+
+            assertThat(service.getStatsForChart(2))
+                    .containsExactlyEntriesOf(Map.of(1, new RunStats(1, 1, 2, true)));
+        }
+    }
+}
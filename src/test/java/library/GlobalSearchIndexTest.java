@@ -0,0 +1,51 @@
+package library;
+
+import library.dto.GlobalSearchResultDTO;
+import library.service.GlobalSearchService;
+import library.service.SearchIndexService;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+class GlobalSearchIndexTest {
+
+    @Test
+    void searchFoldsAccentsRanksExactThenPrefixThenContainsAndFollowsEdits() {
+        try (TestDatabaseSupport db = TestDatabaseSupport.create()) {
+            SearchIndexService searchIndex = new SearchIndexService(db.jdbcTemplate, db.writeQueue);
+            searchIndex.initialize();
+            GlobalSearchService search = new GlobalSearchService(db.jdbcTemplate, searchIndex);
+
+            db.jdbcTemplate.update("INSERT INTO Artist (id, name) VALUES (20, 'Marisol'), (21, 'Sol'), (22, 'Soledad')");
+            // Searching leaves queued names to the scheduled refresh
+            assertThat(search.search("sol", 20)).noneMatch(result -> "artist".equals(result.getType()));
+            assertThat(db.jdbcTemplate.queryForObject("SELECT COUNT(*) FROM search_name_dirty", Integer.class)).isEqualTo(3);
+            searchIndex.refresh();
+            assertThat(search.search("sol", 20))
+                    .filteredOn(result -> "artist".equals(result.getType()))
+                    .extracting(GlobalSearchResultDTO::getName)
+                    .containsExactly("Sol", "Soledad", "Marisol");
+
+            db.jdbcTemplate.update("UPDATE Song SET name = 'Tití Me Preguntó' WHERE id = 3");
+            searchIndex.refresh();
+            assertThat(search.search("TITI me pregunto", 20))
+                    .extracting(GlobalSearchResultDTO::getType, GlobalSearchResultDTO::getId)
+                    .containsExactly(tuple("song", 3));
+
+            // Parenthesized text stays searchable on the stored side
+            db.jdbcTemplate.update("UPDATE Song SET name = 'Old Hit (Live)' WHERE id = 8");
+            searchIndex.refresh();
+            assertThat(search.search("live", 20))
+                    .extracting(GlobalSearchResultDTO::getName)
+                    .containsExactly("Old Hit (Live)");
+
+            db.jdbcTemplate.update("DELETE FROM Artist WHERE id = 21");
+            searchIndex.refresh();
+            assertThat(search.search("sol", 20))
+                    .filteredOn(result -> "artist".equals(result.getType()))
+                    .extracting(GlobalSearchResultDTO::getName)
+                    .containsExactly("Soledad", "Marisol");
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package library;
+
+import library.service.ImageThumbnailService;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ImageThumbnailCacheTest {
+
+    @Test
+    void thumbnailsAreRenderedOnceAndRevalidatedWithEtags() throws IOException {
+        try (TestDatabaseSupport db = TestDatabaseSupport.create()) {
+            ImageThumbnailService service = new ImageThumbnailService(db.jdbcTemplate, db.writeQueue);
+            service.initialize();
+            db.jdbcTemplate.update("UPDATE Album SET image = ? WHERE id = 1", (Object) png(1200, 800));
+            AtomicInteger sourceReads = new AtomicInteger();
+            Supplier<byte[]> source = () -> {
+                sourceReads.incrementAndGet();
+                return db.jdbcTemplate.queryForObject("SELECT image FROM Album WHERE id = 1", byte[].class);
+            };
+
+            ResponseEntity<byte[]> first = service.imageResponse("album", 1, source, true, 300, null);
+            assertThat(first.getStatusCode()).isEqualTo(HttpStatus.OK);
+            assertThat(width(first.getBody())).isEqualTo(300);
+            String etag = first.getHeaders().getETag();
+            assertThat(etag).isNotBlank();
+            assertThat(first.getHeaders().getCacheControl()).contains("no-cache");
+            assertThat(cachedRows(db)).isEqualTo(1);
+
+            ResponseEntity<byte[]> second = service.imageResponse("album", 1, source, true, 300, null);
+            assertThat(second.getBody()).isEqualTo(first.getBody());
+            assertThat(second.getHeaders().getETag()).isEqualTo(etag);
+
+            MockHttpServletRequest request = new MockHttpServletRequest("GET", "/albums/1/image");
+            request.addHeader("If-None-Match", etag);
+            ResponseEntity<byte[]> revalidated = service.imageResponse("album", 1, source, true, 300,
+                    new ServletWebRequest(request, new MockHttpServletResponse()));
+            assertThat(revalidated.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+            assertThat(revalidated.getBody()).isNull();
+            // Only rendering the variant read the source; the cached variant and the 304 did not
+            assertThat(sourceReads).hasValue(1);
+        }
+    }
+
+    @Test
+    void imageWritesChangeTheEtagAndReplaceVariants() throws IOException {
+        try (TestDatabaseSupport db = TestDatabaseSupport.create()) {
+            ImageThumbnailService service = new ImageThumbnailService(db.jdbcTemplate, db.writeQueue);
+            service.initialize();
+            db.jdbcTemplate.update("UPDATE Artist SET image = ? WHERE id = 1", (Object) png(900, 900));
+            Supplier<byte[]> artistImage = () ->
+                    db.jdbcTemplate.queryForObject("SELECT image FROM Artist WHERE id = 1", byte[].class);
+
+            String oldEtag = etag(service, "artist", 1, artistImage);
+            db.jdbcTemplate.update("UPDATE Artist SET name = 'Selena Quintanilla' WHERE id = 1");
+            assertThat(etag(service, "artist", 1, artistImage)).isEqualTo(oldEtag);
+
+            db.jdbcTemplate.update("UPDATE Artist SET image = ? WHERE id = 1", (Object) png(1000, 500));
+            ResponseEntity<byte[]> replaced = service.imageResponse("artist", 1, artistImage, true, null, null);
+            assertThat(etag(service, "artist", 1, artistImage)).isNotEqualTo(oldEtag);
+            assertThat(width(replaced.getBody())).isEqualTo(600);
+            assertThat(cachedRows(db)).isEqualTo(1);
+
+            String beforeGalleryEdit = etag(service, "artist", 1, artistImage);
+            db.jdbcTemplate.update("INSERT INTO ArtistImage (id, artist_id, image, display_order) VALUES (2, 1, X'07', 2)");
+            String afterGalleryEdit = etag(service, "artist", 1, artistImage);
+            assertThat(afterGalleryEdit).isNotEqualTo(beforeGalleryEdit);
+            db.jdbcTemplate.update("UPDATE ArtistTheme SET is_active = 0 WHERE id = 1");
+            assertThat(etag(service, "artist", 1, artistImage)).isNotEqualTo(afterGalleryEdit);
+
+            // A song without its own cover shows the album's, so album image edits reach it too
+            byte[] cover = png(400, 400);
+            Supplier<byte[]> songImage = () -> cover;
+            String songEtag = etag(service, "song", 1, songImage);
+            db.jdbcTemplate.update("UPDATE Album SET image = X'09' WHERE id = 1");
+            assertThat(etag(service, "song", 1, songImage)).isNotEqualTo(songEtag);
+
+            service.imageResponse("artist-raw", 1, artistImage, true, 150, null);
+            service.invalidate("artist", 1);
+            assertThat(cachedRows(db)).isZero();
+        }
+    }
+
+    private static String etag(ImageThumbnailService service, String entityType, int entityId, Supplier<byte[]> source) {
+        return service.imageResponse(entityType, entityId, source, false, null, null).getHeaders().getETag();
+    }
+
+    private static int cachedRows(TestDatabaseSupport db) {
+        Integer count = db.jdbcTemplate.queryForObject("SELECT COUNT(*) FROM image_thumbnail_cache", Integer.class);
+        return count != null ? count : 0;
+    }
+
+    private static byte[] png(int width, int height) throws IOException {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        image.setRGB(0, 0, width * 31 + height);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return out.toByteArray();
+    }
+
+    private static int width(byte[] image) throws IOException {
+        return ImageIO.read(new ByteArrayInputStream(image)).getWidth();
+    }
+}
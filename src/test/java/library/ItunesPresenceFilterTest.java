@@ -0,0 +1,64 @@
+package library;
+
+import library.dto.AlbumStatsRow;
+import library.dto.ArtistStatsRow;
+import library.dto.ItunesIdSource;
+import library.dto.SongStatsRow;
+import library.service.ItunesService;
+import library.service.iTunesLibraryService;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import static library.TestDatabaseSupport.albumQueryWith;
+import static library.TestDatabaseSupport.artistQueryWith;
+import static library.TestDatabaseSupport.mapOf;
+import static library.TestDatabaseSupport.songQueryWith;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class ItunesPresenceFilterTest {
+
+    @Test
+    void presenceSetsFilterLikeTheSameIdsAsJson() {
+        try (TestDatabaseSupport db = TestDatabaseSupport.create()) {
+            new ItunesService(db.jdbcTemplate, mock(iTunesLibraryService.class), db.writeQueue).initialize();
+            db.jdbcTemplate.update("""
+                    INSERT INTO itunes_presence (entity_type, entity_id)
+                    VALUES ('song', 1), ('song', 3), ('song', 4), ('album', 1), ('album', 5), ('artist', 1), ('artist', 2)
+                    """);
+
+            Function<Map<String, Object>, List<Integer>> songs = values -> db.songRepository
+                    .findSongsWithStats(songQueryWith(values)).stream().map(SongStatsRow::id).toList();
+            Function<Map<String, Object>, List<Integer>> artists = values -> db.artistRepository
+                    .findArtistsWithStats(artistQueryWith(values)).stream().map(ArtistStatsRow::id).toList();
+            Function<Map<String, Object>, List<Integer>> albums = values -> db.albumRepository
+                    .findAlbumsWithStats(albumQueryWith(values)).stream().map(AlbumStatsRow::id).toList();
+
+            for (String mode : List.of("true", "false")) {
+                assertSameRows(songs, mapOf("itunesIds", ItunesIdSource.presence(ItunesService.SONG_PRESENCE), "inItunes", mode),
+                        mapOf("itunesIds", ItunesIdSource.json("[1,3,4]"), "inItunes", mode));
+                assertSameRows(artists, mapOf("itunesIds", ItunesIdSource.presence(ItunesService.ARTIST_PRESENCE), "inItunes", mode),
+                        mapOf("itunesIds", ItunesIdSource.json("[1,2]"), "inItunes", mode));
+                assertSameRows(albums, mapOf("itunesIds", ItunesIdSource.presence(ItunesService.ALBUM_PRESENCE), "inItunes", mode),
+                        mapOf("itunesIds", ItunesIdSource.json("[1,5]"), "inItunes", mode));
+            }
+            assertSameRows(artists, mapOf("itunesPresenceMin", 100, "itunesSongIds", ItunesIdSource.presence(ItunesService.SONG_PRESENCE)),
+                    mapOf("itunesPresenceMin", 100, "itunesSongIds", ItunesIdSource.json("[1,3,4]")));
+            assertSameRows(albums, mapOf("itunesPresenceMax", 0, "itunesSongIds", ItunesIdSource.presence(ItunesService.SONG_PRESENCE)),
+                    mapOf("itunesPresenceMax", 0, "itunesSongIds", ItunesIdSource.json("[1,3,4]")));
+            assertSameRows(artists, mapOf("sortBy", "itunes_presence", "sortDir", "desc",
+                            "itunesSongIds", ItunesIdSource.presence(ItunesService.SONG_PRESENCE)),
+                    mapOf("sortBy", "itunes_presence", "sortDir", "desc", "itunesSongIds", ItunesIdSource.json("[1,3,4]")));
+        }
+    }
+
+    private static void assertSameRows(Function<Map<String, Object>, List<Integer>> list,
+                                       Map<String, Object> presenceSet, Map<String, Object> json) {
+        List<Integer> expected = list.apply(json);
+        assertThat(expected).as("%s", json).isNotEmpty();
+        assertThat(list.apply(presenceSet)).as("%s", presenceSet).isEqualTo(expected);
+    }
+}
@@ -0,0 +1,134 @@
+package library;
+
+import library.dto.AlbumStatsRow;
+import library.dto.ArtistStatsRow;
+import library.dto.KeysetPage;
+import library.dto.SongStatsRow;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import static library.TestDatabaseSupport.albumQueryWith;
+import static library.TestDatabaseSupport.artistQueryWith;
+import static library.TestDatabaseSupport.mapOf;
+import static library.TestDatabaseSupport.songQueryWith;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class KeysetPaginationTest {
+
+    private static final int PAGE_SIZE = 3;
+
+    @Test
+    void cursorPagesMatchOneOffsetReadAcrossTiesNullsAndRealKeys() {
+        try (TestDatabaseSupport db = TestDatabaseSupport.create()) {
+            // Many equal play counts and lengths, so the id tie-breaker decides most page edges
+            db.seedBulkLibrary(8, 2, 1);
+
+            Function<Map<String, Object>, KeysetPage<SongStatsRow>> songs =
+                    values -> db.songRepository.findSongsPageWithStats(songQueryWith(values));
+            Function<Map<String, Object>, KeysetPage<ArtistStatsRow>> artists =
+                    values -> db.artistRepository.findArtistsPageWithStats(artistQueryWith(values));
+            Function<Map<String, Object>, KeysetPage<AlbumStatsRow>> albums =
+                    values -> db.albumRepository.findAlbumsPageWithStats(albumQueryWith(values));
+
+            assertCursorPagesMatchOffsetRead(db, songs, SongStatsRow::id,
+                    mapOf("sortBy", "plays", "sortDirection", "desc"));
+            assertCursorPagesMatchOffsetRead(db, songs, SongStatsRow::id,
+                    mapOf("sortBy", "country", "sortDirection", "asc"));
+            assertCursorPagesMatchOffsetRead(db, songs, SongStatsRow::id,
+                    mapOf("sortBy", "weekly_chart_peak", "sortDirection", "asc"));
+            assertCursorPagesMatchOffsetRead(db, songs, SongStatsRow::id,
+                    mapOf("sortBy", "random", "randomSeed", 42));
+            assertCursorPagesMatchOffsetRead(db, artists, ArtistStatsRow::id,
+                    mapOf("sortBy", "avg_length", "sortDir", "desc"));
+            assertCursorPagesMatchOffsetRead(db, artists, ArtistStatsRow::id,
+                    mapOf("sortBy", "age", "sortDir", "asc", "sortBy2", "genre", "sortDir2", "desc"));
+            assertCursorPagesMatchOffsetRead(db, albums, AlbumStatsRow::id,
+                    mapOf("sortBy", "avg_plays", "sortDir", "asc"));
+            assertCursorPagesMatchOffsetRead(db, albums, AlbumStatsRow::id,
+                    mapOf("sortBy", "release_date", "sortDir", "desc"));
+        }
+    }
+
+    @Test
+    void staleCursorFallsBackToOffsetAndTotalsSurviveAnEmptyPage() {
+        try (TestDatabaseSupport db = TestDatabaseSupport.create()) {
+            db.seedBulkLibrary(8, 2, 1);
+
+            String cursor = db.songRepository.findSongsPageWithStats(songQueryWith(mapOf(
+                    "sortBy", "plays", "sortDirection", "desc", "limit", PAGE_SIZE))).nextCursor();
+            assertThat(cursor).isNotNull();
+
+            // Jumped past the page the cursor resumes at
+            assertThat(songIds(db, mapOf("sortBy", "plays", "sortDirection", "desc",
+                    "limit", PAGE_SIZE, "offset", 2 * PAGE_SIZE, "cursor", cursor)))
+                    .isEqualTo(songIds(db, mapOf("sortBy", "plays", "sortDirection", "desc",
+                            "limit", PAGE_SIZE, "offset", 2 * PAGE_SIZE)));
+            // Sort changed since the cursor was taken
+            assertThat(songIds(db, mapOf("sortBy", "name", "sortDirection", "asc",
+                    "limit", PAGE_SIZE, "offset", PAGE_SIZE, "cursor", cursor)))
+                    .isEqualTo(songIds(db, mapOf("sortBy", "name", "sortDirection", "asc",
+                            "limit", PAGE_SIZE, "offset", PAGE_SIZE)));
+            // Filter changed since the cursor was taken
+            assertThat(songIds(db, mapOf("sortBy", "plays", "sortDirection", "desc", "name", "Bulk",
+                    "limit", PAGE_SIZE, "offset", PAGE_SIZE, "cursor", cursor)))
+                    .isEqualTo(songIds(db, mapOf("sortBy", "plays", "sortDirection", "desc", "name", "Bulk",
+                            "limit", PAGE_SIZE, "offset", PAGE_SIZE)));
+            assertThat(songIds(db, mapOf("limit", PAGE_SIZE, "offset", PAGE_SIZE, "cursor", "not-a-cursor")))
+                    .isEqualTo(songIds(db, mapOf("limit", PAGE_SIZE, "offset", PAGE_SIZE)));
+
+            assertThat(db.songRepository.findSongsPageWithStats(songQueryWith(mapOf(
+                    "sortBy", "random", "limit", PAGE_SIZE))).nextCursor()).isNull();
+
+            // Past the last page there is no row to read the window totals from
+            long songCount = db.songRepository.findSongsPageWithStats(songQueryWith(mapOf("limit", PAGE_SIZE)))
+                    .totals().count();
+            assertThat(db.songRepository.findSongsPageWithStats(songQueryWith(mapOf(
+                    "limit", PAGE_SIZE, "offset", 1000))).totals().count()).isEqualTo(songCount);
+        }
+    }
+
+    private static <R> void assertCursorPagesMatchOffsetRead(TestDatabaseSupport db,
+                                                             Function<Map<String, Object>, KeysetPage<R>> list,
+                                                             Function<R, Integer> id,
+                                                             Map<String, Object> sort) {
+        Map<String, Object> all = new HashMap<>(sort);
+        all.put("limit", 1000);
+        List<Integer> expected = list.apply(all).rows().stream().map(id).toList();
+        assertThat(expected).as("%s", sort).hasSizeGreaterThan(2 * PAGE_SIZE);
+
+        List<Integer> paged = new ArrayList<>();
+        String cursor = null;
+        for (int offset = 0; ; offset += PAGE_SIZE) {
+            Map<String, Object> values = new HashMap<>(sort);
+            values.put("limit", PAGE_SIZE);
+            values.put("offset", offset);
+            values.put("cursor", cursor);
+            List<KeysetPage<R>> page = new ArrayList<>();
+            List<QueryRecorder.Execution> executions = db.record(() -> page.add(list.apply(values)));
+            if (cursor != null) {
+                // Seeks, and reuses the totals counted with the first page
+                assertThat(executions).as("%s at %d", sort, offset)
+                        .noneMatch(execution -> execution.sql() != null
+                                && (execution.sql().contains("OFFSET") || execution.sql().contains("OVER ()")));
+            }
+            assertThat(page.get(0).totals().count()).as("%s at %d", sort, offset).isEqualTo(expected.size());
+            page.get(0).rows().stream().map(id).forEach(paged::add);
+            cursor = page.get(0).nextCursor();
+            if (cursor == null) {
+                break;
+            }
+        }
+        assertThat(paged).as("%s", sort).isEqualTo(expected);
+    }
+
+    private static List<Integer> songIds(TestDatabaseSupport db, Map<String, Object> values) {
+        return db.songRepository.findSongsPageWithStats(songQueryWith(values)).rows().stream()
+                .map(SongStatsRow::id)
+                .toList();
+    }
+}
@@ -0,0 +1,62 @@
+package library;
+
+import library.service.PlayDayIndexService;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PlayDayIndexTest {
+
+    @Test
+    void playDayFollowsInsertsAndPlayDateEdits() {
+        try (TestDatabaseSupport db = TestDatabaseSupport.create()) {
+            assertThat(playDay(db, 1)).isEqualTo(20240101);
+            assertThat(db.jdbcTemplate.queryForObject(
+                    "SELECT COUNT(*) FROM Play WHERE play_date IS NOT NULL AND play_day IS NULL", Integer.class)).isZero();
+
+            db.jdbcTemplate.update("""
+                    INSERT INTO Play (id, artist, album, song, play_date, song_id, account)
+                    VALUES (100, 'Selena', 'Amor Prohibido', 'Bidi Bidi Bom Bom', '2024-12-15 09:00', 1, 'vatito')
+                    """);
+            assertThat(playDay(db, 100)).isEqualTo(20241215);
+
+            db.jdbcTemplate.update("UPDATE Play SET play_date = '2025-01-02 23:59' WHERE id = 100");
+            assertThat(playDay(db, 100)).isEqualTo(20250102);
+        }
+    }
+
+    @Test
+    void generatedColumnIsAddedOnce() {
+        SingleConnectionDataSource dataSource = new SingleConnectionDataSource("jdbc:sqlite::memory:", true);
+        try {
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+            jdbcTemplate.execute("CREATE TABLE Play (id INTEGER PRIMARY KEY, play_date TEXT, song_id INTEGER)");
+            jdbcTemplate.execute("INSERT INTO Play (id, play_date, song_id) VALUES (1, '2024-02-29 23:30', 7)");
+
+            new PlayDayIndexService(jdbcTemplate).initialize();
+            new PlayDayIndexService(jdbcTemplate).initialize();
+
+            // VIRTUAL generated columns are listed as hidden = 2
+            assertThat(jdbcTemplate.queryForObject(
+                    "SELECT hidden FROM pragma_table_xinfo('Play') WHERE name = 'play_day'", Integer.class)).isEqualTo(2);
+            assertThat(jdbcTemplate.queryForObject("SELECT play_day FROM Play WHERE id = 1", Integer.class)).isEqualTo(20240229);
+            assertThat(jdbcTemplate.queryForList("SELECT name FROM sqlite_master WHERE tbl_name = 'Play' ORDER BY name", String.class))
+                    .containsExactly("Play", "idx_play_day_song", "idx_play_song_day");
+        } finally {
+            dataSource.destroy();
+        }
+    }
+
+    @Test
+    void dayNumberMatchesStoredFormat() {
+        assertThat(PlayDayIndexService.toDayNumber(LocalDate.of(2024, 3, 9))).isEqualTo(20240309);
+    }
+
+    private static Integer playDay(TestDatabaseSupport db, int playId) {
+        return db.jdbcTemplate.queryForObject("SELECT play_day FROM Play WHERE id = ?", Integer.class, playId);
+    }
+}
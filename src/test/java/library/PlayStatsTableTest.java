@@ -0,0 +1,92 @@
+package library;
+
+import library.service.PlayDayIndexService;
+import library.service.PlayStatsService;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PlayStatsTableTest {
+
+    private static final List<String> TABLES = List.of("song_play_stats", "album_play_stats", "artist_play_stats");
+
+    @Test
+    void incrementalStatsMatchARebuildAfterPlayAndSongEdits() {
+        try (TestDatabaseSupport db = TestDatabaseSupport.create()) {
+            PlayStatsService service = new PlayStatsService(db.jdbcTemplate, new PlayDayIndexService(db.jdbcTemplate), db.writeQueue);
+
+            // Same song twice on one day, and a new week, month and year for song 1
+            db.jdbcTemplate.update("""
+                    INSERT INTO Play (id, artist, album, song, play_date, song_id, account)
+                    VALUES (100, 'Selena', 'Amor Prohibido', 'Bidi Bidi Bom Bom', '2024-03-01 12:00:00', 1, 'vatito'),
+                           (101, 'Selena', 'Amor Prohibido', 'Bidi Bidi Bom Bom', '2024-03-01 13:00:00', 1, 'robertlover'),
+                           (102, 'Selena', 'Amor Prohibido', 'Bidi Bidi Bom Bom', '2025-12-29 09:00:00', 1, 'vatito')
+                    """);
+            assertMatchesRebuild(db, service);
+
+            db.jdbcTemplate.update("DELETE FROM Play WHERE id IN (1, 101)");
+            assertMatchesRebuild(db, service);
+
+            db.jdbcTemplate.update("UPDATE Play SET play_date = '2019-06-01 08:00:00' WHERE id = 100");
+            db.jdbcTemplate.update("UPDATE Play SET song_id = 3 WHERE id = 102");
+            db.jdbcTemplate.update("UPDATE Play SET account = 'robertlover' WHERE id = 2");
+            assertMatchesRebuild(db, service);
+
+            db.jdbcTemplate.update("UPDATE Song SET length_seconds = 999 WHERE id = 1");
+            db.jdbcTemplate.update("UPDATE Song SET album_id = 1, artist_id = 1 WHERE id = 3");
+            assertMatchesRebuild(db, service);
+
+            Map<String, Object> song = db.jdbcTemplate.queryForMap("SELECT * FROM song_play_stats WHERE song_id = 1");
+            assertThat(song.get("first_listened")).isEqualTo("2019-06-01 08:00:00");
+            assertThat(((Number) song.get("time_listened")).intValue())
+                    .isEqualTo(999 * ((Number) song.get("play_count")).intValue());
+        }
+    }
+
+    @Test
+    void suspendedTriggersAreMadeUpByARecomputeOrRebuild() {
+        try (TestDatabaseSupport db = TestDatabaseSupport.create()) {
+            PlayStatsService service = new PlayStatsService(db.jdbcTemplate, new PlayDayIndexService(db.jdbcTemplate), db.writeQueue);
+
+            // One page of an import: only songs 1 and 3 (and their albums and artists) are recomputed
+            service.runWithTriggersSuspended(Set.of(1, 3), () -> db.jdbcTemplate.update("""
+                    INSERT INTO Play (id, artist, album, song, play_date, song_id, account)
+                    VALUES (100, 'Selena', 'Amor Prohibido', 'Bidi Bidi Bom Bom', '2024-03-01 12:00:00', 1, 'vatito'),
+                           (101, 'Selena', 'Amor Prohibido', 'Bidi Bidi Bom Bom', '2025-12-29 09:00:00', 3, 'robertlover')
+                    """));
+            assertThat(db.jdbcTemplate.queryForObject("SELECT COUNT(*) FROM play_stats_suspended", Integer.class)).isZero();
+            assertMatchesRebuild(db, service);
+
+            // A bulk load: stale until resumed, and a restart finishes a load that never resumed
+            List<Map<String, Object>> before = rows(db, "song_play_stats");
+            service.suspendTriggers();
+            db.jdbcTemplate.update("""
+                    INSERT INTO Play (id, artist, album, song, play_date, song_id, account)
+                    VALUES (102, 'Selena', 'Amor Prohibido', 'Bidi Bidi Bom Bom', '2019-06-01 08:00:00', 1, 'vatito')
+                    """);
+            db.jdbcTemplate.update("DELETE FROM Play WHERE id = 2");
+            assertThat(rows(db, "song_play_stats")).isEqualTo(before);
+
+            new PlayStatsService(db.jdbcTemplate, new PlayDayIndexService(db.jdbcTemplate), db.writeQueue).initialize();
+            assertThat(db.jdbcTemplate.queryForObject("SELECT COUNT(*) FROM play_stats_suspended", Integer.class)).isZero();
+            assertThat(rows(db, "song_play_stats")).isNotEqualTo(before);
+            assertMatchesRebuild(db, service);
+        }
+    }
+
+    private static void assertMatchesRebuild(TestDatabaseSupport db, PlayStatsService service) {
+        List<List<Map<String, Object>>> incremental = TABLES.stream().map(table -> rows(db, table)).toList();
+        service.rebuild();
+        for (int i = 0; i < TABLES.size(); i++) {
+            assertThat(incremental.get(i)).as(TABLES.get(i)).isEqualTo(rows(db, TABLES.get(i)));
+        }
+    }
+
+    private static List<Map<String, Object>> rows(TestDatabaseSupport db, String table) {
+        return db.jdbcTemplate.queryForList("SELECT * FROM " + table + " ORDER BY 1");
+    }
+}
@@ -0,0 +1,25 @@
+package library;
+
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Statement and time budget for every call a test wraps in {@link TestDatabaseSupport#measure}.
+ *
+ * A measured call that runs more than {@code statements} JDBC statements, or takes longer than
+ * {@code millis} on the test's fixture, fails the test with the most repeated statements listed,
+ * so a change that turns one query into one per row breaks the build instead of a page.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@ExtendWith(QueryBudgetExtension.class)
+@interface QueryBudget {
+
+    int statements();
+
+    long millis() default 2000;
+}
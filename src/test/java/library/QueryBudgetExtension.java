@@ -0,0 +1,61 @@
+package library;
+
+import org.junit.jupiter.api.extension.AfterEachCallback;
+import org.junit.jupiter.api.extension.BeforeEachCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.junit.platform.commons.support.AnnotationSupport;
+
+/**
+ * Applies a test method's {@link QueryBudget} to the calls it measures through
+ * {@link TestDatabaseSupport#measure}. A budgeted test that measures nothing fails too, so a
+ * budget can't silently stop guarding anything.
+ */
+final class QueryBudgetExtension implements BeforeEachCallback, AfterEachCallback {
+
+    private static final ThreadLocal<ActiveBudget> ACTIVE = new ThreadLocal<>();
+
+    private static final class ActiveBudget {
+
+        private final QueryBudget budget;
+        private int measuredCalls;
+
+        private ActiveBudget(QueryBudget budget) {
+            this.budget = budget;
+        }
+    }
+
+    @Override
+    public void beforeEach(ExtensionContext context) {
+        AnnotationSupport.findAnnotation(context.getRequiredTestMethod(), QueryBudget.class)
+                .ifPresent(budget -> ACTIVE.set(new ActiveBudget(budget)));
+    }
+
+    @Override
+    public void afterEach(ExtensionContext context) {
+        ActiveBudget active = ACTIVE.get();
+        ACTIVE.remove();
+        if (active != null && active.measuredCalls == 0 && context.getExecutionException().isEmpty()) {
+            throw new AssertionError("@QueryBudget test measured no calls; wrap the budgeted call in db.measure(...)");
+        }
+    }
+
+    /**
+     * Fails when measurement exceeds the current test's budget. Does nothing outside budgeted tests.
+     */
+    static void check(String label, QueryRecorder.Measurement measurement) {
+        ActiveBudget active = ACTIVE.get();
+        if (active == null) {
+            return;
+        }
+        active.measuredCalls++;
+        QueryBudget budget = active.budget;
+        if (measurement.statements() > budget.statements()) {
+            throw new AssertionError("%s ran %d statements, budget is %d. Most repeated:%n%s".formatted(
+                    label, measurement.statements(), budget.statements(), measurement.mostRepeated(5)));
+        }
+        if (measurement.millis() > budget.millis()) {
+            throw new AssertionError("%s took %d ms, budget is %d ms (%d statements). Most repeated:%n%s".formatted(
+                    label, measurement.millis(), budget.millis(), measurement.statements(), measurement.mostRepeated(5)));
+        }
+    }
+}
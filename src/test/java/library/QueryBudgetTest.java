@@ -0,0 +1,152 @@
+package library;
+
+import library.dto.ChartEntryDTO;
+import library.entity.Chart;
+import library.repository.ChartEntryRepository;
+import library.repository.ChartRepository;
+import library.repository.LookupRepository;
+import library.repository.SongImageRepository;
+import library.service.AppConfigService;
+import library.service.ChartRunStatsService;
+import library.service.ChartService;
+import library.service.ImageThumbnailService;
+import library.service.ItunesService;
+import library.service.SongAttributeIndexService;
+import library.service.SongLinkService;
+import library.service.SongService;
+import library.service.WeeklyChartBackfillService;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import static library.TestDatabaseSupport.albumQuery;
+import static library.TestDatabaseSupport.artistQuery;
+import static library.TestDatabaseSupport.songQuery;
+import static library.TestDatabaseSupport.songQueryWithExpensiveStats;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Statement budgets for the key pages on a bulk fixture (200 artists, 1,000 songs, 10,000
+ * plays), where one query per row would cost hundreds of statements.
+ */
+class QueryBudgetTest {
+
+    @Test
+    @QueryBudget(statements = 1)
+    void catalogListPagesAreOneQueryEach() {
+        try (TestDatabaseSupport db = TestDatabaseSupport.create()) {
+            db.seedBulkLibrary(200, 5, 10);
+
+            assertThat(db.measure("song list", () -> db.songRepository.findSongsWithStats(songQuery("plays", "desc"))))
+                    .hasSize(100);
+            assertThat(db.measure("song list with expensive stats",
+                    () -> db.songRepository.findSongsWithStats(songQueryWithExpensiveStats("plays", "desc"))))
+                    .hasSize(100);
+            assertThat(db.measure("artist list", () -> db.artistRepository.findArtistsWithStats(artistQuery("plays", "desc"))))
+                    .hasSize(100);
+            assertThat(db.measure("album list", () -> db.albumRepository.findAlbumsWithStats(albumQuery("plays", "desc"))))
+                    .hasSize(100);
+        }
+    }
+
+    @Test
+    @QueryBudget(statements = 3)
+    void weeklyChartWithStatsDoesNotQueryPerEntry() {
+        try (TestDatabaseSupport db = TestDatabaseSupport.create()) {
+            db.seedBulkLibrary(200, 5, 10);
+            ChartRunStatsService chartRunStatsService = new ChartRunStatsService(db.jdbcTemplate);
+            chartRunStatsService.initialize();
+            SongLinkService songLinkService = new SongLinkService(db.jdbcTemplate, db.writeQueue);
+            songLinkService.initialize();
+            List<Integer> topTwo = db.jdbcTemplate.queryForList(
+                    "SELECT song_id FROM ChartEntry WHERE chart_id = 1005 AND position <= 2 ORDER BY position", Integer.class);
+            songLinkService.saveLinkedSongs(topTwo.get(0), List.of(topTwo.get(1)));
+
+            ChartRepository chartRepository = mock(ChartRepository.class);
+            ChartEntryRepository chartEntryRepository = mock(ChartEntryRepository.class);
+            when(chartRepository.findByChartTypeAndPeriodKey("song", "2023-W05")).thenReturn(Optional.of(chart(1005, "2023-01-30")));
+            when(chartRepository.findPreviousChart("song", "2023-W05")).thenReturn(Optional.of(chart(1004, "2023-01-23")));
+            when(chartEntryRepository.findEntriesWithSongDetailsRaw(1005)).thenReturn(entriesWithSongDetails(db, 1005));
+            when(chartEntryRepository.findEntriesWithSongDetailsRaw(1004)).thenReturn(entriesWithSongDetails(db, 1004));
+            AppConfigService appConfigService = mock(AppConfigService.class);
+            when(appConfigService.isCombineLinkedSongsEnabled()).thenReturn(true);
+            ChartService chartService = new ChartService(chartRepository, chartEntryRepository, db.jdbcTemplate,
+                    mock(ItunesService.class), appConfigService, songLinkService, mock(WeeklyChartBackfillService.class),
+                    chartRunStatsService, db.writeQueue);
+
+            List<ChartEntryDTO> chart = db.measure("weekly chart with stats",
+                    () -> chartService.getWeeklyChartWithStats("2023-W05"));
+
+            assertThat(chart).hasSize(20);
+            assertThat(chart.get(0).getPlayBreakdownItems()).hasSize(2);
+            assertThat(chart.get(2).getPlayBreakdownItems()).isEmpty();
+        }
+    }
+
+    @Test
+    @QueryBudget(statements = 10)
+    void songDetailStatsUseOneQueryPerSection() {
+        try (TestDatabaseSupport db = TestDatabaseSupport.create()) {
+            db.seedBulkLibrary(200, 5, 10);
+            AppConfigService appConfigService = mock(AppConfigService.class);
+            when(appConfigService.isCombineLinkedSongsEnabled()).thenReturn(false);
+            SongService songService = new SongService(db.songRepository, mock(SongImageRepository.class),
+                    new LookupRepository(db.jdbcTemplate), db.jdbcTemplate, mock(ItunesService.class), appConfigService,
+                    mock(SongLinkService.class), mock(ImageThumbnailService.class),
+                    mock(SongAttributeIndexService.class));
+            ChartService chartService = new ChartService(mock(ChartRepository.class), mock(ChartEntryRepository.class),
+                    db.jdbcTemplate, mock(ItunesService.class), appConfigService, mock(SongLinkService.class),
+                    mock(WeeklyChartBackfillService.class), mock(ChartRunStatsService.class), db.writeQueue);
+            int songId = db.jdbcTemplate.queryForObject(
+                    "SELECT song_id FROM ChartEntry WHERE chart_id = 1001 AND position = 1", Integer.class);
+
+            List<Object> stats = db.measure("song detail stats", () -> Arrays.asList(
+                    songService.getPlaysByYearForSong(songId),
+                    songService.getPlaysByMonthForSong(songId),
+                    songService.getAllSongRankings(songId),
+                    songService.getSongRanksByYear(songId),
+                    songService.getSongOverallPosition(songId),
+                    songService.getSongRankByReleaseYear(songId),
+                    songService.getSongReleaseYear(songId),
+                    songService.getSongRankByArtist(songId),
+                    songService.getSongRankByAlbum(songId),
+                    chartService.getSongWeeklyChartStats(songId)));
+
+            assertThat((List<?>) stats.get(0)).isNotEmpty();
+            assertThat(stats.get(9)).isNotNull();
+        }
+    }
+
+    private static Chart chart(int id, String periodStartDate) {
+        Chart chart = new Chart();
+        chart.setId(id);
+        chart.setPeriodStartDate(periodStartDate);
+        return chart;
+    }
+
+    /**
+     * The rows ChartEntryRepository.findEntriesWithSongDetailsRaw returns, in its column order.
+     */
+    private static List<Object[]> entriesWithSongDetails(TestDatabaseSupport db, int chartId) {
+        return db.jdbcTemplate.query("""
+                SELECT ce.id, ce.chart_id, ce.position, ce.song_id, s.album_id, ce.play_count,
+                       s.name, a.name, 0, a.id, al.name, a.gender_id, 0, NULL
+                FROM ChartEntry ce
+                JOIN Song s ON ce.song_id = s.id
+                JOIN Artist a ON s.artist_id = a.id
+                LEFT JOIN Album al ON al.id = s.album_id
+                WHERE ce.chart_id = ?
+                ORDER BY ce.position
+                """, (rs, rowNum) -> {
+            Object[] row = new Object[14];
+            for (int i = 0; i < row.length; i++) {
+                row[i] = rs.getObject(i + 1);
+            }
+            return row;
+        }, chartId);
+    }
+}
@@ -0,0 +1,152 @@
+package library;
+
+import library.dto.GenderCardDTO;
+import library.dto.GenreCardDTO;
+import library.repository.ChartEntryRepository;
+import library.repository.ChartRepository;
+import library.service.AppConfigService;
+import library.service.CatalogWinningPeriodService;
+import library.service.CatalogWinningPeriodService.CatalogAttribute;
+import library.service.ChartRunStatsService;
+import library.service.ChartService;
+import library.service.ItunesService;
+import library.service.SongLinkService;
+import library.service.TimeframeService;
+import library.service.WeeklyChartBackfillService;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static library.TestDatabaseSupport.mapOf;
+import static library.TestDatabaseSupport.songQuery;
+import static library.TestDatabaseSupport.songQueryWith;
+import static library.TestDatabaseSupport.songQueryWithExpensiveStats;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Query plans for the heaviest SQL, on the bulk fixture with the production performance indexes
+ * applied. Snapshots live in src/test/resources/query-plans; see {@link QueryPlans}.
+ */
+class QueryPlanSnapshotTest {
+
+    @Test
+    void timeframePlans() {
+        try (TestDatabaseSupport db = indexedDatabase()) {
+            assertPlans(db, "timeframe-months", () -> timeframes(db, mapOf("periodType", "months")));
+            assertPlans(db, "timeframe-weeks-winning-gender", () -> timeframes(db, mapOf(
+                    "periodType", "weeks",
+                    "winningGender", List.of(2), "winningGenderMode", "includes")));
+            assertPlans(db, "timeframe-days-date-range", () -> timeframes(db, mapOf(
+                    "periodType", "days",
+                    "dateFrom", "09/01/2023", "dateTo", "22/01/2023",
+                    "playsMin", 5)));
+            assertPlans(db, "timeframe-years-male-share", () -> timeframes(db, mapOf(
+                    "periodType", "years",
+                    "malePlayPctMin", 40.0,
+                    "sortBy", "artists", "sortDir", "asc")));
+        }
+    }
+
+    @Test
+    void chartPreviewPlans() {
+        try (TestDatabaseSupport db = indexedDatabase()) {
+            ChartService service = chartService(db);
+
+            assertPlans(db, "chart-preview-song-week", () -> service.getWeeklySongChartPreview("2023-W06"));
+            assertPlans(db, "chart-preview-album-week", () -> service.getWeeklyAlbumChartPreview("2023-W06"));
+        }
+    }
+
+    @Test
+    void winningCountPlans() {
+        try (TestDatabaseSupport db = indexedDatabase()) {
+            CatalogWinningPeriodService service = db.catalogWinningPeriodService();
+
+            assertPlans(db, "winning-counts-gender", () -> service.populateWinningCounts(
+                    genders(), GenderCardDTO::getId, CatalogAttribute.GENDER));
+            assertPlans(db, "winning-counts-genre", () -> service.populateWinningCounts(
+                    genres(), GenreCardDTO::getId, CatalogAttribute.GENRE));
+        }
+    }
+
+    @Test
+    void songListPlans() {
+        try (TestDatabaseSupport db = indexedDatabase()) {
+            assertPlans(db, "song-list-plays", () -> db.songRepository.findSongsWithStats(songQuery("plays", "desc")));
+            assertPlans(db, "song-list-expensive-stats",
+                    () -> db.songRepository.findSongsWithStats(songQueryWithExpensiveStats("name", "asc")));
+            assertPlans(db, "song-list-gender-account-dates", () -> db.songRepository.findSongsWithStats(songQueryWith(mapOf(
+                    "genderIds", List.of(2), "genderMode", "includes",
+                    "accounts", List.of("vatito"), "accountMode", "includes",
+                    "listenedDateFrom", "2023-01-09", "listenedDateTo", "2023-01-22",
+                    "sortBy", "plays", "sortDirection", "desc"))));
+        }
+    }
+
+    private static TestDatabaseSupport indexedDatabase() {
+        TestDatabaseSupport db = TestDatabaseSupport.create();
+        db.seedBulkLibrary(200, 5, 10);
+        db.applyPerformanceIndexes();
+        return db;
+    }
+
+    private static void assertPlans(TestDatabaseSupport db, String name, Runnable call) {
+        QueryPlans.assertMatchesSnapshot(name, QueryPlans.explain(db.jdbcTemplate, db.record(call)));
+    }
+
+    private static List<GenderCardDTO> genders() {
+        return List.of(1, 2, 3).stream().map(id -> {
+            GenderCardDTO gender = new GenderCardDTO();
+            gender.setId(id);
+            return gender;
+        }).toList();
+    }
+
+    private static List<GenreCardDTO> genres() {
+        return List.of(1, 2, 3).stream().map(id -> {
+            GenreCardDTO genre = new GenreCardDTO();
+            genre.setId(id);
+            return genre;
+        }).toList();
+    }
+
+    private static ChartService chartService(TestDatabaseSupport db) {
+        AppConfigService appConfigService = mock(AppConfigService.class);
+        when(appConfigService.isCombineLinkedSongsEnabled()).thenReturn(false);
+
+        return new ChartService(
+                mock(ChartRepository.class),
+                mock(ChartEntryRepository.class),
+                db.jdbcTemplate,
+                mock(ItunesService.class),
+                appConfigService,
+                mock(SongLinkService.class),
+                mock(WeeklyChartBackfillService.class),
+                mock(ChartRunStatsService.class),
+                db.writeQueue);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void timeframes(TestDatabaseSupport db, Map<String, Object> overrides) {
+        TimeframeService service = new TimeframeService(db.jdbcTemplate, db.songPeriodCountService);
+        String periodType = (String) overrides.get("periodType");
+        String sortBy = (String) overrides.getOrDefault("sortBy", "plays");
+        String sortDir = (String) overrides.getOrDefault("sortDir", "desc");
+
+        service.getTimeframeCardsWithCount(
+                periodType,
+                (List<Integer>) overrides.get("winningGender"), (String) overrides.get("winningGenderMode"),
+                null, null, null, null, null, null, null, null,
+                null, null, null, null, null, null,
+                (Integer) overrides.get("playsMin"), null,
+                null, null,
+                null, null, null, null, null, null,
+                (Double) overrides.get("malePlayPctMin"), null,
+                null, null,
+                (String) overrides.get("dateFrom"), (String) overrides.get("dateTo"),
+                null, null,
+                sortBy, sortDir, 0, 20);
+    }
+}
@@ -0,0 +1,178 @@
+package library;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * EXPLAIN QUERY PLAN snapshots for recorded statements, checked in under
+ * src/test/resources/query-plans.
+ *
+ * Each snapshot lists the plan tree of every query a call ran, in execution order. Full scans
+ * of Play are marked in the snapshot, and a marked line the snapshot doesn't already have fails
+ * the test on its own, so an index that stops being used is called out by name. Snapshots are
+ * only written with -DqueryPlans.update=true, which records new snapshots and accepts plan
+ * changes; a missing snapshot fails like a changed one.
+ */
+final class QueryPlans {
+
+    static final Path SNAPSHOT_DIR = Path.of("src", "test", "resources", "query-plans");
+    static final String FULL_PLAY_SCAN = "  <-- full Play scan";
+
+    private static final boolean UPDATE = Boolean.getBoolean("queryPlans.update");
+    private static final Pattern PLAY_ALIAS = Pattern.compile("\\bPlay\\s+(?:AS\\s+)?(\\w+)", Pattern.CASE_INSENSITIVE);
+    private static final Pattern FULL_SCAN = Pattern.compile("^SCAN (?:TABLE )?(\\w+)(?: AS \\w+)?$");
+    private static final Set<String> NOT_ALIASES = Set.of(
+            "where", "join", "inner", "left", "cross", "natural", "on", "using", "group", "order",
+            "limit", "union", "except", "intersect", "window", "having", "set", "values", "indexed", "not");
+
+    private QueryPlans() {
+    }
+
+    /**
+     * The plan tree of every SELECT (or WITH ... SELECT) in executions, explained with the
+     * parameters it was run with.
+     */
+    static String explain(JdbcTemplate jdbcTemplate, List<QueryRecorder.Execution> executions) {
+        StringBuilder plans = new StringBuilder();
+        int statement = 0;
+        for (QueryRecorder.Execution execution : executions) {
+            String sql = execution.sql();
+            if (sql == null || !isQuery(sql)) {
+                continue;
+            }
+            statement++;
+            plans.append("-- statement ").append(statement).append('\n');
+            Set<String> playNames = playNames(sql);
+            Map<Integer, Integer> depths = new HashMap<>();
+            jdbcTemplate.query("EXPLAIN QUERY PLAN " + sql, rs -> {
+                int id = rs.getInt(1);
+                int depth = depths.getOrDefault(rs.getInt(2), -1) + 1;
+                depths.put(id, depth);
+                String detail = rs.getString(4);
+                plans.append("  ".repeat(depth)).append(detail);
+                if (isFullScanOf(detail, playNames)) {
+                    plans.append(FULL_PLAY_SCAN);
+                }
+                plans.append('\n');
+            }, execution.parameters().toArray());
+        }
+        return plans.toString();
+    }
+
+    /**
+     * Compares plans with the snapshot called name, or writes it when -DqueryPlans.update=true
+     * is set.
+     */
+    static void assertMatchesSnapshot(String name, String plans) {
+        Path file = SNAPSHOT_DIR.resolve(name + ".txt");
+        if (UPDATE) {
+            write(file, plans);
+            return;
+        }
+        if (!Files.exists(file)) {
+            throw new AssertionError("%s: no query plan snapshot at %s%nPlans:%n%sRun with -DqueryPlans.update=true to record it."
+                    .formatted(name, file, plans));
+        }
+
+        String expected = read(file);
+        List<String> newScans = newFullPlayScans(expected, plans);
+        if (!newScans.isEmpty()) {
+            throw new AssertionError("%s: new full scan of Play (was an index dropped or a predicate made unindexable?)%n  %s%nPlans:%n%sRun with -DqueryPlans.update=true to accept."
+                    .formatted(name, String.join("\n  ", newScans), plans));
+        }
+        if (!expected.equals(plans)) {
+            throw new AssertionError("%s: query plan differs from %s at %s%nPlans:%n%sRun with -DqueryPlans.update=true to accept."
+                    .formatted(name, file, firstDifference(expected, plans), plans));
+        }
+    }
+
+    private static boolean isQuery(String sql) {
+        String start = sql.stripLeading().toLowerCase(Locale.ROOT);
+        return start.startsWith("select") || start.startsWith("with");
+    }
+
+    /**
+     * The names Play goes by in sql: the table itself plus every alias it is given.
+     */
+    private static Set<String> playNames(String sql) {
+        Set<String> names = new HashSet<>();
+        names.add("play");
+        Matcher matcher = PLAY_ALIAS.matcher(sql);
+        while (matcher.find()) {
+            String alias = matcher.group(1).toLowerCase(Locale.ROOT);
+            if (!NOT_ALIASES.contains(alias)) {
+                names.add(alias);
+            }
+        }
+        return names;
+    }
+
+    private static boolean isFullScanOf(String detail, Set<String> playNames) {
+        Matcher matcher = FULL_SCAN.matcher(detail);
+        if (!matcher.matches()) {
+            return false;
+        }
+        return playNames.contains(matcher.group(1).toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * Marked scan lines in actual beyond the number of identical lines already in expected.
+     */
+    private static List<String> newFullPlayScans(String expected, String actual) {
+        Map<String, Integer> accepted = new HashMap<>();
+        expected.lines().filter(line -> line.endsWith(FULL_PLAY_SCAN))
+                .forEach(line -> accepted.merge(line.strip(), 1, Integer::sum));
+        List<String> added = new ArrayList<>();
+        actual.lines().filter(line -> line.endsWith(FULL_PLAY_SCAN)).forEach(line -> {
+            String key = line.strip();
+            if (accepted.merge(key, -1, Integer::sum) < 0) {
+                added.add(key);
+            }
+        });
+        return added;
+    }
+
+    private static String firstDifference(String expected, String actual) {
+        List<String> expectedLines = expected.lines().toList();
+        List<String> actualLines = actual.lines().toList();
+        int line = 0;
+        while (line < expectedLines.size() && line < actualLines.size()
+                && expectedLines.get(line).equals(actualLines.get(line))) {
+            line++;
+        }
+        return "line %d%n  expected: %s%n  actual:   %s".formatted(line + 1,
+                line < expectedLines.size() ? expectedLines.get(line) : "<end>",
+                line < actualLines.size() ? actualLines.get(line) : "<end>");
+    }
+
+    private static String read(Path file) {
+        try {
+            // Checkouts with autocrlf turn the snapshot's line endings into CRLF
+            return Files.readString(file).replace("\r\n", "\n");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void write(Path file, String plans) {
+        try {
+            Files.createDirectories(file.getParent());
+            Files.writeString(file, plans);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
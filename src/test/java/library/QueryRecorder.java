@@ -0,0 +1,137 @@
+package library;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * Wraps a DataSource so every statement executed through it (JdbcTemplate queries and updates,
+ * ConnectionCallbacks, batches) is recorded with its SQL, bound parameters and elapsed time
+ * while a measurement is running.
+ */
+final class QueryRecorder {
+
+    record Execution(String sql, List<Object> parameters, long nanos) {}
+
+    record Measurement(List<Execution> executions, long elapsedNanos) {
+
+        int statements() {
+            return executions.size();
+        }
+
+        long millis() {
+            return elapsedNanos / 1_000_000;
+        }
+
+        /**
+         * The most frequently executed statements, for failure messages ("40x SELECT ...").
+         */
+        String mostRepeated(int limit) {
+            Map<String, Long> counts = executions.stream()
+                    .collect(Collectors.groupingBy(execution -> normalize(execution.sql()), Collectors.counting()));
+            return counts.entrySet().stream()
+                    .sorted(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder()))
+                    .limit(limit)
+                    .map(entry -> entry.getValue() + "x " + abbreviate(entry.getKey()))
+                    .collect(Collectors.joining("\n  ", "  ", ""));
+        }
+
+        private static String normalize(String sql) {
+            return sql == null ? "<batch>" : sql.replaceAll("\\s+", " ").trim();
+        }
+
+        private static String abbreviate(String sql) {
+            return sql.length() <= 160 ? sql : sql.substring(0, 157) + "...";
+        }
+    }
+
+    private final List<Execution> executions = new ArrayList<>();
+    private boolean recording;
+
+    DataSource wrap(DataSource target) {
+        return new DelegatingDataSource(target) {
+            @Override
+            public Connection getConnection() throws SQLException {
+                return recordingConnection(super.getConnection());
+            }
+
+            @Override
+            public Connection getConnection(String username, String password) throws SQLException {
+                return recordingConnection(super.getConnection(username, password));
+            }
+        };
+    }
+
+    void start() {
+        executions.clear();
+        recording = true;
+    }
+
+    Measurement stop(long elapsedNanos) {
+        recording = false;
+        Measurement measurement = new Measurement(List.copyOf(executions), elapsedNanos);
+        executions.clear();
+        return measurement;
+    }
+
+    private Connection recordingConnection(Connection connection) {
+        return proxy(Connection.class, (proxy, method, args) -> {
+            Object result = invoke(connection, method, args);
+            return switch (method.getName()) {
+                case "createStatement" -> recordingStatement(Statement.class, (Statement) result, null);
+                case "prepareStatement" -> recordingStatement(PreparedStatement.class, (PreparedStatement) result, (String) args[0]);
+                case "prepareCall" -> recordingStatement(CallableStatement.class, (CallableStatement) result, (String) args[0]);
+                default -> result;
+            };
+        });
+    }
+
+    private <S extends Statement> S recordingStatement(Class<S> type, S statement, String preparedSql) {
+        Map<Integer, Object> parameters = new TreeMap<>();
+        return proxy(type, (proxy, method, args) -> {
+            String name = method.getName();
+            if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer index) {
+                parameters.put(index, name.equals("setNull") ? null : args[1]);
+            } else if (name.equals("clearParameters")) {
+                parameters.clear();
+            }
+            if (!recording || !name.startsWith("execute")) {
+                return invoke(statement, method, args);
+            }
+            String sql = args != null && args.length > 0 && args[0] instanceof String text ? text : preparedSql;
+            long start = System.nanoTime();
+            try {
+                return invoke(statement, method, args);
+            } finally {
+                executions.add(new Execution(sql, new ArrayList<>(parameters.values()), System.nanoTime() - start));
+            }
+        });
+    }
+
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return type.cast(Proxy.newProxyInstance(QueryRecorder.class.getClassLoader(), new Class<?>[] {type}, handler));
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package library;
+
+import library.dto.ItunesIdSource;
+import library.dto.SongStatsQuery;
+import library.dto.SongStatsRow;
+import library.service.SongAttributeIndexService;
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+
+import static library.TestDatabaseSupport.mapOf;
+import static library.TestDatabaseSupport.songQueryWith;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SongAttributeIndexTest {
+
+    private static final List<Map<String, Object>> FILTERS = List.of(
+            mapOf("genreIds", List.of(1), "genreMode", "includes"),
+            mapOf("genreIds", List.of(2, 3), "genreMode", "excludes"),
+            mapOf("genreMode", "isnull"),
+            mapOf("subgenreIds", List.of(3), "subgenreMode", "includes"),
+            mapOf("languageIds", List.of(2), "languageMode", "excludes"),
+            mapOf("languageMode", "isnotnull"),
+            mapOf("genderIds", List.of(2), "genderMode", "includes"),
+            mapOf("genderIds", List.of(2), "genderMode", "excludes"),
+            mapOf("genderMode", "isnull"),
+            mapOf("ethnicityIds", List.of(1), "ethnicityMode", "excludes"),
+            mapOf("countries", List.of("Mexico"), "countryMode", "includes"),
+            mapOf("countries", List.of("Mexico"), "countryMode", "excludes"),
+            mapOf("tagIds", List.of(10, 20), "tagMode", "includes"),
+            mapOf("tagIds", List.of(20), "tagMode", "excludes"),
+            mapOf("tagMode", "isnull"),
+            mapOf("isBand", "false", "isSingle", "true"),
+            mapOf("isBand", "true"),
+            mapOf("itunesIds", ItunesIdSource.json("[1, 4, 8]"), "inItunes", "false", "genreIds", List.of(1, 2), "genreMode", "includes"),
+            mapOf("genderIds", List.of(1), "genderMode", "includes", "countries", List.of("Mexico"), "countryMode", "excludes",
+                    "languageIds", List.of(1), "languageMode", "includes"));
+
+    @Test
+    void bitmapSelectionMatchesTheSqlFilterAcrossEdits() {
+        try (TestDatabaseSupport db = TestDatabaseSupport.create()) {
+            SongAttributeIndexService index = new SongAttributeIndexService(db.jdbcTemplate, db.writeQueue);
+            index.initialize();
+            assertSelectionsMatchSql(db, index);
+
+            db.jdbcTemplate.update("UPDATE Song SET override_gender_id = 1, override_genre_id = 2 WHERE id = 5");
+            db.jdbcTemplate.update("UPDATE Album SET override_genre_id = NULL, override_language_id = 2 WHERE id = 1");
+            db.jdbcTemplate.update("UPDATE Artist SET country = NULL, is_band = 1 WHERE id = 2");
+            db.jdbcTemplate.update("INSERT INTO SongTag (song_id, tag_id) VALUES (6, 20)");
+            db.jdbcTemplate.update("DELETE FROM SongTag WHERE song_id = 1");
+            assertSelectionsMatchSql(db, index);
+
+            db.jdbcTemplate.update("""
+                    INSERT INTO Song (id, artist_id, album_id, name, is_single, override_language_id)
+                    VALUES (9, 4, NULL, 'Guest Spot', 1, 2)
+                    """);
+            db.jdbcTemplate.update("UPDATE Song SET artist_id = 6, album_id = NULL WHERE id = 3");
+            db.jdbcTemplate.update("DELETE FROM Song WHERE id = 7");
+            assertSelectionsMatchSql(db, index);
+            // Lookups leave the log alone; applied changes are pruned in the background
+            assertThat(db.jdbcTemplate.queryForObject("SELECT COUNT(*) FROM song_attribute_change", Integer.class))
+                    .isPositive();
+            index.pruneAppliedChanges();
+            assertThat(db.jdbcTemplate.queryForObject("SELECT COUNT(*) FROM song_attribute_change", Integer.class))
+                    .isZero();
+
+            // A restart starts from a full build and an emptied change log
+            SongAttributeIndexService restarted = new SongAttributeIndexService(db.jdbcTemplate, db.writeQueue);
+            restarted.initialize();
+            assertThat(db.jdbcTemplate.queryForObject("SELECT COUNT(*) FROM song_attribute_change", Integer.class))
+                    .isZero();
+            assertSelectionsMatchSql(db, restarted);
+        }
+    }
+
+    @Test
+    void onlyNarrowSelectionsArePassedToTheListQuery() {
+        try (TestDatabaseSupport db = TestDatabaseSupport.create()) {
+            SongAttributeIndexService index = new SongAttributeIndexService(db.jdbcTemplate, db.writeQueue);
+            index.initialize();
+
+            assertThat(index.preselect(select(index, songQueryWith(mapOf())))).isNull();
+            assertThat(index.preselect(select(index, songQueryWith(mapOf("isBand", "false"))))).isNull();
+            assertThat(index.preselect(select(index, songQueryWith(mapOf("isBand", "true"))))).containsExactly(6);
+            assertThat(index.preselect(select(index, songQueryWith(mapOf(
+                    "countries", List.of("Mexico"), "countryMode", "includes", "isBand", "true"))))).isEmpty();
+
+            assertThat(db.songRepository.findSongsPageWithStats(songQueryWith(mapOf(
+                    "songIdsFilter", List.of(6, 8), "genreIds", List.of(2), "genreMode", "includes")))
+                    .rows().stream().map(SongStatsRow::id).toList()).containsExactly(8, 6);
+        }
+    }
+
+    private static void assertSelectionsMatchSql(TestDatabaseSupport db, SongAttributeIndexService index) {
+        for (Map<String, Object> filter : FILTERS) {
+            SongStatsQuery query = songQueryWith(filter);
+            List<Integer> expected = db.songRepository.findSongsWithStats(query).stream()
+                    .map(SongStatsRow::id)
+                    .sorted()
+                    .toList();
+            assertThat(select(index, query).stream().boxed().toList()).as("%s", filter).isEqualTo(expected);
+        }
+    }
+
+    private static BitSet select(SongAttributeIndexService index, SongStatsQuery query) {
+        return index.select(query.genreIds(), query.genreMode(), query.subgenreIds(), query.subgenreMode(),
+                query.languageIds(), query.languageMode(), query.genderIds(), query.genderMode(),
+                query.ethnicityIds(), query.ethnicityMode(), query.countries(), query.countryMode(),
+                query.tagIds(), query.tagMode(), query.isBand(), query.isSingle(),
+                query.itunesIds(), query.inItunes());
+    }
+}
@@ -0,0 +1,57 @@
+package library;
+
+import library.service.SongCandidateService;
+import library.service.SongMatchIndexService;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SongCandidateTest {
+
+    @Test
+    void suggestionsTolerateTyposAndFollowCatalogChanges() {
+        try (TestDatabaseSupport db = TestDatabaseSupport.create()) {
+            SongMatchIndexService songMatchIndexService = new SongMatchIndexService(db.jdbcTemplate, db.writeQueue);
+            songMatchIndexService.initialize();
+            SongCandidateService candidates = new SongCandidateService(db.jdbcTemplate, songMatchIndexService);
+
+            assertThat(songIds(candidates.suggest("Bad Buny", "Titi Me Pregunta", 3))).first().isEqualTo(3);
+            assertThat(songIds(candidates.suggest("Selena y Los Dinos", "Bidi Bidi Bom Bom (Live)", 3))).first().isEqualTo(1);
+            assertThat(songIds(candidates.search("bunny ojitos", 3))).first().isEqualTo(4);
+            assertThat(candidates.suggest("Selena", "", 3)).isEmpty();
+
+            db.jdbcTemplate.update("UPDATE Song SET name = 'Como La Flor' WHERE id = 5");
+
+            assertThat(songIds(candidates.suggest("Selena", "Como la Flor", 3))).first().isEqualTo(5);
+            assertThat(songIds(candidates.suggest("Selena", "Standalone Jam", 3))).doesNotContain(5);
+        }
+    }
+
+    @Test
+    void matchSearchKeepsShortQueriesInsideLongTitles() {
+        try (TestDatabaseSupport db = TestDatabaseSupport.create()) {
+            SongMatchIndexService songMatchIndexService = new SongMatchIndexService(db.jdbcTemplate, db.writeQueue);
+            songMatchIndexService.initialize();
+            SongCandidateService candidates = new SongCandidateService(db.jdbcTemplate, songMatchIndexService);
+            db.jdbcTemplate.update("""
+                    INSERT INTO Song (id, artist_id, album_id, name)
+                    VALUES (9, 6, 5, 'Cancion Del Mariachi Que Nunca Volvio A Tocar En La Plaza Mayor (Remasterizada)')
+                    """);
+
+            // Too few shared trigrams with the long row to pass the similarity cutoff on their own
+            assertThat(songIds(candidates.search("plaza", 10))).doesNotContain(9);
+            assertThat(candidates.searchForMatch("plaza", 10))
+                    .extracting(row -> row.get("id"))
+                    .contains(9);
+            assertThat(candidates.searchForMatch("bidi bidi", 10))
+                    .extracting(row -> row.get("id"))
+                    .first().isEqualTo(1);
+        }
+    }
+
+    private static List<Integer> songIds(List<SongCandidateService.Candidate> candidates) {
+        return candidates.stream().map(SongCandidateService.Candidate::songId).toList();
+    }
+}
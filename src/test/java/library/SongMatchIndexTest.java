@@ -0,0 +1,54 @@
+package library;
+
+import library.service.SongMatchIndexService;
+import library.util.SongMatchKeyStore;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SongMatchIndexTest {
+
+    @Test
+    void keysFollowCatalogChangesWithoutRebuilding() {
+        try (TestDatabaseSupport db = TestDatabaseSupport.create()) {
+            SongMatchIndexService index = new SongMatchIndexService(db.jdbcTemplate, db.writeQueue);
+            index.initialize();
+            assertThat(index.importLookup())
+                    .containsEntry(SongMatchKeyStore.importKey("Selena", "Amor Prohibido", "Bidi Bidi Bom Bom"), 1);
+            long builtGeneration = generation(db);
+
+            db.jdbcTemplate.update("UPDATE Artist SET name = 'Selena Quintanilla' WHERE id = 1");
+            db.jdbcTemplate.update("DELETE FROM Song WHERE id = 3");
+
+            assertThat(index.importLookup())
+                    .containsEntry(SongMatchKeyStore.importKey("Selena Quintanilla", "Amor Prohibido", "Bidi Bidi Bom Bom"), 1)
+                    .doesNotContainKey(SongMatchKeyStore.importKey("Selena", "Amor Prohibido", "Bidi Bidi Bom Bom"))
+                    .doesNotContainKey(SongMatchKeyStore.importKey("Bad Bunny", "Un Verano Sin Ti", "Titi Me Pregunto"));
+            assertThat(db.jdbcTemplate.queryForObject("SELECT COUNT(*) FROM song_match_dirty", Integer.class)).isZero();
+            assertThat(generation(db)).isEqualTo(builtGeneration + 1);
+        }
+    }
+
+    @Test
+    void indexReloadsWhenAnotherInstanceSynced() {
+        try (TestDatabaseSupport db = TestDatabaseSupport.create()) {
+            SongMatchIndexService first = new SongMatchIndexService(db.jdbcTemplate, db.writeQueue);
+            first.initialize();
+            SongMatchIndexService second = new SongMatchIndexService(db.jdbcTemplate, db.writeQueue);
+            second.initialize();
+
+            db.jdbcTemplate.update("UPDATE Song SET name = 'Bidi Bidi Bom Bom (Live)' WHERE id = 1");
+            assertThat(first.strictLookup())
+                    .containsEntry(SongMatchKeyStore.strictKey("Selena", "Amor Prohibido", "Bidi Bidi Bom Bom (Live)"), 1);
+
+            // The change was already applied to the table by the first instance
+            assertThat(second.strictLookup())
+                    .containsEntry(SongMatchKeyStore.strictKey("Selena", "Amor Prohibido", "Bidi Bidi Bom Bom (Live)"), 1)
+                    .doesNotContainKey(SongMatchKeyStore.strictKey("Selena", "Amor Prohibido", "Bidi Bidi Bom Bom"));
+        }
+    }
+
+    private static long generation(TestDatabaseSupport db) {
+        return db.jdbcTemplate.queryForObject("SELECT generation FROM song_match_state WHERE id = 1", Long.class);
+    }
+}
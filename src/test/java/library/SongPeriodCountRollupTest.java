@@ -0,0 +1,70 @@
+package library;
+
+import library.service.SongPeriodCountService;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SongPeriodCountRollupTest {
+
+    @Test
+    void initialBuildMatchesPlayTable() {
+        try (TestDatabaseSupport db = TestDatabaseSupport.create()) {
+            assertThat(db.songPeriodCountService.isReady()).isTrue();
+            assertThat(db.songPeriodCountService.checkConsistency()).isEmpty();
+            assertThat(storedCount(db, "months", "2024-01", 3)).isEqualTo(2);
+            assertThat(storedCount(db, "seasons", "2024-Spring", 3)).isEqualTo(3);
+            assertThat(storedCount(db, "decades", "2020s", 1)).isEqualTo(3);
+        }
+    }
+
+    @Test
+    void triggersFollowInsertsDeletesAndReassignments() {
+        try (TestDatabaseSupport db = TestDatabaseSupport.create()) {
+            SongPeriodCountService rollup = db.songPeriodCountService;
+
+            db.jdbcTemplate.update("""
+                    INSERT INTO Play (id, artist, album, song, play_date, song_id, account)
+                    VALUES (100, 'Selena', 'Amor Prohibido', 'Bidi Bidi Bom Bom', '2024-12-15 09:00', 1, 'vatito'),
+                           (101, 'Nobody', NULL, 'Unknown', '2024-12-16 09:00', NULL, 'vatito')
+                    """);
+            assertThat(storedCount(db, "seasons", "2025-Winter", 1)).isEqualTo(1);
+            assertThat(rollup.checkConsistency()).isEmpty();
+
+            db.jdbcTemplate.update("UPDATE Play SET song_id = 2 WHERE id = 101");
+            db.jdbcTemplate.update("UPDATE Play SET song_id = 3 WHERE id = 100");
+            db.jdbcTemplate.update("UPDATE Play SET play_date = '2023-06-01 09:00' WHERE id = 4");
+            assertThat(storedCount(db, "months", "2024-12", 1)).isZero();
+            assertThat(storedCount(db, "months", "2024-12", 2)).isEqualTo(1);
+            assertThat(rollup.checkConsistency()).isEmpty();
+
+            db.jdbcTemplate.update("DELETE FROM Play WHERE song_id = 3");
+            assertThat(storedCount(db, "years", "2024", 3)).isZero();
+            assertThat(rollup.checkConsistency()).isEmpty();
+        }
+    }
+
+    @Test
+    void rebuildRepairsDrift() {
+        try (TestDatabaseSupport db = TestDatabaseSupport.create()) {
+            SongPeriodCountService rollup = db.songPeriodCountService;
+            db.jdbcTemplate.update("UPDATE song_period_counts SET play_count = 99 WHERE period_type = 'months'");
+            db.jdbcTemplate.update("DELETE FROM song_period_counts WHERE period_type = 'years'");
+
+            assertThat(rollup.checkConsistency())
+                    .extracting(SongPeriodCountService.Mismatch::periodType)
+                    .contains("months", "years")
+                    .doesNotContain("days");
+
+            rollup.rebuild();
+            assertThat(rollup.checkConsistency()).isEmpty();
+        }
+    }
+
+    private static int storedCount(TestDatabaseSupport db, String periodType, String periodKey, int songId) {
+        Integer count = db.jdbcTemplate.queryForObject(
+                "SELECT COALESCE(SUM(play_count), 0) FROM song_period_counts WHERE period_type = ? AND period_key = ? AND song_id = ?",
+                Integer.class, periodType, periodKey, songId);
+        return count != null ? count : 0;
+    }
+}
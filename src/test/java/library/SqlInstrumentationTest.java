@@ -0,0 +1,55 @@
+package library;
+
+import library.config.InstrumentedDataSource;
+import library.config.SqliteRoutingDataSource;
+import library.service.SqlTimingService;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SqlInstrumentationTest {
+
+    @Test
+    void statementsAreTimedByCallerAndAttributedToTheCurrentRequest() {
+        SingleConnectionDataSource dataSource = new SingleConnectionDataSource("jdbc:sqlite::memory:", true);
+        try {
+            SqlTimingService timings = new SqlTimingService(new SqliteRoutingDataSource(dataSource, dataSource), 0, 2, false);
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(new InstrumentedDataSource(dataSource, timings));
+            jdbcTemplate.execute("CREATE TABLE Play (id INTEGER PRIMARY KEY, account TEXT)");
+            jdbcTemplate.update("INSERT INTO Play (id, account) VALUES (1, 'vatito'), (2, 'robertlover'), (3, 'vatito')");
+
+            timings.beginRequest("GET /plays");
+            List<Integer> ids = jdbcTemplate.queryForList("SELECT id FROM Play WHERE account = ? ORDER BY id", Integer.class, "vatito");
+            timings.handlerCompleted();
+            timings.endRequest();
+
+            assertThat(ids).containsExactly(1, 3);
+            assertThat(timings.callSiteStats())
+                    .singleElement()
+                    .satisfies(site -> {
+                        assertThat(site.callSite()).isEqualTo("SqlInstrumentationTest.statementsAreTimedByCallerAndAttributedToTheCurrentRequest");
+                        assertThat(site.statements()).isEqualTo(3);
+                    });
+            assertThat(timings.endpointStats())
+                    .singleElement()
+                    .satisfies(endpoint -> {
+                        assertThat(endpoint.endpoint()).isEqualTo("GET /plays");
+                        assertThat(endpoint.requests()).isEqualTo(1);
+                        assertThat(endpoint.meanStatements()).isEqualTo(1.0);
+                    });
+
+            // Threshold 0: everything is slow, and the log keeps only the newest two
+            assertThat(timings.slowQueries()).hasSize(2);
+            SqlTimingService.SlowQuery newest = timings.slowQueries().get(0);
+            assertThat(newest.getSql()).startsWith("SELECT id FROM Play");
+            assertThat(newest.getParameters()).containsExactly("'vatito'");
+            assertThat(newest.getEndpoint()).isEqualTo("GET /plays");
+        } finally {
+            dataSource.destroy();
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package library;
+
+import com.zaxxer.hikari.HikariDataSource;
+import library.config.SqliteRoutingDataSource;
+import library.config.SqliteRoutingJdbcTemplate;
+import library.service.SqliteWriteQueue;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import javax.sql.DataSource;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SqliteWriteRoutingTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void queriesUseQueryOnlyReadersWhileWritesShareTheSingleWriter() throws Exception {
+        try (SqliteRoutingDataSource routing = routingDataSource()) {
+            JdbcTemplate jdbcTemplate = new SqliteRoutingJdbcTemplate(routing);
+            jdbcTemplate.execute("CREATE TABLE item (id INTEGER PRIMARY KEY, name TEXT NOT NULL UNIQUE)");
+            jdbcTemplate.update("INSERT INTO item (name) VALUES ('first')");
+            assertThat(jdbcTemplate.queryForObject("SELECT last_insert_rowid()", Integer.class)).isEqualTo(1);
+            assertThat(routing.stats().readerAcquisitions()).isZero();
+
+            assertThat(jdbcTemplate.queryForList("SELECT name FROM item WHERE id = ?", String.class, 1))
+                    .containsExactly("first");
+            assertThat(routing.stats().readerAcquisitions()).isEqualTo(1);
+            assertThatThrownBy(() -> new JdbcTemplate(routing.getReader()).update("DELETE FROM item"))
+                    .isInstanceOf(DataAccessException.class);
+
+            // Nested acquisitions while holding the only writer connection reuse it
+            Integer nested = jdbcTemplate.execute((ConnectionCallback<Integer>) connection -> {
+                jdbcTemplate.update("INSERT INTO item (name) VALUES ('second')");
+                return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM item", Integer.class);
+            });
+            assertThat(nested).isEqualTo(2);
+            assertThat(routing.stats().reentrantWriterAcquisitions()).isEqualTo(2);
+            assertThat(SqliteRoutingDataSource.isWriterHeldByCurrentThread()).isFalse();
+        }
+    }
+
+    @Test
+    void queuedWritesAreGroupCommittedAndAFailingWriteOnlyFailsItself() throws Exception {
+        assertGroupCommit(DataSourceTransactionManager::new);
+    }
+
+    @Test
+    void groupCommitWorksOnTheApplicationsJpaTransactionManager() throws Exception {
+        assertGroupCommit(SqliteWriteRoutingTest::jpaTransactionManager);
+    }
+
+    private void assertGroupCommit(Function<DataSource, PlatformTransactionManager> transactionManager) throws Exception {
+        ExecutorService callers = Executors.newFixedThreadPool(4);
+        try (SqliteRoutingDataSource routing = routingDataSource()) {
+            JdbcTemplate jdbcTemplate = new SqliteRoutingJdbcTemplate(routing);
+            jdbcTemplate.execute("CREATE TABLE item (id INTEGER PRIMARY KEY, name TEXT NOT NULL UNIQUE)");
+            SqliteWriteQueue queue = new SqliteWriteQueue(transactionManager.apply(routing));
+            queue.start();
+            Map<String, AtomicInteger> runs = new ConcurrentHashMap<>();
+            Function<String, Integer> insert = name -> {
+                runs.computeIfAbsent(name, key -> new AtomicInteger()).incrementAndGet();
+                return jdbcTemplate.update("INSERT INTO item (name) VALUES (?)", name);
+            };
+
+            List<CompletableFuture<Integer>> round = submitWhileBlocked(queue, callers, List.of("a", "b", "c"), insert);
+            for (CompletableFuture<Integer> write : round) {
+                assertThat(write.get()).isEqualTo(1);
+            }
+            assertThat(queue.stats().batches()).isEqualTo(2);
+            assertThat(queue.stats().retriedBatches()).isZero();
+            assertThat(queue.stats().failedTasks()).isZero();
+
+            // The duplicate "a" rolls the batch back; retried one by one, its neighbours still commit
+            List<CompletableFuture<Integer>> failing = submitWhileBlocked(queue, callers, List.of("d", "a", "e"), insert);
+            assertThat(failing.get(0).get()).isEqualTo(1);
+            assertThat(failing.get(1)).failsWithin(Duration.ofSeconds(5));
+            assertThat(failing.get(2).get()).isEqualTo(1);
+            assertThat(queue.stats().retriedBatches()).isEqualTo(1);
+            assertThat(queue.stats().failedTasks()).isEqualTo(1);
+            assertThat(queue.stats().tasks()).isEqualTo(8);
+
+            assertThat(jdbcTemplate.queryForList("SELECT name FROM item ORDER BY name", String.class))
+                    .containsExactly("a", "b", "c", "d", "e");
+            queue.stop();
+        } finally {
+            callers.shutdownNow();
+        }
+    }
+
+    @Test
+    void queuedWritesSeeTheCallersRequestAndChunkedJobsLetOtherWritesIn() throws Exception {
+        ExecutorService callers = Executors.newFixedThreadPool(2);
+        try (SqliteRoutingDataSource routing = routingDataSource()) {
+            JdbcTemplate jdbcTemplate = new SqliteRoutingJdbcTemplate(routing);
+            jdbcTemplate.execute("CREATE TABLE item (id INTEGER PRIMARY KEY, name TEXT NOT NULL)");
+            SqliteWriteQueue queue = new SqliteWriteQueue(new DataSourceTransactionManager(routing));
+            queue.start();
+
+            RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+            try {
+                RequestAttributes callerAttributes = RequestContextHolder.getRequestAttributes();
+                assertThat(queue.write(RequestContextHolder::getRequestAttributes)).isSameAs(callerAttributes);
+            } finally {
+                RequestContextHolder.resetRequestAttributes();
+            }
+
+            // The job's second chunk waits until a write queued during the first one has committed
+            CountDownLatch interleaved = new CountDownLatch(1);
+            AtomicInteger chunks = new AtomicInteger();
+            queue.runInChunks(() -> {
+                int chunk = chunks.incrementAndGet();
+                jdbcTemplate.update("INSERT INTO item (name) VALUES (?)", "chunk " + chunk);
+                if (chunk == 1) {
+                    CompletableFuture.runAsync(() -> queue.run(() -> {
+                        jdbcTemplate.update("INSERT INTO item (name) VALUES ('edit')");
+                        interleaved.countDown();
+                    }), callers);
+                    while (queue.stats().queueDepth() == 0) {
+                        Thread.onSpinWait();
+                    }
+                }
+                return chunk < 3;
+            });
+            assertThat(interleaved.await(5, TimeUnit.SECONDS)).isTrue();
+            assertThat(jdbcTemplate.queryForList("SELECT name FROM item ORDER BY id", String.class))
+                    .containsExactly("chunk 1", "edit", "chunk 2", "chunk 3");
+            queue.stop();
+        } finally {
+            callers.shutdownNow();
+        }
+    }
+
+    /**
+     * Holds the writer thread on a blocking write until every write has been queued behind it,
+     * so they are all drained into one batch.
+     */
+    private static List<CompletableFuture<Integer>> submitWhileBlocked(
+            SqliteWriteQueue queue, ExecutorService callers, List<String> names,
+            Function<String, Integer> write) throws InterruptedException {
+        long queuedBefore = queue.stats().tasks();
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Void> blocker = CompletableFuture.runAsync(() -> queue.run(() -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }), callers);
+        while (queue.stats().tasks() == queuedBefore || queue.stats().queueDepth() > 0) {
+            Thread.sleep(5);
+        }
+
+        List<CompletableFuture<Integer>> writes = new ArrayList<>();
+        for (String name : names) {
+            writes.add(CompletableFuture.supplyAsync(() -> queue.write(() -> write.apply(name)), callers));
+        }
+        while (queue.stats().queueDepth() < names.size()) {
+            Thread.sleep(5);
+        }
+        release.countDown();
+        blocker.join();
+        return writes;
+    }
+
+    /**
+     * The transaction manager Spring Boot configures for the application, over dataSource.
+     */
+    private static PlatformTransactionManager jpaTransactionManager(DataSource dataSource) {
+        LocalContainerEntityManagerFactoryBean entityManagerFactory = new LocalContainerEntityManagerFactoryBean();
+        entityManagerFactory.setDataSource(dataSource);
+        entityManagerFactory.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+        entityManagerFactory.setPackagesToScan(SqliteWriteRoutingTest.class.getPackageName() + ".none");
+        entityManagerFactory.setJpaPropertyMap(Map.of("hibernate.dialect", "org.hibernate.community.dialect.SQLiteDialect"));
+        entityManagerFactory.afterPropertiesSet();
+        return new JpaTransactionManager(entityManagerFactory.getObject());
+    }
+
+    private SqliteRoutingDataSource routingDataSource() {
+        String url = "jdbc:sqlite:" + tempDir.resolve("music-stats.db") + "?busy_timeout=1000&journal_mode=WAL";
+        HikariDataSource writer = new HikariDataSource();
+        writer.setJdbcUrl(url);
+        writer.setMaximumPoolSize(1);
+        writer.setConnectionTimeout(2000);
+        HikariDataSource reader = new HikariDataSource();
+        reader.setJdbcUrl(url);
+        reader.setMaximumPoolSize(2);
+        reader.setConnectionTimeout(2000);
+        reader.setConnectionInitSql("PRAGMA query_only = 1");
+        return new SqliteRoutingDataSource(writer, reader);
+    }
+}
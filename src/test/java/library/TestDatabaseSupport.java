@@ -7,33 +7,53 @@ import library.repository.AlbumRepository;
 import library.repository.ArtistRepositoryImpl;
 import library.repository.SongRepository;
 import library.service.AppConfigService;
+import library.service.CatalogWinningPeriodService;
+import library.service.PlayDayIndexService;
+import library.service.PlayStatsService;
+import library.service.SongPeriodCountService;
+import library.service.SqliteWriteQueue;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.jdbc.core.ConnectionCallback;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
 import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
 
+import javax.sql.DataSource;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.RecordComponent;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.function.Supplier;
 
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
 final class TestDatabaseSupport implements AutoCloseable {
 
+    private static final List<String> PERFORMANCE_INDEX_SCRIPTS = List.of(
+            "db_timeframe_performance_indexes.sql",
+            "db_last_listened_performance_indexes.sql");
+
     private final SingleConnectionDataSource dataSource;
     final JdbcTemplate jdbcTemplate;
     final SongRepository songRepository;
     final ArtistRepositoryImpl artistRepository;
     final AlbumRepository albumRepository;
+    final SongPeriodCountService songPeriodCountService;
+    final SqliteWriteQueue writeQueue;
+    private final QueryRecorder queryRecorder = new QueryRecorder();
 
     private TestDatabaseSupport() {
         this.dataSource = new SingleConnectionDataSource();
         this.dataSource.setDriverClassName("org.sqlite.JDBC");
         this.dataSource.setUrl("jdbc:sqlite:file:music-stats-test-" + UUID.randomUUID() + "?mode=memory&cache=shared");
         this.dataSource.setSuppressClose(true);
-        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        DataSource recordedDataSource = queryRecorder.wrap(dataSource);
+        this.jdbcTemplate = new JdbcTemplate(recordedDataSource);
+        this.writeQueue = new SqliteWriteQueue(new DataSourceTransactionManager(recordedDataSource));
 
         AppConfigService appConfigService = mock(AppConfigService.class);
         when(appConfigService.getAlbumFullListenConfig())
@@ -41,21 +61,138 @@ final class TestDatabaseSupport implements AutoCloseable {
 
         createSchema();
         seedCatalog();
+        PlayDayIndexService playDayIndexService = new PlayDayIndexService(jdbcTemplate);
+        playDayIndexService.initialize();
+        new PlayStatsService(jdbcTemplate, playDayIndexService, writeQueue).initialize();
 
         this.songRepository = new SongRepository(jdbcTemplate, appConfigService);
         this.artistRepository = new ArtistRepositoryImpl(jdbcTemplate);
         this.albumRepository = new AlbumRepository(jdbcTemplate, appConfigService);
+        this.songPeriodCountService = new SongPeriodCountService(jdbcTemplate);
+        this.songPeriodCountService.initialize();
     }
 
     static TestDatabaseSupport create() {
         return new TestDatabaseSupport();
     }
 
+    /**
+     * A CatalogWinningPeriodService reading from an initialized period_attribute_winner table.
+     */
+    CatalogWinningPeriodService catalogWinningPeriodService() {
+        CatalogWinningPeriodService service = new CatalogWinningPeriodService(jdbcTemplate, songPeriodCountService, writeQueue);
+        service.initialize();
+        return service;
+    }
+
     @Override
     public void close() {
         dataSource.destroy();
     }
 
+    /**
+     * Runs call with statement recording on and checks it against the test's {@link QueryBudget}.
+     */
+    <T> T measure(String label, Supplier<T> call) {
+        queryRecorder.start();
+        long start = System.nanoTime();
+        T result;
+        QueryRecorder.Measurement measurement;
+        try {
+            result = call.get();
+        } finally {
+            measurement = queryRecorder.stop(System.nanoTime() - start);
+        }
+        QueryBudgetExtension.check(label, measurement);
+        return result;
+    }
+
+    /**
+     * Runs call with statement recording on and returns every statement it executed.
+     */
+    List<QueryRecorder.Execution> record(Runnable call) {
+        queryRecorder.start();
+        long start = System.nanoTime();
+        QueryRecorder.Measurement measurement;
+        try {
+            call.run();
+        } finally {
+            measurement = queryRecorder.stop(System.nanoTime() - start);
+        }
+        return measurement.executions();
+    }
+
+    /**
+     * Creates the production performance indexes from the scripts in the project root (the same
+     * files that are run against the real database) and refreshes planner statistics.
+     */
+    void applyPerformanceIndexes() {
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            for (String script : PERFORMANCE_INDEX_SCRIPTS) {
+                ScriptUtils.executeSqlScript(connection, new FileSystemResource(script));
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Adds a larger synthetic library next to the hand-written fixture, for budgets that should
+     * scale with data: artists 1000+ (one album each), songs 10000+, plays 100000+ spread over
+     * the first ten weeks of 2023, and finalized weekly song charts 2023-W01..W10 (chart ids
+     * 1001..1010, top 20 by plays).
+     */
+    void seedBulkLibrary(int artists, int songsPerArtist, int playsPerSong) {
+        int songs = artists * songsPerArtist;
+        jdbcTemplate.update("""
+                WITH RECURSIVE n(i) AS (SELECT 0 UNION ALL SELECT i + 1 FROM n WHERE i + 1 < ?)
+                INSERT INTO Artist (id, name, gender_id, country, ethnicity_id, genre_id, subgenre_id, language_id, is_band, organized)
+                SELECT 1000 + i, 'Bulk Artist ' || i, 1 + i % 3, 'United States', 1 + i % 3, 1 + i % 3, 1 + i % 3, 1 + i % 2, 0, 1
+                FROM n
+                """, artists);
+        jdbcTemplate.update("""
+                INSERT INTO Album (id, artist_id, name, release_date, number_of_songs, organized)
+                SELECT id, id, 'Bulk Album ' || (id - 1000), '2022-12-01', ?, 1 FROM Artist WHERE id >= 1000
+                """, songsPerArtist);
+        jdbcTemplate.update("""
+                WITH RECURSIVE n(i) AS (SELECT 0 UNION ALL SELECT i + 1 FROM n WHERE i + 1 < ?)
+                INSERT INTO Song (id, artist_id, album_id, name, length_seconds, is_single, release_date, organized, track_number)
+                SELECT 10000 + i, 1000 + i / ?, 1000 + i / ?, 'Bulk Song ' || i, 180 + i % 120, 0, '2022-12-01', 1, 1 + i % ?
+                FROM n
+                """, songs, songsPerArtist, songsPerArtist, songsPerArtist);
+        jdbcTemplate.update("""
+                WITH RECURSIVE n(i) AS (SELECT 0 UNION ALL SELECT i + 1 FROM n WHERE i + 1 < ?)
+                INSERT INTO Play (id, artist, album, song, play_date, song_id, account)
+                SELECT 100000 + n.i, ar.name, al.name, s.name,
+                       datetime('2023-01-02 12:00:00', '+' || ((n.i * 7 + n.i / ?) % 70) || ' days'), s.id,
+                       CASE WHEN n.i % 3 = 0 THEN 'robertlover' ELSE 'vatito' END
+                FROM n
+                JOIN Song s ON s.id = 10000 + n.i % ?
+                JOIN Artist ar ON ar.id = s.artist_id
+                LEFT JOIN Album al ON al.id = s.album_id
+                """, songs * playsPerSong, songs, songs);
+        jdbcTemplate.update("""
+                WITH RECURSIVE w(k) AS (SELECT 1 UNION ALL SELECT k + 1 FROM w WHERE k < 10)
+                INSERT INTO Chart (id, chart_type, period_type, period_key, period_start_date, period_end_date, is_finalized)
+                SELECT 1000 + k, 'song', 'weekly', printf('2023-W%02d', k),
+                       date('2023-01-02', '+' || ((k - 1) * 7) || ' days'),
+                       date('2023-01-02', '+' || ((k - 1) * 7 + 6) || ' days'), 1
+                FROM w
+                """);
+        jdbcTemplate.update("""
+                INSERT INTO ChartEntry (chart_id, position, song_id, play_count)
+                SELECT chart_id, position, song_id, plays
+                FROM (
+                    SELECT c.id AS chart_id, p.song_id, COUNT(*) AS plays,
+                           ROW_NUMBER() OVER (PARTITION BY c.id ORDER BY COUNT(*) DESC, p.song_id) AS position
+                    FROM Chart c
+                    JOIN Play p ON SUBSTR(p.play_date, 1, 10) BETWEEN c.period_start_date AND c.period_end_date
+                    WHERE c.id > 1000 AND p.song_id >= 10000
+                    GROUP BY c.id, p.song_id
+                )
+                WHERE position <= 20
+                """);
+    }
+
     private void createSchema() {
         executeAll(List.of(
                 "CREATE TABLE Gender (id INTEGER PRIMARY KEY, name TEXT NOT NULL, image BLOB)",
@@ -142,6 +279,7 @@ final class TestDatabaseSupport implements AutoCloseable {
                     period_key TEXT NOT NULL,
                     period_start_date TEXT NOT NULL,
                     period_end_date TEXT,
+                    generated_date TEXT,
                     is_finalized INTEGER DEFAULT 0
                 )
                 """,
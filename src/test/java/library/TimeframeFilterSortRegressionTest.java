@@ -116,7 +116,7 @@ class TimeframeFilterSortRegressionTest {
 
     @SuppressWarnings("unchecked")
     private static TimeframeResultDTO timeframes(TestDatabaseSupport db, Map<String, Object> overrides) {
-        TimeframeService service = new TimeframeService(db.jdbcTemplate);
+        TimeframeService service = new TimeframeService(db.jdbcTemplate, db.songPeriodCountService);
         String periodType = (String) overrides.getOrDefault("periodType", "months");
         String sortBy = (String) overrides.getOrDefault("sortBy", "plays");
         String sortDir = (String) overrides.getOrDefault("sortDir", "desc");
@@ -0,0 +1,58 @@
+package library;
+
+import library.dto.TopPlayedSnapshotDTO;
+import library.service.TopPlayedTimelineService;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TopPlayedTimelineTest {
+
+    @Test
+    void storedTimelinesMatchAFullReplayAfterAppendsAndBackDatedEdits() {
+        try (TestDatabaseSupport db = TestDatabaseSupport.create()) {
+            TopPlayedTimelineService stored = new TopPlayedTimelineService(db.jdbcTemplate, db.writeQueue);
+            stored.initialize();
+            TopPlayedTimelineService replay = new TopPlayedTimelineService(db.jdbcTemplate, db.writeQueue);
+
+            assertSameTimelines(stored, replay);
+            assertThat(stored.getArtistTimeline()).isNotEmpty()
+                    .last().satisfies(snapshot -> assertThat(snapshot.isCurrent()).isTrue());
+
+            // Appended plays, crossing into a new year so a checkpoint is written
+            db.jdbcTemplate.update("""
+                    INSERT INTO Play (id, artist, album, song, play_date, song_id, account)
+                    VALUES (100, 'Legacy Legend', NULL, 'Old Hit', '2025-01-02 10:00:00', 8, 'vatito'),
+                           (101, 'Legacy Legend', NULL, 'Old Hit', '2025-01-03 10:00:00', 8, 'vatito'),
+                           (102, 'Legacy Legend', NULL, 'Old Hit', '2025-01-04 10:00:00', 8, 'vatito'),
+                           (103, 'Legacy Legend', NULL, 'Old Hit', '2025-01-05 10:00:00', 8, 'vatito')
+                    """);
+            assertSameTimelines(stored, replay);
+
+            // Back-dated edits: resumed from the 2024 checkpoint, then replayed from scratch
+            db.jdbcTemplate.update("DELETE FROM Play WHERE id = 101");
+            assertSameTimelines(stored, replay);
+            db.jdbcTemplate.update("""
+                    INSERT INTO Play (id, artist, album, song, play_date, song_id, account)
+                    VALUES (104, 'The Static Hearts', 'Silent Record', 'Quiet Track', '2023-12-31 10:00:00', 6, 'vatito')
+                    """);
+            assertSameTimelines(stored, replay);
+
+            db.jdbcTemplate.update("UPDATE Artist SET genre_id = 3 WHERE id = 2");
+            db.jdbcTemplate.update("UPDATE Song SET artist_id = 6 WHERE id = 5");
+            assertSameTimelines(stored, replay);
+        }
+    }
+
+    private static void assertSameTimelines(TopPlayedTimelineService stored, TopPlayedTimelineService replay) {
+        assertSame(stored.getArtistTimeline(), replay.getArtistTimeline());
+        assertSame(stored.getSongTimeline(), replay.getSongTimeline());
+        assertSame(stored.getGenreTimeline(), replay.getGenreTimeline());
+    }
+
+    private static void assertSame(List<TopPlayedSnapshotDTO> stored, List<TopPlayedSnapshotDTO> replay) {
+        assertThat(stored).usingRecursiveComparison().isEqualTo(replay);
+    }
+}
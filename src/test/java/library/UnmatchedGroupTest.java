@@ -0,0 +1,64 @@
+package library;
+
+import library.service.PlayRawTrackService;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UnmatchedGroupTest {
+
+    @Test
+    void groupsFollowImportsAssignmentsAndDeletes() {
+        try (TestDatabaseSupport db = TestDatabaseSupport.create()) {
+            db.jdbcTemplate.update("""
+                    INSERT INTO Play (id, artist, album, song, play_date, song_id, account)
+                    VALUES (100, 'Selena', 'Amor Prohibido', 'Fotos y Recuerdos', '2024-02-01 10:00', NULL, 'vatito')
+                    """);
+            PlayRawTrackService service = new PlayRawTrackService(db.jdbcTemplate);
+            service.initialize();
+            assertThat(db.jdbcTemplate.queryForObject(
+                    "SELECT COUNT(*) FROM Play WHERE raw_track_id IS NULL", Integer.class)).isZero();
+
+            importPlay(db, 101, "Selena", "Amor Prohibido", "Fotos y Recuerdos", "vatito");
+            importPlay(db, 102, "SELENA", "amor prohibido", "fotos y recuerdos", "robertlover");
+            importPlay(db, 103, "Nobody", null, "Nothing", null);
+            assertThat(groups(service, null)).containsExactlyInAnyOrder(
+                    "vatito|Selena|Amor Prohibido|Fotos y Recuerdos|2",
+                    "robertlover|SELENA|amor prohibido|fotos y recuerdos|1",
+                    "|Nobody||Nothing|1");
+            assertThat(groups(service, "__BLANK__")).containsExactly("|Nobody||Nothing|1");
+
+            int assigned = service.assignUnmatched("selena", "AMOR PROHIBIDO", "Fotos Y Recuerdos", 2,
+                    "Selena", "Amor Prohibido", "No Me Queda Mas");
+            assertThat(assigned).isEqualTo(3);
+            assertThat(groups(service, null)).containsExactly("|Nobody||Nothing|1");
+
+            assertThat(service.deleteUnmatched(null, "Nobody", null, "Nothing")).isEqualTo(1);
+            assertThat(groups(service, null)).isEmpty();
+
+            db.jdbcTemplate.update("UPDATE Play SET song_id = NULL WHERE lastfm_id = 101");
+            assertThat(groups(service, "vatito")).containsExactly("vatito|Selena|Amor Prohibido|No Me Queda Mas|1");
+        }
+    }
+
+    /** Writes a play the way the importers do; lastfmId identifies it. */
+    private static void importPlay(TestDatabaseSupport db, int lastfmId, String artist, String album, String song,
+                                   String account) {
+        db.jdbcTemplate.update(PlayRawTrackService.INTERN_SQL, artist, album, song);
+        db.jdbcTemplate.update(PlayRawTrackService.INSERT_PLAY_SQL, PlayRawTrackService.insertPlayParameters(
+                lastfmId, "2024-02-0" + (lastfmId - 99) + " 10:00", artist, album, song, null, account));
+    }
+
+    private static List<String> groups(PlayRawTrackService service, String account) {
+        return service.findUnmatchedGroups(account).stream()
+                .map(UnmatchedGroupTest::format)
+                .toList();
+    }
+
+    private static String format(Map<String, Object> row) {
+        return row.get("account") + "|" + row.get("artist") + "|" + row.get("album") + "|" + row.get("song") + "|" + row.get("cnt");
+    }
+}
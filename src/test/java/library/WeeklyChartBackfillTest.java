@@ -0,0 +1,73 @@
+package library;
+
+import library.dto.ChartGenerationProgressDTO;
+import library.service.AppConfigService;
+import library.service.ChartRunStatsService;
+import library.service.WeeklyChartBackfillService;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class WeeklyChartBackfillTest {
+
+    @Test
+    void backfillReplacesExistingChartsAndCreatesMissingOnes() {
+        try (TestDatabaseSupport db = TestDatabaseSupport.create()) {
+            ChartGenerationProgressDTO progress = new ChartGenerationProgressDTO(2, 0, null, false);
+
+            int written = backfillService(db).backfill(List.of("2024-W09", "2024-W01"), progress);
+
+            assertThat(written).isEqualTo(2);
+            assertThat(progress.getCompletedWeeks()).isEqualTo(2);
+
+            // Existing chart keeps its id; stale entries are replaced with the ranked week
+            assertThat(entries(db, "song", "2024-W01")).containsExactly("1:1:2", "2:3:2", "3:2:1");
+            assertThat(chartId(db, "song", "2024-W01")).isEqualTo(1);
+            assertThat(entries(db, "album", "2024-W01")).containsExactly("1:1:3", "2:2:2");
+
+            assertThat(entries(db, "song", "2024-W09")).containsExactly("1:3:3");
+            assertThat(entries(db, "album", "2024-W09")).containsExactly("1:2:3");
+            assertThat(db.jdbcTemplate.queryForObject(
+                    "SELECT weeks_on_chart FROM chart_run_stats WHERE chart_id = ? AND item_id = 3",
+                    Integer.class, chartId(db, "song", "2024-W09"))).isEqualTo(2);
+            assertThat(db.jdbcTemplate.queryForObject("""
+                    SELECT period_start_date || '/' || period_end_date || '/' || is_finalized
+                    FROM Chart WHERE chart_type = 'song' AND period_key = '2024-W09'
+                    """, String.class)).isEqualTo("2024-02-26/2024-03-03/1");
+        }
+    }
+
+    private static WeeklyChartBackfillService backfillService(TestDatabaseSupport db) {
+        AppConfigService appConfigService = mock(AppConfigService.class);
+        when(appConfigService.isCombineLinkedSongsEnabled()).thenReturn(false);
+        ChartRunStatsService chartRunStatsService = new ChartRunStatsService(db.jdbcTemplate);
+        chartRunStatsService.initialize();
+        return new WeeklyChartBackfillService(
+                db.jdbcTemplate,
+                new DataSourceTransactionManager(db.jdbcTemplate.getDataSource()),
+                appConfigService,
+                chartRunStatsService);
+    }
+
+    private static Integer chartId(TestDatabaseSupport db, String chartType, String periodKey) {
+        return db.jdbcTemplate.queryForObject(
+                "SELECT id FROM Chart WHERE chart_type = ? AND period_key = ? AND period_type = 'weekly'",
+                Integer.class, chartType, periodKey);
+    }
+
+    private static List<String> entries(TestDatabaseSupport db, String chartType, String periodKey) {
+        String idColumn = "song".equals(chartType) ? "song_id" : "album_id";
+        return db.jdbcTemplate.queryForList("""
+                SELECT ce.position || ':' || ce.%s || ':' || ce.play_count
+                FROM ChartEntry ce
+                INNER JOIN Chart c ON c.id = ce.chart_id
+                WHERE c.chart_type = ? AND c.period_key = ? AND c.period_type = 'weekly'
+                ORDER BY ce.position
+                """.formatted(idColumn), String.class, chartType, periodKey);
+    }
+}
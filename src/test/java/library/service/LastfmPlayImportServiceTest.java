@@ -0,0 +1,221 @@
+package library.service;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+class LastfmPlayImportServiceTest {
+
+    /** 2024-01-01 00:00 UTC, the oldest scrobble served. */
+    private static final int FIRST_UTS = 1704067200;
+    private static final Pattern PAGE_PARAM = Pattern.compile("[?&]page=(\\d+)");
+
+    @Test
+    void failedPageKeepsCommittedPagesAndNextImportResumes() throws Exception {
+        SingleConnectionDataSource dataSource = new SingleConnectionDataSource();
+        dataSource.setDriverClassName("org.sqlite.JDBC");
+        dataSource.setUrl("jdbc:sqlite::memory:");
+        dataSource.setSuppressClose(true);
+
+        Map<Integer, AtomicInteger> requestsByPage = new ConcurrentHashMap<>();
+        AtomicInteger page2Failures = new AtomicInteger(1);
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/2.0/", exchange -> {
+            Matcher matcher = PAGE_PARAM.matcher(exchange.getRequestURI().getQuery());
+            int page = matcher.find() ? Integer.parseInt(matcher.group(1)) : 1;
+            requestsByPage.computeIfAbsent(page, p -> new AtomicInteger()).incrementAndGet();
+
+            boolean fail = page == 2 && page2Failures.getAndDecrement() > 0;
+            byte[] body = (fail ? "{}" : recentTracksPage(page)).getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(fail ? 500 : 200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.start();
+
+        try {
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+            jdbcTemplate.execute("""
+                    CREATE TABLE play (
+                        id INTEGER PRIMARY KEY,
+                        artist TEXT,
+                        album TEXT,
+                        song TEXT,
+                        lastfm_id INTEGER,
+                        play_date TEXT,
+                        song_id INTEGER,
+                        account TEXT
+                    )
+                    """);
+            new PlayRawTrackService(jdbcTemplate).initialize();
+            LastfmPlayImportService service = new LastfmPlayImportService(
+                    jdbcTemplate,
+                    new SqliteWriteQueue(new DataSourceTransactionManager(dataSource)),
+                    playStatsService(),
+                    "http://127.0.0.1:" + server.getAddress().getPort() + "/2.0/");
+            service.initialize();
+            Map<String, Integer> songLookup = Map.of(PlayService.createLookupKey("Selena", "Amor Prohibido", "Como La Flor"), 7);
+
+            // Pages commit oldest first: page 3 is saved before page 2 fails
+            assertThatThrownBy(() -> service.importRecentTracks("vatito", "key", songLookup))
+                    .hasMessageContaining("status 500 on page 2");
+            assertThat(jdbcTemplate.queryForList("SELECT lastfm_id FROM play ORDER BY lastfm_id", Integer.class))
+                    .containsExactly(FIRST_UTS, FIRST_UTS + 1);
+            assertThat(jdbcTemplate.queryForObject(
+                    "SELECT next_page FROM lastfm_import_checkpoint WHERE account = 'vatito'", Integer.class)).isEqualTo(2);
+
+            LastfmPlayImportService.ImportTotals totals = service.importRecentTracks("vatito", "key", songLookup);
+
+            assertThat(totals.processed()).isEqualTo(4);
+            assertThat(totals.matched()).isEqualTo(2);
+            assertThat(totals.unmatched()).isEqualTo(2);
+            assertThat(totals.totalPages()).isEqualTo(3);
+            assertThat(requestsByPage.get(3).get()).isEqualTo(1);
+            assertThat(jdbcTemplate.queryForList("""
+                    SELECT lastfm_id || ':' || COALESCE(song_id, '-') || ':' || play_date
+                    FROM play ORDER BY lastfm_id
+                    """, String.class)).containsExactly(
+                    FIRST_UTS + ":7:2023-12-31 18:00",
+                    (FIRST_UTS + 1) + ":-:2023-12-31 18:00",
+                    (FIRST_UTS + 3600) + ":7:2023-12-31 19:00",
+                    (FIRST_UTS + 3601) + ":-:2023-12-31 19:00",
+                    (FIRST_UTS + 7200) + ":7:2023-12-31 20:00",
+                    (FIRST_UTS + 7201) + ":-:2023-12-31 20:00");
+            assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM lastfm_import_checkpoint", Integer.class)).isZero();
+        } finally {
+            server.stop(0);
+            dataSource.destroy();
+        }
+    }
+
+    @Test
+    void reconcileOnlyTouchesPlaysThatDifferFromLastfm() throws Exception {
+        SingleConnectionDataSource dataSource = new SingleConnectionDataSource();
+        dataSource.setDriverClassName("org.sqlite.JDBC");
+        dataSource.setUrl("jdbc:sqlite::memory:");
+        dataSource.setSuppressClose(true);
+
+        // Last.fm has FIRST_UTS, +60 and +120 in the window
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/2.0/", exchange -> {
+            byte[] body = """
+                    {"recenttracks": {
+                      "track": [
+                        {"artist": {"#text": "Selena"}, "album": {"#text": "Amor Prohibido"}, "name": "Como La Flor", "date": {"uts": "%d"}},
+                        {"artist": {"#text": "Selena"}, "album": {"#text": "Amor Prohibido"}, "name": "Fotos y Recuerdos", "date": {"uts": "%d"}},
+                        {"artist": {"#text": "Selena"}, "album": {"#text": "Amor Prohibido"}, "name": "Como La Flor", "date": {"uts": "%d"}}
+                      ],
+                      "@attr": {"page": "1", "totalPages": "1"}
+                    }}
+                    """.formatted(FIRST_UTS + 120, FIRST_UTS + 60, FIRST_UTS).getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.start();
+
+        try {
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+            jdbcTemplate.execute("""
+                    CREATE TABLE play (
+                        id INTEGER PRIMARY KEY,
+                        artist TEXT,
+                        album TEXT,
+                        song TEXT,
+                        lastfm_id INTEGER,
+                        play_date TEXT,
+                        song_id INTEGER,
+                        account TEXT
+                    )
+                    """);
+            new PlayRawTrackService(jdbcTemplate).initialize();
+            // Local: FIRST_UTS twice (duplicate), +90 (gone from Last.fm), +120, an older play and another account
+            jdbcTemplate.update("""
+                    INSERT INTO play (id, lastfm_id, song, song_id, account) VALUES
+                        (1, ?, 'Como La Flor', 7, 'vatito'),
+                        (2, ?, 'Como La Flor', 7, 'vatito'),
+                        (3, ?, 'Deleted Scrobble', NULL, 'vatito'),
+                        (4, ?, 'Como La Flor', 7, 'vatito'),
+                        (5, ?, 'Old', NULL, 'vatito'),
+                        (6, ?, 'Other Account', NULL, 'robertlover')
+                    """, FIRST_UTS, FIRST_UTS, FIRST_UTS + 90, FIRST_UTS + 120, FIRST_UTS - 600, FIRST_UTS + 90);
+            LastfmPlayImportService service = new LastfmPlayImportService(
+                    jdbcTemplate,
+                    new SqliteWriteQueue(new DataSourceTransactionManager(dataSource)),
+                    playStatsService(),
+                    "http://127.0.0.1:" + server.getAddress().getPort() + "/2.0/");
+            service.initialize();
+            Map<String, Integer> songLookup = Map.of(PlayService.createLookupKey("Selena", "Amor Prohibido", "Como La Flor"), 7);
+
+            LastfmPlayImportService.ReconcileResult result =
+                    service.reconcileWindow("vatito", "key", FIRST_UTS - 60, FIRST_UTS + 300, songLookup);
+
+            assertThat(result.fetched()).isEqualTo(3);
+            assertThat(result.deletedPlayIds()).containsExactly(2L, 3L);
+            assertThat(result.insertedPlayIds()).containsExactly(7L);
+            assertThat(result.unmatched()).isEqualTo(1);
+            assertThat(jdbcTemplate.queryForList(
+                    "SELECT id || ':' || lastfm_id || ':' || song FROM play ORDER BY id", String.class)).containsExactly(
+                    "1:" + FIRST_UTS + ":Como La Flor",
+                    "4:" + (FIRST_UTS + 120) + ":Como La Flor",
+                    "5:" + (FIRST_UTS - 600) + ":Old",
+                    "6:" + (FIRST_UTS + 90) + ":Other Account",
+                    "7:" + (FIRST_UTS + 60) + ":Fotos y Recuerdos");
+
+            LastfmPlayImportService.ReconcileResult again =
+                    service.reconcileWindow("vatito", "key", FIRST_UTS - 60, FIRST_UTS + 300, songLookup);
+            assertThat(again.insertedPlayIds()).isEmpty();
+            assertThat(again.deletedPlayIds()).isEmpty();
+        } finally {
+            server.stop(0);
+            dataSource.destroy();
+        }
+    }
+
+    /**
+     * Page 1 holds the newest scrobbles (plus a now-playing entry without a date), page 3 the oldest.
+     */
+    private static String recentTracksPage(int page) {
+        int uts = FIRST_UTS + (3 - page) * 3600;
+        String nowPlaying = page == 1
+                ? """
+                  {"artist": {"#text": "Selena"}, "album": {"#text": "Dreaming of You"}, "name": "I Could Fall in Love", "@attr": {"nowplaying": "true"}},
+                  """
+                : "";
+        return """
+                {"recenttracks": {
+                  "track": [
+                    %s{"artist": {"#text": "Selena"}, "album": {"#text": "Amor Prohibido"}, "name": "Como La Flor", "date": {"uts": "%d"}},
+                    {"artist": {"#text": "Selena"}, "album": {"#text": "Amor Prohibido"}, "name": "Fotos y Recuerdos", "date": {"uts": "%d"}}
+                  ],
+                  "@attr": {"page": "%d", "totalPages": "3"}
+                }}
+                """.formatted(nowPlaying, uts, uts + 1, page);
+    }
+
+    /** The tables here have no stats triggers, so the suspended writes just run. */
+    private static PlayStatsService playStatsService() {
+        PlayStatsService playStatsService = mock(PlayStatsService.class);
+        doAnswer(invocation -> {
+            invocation.<Runnable>getArgument(1).run();
+            return null;
+        }).when(playStatsService).runWithTriggersSuspended(any(), any());
+        return playStatsService;
+    }
+}
@@ -0,0 +1,73 @@
+package library.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class PlayBulkLoadServiceTest {
+
+    @Test
+    void loadsQuotedCsvRowsInCommittedChunks() throws Exception {
+        SingleConnectionDataSource dataSource = new SingleConnectionDataSource();
+        dataSource.setDriverClassName("org.sqlite.JDBC");
+        dataSource.setUrl("jdbc:sqlite::memory:");
+        dataSource.setSuppressClose(true);
+
+        try {
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+            jdbcTemplate.execute("""
+                    CREATE TABLE play (
+                        id INTEGER PRIMARY KEY,
+                        artist TEXT,
+                        album TEXT,
+                        song TEXT,
+                        lastfm_id INTEGER,
+                        play_date TEXT,
+                        song_id INTEGER,
+                        account TEXT
+                    )
+                    """);
+            new PlayRawTrackService(jdbcTemplate).initialize();
+            String csv = """
+                    uts,utc_time,artist,artist_mbid,album,album_mbid,track,track_mbid
+                    1704067200,"01 Jan 2024, 00:00",Selena,,Amor Prohibido,,Como La Flor,
+                    1704070800,"01 Jan 2024, 01:00","Earth, Wind & Fire",,"The Best of Earth, Wind & Fire, Vol. 1",,"September",
+                    not-a-number,"01 Jan 2024, 02:00",Selena,,Amor Prohibido,,Como La Flor,
+                    1704074400,"01 Jan 2024, 02:00",Selena,,Amor Prohibido,,"Como La Flor",
+                    """;
+            Map<String, Integer> songLookup = Map.of(PlayService.createLookupKey("Selena", "Amor Prohibido", "Como La Flor"), 7);
+
+            PlayBulkLoadService.LoadResult result = new PlayBulkLoadService(jdbcTemplate, mock(PlayStatsService.class),
+                    new SqliteWriteQueue(new DataSourceTransactionManager(dataSource))).load(
+                    new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), "vatito", songLookup, 2, false);
+
+            assertThat(result.processed()).isEqualTo(3);
+            assertThat(result.matched()).isEqualTo(2);
+            assertThat(result.unmatched()).isEqualTo(1);
+            assertThat(result.errors()).isEqualTo(1);
+            assertThat(result.unmatchedCounts()).containsOnlyKeys("Earth, Wind & Fire||The Best of Earth, Wind & Fire, Vol. 1||September");
+            assertThat(jdbcTemplate.queryForList("""
+                    SELECT lastfm_id || '|' || play_date || '|' || artist || '|' || COALESCE(song_id, '-') || '|' || account
+                    FROM play ORDER BY lastfm_id
+                    """, String.class)).containsExactly(
+                    "1704067200|2023-12-31 18:00|Selena|7|vatito",
+                    "1704070800|2023-12-31 19:00|Earth, Wind & Fire|-|vatito",
+                    "1704074400|2023-12-31 20:00|Selena|7|vatito");
+            // Both Selena rows share one interned raw track; only the unmatched row is grouped
+            assertThat(jdbcTemplate.queryForObject("SELECT COUNT(DISTINCT raw_track_id) FROM play WHERE raw_track_id IS NOT NULL",
+                    Integer.class)).isEqualTo(2);
+            assertThat(jdbcTemplate.queryForList("SELECT account || '|' || play_count FROM unmatched_group", String.class))
+                    .containsExactly("vatito|1");
+        } finally {
+            dataSource.destroy();
+        }
+    }
+}
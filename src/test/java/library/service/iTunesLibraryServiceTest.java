@@ -49,4 +49,51 @@ class iTunesLibraryServiceTest {
         assertThat(data.trackNumber).isEqualTo(2);
         assertThat(data.matchType).isEqualTo("exact");
     }
+
+    @Test
+    void libraryIsStreamedOnceAndSharedUntilTheFileChanges() throws Exception {
+        Path tempDir = Path.of("target", "test-itunes-library-service");
+        Files.createDirectories(tempDir);
+        Path libraryXml = tempDir.resolve("Shared Library.xml");
+        Files.writeString(libraryXml, """
+                <?xml version="1.0" encoding="UTF-8"?>
+                <!DOCTYPE plist PUBLIC "-//Apple//DTD PLIST 1.0//EN" "http://www.apple.com/DTDs/PropertyList-1.0.dtd">
+                <plist version="1.0">
+                <dict>
+                  <key>Features</key><dict><key>Sync</key><true/></dict>
+                  <key>Tracks</key>
+                  <dict>
+                    <key>101</key>
+                    <dict>
+                      <key>Track ID</key><integer>101</integer>
+                      <key>Name</key><string>Rock &amp; Roll</string>
+                      <key>Artist</key><string>Led Zeppelin</string>
+                      <key>Album</key><string>IV</string>
+                      <key>Persistent ID</key><string>A1</string>
+                    </dict>
+                    <key>102</key>
+                    <dict>
+                      <key>Track ID</key><integer>102</integer>
+                      <key>Name</key><string>Episode 1</string>
+                      <key>Podcast</key><true/>
+                    </dict>
+                  </dict>
+                  <key>Playlists</key>
+                  <array><dict><key>Name</key><string>Library</string></dict></array>
+                </dict>
+                </plist>
+                """, StandardCharsets.UTF_8);
+
+        iTunesLibraryService service = new iTunesLibraryService();
+        var tracks = service.getTracks(libraryXml.toString());
+
+        assertThat(tracks).hasSize(2);
+        assertThat(tracks.get(0).name()).isEqualTo("Rock & Roll");
+        assertThat(tracks.get(1).podcast()).isTrue();
+        assertThat(service.getTracks(libraryXml.toString())).isSameAs(tracks);
+        assertThat(service.loadLibrary(libraryXml.toString())).containsKey("rock & roll||led zeppelin||iv");
+
+        libraryXml.toFile().setLastModified(libraryXml.toFile().lastModified() + 2000);
+        assertThat(service.getTracks(libraryXml.toString())).isNotSameAs(tracks).hasSize(2);
+    }
 }